@@ -18,6 +18,10 @@ import jsat.regression.RegressionDataSet;
  * The ARFF file formal allows for attributes that have missing information, which 
  * is not supported by JSAT. Any data point with missing information will be 
  * skipped in the loading process. 
+ * <br><br>
+ * This class loads the whole file into memory. To process files that are too 
+ * large for that, see {@link jsat.io.ARFFReader} and 
+ * {@link jsat.io.ARFFWriter}. 
  * 
  * <br>
  * <a href="http://www.cs.waikato.ac.nz/ml/weka/arff.html">About Weka</a>
@@ -0,0 +1,796 @@
+package jsat;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.datatransform.DataTransform;
+import jsat.linear.*;
+import jsat.utils.FakeExecutor;
+import jsat.utils.SystemInfo;
+
+/**
+ * A ColumnarStore is a primitive backed storage engine for the rows of a
+ * {@link DataSet}. Instead of keeping one {@link DataPoint} object (with its
+ * own {@link Vec}, categorical array, and weight) per row, all values are
+ * packed into a small number of large primitive arrays:
+ * <ul>
+ * <li>the numeric features are kept either as one contiguous {@code double[]}
+ * per column ({@link Layout#COLUMN_MAJOR}), or as a single packed row-major
+ * {@code double[]} block ({@link Layout#ROW_MAJOR})</li>
+ * <li>each categorical feature is kept in its own {@code int[]} column</li>
+ * <li>the weights are kept in a single {@code double[]}</li>
+ * </ul>
+ * This greatly reduces the per-row object overhead for large data sets. Rows
+ * are returned as light weight {@link DataPoint} views, so that existing code
+ * that works one row at a time continues to function. Changes to the numeric
+ * values or weight of a returned data point will be reflected in the store.
+ * The categorical values of a returned data point are a copy. <br>
+ * <br>
+ * Learning algorithms that operate on columns may obtain the raw arrays
+ * without copying through {@link #getRawColumn(int) },
+ * {@link #getRawRowBlock() }, {@link #getRawCategoricalColumn(int) } and
+ * {@link #getRawWeights() }. The raw arrays may be larger than
+ * {@link #size() }, see {@link #trimToSize() }. Any views or raw arrays
+ * obtained should be discarded once rows have been added, as the store may
+ * need to allocate new arrays to hold the new rows. <br>
+ * <br>
+ * Sparse inputs are stored densely.
+ *
+ * @author Edward Raff
+ */
+public class ColumnarStore implements Serializable
+{
+
+    private static final long serialVersionUID = -3518254062419373415L;
+
+    /**
+     * Controls how the numeric features of a {@link ColumnarStore} are laid
+     * out in memory.
+     */
+    public static enum Layout
+    {
+        /**
+         * Each numeric feature is stored in its own contiguous array. This
+         * makes column access free, and is best for column oriented learners
+         * such as decision trees.
+         */
+        COLUMN_MAJOR,
+        /**
+         * All numeric features are stored in one array, with each row stored
+         * contiguously. Rows can then be returned as {@link DenseVector} views
+         * without copying, which is best for row oriented learners such as
+         * linear models and nearest neighbor methods. The total number of
+         * numeric values is limited to {@link Integer#MAX_VALUE}.
+         */
+        ROW_MAJOR
+    }
+
+    private static final int[] emptyInt = new int[0];
+
+    private final Layout layout;
+    private final int numNumeric;
+    private final CategoricalData[] categories;
+    private int size;
+    private int capacity;
+    /**
+     * The numeric columns, used when in {@link Layout#COLUMN_MAJOR}
+     */
+    private double[][] columns;
+    /**
+     * The packed numeric rows, used when in {@link Layout#ROW_MAJOR}
+     */
+    private double[] rowBlock;
+    private int[][] catColumns;
+    private double[] weights;
+
+    /**
+     * Creates a new empty store
+     * @param numNumeric the number of numeric features for each row
+     * @param categories the information about each categorical feature
+     * @param layout the memory layout to use for the numeric features
+     */
+    public ColumnarStore(int numNumeric, CategoricalData[] categories, Layout layout)
+    {
+        this(numNumeric, categories, layout, 16);
+    }
+
+    /**
+     * Creates a new empty store
+     * @param numNumeric the number of numeric features for each row
+     * @param categories the information about each categorical feature
+     * @param layout the memory layout to use for the numeric features
+     * @param initialCapacity the number of rows to allocate space for
+     */
+    public ColumnarStore(int numNumeric, CategoricalData[] categories, Layout layout, int initialCapacity)
+    {
+        if(numNumeric < 0)
+            throw new IllegalArgumentException("Number of numeric features must be non-negative, not " + numNumeric);
+        if(initialCapacity < 1)
+            initialCapacity = 1;
+        this.layout = layout;
+        this.numNumeric = numNumeric;
+        this.categories = categories;
+        this.size = 0;
+        this.capacity = 0;
+        this.catColumns = new int[categories.length][];
+        if(layout == Layout.COLUMN_MAJOR)
+            columns = new double[numNumeric][];
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the store to copy
+     * @param shareFeatures {@code true} to share the numeric and categorical
+     * arrays with the original, or {@code false} to copy them. The weights are
+     * always copied.
+     */
+    private ColumnarStore(ColumnarStore toCopy, boolean shareFeatures)
+    {
+        this.layout = toCopy.layout;
+        this.numNumeric = toCopy.numNumeric;
+        this.categories = toCopy.categories;
+        this.size = toCopy.size;
+        //a copy that shares the features treats the shared arrays as full, so
+        //any add to it will allocate new arrays. Rows the original adds later
+        //are past the end of the copy, and never seen by it.
+        this.capacity = shareFeatures ? toCopy.size : toCopy.capacity;
+        this.weights = Arrays.copyOf(toCopy.weights, capacity);
+        this.catColumns = new int[toCopy.catColumns.length][];
+        for(int j = 0; j < catColumns.length; j++)
+            catColumns[j] = shareFeatures ? toCopy.catColumns[j] : Arrays.copyOf(toCopy.catColumns[j], capacity);
+        if(layout == Layout.COLUMN_MAJOR)
+        {
+            columns = new double[numNumeric][];
+            for(int j = 0; j < numNumeric; j++)
+                columns[j] = shareFeatures ? toCopy.columns[j] : Arrays.copyOf(toCopy.columns[j], capacity);
+        }
+        else
+            rowBlock = shareFeatures ? toCopy.rowBlock : Arrays.copyOf(toCopy.rowBlock, toCopy.rowBlock.length);
+    }
+
+    /**
+     * Makes sure there is room for at least {@code minCapacity} rows
+     * @param minCapacity the minimum number of rows to hold
+     */
+    private void ensureCapacity(int minCapacity)
+    {
+        if(minCapacity <= capacity)
+            return;
+        int newCapacity = (int) Math.min(Math.max(capacity*3L/2, minCapacity), Integer.MAX_VALUE-8);
+        if(newCapacity < minCapacity)
+            throw new OutOfMemoryError("Can not store " + minCapacity + " rows");
+        resize(newCapacity);
+    }
+
+    private void resize(int newCapacity)
+    {
+        if(layout == Layout.COLUMN_MAJOR)
+        {
+            for (int j = 0; j < numNumeric; j++)
+                columns[j] = columns[j] == null ? new double[newCapacity] : Arrays.copyOf(columns[j], newCapacity);
+        }
+        else
+        {
+            long total = newCapacity * (long) numNumeric;
+            if (total > Integer.MAX_VALUE - 8)
+                throw new OutOfMemoryError("ROW_MAJOR layout can not store " + total + " numeric values, use COLUMN_MAJOR instead");
+            rowBlock = rowBlock == null ? new double[(int) total] : Arrays.copyOf(rowBlock, (int) total);
+        }
+        for (int j = 0; j < catColumns.length; j++)
+            catColumns[j] = catColumns[j] == null ? new int[newCapacity] : Arrays.copyOf(catColumns[j], newCapacity);
+        weights = weights == null ? new double[newCapacity] : Arrays.copyOf(weights, newCapacity);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Reduces the size of the backing arrays so that they are exactly the
+     * length needed to hold the current rows.
+     */
+    public void trimToSize()
+    {
+        if(capacity != size)
+            resize(Math.max(size, 1));
+    }
+
+    /**
+     * Returns the number of rows in this store
+     * @return the number of rows in this store
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the memory layout used for the numeric features
+     * @return the memory layout used for the numeric features
+     */
+    public Layout getLayout()
+    {
+        return layout;
+    }
+
+    /**
+     * Returns the number of numeric features in each row
+     * @return the number of numeric features in each row
+     */
+    public int getNumNumericalVars()
+    {
+        return numNumeric;
+    }
+
+    /**
+     * Returns the number of categorical features in each row
+     * @return the number of categorical features in each row
+     */
+    public int getNumCategoricalVars()
+    {
+        return categories.length;
+    }
+
+    /**
+     * Returns the categorical feature information used by this store
+     * @return the categorical feature information used by this store
+     */
+    public CategoricalData[] getCategories()
+    {
+        return categories;
+    }
+
+    /**
+     * Appends a new row to the end of this store. The values are copied into
+     * the store, so the given objects may be reused by the caller.
+     *
+     * @param numeric the numeric values of the row
+     * @param cats the categorical values of the row
+     * @param weight the weight of the row
+     * @return the index of the new row
+     */
+    public int add(Vec numeric, int[] cats, double weight)
+    {
+        checkRow(numeric, cats);
+        ensureCapacity(size+1);
+        write(size, numeric, cats, weight);
+        return size++;
+    }
+
+    /**
+     * Appends a new row to the end of this store, copying the values of the
+     * given data point
+     * @param dp the data point to add
+     * @return the index of the new row
+     */
+    public int add(DataPoint dp)
+    {
+        return add(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getWeight());
+    }
+
+    /**
+     * Replaces the values of the given row
+     * @param i the index of the row to replace
+     * @param numeric the numeric values of the row
+     * @param cats the categorical values of the row
+     * @param weight the weight of the row
+     */
+    public void set(int i, Vec numeric, int[] cats, double weight)
+    {
+        rangeCheck(i);
+        checkRow(numeric, cats);
+        write(i, numeric, cats, weight);
+    }
+
+    private void checkRow(Vec numeric, int[] cats)
+    {
+        if(numeric.length() != numNumeric)
+            throw new IllegalArgumentException("Row has " + numeric.length() + " numeric values, expected " + numNumeric);
+        if(cats.length != categories.length)
+            throw new IllegalArgumentException("Row has " + cats.length + " categorical values, expected " + categories.length);
+    }
+
+    private void rangeCheck(int i)
+    {
+        if(i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Row " + i + " is not in the range [0, " + size + ")");
+    }
+
+    private void write(int i, Vec numeric, int[] cats, double weight)
+    {
+        if(layout == Layout.COLUMN_MAJOR)
+        {
+            if(numeric.isSparse())
+            {
+                for(int j = 0; j < numNumeric; j++)
+                    columns[j][i] = 0.0;
+                for(IndexValue iv : numeric)
+                    columns[iv.getIndex()][i] = iv.getValue();
+            }
+            else
+                for(int j = 0; j < numNumeric; j++)
+                    columns[j][i] = numeric.get(j);
+        }
+        else
+        {
+            int offset = i*numNumeric;
+            if(numeric.isSparse())
+            {
+                Arrays.fill(rowBlock, offset, offset+numNumeric, 0.0);
+                for(IndexValue iv : numeric)
+                    rowBlock[offset+iv.getIndex()] = iv.getValue();
+            }
+            else
+                for(int j = 0; j < numNumeric; j++)
+                    rowBlock[offset+j] = numeric.get(j);
+        }
+        for(int j = 0; j < cats.length; j++)
+            catColumns[j][i] = cats[j];
+        weights[i] = weight;
+    }
+
+    /**
+     * Returns the value of a numeric feature
+     * @param i the row index
+     * @param j the numeric feature index
+     * @return the value of the {@code j}'th numeric feature of row {@code i}
+     */
+    public double getNumeric(int i, int j)
+    {
+        if(layout == Layout.COLUMN_MAJOR)
+            return columns[j][i];
+        else
+            return rowBlock[i*numNumeric+j];
+    }
+
+    /**
+     * Sets the value of a numeric feature
+     * @param i the row index
+     * @param j the numeric feature index
+     * @param value the new value for the {@code j}'th numeric feature of row
+     * {@code i}
+     */
+    public void setNumeric(int i, int j, double value)
+    {
+        if(layout == Layout.COLUMN_MAJOR)
+            columns[j][i] = value;
+        else
+            rowBlock[i*numNumeric+j] = value;
+    }
+
+    /**
+     * Returns the value of a categorical feature
+     * @param i the row index
+     * @param j the categorical feature index
+     * @return the value of the {@code j}'th categorical feature of row
+     * {@code i}
+     */
+    public int getCategorical(int i, int j)
+    {
+        return catColumns[j][i];
+    }
+
+    /**
+     * Returns the weight of the given row
+     * @param i the row index
+     * @return the weight of row {@code i}
+     */
+    public double getWeight(int i)
+    {
+        return weights[i];
+    }
+
+    /**
+     * Sets the weight of the given row
+     * @param i the row index
+     * @param weight the new weight for row {@code i}
+     */
+    public void setWeight(int i, double weight)
+    {
+        weights[i] = weight;
+    }
+
+    /**
+     * Returns a vector view of the numeric values of the given row. Changes
+     * to the vector will be reflected in the store. For the
+     * {@link Layout#ROW_MAJOR} layout this is a {@link DenseVector} backed
+     * directly by the row block.
+     *
+     * @param i the row index
+     * @return a view of the numeric values of row {@code i}
+     */
+    public Vec getRowView(int i)
+    {
+        rangeCheck(i);
+        if(layout == Layout.ROW_MAJOR)
+            return new DenseVector(rowBlock, i*numNumeric, (i+1)*numNumeric);
+        else
+            return new RowView(i);
+    }
+
+    /**
+     * Returns a new array containing the categorical values of the given row
+     * @param i the row index
+     * @return a copy of the categorical values of row {@code i}
+     */
+    public int[] getCategoricalRow(int i)
+    {
+        if(catColumns.length == 0)
+            return emptyInt;
+        int[] cats = new int[catColumns.length];
+        for(int j = 0; j < cats.length; j++)
+            cats[j] = catColumns[j][i];
+        return cats;
+    }
+
+    /**
+     * Returns a light weight data point view of the given row. Changes to the
+     * numeric values and weight of the data point will be reflected in this
+     * store.
+     *
+     * @param i the row index
+     * @return a data point for row {@code i}
+     */
+    public DataPoint getDataPoint(int i)
+    {
+        return new RowDataPoint(i);
+    }
+
+    /**
+     * Returns a vector view of a numeric column. Changes to the vector will
+     * be reflected in the store. For the {@link Layout#COLUMN_MAJOR} layout
+     * this is a {@link DenseVector} backed directly by the column array.
+     *
+     * @param j the numeric feature index
+     * @return a view of the {@code j}'th numeric column
+     */
+    public Vec getColumnView(int j)
+    {
+        if(j < 0 || j >= numNumeric)
+            throw new IndexOutOfBoundsException("There is no index for column " + j);
+        if(layout == Layout.COLUMN_MAJOR)
+            return new DenseVector(columns[j], 0, size);
+        else
+            return new ColumnView(j);
+    }
+
+    /**
+     * Returns a new vector that contains a copy of a numeric column
+     * @param j the numeric feature index
+     * @return a copy of the {@code j}'th numeric column
+     */
+    public DenseVector getColumnCopy(int j)
+    {
+        if(j < 0 || j >= numNumeric)
+            throw new IndexOutOfBoundsException("There is no index for column " + j);
+        if(layout == Layout.COLUMN_MAJOR)
+            return new DenseVector(Arrays.copyOf(columns[j], size));
+        double[] col = new double[size];
+        for(int i = 0, pos = j; i < size; i++, pos += numNumeric)
+            col[i] = rowBlock[pos];
+        return new DenseVector(col);
+    }
+
+    /**
+     * Returns an array of column views, as described by
+     * {@link DataSet#getNumericColumns(java.util.Set) }
+     * @param skipColumns the set of columns that should be {@code null} in the
+     * returned array
+     * @return an array of column views
+     */
+    public Vec[] getColumnViews(Set<Integer> skipColumns)
+    {
+        Vec[] cols = new Vec[numNumeric];
+        for(int j = 0; j < numNumeric; j++)
+            if(!skipColumns.contains(j))
+                cols[j] = layout == Layout.COLUMN_MAJOR ? getColumnView(j) : getColumnCopy(j);
+        return cols;
+    }
+
+    /**
+     * Returns a matrix view of the numeric values in this store, where each
+     * row of the matrix is a row in the store. Changes to the matrix will be
+     * reflected in the store.
+     * @return a matrix view of the numeric values
+     */
+    public Matrix getMatrixView()
+    {
+        if(layout == Layout.ROW_MAJOR)
+        {
+            Vec[] rows = new Vec[size];
+            for(int i = 0; i < size; i++)
+                rows[i] = getRowView(i);
+            return new MatrixOfVecs(rows);
+        }
+        else
+        {
+            Vec[] cols = new Vec[numNumeric];
+            for(int j = 0; j < numNumeric; j++)
+                cols[j] = getColumnView(j);
+            return new TransposeView(new MatrixOfVecs(cols));
+        }
+    }
+
+    /**
+     * Returns the array backing the given numeric column. Only available for
+     * the {@link Layout#COLUMN_MAJOR} layout. The array may be longer than
+     * {@link #size() }.
+     *
+     * @param j the numeric feature index
+     * @return the array backing the {@code j}'th numeric column
+     */
+    public double[] getRawColumn(int j)
+    {
+        if(layout != Layout.COLUMN_MAJOR)
+            throw new UnsupportedOperationException("Raw columns are only available for the COLUMN_MAJOR layout");
+        return columns[j];
+    }
+
+    /**
+     * Returns the row-major block backing the numeric values, where the
+     * {@code j}'th value of row {@code i} is at index
+     * {@code i*}{@link #getNumNumericalVars() }{@code +j}. Only available for
+     * the {@link Layout#ROW_MAJOR} layout. The array may be longer than needed
+     * for {@link #size() } rows.
+     *
+     * @return the array backing the numeric values
+     */
+    public double[] getRawRowBlock()
+    {
+        if(layout != Layout.ROW_MAJOR)
+            throw new UnsupportedOperationException("The raw row block is only available for the ROW_MAJOR layout");
+        return rowBlock;
+    }
+
+    /**
+     * Returns the array backing the given categorical column. The array may
+     * be longer than {@link #size() }.
+     *
+     * @param j the categorical feature index
+     * @return the array backing the {@code j}'th categorical column
+     */
+    public int[] getRawCategoricalColumn(int j)
+    {
+        return catColumns[j];
+    }
+
+    /**
+     * Returns the array backing the row weights. The array may be longer than
+     * {@link #size() }.
+     * @return the array backing the row weights
+     */
+    public double[] getRawWeights()
+    {
+        return weights;
+    }
+
+    /**
+     * Creates a new store containing copies of the given rows, in the order
+     * given.
+     * @param rows the indices of the rows to copy
+     * @return a new store with the selected rows
+     */
+    public ColumnarStore select(List<Integer> rows)
+    {
+        ColumnarStore sel = new ColumnarStore(numNumeric, categories, layout, rows.size());
+        int k = 0;
+        for(int i : rows)
+        {
+            rangeCheck(i);
+            if(layout == Layout.COLUMN_MAJOR)
+                for(int j = 0; j < numNumeric; j++)
+                    sel.columns[j][k] = columns[j][i];
+            else
+                System.arraycopy(rowBlock, i*numNumeric, sel.rowBlock, k*numNumeric, numNumeric);
+            for(int j = 0; j < catColumns.length; j++)
+                sel.catColumns[j][k] = catColumns[j][i];
+            sel.weights[k] = weights[i];
+            k++;
+        }
+        sel.size = k;
+        return sel;
+    }
+
+    /**
+     * Creates a shallow copy of this store. The feature values are shared
+     * between the two stores, so altering a feature value in one will be
+     * visible in the other. The weights are not shared. Adding rows to either
+     * store will not effect the other, and this store is not altered.
+     *
+     * @return a shallow copy of this store
+     */
+    public ColumnarStore shallowCopy()
+    {
+        return new ColumnarStore(this, true);
+    }
+
+    /**
+     * Creates a deep copy of this store
+     * @return a deep copy of this store
+     */
+    public ColumnarStore copy()
+    {
+        return new ColumnarStore(this, false);
+    }
+
+    /**
+     * Creates a new store with the same layout by applying the given transform
+     * to every row of this store. This store is not altered.
+     *
+     * @param dt the transform to apply
+     * @param ex the source of threads, may be {@code null} to perform the work
+     * in serial
+     * @return a new store containing the transformed rows
+     */
+    public ColumnarStore transform(final DataTransform dt, ExecutorService ex)
+    {
+        if(ex == null)
+            ex = new FakeExecutor();
+        final DataPoint[] transformed = new DataPoint[size];
+        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        for(int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int ID = id;
+            ex.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = ID; i < size; i += SystemInfo.LogicalCores)
+                        transformed[i] = dt.transform(getDataPoint(i));
+                    latch.countDown();
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex1)
+        {
+            Logger.getLogger(ColumnarStore.class.getName()).log(Level.SEVERE, null, ex1);
+        }
+
+        if(size == 0)
+            return new ColumnarStore(numNumeric, categories, layout);
+        DataPoint first = transformed[0];
+        ColumnarStore newStore = new ColumnarStore(first.numNumericalValues(), first.getCategoricalData(), layout, size);
+        for(DataPoint dp : transformed)
+            newStore.add(dp);
+        return newStore;
+    }
+
+    /**
+     * A view of one row of a {@link Layout#COLUMN_MAJOR} store
+     */
+    private class RowView extends Vec
+    {
+        private static final long serialVersionUID = 2450380569282003707L;
+        private final int row;
+
+        public RowView(int row)
+        {
+            this.row = row;
+        }
+
+        @Override
+        public int length()
+        {
+            return numNumeric;
+        }
+
+        @Override
+        public double get(int index)
+        {
+            return columns[index][row];
+        }
+
+        @Override
+        public void set(int index, double val)
+        {
+            columns[index][row] = val;
+        }
+
+        @Override
+        public boolean isSparse()
+        {
+            return false;
+        }
+
+        @Override
+        public Vec clone()
+        {
+            double[] vals = new double[numNumeric];
+            for(int j = 0; j < vals.length; j++)
+                vals[j] = columns[j][row];
+            return new DenseVector(vals);
+        }
+    }
+
+    /**
+     * A view of one column of a {@link Layout#ROW_MAJOR} store
+     */
+    private class ColumnView extends Vec
+    {
+        private static final long serialVersionUID = -1869405893208236478L;
+        private final int col;
+        private final int length;
+
+        public ColumnView(int col)
+        {
+            this.col = col;
+            this.length = size;
+        }
+
+        @Override
+        public int length()
+        {
+            return length;
+        }
+
+        @Override
+        public double get(int index)
+        {
+            return rowBlock[index*numNumeric+col];
+        }
+
+        @Override
+        public void set(int index, double val)
+        {
+            rowBlock[index*numNumeric+col] = val;
+        }
+
+        @Override
+        public boolean isSparse()
+        {
+            return false;
+        }
+
+        @Override
+        public Vec clone()
+        {
+            return getColumnCopy(col);
+        }
+    }
+
+    /**
+     * A data point whose weight is read from and written to the store
+     */
+    private class RowDataPoint extends DataPoint
+    {
+        private static final long serialVersionUID = 6201468911271367361L;
+        private final int row;
+
+        public RowDataPoint(int row)
+        {
+            super(getRowView(row), getCategoricalRow(row), categories, weights[row]);
+            this.row = row;
+        }
+
+        @Override
+        public double getWeight()
+        {
+            return weights[row];
+        }
+
+        @Override
+        public void setWeight(double weight)
+        {
+            super.setWeight(weight);
+            weights[row] = weight;
+        }
+
+        @Override
+        public DataPoint clone()
+        {
+            return new DataPoint(numericalValues.clone(),
+                    Arrays.copyOf(categoricalValues, categoricalValues.length),
+                    CategoricalData.copyOf(categoricalData), getWeight());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package jsat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import jsat.classifiers.DataPoint;
+
+/**
+ * Selects rows of a base {@link DataSet} by index, and optionally holds
+ * weights that override the weights of the base data points. This is shared
+ * by the index view data sets, which use it to create cross validation folds
+ * and bootstrap samples without copying the data points. <br>
+ * Data points that are replaced in the view are kept in the selection, and
+ * never change the base data set. When the weights are overridden, the weight
+ * of a replaced data point is stored with the other weights, so copies of a
+ * selection never share a weight.
+ *
+ * @author Edward Raff
+ */
+public class RowSelection
+{
+    private final DataSet base;
+    /**
+     * The rows of the base data set in use, or {@code null} to use the first
+     * {@link #size} rows
+     */
+    private final int[] rows;
+    private final int size;
+    /**
+     * The weights for each row, or {@code null} to use the weights of the base
+     * data points
+     */
+    private final double[] weights;
+    /**
+     * The data points that have been replaced in this selection, or
+     * {@code null} if none have been
+     */
+    private DataPoint[] replaced;
+    /**
+     * The data point returned for each index when the weights are overridden,
+     * or {@code null} if they are not
+     */
+    private final WeightedPoint[] wrappers;
+
+    /**
+     * Creates a new selection of rows
+     * @param base the data set to select from
+     * @param rows the rows of the base data set to use, may contain
+     * duplicates. {@code null} may be given to use all rows of the base.
+     * @param weights the weight for each selected row, or {@code null} to use
+     * the weights of the base data points
+     */
+    public RowSelection(DataSet base, int[] rows, double[] weights)
+    {
+        this(base, rows, rows == null ? base.getSampleSize() : rows.length, weights, null);
+    }
+
+    private RowSelection(DataSet base, int[] rows, int size, double[] weights, DataPoint[] replaced)
+    {
+        if(weights != null && weights.length != size)
+            throw new IllegalArgumentException("Expected " + size + " weights, not " + weights.length);
+        this.base = base;
+        this.rows = rows;
+        this.size = size;
+        this.weights = weights;
+        this.replaced = replaced;
+        this.wrappers = weights == null ? null : new WeightedPoint[size];
+    }
+
+    /**
+     * Returns the data set the rows are selected from
+     * @return the base data set
+     */
+    public DataSet getBase()
+    {
+        return base;
+    }
+
+    /**
+     * Returns the number of rows selected
+     * @return the number of rows selected
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the row in the base data set for the given index
+     * @param i the index in this selection
+     * @return the row in the base data set
+     */
+    public int row(int i)
+    {
+        if(i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set: " + i);
+        return rows == null ? i : rows[i];
+    }
+
+    /**
+     * Returns the data point for the given index. If the weights of the base
+     * are overridden, the data point returned shares the values of the base
+     * (or replaced) data point, but its weight is the weight stored in this
+     * selection, and altering its weight only alters this selection. The same
+     * object is returned for an index until the data point is replaced.
+     * @param i the index in this selection
+     * @return the data point for the given index
+     */
+    public DataPoint getDataPoint(int i)
+    {
+        int r = row(i);
+        DataPoint dp = replaced != null && replaced[i] != null ? replaced[i] : base.getDataPoint(r);
+        if(weights == null)
+            return dp;
+        WeightedPoint wrapper = wrappers[i];
+        if(wrapper == null || wrapper.source != dp)
+            wrappers[i] = wrapper = new WeightedPoint(dp, weights, i);
+        return wrapper;
+    }
+
+    /**
+     * Returns the weight of the data point for the given index, without
+     * creating a data point object
+     * @param i the index in this selection
+     * @return the weight of the data point for the given index
+     */
+    public double getWeight(int i)
+    {
+        int r = row(i);
+        if(weights != null)
+            return weights[i];
+        if(replaced != null && replaced[i] != null)
+            return replaced[i].getWeight();
+        return base.getDataPoint(r).getWeight();
+    }
+
+    /**
+     * Replaces the data point for the given index in this selection only. If
+     * the weights of the base are overridden, the weight of the given data
+     * point becomes the weight stored for the index.
+     * @param i the index in this selection
+     * @param dp the new data point
+     */
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        row(i);//bounds check
+        if(replaced == null)
+            replaced = new DataPoint[size];
+        replaced[i] = dp;
+        if(weights != null)
+            weights[i] = dp.getWeight();
+    }
+
+    /**
+     * Creates a new selection of a subset of the rows of this one. The new
+     * selection keeps the weight overrides and replaced data points of the
+     * rows it selects.
+     * @param indices the indices into this selection to use, may contain
+     * duplicates
+     * @param newWeights the weight for each selected index, or {@code null} to
+     * keep the current weights
+     * @return a new selection of the given rows
+     */
+    public RowSelection select(int[] indices, double[] newWeights)
+    {
+        int[] newRows = new int[indices.length];
+        for(int k = 0; k < indices.length; k++)
+            newRows[k] = row(indices[k]);
+        if(newWeights == null && weights != null)
+        {
+            newWeights = new double[indices.length];
+            for(int k = 0; k < indices.length; k++)
+                newWeights[k] = weights[indices[k]];
+        }
+        DataPoint[] newReplaced = null;
+        if(replaced != null)
+        {
+            newReplaced = new DataPoint[indices.length];
+            for(int k = 0; k < indices.length; k++)
+                newReplaced[k] = replaced[indices[k]];
+        }
+        return new RowSelection(base, newRows, indices.length, newWeights, newReplaced);
+    }
+
+    /**
+     * Creates a copy that uses the same rows, but has its own weights, filled
+     * with the current weight of each row
+     * @return a copy that has its own weights
+     */
+    public RowSelection copyWithOwnWeights()
+    {
+        double[] newWeights = new double[size];
+        for(int i = 0; i < size; i++)
+            newWeights[i] = getWeight(i);
+        return new RowSelection(base, rows, size, newWeights, replaced == null ? null : Arrays.copyOf(replaced, size));
+    }
+
+    /**
+     * Creates a copy of this selection. Weights are shared with the base in
+     * the same way they are for this selection.
+     * @return a copy of this selection
+     */
+    public RowSelection copy()
+    {
+        return new RowSelection(base, rows, size, weights == null ? null : Arrays.copyOf(weights, size), replaced == null ? null : Arrays.copyOf(replaced, size));
+    }
+
+    /**
+     * Creates one selection that contains the rows of all the given
+     * selections in order.
+     * @param selections the selections to combine, which must all have the
+     * same base data set
+     * @return the combined selection
+     */
+    public static RowSelection concat(List<RowSelection> selections)
+    {
+        DataSet base = selections.get(0).base;
+        int total = 0;
+        boolean anyWeights = false, anyReplaced = false;
+        for(RowSelection sel : selections)
+        {
+            if(sel.base != base)
+                throw new IllegalArgumentException("Selections must share the same base data set");
+            total += sel.size;
+            anyWeights |= sel.weights != null;
+            anyReplaced |= sel.replaced != null;
+        }
+
+        int[] newRows = new int[total];
+        double[] newWeights = anyWeights ? new double[total] : null;
+        DataPoint[] newReplaced = anyReplaced ? new DataPoint[total] : null;
+        int pos = 0;
+        for(RowSelection sel : selections)
+            for(int i = 0; i < sel.size; i++, pos++)
+            {
+                newRows[pos] = sel.row(i);
+                if(anyWeights)
+                    newWeights[pos] = sel.getWeight(i);
+                if(anyReplaced && sel.replaced != null)
+                    newReplaced[pos] = sel.replaced[i];
+            }
+        return new RowSelection(base, newRows, total, newWeights, newReplaced);
+    }
+
+    /**
+     * Randomly assigns the indices {@code 0 ... n-1} to folds, in the same way
+     * as shuffling them with {@link java.util.Collections#shuffle(java.util.List, java.util.Random) }
+     * and dealing the shuffled order out to the folds in turn.
+     * @param n the number of indices
+     * @param folds the number of folds
+     * @param rand the source of randomness
+     * @return the indices in each fold
+     */
+    public static List<int[]> foldIndices(int n, int folds, Random rand)
+    {
+        int[] order = new int[n];
+        for(int i = 0; i < n; i++)
+            order[i] = i;
+        for(int i = n; i > 1; i--)
+        {
+            int j = rand.nextInt(i);
+            int tmp = order[i-1];
+            order[i-1] = order[j];
+            order[j] = tmp;
+        }
+
+        List<int[]> foldList = new ArrayList<int[]>(folds);
+        for(int f = 0; f < folds; f++)
+        {
+            int[] fold = new int[n/folds + (f < n%folds ? 1 : 0)];
+            for(int k = 0, i = f; i < n; i += folds, k++)
+                fold[k] = order[i];
+            foldList.add(fold);
+        }
+        return foldList;
+    }
+
+    /**
+     * A data point that shares the values of another, but reads and writes
+     * its weight in the weights of a selection
+     */
+    private static class WeightedPoint extends DataPoint
+    {
+        final DataPoint source;
+        private final double[] weights;
+        private final int i;
+
+        public WeightedPoint(DataPoint source, double[] weights, int i)
+        {
+            super(source.getNumericalValues(), source.getCategoricalValues(), source.getCategoricalData(), weights[i]);
+            this.source = source;
+            this.weights = weights;
+            this.i = i;
+        }
+
+        @Override
+        public double getWeight()
+        {
+            return weights[i];
+        }
+
+        @Override
+        public void setWeight(double weight)
+        {
+            super.setWeight(weight);
+            weights[i] = weight;
+        }
+
+        @Override
+        public DataPoint clone()
+        {
+            return new DataPoint(getNumericalValues().clone(), Arrays.copyOf(getCategoricalValues(), numCategoricalValues()), getCategoricalData(), getWeight());
+        }
+    }
+}
@@ -2,9 +2,15 @@
 package jsat.classifiers;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.utils.FakeExecutor;
 import jsat.utils.IntList;
 import jsat.utils.ListUtils;
+import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.ParallelUtils;
 
 /**
  * A base implementation of the UpdateableClassifier. 
@@ -14,7 +20,10 @@ import jsat.utils.ListUtils;
  * {@link #setUp(jsat.classifiers.CategoricalData[], int, 
  * jsat.classifiers.CategoricalData) } and then call 
  * {@link #update(jsat.classifiers.DataPoint, int) } for each data point in a 
- * random order. 
+ * random order. If the classifier 
+ * {@link #supportsConcurrentUpdates() supports concurrent updates}, the 
+ * threads of the thread pool will instead all update the model at the same 
+ * time. 
  * 
  * @author Edward Raff
  */
@@ -46,7 +55,25 @@ public abstract class BaseUpdateableClassifier implements UpdateableClassifier
     @Override
     public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
     {
-        trainC(dataSet);
+        if(supportsConcurrentUpdates())
+            trainEpochs(dataSet, this, epochs, threadPool);
+        else
+            trainC(dataSet);
+    }
+
+    /**
+     * Indicates whether or not {@link #update(jsat.classifiers.DataPoint, int) }
+     * may be called by multiple threads at the same time without any locking,
+     * as done by {@link #trainEpochs(ClassificationDataSet, UpdateableClassifier, int, ExecutorService) }.
+     * Updates from different threads may overwrite each other, which is only
+     * acceptable when each update changes few of the model's values and no
+     * temporary space is shared between updates. The default is {@code false}.
+     * 
+     * @return {@code true} if concurrent updates may be used for training
+     */
+    protected boolean supportsConcurrentUpdates()
+    {
+        return false;
     }
 
     @Override
@@ -79,6 +106,77 @@ public abstract class BaseUpdateableClassifier implements UpdateableClassifier
         }
     }
 
+    /**
+     * Performs training on an updateable classifier by going over the whole data
+     * set in random order, multiple times, with each thread calling
+     * {@link UpdateableClassifier#update(jsat.classifiers.DataPoint, int) } for its own share
+     * of every pass at the same time on the same model. This is the lock free
+     * "Hogwild!" approach of Niu et al., and is only appropriate for models
+     * that can tolerate it. 
+     * <br><br>
+     * See: Niu, F., Recht, B., Re, C., &amp; Wright, S. J. (2011). <i>HOGWILD!:
+     * A Lock-Free Approach to Parallelizing Stochastic Gradient Descent</i>. 
+     * In Advances in Neural Information Processing Systems 24 (pp. 693–701).
+     *
+     * @param dataSet the data set to train from
+     * @param toTrain the classifier to train
+     * @param epochs the number of passes through the data set
+     * @param threadPool the source of threads, if {@code null} or a 
+     * {@link FakeExecutor} training is done by the calling thread
+     */
+    public static void trainEpochs(final ClassificationDataSet dataSet, final UpdateableClassifier toTrain, int epochs, ExecutorService threadPool)
+    {
+        if(threadPool == null || threadPool instanceof FakeExecutor)
+        {
+            trainEpochs(dataSet, toTrain, epochs);
+            return;
+        }
+        if(epochs < 1)
+            throw new IllegalArgumentException("epochs must be positive");
+        toTrain.setUp(dataSet.getCategories(), dataSet.getNumNumericalVars(), 
+                dataSet.getPredicting());
+        final IntList randomOrder = new IntList(dataSet.getSampleSize());
+        ListUtils.addRange(randomOrder, 0, dataSet.getSampleSize(), 1);
+        final int P = Math.max(1, Math.min(SystemInfo.LogicalCores, dataSet.getSampleSize()));
+        for (int epoch = 0; epoch < epochs; epoch++)
+        {
+            Collections.shuffle(randomOrder);
+            final CountDownLatch latch = new CountDownLatch(P);
+            for(int id = 0; id < P; id++)
+            {
+                final int start = ParallelUtils.getStartBlock(randomOrder.size(), id, P);
+                final int end = ParallelUtils.getEndBlock(randomOrder.size(), id, P);
+                threadPool.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            for (int j = start; j < end; j++)
+                            {
+                                final int i = randomOrder.getI(j);
+                                toTrain.update(dataSet.getDataPoint(i), dataSet.getDataPointCategory(i));
+                            }
+                        }
+                        finally
+                        {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+            try
+            {
+                latch.await();
+            }
+            catch (InterruptedException ex)
+            {
+                Logger.getLogger(BaseUpdateableClassifier.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
     @Override
     abstract public UpdateableClassifier clone();
     
@@ -0,0 +1,34 @@
+package jsat.classifiers;
+
+import java.util.List;
+
+/**
+ * BatchClassifier is a {@link Classifier} that can classify a whole list of 
+ * data points in one call, rather than one data point at a time. This allows 
+ * a model to compute the results of many points at once, such as with a 
+ * matrix product, and avoids the overhead of one call and result object per 
+ * data point. {@link BatchPrediction} will use this method when available. 
+ * <br>
+ * The results must be the same as calling 
+ * {@link #classify(jsat.classifiers.DataPoint) } on each data point, up to 
+ * numerical round off. Like the single point method, this method may be 
+ * called by several threads at once on different lists. 
+ * 
+ * @author Edward Raff
+ */
+public interface BatchClassifier extends Classifier
+{
+    /**
+     * Classifies all of the given data points. The model should not keep a 
+     * reference to the list or array after this method returns. 
+     * 
+     * @param dataPoints the data points to classify
+     * @param out the array to store the results in, {@code out[i][j]} will be
+     * set to the probability of the {@code j}'th category for the {@code i}'th
+     * data point. Each {@code out[i]} must have one value for every category. 
+     */
+    public void classify(List<DataPoint> dataPoints, double[][] out);
+    
+    @Override
+    public BatchClassifier clone();
+}
@@ -0,0 +1,318 @@
+package jsat.classifiers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import jsat.linear.DenseMatrix;
+import jsat.linear.Vec;
+import jsat.regression.BatchRegressor;
+import jsat.regression.RegressionDataSet;
+import jsat.regression.Regressor;
+import jsat.utils.FakeExecutor;
+import jsat.utils.IntList;
+import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.ParallelUtils;
+
+/**
+ * Provides methods to make predictions for many data points at once with any
+ * {@link Classifier} or {@link Regressor}. The data points are divided into
+ * one block per thread when a thread pool is given. Models that implement
+ * {@link BatchClassifier} or {@link BatchRegressor} are given each block at
+ * once, all other models are called once per data point.
+ *
+ * @author Edward Raff
+ */
+public final class BatchPrediction
+{
+    /**
+     * The number of dense data points put into one matrix by
+     * {@link #linearScores(java.util.List, jsat.linear.Vec[], double[], double[][]) }
+     */
+    private static final int GEMM_BLOCK = 256;
+    /**
+     * The fewest weight vectors for which
+     * {@link #linearScores(java.util.List, jsat.linear.Vec[], double[], double[][]) }
+     * will use a matrix product. With fewer, copying the data points into a
+     * matrix costs more than a dot product per weight vector.
+     */
+    private static final int GEMM_MIN_OUTPUTS = 32;
+
+    private BatchPrediction()
+    {
+    }
+
+    /**
+     * Classifies every data point in the data set
+     * @param model the model to use
+     * @param dataSet the data points to classify
+     * @return an array where {@code out[i][j]} is the probability of the
+     * {@code j}'th category for the {@code i}'th data point
+     */
+    public static double[][] classify(Classifier model, ClassificationDataSet dataSet)
+    {
+        return classify(model, dataSet, null);
+    }
+
+    /**
+     * Classifies every data point in the data set
+     * @param model the model to use
+     * @param dataSet the data points to classify
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     * @return an array where {@code out[i][j]} is the probability of the
+     * {@code j}'th category for the {@code i}'th data point
+     */
+    public static double[][] classify(Classifier model, ClassificationDataSet dataSet, ExecutorService threadPool)
+    {
+        double[][] out = new double[dataSet.getSampleSize()][dataSet.getClassSize()];
+        classify(model, dataSet.getDataPoints(), out, threadPool);
+        return out;
+    }
+
+    /**
+     * Classifies every data point in the list in the calling thread
+     * @param model the model to use
+     * @param dataPoints the data points to classify
+     * @param out the array to store the results in, {@code out[i][j]} will be
+     * set to the probability of the {@code j}'th category for the {@code i}'th
+     * data point
+     */
+    public static void classify(Classifier model, List<DataPoint> dataPoints, double[][] out)
+    {
+        classifyBlock(model, dataPoints, out, 0, dataPoints.size());
+    }
+
+    /**
+     * Classifies every data point in the list
+     * @param model the model to use
+     * @param dataPoints the data points to classify
+     * @param out the array to store the results in, {@code out[i][j]} will be
+     * set to the probability of the {@code j}'th category for the {@code i}'th
+     * data point
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     */
+    public static void classify(final Classifier model, final List<DataPoint> dataPoints, final double[][] out, ExecutorService threadPool)
+    {
+        final int N = dataPoints.size();
+        if(threadPool == null || threadPool instanceof FakeExecutor || N < SystemInfo.LogicalCores*2)
+        {
+            classifyBlock(model, dataPoints, out, 0, N);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(SystemInfo.LogicalCores);
+        for(int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int start = ParallelUtils.getStartBlock(N, id, SystemInfo.LogicalCores);
+            final int end = ParallelUtils.getEndBlock(N, id, SystemInfo.LogicalCores);
+            futures.add(threadPool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    classifyBlock(model, dataPoints, out, start, end);
+                }
+            }));
+        }
+        waitFor(futures);
+    }
+
+    private static void classifyBlock(Classifier model, List<DataPoint> dataPoints, double[][] out, int start, int end)
+    {
+        if(model instanceof BatchClassifier)
+        {
+            //the rows are shared, so the model writes into out directly
+            double[][] outBlock = start == 0 && end == out.length ? out : Arrays.copyOfRange(out, start, end);
+            ((BatchClassifier) model).classify(dataPoints.subList(start, end), outBlock);
+            return;
+        }
+        for(int i = start; i < end; i++)
+        {
+            CategoricalResults result = model.classify(dataPoints.get(i));
+            for(int j = 0; j < result.size(); j++)
+                out[i][j] = result.getProb(j);
+        }
+    }
+
+    /**
+     * Performs regression on every data point in the data set
+     * @param model the model to use
+     * @param dataSet the data points to regress
+     * @return the result for each data point
+     */
+    public static double[] regress(Regressor model, RegressionDataSet dataSet)
+    {
+        return regress(model, dataSet, null);
+    }
+
+    /**
+     * Performs regression on every data point in the data set
+     * @param model the model to use
+     * @param dataSet the data points to regress
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     * @return the result for each data point
+     */
+    public static double[] regress(Regressor model, RegressionDataSet dataSet, ExecutorService threadPool)
+    {
+        double[] out = new double[dataSet.getSampleSize()];
+        regress(model, dataSet.getDataPoints(), out, threadPool);
+        return out;
+    }
+
+    /**
+     * Performs regression on every data point in the list in the calling
+     * thread
+     * @param model the model to use
+     * @param dataPoints the data points to regress
+     * @param out the array to store the result of each data point in
+     */
+    public static void regress(Regressor model, List<DataPoint> dataPoints, double[] out)
+    {
+        regressBlock(model, dataPoints, out, 0, dataPoints.size());
+    }
+
+    /**
+     * Performs regression on every data point in the list
+     * @param model the model to use
+     * @param dataPoints the data points to regress
+     * @param out the array to store the result of each data point in
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     */
+    public static void regress(final Regressor model, final List<DataPoint> dataPoints, final double[] out, ExecutorService threadPool)
+    {
+        final int N = dataPoints.size();
+        if(threadPool == null || threadPool instanceof FakeExecutor || N < SystemInfo.LogicalCores*2)
+        {
+            regressBlock(model, dataPoints, out, 0, N);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(SystemInfo.LogicalCores);
+        for(int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int start = ParallelUtils.getStartBlock(N, id, SystemInfo.LogicalCores);
+            final int end = ParallelUtils.getEndBlock(N, id, SystemInfo.LogicalCores);
+            futures.add(threadPool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    regressBlock(model, dataPoints, out, start, end);
+                }
+            }));
+        }
+        waitFor(futures);
+    }
+
+    private static void regressBlock(Regressor model, List<DataPoint> dataPoints, double[] out, int start, int end)
+    {
+        if(model instanceof BatchRegressor)
+        {
+            if(start == 0 && end == out.length)
+                ((BatchRegressor) model).regress(dataPoints, out);
+            else
+            {
+                double[] outBlock = new double[end-start];
+                ((BatchRegressor) model).regress(dataPoints.subList(start, end), outBlock);
+                System.arraycopy(outBlock, 0, out, start, outBlock.length);
+            }
+            return;
+        }
+        for(int i = start; i < end; i++)
+            out[i] = model.regress(dataPoints.get(i));
+    }
+
+    private static void waitFor(List<Future<?>> futures)
+    {
+        try
+        {
+            for(Future<?> future : futures)
+                future.get();
+        }
+        catch (InterruptedException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Computes the linear scores <i>w<sub>k</sub><sup>T</sup> x + b<sub>k</sub>
+     * </i> of every data point for a set of weight vectors, for use by
+     * implementations of {@link BatchClassifier} and {@link BatchRegressor}.
+     * When there are several weight vectors, dense data points are gathered
+     * into blocks and scored with one matrix product per block. Sparse data
+     * points, or all data points when there are only a few weight vectors, are
+     * scored with the dot product of each weight vector, the same as scoring
+     * them one at a time.
+     *
+     * @param dataPoints the data points to score
+     * @param ws the weight vectors
+     * @param bias the bias term of each weight vector, or {@code null} if
+     * there are no bias terms
+     * @param scores the array to store the scores in, {@code scores[i][k]}
+     * will be set to the score of the {@code i}'th data point for the
+     * {@code k}'th weight vector
+     */
+    public static void linearScores(List<DataPoint> dataPoints, Vec[] ws, double[] bias, double[][] scores)
+    {
+        final int K = ws.length;
+        DenseMatrix Wt = null;
+        IntList denseRows = null;
+        if(K >= GEMM_MIN_OUTPUTS)
+        {
+            Wt = new DenseMatrix(ws[0].length(), K);
+            for(int k = 0; k < K; k++)
+                ws[k].copyToCol(Wt, k);
+            denseRows = new IntList(GEMM_BLOCK);
+        }
+
+        for(int i = 0; i < dataPoints.size(); i++)
+        {
+            Vec x = dataPoints.get(i).getNumericalValues();
+            if(Wt != null && !x.isSparse())
+            {
+                denseRows.add(i);
+                if(denseRows.size() == GEMM_BLOCK)
+                {
+                    gemmScores(dataPoints, denseRows, Wt, bias, scores);
+                    denseRows.clear();
+                }
+                continue;
+            }
+            double[] scores_i = scores[i];
+            for(int k = 0; k < K; k++)
+                if(bias == null)
+                    scores_i[k] = ws[k].dot(x);
+                else
+                    scores_i[k] = ws[k].dot(x)+bias[k];
+        }
+        if(denseRows != null && !denseRows.isEmpty())
+            gemmScores(dataPoints, denseRows, Wt, bias, scores);
+    }
+
+    private static void gemmScores(List<DataPoint> dataPoints, IntList rows, DenseMatrix Wt, double[] bias, double[][] scores)
+    {
+        final int K = Wt.cols();
+        DenseMatrix X = new DenseMatrix(rows.size(), Wt.rows());
+        for(int r = 0; r < rows.size(); r++)
+            dataPoints.get(rows.getI(r)).getNumericalValues().copyToRow(X, r);
+        DenseMatrix Z = new DenseMatrix(rows.size(), K);
+        X.multiply(Wt, Z, null);
+        for(int r = 0; r < rows.size(); r++)
+        {
+            double[] scores_i = scores[rows.getI(r)];
+            for(int k = 0; k < K; k++)
+                scores_i[k] = bias == null ? Z.get(r, k) : Z.get(r, k)+bias[k];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package jsat.classifiers;
+
+import java.util.List;
+
+/**
+ * BatchUpdateableClassifier is an {@link UpdateableClassifier} that can learn 
+ * from a whole mini-batch of data points in one call, rather than one data 
+ * point at a time. This allows a learner to compute a single update from all 
+ * of the points in the batch, and avoids the overhead of one call per data 
+ * point. The {@link MiniBatchPipeline} will use this method when available. 
+ * <br>
+ * The same set up rules as {@link UpdateableClassifier} apply before the 
+ * batch method may be called. 
+ * 
+ * @author Edward Raff
+ */
+public interface BatchUpdateableClassifier extends UpdateableClassifier
+{
+    /**
+     * Updates the classifier by giving it a mini-batch of new data points to 
+     * learn from. The classifier should not keep a reference to the list or 
+     * array after this method returns. 
+     * 
+     * @param dataPoints the data points to learn
+     * @param targetClasses the target class of each data point, in the same 
+     * order as the data points
+     */
+    public void update(List<DataPoint> dataPoints, int[] targetClasses);
+    
+    @Override
+    public BatchUpdateableClassifier clone();
+}
@@ -3,6 +3,7 @@ package jsat.classifiers;
 
 import java.util.*;
 import jsat.DataSet;
+import jsat.RowSelection;
 import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.utils.IntList;
@@ -158,6 +159,10 @@ public class ClassificationDataSet extends DataSet
      */
     public static ClassificationDataSet comineAllBut(List<ClassificationDataSet> list, int exception)
     {
+        ClassificationDataSetView view = ClassificationDataSetView.combine(list, exception);
+        if(view != null)//folds from cvSet, so no need to copy
+            return view;
+        
         int numer = list.get(exception).getNumNumericalVars();
         CategoricalData[] categories = list.get(exception).getCategories();
         CategoricalData predicting = list.get(exception).getPredicting();
@@ -169,8 +174,12 @@ public class ClassificationDataSet extends DataSet
         {
             if(i == exception)
                 continue;
-            cds.datapoints.addAll(list.get(i).datapoints);
-            cds.category.addAll(list.get(i).category);
+            ClassificationDataSet fold = list.get(i);
+            for(int j = 0; j < fold.getSampleSize(); j++)
+            {
+                cds.datapoints.add(fold.getDataPoint(j));
+                cds.category.add(fold.getDataPointCategory(j));
+            }
         }
         
         return cds;
@@ -184,7 +193,9 @@ public class ClassificationDataSet extends DataSet
     @Override
     public DataPoint getDataPoint(int i)
     {
-        return getDataPointPair(i).getDataPoint();
+        if(i >= getSampleSize())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
+        return datapoints.get(i);
     }
     
     /**
@@ -194,10 +205,7 @@ public class ClassificationDataSet extends DataSet
      */
     public DataPointPair<Integer> getDataPointPair(int i)
     {
-        if(i >= getSampleSize())
-            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
-        
-        return new DataPointPair<Integer>(datapoints.get(i), category.get(i));
+        return new DataPointPair<Integer>(getDataPoint(i), getDataPointCategory(i));
     }
     
     @Override
@@ -225,25 +233,18 @@ public class ClassificationDataSet extends DataSet
         return category.get(i);
     }
     
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The folds returned are {@link ClassificationDataSetView views} of this
+     * data set, and do not copy the data points.
+     */
     @Override
     public List<ClassificationDataSet> cvSet(int folds, Random rnd)
     {
-        ArrayList<ClassificationDataSet> cvList = new ArrayList<ClassificationDataSet>();
-        for(int i = 0; i < folds; i++)
-            cvList.add(new ClassificationDataSet(numNumerVals, categories, predicting));
-
-        IntList rndOrder = new IntList(getSampleSize());
-        ListUtils.addRange(rndOrder, 0, getSampleSize(), 1);
-        Collections.shuffle(rndOrder, rnd);
-
-        int curFold = 0;
-        for(int i : rndOrder)
-        {
-            cvList.get(curFold).datapoints.add(this.datapoints.get(i));
-            cvList.get(curFold).category.add(this.category.get(i));
-            curFold = (curFold + 1) % folds;
-        }
-        
+        List<ClassificationDataSet> cvList = new ArrayList<ClassificationDataSet>(folds);
+        for(int[] fold : RowSelection.foldIndices(getSampleSize(), folds, rnd))
+            cvList.add(new ClassificationDataSetView(this, fold));
         return cvList;
     }
 
@@ -371,9 +372,9 @@ public class ClassificationDataSet extends DataSet
     public List<DataPoint> getSamples(int category)
     {
         ArrayList<DataPoint> subSet = new ArrayList<DataPoint>();
-        for(int i = 0; i < this.category.size(); i++)
-            if(this.category.getI(i) == category)
-                subSet.add(datapoints.get(i));
+        for(int i = 0; i < getSampleSize(); i++)
+            if(getDataPointCategory(i) == category)
+                subSet.add(getDataPoint(i));
         return subSet;
     }
     
@@ -420,7 +421,7 @@ public class ClassificationDataSet extends DataSet
     {
         List<DataPointPair<Integer>> dataPoints = new ArrayList<DataPointPair<Integer>>(getSampleSize());
         for(int i = 0; i < getSampleSize(); i++)
-            dataPoints.add(new DataPointPair<Integer>(datapoints.get(i), category.get(i)));
+            dataPoints.add(new DataPointPair<Integer>(getDataPoint(i), getDataPointCategory(i)));
         
         return dataPoints;
     }
@@ -439,7 +440,7 @@ public class ClassificationDataSet extends DataSet
     {
         List<DataPointPair<Double>> dataPoints = new ArrayList<DataPointPair<Double>>(getSampleSize());
         for(int i = 0; i < getSampleSize(); i++)
-            dataPoints.add(new DataPointPair<Double>(datapoints.get(i), (double) category.getI(i)));
+            dataPoints.add(new DataPointPair<Double>(getDataPoint(i), (double) getDataPointCategory(i)));
         
         return dataPoints;
     }
@@ -455,8 +456,8 @@ public class ClassificationDataSet extends DataSet
         double sum = 0.0;
         for(int i = 0; i < getSampleSize(); i++)
         {
-            double w = datapoints.get(i).getWeight();
-            priors[category.getI(i)] += w;
+            double w = getDataPoint(i).getWeight();
+            priors[getDataPointCategory(i)] += w;
             sum += w;
         }
         
@@ -476,8 +477,8 @@ public class ClassificationDataSet extends DataSet
     public int classSampleCount(int targetClass)
     {
         int count = 0;
-        for(int i : category)
-            if(i == targetClass)
+        for(int i = 0; i < getSampleSize(); i++)
+            if(getDataPointCategory(i) == targetClass)
                 count++;
         return count;
     }
@@ -498,9 +499,19 @@ public class ClassificationDataSet extends DataSet
         return clone;
     }
     
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The clone returned is a {@link ClassificationDataSetView view} of this 
+     * data set that keeps its own copy of the weights, so only the weights are 
+     * copied. 
+     */
     @Override
     public ClassificationDataSet getTwiceShallowClone()
     {
-        return (ClassificationDataSet) super.getTwiceShallowClone();
+        double[] weights = new double[getSampleSize()];
+        for(int i = 0; i < weights.length; i++)
+            weights[i] = getDataPoint(i).getWeight();
+        return new ClassificationDataSetView(this, null, weights);
     }
 }
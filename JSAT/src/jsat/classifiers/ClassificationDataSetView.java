@@ -0,0 +1,190 @@
+package jsat.classifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.RowSelection;
+import jsat.linear.Vec;
+
+/**
+ * A {@link ClassificationDataSet} that is a view of the rows of another
+ * classification data set, given by an array of row indices and optionally
+ * new weights for each row. No data points are copied to create the view, so
+ * cross validation folds and bootstrap samples can be created cheaply. <br>
+ * <br>
+ * Data points can not be added to a view. Data points can be replaced with
+ * {@link #setDataPoint(int, jsat.classifiers.DataPoint) }, which only changes
+ * the view. When the view has its own weights, the data points returned
+ * share the values of the base data set, but altering their weight only
+ * changes the weight in the view. The same object is returned for a row each
+ * time it is asked for. Otherwise the data points of the base data set are
+ * returned directly.
+ *
+ * @author Edward Raff
+ */
+public class ClassificationDataSetView extends ClassificationDataSet
+{
+    private final RowSelection rows;
+    private final ClassificationDataSet base;
+
+    /**
+     * Creates a new view of the given rows of a data set
+     * @param base the data set to view
+     * @param rows the rows of the base data set to include, may contain
+     * duplicates. {@code null} may be given to use all the rows.
+     */
+    public ClassificationDataSetView(ClassificationDataSet base, int[] rows)
+    {
+        this(base, rows, null);
+    }
+
+    /**
+     * Creates a new view of the given rows of a data set
+     * @param base the data set to view
+     * @param rows the rows of the base data set to include, may contain
+     * duplicates. {@code null} may be given to use all the rows.
+     * @param weights the weight to use for each row of the view, or
+     * {@code null} to use the weights of the base data set
+     */
+    public ClassificationDataSetView(ClassificationDataSet base, int[] rows, double[] weights)
+    {
+        this(base, select(base, rows, weights));
+    }
+
+    private ClassificationDataSetView(ClassificationDataSet base, RowSelection rows)
+    {
+        super(base.getNumNumericalVars(), base.getCategories(), base.getPredicting());
+        if(base instanceof ClassificationDataSetView)
+            base = ((ClassificationDataSetView) base).base;
+        this.base = base;
+        this.rows = rows;
+        this.datapoints = null;
+        this.category = null;
+    }
+
+    private static RowSelection select(ClassificationDataSet base, int[] rows, double[] weights)
+    {
+        if(base instanceof ClassificationDataSetView)//view of the original rows, rather than a chain of views
+        {
+            RowSelection baseRows = ((ClassificationDataSetView) base).rows;
+            if(rows == null)
+                return weights == null ? baseRows.copy() : baseRows.select(allIndices(baseRows.size()), weights);
+            return baseRows.select(rows, weights);
+        }
+        return new RowSelection(base, rows, weights);
+    }
+
+    private static int[] allIndices(int n)
+    {
+        int[] indices = new int[n];
+        for(int i = 0; i < n; i++)
+            indices[i] = i;
+        return indices;
+    }
+
+    /**
+     * Returns the data set this is a view of
+     * @return the data set this is a view of
+     */
+    public ClassificationDataSet getBase()
+    {
+        return base;
+    }
+
+    /**
+     * Returns the row of the base data set for the given data point
+     * @param i the index of the data point in this view
+     * @return the row of the base data set
+     */
+    public int getBaseRow(int i)
+    {
+        return rows.row(i);
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        return rows.getDataPoint(i);
+    }
+
+    @Override
+    public int getDataPointCategory(int i)
+    {
+        return base.getDataPointCategory(rows.row(i));
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        rows.setDataPoint(i, dp);
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void addDataPoint(Vec v, int[] classes, int classification, double weight)
+    {
+        throw new UnsupportedOperationException("Data points can not be added to a view");
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, int classification)
+    {
+        throw new UnsupportedOperationException("Data points can not be added to a view");
+    }
+
+    @Override
+    public List<ClassificationDataSet> cvSet(int folds, Random rnd)
+    {
+        List<ClassificationDataSet> cvList = new ArrayList<ClassificationDataSet>(folds);
+        for(int[] fold : RowSelection.foldIndices(getSampleSize(), folds, rnd))
+            cvList.add(new ClassificationDataSetView(base, rows.select(fold, null)));
+        return cvList;
+    }
+
+    @Override
+    public ClassificationDataSetView shallowClone()
+    {
+        return new ClassificationDataSetView(base, rows.copy());
+    }
+
+    @Override
+    public ClassificationDataSetView getTwiceShallowClone()
+    {
+        return new ClassificationDataSetView(base, rows.copyWithOwnWeights());
+    }
+
+    /**
+     * Combines views of the same data set into one view
+     * @param views the views to combine
+     * @param exception the index of the view to leave out, or -1 to use all
+     * @return the combined view, or {@code null} if the data sets given are
+     * not all views of the same data set
+     */
+    static ClassificationDataSetView combine(List<ClassificationDataSet> views, int exception)
+    {
+        List<RowSelection> selections = new ArrayList<RowSelection>(views.size());
+        ClassificationDataSet base = null;
+        for(int i = 0; i < views.size(); i++)
+        {
+            if(i == exception)
+                continue;
+            if(!(views.get(i) instanceof ClassificationDataSetView))
+                return null;
+            ClassificationDataSetView view = (ClassificationDataSetView) views.get(i);
+            if(base == null)
+                base = view.base;
+            else if(base != view.base)
+                return null;
+            selections.add(view.rows);
+        }
+        if(base == null)
+            return null;
+        return new ClassificationDataSetView(base, RowSelection.concat(selections));
+    }
+}
@@ -12,7 +12,9 @@ import jsat.classifiers.evaluation.ClassificationScore;
 import jsat.datatransform.DataTransformProcess;
 import jsat.exceptions.UntrainedModelException;
 import jsat.math.OnLineStatistics;
+import jsat.utils.FakeExecutor;
 import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.TrackingExecutor;
 
 /**
  * Provides a mechanism to quickly perform an evaluation of a model on a data set. 
@@ -58,6 +60,15 @@ public class ClassificationModelEvaluation
      * If using a test set, only index 0 is used.
      */
     private Classifier[] warmModels;
+    /**
+     * Whether or not all cross validation folds should be run at once
+     */
+    private boolean parallelFolds = false;
+    /**
+     * The number of test points each thread transforms and classifies at once
+     * with {@link BatchPrediction}
+     */
+    private static final int BATCH_SIZE = 1024;
     
     /**
      * Constructs a new object that can perform evaluations on the model. 
@@ -141,6 +152,41 @@ public class ClassificationModelEvaluation
         this.warmModels = warmModels;
     }
 
+    /**
+     * Sets whether or not all folds of cross validation should always be 
+     * trained and tested at the same time, with one thread for each fold. 
+     * This has no effect when no thread pool was given.<br>
+     * <br>
+     * When {@code false}, which is the default, the first fold is trained with
+     * the thread pool. If the classifier did not use the thread pool, the 
+     * remaining folds are trained at the same time with one thread each. 
+     * Otherwise, they are trained one after the other with the thread pool. 
+     * Setting this to {@code true} skips the check, and is useful when the 
+     * number of folds is not much smaller than the number of cores. <br>
+     * <br>
+     * When folds are trained at the same time, every fold other than the first
+     * trains its own {@link Classifier#clone() clone} of the classifier. In 
+     * every case the classifier given is left trained without the first fold 
+     * of the list, the same as when no thread pool is given. 
+     * 
+     * @param parallelFolds {@code true} to always evaluate all folds at the 
+     * same time
+     */
+    public void setParallelFolds(boolean parallelFolds)
+    {
+        this.parallelFolds = parallelFolds;
+    }
+
+    /**
+     * Returns whether or not all folds of cross validation are always 
+     * evaluated at the same time
+     * @return {@code true} if all folds are always evaluated at the same time
+     */
+    public boolean isParallelFolds()
+    {
+        return parallelFolds;
+    }
+
     /**
      * Sets the data transform process to use when performing cross validation. 
      * By default, no transforms are applied
@@ -194,10 +240,7 @@ public class ClassificationModelEvaluation
      */
     public void evaluateCrossValidation(List<ClassificationDataSet> lcds)
     {
-        List<ClassificationDataSet> trainCombinations = new ArrayList<ClassificationDataSet>(lcds.size());
-        for (int i = 0; i < lcds.size(); i++)
-            trainCombinations.add(ClassificationDataSet.comineAllBut(lcds, i));
-        evaluateCrossValidation(lcds, trainCombinations);
+        evaluateCrossValidation(lcds, null);
     }
     
     /**
@@ -223,7 +266,8 @@ public class ClassificationModelEvaluation
      *
      * @param lcds training data set already split into folds
      * @param trainCombinations each index contains the training data sans the
-     * data stored in the fold associated with that index
+     * data stored in the fold associated with that index, or {@code null} to 
+     * create each training set only when its fold is evaluated
      */
     public void evaluateCrossValidation(List<ClassificationDataSet> lcds, List<ClassificationDataSet> trainCombinations)
     {
@@ -236,20 +280,96 @@ public class ClassificationModelEvaluation
             keptModels = new Classifier[lcds.size()];
         
         setUpResults(dataSet.getSampleSize());
-        int end = dataSet.getSampleSize();
-        for (int i = lcds.size() - 1; i >= 0; i--)
+        //the predictions of each fold are stored after those of the folds before it
+        int[] offsets = new int[lcds.size()];
+        for(int i = 1; i < lcds.size(); i++)
+            offsets[i] = offsets[i-1] + lcds.get(i-1).getSampleSize();
+        
+        int last = lcds.size()-1;
+        if(threadpool == null || threadpool instanceof FakeExecutor || lcds.size() == 1)
+        {
+            for (int i = last; i >= 0; i--)
+                evaluationWork(getTrainSet(lcds, trainCombinations, i), lcds.get(i), i, classifier, threadpool, offsets[i]);
+        }
+        else if(parallelFolds)
+            evaluateFoldsInParallel(lcds, trainCombinations, offsets, lcds.size());
+        else
+        {
+            //find out if the classifier can make use of the threads on its own
+            boolean usedPool = evaluationWork(getTrainSet(lcds, trainCombinations, last), lcds.get(last), last, classifier, new TrackingExecutor(threadpool), offsets[last]);
+            if(usedPool)
+                for (int i = last-1; i >= 0; i--)
+                    evaluationWork(getTrainSet(lcds, trainCombinations, i), lcds.get(i), i, classifier, threadpool, offsets[i]);
+            else//the original ends on the first fold, as in the serial case
+                evaluateFoldsInParallel(lcds, trainCombinations, offsets, last);
+        }
+    }
+    
+    private static ClassificationDataSet getTrainSet(List<ClassificationDataSet> lcds, List<ClassificationDataSet> trainCombinations, int i)
+    {
+        if(trainCombinations == null)
+            return ClassificationDataSet.comineAllBut(lcds, i);
+        return trainCombinations.get(i);
+    }
+    
+    /**
+     * Evaluates the first folds at the same time, each one trained and 
+     * tested by a single thread. 
+     * 
+     * @param lcds the folds
+     * @param trainCombinations the training set for each fold, or {@code null}
+     * @param offsets the index in the predictions for each fold
+     * @param folds the number of folds, starting from the first, to evaluate. 
+     * The first fold trains the original classifier, and the others train 
+     * copies of it. 
+     */
+    private void evaluateFoldsInParallel(final List<ClassificationDataSet> lcds, final List<ClassificationDataSet> trainCombinations, final int[] offsets, int folds)
+    {
+        final Classifier[] models = new Classifier[folds];
+        for(int i = 0; i < folds; i++)
+            models[i] = i == 0 ? classifier : classifier.clone();
+        final CountDownLatch latch = new CountDownLatch(folds);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        for(int i = 0; i < folds; i++)
         {
-            ClassificationDataSet trainSet = trainCombinations.get(i);
-            ClassificationDataSet testSet = lcds.get(i);
-            evaluationWork(trainSet, testSet, i);
-            int testSize = testSet.getSampleSize();
-            if (keepPredictions)
+            final int fold = i;
+            final Classifier model = models[i];
+            threadpool.submit(new Runnable()
             {
-                System.arraycopy(predictions, 0, predictions, end - testSize, testSize);
-                System.arraycopy(truths, 0, truths, end-testSize, testSize);
-                System.arraycopy(pointWeights, 0, pointWeights, end-testSize, testSize);
-            }
-            end -= testSize;
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        evaluationWork(getTrainSet(lcds, trainCombinations, fold), lcds.get(fold), fold, model, null, offsets[fold]);
+                    }
+                    catch(Throwable ex)
+                    {
+                        failures.add(ex);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(ClassificationModelEvaluation.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if(!failures.isEmpty())
+        {
+            Throwable ex = failures.get(0);
+            if(ex instanceof RuntimeException)
+                throw (RuntimeException) ex;
+            else if(ex instanceof Error)
+                throw (Error) ex;
+            throw new RuntimeException(ex);
         }
     }
     
@@ -266,11 +386,25 @@ public class ClassificationModelEvaluation
         confusionMatrix = new double[numOfClasses][numOfClasses];
         setUpResults(testSet.getSampleSize());
         totalTrainingTime = totalClassificationTime = 0;
-        evaluationWork(dataSet, testSet, 0);
+        evaluationWork(dataSet, testSet, 0, classifier, threadpool, 0);
     }
 
+    /**
+     * Trains a model and evaluates it on the test set
+     * 
+     * @param trainSet the data to train on
+     * @param testSet the data to test on
+     * @param index the index of the fold
+     * @param model the model to train and test
+     * @param threadpool the source of threads for training and testing, or
+     * {@code null} to do all work in the calling thread
+     * @param offset the index in the predictions to store the results of the
+     * first test point
+     * @return {@code true} if the thread pool given is a 
+     * {@link TrackingExecutor} that was used to train the model
+     */
     @SuppressWarnings("unchecked")
-    private void evaluationWork(ClassificationDataSet trainSet, ClassificationDataSet testSet, int index)
+    private boolean evaluationWork(ClassificationDataSet trainSet, ClassificationDataSet testSet, int index, Classifier model, ExecutorService threadpool, int offset)
     {
         DataTransformProcess curProcess = dtp.clone();
         if (curProcess.getNumberOfTransforms() > 0)
@@ -280,9 +414,9 @@ public class ClassificationModelEvaluation
         }
         
         long startTrain = System.currentTimeMillis();
-        if(warmModels != null && classifier instanceof WarmClassifier)//train from the warm model
+        if(warmModels != null && model instanceof WarmClassifier)//train from the warm model
         {
-            WarmClassifier wc = (WarmClassifier) classifier;
+            WarmClassifier wc = (WarmClassifier) model;
             if(threadpool != null)
                 wc.trainC(trainSet, warmModels[index], threadpool);
             else
@@ -291,14 +425,15 @@ public class ClassificationModelEvaluation
         else//do the normal thing
         {
             if(threadpool != null)
-                classifier.trainC(trainSet, threadpool);
+                model.trainC(trainSet, threadpool);
             else
-                classifier.trainC(trainSet);
+                model.trainC(trainSet);
         }
-        totalTrainingTime += (System.currentTimeMillis() - startTrain);
+        long trainingTime = System.currentTimeMillis() - startTrain;
+        boolean usedPool = threadpool instanceof TrackingExecutor && ((TrackingExecutor) threadpool).wasUsed();
         
         if(keptModels != null)
-            keptModels[index] = classifier.clone();
+            keptModels[index] = model.clone();
         
         CountDownLatch latch;
         final double[] evalErrorStats = new double[2];//first index is correct, 2nd is total
@@ -314,7 +449,7 @@ public class ClassificationModelEvaluation
         if(testSet.getSampleSize() < SystemInfo.LogicalCores || threadpool == null)
         {
             latch = new CountDownLatch(1);
-            new Evaluator(testSet, curProcess, 0, testSet.getSampleSize(), evalErrorStats, scoresToUpdate, latch).run();
+            new Evaluator(model, testSet, curProcess, 0, testSet.getSampleSize(), offset, evalErrorStats, scoresToUpdate, latch).run();
         }
         else//go parallel!
         {
@@ -328,27 +463,33 @@ public class ClassificationModelEvaluation
                 int end = start+blockSize;
                 if(extra-- > 0)
                     end++;
-                threadpool.submit(new Evaluator(testSet, curProcess, start, end, evalErrorStats, scoresToUpdate, latch));
+                threadpool.submit(new Evaluator(model, testSet, curProcess, start, end, offset, evalErrorStats, scoresToUpdate, latch));
                 start = end;
             }
         }
         try
         {
             latch.await();
-            errorStats.add(evalErrorStats[0]/evalErrorStats[1]);
-            //accumulate score info
-            for(Entry<ClassificationScore, OnLineStatistics> entry : scoreMap.entrySet())
+            //folds may finish at the same time
+            synchronized(confusionMatrix)
             {
-                ClassificationScore score = entry.getKey().clone();
-                score.prepare(dataSet.getPredicting());
-                score.addResults(scoresToUpdate.get(score));
-                entry.getValue().add(score.getScore());
+                totalTrainingTime += trainingTime;
+                errorStats.add(evalErrorStats[0]/evalErrorStats[1]);
+                //accumulate score info
+                for(Entry<ClassificationScore, OnLineStatistics> entry : scoreMap.entrySet())
+                {
+                    ClassificationScore score = entry.getKey().clone();
+                    score.prepare(dataSet.getPredicting());
+                    score.addResults(scoresToUpdate.get(score));
+                    entry.getValue().add(score.getScore());
+                }
             }
         }
         catch (InterruptedException ex)
         {
             Logger.getLogger(ClassificationModelEvaluation.class.getName()).log(Level.SEVERE, null, ex);
         }
+        return usedPool;
     }
     
     /**
@@ -387,9 +528,10 @@ public class ClassificationModelEvaluation
     
     private class Evaluator implements Runnable
     {
+        Classifier model;
         ClassificationDataSet testSet;
         DataTransformProcess curProcess;
-        int start, end;
+        int start, end, offset;
         CountDownLatch latch;
         long localClassificationTime;
         double localCorrect;
@@ -397,12 +539,14 @@ public class ClassificationModelEvaluation
         double[] errorStats;
         final Map<ClassificationScore, ClassificationScore> scoresToUpdate;
 
-        public Evaluator(ClassificationDataSet testSet, DataTransformProcess curProcess, int start, int end, double[] errorStats, Map<ClassificationScore, ClassificationScore> scoresToUpdate, CountDownLatch latch)
+        public Evaluator(Classifier model, ClassificationDataSet testSet, DataTransformProcess curProcess, int start, int end, int offset, double[] errorStats, Map<ClassificationScore, ClassificationScore> scoresToUpdate, CountDownLatch latch)
         {
+            this.model = model;
             this.testSet = testSet;
             this.curProcess = curProcess;
             this.start = start;
             this.end = end;
+            this.offset = offset;
             this.latch = latch;
             this.localClassificationTime = 0;
             this.localSumOfWeights = 0;
@@ -420,31 +564,41 @@ public class ClassificationModelEvaluation
                 Set<ClassificationScore> localScores = new HashSet<ClassificationScore>();
                 for (Entry<ClassificationScore, ClassificationScore> entry : scoresToUpdate.entrySet())
                     localScores.add(entry.getKey().clone());
-                for (int i = start; i < end; i++)
+                List<DataPoint> block = new ArrayList<DataPoint>(Math.min(BATCH_SIZE, end-start));
+                for (int blockStart = start; blockStart < end; blockStart += BATCH_SIZE)
                 {
-                    DataPoint dp = testSet.getDataPoint(i);
-                    dp = curProcess.transform(dp);
+                    final int blockEnd = Math.min(blockStart+BATCH_SIZE, end);
+                    block.clear();
+                    for (int i = blockStart; i < blockEnd; i++)
+                        block.add(curProcess.transform(testSet.getDataPoint(i)));
+                    double[][] probs = new double[block.size()][testSet.getClassSize()];
                     long stratClass = System.currentTimeMillis();
-                    CategoricalResults result = classifier.classify(dp);
+                    BatchPrediction.classify(model, block, probs);
                     localClassificationTime += (System.currentTimeMillis() - stratClass);
 
-                    for (ClassificationScore score : localScores)
-                        score.addResult(result, testSet.getDataPointCategory(i), dp.getWeight());
-
-                    if (predictions != null)
-                    {
-                        predictions[i] = result;
-                        truths[i] = testSet.getDataPointCategory(i);
-                        pointWeights[i] = dp.getWeight();
-                    }
-                    final int trueCat = testSet.getDataPointCategory(i);
-                    synchronized(confusionMatrix[trueCat])
+                    for (int i = blockStart; i < blockEnd; i++)
                     {
-                        confusionMatrix[trueCat][result.mostLikely()] += dp.getWeight();
+                        DataPoint dp = block.get(i-blockStart);
+                        CategoricalResults result = new CategoricalResults(probs[i-blockStart]);
+
+                        for (ClassificationScore score : localScores)
+                            score.addResult(result, testSet.getDataPointCategory(i), dp.getWeight());
+
+                        if (predictions != null)
+                        {
+                            predictions[offset+i] = result;
+                            truths[offset+i] = testSet.getDataPointCategory(i);
+                            pointWeights[offset+i] = dp.getWeight();
+                        }
+                        final int trueCat = testSet.getDataPointCategory(i);
+                        synchronized(confusionMatrix[trueCat])
+                        {
+                            confusionMatrix[trueCat][result.mostLikely()] += dp.getWeight();
+                        }
+                        if(trueCat == result.mostLikely())
+                            localCorrect += dp.getWeight();
+                        localSumOfWeights += dp.getWeight();
                     }
-                    if(trueCat == result.mostLikely())
-                        localCorrect += dp.getWeight();
-                    localSumOfWeights += dp.getWeight();
                 }
 
                 synchronized(confusionMatrix)
@@ -457,13 +611,15 @@ public class ClassificationModelEvaluation
                     for (ClassificationScore score : localScores)
                         scoresToUpdate.get(score).addResults(score);
                 }
-
-                latch.countDown();
             }
             catch (Exception ex)
             {
                 ex.printStackTrace();
             }
+            finally
+            {
+                latch.countDown();
+            }
         }
 
     }
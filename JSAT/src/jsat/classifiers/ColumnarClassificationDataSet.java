@@ -0,0 +1,241 @@
+package jsat.classifiers;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import jsat.ColumnarStore;
+import jsat.ColumnarStore.Layout;
+import jsat.datatransform.DataTransform;
+import jsat.datatransform.InPlaceTransform;
+import jsat.linear.Matrix;
+import jsat.linear.Vec;
+import jsat.math.OnLineStatistics;
+import jsat.utils.IntList;
+
+/**
+ * A {@link ClassificationDataSet} that keeps its data in a
+ * {@link ColumnarStore} rather than one {@link DataPoint} object per row. The
+ * class labels are kept in a primitive array. This uses considerably less
+ * memory for large data sets, while still being usable by any algorithm that
+ * accepts a ClassificationDataSet. <br>
+ * <br>
+ * Data points returned by {@link #getDataPoint(int) } are light weight views
+ * into the store. Algorithms that work on columns can obtain the primitive
+ * arrays directly through {@link #getStore() } and {@link #getRawLabels() }.
+ * Cross validation folds are {@link ClassificationDataSetView views} of this
+ * data set, so they do not copy the store.
+ *
+ * @author Edward Raff
+ */
+public class ColumnarClassificationDataSet extends ClassificationDataSet
+{
+    /**
+     * The storage for the features and weights of every row
+     */
+    protected ColumnarStore store;
+
+    /**
+     * Creates a new, empty, data set using the {@link Layout#COLUMN_MAJOR}
+     * layout.
+     *
+     * @param numerical the number of numerical attributes for the problem
+     * @param categories the information about each categorical variable in the problem.
+     * @param predicting the information about the target class
+     */
+    public ColumnarClassificationDataSet(int numerical, CategoricalData[] categories, CategoricalData predicting)
+    {
+        this(numerical, categories, predicting, Layout.COLUMN_MAJOR);
+    }
+
+    /**
+     * Creates a new, empty, data set.
+     *
+     * @param numerical the number of numerical attributes for the problem
+     * @param categories the information about each categorical variable in the problem.
+     * @param predicting the information about the target class
+     * @param layout the memory layout to use for the numeric features
+     */
+    public ColumnarClassificationDataSet(int numerical, CategoricalData[] categories, CategoricalData predicting, Layout layout)
+    {
+        this(new ColumnarStore(numerical, categories, layout), new IntList(), predicting);
+    }
+
+    /**
+     * Creates a new data set that contains a copy of all the data in the given
+     * classification data set.
+     *
+     * @param source the data set to copy
+     * @param layout the memory layout to use for the numeric features
+     */
+    public ColumnarClassificationDataSet(ClassificationDataSet source, Layout layout)
+    {
+        this(new ColumnarStore(source.getNumNumericalVars(), source.getCategories(), layout, source.getSampleSize()), new IntList(source.getSampleSize()), source.getPredicting());
+        for(int i = 0; i < source.getSampleSize(); i++)
+        {
+            store.add(source.getDataPoint(i));
+            category.add(source.getDataPointCategory(i));
+        }
+        if(numericalVariableNames != null)
+            for(int i = 0; i < getNumNumericalVars(); i++)
+                numericalVariableNames.set(i, source.getNumericName(i));
+    }
+
+    /**
+     * Creates a new data set backed by the given store and labels
+     * @param store the store to use
+     * @param labels the labels for each row of the store
+     * @param predicting the information about the target class
+     */
+    protected ColumnarClassificationDataSet(ColumnarStore store, IntList labels, CategoricalData predicting)
+    {
+        super(store.getNumNumericalVars(), store.getCategories(), predicting);
+        this.datapoints = null;
+        this.store = store;
+        this.category = labels;
+    }
+
+    /**
+     * Returns the storage engine used by this data set. Alterations to the
+     * store will be reflected in this data set.
+     *
+     * @return the storage engine used by this data set
+     */
+    public ColumnarStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the array backing the class labels of this data set. The array
+     * may be longer than {@link #getSampleSize() }, and should be discarded if
+     * data points are added to this data set.
+     *
+     * @return the array backing the class labels
+     */
+    public int[] getRawLabels()
+    {
+        return category.getBackingArray();
+    }
+
+    /**
+     * Reduces the memory used by the backing arrays to the minimum needed to
+     * hold the current data points.
+     */
+    public void trimToSize()
+    {
+        store.trimToSize();
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        if(i >= getSampleSize())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
+        return store.getDataPoint(i);
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        if(i >= getSampleSize())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
+        store.set(i, dp.getNumericalValues(), dp.getCategoricalValues(), dp.getWeight());
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void addDataPoint(Vec v, int[] classes, int classification, double weight)
+    {
+        if(v.length() != numNumerVals)
+            throw new RuntimeException("Data point does not contain enough numerical data points");
+        if(classes.length != categories.length)
+            throw new RuntimeException("Data point does not contain enough categorical data points");
+
+        for(int i = 0; i < classes.length; i++)
+            if(!categories[i].isValidCategory(classes[i]))
+                throw new IllegalArgumentException("Categoriy value given is invalid");
+
+        store.add(v, classes, weight);
+        category.add(classification);
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, int classification)
+    {
+        addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), classification, dp.getWeight());
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return store.size();
+    }
+
+    @Override
+    public ColumnarClassificationDataSet shallowClone()
+    {
+        ColumnarClassificationDataSet clone = new ColumnarClassificationDataSet(store.shallowCopy(), IntList.view(Arrays.copyOf(getRawLabels(), getSampleSize()), getSampleSize()), predicting.clone());
+        if(numericalVariableNames != null)
+            clone.numericalVariableNames = new ArrayList<String>(numericalVariableNames);
+        return clone;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The weights of a shallow clone are never shared with the original, so
+     * this is equivalent to {@link #shallowClone() }.
+     */
+    @Override
+    public ColumnarClassificationDataSet getTwiceShallowClone()
+    {
+        return shallowClone();
+    }
+
+    @Override
+    public Vec getNumericColumn(int i)
+    {
+        return store.getColumnCopy(i);
+    }
+
+    @Override
+    public Vec[] getNumericColumns(Set<Integer> skipColumns)
+    {
+        return store.getColumnViews(skipColumns);
+    }
+
+    @Override
+    public Matrix getDataMatrixView()
+    {
+        return store.getMatrixView();
+    }
+
+    @Override
+    public OnLineStatistics getSparsityStats()
+    {
+        OnLineStatistics stats = new OnLineStatistics();
+        if(getSampleSize() > 0)
+            stats.add(1.0, getSampleSize());
+        return stats;
+    }
+
+    @Override
+    public void applyTransform(DataTransform dt, boolean mutate, ExecutorService ex)
+    {
+        if(mutate && dt instanceof InPlaceTransform)
+        {
+            super.applyTransform(dt, mutate, ex);
+            return;
+        }
+        store = store.transform(dt, ex);
+        columnVecCache.clear();
+        numNumerVals = store.getNumNumericalVars();
+        categories = store.getCategories();
+        if (this.numericalVariableNames != null)
+        {
+            this.numericalVariableNames.clear();
+            for (int i = 0; i < getNumNumericalVars(); i++)
+                numericalVariableNames.add("TN" + (i + 1));
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package jsat.classifiers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.io.ARFFReader;
+import jsat.regression.BatchUpdateableRegressor;
+import jsat.regression.RegressionDataSet;
+import jsat.regression.UpdateableRegressor;
+import jsat.utils.FakeExecutor;
+
+/**
+ * The MiniBatchPipeline trains an {@link UpdateableClassifier} or
+ * {@link UpdateableRegressor} from mini-batches of data points. One stage
+ * produces the batches, reading and shuffling the data, while a second stage
+ * gives each batch to the learner. When a thread pool is given, the producer
+ * runs in its own thread and keeps up to {@link #setPrefetch(int) prefetch}
+ * batches ready ahead of the learner, so that reading the data (such as from
+ * a {@link jsat.io.MappedDataSet} or an {@link ARFFReader}) overlaps with
+ * learning. The learner itself is only ever updated by the calling thread.
+ * <br><br>
+ * Learners implementing {@link BatchUpdateableClassifier} or
+ * {@link BatchUpdateableRegressor} are given each batch in one call. All other
+ * learners are updated one data point at a time from each batch.
+ * <br><br>
+ * By default every epoch visits the data points in a new random order. For
+ * data sets that are stored on disk, a {@link #setShuffleBlockSize(int)
+ * shuffle block size} larger than one shuffles the order of blocks of
+ * consecutive data points, and then the points within each block, so that
+ * each block is read from one region of the file.
+ *
+ * @author Edward Raff
+ */
+public class MiniBatchPipeline
+{
+    /**
+     * Marks the end of the batches
+     */
+    private static final Batch END = new Batch(0, false);
+
+    private int batchSize;
+    private int prefetch = 4;
+    private int shuffleBlockSize = 1;
+
+    /**
+     * Creates a new pipeline that uses mini-batches of 32 data points
+     */
+    public MiniBatchPipeline()
+    {
+        this(32);
+    }
+
+    /**
+     * Creates a new pipeline
+     * @param batchSize the number of data points in each mini-batch
+     */
+    public MiniBatchPipeline(int batchSize)
+    {
+        setBatchSize(batchSize);
+    }
+
+    /**
+     * Sets the number of data points in each mini-batch. The last batch of
+     * an epoch may be smaller.
+     * @param batchSize the number of data points in each mini-batch
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("batch size must be positive, not " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of data points in each mini-batch
+     * @return the number of data points in each mini-batch
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of batches that will be prepared ahead of the
+     * learner when a thread pool is used.
+     * @param prefetch the number of batches to prepare ahead of time
+     */
+    public void setPrefetch(int prefetch)
+    {
+        if(prefetch < 1)
+            throw new IllegalArgumentException("prefetch must be positive, not " + prefetch);
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Returns the maximum number of batches prepared ahead of the learner
+     * @return the maximum number of batches prepared ahead of the learner
+     */
+    public int getPrefetch()
+    {
+        return prefetch;
+    }
+
+    /**
+     * Sets the number of consecutive data points that are kept together when
+     * shuffling the data set for each epoch. A value of 1 shuffles all of the
+     * data points.
+     * @param shuffleBlockSize the number of consecutive data points shuffled
+     * as one block
+     */
+    public void setShuffleBlockSize(int shuffleBlockSize)
+    {
+        if(shuffleBlockSize < 1)
+            throw new IllegalArgumentException("shuffle block size must be positive, not " + shuffleBlockSize);
+        this.shuffleBlockSize = shuffleBlockSize;
+    }
+
+    /**
+     * Returns the number of consecutive data points shuffled as one block
+     * @return the number of consecutive data points shuffled as one block
+     */
+    public int getShuffleBlockSize()
+    {
+        return shuffleBlockSize;
+    }
+
+    /**
+     * Sets up the classifier and trains it by going over the whole data set
+     * in random order, in mini-batches, multiple times.
+     *
+     * @param dataSet the data set to train from
+     * @param toTrain the classifier to train
+     * @param epochs the number of passes through the data set
+     * @param threadPool the source of a thread to prepare the batches in, if
+     * {@code null} or a {@link FakeExecutor} all work is done by the calling
+     * thread
+     */
+    public void trainC(final ClassificationDataSet dataSet, UpdateableClassifier toTrain, int epochs, ExecutorService threadPool)
+    {
+        if(epochs < 1)
+            throw new IllegalArgumentException("epochs must be positive");
+        toTrain.setUp(dataSet.getCategories(), dataSet.getNumNumericalVars(),
+                dataSet.getPredicting());
+        try
+        {
+            run(new DataSetSource(dataSet, epochs, true)
+            {
+                @Override
+                protected void add(Batch batch, int i)
+                {
+                    batch.add(dataSet.getDataPoint(i), dataSet.getDataPointCategory(i));
+                }
+            }, classifierSink(toTrain), threadPool);
+        }
+        catch (IOException ex)//can't happen, data sets are not read from a stream
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sets up the regressor and trains it by going over the whole data set
+     * in random order, in mini-batches, multiple times.
+     *
+     * @param dataSet the data set to train from
+     * @param toTrain the regressor to train
+     * @param epochs the number of passes through the data set
+     * @param threadPool the source of a thread to prepare the batches in, if
+     * {@code null} or a {@link FakeExecutor} all work is done by the calling
+     * thread
+     */
+    public void train(final RegressionDataSet dataSet, UpdateableRegressor toTrain, int epochs, ExecutorService threadPool)
+    {
+        if(epochs < 1)
+            throw new IllegalArgumentException("epochs must be positive");
+        toTrain.setUp(dataSet.getCategories(), dataSet.getNumNumericalVars());
+        try
+        {
+            run(new DataSetSource(dataSet, epochs, false)
+            {
+                @Override
+                protected void add(Batch batch, int i)
+                {
+                    batch.add(dataSet.getDataPoint(i), dataSet.getTargetValue(i));
+                }
+            }, regressorSink(toTrain), threadPool);
+        }
+        catch (IOException ex)//can't happen, data sets are not read from a stream
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sets up the classifier and trains it with one pass over the remaining
+     * data points of the reader, in the order they are stored. The reader
+     * must have had its {@link ARFFReader#setClassTarget(int) class target}
+     * set, and is not closed by this method.
+     *
+     * @param reader the source of data points
+     * @param toTrain the classifier to train
+     * @param threadPool the source of a thread to read the batches in, if
+     * {@code null} or a {@link FakeExecutor} all work is done by the calling
+     * thread
+     * @throws IOException if an error occurred reading the data
+     */
+    public void trainC(final ARFFReader reader, UpdateableClassifier toTrain, ExecutorService threadPool) throws IOException
+    {
+        if(reader.getPredicting() == null)
+            throw new IllegalArgumentException("The reader has no class target set");
+        toTrain.setUp(reader.getCategories(), reader.getNumNumericalVars(),
+                reader.getPredicting());
+        run(new Source()
+        {
+            @Override
+            public Batch next() throws IOException
+            {
+                List<DataPointPair<Integer>> read = reader.nextClassificationBatch(batchSize);
+                if(read.isEmpty())
+                    return null;
+                Batch batch = new Batch(read.size(), true);
+                for(DataPointPair<Integer> dpp : read)
+                    batch.add(dpp.getDataPoint(), dpp.getPair());
+                return batch;
+            }
+        }, classifierSink(toTrain), threadPool);
+    }
+
+    /**
+     * Sets up the regressor and trains it with one pass over the remaining
+     * data points of the reader, in the order they are stored. The reader
+     * must have had its {@link ARFFReader#setRegressionTarget(int) regression
+     * target} set, and is not closed by this method.
+     *
+     * @param reader the source of data points
+     * @param toTrain the regressor to train
+     * @param threadPool the source of a thread to read the batches in, if
+     * {@code null} or a {@link FakeExecutor} all work is done by the calling
+     * thread
+     * @throws IOException if an error occurred reading the data
+     */
+    public void train(final ARFFReader reader, UpdateableRegressor toTrain, ExecutorService threadPool) throws IOException
+    {
+        toTrain.setUp(reader.getCategories(), reader.getNumNumericalVars());
+        run(new Source()
+        {
+            @Override
+            public Batch next() throws IOException
+            {
+                List<DataPointPair<Double>> read = reader.nextRegressionBatch(batchSize);
+                if(read.isEmpty())
+                    return null;
+                Batch batch = new Batch(read.size(), false);
+                for(DataPointPair<Double> dpp : read)
+                    batch.add(dpp.getDataPoint(), dpp.getPair());
+                return batch;
+            }
+        }, regressorSink(toTrain), threadPool);
+    }
+
+    /**
+     * Moves all batches from the source to the sink.
+     * @param source the producer of batches
+     * @param sink the consumer of batches
+     * @param threadPool the source of a thread for the producer
+     * @throws IOException if the source failed
+     */
+    private void run(final Source source, Sink sink, ExecutorService threadPool) throws IOException
+    {
+        if(threadPool == null || threadPool instanceof FakeExecutor)
+        {
+            Batch batch;
+            while((batch = source.next()) != null)
+                sink.consume(batch);
+            return;
+        }
+
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<Batch>(prefetch);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        threadPool.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Batch batch;
+                    while(!stop.get() && (batch = source.next()) != null)
+                        queue.put(batch);
+                }
+                catch (InterruptedException ex)
+                {
+                    Logger.getLogger(MiniBatchPipeline.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                catch (Throwable ex)
+                {
+                    failure.set(ex);
+                }
+                finally
+                {
+                    //the consumer may have already stopped, in which case no one will take END
+                    try
+                    {
+                        while(!stop.get() && !queue.offer(END, 10, TimeUnit.MILLISECONDS))
+                            ;
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Logger.getLogger(MiniBatchPipeline.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                }
+            }
+        });
+
+        try
+        {
+            Batch batch;
+            while((batch = queue.take()) != END)
+                sink.consume(batch);
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(MiniBatchPipeline.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        finally
+        {
+            stop.set(true);
+            queue.clear();//let a blocked producer finish
+        }
+
+        Throwable ex = failure.get();
+        if(ex instanceof IOException)
+            throw (IOException) ex;
+        else if(ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        else if(ex instanceof Error)
+            throw (Error) ex;
+    }
+
+    private static Sink classifierSink(final UpdateableClassifier toTrain)
+    {
+        if(toTrain instanceof BatchUpdateableClassifier)
+            return new Sink()
+            {
+                @Override
+                public void consume(Batch batch)
+                {
+                    ((BatchUpdateableClassifier)toTrain).update(batch.points, batch.labels);
+                }
+            };
+        return new Sink()
+        {
+            @Override
+            public void consume(Batch batch)
+            {
+                for(int i = 0; i < batch.points.size(); i++)
+                    toTrain.update(batch.points.get(i), batch.labels[i]);
+            }
+        };
+    }
+
+    private static Sink regressorSink(final UpdateableRegressor toTrain)
+    {
+        if(toTrain instanceof BatchUpdateableRegressor)
+            return new Sink()
+            {
+                @Override
+                public void consume(Batch batch)
+                {
+                    ((BatchUpdateableRegressor)toTrain).update(batch.points, batch.targets);
+                }
+            };
+        return new Sink()
+        {
+            @Override
+            public void consume(Batch batch)
+            {
+                for(int i = 0; i < batch.points.size(); i++)
+                    toTrain.update(batch.points.get(i), batch.targets[i]);
+            }
+        };
+    }
+
+    /**
+     * A mini-batch of data points and their class labels or regression
+     * targets
+     */
+    private static class Batch
+    {
+        final List<DataPoint> points;
+        final int[] labels;
+        final double[] targets;
+
+        public Batch(int size, boolean classification)
+        {
+            points = new ArrayList<DataPoint>(size);
+            labels = classification ? new int[size] : null;
+            targets = classification ? null : new double[size];
+        }
+
+        public void add(DataPoint dp, int label)
+        {
+            labels[points.size()] = label;
+            points.add(dp);
+        }
+
+        public void add(DataPoint dp, double target)
+        {
+            targets[points.size()] = target;
+            points.add(dp);
+        }
+    }
+
+    /**
+     * Produces the batches in the order they should be learned from
+     */
+    private static interface Source
+    {
+        /**
+         * Returns the next batch
+         * @return the next batch, or {@code null} if there are no more
+         * @throws IOException if the data could not be read
+         */
+        public Batch next() throws IOException;
+    }
+
+    /**
+     * Learns from each batch
+     */
+    private static interface Sink
+    {
+        public void consume(Batch batch);
+    }
+
+    /**
+     * Produces the batches for a number of epochs over an in memory or
+     * memory mapped data set, shuffling the order of the data points before
+     * each epoch.
+     */
+    private abstract class DataSetSource implements Source
+    {
+        private final int N;
+        private final boolean classification;
+        private final Random rand = new Random();
+        private final int[] order;
+        private int epochsLeft;
+        private int pos;
+
+        public DataSetSource(DataSet dataSet, int epochs, boolean classification)
+        {
+            this.N = dataSet.getSampleSize();
+            this.classification = classification;
+            this.order = new int[N];
+            this.epochsLeft = epochs;
+            this.pos = N;
+        }
+
+        @Override
+        public Batch next()
+        {
+            if(pos >= N)
+            {
+                if(epochsLeft-- <= 0 || N == 0)
+                    return null;
+                shuffle();
+                pos = 0;
+            }
+
+            int end = Math.min(pos+batchSize, N);
+            Batch batch = new Batch(end-pos, classification);
+            for(; pos < end; pos++)
+                add(batch, order[pos]);
+            return batch;
+        }
+
+        /**
+         * Adds the given data point to the batch
+         * @param batch the batch to add to
+         * @param i the index of the data point in the data set
+         */
+        abstract protected void add(Batch batch, int i);
+
+        /**
+         * Fills {@link #order} with the order of the next epoch
+         */
+        private void shuffle()
+        {
+            final int B = shuffleBlockSize;
+            final int blocks = (N+B-1)/B;
+            int[] blockOrder = new int[blocks];
+            for(int b = 0; b < blocks; b++)
+                blockOrder[b] = b;
+            shuffle(blockOrder, 0, blocks);
+
+            int k = 0;
+            for(int b : blockOrder)
+            {
+                final int start = k;
+                for(int i = b*B; i < Math.min((b+1)*B, N); i++)
+                    order[k++] = i;
+                shuffle(order, start, k);
+            }
+        }
+
+        private void shuffle(int[] a, int from, int to)
+        {
+            for(int i = to-1; i > from; i--)
+            {
+                int j = from + rand.nextInt(i-from+1);
+                int tmp = a[i];
+                a[i] = a[j];
+                a[j] = tmp;
+            }
+        }
+    }
+}
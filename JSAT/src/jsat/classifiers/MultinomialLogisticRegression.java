@@ -1,8 +1,10 @@
 
 package jsat.classifiers;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import jsat.exceptions.UntrainedModelException;
+import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.regression.LogisticRegression;
 import jsat.regression.RegressionDataSet;
@@ -15,7 +17,7 @@ import jsat.utils.FakeExecutor;
  * 
  * @author Edward Raff
  */
-public class MultinomialLogisticRegression implements Classifier
+public class MultinomialLogisticRegression implements BatchClassifier
 {
     private Vec[] classCoefficents;
     public CategoricalResults classify(DataPoint data)
@@ -69,6 +71,36 @@ public class MultinomialLogisticRegression implements Classifier
         return results;
     }
 
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        if(classCoefficents == null)
+            throw new UntrainedModelException("Model has not yet been trained");
+        Vec[] ws = new Vec[classCoefficents.length];
+        double[] bias = new double[classCoefficents.length];
+        for(int k = 0; k < ws.length; k++)
+        {
+            Vec coefs = classCoefficents[k];
+            ws[k] = new DenseVector(coefs.arrayCopy(), 1, coefs.length());
+            bias[k] = coefs.get(0);
+        }
+        double[][] scores = new double[out.length][ws.length];
+        BatchPrediction.linearScores(dataPoints, ws, bias, scores);
+        for(int i = 0; i < out.length; i++)
+        {
+            double sum = 0.0;
+            out[i][0] = 1.0;
+            for(int k = 0; k < ws.length; k++)
+            {
+                double exp = Math.exp(scores[i][k]);
+                sum += exp;
+                out[i][k+1] = exp;
+            }
+            for(int k = 0; k <= ws.length; k++)
+                out[i][k] /= 1.0+sum;
+        }
+    }
+
     public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
     {
         LogisticRegression logit = new LogisticRegression();
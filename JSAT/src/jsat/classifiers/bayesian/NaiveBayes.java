@@ -3,6 +3,8 @@ package jsat.classifiers.bayesian;
 
 import static java.lang.Math.exp;
 import static java.lang.Math.log;
+import static java.lang.Math.pow;
+import static java.lang.Math.PI;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -32,7 +34,7 @@ import jsat.utils.FakeExecutor;
  * 
  * @author Edward Raff
  */
-public class NaiveBayes implements Classifier, Parameterized
+public class NaiveBayes implements BatchClassifier, Parameterized
 {
     /**
      * 
@@ -258,6 +260,128 @@ public class NaiveBayes implements Classifier, Parameterized
         return results;
     }
 
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * The parts of the log probability that do not depend on the data point,
+     * such as the logarithms of the {@link Normal} standard deviations and of
+     * the categorical probabilities, are computed once for all of the data
+     * points instead of once for each.
+     */
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        final int C = distributions.length;
+        //Precompute the parts of the Normal log PDF that do not depend on x
+        boolean[][] isNormal = new boolean[C][];
+        double[][] means = new double[C][];
+        double[][] logPdfConst = new double[C][];
+        double[][] logPdfDenom = new double[C][];
+        double[][][] logApriori = new double[C][][];
+        double[] logPriors = new double[C];
+        for(int i = 0; i < C; i++)
+        {
+            final int d = distributions[i].length;
+            isNormal[i] = new boolean[d];
+            means[i] = new double[d];
+            logPdfConst[i] = new double[d];
+            logPdfDenom[i] = new double[d];
+            for(int j = 0; j < d; j++)
+                if(distributions[i][j] != null && distributions[i][j].getClass() == Normal.class)
+                {
+                    Normal normal = (Normal) distributions[i][j];
+                    double sigma = normal.standardDeviation();
+                    isNormal[i][j] = true;
+                    means[i][j] = normal.mean();
+                    logPdfConst[i][j] = -0.5*log(2*PI) + log(sigma);
+                    logPdfDenom[i][j] = 2*sigma*sigma;
+                }
+
+            logApriori[i] = new double[apriori[i].length][];
+            for(int j = 0; j < apriori[i].length; j++)
+            {
+                logApriori[i][j] = new double[apriori[i][j].length];
+                for(int k = 0; k < apriori[i][j].length; k++)
+                    logApriori[i][j][k] = log(apriori[i][j][k]);
+            }
+            logPriors[i] = log(priors[i]);
+        }
+
+        double[] logProbs = new double[C];
+        for(int n = 0; n < dataPoints.size(); n++)
+        {
+            DataPoint data = dataPoints.get(n);
+            Vec numVals = data.getNumericalValues();
+            double maxLogProg = Double.NEGATIVE_INFINITY;
+            for(int i = 0; i < C; i++)
+            {
+                double logProb = 0;
+                if(sparceInput)
+                {
+                    Iterator<IndexValue> iter = numVals.getNonZeroIterator();
+                    while(iter.hasNext())
+                    {
+                        IndexValue indexValue = iter.next();
+                        int j = indexValue.getIndex();
+                        double logPDF;
+                        if(isNormal[i][j])
+                            logPDF = logPdfConst[i][j] + -pow(indexValue.getValue()-means[i][j], 2)/logPdfDenom[i][j];
+                        else if(distributions[i][j] == null)
+                            logPDF = Double.NEGATIVE_INFINITY;
+                        else
+                            logPDF = distributions[i][j].logPdf(indexValue.getValue());
+                        if(Double.isInfinite(logPDF))
+                            logProb += log(1e-16);
+                        else
+                            logProb += logPDF;
+                    }
+                }
+                else
+                {
+                    for(int j = 0; j < distributions[i].length; j++)
+                    {
+                        double logPDF;
+                        if(isNormal[i][j])
+                            logPDF = logPdfConst[i][j] + -pow(numVals.get(j)-means[i][j], 2)/logPdfDenom[i][j];
+                        else if(distributions[i][j] == null)
+                            logPDF = Double.NEGATIVE_INFINITY;
+                        else
+                            logPDF = distributions[i][j].logPdf(numVals.get(j));
+                        if(Double.isInfinite(logPDF))
+                            logProb += log(1e-16);
+                        else
+                            logProb += logPDF;
+                    }
+                }
+
+                for(int j = 0; j < logApriori[i].length; j++)
+                    logProb += logApriori[i][j][data.getCategoricalValue(j)];
+
+                logProb += logPriors[i];
+                logProbs[i] = logProb;
+                maxLogProg = Math.max(maxLogProg, logProb);
+            }
+
+            double[] probs = out[n];
+            if(maxLogProg == Double.NEGATIVE_INFINITY)//Everything reported no!
+            {
+                Arrays.fill(probs, 0, C, 1.0/C);
+                continue;
+            }
+
+            double denom = MathTricks.logSumExp(logProbs, maxLogProg);
+            double sum = 0;
+            for(int i = 0; i < C; i++)
+            {
+                probs[i] = exp(logProbs[i]-denom);
+                sum += probs[i];
+            }
+            if(sum != 0)
+                for(int i = 0; i < C; i++)
+                    probs[i] /= sum;
+        }
+    }
+
         
     @Override
     public void trainC(ClassificationDataSet dataSet)
@@ -278,7 +402,7 @@ public class NaiveBayes implements Classifier, Parameterized
     }
     
     @Override
-    public Classifier clone()
+    public NaiveBayes clone()
     {
         NaiveBayes newBayes = new NaiveBayes(numericalHandling);
         
@@ -176,13 +176,8 @@ public class ArcX4 implements Classifier, Parameterized
     @Override
     public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
     {
-        //Create a low memory clone that only has different dataPoint Objects to save space
-        ClassificationDataSet cds = dataSet.shallowClone();
-        for(int i = 0; i < cds.getSampleSize(); i++)
-        {
-            DataPoint dp = cds.getDataPoint(i);
-            cds.setDataPoint(i, new DataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getCategoricalData()));
-        }
+        //Create a low memory clone that only has its own weights
+        ClassificationDataSet cds = dataSet.getTwiceShallowClone();
         
         //Everyone starts with no errors
         int[] errors = new int[cds.getSampleSize()];
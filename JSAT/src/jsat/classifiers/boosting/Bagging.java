@@ -5,12 +5,14 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jsat.DataSet;
 import jsat.classifiers.*;
 import jsat.classifiers.knn.NearestNeighbour;
 import jsat.classifiers.trees.DecisionTree;
 import jsat.math.OnLineStatistics;
 import jsat.parameters.*;
 import jsat.regression.RegressionDataSet;
+import jsat.regression.RegressionDataSetView;
 import jsat.regression.Regressor;
 import jsat.utils.SystemInfo;
 
@@ -277,7 +279,9 @@ public class Bagging implements Classifier, Regressor, Parameterized
 
     /**
      * Creates a new data set from the given sample counts. Points sampled 
-     * multiple times will have multiple entries in the data set. 
+     * multiple times will have multiple entries in the data set. The data set 
+     * returned is a {@link ClassificationDataSetView view} of the original, so 
+     * no data points are copied. 
      * @param dataSet the data set that was sampled from
      * @param sampledCounts the sampling values obtained from 
      * {@link #sampleWithReplacement(int[], int, java.util.Random) }
@@ -285,22 +289,15 @@ public class Bagging implements Classifier, Regressor, Parameterized
      */
     public static ClassificationDataSet getSampledDataSet(ClassificationDataSet dataSet, int[] sampledCounts)
     {
-        ClassificationDataSet destination = new ClassificationDataSet(dataSet.getNumNumericalVars(), dataSet.getCategories(), dataSet.getPredicting());
-            
-            for (int i = 0; i < sampledCounts.length; i++)
-                for(int j = 0; j < sampledCounts[i]; j++)
-                {
-                    DataPoint dp = dataSet.getDataPoint(i);
-                    destination.addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dataSet.getDataPointCategory(i));
-                }
-            
-            return destination;
+        return new ClassificationDataSetView(dataSet, getSampledRows(sampledCounts));
     }
     
     /**
      * Creates a new data set from the given sample counts. Points sampled
      * multiple times will be added once to the data set with their weight
-     * multiplied by the number of times it was sampled. 
+     * multiplied by the number of times it was sampled. The data set returned 
+     * is a {@link ClassificationDataSetView view} of the original, so only the 
+     * new weights are stored. 
      * @param dataSet the data set that was sampled from
      * @param sampledCounts the sampling values obtained from 
      * {@link #sampleWithReplacement(int[], int, java.util.Random) }
@@ -308,22 +305,15 @@ public class Bagging implements Classifier, Regressor, Parameterized
      */
     public static ClassificationDataSet getWeightSampledDataSet(ClassificationDataSet dataSet, int[] sampledCounts)
     {
-        ClassificationDataSet destination = new ClassificationDataSet(dataSet.getNumNumericalVars(), dataSet.getCategories(), dataSet.getPredicting());
-
-        for (int i = 0; i < sampledCounts.length; i++)
-        {
-            if(sampledCounts[i] <= 0)
-                continue;
-            DataPoint dp = dataSet.getDataPoint(i);
-            destination.addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dataSet.getDataPointCategory(i), dp.getWeight()*sampledCounts[i]);
-        }
-
-        return destination;
+        int[] rows = getWeightSampledRows(sampledCounts);
+        return new ClassificationDataSetView(dataSet, rows, getSampledWeights(dataSet, rows, sampledCounts));
     }
     
     /**
      * Creates a new data set from the given sample counts. Points sampled 
-     * multiple times will have multiple entries in the data set. 
+     * multiple times will have multiple entries in the data set. The data set 
+     * returned is a {@link RegressionDataSetView view} of the original, so no 
+     * data points are copied. 
      * @param dataSet the data set that was sampled from
      * @param sampledCounts the sampling values obtained from 
      * {@link #sampleWithReplacement(int[], int, java.util.Random) }
@@ -331,20 +321,15 @@ public class Bagging implements Classifier, Regressor, Parameterized
      */
     public static RegressionDataSet getSampledDataSet(RegressionDataSet dataSet, int[] sampledCounts)
     {
-        RegressionDataSet destination = new RegressionDataSet(dataSet.getNumNumericalVars(), dataSet.getCategories());
-        for (int i = 0; i < sampledCounts.length; i++)
-            for (int j = 0; j < sampledCounts[i]; j++)
-            {
-                DataPoint dp = dataSet.getDataPoint(i);
-                destination.addDataPoint(dp, dataSet.getTargetValue(i));
-            }
-        return destination;
+        return new RegressionDataSetView(dataSet, getSampledRows(sampledCounts));
     }
     
     /**
      * Creates a new data set from the given sample counts. Points sampled
      * multiple times will be added once to the data set with their weight
-     * multiplied by the number of times it was sampled. 
+     * multiplied by the number of times it was sampled. The data set returned 
+     * is a {@link RegressionDataSetView view} of the original, so only the new 
+     * weights are stored. 
      * @param dataSet the data set that was sampled from
      * @param sampledCounts the sampling values obtained from 
      * {@link #sampleWithReplacement(int[], int, java.util.Random) }
@@ -352,18 +337,49 @@ public class Bagging implements Classifier, Regressor, Parameterized
      */
     public static RegressionDataSet getWeightSampledDataSet(RegressionDataSet dataSet, int[] sampledCounts)
     {
-        RegressionDataSet destination = new RegressionDataSet(dataSet.getNumNumericalVars(), dataSet.getCategories());
-
+        int[] rows = getWeightSampledRows(sampledCounts);
+        return new RegressionDataSetView(dataSet, rows, getSampledWeights(dataSet, rows, sampledCounts));
+    }
+    
+    /**
+     * Lists each row once for every time it was sampled
+     */
+    private static int[] getSampledRows(int[] sampledCounts)
+    {
+        int total = 0;
+        for(int count : sampledCounts)
+            total += Math.max(count, 0);
+        int[] rows = new int[total];
+        int pos = 0;
         for (int i = 0; i < sampledCounts.length; i++)
-        {
-            if(sampledCounts[i] <= 0)
-                continue;
-            DataPoint dp = dataSet.getDataPoint(i);
-            DataPoint reWeighted = new DataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getCategoricalData(), dp.getWeight()*sampledCounts[i]);
-            destination.addDataPoint(reWeighted, dataSet.getTargetValue(i));
-        }
-
-        return destination;
+            for(int j = 0; j < sampledCounts[i]; j++)
+                rows[pos++] = i;
+        return rows;
+    }
+    
+    /**
+     * Lists each row that was sampled at least once
+     */
+    private static int[] getWeightSampledRows(int[] sampledCounts)
+    {
+        int total = 0;
+        for(int count : sampledCounts)
+            if(count > 0)
+                total++;
+        int[] rows = new int[total];
+        int pos = 0;
+        for (int i = 0; i < sampledCounts.length; i++)
+            if(sampledCounts[i] > 0)
+                rows[pos++] = i;
+        return rows;
+    }
+    
+    private static double[] getSampledWeights(DataSet dataSet, int[] rows, int[] sampledCounts)
+    {
+        double[] weights = new double[rows.length];
+        for(int k = 0; k < rows.length; k++)
+            weights[k] = dataSet.getDataPoint(rows[k]).getWeight()*sampledCounts[rows[k]];
+        return weights;
     }
 
     /**
@@ -200,16 +200,10 @@ public class Wagging implements Classifier, Regressor, Parameterized
         {
             this.start = start;
             this.end = end;
-            this.ds = ds.shallowClone();
+            //different weights so we can adjsut them independently
+            this.ds = ds.getTwiceShallowClone();
             this.rand = rand;
             this.latch = latch;
-            
-            //point at different objects so we can adjsut weights independently
-            for(int i = 0; i < this.ds.getSampleSize(); i++)
-            {
-                DataPoint dp = this.ds.getDataPoint(i);
-                this.ds.setDataPoint(i, new DataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getCategoricalData()));
-            }
         }
         
         @Override
@@ -247,6 +247,13 @@ public class AROW extends BaseUpdateableClassifier implements BinaryScoreClassif
     {
         return false;
     }
+
+    @Override
+    protected boolean supportsConcurrentUpdates()
+    {
+        //the diagonal only touches the values of the input's non zeros
+        return diagonalOnly;
+    }
     
     @Override
     public List<Parameter> getParameters()
@@ -24,8 +24,8 @@ import jsat.math.FunctionVec;
 import jsat.math.optimization.*;
 import jsat.parameters.Parameter;
 import jsat.parameters.Parameterized;
+import jsat.regression.BatchRegressor;
 import jsat.regression.RegressionDataSet;
-import jsat.regression.Regressor;
 import jsat.utils.ListUtils;
 import jsat.utils.SystemInfo;
 import jsat.utils.concurrent.ParallelUtils;
@@ -42,7 +42,7 @@ import jsat.utils.concurrent.ParallelUtils;
  * Note: the current implementation does not currently use bias terms
  * @author Edward Raff
  */
-public class LinearBatch implements Classifier, Regressor, Parameterized
+public class LinearBatch implements BatchClassifier, BatchRegressor, Parameterized
 {
     private Vec[] ws;
     private LossFunc loss;
@@ -222,6 +222,35 @@ public class LinearBatch implements Classifier, Regressor, Parameterized
         return ((LossR)loss).getRegression(ws[0].dot(x));
     }
 
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        BatchPrediction.linearScores(dataPoints, ws, null, out);
+        for(int i = 0; i < out.length; i++)
+        {
+            CategoricalResults result;
+            if(ws.length == 1)
+                result = ((LossC)loss).getClassification(out[i][0]);
+            else
+            {
+                Vec pred = new DenseVector(out[i]);
+                ((LossMC)loss).process(pred, pred);
+                result = ((LossMC)loss).getClassification(pred);
+            }
+            for(int j = 0; j < result.size(); j++)
+                out[i][j] = result.getProb(j);
+        }
+    }
+
+    @Override
+    public void regress(List<DataPoint> dataPoints, double[] out)
+    {
+        double[][] scores = new double[out.length][1];
+        BatchPrediction.linearScores(dataPoints, ws, null, scores);
+        for(int i = 0; i < out.length; i++)
+            out[i] = ((LossR)loss).getRegression(scores[i][0]);
+    }
+
     @Override
     public void trainC(final ClassificationDataSet D, final ExecutorService threadPool)
     {
@@ -1,17 +1,27 @@
 package jsat.classifiers.linear;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
 import jsat.SimpleWeightVectorModel;
 import jsat.classifiers.BaseUpdateableClassifier;
+import jsat.classifiers.BatchClassifier;
+import jsat.classifiers.BatchPrediction;
+import jsat.classifiers.BatchUpdateableClassifier;
 import jsat.classifiers.CategoricalData;
 import jsat.classifiers.CategoricalResults;
+import jsat.classifiers.ClassificationDataSet;
 import jsat.classifiers.DataPoint;
 import jsat.exceptions.FailedToFitException;
 import jsat.linear.DenseVector;
 import jsat.linear.IndexValue;
 import jsat.linear.ScaledVector;
+import jsat.linear.SparseVector;
 import jsat.linear.Vec;
 import jsat.lossfunctions.HingeLoss;
 import jsat.lossfunctions.LossC;
@@ -25,8 +35,14 @@ import jsat.math.optimization.stochastic.SimpleSGD;
 import jsat.parameters.Parameter;
 import jsat.parameters.Parameterized;
 import jsat.regression.BaseUpdateableRegressor;
+import jsat.regression.BatchRegressor;
+import jsat.regression.BatchUpdateableRegressor;
 import jsat.regression.RegressionDataSet;
-import jsat.regression.UpdateableRegressor;
+import jsat.utils.FakeExecutor;
+import jsat.utils.IntList;
+import jsat.utils.ListUtils;
+import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.ParallelUtils;
 
 /**
  * LinearSGD learns either a classification or regression problem depending on 
@@ -52,10 +68,27 @@ import jsat.regression.UpdateableRegressor;
  * penalty</i>. Proceedings of the Joint Conference of the 47th Annual Meeting 
  * of the ACL and the 4th International Joint Conference on Natural Language 
  * Processing of the AFNLP, 1, 477. doi:10.3115/1687878.1687946</li>
+ * <li>Zinkevich, M., Weimer, M., Smola, A., &amp; Li, L. (2010). <i>Parallelized
+ * Stochastic Gradient Descent</i>. In Advances in Neural Information 
+ * Processing Systems 23 (pp. 2595–2603).</li>
  * </ul>
+ * When given a thread pool, each thread trains its own copy of the model on 
+ * its share of every epoch, with its own gradient updater and L<sub>2</sub> 
+ * regularization. The learning rate decays with the number of data points 
+ * seen by all the copies, the same as when training with one thread. The 
+ * copies are averaged after every epoch, and the next epoch starts all copies 
+ * from the average. This requires one weight vector per thread. The 
+ * cumulative L<sub>1</sub> penalty can not be averaged, so training is done 
+ * in the calling thread when {@link #setLambda1(double) &lambda;<sub>1</sub>} 
+ * &gt; 0. 
+ * <br><br>
+ * When trained from mini-batches, such as by a 
+ * {@link jsat.classifiers.MiniBatchPipeline}, each batch is one step of 
+ * gradient descent using the average gradient of the batch. 
+ * 
  * @author Edward Raff
  */
-public class LinearSGD extends BaseUpdateableClassifier implements UpdateableRegressor, Parameterized, SimpleWeightVectorModel
+public class LinearSGD extends BaseUpdateableClassifier implements BatchUpdateableClassifier, BatchUpdateableRegressor, BatchClassifier, BatchRegressor, Parameterized, SimpleWeightVectorModel
 {
     
     private LossFunc loss;
@@ -125,6 +158,7 @@ public class LinearSGD extends BaseUpdateableClassifier implements UpdateableReg
         this.l1U = toClone.l1U;
         this.useBias = toClone.useBias;
         this.gradientUpdater = toClone.gradientUpdater;
+        setEpochs(toClone.getEpochs());
         if(toClone.l1Q != null)
         {
             this.l1Q = new double[toClone.l1Q.length][];
@@ -409,6 +443,124 @@ public class LinearSGD extends BaseUpdateableClassifier implements UpdateableReg
         applyL1Reg(eta_t, x);
     }
     
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The whole batch counts as one step, and the model is updated once with 
+     * the average gradient of the data points in the batch. 
+     */
+    @Override
+    public void update(List<DataPoint> dataPoints, int[] targetClasses)
+    {
+        final int n = dataPoints.size();
+        if(n == 0)
+            return;
+        final double eta_t = decay.rate(time++, eta);
+        applyL2Reg(eta_t);
+        final Vec[] grads = newBatchGradients(dataPoints);
+        final double[] biasGrads = new double[ws.length];
+        
+        //all gradients are computed from the model as it was at the start of the batch
+        Vec pred = ws.length == 1 ? null : new DenseVector(ws.length);
+        for(int j = 0; j < n; j++)
+        {
+            Vec x = dataPoints.get(j).getNumericalValues();
+            if(ws.length == 1)
+            {
+                final double y = targetClasses[j]*2-1;
+                final double lossD = ((LossC)loss).getDeriv(ws[0].dot(x)+bs[0], y);
+                grads[0].mutableAdd(lossD, x);
+                biasGrads[0] += lossD;
+            }
+            else
+            {
+                for(int i = 0; i < ws.length; i++)
+                    pred.set(i, ws[i].dot(x)+bs[i]);
+                ((LossMC)loss).process(pred, pred);
+                ((LossMC)loss).deriv(pred, pred, targetClasses[j]);
+                for(IndexValue iv : pred)
+                {
+                    final int i = iv.getIndex();
+                    grads[i].mutableAdd(iv.getValue(), x);
+                    biasGrads[i] += iv.getValue();
+                }
+            }
+        }
+        
+        performBatchUpdate(eta_t, grads, biasGrads, dataPoints);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The whole batch counts as one step, and the model is updated once with 
+     * the average gradient of the data points in the batch. 
+     */
+    @Override
+    public void update(List<DataPoint> dataPoints, double[] targetValues)
+    {
+        final int n = dataPoints.size();
+        if(n == 0)
+            return;
+        final double eta_t = decay.rate(time++, eta);
+        applyL2Reg(eta_t);
+        final Vec[] grads = newBatchGradients(dataPoints);
+        final double[] biasGrads = new double[1];
+        
+        for(int j = 0; j < n; j++)
+        {
+            Vec x = dataPoints.get(j).getNumericalValues();
+            final double lossD = ((LossR)loss).getDeriv(ws[0].dot(x)+bs[0], targetValues[j]);
+            grads[0].mutableAdd(lossD, x);
+            biasGrads[0] += lossD;
+        }
+        
+        performBatchUpdate(eta_t, grads, biasGrads, dataPoints);
+    }
+    
+    /**
+     * Creates the zero vectors to accumulate the gradient of a batch into, 
+     * which will be sparse if the inputs are sparse
+     * @param dataPoints the batch of data points
+     * @return one gradient vector for each weight vector
+     */
+    private Vec[] newBatchGradients(List<DataPoint> dataPoints)
+    {
+        final boolean sparse = dataPoints.get(0).getNumericalValues().isSparse();
+        final int d = ws[0].length();
+        Vec[] grads = new Vec[ws.length];
+        for(int i = 0; i < grads.length; i++)
+            grads[i] = sparse ? new SparseVector(d) : new DenseVector(d);
+        return grads;
+    }
+    
+    /**
+     * Applies the averaged gradients of a batch, followed by L1 regularization
+     * @param eta_t the learning rate to use
+     * @param grads the summed gradient for each weight vector
+     * @param biasGrads the summed gradient for each bias term
+     * @param dataPoints the batch the gradients came from
+     */
+    private void performBatchUpdate(final double eta_t, Vec[] grads, double[] biasGrads, List<DataPoint> dataPoints)
+    {
+        final int n = dataPoints.size();
+        for(int i = 0; i < ws.length; i++)
+        {
+            grads[i].mutableDivide(n);
+            if (useBias)
+                bs[i] -= gus[i].update(ws[i], grads[i], eta_t, bs[i], biasGrads[i]/n);
+            else
+                gus[i].update(ws[i], grads[i], eta_t);
+        }
+        
+        if(lambda1 > 0)
+        {
+            l1U += eta_t*lambda1;
+            for(DataPoint dp : dataPoints)
+                applyL1Penalty(dp.getNumericalValues());
+        }
+    }
+    
     @Override
     public CategoricalResults classify(DataPoint data)
     {
@@ -432,6 +584,35 @@ public class LinearSGD extends BaseUpdateableClassifier implements UpdateableReg
         return ((LossR)loss).getRegression(ws[0].dot(x)+bs[0]);
     }
 
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        BatchPrediction.linearScores(dataPoints, ws, bs, out);
+        for(int i = 0; i < out.length; i++)
+        {
+            CategoricalResults result;
+            if(ws.length == 1)
+                result = ((LossC)loss).getClassification(out[i][0]);
+            else
+            {
+                Vec pred = new DenseVector(out[i]);
+                ((LossMC)loss).process(pred, pred);
+                result = ((LossMC)loss).getClassification(pred);
+            }
+            for(int j = 0; j < result.size(); j++)
+                out[i][j] = result.getProb(j);
+        }
+    }
+
+    @Override
+    public void regress(List<DataPoint> dataPoints, double[] out)
+    {
+        double[][] scores = new double[out.length][1];
+        BatchPrediction.linearScores(dataPoints, ws, bs, scores);
+        for(int i = 0; i < out.length; i++)
+            out[i] = ((LossR)loss).getRegression(scores[i][0]);
+    }
+
     @Override
     public boolean supportsWeightedData()
     {
@@ -460,31 +641,148 @@ public class LinearSGD extends BaseUpdateableClassifier implements UpdateableReg
         if(lambda1 > 0)
         {
             l1U += eta_t*lambda1;//line 6: in Tsuruoka et al paper, figure 2
-            for(int k = 0; k < ws.length; k++)
+            applyL1Penalty(x);
+        }
+    }
+
+    /**
+     * Applies the cumulative L1 penalty to the weights of the non zero 
+     * features of the given input
+     * @param x the input vector the update is from
+     */
+    private void applyL1Penalty(Vec x)
+    {
+        for(int k = 0; k < ws.length; k++)
+        {
+            final Vec w_k = ws[k];
+            final double[] l1Q_k = l1Q[k];
+            for(IndexValue iv : x)
             {
-                final Vec w_k = ws[k];
-                final double[] l1Q_k = l1Q[k];
-                for(IndexValue iv : x)
-                {
-                    final int i = iv.getIndex();
-                    //see "APPLYPENALTY(i)" on line 15: from Figure 2 in Tsuruoka et al paper
-                    final double z = w_k.get(i);
-                    double newW_i;
-                    if (z > 0)
-                        newW_i = Math.max(0, z - (l1U + l1Q_k[i]));
-                    else
-                        newW_i = Math.min(0, z + (l1U - l1Q_k[i]));
-                    l1Q_k[i] += (newW_i - z);
-                    w_k.set(i, newW_i);
-                }
+                final int i = iv.getIndex();
+                //see "APPLYPENALTY(i)" on line 15: from Figure 2 in Tsuruoka et al paper
+                final double z = w_k.get(i);
+                double newW_i;
+                if (z > 0)
+                    newW_i = Math.max(0, z - (l1U + l1Q_k[i]));
+                else
+                    newW_i = Math.min(0, z + (l1U - l1Q_k[i]));
+                l1Q_k[i] += (newW_i - z);
+                w_k.set(i, newW_i);
             }
         }
     }
 
+    @Override
+    public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
+    {
+        //the cumulative L1 penalty of each copy can't be averaged
+        if(threadPool == null || threadPool instanceof FakeExecutor || lambda1 > 0)
+            trainC(dataSet);
+        else
+        {
+            setUp(dataSet.getCategories(), dataSet.getNumNumericalVars(), dataSet.getPredicting());
+            trainAveraged(dataSet, threadPool);
+        }
+    }
+
     @Override
     public void train(RegressionDataSet dataSet, ExecutorService threadPool)
     {
-        train(dataSet);
+        //the cumulative L1 penalty of each copy can't be averaged
+        if(threadPool == null || threadPool instanceof FakeExecutor || lambda1 > 0)
+            train(dataSet);
+        else
+        {
+            setUp(dataSet.getCategories(), dataSet.getNumNumericalVars());
+            trainAveraged(dataSet, threadPool);
+        }
+    }
+
+    /**
+     * Trains the model, which must already be set up, with one copy per 
+     * thread. Each copy is updated with its own share of every epoch, and the
+     * copies are averaged into this model at the end of each epoch. Each copy
+     * starts an epoch at the step it would be at if the epoch were done in 
+     * order by one thread, so the learning rate decays as it does in serial
+     * training.
+     * 
+     * @param dataSet the classification or regression data set to train from
+     * @param threadPool the source of threads
+     */
+    private void trainAveraged(final DataSet dataSet, ExecutorService threadPool)
+    {
+        final int N = dataSet.getSampleSize();
+        final int P = Math.max(1, Math.min(SystemInfo.LogicalCores, N));
+        final LinearSGD[] models = new LinearSGD[P];
+        for(int id = 0; id < P; id++)
+            models[id] = new LinearSGD(this);
+        final IntList randomOrder = new IntList(N);
+        ListUtils.addRange(randomOrder, 0, N, 1);
+        
+        for(int epoch = 0; epoch < getEpochs(); epoch++)
+        {
+            Collections.shuffle(randomOrder);
+            final CountDownLatch latch = new CountDownLatch(P);
+            for(int id = 0; id < P; id++)
+            {
+                final LinearSGD model = models[id];
+                final int start = ParallelUtils.getStartBlock(N, id, P);
+                final int end = ParallelUtils.getEndBlock(N, id, P);
+                model.time = time+start;
+                threadPool.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            for(int j = start; j < end; j++)
+                            {
+                                final int i = randomOrder.getI(j);
+                                if(dataSet instanceof ClassificationDataSet)
+                                    model.update(dataSet.getDataPoint(i), ((ClassificationDataSet)dataSet).getDataPointCategory(i));
+                                else
+                                    model.update(dataSet.getDataPoint(i), ((RegressionDataSet)dataSet).getTargetValue(i));
+                            }
+                        }
+                        finally
+                        {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+            try
+            {
+                latch.await();
+            }
+            catch (InterruptedException ex)
+            {
+                Logger.getLogger(LinearSGD.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            time += N;
+            
+            //average the copies, and start them all from the average
+            for(int k = 0; k < ws.length; k++)
+            {
+                ws[k].zeroOut();
+                bs[k] = 0;
+                for(LinearSGD model : models)
+                {
+                    ws[k].mutableAdd(1.0/P, model.ws[k]);
+                    bs[k] += model.bs[k]/P;
+                }
+                for(LinearSGD model : models)
+                {
+                    model.ws[k].zeroOut();
+                    model.ws[k].mutableAdd(ws[k]);
+                    model.bs[k] = bs[k];
+                }
+            }
+        }
+        
+        //keep the gradient updaters of one copy for any further online updates
+        gus = models[0].gus;
     }
 
     @Override
@@ -223,7 +223,8 @@ public class PassiveAggressive implements UpdateableClassifier, BinaryScoreClass
     @Override
     public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
     {
-        trainC(dataSet);
+        //each update only adds to w, so concurrent updates are safe
+        BaseUpdateableClassifier.trainEpochs(dataSet, this, epochs, threadPool);
     }
 
     @Override
@@ -308,7 +309,7 @@ public class PassiveAggressive implements UpdateableClassifier, BinaryScoreClass
     @Override
     public void train(RegressionDataSet dataSet, ExecutorService threadPool)
     {
-        train(dataSet);
+        BaseUpdateableRegressor.trainEpochs(dataSet, this, epochs, threadPool);
     }
 
     @Override
@@ -435,6 +435,13 @@ public class SCW extends BaseUpdateableClassifier implements BinaryScoreClassifi
     {
         return false;
     }
+
+    @Override
+    protected boolean supportsConcurrentUpdates()
+    {
+        //the diagonal only touches the values of the input's non zeros
+        return diagonalOnly;
+    }
     
 @Override
     public List<Parameter> getParameters()
@@ -6,9 +6,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import jsat.classifiers.BatchClassifier;
 import jsat.classifiers.CategoricalResults;
 import jsat.classifiers.ClassificationDataSet;
-import jsat.classifiers.Classifier;
 import jsat.classifiers.DataPoint;
 import jsat.classifiers.neuralnetwork.activations.ActivationLayer;
 import jsat.classifiers.neuralnetwork.activations.ReLU;
@@ -16,6 +16,8 @@ import jsat.classifiers.neuralnetwork.activations.SoftmaxLayer;
 import jsat.classifiers.neuralnetwork.initializers.ConstantInit;
 import jsat.classifiers.neuralnetwork.initializers.GaussianNormalInit;
 import jsat.classifiers.neuralnetwork.regularizers.Max2NormRegularizer;
+import jsat.linear.DenseMatrix;
+import jsat.linear.Matrix;
 import jsat.linear.SparseVector;
 import jsat.linear.Vec;
 import jsat.math.optimization.stochastic.AdaDelta;
@@ -35,7 +37,7 @@ import jsat.utils.ListUtils;
  * 
  * @author Edward Raff
  */
-public class DReDNetSimple implements Classifier, Parameterized
+public class DReDNetSimple implements BatchClassifier, Parameterized
 {
     private SGDNetworkTrainer network;
     private int[] hiddenSizes;
@@ -123,6 +125,28 @@ public class DReDNetSimple implements Classifier, Parameterized
         return new CategoricalResults(y.arrayCopy());
     }
 
+    /**
+     * {@inheritDoc}
+     * <br><br>
+     * The data points are fed through the network {@link #getBatchSize() batch
+     * size} at a time, as the columns of one matrix.
+     */
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        for(int start = 0; start < dataPoints.size(); start += batchSize)
+        {
+            int end = Math.min(start+batchSize, dataPoints.size());
+            Matrix X = new DenseMatrix(dataPoints.get(start).getNumericalValues().length(), end-start);
+            for(int i = start; i < end; i++)
+                dataPoints.get(i).getNumericalValues().copyToCol(X, i-start);
+            Matrix Y = network.feedfoward(X);
+            for(int i = start; i < end; i++)
+                for(int j = 0; j < Y.rows(); j++)
+                    out[i][j] = Y.get(j, i-start);
+        }
+    }
+
     @Override
     public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
     {
@@ -620,7 +620,41 @@ public class SGDNetworkTrainer implements Serializable
         
         return a_lprev;
     }
-    
+
+    /**
+     * Feeds many patterns through the network at once and computes their
+     * activations. Each layer is computed with one matrix multiplication for
+     * all of the patterns, which is faster than calling
+     * {@link #feedfoward(jsat.linear.Vec) } once per pattern.
+     * @param X the matrix of inputs, where each column is one input to feed
+     * forward through the network
+     * @return the matrix of final activations, where each column is the
+     * activation for the same column of <tt>X</tt>
+     */
+    public Matrix feedfoward(Matrix X)
+    {
+        Matrix a_lprev = X;
+        for (int l = 0; l < layersActivation.size(); l++)
+        {
+            Matrix z_l = new DenseMatrix(layerSizes[l+1], X.cols());
+            W.get(l).multiply(a_lprev, z_l);
+
+            //add the bias term back in
+            final Vec B_l = B.get(l);
+            for (int i = 0; i < z_l.rows(); i++)
+            {
+                final double B_li = B_l.get(i);
+                for (int j = 0; j < z_l.cols(); j++)
+                    z_l.increment(i, j, B_li);
+            }
+
+            layersActivation.get(l).activate(z_l, z_l, false);
+            a_lprev = z_l;
+        }
+
+        return a_lprev;
+    }
+
     private double backpropagateError(Matrix[] deltasM, Matrix[] activationsM, List<Vec> x, List<Vec> y, double errorMade, ExecutorService ex, Matrix[] unactivatedM)
     {
         //backpropagate the error
@@ -0,0 +1,301 @@
+package jsat.classifiers.svm;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import jsat.utils.SystemInfo;
+
+/**
+ * A cache of the rows of a symmetric kernel matrix that is limited by a byte
+ * budget and may be used by multiple threads at once. Rows may be stored as
+ * {@code double} or {@code float} values, the latter doubling the number of
+ * rows that fit in the same budget at a loss of precision. <br>
+ * <br>
+ * Looking up a row does not take any locks. The rows are divided between a
+ * number of shards by their index, and each shard holds an equal share of
+ * the budget. Inserting or evicting a row only locks the shard that owns it.
+ * When a shard is full, its least recently used row is evicted. Recency is
+ * tracked with a clock that only advances when a row is inserted, so rows 
+ * used between the same two insertions are considered equally recent. <br>
+ * <br>
+ * The values within a row are computed lazily by {@link #eval(int, int) } the
+ * first time they are requested. If neither row of a pair is present, a row
+ * is created for the first index.
+ *
+ * @author Edward Raff
+ */
+public abstract class KernelRowCache
+{
+    /**
+     * Rough number of bytes used by each row beyond its values, for the
+     * object headers and references
+     */
+    private static final int ROW_OVERHEAD = 64;
+    private final int N;
+    private final boolean floatStorage;
+    private final AtomicReferenceArray<Row> rows;
+    private final Shard[] shards;
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Creates a new kernel row cache
+     * @param N the number of rows and columns in the kernel matrix
+     * @param bytes the maximum number of bytes the cached rows may use. At
+     * least one row will always be kept.
+     * @param floatStorage {@code true} to store the kernel values as floats,
+     * {@code false} to store them as doubles
+     */
+    public KernelRowCache(int N, long bytes, boolean floatStorage)
+    {
+        if(N < 0)
+            throw new IllegalArgumentException("Number of rows must be non-negative, not " + N);
+        if(bytes <= 0)
+            throw new IllegalArgumentException("Cache size must be positive, not " + bytes);
+        this.N = N;
+        this.floatStorage = floatStorage;
+        this.rows = new AtomicReferenceArray<Row>(N);
+
+        long bytesPerRow = (long) N*(floatStorage ? Float.SIZE/8 : Double.SIZE/8) + ROW_OVERHEAD;
+        int maxRows = (int) Math.max(1, Math.min(N, bytes/bytesPerRow));
+        int numShards = Math.max(1, Math.min(4*SystemInfo.LogicalCores, maxRows));
+        shards = new Shard[numShards];
+        for(int i = 0; i < numShards; i++)
+            shards[i] = new Shard(maxRows/numShards + (i < maxRows%numShards ? 1 : 0));
+    }
+
+    /**
+     * Computes the kernel value for the given pair of indices. This is called
+     * on a cache miss, and may be called by several threads concurrently.
+     * @param a the first index
+     * @param b the second index
+     * @return the kernel value k(a, b)
+     */
+    abstract protected double eval(int a, int b);
+
+    /**
+     * Returns the kernel value for the given pair of indices, computing it and
+     * storing it in the cache if it is not already present.
+     * @param a the first index
+     * @param b the second index
+     * @return the kernel value k(a, b)
+     */
+    public double get(int a, int b)
+    {
+        Row row = rows.get(a);
+        int col = b;
+        if(row == null)
+        {
+            //the matrix is symmetric, so b's row will do
+            row = rows.get(b);
+            col = a;
+            if(row == null)
+            {
+                row = insert(a);
+                col = b;
+            }
+        }
+        row.lastUsed = clock.get();
+
+        Shard shard = shards[row.index % shards.length];
+        double val = row.get(col);
+        if(Double.isNaN(val))
+        {
+            shard.misses.incrementAndGet();
+            val = eval(row.index, col);
+            row.set(col, val);
+        }
+        else
+            shard.hits.incrementAndGet();
+        return val;
+    }
+
+    /**
+     * Returns the row for the given index, creating it and evicting another
+     * row if needed.
+     */
+    private Row insert(int index)
+    {
+        Shard shard = shards[index % shards.length];
+        synchronized(shard)
+        {
+            Row row = rows.get(index);
+            if(row != null)//another thread beat us to it
+                return row;
+
+            if(shard.size == shard.capacity)
+            {
+                //find the least recently used row in this shard
+                int lru = 0;
+                for(int i = 1; i < shard.size; i++)
+                    if(shard.resident[i].lastUsed < shard.resident[lru].lastUsed)
+                        lru = i;
+                rows.set(shard.resident[lru].index, null);
+                shard.resident[lru] = shard.resident[--shard.size];
+                shard.resident[shard.size] = null;
+                shard.evictions.incrementAndGet();
+            }
+
+            /*
+             * Evicted rows are not reused, another thread may still be writing
+             * to one it looked up before the eviction
+             */
+            row = floatStorage ? new FloatRow(index, N) : new DoubleRow(index, N);
+            row.lastUsed = clock.incrementAndGet();
+            shard.resident[shard.size++] = row;
+            rows.set(index, row);
+            return row;
+        }
+    }
+
+    /**
+     * Removes all rows from the cache. The statistics are not reset.
+     */
+    public void clear()
+    {
+        for(Shard shard : shards)
+            synchronized(shard)
+            {
+                for(int i = 0; i < shard.size; i++)
+                    rows.set(shard.resident[i].index, null);
+                Arrays.fill(shard.resident, null);
+                shard.size = 0;
+            }
+    }
+
+    /**
+     * Returns the maximum number of rows this cache will hold at once
+     * @return the maximum number of rows held
+     */
+    public int getMaxRows()
+    {
+        int total = 0;
+        for(Shard shard : shards)
+            total += shard.capacity;
+        return total;
+    }
+
+    /**
+     * Returns the number of kernel values that were found in the cache
+     * @return the number of cache hits
+     */
+    public long getHits()
+    {
+        long total = 0;
+        for(Shard shard : shards)
+            total += shard.hits.get();
+        return total;
+    }
+
+    /**
+     * Returns the number of kernel values that had to be computed. This is the
+     * number of calls made to {@link #eval(int, int) }.
+     * @return the number of cache misses
+     */
+    public long getMisses()
+    {
+        long total = 0;
+        for(Shard shard : shards)
+            total += shard.misses.get();
+        return total;
+    }
+
+    /**
+     * Returns the number of rows that have been evicted from the cache
+     * @return the number of evictions
+     */
+    public long getEvictions()
+    {
+        long total = 0;
+        for(Shard shard : shards)
+            total += shard.evictions.get();
+        return total;
+    }
+
+    private static class Shard
+    {
+        final int capacity;
+        final Row[] resident;
+        int size = 0;
+        /*
+         * Kept per shard rather than globaly to spread the contention of
+         * updating them
+         */
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+
+        public Shard(int capacity)
+        {
+            this.capacity = capacity;
+            this.resident = new Row[capacity];
+        }
+    }
+
+    /**
+     * A row of the kernel matrix, where NaN marks a value not yet computed.
+     * Two threads may compute the same value at once, in which case they will
+     * both write the same result.
+     */
+    private static abstract class Row
+    {
+        final int index;
+        volatile long lastUsed;
+
+        public Row(int index)
+        {
+            this.index = index;
+        }
+
+        abstract double get(int j);
+
+        abstract void set(int j, double val);
+    }
+
+    private static class DoubleRow extends Row
+    {
+        final double[] vals;
+
+        public DoubleRow(int index, int N)
+        {
+            super(index);
+            vals = new double[N];
+            Arrays.fill(vals, Double.NaN);
+        }
+
+        @Override
+        double get(int j)
+        {
+            return vals[j];
+        }
+
+        @Override
+        void set(int j, double val)
+        {
+            vals[j] = val;
+        }
+    }
+
+    private static class FloatRow extends Row
+    {
+        final float[] vals;
+
+        public FloatRow(int index, int N)
+        {
+            super(index);
+            vals = new float[N];
+            Arrays.fill(vals, Float.NaN);
+        }
+
+        @Override
+        double get(int j)
+        {
+            return vals[j];
+        }
+
+        @Override
+        void set(int j, double val)
+        {
+            vals[j] = (float) val;
+        }
+    }
+}
@@ -954,6 +954,7 @@ public class PlatSMO extends SupportVectorLearner implements BinaryScoreClassifi
             copy.vecs = new ArrayList<Vec>(this.vecs);
         copy.setCacheMode(this.getCacheMode());
         copy.setCacheValue(this.getCacheValue());
+        copy.setCacheFloatPrecision(this.isCacheFloatPrecision());
         
         return copy;
     }
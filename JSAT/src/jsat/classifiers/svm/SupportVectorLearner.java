@@ -56,6 +56,16 @@ public abstract class SupportVectorLearner
      */
     private double[] availableRow;
     private int cacheConst = 500;
+    /**
+     * Concurrent row cache used by {@link CacheMode#CONCURRENT_ROWS}
+     */
+    private KernelRowCache rowCache;
+    /**
+     * The byte budget for {@link CacheMode#CONCURRENT_ROWS}, or zero to derive
+     * it from the {@link #setCacheValue(int) cache value}
+     */
+    private long cacheBytes = 0;
+    private boolean floatCache = false;
 
     /**
      * Sets the final set of alphas, and indicates that the final accelerating 
@@ -75,7 +85,7 @@ public abstract class SupportVectorLearner
     
     /**
      * Determines how the final kernel values are cached. The total number of 
-     * raw kernel evaluations can be tracked using {@link #evalCount}<br>
+     * raw kernel evaluations can be tracked using {@link #getCacheMisses() }<br>
      * {@link #setCacheMode(jsat.classifiers.svm.SupportVectorLearner.CacheMode) }
      * should be called before training begins by the training algorithm as
      * described in the method documentation. 
@@ -102,12 +112,22 @@ public abstract class SupportVectorLearner
          * a new row is inserted for the first index, and another row evicted if
          * necessary. 
          * <br>
-         * The {@link #cacheEvictions} indicates how many times a row has been 
-         * evicted from the cache. 
+         * The {@link #getCacheEvictions() } indicates how many times a row has
+         * been evicted from the cache. 
          * <br>
          * Row values are computed lazily. 
          */
-        ROWS
+        ROWS,
+        /**
+         * Like {@link #ROWS}, but the cache is limited by a byte budget given 
+         * by {@link #setCacheSize(long, long) } and is safe to use from 
+         * multiple threads, so kernel rows can be computed in parallel. Rows 
+         * may be stored as floats to fit more of them, see 
+         * {@link #setCacheFloatPrecision(boolean) }. 
+         * 
+         * @see KernelRowCache
+         */
+        CONCURRENT_ROWS
     };
 
     /**
@@ -134,7 +154,9 @@ public abstract class SupportVectorLearner
      * Sets the cache value, which may be interpreted differently by different 
      * caching schemes. <br>
      * This is currently only used for {@link CacheMode#ROWS}, where the value 
-     * indicates how many rows will be cached. 
+     * indicates how many rows will be cached. {@link CacheMode#CONCURRENT_ROWS}
+     * will use it to determine its byte budget if 
+     * {@link #setCacheSize(long, long) } has not been called. 
      * 
      * @param cacheValue the cache value to be used
      */
@@ -148,13 +170,17 @@ public abstract class SupportVectorLearner
      * specified amount of memory. If the amount of memory specified is great 
      * enough, this method will automatically set the 
      * {@link #setCacheMode(jsat.classifiers.svm.SupportVectorLearner.CacheMode)
-     * cache mode} to {@link CacheMode#FULL}. 
+     * cache mode} to {@link CacheMode#FULL}, unless the current mode is 
+     * {@link CacheMode#CONCURRENT_ROWS}. 
      * 
      * @param N the number of data points
      * @param bytes the number of bytes of memory to make the cache
      */
     public void setCacheSize(long N, long bytes)
     {
+        this.cacheBytes = bytes;
+        if(cacheMode == CacheMode.CONCURRENT_ROWS)
+            return;
         int DS = Double.SIZE/8;
         bytes /= DS;//Gets the total number of doubles we can store
         if(bytes > N*N/2)
@@ -177,6 +203,28 @@ public abstract class SupportVectorLearner
     }
     
     
+    /**
+     * Sets whether {@link CacheMode#CONCURRENT_ROWS} stores kernel values as 
+     * floats instead of doubles. This doubles the number of rows that fit in 
+     * the cache, at the cost of precision in the cached kernel values. 
+     * 
+     * @param floatCache {@code true} to store cached values as floats
+     */
+    public void setCacheFloatPrecision(boolean floatCache)
+    {
+        this.floatCache = floatCache;
+    }
+
+    /**
+     * Returns whether {@link CacheMode#CONCURRENT_ROWS} stores kernel values 
+     * as floats
+     * @return {@code true} if cached values are stored as floats
+     */
+    public boolean isCacheFloatPrecision()
+    {
+        return floatCache;
+    }
+    
     /**
      * Returns the current caching mode in use
      * @return the current caching mode in use
@@ -203,14 +251,23 @@ public abstract class SupportVectorLearner
             partialCache = null;
             availableRow = null;
             accelCache = null;
+            if(rowCache != null)//keep the statistics from training
+            {
+                cacheHits = rowCache.getHits();
+                cacheMisses = rowCache.getMisses();
+                cacheEvictions = rowCache.getEvictions();
+                rowCache = null;
+            }
             return;
         }
         this.cacheMode = cacheMode;
         
         if(vecs != null)
             accelCache = kernel.getAccelerationCache(vecs);
-        evalCount = 0;
+        cacheHits = 0;
+        cacheMisses = 0;
         cacheEvictions = 0;
+        rowCache = null;
         
         final int N = vecs == null ? 0 : vecs.size();
         
@@ -244,12 +301,64 @@ public abstract class SupportVectorLearner
                 }
             };
         }
+        else if(cacheMode == CacheMode.CONCURRENT_ROWS && vecs != null)
+        {
+            long bytes = cacheBytes;
+            if(bytes <= 0)
+                bytes = (long) cacheConst*N*(Double.SIZE/8);
+            rowCache = new KernelRowCache(N, Math.max(bytes, 1), floatCache)
+            {
+                @Override
+                protected double eval(int a, int b)
+                {
+                    return kernel.eval(a, b, vecs, accelCache);
+                }
+            };
+        }
         else if(cacheMode == CacheMode.NONE)
             fullCache = null;
     }
 
-    protected int evalCount = 0;
-    protected int cacheEvictions = 0;
+    private long cacheHits = 0;
+    private long cacheMisses = 0;
+    private long cacheEvictions = 0;
+    
+    /**
+     * Returns the number of kernel evaluations between training vectors that 
+     * were answered from the cache since the cache was last initialized
+     * @return the number of cache hits
+     */
+    public long getCacheHits()
+    {
+        if(rowCache != null)
+            return rowCache.getHits();
+        return cacheHits;
+    }
+    
+    /**
+     * Returns the number of kernel evaluations between training vectors that 
+     * had to be computed since the cache was last initialized
+     * @return the number of cache misses
+     */
+    public long getCacheMisses()
+    {
+        if(rowCache != null)
+            return rowCache.getMisses();
+        return cacheMisses;
+    }
+    
+    /**
+     * Returns the number of rows evicted from the cache since it was last 
+     * initialized. This is only used by {@link CacheMode#ROWS} and 
+     * {@link CacheMode#CONCURRENT_ROWS}. 
+     * @return the number of cache evictions
+     */
+    public long getCacheEvictions()
+    {
+        if(rowCache != null)
+            return rowCache.getEvictions();
+        return cacheEvictions;
+    }
     
     public KernelTrick getKernel()
     {
@@ -279,7 +388,7 @@ public abstract class SupportVectorLearner
      * This is the slowest way to do a kernel evaluation, and should be avoided 
      * unless there is a specific reason to do so. 
      * <br>
-     * These evaluations will not be counted in {@link #evalCount}
+     * These evaluations will not be counted in {@link #getCacheMisses() }
      * @param a the first vector
      * @param b the second vector
      * @return the kernel evaluation of k(a, b)
@@ -308,8 +417,11 @@ public abstract class SupportVectorLearner
                 b = tmp;
             }
             
+            cacheHits++;
             return fullCache[a][b-a];
         }
+        else if(cacheMode == CacheMode.CONCURRENT_ROWS)
+            return rowCache.get(a, b);
         else if(cacheMode == CacheMode.ROWS)
         {
             double[] cache = partialCache.get(a);
@@ -320,7 +432,17 @@ public abstract class SupportVectorLearner
                     if (Double.isNaN(b_cache[a]))
                         return b_cache[a] = k(a, b);
                     else
+                    {
+                        cacheHits++;
                         return b_cache[a];
+                    }
+            }
+            else if (Double.isNaN(cache[b]))
+                return cache[b] = k(a, b);
+            else
+            {
+                cacheHits++;
+                return cache[b];
             }
             //else, neither are in - lets go with a
 
@@ -340,11 +462,7 @@ public abstract class SupportVectorLearner
                 
                 partialCache.put(a, cache);
                 
-                if (Double.isNaN(cache[a]))
-                    return cache[a] = k(a, b);
-                else
-                    return cache[a];
-                
+                return cache[b] = k(a, b);
             }
         }
         return k(a, b);
@@ -358,7 +476,7 @@ public abstract class SupportVectorLearner
      */
     private double k(int a, int b)
     {
-        evalCount++;
+        cacheMisses++;
         return kernel.eval(a, b, vecs, accelCache);
     }
     
@@ -0,0 +1,226 @@
+package jsat.classifiers.trees;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.linear.IndexValue;
+import jsat.linear.Vec;
+
+/**
+ * A quantized, column major copy of a data set used for histogram based tree
+ * construction. Every numeric feature is mapped once into at most 256 bins,
+ * stored as one {@code byte} per data point, and categorical features are
+ * stored as one {@code int} column each. <br>
+ * <br>
+ * The bin boundaries of each feature are placed at quantiles of a sample of
+ * its values, halfway between two distinct values, so that a value <i>v</i>
+ * falls in a bin &le; <i>b</i> if and only if <i>v</i> &le;
+ * {@link #getEdge(int, int) edge <i>b</i>}. A feature with fewer distinct
+ * values than the number of bins gets one bin per value, so splits on it are
+ * exactly the ones the sorting based search would consider.
+ *
+ * @author Edward Raff
+ */
+final class BinnedData
+{
+    /**
+     * The maximum number of data points used to find the bin boundaries
+     */
+    private static final int EDGE_SAMPLE_SIZE = 100000;
+
+    final int N;
+    final CategoricalData[] catInfo;
+    /**
+     * The value of each categorical feature, indexed by [feature][point]
+     */
+    final int[][] catCols;
+    /**
+     * The bin of each numeric feature, indexed by [feature][point]
+     */
+    final byte[][] numCols;
+    /**
+     * The upper boundary of every bin but the last, for each numeric feature
+     */
+    final double[][] edges;
+    /**
+     * The weight of each data point
+     */
+    final double[] weights;
+    /**
+     * The class of each data point, or {@code null} for regression
+     */
+    final int[] labels;
+    /**
+     * The number of target classes, or 0 for regression
+     */
+    final int numClasses;
+    /**
+     * The target value of each data point, or {@code null} for classification
+     */
+    final double[] targets;
+
+    private BinnedData(List<? extends DataPointPair<?>> dataPoints, int maxBins, int numClasses)
+    {
+        if(maxBins < 2 || maxBins > 256)
+            throw new IllegalArgumentException("Number of bins must be in [2, 256], not " + maxBins);
+        N = dataPoints.size();
+        DataPoint first = dataPoints.get(0).getDataPoint();
+        catInfo = first.getCategoricalData();
+        final int numCat = first.numCategoricalValues();
+        final int numNum = first.numNumericalValues();
+        this.numClasses = numClasses;
+
+        weights = new double[N];
+        catCols = new int[numCat][N];
+        numCols = new byte[numNum][N];
+        edges = new double[numNum][];
+
+        for(int f = 0; f < numNum; f++)
+            edges[f] = findEdges(dataPoints, f, maxBins);
+
+        byte[] zeroBin = new byte[numNum];
+        for(int f = 0; f < numNum; f++)
+        {
+            zeroBin[f] = (byte) bin(edges[f], 0.0);
+            if(zeroBin[f] != 0)
+                Arrays.fill(numCols[f], zeroBin[f]);
+        }
+
+        for(int i = 0; i < N; i++)
+        {
+            DataPoint dp = dataPoints.get(i).getDataPoint();
+            weights[i] = dp.getWeight();
+            for(int f = 0; f < numCat; f++)
+                catCols[f][i] = dp.getCategoricalValue(f);
+            Vec x = dp.getNumericalValues();
+            if(x.isSparse())
+                for(IndexValue iv : x)
+                    numCols[iv.getIndex()][i] = (byte) bin(edges[iv.getIndex()], iv.getValue());
+            else
+                for(int f = 0; f < numNum; f++)
+                    numCols[f][i] = (byte) bin(edges[f], x.get(f));
+        }
+
+        if(numClasses > 0)
+        {
+            labels = new int[N];
+            targets = null;
+            for(int i = 0; i < N; i++)
+                labels[i] = (Integer) dataPoints.get(i).getPair();
+        }
+        else
+        {
+            labels = null;
+            targets = new double[N];
+            for(int i = 0; i < N; i++)
+                targets[i] = (Double) dataPoints.get(i).getPair();
+        }
+    }
+
+    /**
+     * Quantizes a classification data set
+     * @param dataPoints the data points paired with their class
+     * @param numClasses the number of target classes
+     * @param maxBins the maximum number of bins per numeric feature, in the
+     * range [2, 256]
+     * @return the binned data set
+     */
+    static BinnedData forClassification(List<DataPointPair<Integer>> dataPoints, int numClasses, int maxBins)
+    {
+        return new BinnedData(dataPoints, maxBins, numClasses);
+    }
+
+    /**
+     * Quantizes a regression data set
+     * @param dataPoints the data points paired with their target value
+     * @param maxBins the maximum number of bins per numeric feature, in the
+     * range [2, 256]
+     * @return the binned data set
+     */
+    static BinnedData forRegression(List<DataPointPair<Double>> dataPoints, int maxBins)
+    {
+        return new BinnedData(dataPoints, maxBins, 0);
+    }
+
+    /**
+     * Returns the number of bins used by the given numeric feature
+     * @param numAttribute the numeric feature index
+     * @return the number of bins
+     */
+    int numBins(int numAttribute)
+    {
+        return edges[numAttribute].length+1;
+    }
+
+    /**
+     * Returns the largest value that falls into the given bin or any before it
+     * @param numAttribute the numeric feature index
+     * @param bin the bin, which may not be the last one
+     * @return the upper boundary of the bin
+     */
+    double getEdge(int numAttribute, int bin)
+    {
+        return edges[numAttribute][bin];
+    }
+
+    private static int bin(double[] edges, double v)
+    {
+        int pos = Arrays.binarySearch(edges, v);
+        return pos < 0 ? -pos-1 : pos;
+    }
+
+    private static double[] findEdges(List<? extends DataPointPair<?>> dataPoints, int numAttribute, int maxBins)
+    {
+        final int N = dataPoints.size();
+        double[] vals;
+        if(N <= EDGE_SAMPLE_SIZE)
+        {
+            vals = new double[N];
+            for(int i = 0; i < N; i++)
+                vals[i] = dataPoints.get(i).getVector().get(numAttribute);
+        }
+        else
+        {
+            //fixed seed so that the same data always gets the same bins
+            Random rand = new Random(numAttribute);
+            vals = new double[EDGE_SAMPLE_SIZE];
+            for(int i = 0; i < vals.length; i++)
+                vals[i] = dataPoints.get(rand.nextInt(N)).getVector().get(numAttribute);
+        }
+        Arrays.sort(vals);
+
+        int distinct = vals.length == 0 ? 0 : 1;
+        for(int i = 1; i < vals.length; i++)
+            if(vals[i] != vals[i-1])
+                distinct++;
+
+        double[] edges = new double[Math.max(Math.min(distinct, maxBins)-1, 0)];
+        int count = 0;
+        if(distinct <= maxBins)
+        {
+            for(int i = 1; i < vals.length; i++)
+                if(vals[i] != vals[i-1])
+                    edges[count++] = (vals[i-1]+vals[i])/2;
+        }
+        else
+        {
+            for(int b = 1; b < maxBins; b++)
+            {
+                double v = vals[(int) ((long) b*vals.length/maxBins) - 1];
+                //find the next distinct value after v
+                int next = bin(vals, v);
+                while(next < vals.length && vals[next] <= v)
+                    next++;
+                if(next == vals.length)
+                    break;
+                double edge = (v+vals[next])/2;
+                if(count == 0 || edge > edges[count-1])
+                    edges[count++] = edge;
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+}
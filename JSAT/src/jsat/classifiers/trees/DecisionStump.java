@@ -9,6 +9,7 @@ import jsat.classifiers.trees.ImpurityScore.ImpurityMeasure;
 import jsat.distributions.Distribution;
 import jsat.distributions.empirical.KernelDensityEstimator;
 import jsat.distributions.empirical.kernelfunc.EpanechnikovKF;
+import jsat.exceptions.UntrainedModelException;
 import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.math.Function;
@@ -915,6 +916,83 @@ public class DecisionStump implements Classifier, Regressor, Parameterized
         return bestSplit;
     }
     
+    /**
+     * Sets this stump to a classification split that was found outside of
+     * the stump, such as by a {@link HistogramTreeBuilder}.
+     *
+     * @param catAttributes the information about the categorical attributes
+     * @param splittingAttribute the attribute to split on, or -1 if the stump
+     * has only one path
+     * @param threshold the split value when splitting on a numeric attribute,
+     * values less than or equal to it go down the first path
+     * @param results the results for each path
+     */
+    void setSplitC(CategoricalData[] catAttributes, int splittingAttribute, double threshold, CategoricalResults[] results)
+    {
+        this.catAttributes = catAttributes;
+        this.splittingAttribute = splittingAttribute;
+        this.results = results;
+        if(splittingAttribute >= catAttributes.length)
+        {
+            boundries = Arrays.asList(threshold, Double.POSITIVE_INFINITY);
+            owners = Arrays.asList(0, 1);
+        }
+    }
+
+    /**
+     * Sets this stump to a regression split that was found outside of the
+     * stump, such as by a {@link HistogramTreeBuilder}.
+     *
+     * @param catAttributes the information about the categorical attributes
+     * @param splittingAttribute the attribute to split on, or -1 if the stump
+     * has only one path
+     * @param regressionResults the mean of each categorical path, the means of
+     * the two numeric paths followed by the split value, or just the one
+     * result if there is no split
+     */
+    void setSplitR(CategoricalData[] catAttributes, int splittingAttribute, double[] regressionResults)
+    {
+        this.catAttributes = catAttributes;
+        this.splittingAttribute = splittingAttribute < 0 ? catAttributes.length : splittingAttribute;
+        this.regressionResults = regressionResults;
+    }
+
+    /**
+     * Adds the split of this stump to the builder of a {@link FlatForest}
+     * @param builder the builder to add the split to
+     * @return the index of the node that was added
+     */
+    int flattenSplit(FlatForest.Builder builder)
+    {
+        int paths = getNumberOfPaths();
+        if(paths < 0)
+            throw new UntrainedModelException("DecisionStump has not been trained");
+        else if(paths == 1)
+            return builder.constantSplit();
+        else if(splittingAttribute < catAttributes.length)
+            return builder.categoricalSplit(splittingAttribute, paths);
+        int numerAttribute = splittingAttribute - catAttributes.length;
+        if(results != null)
+            return builder.boundarySplit(numerAttribute, boundries, owners, paths);
+        else
+            return builder.numericSplit(numerAttribute, regressionResults[2]);
+    }
+
+    /**
+     * Adds the result of the given path of this stump as a leaf to the
+     * builder of a {@link FlatForest}
+     * @param builder the builder to add the leaf to
+     * @param path the path to add the result of
+     * @return the value returned by the builder for the leaf
+     */
+    int flattenLeaf(FlatForest.Builder builder, int path)
+    {
+        if(builder.isClassification())
+            return builder.leaf(results[path]);
+        else
+            return builder.leaf(regressionResults[path]);
+    }
+
     private static List<List<DataPointPair<Integer>>> listOfLists(int n )
     {
         List<List<DataPointPair<Integer>>> aSplit =
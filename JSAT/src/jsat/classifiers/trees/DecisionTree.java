@@ -15,6 +15,7 @@ import jsat.classifiers.trees.ImpurityScore.ImpurityMeasure;
 import static jsat.classifiers.trees.TreePruner.*;
 import jsat.classifiers.trees.TreePruner.PruningMethod;
 import jsat.exceptions.FailedToFitException;
+import jsat.exceptions.UntrainedModelException;
 import jsat.parameters.Parameter;
 import jsat.parameters.Parameterized;
 import jsat.regression.RegressionDataSet;
@@ -44,6 +45,11 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
      * inside the stump instead of duplicating them here. 
      */
     private DecisionStump baseStump = new DecisionStump();
+    /**
+     * The number of bins numeric features are quantized into, or 0 to search
+     * for splits on the exact values. 
+     */
+    private int histogramBins = 0;
 
     @Override
     public double regress(DataPoint data)
@@ -67,6 +73,13 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
 
     public void train(RegressionDataSet dataSet, Set<Integer> options, ExecutorService threadPool)
     {
+        this.predicting = null;
+        if(histogramBins > 0)
+        {
+            BinnedData binned = BinnedData.forRegression(dataSet.getDPPList(), histogramBins);
+            root = new HistogramTreeBuilder(this, baseStump, null, binned, binned.weights).build(options, threadPool);
+            return;
+        }
         ModifiableCountDownLatch mcdl = new ModifiableCountDownLatch(1);
         root = makeNodeR(dataSet.getDPPList(), options, 0, threadPool, mcdl);
         try
@@ -126,6 +139,7 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
         this.pruningMethod = toCopy.pruningMethod;
         this.testProportion = toCopy.testProportion;
         this.baseStump = toCopy.baseStump.clone();
+        this.histogramBins = toCopy.histogramBins;
     }
 
     /**
@@ -210,6 +224,41 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
         return baseStump.getMinResultSplitSize();
     }
     
+    /**
+     * Sets the number of bins used to find splits on numeric features. When
+     * set to a positive value, each numeric feature is quantized once into at
+     * most this many bins by its quantiles, and splits are only considered 
+     * between bins. This avoids sorting the data at every node and can train
+     * much faster on large data sets, at a small cost in the precision of 
+     * the split values. A value of 0 searches the exact values instead. 
+     * <br>
+     * When given a thread pool, trees grown with bins are built one level at a
+     * time with all threads working on the same level, rather than one node 
+     * per task, which keeps the threads busy near the root of the tree. 
+     * <br>
+     * Histogram training always uses binary splits on numeric features, 
+     * regardless of the {@link #setNumericHandling(jsat.classifiers.trees.DecisionStump.NumericHandlingC) numeric handling}.
+     * 
+     * @param histogramBins the number of bins in [2, 256], or 0 to not use 
+     * bins
+     */
+    public void setHistogramBins(int histogramBins)
+    {
+        if(histogramBins != 0 && (histogramBins < 2 || histogramBins > 256))
+            throw new IllegalArgumentException("Number of bins must be 0 or in [2, 256], not " + histogramBins);
+        this.histogramBins = histogramBins;
+    }
+
+    /**
+     * Returns the number of bins used to find splits on numeric features, or
+     * 0 if the exact values are used
+     * @return the number of bins used for numeric features
+     */
+    public int getHistogramBins()
+    {
+        return histogramBins;
+    }
+    
     /**
      * Sets the maximum depth that this classifier may build trees to. 
      * @param maxDepth the maximum depth of the trained tree
@@ -342,21 +391,58 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
                 testPoints.addAll(dataPoints);
         }
         
-        this.root = makeNodeC(dataPoints, options, 0, threadPool, mcdl);
-        
-        try
+        if(histogramBins > 0)
         {
-            mcdl.await();
+            BinnedData binned = BinnedData.forClassification(dataPoints, predicting.getNumOfCategories(), histogramBins);
+            this.root = new HistogramTreeBuilder(this, baseStump, predicting, binned, binned.weights).build(options, threadPool);
         }
-        catch (InterruptedException ex)
+        else
         {
-            System.err.println(ex.getMessage());
-            Logger.getLogger(DecisionTree.class.getName()).log(Level.SEVERE, null, ex);
+            this.root = makeNodeC(dataPoints, options, 0, threadPool, mcdl);
+
+            try
+            {
+                mcdl.await();
+            }
+            catch (InterruptedException ex)
+            {
+                System.err.println(ex.getMessage());
+                Logger.getLogger(DecisionTree.class.getName()).log(Level.SEVERE, null, ex);
+            }
         }
         
         prune(root, pruningMethod, testPoints);
     }
 
+    /**
+     * Trains this tree on a data set that has already been binned, which lets
+     * an ensemble bin its data once for all of its trees. No pruning is 
+     * performed. 
+     * 
+     * @param data the binned data set
+     * @param weights the weight of each data point, where points with a 
+     * weight of zero are left out
+     * @param predicting the target information for classification, or 
+     * {@code null} for regression
+     * @param options the features the root may split on
+     */
+    void trainBinned(BinnedData data, double[] weights, CategoricalData predicting, Set<Integer> options)
+    {
+        this.predicting = predicting;
+        this.root = new HistogramTreeBuilder(this, baseStump, predicting, data, weights).build(options, new FakeExecutor());
+    }
+    
+    /**
+     * Called on the set of features each node may split on before it is 
+     * used, allowing extensions to alter it. The default does nothing.
+     * 
+     * @param options the features the node may split on
+     * @param featureCount the total number of features in the data set
+     */
+    protected void selectNodeOptions(Set<Integer> options, int featureCount)
+    {
+    }
+
     /**
      * Makes a new node for classification 
      * @param dataPoints the list of data points paired with their class
@@ -465,6 +551,7 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
         if(this.root != null)
             copy.root = this.root.clone();
         copy.baseStump = this.baseStump.clone();
+        copy.histogramBins = this.histogramBins;
         return copy;
     }
 
@@ -473,6 +560,22 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
     {
         return root;
     }
+
+    /**
+     * Compiles the trained tree into a {@link FlatForest}, which gives the 
+     * same predictions as this tree but is faster to evaluate. 
+     * 
+     * @return the flattened form of this tree
+     * @throws UntrainedModelException if the tree has not been trained
+     */
+    public FlatForest flatten()
+    {
+        if(root == null)
+            throw new UntrainedModelException("Tree has not been trained");
+        FlatForest.Builder builder = new FlatForest.Builder(predicting == null ? 0 : predicting.getNumOfCategories());
+        builder.addTree(root);
+        return builder.build(FlatForest.Combine.SINGLE);
+    }
     
     protected static class Node extends TreeNodeVisitor
     {
@@ -554,6 +657,18 @@ public class DecisionTree implements Classifier, Regressor, Parameterized, TreeL
             return stump.whichPath(dp);
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            return stump.flattenSplit(builder);
+        }
+
+        @Override
+        protected int flattenLeaf(FlatForest.Builder builder, int child)
+        {
+            return stump.flattenLeaf(builder, child);
+        }
+
         @Override
         public boolean isPathDisabled(int child)
         {
@@ -10,6 +10,7 @@ import jsat.classifiers.CategoricalResults;
 import jsat.classifiers.ClassificationDataSet;
 import jsat.classifiers.DataPoint;
 import jsat.exceptions.FailedToFitException;
+import jsat.exceptions.UntrainedModelException;
 import jsat.regression.RegressionDataSet;
 import jsat.utils.FakeExecutor;
 import jsat.utils.SystemInfo;
@@ -239,6 +240,8 @@ public class ERTrees extends ExtraTree
         if(useDefaultStopSize)
             baseTree.setStopSize(5);
         
+        predicting = null;
+        
         doTraining(threadPool, dataSet);
     }
 
@@ -273,4 +276,21 @@ public class ERTrees extends ExtraTree
     {
         throw new UnsupportedOperationException("Can not get the tree node vistor becase ERTrees is really a ensemble");
     }
+
+    /**
+     * Compiles the trained ensemble into a {@link FlatForest}, which gives the
+     * same predictions as this ensemble but is faster to evaluate. 
+     * 
+     * @return the flattened form of this ensemble
+     * @throws UntrainedModelException if the ensemble has not been trained
+     */
+    public FlatForest flatten()
+    {
+        if(forrest == null)
+            throw new UntrainedModelException("Model has not been trained");
+        FlatForest.Builder builder = new FlatForest.Builder(predicting == null ? 0 : predicting.getNumOfCategories());
+        for(ExtraTree tree : forrest)
+            builder.addTree(tree.getTreeNodeVisitor());
+        return builder.build(FlatForest.Combine.MEAN);
+    }
 }
@@ -17,6 +17,7 @@ import jsat.classifiers.Classifier;
 import jsat.classifiers.DataPoint;
 import jsat.classifiers.DataPointPair;
 import jsat.classifiers.trees.ImpurityScore.ImpurityMeasure;
+import jsat.exceptions.UntrainedModelException;
 import jsat.math.OnLineStatistics;
 import jsat.parameters.Parameter;
 import jsat.parameters.Parameterized;
@@ -476,6 +477,8 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
         //Best attribute has been selected
         //We are no longer using the full array of all values
         fillStack(reusableLists, Arrays.asList(subSet));
+        if(bestSplit == null)//every split left a side empty, so no gain could be computed
+            return new NodeR(setScore.getMean());
         NodeBase toReturn;
         if(bestAttribute < catInfo.length)
             if(bestSplit.size() == 2)//2 paths only
@@ -519,6 +522,22 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
         return root;
     }
 
+    /**
+     * Compiles the trained tree into a {@link FlatForest}, which gives the 
+     * same predictions as this tree but is faster to evaluate. 
+     * 
+     * @return the flattened form of this tree
+     * @throws UntrainedModelException if the tree has not been trained
+     */
+    public FlatForest flatten()
+    {
+        if(root == null)
+            throw new UntrainedModelException("Tree has not been trained");
+        FlatForest.Builder builder = new FlatForest.Builder(predicting == null ? 0 : predicting.getNumOfCategories());
+        builder.addTree(root);
+        return builder.build(FlatForest.Combine.SINGLE);
+    }
+
     /**
      * Add lists to a list of lists
      * @param <T> the content type of the list
@@ -585,6 +604,7 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
         
         List<DataPointPair<Double>> data = dataSet.getAsDPPList();
         
+        predicting = null;
         OnLineStatistics score = new OnLineStatistics();
         for(DataPointPair<Double> dpp : data)
             score.add(dpp.getPair(), dpp.getDataPoint().getWeight());
@@ -667,6 +687,17 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
             }
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            if(isLeaf())
+                return super.flattenNode(builder);
+            else if(leftBranch == null)
+                return builder.categoricalSplit(catAtt, childrenCount());
+            else
+                return builder.categoricalSetSplit(catAtt, leftBranch);
+        }
+
         @Override
         public TreeNodeVisitor clone()
         {
@@ -709,6 +740,14 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
                 return 1;
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            if(isLeaf())
+                return super.flattenNode(builder);
+            return builder.numericSplit(numerAtt, threshold);
+        }
+
         @Override
         public TreeNodeVisitor clone()
         {
@@ -757,6 +796,18 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
             return crResult;
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            return builder.leaf(crResult);
+        }
+
+        @Override
+        protected int flattenLeaf(FlatForest.Builder builder, int child)
+        {
+            return builder.leaf(crResult);
+        }
+
         @Override
         public int getPath(DataPoint dp)
         {
@@ -877,6 +928,18 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
         {
             return result;
         }
+
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            return builder.leaf(result);
+        }
+
+        @Override
+        protected int flattenLeaf(FlatForest.Builder builder, int child)
+        {
+            return builder.leaf(result);
+        }
         
         @Override
         public int getPath(DataPoint dp)
@@ -924,6 +987,14 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
                 return 1;
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            if(isLeaf())
+                return super.flattenNode(builder);
+            return builder.numericSplit(numerAtt, threshold);
+        }
+
         @Override
         public TreeNodeVisitor clone()
         {
@@ -983,6 +1054,17 @@ public class ExtraTree implements Classifier, Regressor, TreeLearner, Parameteri
             }
         }
 
+        @Override
+        protected int flattenNode(FlatForest.Builder builder)
+        {
+            if(isLeaf())
+                return super.flattenNode(builder);
+            else if(leftBranch == null)
+                return builder.categoricalSplit(catAtt, childrenCount());
+            else
+                return builder.categoricalSetSplit(catAtt, leftBranch);
+        }
+
         @Override
         public TreeNodeVisitor clone()
         {
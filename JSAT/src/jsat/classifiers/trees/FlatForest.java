@@ -0,0 +1,619 @@
+package jsat.classifiers.trees;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import jsat.classifiers.BatchClassifier;
+import jsat.classifiers.CategoricalResults;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.linear.Vec;
+import jsat.regression.BatchRegressor;
+import jsat.regression.RegressionDataSet;
+import jsat.utils.DoubleList;
+import jsat.utils.IntList;
+
+/**
+ * A compiled, read only form of one or more trained trees, used to make
+ * predictions quickly. Instead of a graph of node objects, every node of every
+ * tree is stored as an entry in a few primitive arrays: the kind of split, the
+ * feature it splits on, the threshold, and the offset of its children. The
+ * results of the leaves are stored in a single table. <br>
+ * A FlatForest is obtained from a trained model, such as with
+ * {@link DecisionTree#flatten() }, {@link ExtraTree#flatten() },
+ * {@link RandomForest#flatten() } or {@link ERTrees#flatten() }, and gives
+ * exactly the same predictions as the model it was created from. It can not
+ * be trained itself.
+ * <br><br>
+ * The batch methods {@link #classify(java.util.List, double[][]) } and
+ * {@link #regress(java.util.List, double[]) } go through the trees one at a
+ * time for a block of data points, so that the nodes of a tree stay in cache
+ * while it is used.
+ *
+ * @author Edward Raff
+ */
+public class FlatForest implements BatchClassifier, BatchRegressor
+{
+    /**
+     * How the results of the trees are combined into one prediction
+     */
+    static enum Combine
+    {
+        /**
+         * There is only one tree, and its leaf result is returned as is
+         */
+        SINGLE,
+        /**
+         * The trees vote for classification, and the mean is computed by
+         * summing the tree results and dividing by the number of trees for
+         * regression
+         */
+        MEAN,
+        /**
+         * The trees vote for classification, and the mean is updated with the
+         * result of each tree in turn for regression
+         */
+        RUNNING_MEAN
+    }
+
+    private static final byte NUMERIC = 0;
+    private static final byte BOUNDARIES = 1;
+    private static final byte CATEGORICAL = 2;
+    private static final byte CATEGORICAL_SET = 3;
+    private static final byte CONSTANT = 4;
+    /**
+     * The number of data points the batch methods process at a time
+     */
+    private static final int BLOCK_SIZE = 256;
+
+    private Combine combine;
+    /**
+     * The number of categories for classification, or 0 for regression
+     */
+    private int categories;
+    /**
+     * The first node of each tree, or the bitwise complement of its leaf if
+     * the tree is only a leaf
+     */
+    private int[] roots;
+    private byte[] type;
+    /**
+     * The numeric or categorical feature each node splits on
+     */
+    private int[] feature;
+    private double[] threshold;
+    /**
+     * The children of node {@code i} are in {@link #children} from
+     * {@code childStart[i]} up to {@code childStart[i+1]}
+     */
+    private int[] childStart;
+    /**
+     * The index of each child node, or the bitwise complement of its leaf
+     */
+    private int[] children;
+    /**
+     * The boundaries and owners of a node, or the categories that go down
+     * the first path, are in {@link #splitValues} and {@link #splitInts} from
+     * {@code splitStart[i]} up to {@code splitStart[i+1]}
+     */
+    private int[] splitStart;
+    private double[] splitValues;
+    private int[] splitInts;
+    /**
+     * The probabilities of each leaf for classification, or the value of each
+     * leaf for regression
+     */
+    private double[] leafValues;
+    /**
+     * The most likely category of each leaf for classification
+     */
+    private int[] leafClass;
+
+    private FlatForest(Builder builder, Combine combine)
+    {
+        this.combine = combine;
+        this.categories = builder.categories;
+        this.roots = Arrays.copyOf(builder.roots.getBackingArray(), builder.roots.size());
+        int nodes = builder.type.size();
+        this.type = new byte[nodes];
+        for(int i = 0; i < nodes; i++)
+            type[i] = (byte) builder.type.getI(i);
+        this.feature = Arrays.copyOf(builder.feature.getBackingArray(), nodes);
+        this.threshold = Arrays.copyOf(builder.threshold.getBackingArray(), nodes);
+        this.childStart = Arrays.copyOf(builder.childStart.getBackingArray(), nodes+1);
+        childStart[nodes] = builder.children.size();
+        this.children = Arrays.copyOf(builder.children.getBackingArray(), builder.children.size());
+        this.splitStart = Arrays.copyOf(builder.splitStart.getBackingArray(), nodes+1);
+        splitStart[nodes] = builder.splitInts.size();
+        this.splitValues = Arrays.copyOf(builder.splitValues.getBackingArray(), builder.splitValues.size());
+        this.splitInts = Arrays.copyOf(builder.splitInts.getBackingArray(), builder.splitInts.size());
+        this.leafValues = Arrays.copyOf(builder.leafValues.getBackingArray(), builder.leafValues.size());
+        this.leafClass = Arrays.copyOf(builder.leafClass.getBackingArray(), builder.leafClass.size());
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    protected FlatForest(FlatForest toCopy)
+    {
+        this.combine = toCopy.combine;
+        this.categories = toCopy.categories;
+        this.roots = Arrays.copyOf(toCopy.roots, toCopy.roots.length);
+        this.type = Arrays.copyOf(toCopy.type, toCopy.type.length);
+        this.feature = Arrays.copyOf(toCopy.feature, toCopy.feature.length);
+        this.threshold = Arrays.copyOf(toCopy.threshold, toCopy.threshold.length);
+        this.childStart = Arrays.copyOf(toCopy.childStart, toCopy.childStart.length);
+        this.children = Arrays.copyOf(toCopy.children, toCopy.children.length);
+        this.splitStart = Arrays.copyOf(toCopy.splitStart, toCopy.splitStart.length);
+        this.splitValues = Arrays.copyOf(toCopy.splitValues, toCopy.splitValues.length);
+        this.splitInts = Arrays.copyOf(toCopy.splitInts, toCopy.splitInts.length);
+        this.leafValues = Arrays.copyOf(toCopy.leafValues, toCopy.leafValues.length);
+        this.leafClass = Arrays.copyOf(toCopy.leafClass, toCopy.leafClass.length);
+    }
+
+    /**
+     * Returns the number of trees in this forest
+     * @return the number of trees in this forest
+     */
+    public int getNumberOfTrees()
+    {
+        return roots.length;
+    }
+
+    /**
+     * Returns the total number of split nodes over all the trees, not
+     * counting the leaves
+     * @return the number of split nodes
+     */
+    public int getNumberOfNodes()
+    {
+        return type.length;
+    }
+
+    /**
+     * Returns the leaf of the given tree that the data point ends up in
+     * @param tree the tree to go down
+     * @param numeric the numeric values of the data point
+     * @param cat the categorical values of the data point
+     * @return the index of the leaf
+     */
+    private int leaf(int tree, Vec numeric, int[] cat)
+    {
+        int node = roots[tree];
+        while(node >= 0)
+        {
+            int path;
+            switch(type[node])
+            {
+                case NUMERIC:
+                    path = numeric.get(feature[node]) <= threshold[node] ? 0 : 1;
+                    break;
+                case BOUNDARIES:
+                    path = boundaryPath(node, numeric.get(feature[node]));
+                    break;
+                case CATEGORICAL:
+                    path = cat[feature[node]];
+                    break;
+                case CATEGORICAL_SET:
+                    path = Arrays.binarySearch(splitInts, splitStart[node], splitStart[node+1], cat[feature[node]]) < 0 ? 1 : 0;
+                    break;
+                default://CONSTANT
+                    path = 0;
+            }
+            int first = childStart[node];
+            if(path < 0 || path >= childStart[node+1]-first)
+                throw new IndexOutOfBoundsException("Invalid path " + path + " for a node with " + (childStart[node+1]-first) + " paths");
+            node = children[first+path];
+        }
+        return ~node;
+    }
+
+    /**
+     * Finds the owner of the region the value falls in, in the same way as
+     * {@link java.util.Collections#binarySearch(java.util.List, java.lang.Object) } over
+     * the boxed boundaries of a {@link DecisionStump}, so that values equal to
+     * a boundary or that are NaN go down the same path.
+     */
+    private int boundaryPath(int node, double x)
+    {
+        int start = splitStart[node];
+        int end = splitStart[node+1];
+        int low = start;
+        int high = end-1;
+        while(low <= high)
+        {
+            int mid = (low+high) >>> 1;
+            int cmp = Double.compare(splitValues[mid], x);
+            if(cmp < 0)
+                low = mid+1;
+            else if(cmp > 0)
+                high = mid-1;
+            else
+                return splitInts[mid];
+        }
+        if(low == end)
+            throw new IndexOutOfBoundsException("Value " + x + " is past the last boundary");
+        return splitInts[low];
+    }
+
+    @Override
+    public CategoricalResults classify(DataPoint data)
+    {
+        if(categories == 0)
+            throw new UnsupportedOperationException("FlatForest was created for regression");
+        double[] probs = new double[categories];
+        Vec numeric = data.getNumericalValues();
+        int[] cat = data.getCategoricalValues();
+        if(combine == Combine.SINGLE)
+        {
+            int leaf = leaf(0, numeric, cat);
+            System.arraycopy(leafValues, leaf*categories, probs, 0, categories);
+        }
+        else
+        {
+            for(int t = 0; t < roots.length; t++)
+                probs[leafClass[leaf(t, numeric, cat)]] += 1.0;
+            normalize(probs);
+        }
+        return new CategoricalResults(probs);
+    }
+
+    /**
+     * Classifies all of the given data points at once.
+     *
+     * @param dataPoints the data points to classify
+     * @param out the array to store the probabilities of each data point in,
+     * {@code out[i]} must have one value for every category
+     */
+    @Override
+    public void classify(List<DataPoint> dataPoints, double[][] out)
+    {
+        if(categories == 0)
+            throw new UnsupportedOperationException("FlatForest was created for regression");
+        Vec[] numeric = new Vec[BLOCK_SIZE];
+        int[][] cat = new int[BLOCK_SIZE][];
+        for(int start = 0; start < dataPoints.size(); start += BLOCK_SIZE)
+        {
+            int end = Math.min(start+BLOCK_SIZE, dataPoints.size());
+            for(int i = start; i < end; i++)
+            {
+                DataPoint dp = dataPoints.get(i);
+                numeric[i-start] = dp.getNumericalValues();
+                cat[i-start] = dp.getCategoricalValues();
+            }
+
+            if(combine == Combine.SINGLE)
+            {
+                for(int i = start; i < end; i++)
+                {
+                    int leaf = leaf(0, numeric[i-start], cat[i-start]);
+                    System.arraycopy(leafValues, leaf*categories, out[i], 0, categories);
+                }
+                continue;
+            }
+
+            for(int i = start; i < end; i++)
+                Arrays.fill(out[i], 0, categories, 0.0);
+            for(int t = 0; t < roots.length; t++)
+                for(int i = start; i < end; i++)
+                    out[i][leafClass[leaf(t, numeric[i-start], cat[i-start])]] += 1.0;
+            for(int i = start; i < end; i++)
+                normalize(out[i]);
+        }
+    }
+
+    /**
+     * Normalizes the votes in the same way as
+     * {@link CategoricalResults#normalize() }
+     */
+    private void normalize(double[] probs)
+    {
+        double sum = 0;
+        for(int i = 0; i < categories; i++)
+            sum += probs[i];
+        if(sum != 0)
+            for(int i = 0; i < categories; i++)
+                probs[i] /= sum;
+    }
+
+    @Override
+    public double regress(DataPoint data)
+    {
+        if(categories != 0)
+            throw new UnsupportedOperationException("FlatForest was created for classification");
+        Vec numeric = data.getNumericalValues();
+        int[] cat = data.getCategoricalValues();
+        switch(combine)
+        {
+            case SINGLE:
+                return leafValues[leaf(0, numeric, cat)];
+            case MEAN:
+                double sum = 0.0;
+                for(int t = 0; t < roots.length; t++)
+                    sum += leafValues[leaf(t, numeric, cat)];
+                return sum/roots.length;
+            default://RUNNING_MEAN
+                double mean = 0.0;
+                for(int t = 0; t < roots.length; t++)
+                    mean += (leafValues[leaf(t, numeric, cat)]-mean)/(t+1);
+                return mean;
+        }
+    }
+
+    /**
+     * Performs regression on all of the given data points at once.
+     *
+     * @param dataPoints the data points to regress
+     * @param out the array to store the result of each data point in
+     */
+    @Override
+    public void regress(List<DataPoint> dataPoints, double[] out)
+    {
+        if(categories != 0)
+            throw new UnsupportedOperationException("FlatForest was created for classification");
+        Vec[] numeric = new Vec[BLOCK_SIZE];
+        int[][] cat = new int[BLOCK_SIZE][];
+        for(int start = 0; start < dataPoints.size(); start += BLOCK_SIZE)
+        {
+            int end = Math.min(start+BLOCK_SIZE, dataPoints.size());
+            for(int i = start; i < end; i++)
+            {
+                DataPoint dp = dataPoints.get(i);
+                numeric[i-start] = dp.getNumericalValues();
+                cat[i-start] = dp.getCategoricalValues();
+            }
+
+            Arrays.fill(out, start, end, 0.0);
+            for(int t = 0; t < roots.length; t++)
+                if(combine == Combine.RUNNING_MEAN)
+                    for(int i = start; i < end; i++)
+                        out[i] += (leafValues[leaf(t, numeric[i-start], cat[i-start])]-out[i])/(t+1);
+                else
+                    for(int i = start; i < end; i++)
+                        out[i] += leafValues[leaf(t, numeric[i-start], cat[i-start])];
+            if(combine == Combine.MEAN)
+                for(int i = start; i < end; i++)
+                    out[i] /= roots.length;
+        }
+    }
+
+    @Override
+    public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
+    {
+        throw new UnsupportedOperationException("FlatForest can only be created from a trained model");
+    }
+
+    @Override
+    public void trainC(ClassificationDataSet dataSet)
+    {
+        throw new UnsupportedOperationException("FlatForest can only be created from a trained model");
+    }
+
+    @Override
+    public void train(RegressionDataSet dataSet, ExecutorService threadPool)
+    {
+        throw new UnsupportedOperationException("FlatForest can only be created from a trained model");
+    }
+
+    @Override
+    public void train(RegressionDataSet dataSet)
+    {
+        throw new UnsupportedOperationException("FlatForest can only be created from a trained model");
+    }
+
+    @Override
+    public boolean supportsWeightedData()
+    {
+        return false;
+    }
+
+    @Override
+    public FlatForest clone()
+    {
+        return new FlatForest(this);
+    }
+
+    /**
+     * Collects the nodes and leaves of trees while they are being flattened.
+     * The nodes of a tree add themselves to the builder through
+     * {@link TreeNodeVisitor#flattenNode(jsat.classifiers.trees.FlatForest.Builder) }
+     * and {@link TreeNodeVisitor#flattenLeaf(jsat.classifiers.trees.FlatForest.Builder, int) }
+     * by calling one of the split or leaf methods, and return the value that
+     * method returned. <br>
+     * Every split method returns the index of the new node, and every leaf
+     * method returns the bitwise complement of the index of the new leaf.
+     */
+    public static class Builder
+    {
+        private final int categories;
+        private final IntList roots = new IntList();
+        private final IntList type = new IntList();
+        private final IntList feature = new IntList();
+        private final DoubleList threshold = new DoubleList();
+        private final IntList childStart = new IntList();
+        private final IntList children = new IntList();
+        private final IntList splitStart = new IntList();
+        private final DoubleList splitValues = new DoubleList();
+        private final IntList splitInts = new IntList();
+        private final DoubleList leafValues = new DoubleList();
+        private final IntList leafClass = new IntList();
+
+        /**
+         * Creates a new builder
+         * @param categories the number of target categories for
+         * classification, or 0 for regression
+         */
+        Builder(int categories)
+        {
+            this.categories = categories;
+        }
+
+        /**
+         * Returns {@code true} if the trees are being flattened for
+         * classification, or {@code false} for regression
+         * @return {@code true} for classification
+         */
+        public boolean isClassification()
+        {
+            return categories > 0;
+        }
+
+        /**
+         * Adds all of the nodes of a tree, and makes it the next tree of the
+         * forest
+         * @param root the root node of the tree
+         */
+        void addTree(TreeNodeVisitor root)
+        {
+            roots.add(add(root));
+        }
+
+        /**
+         * Adds the given node and all of the nodes below it
+         * @param node the node to add
+         * @return the index of the node, or the bitwise complement of the leaf
+         * if the node is only a leaf
+         */
+        private int add(TreeNodeVisitor node)
+        {
+            int index = node.flattenNode(this);
+            if(index < 0)
+                return index;
+            int first = childStart.getI(index);
+            int paths = children.size()-first;
+            for(int path = 0; path < paths; path++)
+                if(node.isPathDisabled(path))
+                    children.set(first+path, node.flattenLeaf(this, path));
+                else
+                    children.set(first+path, add(node.getChild(path)));
+            return index;
+        }
+
+        private int addNode(byte nodeType, int att, double value, int paths)
+        {
+            int index = type.size();
+            type.add(nodeType);
+            feature.add(att);
+            threshold.add(value);
+            childStart.add(children.size());
+            for(int i = 0; i < paths; i++)
+                children.add(0);
+            splitStart.add(splitInts.size());
+            return index;
+        }
+
+        /**
+         * Adds a node with two paths, where data points with a numeric value
+         * less than or equal to the threshold take the first path.
+         * @param numericAttribute the numeric feature to split on
+         * @param threshold the split value
+         * @return the index of the node
+         */
+        public int numericSplit(int numericAttribute, double threshold)
+        {
+            return addNode(NUMERIC, numericAttribute, threshold, 2);
+        }
+
+        /**
+         * Adds a node that splits a numeric feature into regions, in the same
+         * way as {@link DecisionStump} does for classification. A data point
+         * takes the path of the owner of the first boundary that its value is
+         * less than or equal to.
+         * @param numericAttribute the numeric feature to split on
+         * @param boundaries the sorted boundaries of the regions
+         * @param owners the path of each region
+         * @param paths the number of paths
+         * @return the index of the node
+         */
+        public int boundarySplit(int numericAttribute, List<Double> boundaries, List<Integer> owners, int paths)
+        {
+            int index = addNode(BOUNDARIES, numericAttribute, 0.0, paths);
+            for(int i = 0; i < boundaries.size(); i++)
+            {
+                splitValues.add(boundaries.get(i));
+                splitInts.add(owners.get(i));
+            }
+            return index;
+        }
+
+        /**
+         * Adds a node where each data point takes the path of its categorical
+         * value.
+         * @param categoricalAttribute the categorical feature to split on
+         * @param paths the number of paths
+         * @return the index of the node
+         */
+        public int categoricalSplit(int categoricalAttribute, int paths)
+        {
+            return addNode(CATEGORICAL, categoricalAttribute, 0.0, paths);
+        }
+
+        /**
+         * Adds a node with two paths, where data points with one of the given
+         * categorical values take the first path.
+         * @param categoricalAttribute the categorical feature to split on
+         * @param left the sorted values that take the first path
+         * @return the index of the node
+         */
+        public int categoricalSetSplit(int categoricalAttribute, int[] left)
+        {
+            int index = addNode(CATEGORICAL_SET, categoricalAttribute, 0.0, 2);
+            for(int v : left)
+            {
+                splitValues.add(0.0);
+                splitInts.add(v);
+            }
+            return index;
+        }
+
+        /**
+         * Adds a node where every data point takes the first and only path.
+         * @return the index of the node
+         */
+        public int constantSplit()
+        {
+            return addNode(CONSTANT, -1, 0.0, 1);
+        }
+
+        /**
+         * Adds a leaf for classification
+         * @param result the result of the leaf
+         * @return the bitwise complement of the index of the leaf
+         */
+        public int leaf(CategoricalResults result)
+        {
+            if(!isClassification())
+                throw new UnsupportedOperationException("Trees are being flattened for regression");
+            if(result.size() != categories)
+                throw new IllegalArgumentException("Leaf has " + result.size() + " categories, not " + categories);
+            for(int i = 0; i < categories; i++)
+                leafValues.add(result.getProb(i));
+            leafClass.add(result.mostLikely());
+            return ~(leafClass.size()-1);
+        }
+
+        /**
+         * Adds a leaf for regression
+         * @param result the result of the leaf
+         * @return the bitwise complement of the index of the leaf
+         */
+        public int leaf(double result)
+        {
+            if(isClassification())
+                throw new UnsupportedOperationException("Trees are being flattened for classification");
+            leafValues.add(result);
+            return ~(leafValues.size()-1);
+        }
+
+        /**
+         * Creates the forest from the trees that have been added
+         * @param combine how the results of the trees are combined
+         * @return the flattened forest
+         */
+        FlatForest build(Combine combine)
+        {
+            return new FlatForest(this, combine);
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package jsat.classifiers.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.CategoricalResults;
+import jsat.classifiers.trees.DecisionTree.Node;
+import jsat.classifiers.trees.ImpurityScore.ImpurityMeasure;
+import jsat.utils.FakeExecutor;
+import jsat.utils.SystemInfo;
+
+/**
+ * Grows a {@link DecisionTree} from a {@link BinnedData} set. Instead of
+ * sorting the data points at every node, each node accumulates a histogram of
+ * the class weights (or target sums for regression) over the bins of every
+ * feature it may split on, and every bin boundary is evaluated as a split
+ * from the cumulative histogram. The histograms of the largest child of a
+ * node are obtained by subtracting the histograms of its siblings from the
+ * node's own, so the data points of the largest child are never visited.
+ * <br><br>
+ * The tree is grown one level at a time. Every step of a level is divided
+ * into small tasks over all of the open nodes at once - the histogram of one
+ * feature over a block of one node's data points, the split of one node, and
+ * so on - which all threads take from a shared counter. This keeps every
+ * thread busy near the root, where a node by node construction would only
+ * have a few large tasks. Nodes with fewer than {@link #SMALL_NODE} data
+ * points are instead grown depth first into whole subtrees by a single thread
+ * each, once the large nodes are done, which also bounds the number of
+ * histograms held at once. <br>
+ * The data points of each open node are kept as a contiguous range of one
+ * array of indices, which is partitioned in place between the children of a
+ * node, so no per node lists are created.
+ * <br><br>
+ * Each node produces the same {@link DecisionStump} a sorting based search
+ * would, restricted to thresholds that lie on bin boundaries.
+ *
+ * @author Edward Raff
+ */
+final class HistogramTreeBuilder
+{
+    /**
+     * Nodes with fewer data points than this are grown by a single thread
+     */
+    private static final int SMALL_NODE = 4096;
+    /**
+     * The number of data points a single histogram task accumulates
+     */
+    private static final int ROW_BLOCK = 1 << 15;
+
+    private final DecisionTree tree;
+    private final DecisionStump baseStump;
+    private final CategoricalData predicting;
+    private final BinnedData data;
+    /**
+     * The weight of each data point, where a weight of zero excludes the point
+     */
+    private final double[] w;
+    private final int numCat;
+    private final int featureCount;
+    /**
+     * The number of values stored per bin. The first is always the number
+     * of data points in the bin.
+     */
+    private final int S;
+    private final int maxDepth;
+    private final int minSamples;
+    private final int minResultSplitSize;
+    private final ImpurityMeasure gainMethod;
+    /**
+     * The indices of the data points, where each open node owns a range
+     */
+    private int[] order;
+    /**
+     * Scratch space for partitioning {@link #order}. Open nodes never
+     * overlap, so each may use the same range of both arrays
+     */
+    private int[] scratch;
+
+    /**
+     * Creates a new tree builder
+     * @param tree the tree being built, whose settings will be used
+     * @param baseStump the stump to clone for every node
+     * @param predicting the target information for classification, or
+     * {@code null} for regression
+     * @param data the binned data set
+     * @param weights the weight of each data point in {@code data}
+     */
+    public HistogramTreeBuilder(DecisionTree tree, DecisionStump baseStump, CategoricalData predicting, BinnedData data, double[] weights)
+    {
+        this.tree = tree;
+        this.baseStump = baseStump;
+        this.predicting = predicting;
+        this.data = data;
+        this.w = weights;
+        this.numCat = data.catCols.length;
+        this.featureCount = numCat + data.numCols.length;
+        this.S = predicting != null ? predicting.getNumOfCategories()+1 : 4;
+        this.maxDepth = tree.getMaxDepth();
+        this.minSamples = tree.getMinSamples();
+        this.minResultSplitSize = baseStump.getMinResultSplitSize();
+        this.gainMethod = baseStump.getGainMethod();
+    }
+
+    /**
+     * A node that has not been split yet, and the range of {@link #order}
+     * holding its data points
+     */
+    private class Open
+    {
+        final int start;
+        final int end;
+        final int depth;
+        final Set<Integer> options;
+        /**
+         * The histogram of each feature, or {@code null} if not computed
+         */
+        final double[][] hist;
+        /**
+         * The node this one will be a child of, or {@code null} for the root
+         */
+        final Node parent;
+        final int path;
+        Node node;
+        /**
+         * The attribute split on, or -1 for a leaf
+         */
+        int attribute = -1;
+        /**
+         * The last bin of the left path for a numeric split
+         */
+        int bin;
+
+        public Open(int start, int end, int depth, Set<Integer> options, Node parent, int path)
+        {
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+            this.options = options;
+            this.hist = new double[featureCount][];
+            this.parent = parent;
+            this.path = path;
+        }
+
+        int size()
+        {
+            return end-start;
+        }
+
+        /**
+         * Returns {@code true} if this node will be split further
+         */
+        boolean expands()
+        {
+            return depth <= maxDepth && !options.isEmpty() && size() >= minSamples && size() > 0;
+        }
+    }
+
+    /**
+     * Builds the tree from all data points that have a non zero weight
+     * @param options the features the root may split on
+     * @param threadPool the source of threads
+     * @return the root of the tree, or {@code null} if no tree could be built
+     */
+    public Node build(Set<Integer> options, ExecutorService threadPool)
+    {
+        int n = 0;
+        for(int i = 0; i < data.N; i++)
+            if(w[i] > 0)
+                n++;
+        order = new int[n];
+        scratch = new int[n];
+        n = 0;
+        for(int i = 0; i < data.N; i++)
+            if(w[i] > 0)
+                order[n++] = i;
+        if(threadPool instanceof FakeExecutor)
+            threadPool = null;
+
+        tree.selectNodeOptions(options, featureCount);
+        Open root = new Open(0, n, 0, options, null, 0);
+        List<Open> level = new ArrayList<Open>();
+        level.add(root);
+        final List<Open> small = new ArrayList<Open>();
+        while(!level.isEmpty())
+        {
+            List<Open> large = new ArrayList<Open>(level.size());
+            for(Open open : level)
+                if(!open.expands())
+                    continue;
+                else if(open.size() < SMALL_NODE)
+                {
+                    //cheap to recompute, and many may be waiting at once
+                    Arrays.fill(open.hist, null);
+                    small.add(open);
+                }
+                else
+                    large.add(open);
+            level = growLevel(large, threadPool);
+        }
+
+        //now grow the small subtrees depth first, each by one thread
+        List<Runnable> tasks = new ArrayList<Runnable>(small.size());
+        for(final Open open : small)
+            tasks.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Deque<Open> stack = new ArrayDeque<Open>();
+                    stack.push(open);
+                    while(!stack.isEmpty())
+                        for(Open child : growLevel(Arrays.asList(stack.pop()), null))
+                            if(child.expands())
+                                stack.push(child);
+                }
+            });
+        runAll(tasks, threadPool);
+
+        return root.node;
+    }
+
+    /**
+     * Splits every node in a level of the tree
+     * @param level the open nodes to split, which must all expand
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     * @return the children of the nodes in this level
+     */
+    private List<Open> growLevel(final List<Open> level, ExecutorService threadPool)
+    {
+        //1: histograms for every feature each node may split on
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        List<Runnable> merges = new ArrayList<Runnable>();
+        for(Open open : level)
+            addHistogramTasks(open, open.options, tasks, merges);
+        runAll(tasks, threadPool);
+        runAll(merges, threadPool);
+
+        //2: find the best split of each node, and partition its data points
+        final List<List<Open>> children = new ArrayList<List<Open>>(level.size());
+        tasks.clear();
+        for(int i = 0; i < level.size(); i++)
+        {
+            final Open open = level.get(i);
+            final List<Open> childrenOfOpen = new ArrayList<Open>();
+            children.add(childrenOfOpen);
+            tasks.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    split(open);
+                    if(open.attribute >= 0)
+                        partition(open, childrenOfOpen);
+                }
+            });
+        }
+        runAll(tasks, threadPool);
+
+        //3: histograms of the smaller children, then the largest by subtraction
+        tasks.clear();
+        merges.clear();
+        List<Runnable> subtractions = new ArrayList<Runnable>();
+        List<Open> nextLevel = new ArrayList<Open>();
+        for(int i = 0; i < level.size(); i++)
+        {
+            final Open open = level.get(i);
+            final List<Open> siblings = children.get(i);
+            nextLevel.addAll(siblings);
+            if(siblings.isEmpty())
+                continue;
+            Open largest = siblings.get(0);
+            for(Open child : siblings)
+                if(child.size() > largest.size())
+                    largest = child;
+            if(!largest.expands())//so no other child does
+                continue;
+
+            //siblings need the attributes we will get by subtraction as well
+            Set<Integer> bySubtraction = new HashSet<Integer>();
+            for(int a : largest.options)
+                if(open.hist[a] != null)
+                    bySubtraction.add(a);
+            for(Open child : siblings)
+            {
+                if(child == largest)
+                    continue;
+                addHistogramTasks(child, bySubtraction, tasks, merges);
+                if(child.expands())
+                {
+                    Set<Integer> rest = new HashSet<Integer>(child.options);
+                    rest.removeAll(bySubtraction);
+                    addHistogramTasks(child, rest, tasks, merges);
+                }
+            }
+            for(final int a : bySubtraction)
+            {
+                final Open big = largest;
+                subtractions.add(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        double[] h = big.hist[a] = open.hist[a].clone();
+                        for(Open child : siblings)
+                            if(child != big)
+                                for(int j = 0; j < h.length; j++)
+                                    h[j] -= child.hist[a][j];
+                    }
+                });
+            }
+        }
+        runAll(tasks, threadPool);
+        runAll(merges, threadPool);
+        runAll(subtractions, threadPool);
+
+        return nextLevel;
+    }
+
+    /**
+     * Runs all of the given tasks, using the thread pool if there is more
+     * than one
+     */
+    private static void runAll(final List<Runnable> tasks, ExecutorService threadPool)
+    {
+        final int workers = threadPool == null ? 1 : Math.min(SystemInfo.LogicalCores, tasks.size());
+        if(workers <= 1)
+        {
+            for(Runnable task : tasks)
+                task.run();
+            return;
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(workers);
+        for(int id = 0; id < workers; id++)
+            threadPool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        int i;
+                        while((i = next.getAndIncrement()) < tasks.size())
+                            tasks.get(i).run();
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(HistogramTreeBuilder.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private int numBins(int attribute)
+    {
+        if(attribute < numCat)
+            return data.catInfo[attribute].getNumOfCategories();
+        return data.numBins(attribute-numCat);
+    }
+
+    /**
+     * Adds the tasks to compute every histogram of the given attributes that
+     * the node does not already have. Nodes larger than {@link #ROW_BLOCK}
+     * are accumulated by several tasks into partial histograms, which are
+     * added together by the tasks placed in {@code merges}.
+     */
+    private void addHistogramTasks(final Open open, Set<Integer> attributes, List<Runnable> tasks, List<Runnable> merges)
+    {
+        for(final int a : attributes)
+        {
+            if(open.hist[a] != null)
+                continue;
+            final int length = numBins(a)*S;
+            final double[] h = open.hist[a] = new double[length];
+            final int blocks = (open.size() + ROW_BLOCK - 1)/ROW_BLOCK;
+            final double[][] partials = new double[blocks][];
+            partials[0] = h;
+            for(int b = 0; b < blocks; b++)
+            {
+                final int bb = b;
+                final int from = open.start + b*ROW_BLOCK;
+                final int to = Math.min(open.end, from + ROW_BLOCK);
+                tasks.add(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if(bb > 0)
+                            partials[bb] = new double[length];
+                        accumulate(partials[bb], a, from, to);
+                    }
+                });
+            }
+            if(blocks > 1)
+                merges.add(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        for(int b = 1; b < partials.length; b++)
+                            for(int j = 0; j < length; j++)
+                                h[j] += partials[b][j];
+                    }
+                });
+        }
+    }
+
+    /**
+     * Adds the data points in the given range of {@link #order} to the
+     * histogram of an attribute
+     */
+    private void accumulate(double[] h, int attribute, int from, int to)
+    {
+        if(attribute < numCat)
+        {
+            int[] col = data.catCols[attribute];
+            for(int i = from; i < to; i++)
+                accumulate(h, col[order[i]]*S, order[i]);
+        }
+        else
+        {
+            byte[] col = data.numCols[attribute-numCat];
+            for(int i = from; i < to; i++)
+                accumulate(h, (col[order[i]] & 0xFF)*S, order[i]);
+        }
+    }
+
+    private void accumulate(double[] h, int pos, int r)
+    {
+        h[pos]++;
+        if(predicting != null)
+            h[pos+1+data.labels[r]] += w[r];
+        else
+        {
+            double y = data.targets[r];
+            h[pos+1] += w[r];
+            h[pos+2] += w[r]*y;
+            h[pos+3] += w[r]*y*y;
+        }
+    }
+
+    /**
+     * Finds the split of a node, and attaches the node to its parent
+     */
+    private void split(Open open)
+    {
+        DecisionStump stump = baseStump.clone();
+        if(predicting != null)
+            splitC(stump, open);
+        else
+            splitR(stump, open);
+        open.node = new Node(stump);
+        if(open.node.paths.length <= 1)
+            open.attribute = -1;
+        if(open.parent != null)
+            open.parent.paths[open.path] = open.node;
+    }
+
+    /**
+     * Which path the given data point goes down from a node that splits
+     */
+    private int pathOf(Open open, int r)
+    {
+        if(open.attribute < numCat)
+            return data.catCols[open.attribute][r];
+        return (data.numCols[open.attribute-numCat][r] & 0xFF) <= open.bin ? 0 : 1;
+    }
+
+    /**
+     * Partitions the range of a node that splits between its children, and
+     * creates the open nodes for them
+     */
+    private void partition(Open open, List<Open> children)
+    {
+        final int paths = open.node.paths.length;
+        int[] pos = new int[paths+1];
+        for(int i = open.start; i < open.end; i++)
+            pos[pathOf(open, order[i])+1]++;
+        pos[0] = open.start;
+        for(int p = 1; p <= paths; p++)
+            pos[p] += pos[p-1];
+        for(int p = 0; p < paths; p++)
+        {
+            Set<Integer> childOptions = new HashSet<Integer>(open.options);
+            tree.selectNodeOptions(childOptions, featureCount);
+            children.add(new Open(pos[p], pos[p+1], open.depth+1, childOptions, open.node, p));
+        }
+
+        for(int i = open.start; i < open.end; i++)
+        {
+            int r = order[i];
+            scratch[pos[pathOf(open, r)]++] = r;
+        }
+        System.arraycopy(scratch, open.start, order, open.start, open.size());
+    }
+
+    /**
+     * Finds the best classification split and sets up the stump accordingly
+     */
+    private void splitC(DecisionStump stump, Open open)
+    {
+        final int C = S-1;
+        final double[][] hist = open.hist;
+        final int size = open.size();
+        ImpurityScore origScore = new ImpurityScore(C, gainMethod);
+        for(int i = open.start; i < open.end; i++)
+            origScore.addPoint(w[order[i]], data.labels[order[i]]);
+
+        if(origScore.getScore() == 0.0)//all the same class
+        {
+            CategoricalResults result = new CategoricalResults(C);
+            result.setProb(data.labels[order[open.start]], 1.0);
+            stump.setSplitC(data.catInfo, -1, Double.NaN, new CategoricalResults[]{result});
+            return;
+        }
+
+        double bestGain = -1;
+        int bestAttribute = -1;
+        int bestBin = -1;
+        for(int a : open.options)
+        {
+            double[] h = hist[a];
+            final int B = numBins(a);
+            if(a < numCat)
+            {
+                ImpurityScore[] scores = new ImpurityScore[B];
+                for(int b = 0; b < B; b++)
+                {
+                    scores[b] = new ImpurityScore(C, gainMethod);
+                    for(int c = 0; c < C; c++)
+                        scores[b].addPoint(h[b*S+1+c], c);
+                }
+                double gain = ImpurityScore.gain(origScore, scores);
+                if(gain > bestGain)
+                {
+                    bestGain = gain;
+                    bestAttribute = a;
+                }
+            }
+            else
+            {
+                ImpurityScore leftSide = new ImpurityScore(C, gainMethod);
+                ImpurityScore rightSide = origScore.clone();
+                double attrGain = Double.NEGATIVE_INFINITY;
+                int attrBin = -1;
+                double leftCount = 0;
+                for(int b = 0; b < B-1; b++)
+                {
+                    if(h[b*S] == 0)//nothing new to split on
+                        continue;
+                    leftCount += h[b*S];
+                    for(int c = 0; c < C; c++)
+                    {
+                        leftSide.addPoint(h[b*S+1+c], c);
+                        rightSide.removePoint(h[b*S+1+c], c);
+                    }
+                    if(leftCount < minResultSplitSize)
+                        continue;
+                    else if(size-leftCount < minResultSplitSize)
+                        break;
+                    double gain = ImpurityScore.gain(origScore, leftSide, rightSide);
+                    if(gain >= attrGain)
+                    {
+                        attrGain = gain;
+                        attrBin = b;
+                    }
+                }
+                if(attrBin >= 0 && attrGain > bestGain)
+                {
+                    bestGain = attrGain;
+                    bestAttribute = a;
+                    bestBin = attrBin;
+                }
+            }
+        }
+
+        if(bestGain <= 1e-9 || bestAttribute == -1)//no good split
+        {
+            CategoricalResults result = origScore.getResults();
+            result.normalize();
+            stump.setSplitC(data.catInfo, -1, Double.NaN, new CategoricalResults[]{result});
+            return;
+        }
+
+        if(bestAttribute < numCat)
+            open.options.remove(bestAttribute);
+        double[] h = hist[bestAttribute];
+        CategoricalResults[] results;
+        double threshold = Double.NaN;
+        if(bestAttribute < numCat)
+        {
+            results = new CategoricalResults[numBins(bestAttribute)];
+            for(int b = 0; b < results.length; b++)
+            {
+                results[b] = new CategoricalResults(C);
+                for(int c = 0; c < C; c++)
+                    results[b].setProb(c, h[b*S+1+c]);
+                results[b].normalize();
+            }
+        }
+        else
+        {
+            results = new CategoricalResults[]{new CategoricalResults(C), new CategoricalResults(C)};
+            for(int b = 0; b < numBins(bestAttribute); b++)
+                for(int c = 0; c < C; c++)
+                    results[b <= bestBin ? 0 : 1].incProb(c, h[b*S+1+c]);
+            results[0].normalize();
+            results[1].normalize();
+            threshold = data.getEdge(bestAttribute-numCat, bestBin);
+        }
+        stump.setSplitC(data.catInfo, bestAttribute, threshold, results);
+        open.attribute = bestAttribute;
+        open.bin = bestBin;
+    }
+
+    /**
+     * Finds the best regression split and sets up the stump accordingly
+     */
+    private void splitR(DecisionStump stump, Open open)
+    {
+        final double[][] hist = open.hist;
+        final int size = open.size();
+        double sumW = 0, sumWY = 0;
+        for(int i = open.start; i < open.end; i++)
+        {
+            int r = order[i];
+            sumW += w[r];
+            sumWY += w[r]*data.targets[r];
+        }
+        final double mean = sumWY/sumW;
+
+        if(size <= minResultSplitSize*2)//not enough points for a split
+        {
+            stump.setSplitR(data.catInfo, -1, new double[]{mean});
+            return;
+        }
+
+        double lowestSqrdErr = Double.MAX_VALUE;
+        int bestAttribute = -1;
+        int bestBin = -1;
+        double[] bestMeans = null;
+        for(int a : open.options)
+        {
+            double[] h = hist[a];
+            final int B = numBins(a);
+            if(a < numCat)
+            {
+                double sqrdErr = 0;
+                double[] means = new double[B];
+                for(int b = 0; b < B; b++)
+                {
+                    double bw = h[b*S+1];
+                    if(bw > 0)
+                    {
+                        sqrdErr += sse(bw, h[b*S+2], h[b*S+3]);
+                        means[b] = h[b*S+2]/bw;
+                    }
+                    else
+                        means[b] = mean;
+                }
+                if(sqrdErr < lowestSqrdErr)
+                {
+                    lowestSqrdErr = sqrdErr;
+                    bestAttribute = a;
+                    bestMeans = means;
+                }
+            }
+            else
+            {
+                double leftCount = 0, leftW = 0, leftWY = 0, leftWYY = 0;
+                double totalW = 0, totalWY = 0, totalWYY = 0;
+                for(int b = 0; b < B; b++)
+                {
+                    totalW += h[b*S+1];
+                    totalWY += h[b*S+2];
+                    totalWYY += h[b*S+3];
+                }
+                for(int b = 0; b < B-1; b++)
+                {
+                    if(h[b*S] == 0)
+                        continue;
+                    leftCount += h[b*S];
+                    leftW += h[b*S+1];
+                    leftWY += h[b*S+2];
+                    leftWYY += h[b*S+3];
+                    if(leftCount < minResultSplitSize)
+                        continue;
+                    else if(size-leftCount < minResultSplitSize)
+                        break;
+                    double rightW = totalW-leftW, rightWY = totalWY-leftWY;
+                    double sqrdErr = sse(leftW, leftWY, leftWYY) + sse(rightW, rightWY, totalWYY-leftWYY);
+                    if(sqrdErr < lowestSqrdErr && !Double.isInfinite(sqrdErr))
+                    {
+                        lowestSqrdErr = sqrdErr;
+                        bestAttribute = a;
+                        bestBin = b;
+                        bestMeans = new double[]{leftWY/leftW, rightWY/rightW, data.getEdge(a-numCat, b)};
+                    }
+                }
+            }
+        }
+
+        if(bestAttribute == -1)//every numeric value fell in one bin
+        {
+            stump.setSplitR(data.catInfo, -1, new double[]{mean});
+            return;
+        }
+        if(bestAttribute < numCat)
+            open.options.remove(bestAttribute);
+        stump.setSplitR(data.catInfo, bestAttribute, bestMeans);
+        open.attribute = bestAttribute;
+        open.bin = bestBin;
+    }
+
+    /**
+     * Computes the weighted sum of squared errors from the mean
+     * @param sumW the sum of the weights
+     * @param sumWY the weighted sum of the target values
+     * @param sumWYY the weighted sum of the squared target values
+     * @return the weighted sum of squared errors
+     */
+    private static double sse(double sumW, double sumWY, double sumWYY)
+    {
+        if(sumW <= 0)
+            return 0;
+        return Math.max(sumWYY - sumWY*sumWY/sumW, 0);
+    }
+}
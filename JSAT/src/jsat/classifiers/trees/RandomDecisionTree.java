@@ -92,6 +92,12 @@ public class RandomDecisionTree extends DecisionTree
         return super.makeNodeR(dataPoints, options, depth, threadPool, mcdl); //To change body of generated methods, choose Tools | Templates.
     }
 
+    @Override
+    protected void selectNodeOptions(Set<Integer> options, int featureCount)
+    {
+        fillWithRandomFeatures(options, featureCount);
+    }
+
     private void fillWithRandomFeatures(Set<Integer> options, final int featureCount)
     {
         options.clear();
@@ -18,6 +18,7 @@ import jsat.classifiers.Classifier;
 import jsat.classifiers.DataPoint;
 import jsat.classifiers.boosting.Bagging;
 import jsat.classifiers.trees.ImpurityScore.ImpurityMeasure;
+import jsat.exceptions.UntrainedModelException;
 import jsat.math.OnLineStatistics;
 import jsat.parameters.Parameter;
 import jsat.parameters.Parameterized;
@@ -144,6 +145,31 @@ public class RandomForest implements Classifier, Regressor, Parameterized
         return maxForestSize;
     }
 
+    /**
+     * Sets the number of bins used by each tree to find splits on numeric 
+     * features. When set to a positive value, the data set is quantized once
+     * and shared by all of the trees in the forest, which avoids sorting at 
+     * every node of every tree. A value of 0 searches the exact values. 
+     * 
+     * @param histogramBins the number of bins in [2, 256], or 0 to not use 
+     * bins
+     * @see DecisionTree#setHistogramBins(int) 
+     */
+    public void setHistogramBins(int histogramBins)
+    {
+        baseLearner.setHistogramBins(histogramBins);
+    }
+
+    /**
+     * Returns the number of bins used by each tree to find splits on numeric
+     * features, or 0 if the exact values are used
+     * @return the number of bins used for numeric features
+     */
+    public int getHistogramBins()
+    {
+        return baseLearner.getHistogramBins();
+    }
+
     /**
      * Sets whether or not to compute the out of bag error during training
      * @param useOutOfBagError <tt>true</tt> to compute the out of bag error, <tt>false</tt> to skip it
@@ -273,11 +299,20 @@ public class RandomForest implements Classifier, Regressor, Parameterized
         {
             counts = new int[dataSet.getSampleSize()][((ClassificationDataSet)dataSet).getClassSize()];
         }
+        
+        BinnedData binned = null;
+        if(baseLearner.getHistogramBins() > 0)//bin once for every tree
+        {
+            if(dataSet instanceof ClassificationDataSet)
+                binned = BinnedData.forClassification(((ClassificationDataSet)dataSet).getAsDPPList(), predicting.getNumOfCategories(), baseLearner.getHistogramBins());
+            else
+                binned = BinnedData.forRegression(((RegressionDataSet)dataSet).getDPPList(), baseLearner.getHistogramBins());
+        }
 
         while (roundsToDistribut > 0)
         {
             int extra = (extraRounds-- > 0) ? 1 : 0;
-            Future<LearningWorker> future = threadPool.submit(new LearningWorker(dataSet, roundShare + extra, new Random(rand.nextInt()), counts, pred));
+            Future<LearningWorker> future = threadPool.submit(new LearningWorker(dataSet, binned, roundShare + extra, new Random(rand.nextInt()), counts, pred));
             roundsToDistribut -= (roundShare + extra);
             futures.add(future);
         }
@@ -322,6 +357,23 @@ public class RandomForest implements Classifier, Regressor, Parameterized
 
     }
 
+    /**
+     * Compiles the trained forest into a {@link FlatForest}, which gives the 
+     * same predictions as this forest but is faster to evaluate. 
+     * 
+     * @return the flattened form of this forest
+     * @throws UntrainedModelException if the forest has not been trained
+     */
+    public FlatForest flatten()
+    {
+        if(forest == null || forest.isEmpty())
+            throw new UntrainedModelException("Classifier has not yet been trained");
+        FlatForest.Builder builder = new FlatForest.Builder(predicting == null ? 0 : predicting.getNumOfCategories());
+        for(DecisionTree tree : forest)
+            builder.addTree(tree.getTreeNodeVisitor());
+        return builder.build(FlatForest.Combine.RUNNING_MEAN);
+    }
+
     @Override
     public RandomForest clone()
     {
@@ -358,6 +410,10 @@ public class RandomForest implements Classifier, Regressor, Parameterized
         int toLearn;
         List<DecisionTree> learned;
         DataSet dataSet;
+        /**
+         * The binned copy of the data set, or {@code null} if not used
+         */
+        BinnedData binned;
         Random random;
         /**
          * For regression: sum of predictions
@@ -366,9 +422,10 @@ public class RandomForest implements Classifier, Regressor, Parameterized
   
         private int[][] counts;
 
-        public LearningWorker(DataSet dataSet, int toLearn, Random random, int[][] counts, AtomicDoubleArray pred)
+        public LearningWorker(DataSet dataSet, BinnedData binned, int toLearn, Random random, int[][] counts, AtomicDoubleArray pred)
         {
             this.dataSet = dataSet;
+            this.binned = binned;
             this.toLearn = toLearn;
             this.random = random;
             this.learned = new ArrayList<DecisionTree>(toLearn);
@@ -395,7 +452,14 @@ public class RandomForest implements Classifier, Regressor, Parameterized
                                 
                 DecisionTree learner = baseLearner.clone();
                 
-                if(dataSet instanceof ClassificationDataSet)
+                if(binned != null)
+                {
+                    double[] weights = new double[sampleCounts.length];
+                    for(int j = 0; j < weights.length; j++)
+                        weights[j] = binned.weights[j]*sampleCounts[j];
+                    learner.trainBinned(binned, weights, predicting, features);
+                }
+                else if(dataSet instanceof ClassificationDataSet)
                     learner.trainC(Bagging.getWeightSampledDataSet((ClassificationDataSet)dataSet, sampleCounts), features);
                 else //It must be regression!
                     learner.train(Bagging.getWeightSampledDataSet((RegressionDataSet)dataSet, sampleCounts), features);
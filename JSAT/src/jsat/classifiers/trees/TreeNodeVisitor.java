@@ -152,6 +152,36 @@ public abstract class TreeNodeVisitor implements Serializable, Cloneable
         return node.localRegress(dp);
     }
     
+    /**
+     * Optional operation!<br>
+     * Adds this node to the builder of a {@link FlatForest} by calling one of 
+     * its split methods with the split this node makes. If this node is a 
+     * leaf that always gives the same result, it may instead call one of the 
+     * leaf methods of the builder. 
+     * 
+     * @param builder the builder to add this node to
+     * @return the value returned by the method of the builder that was called
+     */
+    protected int flattenNode(FlatForest.Builder builder)
+    {
+        throw new UnsupportedOperationException("flattenNode is an optional operation.");
+    }
+    
+    /**
+     * Optional operation!<br>
+     * Adds the result a data point would get when it takes the given path, 
+     * and the path is disabled, as a leaf to the builder of a 
+     * {@link FlatForest}. 
+     * 
+     * @param builder the builder to add the leaf to
+     * @param child the disabled path
+     * @return the value returned by the leaf method of the builder
+     */
+    protected int flattenLeaf(FlatForest.Builder builder, int child)
+    {
+        throw new UnsupportedOperationException("flattenLeaf is an optional operation.");
+    }
+    
     @Override
     abstract public TreeNodeVisitor clone();
 }
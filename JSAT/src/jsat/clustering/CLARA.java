@@ -6,6 +6,7 @@ import jsat.DataSet;
 import jsat.SimpleDataSet;
 import jsat.classifiers.DataPoint;
 import jsat.clustering.SeedSelectionMethods.SeedSelection;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.Vec;
 import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
@@ -136,6 +137,8 @@ public class CLARA extends PAM
         {
             return super.cluster(data, true, medioids, assignments, cacheAccel);
         }
+        else if(distanceMatrix != null && distanceMatrix.size() != data.getSampleSize())
+            throw new ClusterFailureException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + data.getSampleSize());
         else if(doInit)
         {
             TrainableDistanceMetric.trainIfNeeded(dm, data);
@@ -148,35 +151,39 @@ public class CLARA extends PAM
         List<DataPoint> sample = new ArrayList<DataPoint>(sampSize);
         /**
          * We need the mapping to be able to go from the sample indicies back to their position in the full data set
-         * Key is the sample index [1, 2, 3, ..., sampSize]
+         * Index is the sample index [0, 1, 2, ..., sampSize-1]
          * Value is the coresponding index in the full data set
          */
-        Map<Integer, Integer> samplePoints = new Hashtable<Integer, Integer>();
+        int[] samplePoints = new int[sampSize];
+        Set<Integer> sampled = new HashSet<Integer>(sampSize*2);
         
         for(int i = 0; i < sampleCount; i++)
         {
             //Take a sample and use PAM on it to get medoids
-            samplePoints.clear();
+            sampled.clear();
             sample.clear();
             
-            while (samplePoints.size() < sampSize)
+            while (sampled.size() < sampSize)
             {
                 int indx = rand.nextInt(data.getSampleSize());
-                if (!samplePoints.containsValue(indx))
-                    samplePoints.put(samplePoints.size(), indx);
+                if (sampled.add(indx))
+                {
+                    samplePoints[sample.size()] = indx;
+                    sample.add(data.getDataPoint(indx));
+                }
             }
-            for (Integer j : samplePoints.values())
-                sample.add(data.getDataPoint(j));
 
             DataSet sampleSet = new SimpleDataSet(sample);
+            List<Double> sampleCache = dm.getAccelerationCache(sampleSet.getDataVectors());
+            CondensedDistanceMatrix sampleMatrix = distanceMatrix == null ? null : distanceMatrix.subset(samplePoints);
             
             //Sampling done, now apply PAM
-            SeedSelectionMethods.selectIntialPoints(sampleSet, medioids, dm, cacheAccel, rand, getSeedSelection());
-            super.cluster(sampleSet, false, medioids, sampleAssignments, cacheAccel);
+            SeedSelectionMethods.selectIntialPoints(sampleSet, medioids, dm, sampleCache, rand, getSeedSelection());
+            super.cluster(sampleSet, false, medioids, sampleAssignments, sampleCache, sampleMatrix);
             
             //Map the sample medoids back to the full data set
             for(int j = 0; j < medioids.length; j++)
-                medioids[j] = samplePoints.get(j);
+                medioids[j] = samplePoints[medioids[j]];
             
             //Now apply the sample medoids to the full data set
             double sqrdDist = 0.0;
@@ -187,7 +194,7 @@ public class CLARA extends PAM
                 
                 for(int z = 0; z < k; z++)
                 {
-                    double tmp = dm.dist(medioids[z], j, X, cacheAccel);
+                    double tmp = dist(medioids[z], j, X, cacheAccel, distanceMatrix);
                     if(tmp < smallestDist)
                     {
                         assignment = z;
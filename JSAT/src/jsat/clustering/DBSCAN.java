@@ -2,42 +2,50 @@ package jsat.clustering;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jsat.DataSet;
-import jsat.classifiers.CategoricalData;
 import jsat.classifiers.DataPoint;
-import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.linear.VecPaired;
+import jsat.linear.distancemetrics.ChebyshevDistance;
 import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.ManhattanDistance;
+import jsat.linear.distancemetrics.MinkowskiDistance;
 import jsat.linear.distancemetrics.TrainableDistanceMetric;
 import jsat.linear.vectorcollection.KDTree;
 import jsat.linear.vectorcollection.VectorCollection;
 import jsat.linear.vectorcollection.VectorCollectionFactory;
 import jsat.math.OnLineStatistics;
+import jsat.utils.IntList;
 import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.ParallelUtils;
 
 /**
  * A density-based algorithm for discovering clusters in large spatial databases 
  * with noise (1996) by Martin Ester , Hans-peter Kriegel , Jörg S , Xiaowei Xu
+ * <br><br>
+ * The neighbors of all points are found in bulk and in parallel, using a 
+ * uniform grid for L<sub>p</sub> distances in low dimensions and the 
+ * {@link VectorCollection} otherwise. The results are the same as expanding 
+ * one cluster at a time. 
  * 
  * @author Edward Raff
  */
 public class DBSCAN extends ClustererBase
 {
     /**
-     * Used by {@link #cluster(jsat.DataSet, double, int, jsat.linear.vectorcollection.VectorCollection) } 
-     * to mark that a data point as not yet been visited. <br>
-     * Clusters that have been visited have a value >= 0, that indicates their cluster. Or have the value {@link #NOISE}
+     * Used to mark that a data point was considered noise. Points in a
+     * cluster have a value >= 0, that indicates their cluster. 
      */
-    private static final int UNCLASSIFIED = -1;
+    private static final int NOISE = -2;
     /**
-     * Used by {@link #cluster(jsat.DataSet, double, int, jsat.linear.vectorcollection.VectorCollection) } 
-     * to mark that a data point has been visited, but was considered noise. 
+     * The largest number of dimensions for which a uniform grid is used to
+     * find the neighbors of each point, instead of the vector collection. 
      */
-    private static final int NOISE = -2;
+    private static final int GRID_MAX_DIMENSION = 4;
     
     /**
      * Factory used to create a vector space of the inputs. 
@@ -109,67 +117,41 @@ public class DBSCAN extends ClustererBase
         return new DBSCAN(this);
     }
     
-    private class StatsWorker implements Callable<OnLineStatistics>
-    {
-        final BlockingQueue<DataPoint> queue;
-        final VectorCollection<VecPaired<Vec, Integer>> vc;
-        final int minPts;
-
-        public StatsWorker(BlockingQueue<DataPoint> queue, VectorCollection<VecPaired<Vec, Integer>> vc, int minPts)
-        {
-            this.queue = queue;
-            this.vc = vc;
-            this.minPts = minPts;
-        }
-
-        public OnLineStatistics call() throws Exception
-        {
-            OnLineStatistics stats = new OnLineStatistics();
-            while(true)
-            {
-                DataPoint dp = queue.take();
-                
-                if(dp.numNumericalValues() == 0 && dp.numCategoricalValues() == 0)
-                    break;//Posion value, nonsense data point used to signal end
-                stats.add(vc.search(dp.getNumericalValues(), minPts+1).get(minPts).getPair());
-            }
-            return stats;
-        }
-        
-    }
-    
     public List<List<DataPoint>> cluster(DataSet dataSet, int minPts, ExecutorService threadpool)
     {
         return createClusterListFromAssignmentArray(cluster(dataSet, minPts, threadpool, null), dataSet);
     }
     
-    public int[] cluster(DataSet dataSet, int minPts, ExecutorService threadpool, int[] designations)
+    public int[] cluster(DataSet dataSet, final int minPts, ExecutorService threadpool, int[] designations)
     {
-        OnLineStatistics stats = null;
         TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
-        VectorCollection<VecPaired<Vec, Integer>> vc = vecFactory.getVectorCollection(getVecIndexPairs(dataSet), dm);
+        final VectorCollection<VecPaired<Vec, Integer>> vc = vecFactory.getVectorCollection(getVecIndexPairs(dataSet), dm);
+        final List<Vec> X = dataSet.getDataVectors();
         
-        BlockingQueue<DataPoint> queue = new ArrayBlockingQueue<DataPoint>(SystemInfo.L2CacheSize*2);
         List<Future<OnLineStatistics>> futures = new ArrayList<Future<OnLineStatistics>>(SystemInfo.LogicalCores);
+        for(int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int start = ParallelUtils.getStartBlock(X.size(), id, SystemInfo.LogicalCores);
+            final int end = ParallelUtils.getEndBlock(X.size(), id, SystemInfo.LogicalCores);
+            futures.add(threadpool.submit(new Callable<OnLineStatistics>()
+            {
+                @Override
+                public OnLineStatistics call() throws Exception
+                {
+                    OnLineStatistics stats = new OnLineStatistics();
+                    for(int i = start; i < end; i++)
+                        stats.add(vc.search(X.get(i), minPts+1).get(minPts).getPair());
+                    return stats;
+                }
+            }));
+        }
         
-        //Setup
-        for(int i = 0; i < SystemInfo.LogicalCores; i++)
-            futures.add(threadpool.submit(new StatsWorker(queue, vc, minPts)));
-        //Feed data
-        for(int i = 0; i < dataSet.getSampleSize(); i++)
-            queue.add(dataSet.getDataPoint(i));
-        //Posion stop
-        for(int i = 0; i < SystemInfo.LogicalCores; i++)
-            queue.add(new DataPoint(new DenseVector(0), new int[0], new CategoricalData[0]));
-        
+        OnLineStatistics stats = new OnLineStatistics();
         for( Future<OnLineStatistics> future : futures)
         {
             try
             {
-                if(stats == null)
-                    stats = future.get();
-                else 
-                    stats = OnLineStatistics.add(stats, future.get());
+                stats.add(future.get());
             }
             catch (InterruptedException ex)
             {
@@ -202,7 +184,7 @@ public class DBSCAN extends ClustererBase
     public int[] cluster(DataSet dataSet, double eps, int minPts, int[] designations)
     {
         TrainableDistanceMetric.trainIfNeeded(dm, dataSet);
-        return cluster(dataSet, eps, minPts, vecFactory.getVectorCollection(getVecIndexPairs(dataSet), dm), designations);
+        return cluster(dataSet, eps, minPts, null, null, designations);
     }
     
     public List<List<DataPoint>> cluster(DataSet dataSet, double eps, int minPts, ExecutorService threadpool)
@@ -213,226 +195,425 @@ public class DBSCAN extends ClustererBase
     public int[] cluster(DataSet dataSet, double eps, int minPts, ExecutorService threadpool, int[] designations)
     {
         TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
-        return cluster(dataSet, eps, minPts, vecFactory.getVectorCollection(getVecIndexPairs(dataSet), dm), threadpool, designations);
+        return cluster(dataSet, eps, minPts, null, threadpool, designations);
     }
     
-    private int[] cluster(DataSet dataSet, double eps, int minPts, VectorCollection<VecPaired<Vec, Integer>> vc, int[] pointCats )
+    private int[] cluster(DataSet dataSet, double eps, int minPts, VectorCollection<VecPaired<Vec, Integer>> vc, int[] pointCats)
     {
-        if (pointCats == null)
-            pointCats = new int[dataSet.getSampleSize()];
-        Arrays.fill(pointCats, UNCLASSIFIED);
-        
-        int curClusterID = 0;
-        for(int i = 0; i < pointCats.length; i++)
-        {
-            if(pointCats[i] == UNCLASSIFIED)
-            {
-                //All assignments are done by expandCluster
-                if(exapndCluster(pointCats, dataSet, i, curClusterID, eps, minPts, vc))
-                    curClusterID++;
-            }
-        }
-        
-        return pointCats;
+        return cluster(dataSet, eps, minPts, vc, null, pointCats);
     }
     
-    private int[] cluster(DataSet dataSet, double eps, int minPts, VectorCollection<VecPaired<Vec, Integer>> vc, ExecutorService threadpool, int[] pointCats)
+    /**
+     * Finds the clusters by range searching every point in bulk. The points
+     * with at least {@code minPts} neighbors are the core points, and the
+     * neighboring core points are merged with a concurrent union-find. The
+     * clusters are numbered in the order of their first core point, and
+     * border points join the lowest numbered cluster next to them, which is
+     * the same result as expanding the clusters one at a time in order.
+     *
+     * @param dataSet the data set to cluster
+     * @param eps the search radius
+     * @param minPts the minimum number of points to create a new cluster
+     * @param vc the collection to search with, or {@code null} to create it
+     * if the grid can not be used
+     * @param threadpool source of threads for computation, or {@code null}
+     * to do all the work in the calling thread
+     * @param pointCats the array to store the cluster assignments in
+     * @return the cluster assignments
+     */
+    private int[] cluster(DataSet dataSet, double eps, final int minPts, VectorCollection<VecPaired<Vec, Integer>> vc, ExecutorService threadpool, int[] pointCats)
     {
+        final int N = dataSet.getSampleSize();
         if(pointCats == null)
-            pointCats = new int[dataSet.getSampleSize()];
-        Arrays.fill(pointCats, UNCLASSIFIED);
+            pointCats = new int[N];
+        final int[] cats = pointCats;
         
+        RangeSearch grid = GridIndex.create(dataSet, dm, eps);
+        final RangeSearch search;
+        if(grid != null)
+            search = grid;
+        else
+        {
+            if(vc == null)
+                vc = vecFactory.getVectorCollection(getVecIndexPairs(dataSet), dm);
+            search = new CollectionSearch(vc, dataSet.getDataVectors(), eps);
+        }
         
-        BlockingQueue<List<? extends VecPaired<VecPaired<Vec, Integer>,Double>>> resultQ = new SynchronousQueue<List<? extends VecPaired<VecPaired<Vec, Integer>,Double>>>();
-        BlockingQueue<Vec> sourceQ = new LinkedBlockingQueue<Vec>();
-
-        //Set up workers
-        for(int i = 0; i < SystemInfo.LogicalCores; i++)
-            threadpool.submit(new ClusterWorker(vc, eps, resultQ, sourceQ));
+        //count the neighbors of every point to find the core points
+        final int[] counts = new int[N];
+        runBlocks(N, threadpool, new Block()
+        {
+            @Override
+            public void run(int start, int end)
+            {
+                IntList neighbors = new IntList();
+                for(int i = start; i < end; i++)
+                {
+                    search.search(i, neighbors);
+                    counts[i] = neighbors.size();
+                }
+            }
+        });
+        
+        //merge the core points that are neighbors 
+        final AtomicIntegerArray parent = new AtomicIntegerArray(N);
+        for(int i = 0; i < N; i++)
+            parent.set(i, i);
+        runBlocks(N, threadpool, new Block()
+        {
+            @Override
+            public void run(int start, int end)
+            {
+                IntList neighbors = new IntList();
+                for(int i = start; i < end; i++)
+                {
+                    if(counts[i] < minPts)
+                        continue;
+                    search.search(i, neighbors);
+                    for(int z = 0; z < neighbors.size(); z++)
+                    {
+                        int j = neighbors.getI(z);
+                        if(j > i && counts[j] >= minPts)
+                            union(parent, i, j);
+                    }
+                }
+            }
+        });
         
+        //the root of each set is its first core point, so number them in order
         int curClusterID = 0;
-        for(int i = 0; i < pointCats.length; i++)
+        for(int i = 0; i < N; i++)
+            if(counts[i] >= minPts)
+            {
+                int root = find(parent, i);
+                if(root == i)
+                    cats[i] = curClusterID++;
+                else
+                    cats[i] = cats[root];
+            }
+        
+        //border points join the lowest numbered cluster they are next to
+        runBlocks(N, threadpool, new Block()
         {
-            if(pointCats[i] == UNCLASSIFIED)
+            @Override
+            public void run(int start, int end)
             {
-                //All assignments are done by expandCluster
-                if(exapndCluster(pointCats, dataSet, i, curClusterID, eps, minPts, vc, threadpool, resultQ, sourceQ))
-                    curClusterID++;
+                IntList neighbors = new IntList();
+                for(int i = start; i < end; i++)
+                {
+                    if(counts[i] >= minPts)
+                        continue;
+                    int clId = Integer.MAX_VALUE;
+                    search.search(i, neighbors);
+                    for(int z = 0; z < neighbors.size(); z++)
+                    {
+                        int j = neighbors.getI(z);
+                        if(counts[j] >= minPts)
+                            clId = Math.min(clId, cats[j]);
+                    }
+                    cats[i] = clId == Integer.MAX_VALUE ? NOISE : clId;
+                }
             }
-        }
+        });
         
-        //Kill workers
-        try
+        return pointCats;
+    }
+    
+    /**
+     * Returns the root of the set containing {@code x}. Every point's parent
+     * has an index no larger than its own, so the root is the lowest index in
+     * the set.
+     */
+    private static int find(AtomicIntegerArray parent, int x)
+    {
+        while(true)
         {
-            for (int i = 0; i < SystemInfo.LogicalCores; i++)
-                sourceQ.put(new DenseVector(0));
+            int p = parent.get(x);
+            if(p == x)
+                return x;
+            int gp = parent.get(p);
+            if(gp != p)//path halving, if someone beat us to it thats fine
+                parent.compareAndSet(x, p, gp);
+            x = gp;
         }
-        catch (InterruptedException interruptedException)
+    }
+    
+    /**
+     * Merges the sets containing {@code a} and {@code b}, always placing the
+     * larger root under the smaller one
+     */
+    private static void union(AtomicIntegerArray parent, int a, int b)
+    {
+        while(true)
         {
+            a = find(parent, a);
+            b = find(parent, b);
+            if(a == b)
+                return;
+            if(a < b)
+            {
+                int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            //fails if a is no longer a root, in which case we try again
+            if(parent.compareAndSet(a, a, b))
+                return;
         }
-        
-        return pointCats;
     }
     
     /**
-     * 
-     * @param pointCats the array to store the cluster assignments in
-     * @param dataSet the data set 
-     * @param point the current data point we are working on
-     * @param clId the current cluster we are working on
-     * @param eps the search radius
-     * @param minPts the minimum number of points to create a new cluster
-     * @param vc the collection to use to search with 
-     * @return true if a cluster was expanded, false if the point was marked as noise
+     * A range of the data set to be processed
      */
-    private boolean exapndCluster(int[] pointCats, DataSet dataSet, int point, int clId, double eps, int minPts, VectorCollection<VecPaired<Vec, Integer>> vc)
+    private interface Block
     {
-        Vec queryPoint = dataSet.getDataPoint(point).getNumericalValues();
-        List<? extends VecPaired<VecPaired<Vec, Integer>, Double>> seeds = vc.search(queryPoint, eps);
-        
-        if(seeds.size() < minPts)// no core point
+        public void run(int start, int end);
+    }
+    
+    /**
+     * Splits the indices [0, N) into one block per core and runs them in the 
+     * thread pool, or runs them all in the calling thread if the pool is 
+     * {@code null}
+     */
+    private static void runBlocks(int N, ExecutorService threadpool, final Block block)
+    {
+        if(threadpool == null)
         {
-            pointCats[point] = NOISE;
-            return false;
+            block.run(0, N);
+            return;
         }
-        //Else, all points in seeds are density-reachable from Point
-        
-        List<? extends VecPaired<VecPaired<Vec, Integer>, Double>> results;
-        
-        pointCats[point] = clId;
-        Queue<VecPaired<VecPaired<Vec, Integer>, Double>> workQue = new ArrayDeque<VecPaired<VecPaired<Vec, Integer>,Double>>(seeds);
-        while(!workQue.isEmpty())
+        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        for(int id = 0; id < SystemInfo.LogicalCores; id++)
         {
-            VecPaired<VecPaired<Vec, Integer>, Double> currentP = workQue.poll();
-            results = vc.search(currentP, eps);
-            
-            if(results.size() >= minPts)
-                for(VecPaired<VecPaired<Vec, Integer>, Double> resultP :  results)
+            final int start = ParallelUtils.getStartBlock(N, id, SystemInfo.LogicalCores);
+            final int end = ParallelUtils.getEndBlock(N, id, SystemInfo.LogicalCores);
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
                 {
-                    int resultPIndx = resultP.getVector().getPair();
-                    if(pointCats[resultPIndx] < 0)// is UNCLASSIFIED or NOISE
+                    try
                     {
-                        if(pointCats[resultPIndx] == UNCLASSIFIED)
-                            workQue.add(resultP);
-                        pointCats[resultPIndx] = clId;
+                        block.run(start, end);
                     }
-                }   
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(DBSCAN.class.getName()).log(Level.SEVERE, null, ex);
         }
-        
-        return true;
     }
     
-    private class ClusterWorker implements Runnable
+    /**
+     * Finds all the points within the search radius of a point in the data set 
+     */
+    private interface RangeSearch
     {
-        private VectorCollection<VecPaired<Vec, Integer>> vc;
-        private volatile List<? extends VecPaired<VecPaired<Vec, Integer>,Double>> results;
-        private final double range;
-        private final BlockingQueue<List<? extends VecPaired<VecPaired<Vec, Integer>,Double>>> resultQ;
-        private final BlockingQueue<Vec> sourceQ;
-
         /**
-         * 
-         * @param vc the accelerate structure to search for data points. Must support concurent method calls
-         * @param range the range to search <tt>tt</tt> with
-         * @param resultQ The que to place this worker object into on completion
+         * @param i the index of the query point
+         * @param neighbors the list to store the indices of all the points
+         * within range, including {@code i}. It will be cleared first.
          */
-        public ClusterWorker(VectorCollection<VecPaired<Vec, Integer>> vc, double range, BlockingQueue<List<? extends VecPaired<VecPaired<Vec, Integer>,Double>>> resultQ, BlockingQueue<Vec> sourceQ)
+        public void search(int i, IntList neighbors);
+    }
+    
+    /**
+     * Range search using a {@link VectorCollection}, which must support
+     * concurrent searches
+     */
+    private static class CollectionSearch implements RangeSearch
+    {
+        private final VectorCollection<VecPaired<Vec, Integer>> vc;
+        private final List<Vec> X;
+        private final double eps;
+
+        public CollectionSearch(VectorCollection<VecPaired<Vec, Integer>> vc, List<Vec> X, double eps)
         {
             this.vc = vc;
-            this.range = range;
-            this.resultQ = resultQ;
-            this.sourceQ = sourceQ;
+            this.X = X;
+            this.eps = eps;
         }
 
-        public List<? extends VecPaired<VecPaired<Vec, Integer>,Double>> getResults()
+        @Override
+        public void search(int i, IntList neighbors)
         {
-            return results;
+            neighbors.clear();
+            for(VecPaired<VecPaired<Vec, Integer>, Double> result : vc.search(X.get(i), eps))
+                neighbors.add(result.getVector().getPair());
         }
-        
-        public void run()
+    }
+    
+    /**
+     * Range search using a uniform grid with cells a little wider than the 
+     * search radius, so only the points in the cell of the query and the 
+     * cells next to it need to be checked. This only works for the L<sub>p</sub> 
+     * distances, which are never less than the largest difference of any one
+     * coordinate, and is only efficient in a few dimensions. 
+     */
+    private static class GridIndex implements RangeSearch
+    {
+        /**
+         * The cells are made wider than the radius by this relative amount so
+         * that rounding can not place two points within range more than one
+         * cell apart
+         */
+        private static final double CELL_SLACK = 1e-6;
+        private final List<Vec> X;
+        private final DistanceMetric dm;
+        private final double eps;
+        private final double width;
+        private final double[] mins;
+        /**
+         * The number of cells along each dimension
+         */
+        private final long[] cellsPerDim;
+        /**
+         * The sorted keys of all cells that contain points
+         */
+        private final long[] keys;
+        /**
+         * The points of cell {@code c} are {@code cellPoints[cellStart[c]]} 
+         * to {@code cellPoints[cellStart[c+1]-1]}
+         */
+        private final int[] cellStart;
+        private final int[] cellPoints;
+
+        private GridIndex(List<Vec> X, DistanceMetric dm, double eps, double width, double[] mins, long[] cellsPerDim)
         {
-            Vec searchPoint;
-            try
+            this.X = X;
+            this.dm = dm;
+            this.eps = eps;
+            this.width = width;
+            this.mins = mins;
+            this.cellsPerDim = cellsPerDim;
+            
+            final int N = X.size();
+            long[] pointKeys = new long[N];
+            for(int i = 0; i < N; i++)
+                pointKeys[i] = key(X.get(i));
+            long[] sortedKeys = Arrays.copyOf(pointKeys, N);
+            Arrays.sort(sortedKeys);
+            int C = 0;
+            for(int i = 0; i < N; i++)
+                if(i == 0 || sortedKeys[i] != sortedKeys[i-1])
+                    sortedKeys[C++] = sortedKeys[i];
+            keys = Arrays.copyOf(sortedKeys, C);
+            
+            //counting sort of the points into their cells
+            int[] cellOf = new int[N];
+            cellStart = new int[C+1];
+            for(int i = 0; i < N; i++)
             {
-                while(true)
+                cellOf[i] = Arrays.binarySearch(keys, pointKeys[i]);
+                cellStart[cellOf[i]+1]++;
+            }
+            for(int c = 0; c < C; c++)
+                cellStart[c+1] += cellStart[c];
+            int[] pos = Arrays.copyOf(cellStart, C);
+            cellPoints = new int[N];
+            for(int i = 0; i < N; i++)
+                cellPoints[pos[cellOf[i]]++] = i;
+        }
+        
+        /**
+         * Creates a new grid for the data set, if it can be used
+         * @return the grid, or {@code null} if the distance metric, the number
+         * of dimensions, or the number of cells needed does not allow a grid
+         */
+        public static GridIndex create(DataSet dataSet, DistanceMetric dm, double eps)
+        {
+            if(!(dm instanceof EuclideanDistance || dm instanceof ManhattanDistance 
+                    || dm instanceof ChebyshevDistance || dm instanceof MinkowskiDistance))
+                return null;
+            final int D = dataSet.getNumNumericalVars();
+            if(D == 0 || D > GRID_MAX_DIMENSION || dataSet.getSampleSize() == 0 || !(eps > 0) || Double.isInfinite(eps))
+                return null;
+            
+            List<Vec> X = dataSet.getDataVectors();
+            double[] mins = new double[D];
+            double[] maxs = new double[D];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            for(Vec x : X)
+                for(int d = 0; d < D; d++)
                 {
-                    searchPoint = sourceQ.take();
-                    if(searchPoint.length() == 0)
-                        break;
-                    results = vc.search(searchPoint, range);
-                    resultQ.put(results);
+                    double v = x.get(d);
+                    if(Double.isNaN(v) || Double.isInfinite(v))
+                        return null;
+                    mins[d] = Math.min(mins[d], v);
+                    maxs[d] = Math.max(maxs[d], v);
                 }
-            }
-            catch (InterruptedException ex)
+            
+            double width = eps*(1+CELL_SLACK);
+            long[] cellsPerDim = new long[D];
+            double totalCells = 1;
+            for(int d = 0; d < D; d++)
             {
-                Logger.getLogger(DBSCAN.class.getName()).log(Level.SEVERE, null, ex);
+                //one extra cell on each side so neighbors never go out of range
+                double cells = Math.floor((maxs[d]-mins[d])/width) + 3;
+                totalCells *= cells;
+                if(totalCells > Long.MAX_VALUE/4)
+                    return null;
+                cellsPerDim[d] = (long) cells;
             }
             
+            return new GridIndex(X, dm, eps, width, mins, cellsPerDim);
         }
         
-    }
-    
-    /**
-     * 
-     * @param pointCats the array to store the cluster assignments in
-     * @param dataSet the data set 
-     * @param point the current data point we are working on
-     * @param clId the current cluster we are working on
-     * @param eps the search radius
-     * @param minPts the minimum number of points to create a new cluster
-     * @param vc the collection to use to search with 
-     * @param threadpool source of threads for computation
-     * @param resultQ blocking queue used to get results from 
-     * @param sourceQ blocking queue used to store points that need to be processed
-     * @return true if a cluster was expanded, false if the point was marked as noise
-     */
-    private boolean exapndCluster(int[] pointCats, DataSet dataSet, int point, int clId, double eps, int minPts, VectorCollection<VecPaired<Vec, Integer>> vc, ExecutorService threadpool, BlockingQueue<List<? extends VecPaired<VecPaired<Vec, Integer>,Double>>> resultQ, BlockingQueue<Vec> sourceQ )
-    {
-        Vec queryPoint = dataSet.getDataPoint(point).getNumericalValues();
-        List<? extends VecPaired<VecPaired<Vec, Integer>, Double>> seeds = vc.search(queryPoint, eps);
-        
-        if(seeds.size() < minPts)// no core point
+        private long coord(Vec x, int d)
         {
-            pointCats[point] = NOISE;
-            return false;
+            return (long) Math.floor((x.get(d)-mins[d])/width) + 1;
         }
-        //Else, all points in seeds are density-reachable from Point
-        
-        List<? extends VecPaired<VecPaired<Vec, Integer>, Double>> results;
         
-        try
+        private long key(Vec x)
         {
-            pointCats[point] = clId;
-            int out = seeds.size();
-            for (VecPaired<VecPaired<Vec, Integer>,Double> v : seeds)
-                sourceQ.put(v.getVector().getVector());
-            
-            while (out > 0)
+            long key = 0;
+            for(int d = 0; d < mins.length; d++)
+                key = key*cellsPerDim[d] + coord(x, d);
+            return key;
+        }
+
+        @Override
+        public void search(int i, IntList neighbors)
+        {
+            neighbors.clear();
+            final Vec x = X.get(i);
+            final int D = mins.length;
+            //go through the 3^D neighboring cells by counting in base 3
+            int[] offset = new int[D];
+            long[] coords = new long[D];
+            for(int d = 0; d < D; d++)
+                coords[d] = coord(x, d);
+            while(true)
             {
-                results = resultQ.take();
-                out--;
-                
-                if (results.size() >= minPts)
-                    for (VecPaired<VecPaired<Vec, Integer>,Double> resultP : results)
+                long key = 0;
+                for(int d = 0; d < D; d++)
+                    key = key*cellsPerDim[d] + coords[d] + offset[d] - 1;
+                int c = Arrays.binarySearch(keys, key);
+                if(c >= 0)
+                    for(int z = cellStart[c]; z < cellStart[c+1]; z++)
                     {
-                        int resultPIndx = resultP.getVector().getPair();
-                        if (pointCats[resultPIndx] < 0)// is UNCLASSIFIED or NOISE
-                        {
-                            if (pointCats[resultPIndx] == UNCLASSIFIED)
-                            {
-                                sourceQ.put(resultP.getVector().getVector());
-                                out++;
-                            }
-                            pointCats[resultPIndx] = clId;
-                        }
-                    }                
+                        int j = cellPoints[z];
+                        if(dm.dist(x, X.get(j)) <= eps)
+                            neighbors.add(j);
+                    }
+                
+                int d = D-1;
+                while(d >= 0 && offset[d] == 2)
+                    offset[d--] = 0;
+                if(d < 0)
+                    break;
+                offset[d]++;
             }
         }
-        catch (InterruptedException interruptedException)
-        {
-        }
-        
-        return true;
     }
-
 }
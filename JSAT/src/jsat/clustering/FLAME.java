@@ -3,6 +3,7 @@ package jsat.clustering;
 import java.util.*;
 import java.util.concurrent.*;
 import jsat.DataSet;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.Vec;
 import jsat.linear.VecPaired;
 import jsat.linear.distancemetrics.DistanceMetric;
@@ -39,6 +40,7 @@ public class FLAME extends ClustererBase implements Parameterized
     private VectorCollectionFactory<VecPaired<Vec, Integer>> vectorCollectionFactory = new DefaultVectorCollectionFactory<VecPaired<Vec, Integer>>();
     private double stndDevs = 2.5;
     private double eps = 1e-6;
+    private CondensedDistanceMatrix distanceMatrix;
 
     /**
      * Creates a new FLAME clustering object
@@ -65,7 +67,7 @@ public class FLAME extends ClustererBase implements Parameterized
         this.k = toCopy.k;
         this.stndDevs = toCopy.stndDevs;
         this.eps = toCopy.eps;
-        
+        this.distanceMatrix = toCopy.distanceMatrix;
     }
   
     /**
@@ -186,6 +188,33 @@ public class FLAME extends ClustererBase implements Parameterized
         this.vectorCollectionFactory = vectorCollectionFactory;
     }
     
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be clustered. When given, the nearest neighbors
+     * of each point are found by scanning its row of the matrix rather than
+     * with a {@link VectorCollection}. The matrix must have been created with
+     * the same distance metric, and a {@link ClusterFailureException} is
+     * thrown if it does not have one point for every point in the data set
+     * clustered.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * clustered, or {@code null} to use a vector collection
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if a
+     * vector collection is used
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
+    }
+    
     @Override
     public int[] cluster(DataSet dataSet, int[] designations)
     {
@@ -204,16 +233,23 @@ public class FLAME extends ClustererBase implements Parameterized
             for (int i = 0; i < dataSet.getSampleSize(); i++)
                 vecs.add(new VecPaired<Vec, Integer>(dataSet.getDataPoint(i).getNumericalValues(), i));
             
-            TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
             VectorCollection<VecPaired<Vec, Integer>> vc;
             final List<List<? extends VecPaired<VecPaired<Vec, Integer>, Double>>> allNNs;
-            if (threadpool instanceof FakeExecutor)
+            if (distanceMatrix != null)
+            {
+                if (distanceMatrix.size() != n)
+                    throw new ClusterFailureException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + n);
+                allNNs = allNearestNeighbors(vecs, threadpool);
+            }
+            else if (threadpool instanceof FakeExecutor)
             {
+                TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
                 vc = vectorCollectionFactory.getVectorCollection(vecs, dm);
                 allNNs = VectorCollectionUtils.allNearestNeighbors(vc, vecs, k + 1);
             }
             else
             {
+                TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
                 vc = vectorCollectionFactory.getVectorCollection(vecs, dm, threadpool);
                 allNNs = VectorCollectionUtils.allNearestNeighbors(vc, vecs, k + 1, threadpool);
             }
@@ -449,6 +485,72 @@ public class FLAME extends ClustererBase implements Parameterized
         }
     }
 
+    /**
+     * Finds the <i>k</i>+1 nearest neighbors of every point, including the
+     * point itself, from the rows of the distance matrix. The results are in
+     * the same form as
+     * {@link VectorCollectionUtils#allNearestNeighbors(jsat.linear.vectorcollection.VectorCollection, java.util.List, int) }.
+     */
+    private List<List<? extends VecPaired<VecPaired<Vec, Integer>, Double>>> allNearestNeighbors(final List<VecPaired<Vec, Integer>> vecs, ExecutorService threadpool) throws InterruptedException
+    {
+        final int n = vecs.size();
+        final int neighbors = Math.min(k + 1, n);
+        final List<List<? extends VecPaired<VecPaired<Vec, Integer>, Double>>> allNNs = new ArrayList<List<? extends VecPaired<VecPaired<Vec, Integer>, Double>>>(n);
+        for (int i = 0; i < n; i++)
+            allNNs.add(null);
+
+        final int blocks = threadpool instanceof FakeExecutor ? 1 : SystemInfo.LogicalCores;
+        final CountDownLatch latch = new CountDownLatch(blocks);
+        for (int b = 0; b < blocks; b++)
+        {
+            final int start = b * n / blocks;
+            final int end = (b + 1) * n / blocks;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    int[] nnIndx = new int[neighbors];
+                    double[] nnDist = new double[neighbors];
+                    for (int i = start; i < end; i++)
+                    {
+                        //the point itself is always the first neighbor
+                        nnIndx[0] = i;
+                        nnDist[0] = 0;
+                        int found = 1;
+                        for (int j = 0; j < n; j++)
+                        {
+                            if (j == i)
+                                continue;
+                            double d = distanceMatrix.get(i, j);
+                            if (found == neighbors && d >= nnDist[found - 1])
+                                continue;
+                            //insertion sort into the bounded list
+                            int pos = found == neighbors ? found - 1 : found++;
+                            while (pos > 1 && nnDist[pos - 1] > d)
+                            {
+                                nnIndx[pos] = nnIndx[pos - 1];
+                                nnDist[pos] = nnDist[pos - 1];
+                                pos--;
+                            }
+                            nnIndx[pos] = j;
+                            nnDist[pos] = d;
+                        }
+
+                        List<VecPaired<VecPaired<Vec, Integer>, Double>> knns = new ArrayList<VecPaired<VecPaired<Vec, Integer>, Double>>(found);
+                        for (int j = 0; j < found; j++)
+                            knns.add(new VecPaired<VecPaired<Vec, Integer>, Double>(vecs.get(nnIndx[j]), nnDist[j]));
+                        allNNs.set(i, knns);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+
+        return allNNs;
+    }
+
     @Override
     public FLAME clone()
     {
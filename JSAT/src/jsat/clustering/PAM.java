@@ -12,6 +12,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import jsat.DataSet;
 import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.Vec;
 import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
@@ -35,6 +36,11 @@ public class PAM extends KClustererBase
     
     protected int[] medoids;
     protected boolean storeMedoids = true;
+    /**
+     * The precomputed distances between all points of the data set, or
+     * {@code null} if the distances should be computed as needed
+     */
+    protected CondensedDistanceMatrix distanceMatrix;
 
     public PAM(DistanceMetric dm, Random rand, SeedSelection seedSelection)
     {
@@ -72,6 +78,7 @@ public class PAM extends KClustererBase
         this.storeMedoids = toCopy.storeMedoids;
         this.iterLimit = toCopy.iterLimit;
         this.repeats = toCopy.repeats;
+        this.distanceMatrix = toCopy.distanceMatrix;
     }
     
     /**
@@ -112,10 +119,55 @@ public class PAM extends KClustererBase
     {
         return seedSelection;
     }
-   
-    
+
     /**
-     * Performs the actual work of PAM. 
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be clustered, so that they are not computed
+     * again for every iteration. The same matrix is used for every number of
+     * clusters tried by {@link #cluster(jsat.DataSet, int, int, java.util.concurrent.ExecutorService, int[]) },
+     * and may be reused for later calls with the same data set. The matrix
+     * must have been created with the same distance metric, and a
+     * {@link ClusterFailureException} is thrown if it does not have one point
+     * for every point in the data set clustered.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * clustered, or {@code null} to compute distances as they are needed
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed as they are needed
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
+    }
+
+    /**
+     * Returns the distance between two points, taken from the distance matrix
+     * if one is given
+     * @param i the index of the first point
+     * @param j the index of the second point
+     * @param X the vectors of the data set
+     * @param cacheAccel the distance acceleration cache of the data set
+     * @param matrix the distance matrix of the data set, or {@code null}
+     * @return the distance between the two points
+     */
+    protected double dist(int i, int j, List<Vec> X, List<Double> cacheAccel, CondensedDistanceMatrix matrix)
+    {
+        if(matrix != null)
+            return matrix.get(i, j);
+        return dm.dist(i, j, X, cacheAccel);
+    }
+
+    /**
+     * Performs the actual work of PAM, using the {@link #setDistanceMatrix(jsat.clustering.dissimilarity.CondensedDistanceMatrix) 
+     * distance matrix} if one was given.
      * 
      * @param data the data set to apply PAM to
      * @param doInit {@code true} if the initialization procedure of training the distance metric, initiating its cache, and selecting he seeds, should be done. 
@@ -126,6 +178,24 @@ public class PAM extends KClustererBase
      */
     protected double cluster(DataSet data, boolean doInit, int[] medioids, int[] assignments, List<Double> cacheAccel)
     {
+        return cluster(data, doInit, medioids, assignments, cacheAccel, distanceMatrix);
+    }
+
+    /**
+     * Performs the actual work of PAM. 
+     * 
+     * @param data the data set to apply PAM to
+     * @param doInit {@code true} if the initialization procedure of training the distance metric, initiating its cache, and selecting he seeds, should be done. 
+     * @param medioids the array to store the indices that get chosen as the medoids. The length of the array indicates how many medoids should be obtained. 
+     * @param assignments an array of the same length as <tt>data</tt>, each value indicating what cluster that point belongs to. 
+     * @param cacheAccel the pre-computed distance acceleration cache. May be {@code null}. 
+     * @param matrix the distance matrix of <tt>data</tt>, or {@code null} to compute the distances as needed
+     * @return the sum of the squared distance from each point to its closest medoids 
+     */
+    protected double cluster(DataSet data, boolean doInit, int[] medioids, int[] assignments, List<Double> cacheAccel, CondensedDistanceMatrix matrix)
+    {
+        if(matrix != null && matrix.size() != data.getSampleSize())
+            throw new ClusterFailureException("Distance matrix has " + matrix.size() + " points, but the data set has " + data.getSampleSize());
         double totalDistance = 0;
         int changes = -1;
         Arrays.fill(assignments, -1);//-1, invalid category!
@@ -138,7 +208,7 @@ public class PAM extends KClustererBase
         {
             TrainableDistanceMetric.trainIfNeeded(dm, data);
             cacheAccel = dm.getAccelerationCache(X);
-            selectIntialPoints(data, medoids, dm, cacheAccel, rand, seedSelection);
+            selectIntialPoints(data, medioids, dm, cacheAccel, rand, seedSelection);
         }
 
         int iter = 0;
@@ -149,13 +219,12 @@ public class PAM extends KClustererBase
             
             for(int i = 0; i < data.getSampleSize(); i++)
             {
-                Vec dpVec = data.getDataPoint(i).getNumericalValues();
                 int assignment = 0;
-                double minDist = dm.dist(medioids[0], i, X, cacheAccel);
+                double minDist = dist(medioids[0], i, X, cacheAccel, matrix);
 
                 for (int k = 1; k < medioids.length; k++)
                 {
-                    double dist = dm.dist(medioids[k], i, X, cacheAccel);
+                    double dist = dist(medioids[k], i, X, cacheAccel, matrix);
                     if (dist < minDist)
                     {
                         minDist = dist;
@@ -186,7 +255,7 @@ public class PAM extends KClustererBase
                 {
                     if(j == i || assignments[j] != clusterID)
                         continue;
-                    thisCandidateDistance += Math.pow(dm.dist(medCandadate, j, X, cacheAccel), 2);
+                    thisCandidateDistance += Math.pow(dist(medCandadate, j, X, cacheAccel, matrix), 2);
                 }
                 
                 if(thisCandidateDistance < bestMedCandDist[clusterID])
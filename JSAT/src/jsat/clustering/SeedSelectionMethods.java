@@ -45,6 +45,26 @@ public class SeedSelectionMethods
          */
         KPP,
         
+        /**
+         * The k-means|| seeding algo, a parallel version of {@link #KPP}: <br>
+         * Rather than choosing one seed per pass over the data, a few rounds
+         * are performed in which every point is sampled independently with
+         * probability proportional to its squared distance from the current
+         * candidates, choosing about 2<i>k</i> new candidates per round. Each
+         * candidate is then weighted by the number of points closest to it,
+         * and the candidates are reduced to the seeds with a weighted
+         * k-means++. Only a few passes over the data set are needed instead of
+         * <i>k</i>, and each is done in parallel, while keeping the same
+         * O(log(k)) guarantee. The oversampling means more distances are
+         * computed in total, so this is best with many cores or a large
+         * <i>k</i>.
+         * <br><br>
+         * See: Bahmani, B., Moseley, B., Vattani, A., Kumar, R., &amp; 
+         * Vassilvitskii, S. (2012). <i>Scalable K-means++</i>. Proceedings of
+         * the VLDB Endowment, 5(7), 622–633.
+         */
+        KPP_PARALLEL,
+        
         /**
          * The first seed is chosen randomly, and then all others are chosen
          * to be the farthest away from all other seeds
@@ -214,6 +234,13 @@ public class SeedSelectionMethods
                 else
                     kppSelection(indices, rand, d, k, dm, accelCache, threadpool);
             }
+            else if (selectionMethod == SeedSelection.KPP_PARALLEL)
+            {
+                if (threadpool == null)
+                    kppParallelSelection(indices, rand, d, k, dm, accelCache, new FakeExecutor());
+                else
+                    kppParallelSelection(indices, rand, d, k, dm, accelCache, threadpool);
+            }
             else if(selectionMethod == SeedSelection.FARTHEST_FIRST)
             {
                 if(threadpool == null)
@@ -377,6 +404,177 @@ public class SeedSelectionMethods
         }
     }
     
+    /**
+     * The number of sampling rounds done by {@link SeedSelection#KPP_PARALLEL}
+     */
+    private static final int KPP_PARALLEL_ROUNDS = 5;
+    
+    private static void kppParallelSelection(final int[] indices, Random rand, final DataSet d, final int k, final DistanceMetric dm, final List<Double> accelCache, ExecutorService threadpool) throws InterruptedException, ExecutionException
+    {
+        final int N = d.getSampleSize();
+        final List<Vec> X = d.getDataVectors();
+        //squared distance to the closest candidate, and which candidate that is
+        final double[] closestDist = new double[N];
+        final int[] closest = new int[N];
+        Arrays.fill(closestDist, Double.POSITIVE_INFINITY);
+        
+        final IntList candidates = new IntList();
+        candidates.add(rand.nextInt(N));
+        double sqrdDistSum = updateClosest(candidates, 0, X, dm, accelCache, closestDist, closest, threadpool);
+        
+        final double oversample = 2.0*k;
+        for(int round = 0; round < KPP_PARALLEL_ROUNDS && sqrdDistSum > 1e-6; round++)
+        {
+            //sampling is cheap compared to the distances, and doing it in order keeps the seeds reproducible
+            int prevSize = candidates.size();
+            for(int i = 0; i < N; i++)
+                if(rand.nextDouble()*sqrdDistSum < oversample*closestDist[i])
+                    candidates.add(i);
+            sqrdDistSum = updateClosest(candidates, prevSize, X, dm, accelCache, closestDist, closest, threadpool);
+        }
+        
+        final int M = candidates.size();
+        if(M <= k)//not enough distinct candidates, randomly fill the rest
+        {
+            Set<Integer> ind = new LinkedHashSet<Integer>(candidates);
+            while(ind.size() < k)
+                ind.add(rand.nextInt(N));
+            int pos = 0;
+            for(int i : ind)
+                indices[pos++] = i;
+            return;
+        }
+        
+        //weight each candidate by the number of points closest to it
+        final double[] weights = new double[M];
+        for(int i = 0; i < N; i++)
+            weights[closest[i]]++;
+        
+        //weighted k-means++ over the candidates
+        final double[] candDist = new double[M];
+        Arrays.fill(candDist, Double.POSITIVE_INFINITY);
+        int chosen = sample(weights, null, rand, N);
+        List<Future<Double>> futureChanges = new ArrayList<Future<Double>>(LogicalCores);
+        for(int j = 0; j < k; j++)
+        {
+            indices[j] = candidates.getI(chosen);
+            if(j == k-1)
+                break;
+            
+            final int newCand = indices[j];
+            futureChanges.clear();
+            for (int id = 0; id < LogicalCores; id++)
+            {
+                final int from = ParallelUtils.getStartBlock(M, id, LogicalCores);
+                final int to = ParallelUtils.getEndBlock(M, id, LogicalCores);
+                futureChanges.add(threadpool.submit(new Callable<Double>()
+                {
+                    @Override
+                    public Double call() throws Exception
+                    {
+                        double weightedSum = 0.0;
+                        for (int c = from; c < to; c++)
+                        {
+                            double newDist = dm.dist(newCand, candidates.getI(c), X, accelCache);
+                            candDist[c] = Math.min(candDist[c], newDist*newDist);
+                            weightedSum += weights[c]*candDist[c];
+                        }
+                        return weightedSum;
+                    }
+                }));
+            }
+            
+            double weightedSum = 0;
+            for (Double partial : ListUtils.collectFutures(futureChanges))
+                weightedSum += partial;
+            
+            if(weightedSum <= 1e-6)//everyone is too close, take the rest in order
+            {
+                Set<Integer> ind = new LinkedHashSet<Integer>();
+                for(int i = 0; i <= j; i++)
+                    ind.add(indices[i]);
+                for(int c = 0; c < M && ind.size() < k; c++)
+                    ind.add(candidates.getI(c));
+                while(ind.size() < k)
+                    ind.add(rand.nextInt(N));
+                int pos = 0;
+                for(int i : ind)
+                    indices[pos++] = i;
+                return;
+            }
+            
+            chosen = sample(weights, candDist, rand, weightedSum);
+        }
+    }
+    
+    /**
+     * Updates the squared distance from every point to its closest candidate
+     * with the candidates added since the last update
+     * @param candidates the indices of the candidate points
+     * @param from the index of the first new candidate 
+     * @return the sum of the squared distances to the closest candidate
+     */
+    private static double updateClosest(final IntList candidates, final int from, final List<Vec> X, final DistanceMetric dm, final List<Double> accelCache, final double[] closestDist, final int[] closest, ExecutorService threadpool) throws InterruptedException, ExecutionException
+    {
+        final int to = candidates.size();
+        List<Future<Double>> futureSums = new ArrayList<Future<Double>>(LogicalCores);
+        for (int id = 0; id < LogicalCores; id++)
+        {
+            final int start = ParallelUtils.getStartBlock(X.size(), id, LogicalCores);
+            final int end = ParallelUtils.getEndBlock(X.size(), id, LogicalCores);
+            futureSums.add(threadpool.submit(new Callable<Double>()
+            {
+                @Override
+                public Double call() throws Exception
+                {
+                    double sqrdDistSum = 0.0;
+                    for (int i = start; i < end; i++)
+                    {
+                        for (int c = from; c < to; c++)
+                        {
+                            double newDist = dm.dist(candidates.getI(c), i, X, accelCache);
+                            newDist *= newDist;
+                            if (newDist < closestDist[i])
+                            {
+                                closestDist[i] = newDist;
+                                closest[i] = c;
+                            }
+                        }
+                        sqrdDistSum += closestDist[i];
+                    }
+                    return sqrdDistSum;
+                }
+            }));
+        }
+        
+        double sqrdDistSum = 0;
+        for (Double partial : ListUtils.collectFutures(futureSums))
+            sqrdDistSum += partial;
+        return sqrdDistSum;
+    }
+    
+    /**
+     * Samples an index with probability proportional to 
+     * {@code weights[i]*dists[i]}
+     * @param weights the weight of each index
+     * @param dists the distance of each index, or {@code null} for all ones
+     * @param rand the source of randomness
+     * @param sum the sum of all the products
+     * @return the index sampled
+     */
+    private static int sample(double[] weights, double[] dists, Random rand, double sum)
+    {
+        double rndX = rand.nextDouble()*sum;
+        int i = 0;
+        double searchSum = weights[0]*(dists == null ? 1 : dists[0]);
+        while(searchSum < rndX && i < weights.length-1)
+        {
+            i++;
+            searchSum += weights[i]*(dists == null ? 1 : dists[i]);
+        }
+        return i;
+    }
+    
     private static void ffSelection(final int[] indices, Random rand, final DataSet d, final int k, final DistanceMetric dm, final List<Double> accelCache, ExecutorService threadpool) throws InterruptedException, ExecutionException
     {
         //Initial random point
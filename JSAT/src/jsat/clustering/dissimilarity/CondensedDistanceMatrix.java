@@ -0,0 +1,507 @@
+package jsat.clustering.dissimilarity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.utils.FakeExecutor;
+import jsat.utils.SystemInfo;
+
+/**
+ * Stores the distance between every pair of points in a data set of <i>n</i>
+ * points. Only the <i>n</i>(<i>n</i>-1)/2 values above the main diagonal are
+ * stored, in one condensed upper triangular array, since the distance matrix
+ * is symmetric and the main diagonal is always zero. The values may be stored
+ * as {@code float}s to halve the memory used. <br>
+ * <br>
+ * The storage is split into chunks, so the number of values stored is not
+ * limited by the maximum size of a Java array. The chunks may be kept on the
+ * heap, in direct memory outside of the heap, or in a memory mapped file, see
+ * {@link Storage}. The later two allow a matrix larger than the heap, and a
+ * memory mapped matrix may even be larger than the physical memory, at the
+ * cost of paging. <br>
+ * <br>
+ * Computing all the pairwise distances is often the most expensive part of an
+ * algorithm that uses them, so one matrix may be given to several algorithms,
+ * or to the same algorithm for several values of a parameter, so that the
+ * distances are only computed once.
+ *
+ * @author Edward Raff
+ */
+public class CondensedDistanceMatrix
+{
+    /**
+     * The log<sub>2</sub> of the number of values in each chunk
+     */
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    /**
+     * Where the values of a distance matrix are stored
+     */
+    public enum Storage
+    {
+        /**
+         * The values are stored in arrays on the Java heap
+         */
+        HEAP,
+        /**
+         * The values are stored in direct buffers outside of the Java heap, so
+         * the matrix is limited by the amount of direct memory allowed by the
+         * JVM rather than the heap size.
+         */
+        OFF_HEAP,
+        /**
+         * The values are stored in a temporary file mapped into memory, which
+         * is deleted when the JVM exits. The operating system pages the values
+         * in and out as needed, so the matrix may be larger than the physical
+         * memory.
+         */
+        MEMORY_MAPPED
+    }
+
+    private final int n;
+    private final boolean singlePrecision;
+    private final Storage storage;
+    private double[][] doubleChunks;
+    private float[][] floatChunks;
+    private DoubleBuffer[] doubleBuffers;
+    private FloatBuffer[] floatBuffers;
+
+    /**
+     * Creates a new distance matrix stored on the heap, where all the
+     * distances are zero
+     * @param n the number of points in the matrix
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     */
+    public CondensedDistanceMatrix(int n, boolean singlePrecision)
+    {
+        this(n, singlePrecision, Storage.HEAP);
+    }
+
+    /**
+     * Creates a new distance matrix where all the distances are zero
+     * @param n the number of points in the matrix
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     * @param storage where to store the distances
+     */
+    public CondensedDistanceMatrix(int n, boolean singlePrecision, Storage storage)
+    {
+        if(n < 0)
+            throw new IllegalArgumentException("Number of points must be non negative, not " + n);
+        this.n = n;
+        this.singlePrecision = singlePrecision;
+        this.storage = storage;
+        long length = length();
+        int chunks = (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+        int bytes = singlePrecision ? 4 : 8;
+
+        RandomAccessFile file = null;
+        try
+        {
+            FileChannel channel = null;
+            if (storage == Storage.MEMORY_MAPPED)
+            {
+                File tmp = File.createTempFile("jsat_dist", ".bin");
+                tmp.deleteOnExit();
+                file = new RandomAccessFile(tmp, "rw");
+                file.setLength(length * bytes);
+                channel = file.getChannel();
+            }
+
+            if (storage == Storage.HEAP)
+                if (singlePrecision)
+                    floatChunks = new float[chunks][];
+                else
+                    doubleChunks = new double[chunks][];
+            else if (singlePrecision)
+                floatBuffers = new FloatBuffer[chunks];
+            else
+                doubleBuffers = new DoubleBuffer[chunks];
+
+            for (int c = 0; c < chunks; c++)
+            {
+                long offset = (long) c << CHUNK_SHIFT;
+                int chunkLength = (int) Math.min(CHUNK_MASK + 1, length - offset);
+                if (storage == Storage.HEAP)
+                {
+                    if (singlePrecision)
+                        floatChunks[c] = new float[chunkLength];
+                    else
+                        doubleChunks[c] = new double[chunkLength];
+                    continue;
+                }
+
+                ByteBuffer buffer;
+                if (storage == Storage.OFF_HEAP)
+                    buffer = ByteBuffer.allocateDirect(chunkLength * bytes);
+                else
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset * bytes, (long) chunkLength * bytes);
+                buffer.order(ByteOrder.nativeOrder());
+                if (singlePrecision)
+                    floatBuffers[c] = buffer.asFloatBuffer();
+                else
+                    doubleBuffers[c] = buffer.asDoubleBuffer();
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+        finally
+        {
+            //the mappings stay valid after the file is closed
+            if (file != null)
+                try
+                {
+                    file.close();
+                }
+                catch (IOException ex)
+                {
+                    Logger.getLogger(CondensedDistanceMatrix.class.getName()).log(Level.SEVERE, null, ex);
+                }
+        }
+    }
+
+    /**
+     * Computes the distance between two points by their index
+     */
+    private interface PairDistance
+    {
+        public double dist(int i, int j);
+    }
+
+    /**
+     * Creates the distance matrix for all the points in a data set, stored on
+     * the heap. The rows of the matrix are computed in parallel blocks of
+     * roughly equal size.
+     *
+     * @param dataSet the data set to create the distance matrix for
+     * @param cd the dissimilarity measure to get the distance between two
+     * points from
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     * @param threadPool the source of threads for computing the distances, or
+     * {@code null} to compute them in the calling thread
+     * @return the distance matrix for the data set
+     */
+    public static CondensedDistanceMatrix create(DataSet dataSet, ClusterDissimilarity cd, boolean singlePrecision, ExecutorService threadPool)
+    {
+        return create(dataSet, cd, singlePrecision, Storage.HEAP, threadPool);
+    }
+
+    /**
+     * Creates the distance matrix for all the points in a data set. The rows
+     * of the matrix are computed in parallel blocks of roughly equal size.
+     *
+     * @param dataSet the data set to create the distance matrix for
+     * @param cd the dissimilarity measure to get the distance between two
+     * points from
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     * @param storage where to store the distances
+     * @param threadPool the source of threads for computing the distances, or
+     * {@code null} to compute them in the calling thread
+     * @return the distance matrix for the data set
+     */
+    public static CondensedDistanceMatrix create(final DataSet dataSet, final ClusterDissimilarity cd, boolean singlePrecision, Storage storage, ExecutorService threadPool)
+    {
+        CondensedDistanceMatrix matrix = new CondensedDistanceMatrix(dataSet.getSampleSize(), singlePrecision, storage);
+        matrix.fill(new PairDistance()
+        {
+            @Override
+            public double dist(int i, int j)
+            {
+                return cd.distance(dataSet.getDataPoint(i), dataSet.getDataPoint(j));
+            }
+        }, threadPool);
+        return matrix;
+    }
+
+    /**
+     * Creates the distance matrix for all the points in a data set, using the
+     * acceleration cache of the distance metric. The rows of the matrix are
+     * computed in parallel blocks of roughly equal size.
+     *
+     * @param dataSet the data set to create the distance matrix for
+     * @param dm the symmetric distance metric to use
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     * @param storage where to store the distances
+     * @param threadPool the source of threads for computing the distances, or
+     * {@code null} to compute them in the calling thread
+     * @return the distance matrix for the data set
+     */
+    public static CondensedDistanceMatrix create(DataSet dataSet, DistanceMetric dm, boolean singlePrecision, Storage storage, ExecutorService threadPool)
+    {
+        return create(dataSet.getDataVectors(), dm, singlePrecision, storage, threadPool);
+    }
+
+    /**
+     * Creates the distance matrix for a list of vectors, using the
+     * acceleration cache of the distance metric. The rows of the matrix are
+     * computed in parallel blocks of roughly equal size.
+     *
+     * @param vecs the vectors to create the distance matrix for
+     * @param dm the symmetric distance metric to use
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s, or {@code false} to store them as {@code double}s
+     * @param storage where to store the distances
+     * @param threadPool the source of threads for computing the distances, or
+     * {@code null} to compute them in the calling thread
+     * @return the distance matrix for the vectors
+     */
+    public static CondensedDistanceMatrix create(final List<? extends Vec> vecs, final DistanceMetric dm, boolean singlePrecision, Storage storage, ExecutorService threadPool)
+    {
+        if(!dm.isSymmetric())
+            throw new IllegalArgumentException("A condensed distance matrix requires a symmetric distance metric");
+        final List<Double> cache;
+        if(threadPool == null || threadPool instanceof FakeExecutor)
+            cache = dm.getAccelerationCache(vecs);
+        else
+            cache = dm.getAccelerationCache(vecs, threadPool);
+        CondensedDistanceMatrix matrix = new CondensedDistanceMatrix(vecs.size(), singlePrecision, storage);
+        matrix.fill(new PairDistance()
+        {
+            @Override
+            public double dist(int i, int j)
+            {
+                return dm.dist(i, j, vecs, cache);
+            }
+        }, threadPool);
+        return matrix;
+    }
+
+    /**
+     * Computes every distance in the matrix
+     */
+    private void fill(final PairDistance pd, ExecutorService threadPool)
+    {
+        final int N = n;
+        if(threadPool == null || threadPool instanceof FakeExecutor)
+        {
+            fillRows(pd, 0, N);
+            return;
+        }
+
+        //row i has N-i-1 values, so give each block about the same number of values rather than rows
+        final int blocks = SystemInfo.LogicalCores * 4;
+        final double perBlock = Math.max(length() / (double) blocks, 1);
+        final CountDownLatch latch = new CountDownLatch(blocks);
+        int start = 0;
+        long valuesSoFar = 0;
+        for(int b = 0; b < blocks; b++)
+        {
+            int end = start;
+            if(b == blocks - 1)
+                end = N;
+            else
+                while(end < N && valuesSoFar < perBlock * (b + 1))
+                    valuesSoFar += N - end++ - 1;
+            final int Start = start;
+            final int End = end;
+            start = end;
+            threadPool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    fillRows(pd, Start, End);
+                    latch.countDown();
+                }
+            });
+        }
+
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(CondensedDistanceMatrix.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Computes the distances for the rows in the range [start, end)
+     */
+    private void fillRows(PairDistance pd, int start, int end)
+    {
+        for(int i = start; i < Math.min(end, n - 1); i++)//the last row is empty
+        {
+            long index = index(i, i + 1);
+            for(int j = i + 1; j < n; j++)
+                setIndex(index++, pd.dist(i, j));
+        }
+    }
+
+    /**
+     * Creates a copy of this matrix with the same precision and storage
+     * @return a copy of this matrix
+     */
+    public CondensedDistanceMatrix copy()
+    {
+        CondensedDistanceMatrix copy = new CondensedDistanceMatrix(n, singlePrecision, storage);
+        long length = length();
+        for(long index = 0; index < length; index++)
+            copy.setIndex(index, getIndex(index));
+        return copy;
+    }
+
+    /**
+     * Creates a new matrix, stored on the heap, of the distances between a
+     * subset of the points in this matrix. Point {@code k} of the new matrix
+     * is point {@code rows[k]} of this one.
+     *
+     * @param rows the indices of the points to keep
+     * @return the distance matrix of the given points
+     */
+    public CondensedDistanceMatrix subset(int[] rows)
+    {
+        CondensedDistanceMatrix sub = new CondensedDistanceMatrix(rows.length, singlePrecision);
+        for(int i = 0; i < rows.length; i++)
+            for(int j = i + 1; j < rows.length; j++)
+                sub.set(i, j, get(rows[i], rows[j]));
+        return sub;
+    }
+
+    /**
+     * Returns the distances as a staggered array, where {@code [i][j-i-1]} is
+     * the distance between points {@code i < j}. This is the layout used by
+     * {@link AbstractClusterDissimilarity#createDistanceMatrix(jsat.DataSet, jsat.clustering.dissimilarity.ClusterDissimilarity) }.
+     * The matrix must be small enough to fit in arrays on the heap.
+     *
+     * @return the staggered array of distances
+     */
+    public double[][] toStaggeredArray()
+    {
+        double[][] distances = new double[n][];
+        for(int i = 0; i < n; i++)
+        {
+            distances[i] = new double[n - i - 1];
+            if(distances[i].length == 0)
+                continue;
+            long index = index(i, i + 1);
+            for(int j = 0; j < distances[i].length; j++)
+                distances[i][j] = getIndex(index++);
+        }
+        return distances;
+    }
+
+    /**
+     * Returns the number of points in this matrix
+     * @return the number of points in this matrix
+     */
+    public int size()
+    {
+        return n;
+    }
+
+    /**
+     * Returns the number of distances stored, which is
+     * <i>n</i>(<i>n</i>-1)/2
+     * @return the number of distances stored
+     */
+    public long length()
+    {
+        return (long) n * (n - 1) / 2;
+    }
+
+    /**
+     * Returns {@code true} if the distances are stored as {@code float}s
+     * @return {@code true} if the distances are stored as {@code float}s
+     */
+    public boolean isSinglePrecision()
+    {
+        return singlePrecision;
+    }
+
+    /**
+     * Returns where the distances are stored
+     * @return where the distances are stored
+     */
+    public Storage getStorage()
+    {
+        return storage;
+    }
+
+    /**
+     * Returns the distance between two points
+     * @param i the index of the first point
+     * @param j the index of the second point
+     * @return the distance between the two points, which is zero if
+     * {@code i == j}
+     */
+    public double get(int i, int j)
+    {
+        if(i == j)
+            return 0;
+        return getIndex(i < j ? index(i, j) : index(j, i));
+    }
+
+    /**
+     * Sets the distance between two different points
+     * @param i the index of the first point
+     * @param j the index of the second point
+     * @param dist the new distance between the points
+     */
+    public void set(int i, int j, double dist)
+    {
+        if(i == j)
+            throw new IllegalArgumentException("The distance from a point to itself can not be set");
+        setIndex(i < j ? index(i, j) : index(j, i), dist);
+    }
+
+    private double getIndex(long index)
+    {
+        int c = (int) (index >>> CHUNK_SHIFT);
+        int pos = (int) (index & CHUNK_MASK);
+        if(doubleChunks != null)
+            return doubleChunks[c][pos];
+        else if(floatChunks != null)
+            return floatChunks[c][pos];
+        else if(doubleBuffers != null)
+            return doubleBuffers[c].get(pos);
+        else
+            return floatBuffers[c].get(pos);
+    }
+
+    private void setIndex(long index, double dist)
+    {
+        int c = (int) (index >>> CHUNK_SHIFT);
+        int pos = (int) (index & CHUNK_MASK);
+        if(doubleChunks != null)
+            doubleChunks[c][pos] = dist;
+        else if(floatChunks != null)
+            floatChunks[c][pos] = (float) dist;
+        else if(doubleBuffers != null)
+            doubleBuffers[c].put(pos, dist);
+        else
+            floatBuffers[c].put(pos, (float) dist);
+    }
+
+    /**
+     * Returns the index in the condensed storage of the distance between
+     * points {@code i < j}
+     */
+    private long index(int i, int j)
+    {
+        if(i < 0 || j >= n)
+            throw new IndexOutOfBoundsException("Points " + i + " and " + j + " are not in a matrix of " + n + " points");
+        return (long) i * n - (long) i * (i + 1) / 2 + (j - i - 1);
+    }
+}
@@ -4,6 +4,7 @@ package jsat.clustering.evaluation.intra;
 import java.util.List;
 import jsat.DataSet;
 import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
 
@@ -16,6 +17,7 @@ import jsat.linear.distancemetrics.EuclideanDistance;
 public class MaxDistance implements IntraClusterEvaluation
 {
     private DistanceMetric dm;
+    private CondensedDistanceMatrix distanceMatrix;
 
     /**
      * Creates a new MaxDistance measure using the {@link EuclideanDistance}
@@ -40,22 +42,60 @@ public class MaxDistance implements IntraClusterEvaluation
     public MaxDistance(MaxDistance toCopy)
     {
         this(toCopy.dm.clone());
+        this.distanceMatrix = toCopy.distanceMatrix;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be evaluated with
+     * {@link #evaluate(int[], jsat.DataSet, int) }, so that the distances are
+     * not computed again for every cluster. The matrix must have been
+     * created with the same distance metric, and have one point for every
+     * point in the data set.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * evaluated, or {@code null} to compute distances as they are needed
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed as they are needed
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
     }
     
     @Override
     public double evaluate(int[] designations, DataSet dataSet, int clusterID)
     {
+        if (distanceMatrix != null && distanceMatrix.size() != dataSet.getSampleSize())
+            throw new IllegalArgumentException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + dataSet.getSampleSize());
         double maxDistance = 0;
         for (int i = 0; i < dataSet.getSampleSize(); i++)
+        {
+            if (designations[i] != clusterID)
+                continue;
             for (int j = i + 1; j < dataSet.getSampleSize(); j++)
-                if (designations[i] == clusterID)
-                    maxDistance = Math.max(
-                            dm.dist(dataSet.getDataPoint(i).getNumericalValues(),
-                                    dataSet.getDataPoint(j).getNumericalValues()),
-                            maxDistance);
+                if (designations[j] == clusterID)
+                    maxDistance = Math.max(dist(i, j, dataSet), maxDistance);
+        }
         return maxDistance;
     }
 
+    private double dist(int i, int j, DataSet dataSet)
+    {
+        if (distanceMatrix != null)
+            return distanceMatrix.get(i, j);
+        return dm.dist(dataSet.getDataPoint(i).getNumericalValues(),
+                       dataSet.getDataPoint(j).getNumericalValues());
+    }
+
     @Override
     public double evaluate(List<DataPoint> dataPoints)
     {
@@ -3,6 +3,7 @@ package jsat.clustering.evaluation.intra;
 import java.util.List;
 import jsat.DataSet;
 import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
 
@@ -15,6 +16,7 @@ import jsat.linear.distancemetrics.EuclideanDistance;
 public class MeanDistance implements IntraClusterEvaluation
 {
     private DistanceMetric dm;
+    private CondensedDistanceMatrix distanceMatrix;
 
     /**
      * Creates a new MeanDistance using the {@link EuclideanDistance}
@@ -40,18 +42,62 @@ public class MeanDistance implements IntraClusterEvaluation
     public MeanDistance(MeanDistance toCopy)
     {
         this(toCopy.dm.clone());
+        this.distanceMatrix = toCopy.distanceMatrix;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be evaluated with
+     * {@link #evaluate(int[], jsat.DataSet, int) }, so that the distances are
+     * not computed again for every cluster. The matrix must have been
+     * created with the same distance metric, and have one point for every
+     * point in the data set.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * evaluated, or {@code null} to compute distances as they are needed
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed as they are needed
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
     }
     
     @Override
     public double evaluate(int[] designations, DataSet dataSet, int clusterID)
     {
+        if (distanceMatrix != null && distanceMatrix.size() != dataSet.getSampleSize())
+            throw new IllegalArgumentException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + dataSet.getSampleSize());
         double distances = 0;
+        int N = 0;
         for (int i = 0; i < dataSet.getSampleSize(); i++)
+        {
+            if (designations[i] != clusterID)
+                continue;
+            N++;
             for (int j = i + 1; j < dataSet.getSampleSize(); j++)
-                if (designations[i] == clusterID)
-                    distances += dm.dist(dataSet.getDataPoint(i).getNumericalValues(),
-                                         dataSet.getDataPoint(j).getNumericalValues());
-        return distances/(dataSet.getSampleSize()*(dataSet.getSampleSize()-1));
+                if (designations[j] == clusterID)
+                    distances += dist(i, j, dataSet);
+        }
+        if (N < 2)
+            return 0;
+        return distances/(N*(N-1));
+    }
+
+    private double dist(int i, int j, DataSet dataSet)
+    {
+        if (distanceMatrix != null)
+            return distanceMatrix.get(i, j);
+        return dm.dist(dataSet.getDataPoint(i).getNumericalValues(),
+                       dataSet.getDataPoint(j).getNumericalValues());
     }
 
     @Override
@@ -62,7 +108,8 @@ public class MeanDistance implements IntraClusterEvaluation
             for(int j = i+1; j < dataPoints.size(); j++ )
                 distances += dm.dist(dataPoints.get(i).getNumericalValues(),
                                      dataPoints.get(j).getNumericalValues());
-        
+        if(dataPoints.size() < 2)
+            return 0;
         return distances/(dataPoints.size()*(dataPoints.size()-1));
     }
 
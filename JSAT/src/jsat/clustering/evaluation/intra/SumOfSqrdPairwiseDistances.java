@@ -4,6 +4,7 @@ import java.util.List;
 import jsat.DataSet;
 import jsat.SimpleDataSet;
 import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.linear.distancemetrics.DistanceMetric;
@@ -23,6 +24,7 @@ import jsat.linear.distancemetrics.EuclideanDistance;
 public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
 {
     private DistanceMetric dm;
+    private CondensedDistanceMatrix distanceMatrix;
 
     /**
      * Creates a new evaluator that uses the Euclidean distance
@@ -49,6 +51,34 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
     public SumOfSqrdPairwiseDistances(SumOfSqrdPairwiseDistances toCopy)
     {
         this(toCopy.dm.clone());
+        this.distanceMatrix = toCopy.distanceMatrix;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be evaluated with
+     * {@link #evaluate(int[], jsat.DataSet, int) }, so that the distances are
+     * not computed again for every cluster. The matrix is not used with the
+     * {@link EuclideanDistance}, which has a faster special case. The matrix must have been
+     * created with the same distance metric, and have one point for every
+     * point in the data set.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * evaluated, or {@code null} to compute distances as they are needed
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed as they are needed
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
     }
 
     /**
@@ -72,11 +102,17 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
     
     @Override
     public double evaluate(int[] designations, DataSet dataSet, int clusterID)
+    {
+        if (distanceMatrix != null && distanceMatrix.size() != dataSet.getSampleSize())
+            throw new IllegalArgumentException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + dataSet.getSampleSize());
+        return evaluate(designations, dataSet, clusterID, distanceMatrix);
+    }
+
+    private double evaluate(int[] designations, DataSet dataSet, int clusterID, CondensedDistanceMatrix distanceMatrix)
     {
         int N = 0;
         double sum = 0;
         List<Vec> X = dataSet.getDataVectors();
-        List<Double> cache = dm.getAccelerationCache(X);
 
         if (dm instanceof EuclideanDistance)//special case, can compute in O(N) isntead
         {
@@ -90,6 +126,7 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
             }
             mean.mutableDivide((N + 1e-10));//1e-10 incase N=0
 
+            List<Double> cache = dm.getAccelerationCache(X);
             List<Double> qi = dm.getQueryInfo(mean);
             for (int i = 0; i < dataSet.getSampleSize(); i++)
             {
@@ -100,6 +137,7 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
             return sum;
         }
         //regulare case, O(N^2)
+        List<Double> cache = distanceMatrix == null ? dm.getAccelerationCache(X) : null;
 
         for (int i = 0; i < dataSet.getSampleSize(); i++)
         {
@@ -110,7 +148,7 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
             for (int j = i + 1; j < dataSet.getSampleSize(); j++)
             {
                 if (designations[j] == clusterID)
-                    sum += 2*Math.pow(dm.dist(i, j, X, cache), 2);
+                    sum += 2*Math.pow(distanceMatrix == null ? dm.dist(i, j, X, cache) : distanceMatrix.get(i, j), 2);
             }
         }
 
@@ -120,7 +158,7 @@ public class SumOfSqrdPairwiseDistances implements IntraClusterEvaluation
     @Override
     public double evaluate(List<DataPoint> dataPoints)
     {
-        return evaluate(new int[dataPoints.size()], new SimpleDataSet(dataPoints), 0);
+        return evaluate(new int[dataPoints.size()], new SimpleDataSet(dataPoints), 0, null);
     }
 
     @Override
@@ -0,0 +1,170 @@
+package jsat.clustering.hierarchical;
+
+import java.util.Arrays;
+import jsat.math.OnLineStatistics;
+import jsat.utils.IndexTable;
+
+/**
+ * Stores the sequence of merges performed by a hierarchical agglomerative
+ * clustering algorithm, so that a clustering of any size can be obtained
+ * without clustering the data again. Each cluster is represented by the index
+ * of one of its data points. A merge records the point representing the
+ * cluster that was merged in and is no longer its own cluster, the point
+ * representing the cluster it was merged into, and the dissimilarity at which
+ * the merge happened.
+ *
+ * @author Edward Raff
+ */
+class MergeHistory
+{
+    private final int n;
+    private int[] absorbed;
+    private int[] kept;
+    private double[] dissimilarity;
+    private int count;
+
+    /**
+     * Creates a new empty merge history
+     * @param n the number of data points being clustered
+     */
+    public MergeHistory(int n)
+    {
+        this.n = n;
+        absorbed = new int[Math.max(n - 1, 0)];
+        kept = new int[absorbed.length];
+        dissimilarity = new double[absorbed.length];
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public MergeHistory(MergeHistory toCopy)
+    {
+        this.n = toCopy.n;
+        this.absorbed = Arrays.copyOf(toCopy.absorbed, toCopy.absorbed.length);
+        this.kept = Arrays.copyOf(toCopy.kept, toCopy.kept.length);
+        this.dissimilarity = Arrays.copyOf(toCopy.dissimilarity, toCopy.dissimilarity.length);
+        this.count = toCopy.count;
+    }
+
+    /**
+     * Records the next merge
+     * @param absorbedPoint the point representing the cluster that is no
+     * longer its own cluster
+     * @param keptPoint the point representing the cluster that was merged into
+     * @param diss the dissimilarity of the two clusters
+     */
+    public void add(int absorbedPoint, int keptPoint, double diss)
+    {
+        absorbed[count] = absorbedPoint;
+        kept[count] = keptPoint;
+        dissimilarity[count] = diss;
+        count++;
+    }
+
+    /**
+     * Returns the number of merges recorded
+     * @return the number of merges recorded
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the dissimilarity of the given merge
+     * @param i the index of the merge
+     * @return the dissimilarity of the merge
+     */
+    public double getDissimilarity(int i)
+    {
+        return dissimilarity[i];
+    }
+
+    /**
+     * Sorts the merges into increasing order of dissimilarity, keeping the
+     * current order of merges with the same dissimilarity. Algorithms that do
+     * not find the merges in order, like the nearest neighbor chain, must
+     * call this before the history is used. For a reducible linkage this
+     * results in a valid merge sequence.
+     */
+    public void sortByDissimilarity()
+    {
+        IndexTable it = new IndexTable(Arrays.copyOf(dissimilarity, count));
+        int[] newAbsorbed = new int[absorbed.length];
+        int[] newKept = new int[kept.length];
+        double[] newDissimilarity = new double[dissimilarity.length];
+        for(int i = 0; i < count; i++)
+        {
+            newAbsorbed[i] = absorbed[it.index(i)];
+            newKept[i] = kept[it.index(i)];
+            newDissimilarity[i] = dissimilarity[it.index(i)];
+        }
+        absorbed = newAbsorbed;
+        kept = newKept;
+        dissimilarity = newDissimilarity;
+    }
+
+    /**
+     * Chooses the number of clusters in the given range as the one that
+     * precedes the most abnormal jump in dissimilarity from a merge.
+     * @param lowK the minimum number of clusters
+     * @param highK the maximum number of clusters
+     * @return the number of clusters to use
+     */
+    public int chooseClusterCount(int lowK, int highK)
+    {
+        OnLineStatistics distChange = new OnLineStatistics();
+        int clusterSize = lowK;
+        double maxStndDevs = Double.MIN_VALUE;
+        for(int k = 0; k < count; k++)
+        {
+            double dk = dissimilarity[k];
+            distChange.add(dk);
+            if( (n - k) >= lowK && (n - k) <= highK)//IN the cluster window?
+            {
+                double stndDevs = (dk - distChange.getMean()) / distChange.getStandardDeviation();
+                if(stndDevs > maxStndDevs)
+                {
+                    maxStndDevs = stndDevs;
+                    clusterSize = n - k;
+                }
+            }
+        }
+        return clusterSize;
+    }
+
+    /**
+     * Assigns every data point to the cluster it belongs to once the last
+     * {@code clusters-1} merges are undone
+     * @param designations the array to store the designations in, or
+     * {@code null} to create a new one
+     * @param clusters the number of clusters desired
+     * @return the array storing the designations
+     */
+    public int[] assignClusterDesignations(int[] designations, int clusters)
+    {
+        if(designations == null)
+            designations = new int[n];
+        Arrays.fill(designations, -1);
+        int curCluster = 0;
+        //go from the last merge to the first, so every kept point has a cluster before the points merged into it
+        for(int k = count - 1; k >= 0; k--)
+        {
+            if(designations[kept[k]] == -1)
+                designations[kept[k]] = curCluster++;
+            if(designations[absorbed[k]] == -1)
+            {
+                if(count - k < clusters)//this merge is undone
+                    designations[absorbed[k]] = curCluster++;
+                else
+                    designations[absorbed[k]] = designations[kept[k]];
+            }
+        }
+        for(int i = 0; i < n; i++)//only happens when there are no merges
+            if(designations[i] == -1)
+                designations[i] = curCluster++;
+        return designations;
+    }
+}
@@ -0,0 +1,540 @@
+package jsat.clustering.hierarchical;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.classifiers.DataPoint;
+import jsat.clustering.ClusterFailureException;
+import jsat.clustering.KClustererBase;
+import jsat.clustering.dissimilarity.CentroidDissimilarity;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
+import jsat.clustering.dissimilarity.UpdatableClusterDissimilarity;
+import jsat.clustering.dissimilarity.WardsDissimilarity;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.utils.FakeExecutor;
+import jsat.utils.SystemInfo;
+
+/**
+ * Hierarchical agglomerative clustering using the nearest neighbor chain
+ * algorithm. The chain follows nearest neighbors from cluster to cluster until
+ * it reaches two clusters that are each other's nearest neighbor, which are
+ * then merged. For a reducible linkage, such as single, complete, average, and
+ * Ward's linkage, this produces the same dendrogram as merging the globally
+ * closest pair of clusters at each step, but takes only O(n<sup>2</sup>)
+ * time. <br>
+ * <br>
+ * The dissimilarity between clusters is kept up to date with the
+ * Lance–Williams update of a {@link CondensedDistanceMatrix}, which needs
+ * O(n<sup>2</sup>) memory. The matrix may be stored as {@code float}s to halve
+ * the memory used, and outside of the heap to cluster data sets whose matrix
+ * would not fit in it. When using {@link WardsDissimilarity} the matrix is not
+ * needed, and the dissimilarity of two clusters is computed directly from
+ * their centroids and sizes, so only O(n) memory is used. <br>
+ * <br>
+ * The distance matrix, the search for the nearest neighbor, and the update of
+ * the dissimilarities after a merge are all done in parallel when a thread
+ * pool is given. <br>
+ * See: Müllner, D. (2011). <i>Modern hierarchical, agglomerative clustering
+ * algorithms</i>. arXiv:1109.2378
+ *
+ * @author Edward Raff
+ */
+public class NNChainHAC extends KClustererBase
+{
+    /**
+     * The number of active clusters below which the nearest neighbor search
+     * and updates are done in the calling thread
+     */
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private UpdatableClusterDissimilarity distMeasure;
+    private boolean singlePrecision = false;
+    private CondensedDistanceMatrix.Storage storage = CondensedDistanceMatrix.Storage.HEAP;
+    private CondensedDistanceMatrix distanceMatrix;
+    private MergeHistory merges;
+    private DataSet curDataSet;
+
+    /**
+     * Creates a new nearest neighbor chain clusterer
+     * @param dissMeasure the dissimilarity measure to use, which must be
+     * reducible
+     */
+    public NNChainHAC(UpdatableClusterDissimilarity dissMeasure)
+    {
+        if(dissMeasure instanceof CentroidDissimilarity)
+            throw new IllegalArgumentException("The centroid dissimilarity is not reducible, and can not be used with the nearest neighbor chain");
+        this.distMeasure = dissMeasure;
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public NNChainHAC(NNChainHAC toCopy)
+    {
+        this.distMeasure = toCopy.distMeasure.clone();
+        this.singlePrecision = toCopy.singlePrecision;
+        this.storage = toCopy.storage;
+        this.distanceMatrix = toCopy.distanceMatrix;
+        if(toCopy.merges != null)
+            this.merges = new MergeHistory(toCopy.merges);
+        if(toCopy.curDataSet != null)
+            this.curDataSet = toCopy.curDataSet.shallowClone();
+    }
+
+    /**
+     * Sets whether the distance matrix should be stored as {@code float}s
+     * instead of {@code double}s, which halves the memory used at the cost of
+     * precision.
+     * @param singlePrecision {@code true} to store the distances as
+     * {@code float}s
+     */
+    public void setSinglePrecision(boolean singlePrecision)
+    {
+        this.singlePrecision = singlePrecision;
+    }
+
+    /**
+     * Returns {@code true} if the distance matrix is stored as {@code float}s
+     * @return {@code true} if the distance matrix is stored as {@code float}s
+     */
+    public boolean isSinglePrecision()
+    {
+        return singlePrecision;
+    }
+
+    /**
+     * Sets where the distance matrix is stored
+     * @param storage where to store the distance matrix
+     */
+    public void setStorage(CondensedDistanceMatrix.Storage storage)
+    {
+        this.storage = storage;
+    }
+
+    /**
+     * Returns where the distance matrix is stored
+     * @return where the distance matrix is stored
+     */
+    public CondensedDistanceMatrix.Storage getStorage()
+    {
+        return storage;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be clustered, so that they do not need to be
+     * computed with the dissimilarity measure. The merges overwrite the
+     * distances, so a copy of the matrix is used, with the matrix's own
+     * precision and storage. The matrix is not used with
+     * {@link WardsDissimilarity}, which does not need one. The matrix must
+     * have been created with the same dissimilarity measure, and a
+     * {@link ClusterFailureException} is thrown if it does not have one point
+     * for every point in the data set clustered.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * clustered, or {@code null} to compute the distances
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed when clustering
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int[] designations)
+    {
+        return cluster(dataSet, 2, (int)Math.sqrt(dataSet.getSampleSize()), designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, ExecutorService threadpool, int[] designations)
+    {
+        return cluster(dataSet, 2, (int)Math.sqrt(dataSet.getSampleSize()), threadpool, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int clusters, ExecutorService threadpool, int[] designations)
+    {
+        return cluster(dataSet, clusters, clusters, threadpool, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int clusters, int[] designations)
+    {
+        return cluster(dataSet, clusters, clusters, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int lowK, int highK, int[] designations)
+    {
+        return cluster(dataSet, lowK, highK, new FakeExecutor(), designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int lowK, int highK, ExecutorService threadpool, int[] designations)
+    {
+        if(threadpool == null)
+            threadpool = new FakeExecutor();
+        this.curDataSet = dataSet;
+        final int N = dataSet.getSampleSize();
+        merges = new MergeHistory(N);
+
+        int[] size = new int[N];
+        //the active clusters, and the position of each in the active array
+        int[] active = new int[N];
+        int[] pos = new int[N];
+        for(int i = 0; i < N; i++)
+        {
+            size[i] = 1;
+            active[i] = pos[i] = i;
+        }
+
+        Linkage linkage;
+        if(distMeasure instanceof WardsDissimilarity)
+            linkage = new WardLinkage(dataSet, size);
+        else if(distanceMatrix != null)
+        {
+            if(distanceMatrix.size() != N)
+                throw new ClusterFailureException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + N);
+            linkage = new MatrixLinkage(distanceMatrix.copy(), size);
+        }
+        else
+            linkage = new MatrixLinkage(CondensedDistanceMatrix.create(dataSet, distMeasure, singlePrecision, storage, threadpool), size);
+        int activeCount = N;
+
+        int[] chain = new int[N];
+        int chainLength = 0;
+        while(activeCount > 1)
+        {
+            if(chainLength == 0)
+                chain[chainLength++] = active[0];
+            int a = chain[chainLength-1];
+            int prev = chainLength > 1 ? chain[chainLength-2] : -1;
+
+            int c = nearest(linkage, a, prev, active, activeCount, threadpool);
+            if(c != prev)
+            {
+                chain[chainLength++] = c;
+                continue;
+            }
+
+            //a and prev are reciprocal nearest neighbors, merge them
+            chainLength -= 2;
+            int keep = Math.min(a, prev);
+            int absorb = Math.max(a, prev);
+            merges.add(absorb, keep, linkage.dist(a, prev));
+
+            //take both clusters out of the active list, so the update only visits the other clusters
+            int moved = active[--activeCount];
+            active[pos[absorb]] = moved;
+            pos[moved] = pos[absorb];
+            int keepPos = pos[keep];
+            active[keepPos] = active[--activeCount];
+            pos[active[keepPos]] = keepPos;
+
+            linkage.merge(keep, absorb, active, activeCount, threadpool);
+            size[keep] += size[absorb];
+            size[absorb] = 0;
+
+            active[activeCount] = keep;
+            pos[keep] = activeCount++;
+        }
+
+        merges.sortByDissimilarity();
+        int clusterSize = merges.chooseClusterCount(lowK, highK);
+        return merges.assignClusterDesignations(designations, clusterSize);
+    }
+
+    /**
+     * Finds the nearest active cluster to cluster {@code a}. Ties are broken
+     * in favor of {@code prev}, and then by position in the active array, so
+     * that the chain always terminates and the result does not depend on the
+     * number of threads.
+     */
+    private int nearest(final Linkage linkage, final int a, final int prev, final int[] active, final int activeCount, ExecutorService threadpool)
+    {
+        int best = prev;
+        double bestDist = prev >= 0 ? linkage.dist(a, prev) : Double.POSITIVE_INFINITY;
+
+        if(activeCount < PARALLEL_THRESHOLD || threadpool instanceof FakeExecutor)
+        {
+            for(int i = 0; i < activeCount; i++)
+            {
+                int x = active[i];
+                if(x == a)
+                    continue;
+                double d = linkage.dist(a, x);
+                if(d < bestDist || best < 0)
+                {
+                    bestDist = d;
+                    best = x;
+                }
+            }
+            return best;
+        }
+
+        final int blocks = SystemInfo.LogicalCores;
+        final int[] blockBest = new int[blocks];
+        final double[] blockDist = new double[blocks];
+        final CountDownLatch latch = new CountDownLatch(blocks);
+        for(int b = 0; b < blocks; b++)
+        {
+            final int ID = b;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    int localBest = -1;
+                    double localDist = Double.POSITIVE_INFINITY;
+                    for(int i = ID*activeCount/blocks; i < (ID+1)*activeCount/blocks; i++)
+                    {
+                        int x = active[i];
+                        if(x == a)
+                            continue;
+                        double d = linkage.dist(a, x);
+                        if(d < localDist || localBest < 0)
+                        {
+                            localDist = d;
+                            localBest = x;
+                        }
+                    }
+                    blockBest[ID] = localBest;
+                    blockDist[ID] = localDist;
+                    latch.countDown();
+                }
+            });
+        }
+
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(NNChainHAC.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        for(int b = 0; b < blocks; b++)
+            if(blockBest[b] >= 0 && (blockDist[b] < bestDist || best < 0))
+            {
+                bestDist = blockDist[b];
+                best = blockBest[b];
+            }
+        return best;
+    }
+
+    /**
+     * Returns {@code true} if there is currently a data set and its merge
+     * order stored, so that clusterings of other sizes can be obtained with
+     * {@link #getClusterDesignations(int[], int) } without clustering the data
+     * set again.
+     *
+     * @return <tt>true</tt> if you can call for more clusterings,
+     * <tt>false</tt> if no data set has been clustered.
+     */
+    public boolean hasStoredClustering()
+    {
+        return curDataSet != null;
+    }
+
+    /**
+     * Returns the assignment array for that would have been computed for the
+     * previous data set with the desired number of clusters.
+     *
+     * @param designations the array to store the assignments in
+     * @param clusters the number of clusters desired
+     * @return the original array passed in, or <tt>null</tt> if no data set has been clustered.
+     * @see #hasStoredClustering()
+     */
+    public int[] getClusterDesignations(int[] designations, int clusters)
+    {
+        if(!hasStoredClustering())
+            return null;
+        return merges.assignClusterDesignations(designations, clusters);
+    }
+
+    /**
+     * Returns the clustering that would have been computed for the previous
+     * data set with the desired number of clusters.
+     *
+     * @param clusters the number of clusters desired
+     * @return the list of data points in each cluster, or <tt>null</tt> if no
+     * data set has been clustered.
+     * @see #hasStoredClustering()
+     */
+    public List<List<DataPoint>> getClusterDesignations(int clusters)
+    {
+        if(!hasStoredClustering())
+            return null;
+        int[] assignments = merges.assignClusterDesignations(null, clusters);
+        return createClusterListFromAssignmentArray(assignments, curDataSet);
+    }
+
+    @Override
+    public NNChainHAC clone()
+    {
+        return new NNChainHAC(this);
+    }
+
+    /**
+     * The dissimilarity between clusters, each represented by the index of one
+     * of its points
+     */
+    private static abstract class Linkage
+    {
+        /**
+         * The number of points in each cluster
+         */
+        protected final int[] size;
+
+        public Linkage(int[] size)
+        {
+            this.size = size;
+        }
+
+        /**
+         * Returns the dissimilarity of two clusters
+         * @param a the first cluster
+         * @param b the second cluster
+         * @return the dissimilarity of the two clusters
+         */
+        abstract public double dist(int a, int b);
+
+        /**
+         * Merges two clusters, updating the dissimilarity of the merged
+         * cluster, which will be represented by {@code keep}, to every other
+         * active cluster. The sizes of the clusters are updated by the caller
+         * afterwards.
+         * @param keep the cluster merged into
+         * @param absorb the cluster merged in
+         * @param active the other active clusters
+         * @param activeCount the number of other active clusters
+         * @param threadpool the source of threads
+         */
+        abstract public void merge(int keep, int absorb, int[] active, int activeCount, ExecutorService threadpool);
+    }
+
+    /**
+     * Keeps the dissimilarities in a distance matrix, and updates them with
+     * the Lance–Williams update of the dissimilarity measure
+     */
+    private class MatrixLinkage extends Linkage
+    {
+        private final CondensedDistanceMatrix matrix;
+
+        public MatrixLinkage(CondensedDistanceMatrix matrix, int[] size)
+        {
+            super(size);
+            this.matrix = matrix;
+        }
+
+        @Override
+        public double dist(int a, int b)
+        {
+            return matrix.get(a, b);
+        }
+
+        @Override
+        public void merge(final int keep, final int absorb, final int[] active, final int activeCount, ExecutorService threadpool)
+        {
+            if(activeCount < PARALLEL_THRESHOLD || threadpool instanceof FakeExecutor)
+                update(keep, absorb, active, 0, activeCount);
+            else
+            {
+                final int blocks = SystemInfo.LogicalCores;
+                final CountDownLatch latch = new CountDownLatch(blocks);
+                for(int b = 0; b < blocks; b++)
+                {
+                    final int ID = b;
+                    threadpool.submit(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            update(keep, absorb, active, ID*activeCount/blocks, (ID+1)*activeCount/blocks);
+                            latch.countDown();
+                        }
+                    });
+                }
+                try
+                {
+                    latch.await();
+                }
+                catch (InterruptedException ex)
+                {
+                    Logger.getLogger(NNChainHAC.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+
+        private void update(int keep, int absorb, int[] active, int start, int end)
+        {
+            /*
+             * The dissimilarity measures update from a distance matrix, so give
+             * them one for just the 3 clusters involved, with keep at index 0,
+             * absorb at 1, and the other cluster at 2
+             */
+            double[][] local = new double[][]{new double[2], new double[1]};
+            local[0][0] = matrix.get(keep, absorb);
+            for(int i = start; i < end; i++)
+            {
+                int k = active[i];
+                local[0][1] = matrix.get(keep, k);
+                local[1][0] = matrix.get(absorb, k);
+                matrix.set(keep, k, distMeasure.dissimilarity(0, size[keep], 1, size[absorb], 2, size[k], local));
+            }
+        }
+    }
+
+    /**
+     * Computes Ward's dissimilarity directly from the centroids of the
+     * clusters, which for two clusters A and B is
+     * 2 |A| |B| / (|A| + |B|) ||c<sub>A</sub> - c<sub>B</sub>||<sup>2</sup>.
+     * This is equal to the Lance–Williams update of the squared Euclidean
+     * distance used by {@link WardsDissimilarity}.
+     */
+    private static class WardLinkage extends Linkage
+    {
+        private final Vec[] centroids;
+
+        public WardLinkage(DataSet dataSet, int[] size)
+        {
+            super(size);
+            centroids = new Vec[dataSet.getSampleSize()];
+            for(int i = 0; i < centroids.length; i++)
+                centroids[i] = new DenseVector(dataSet.getDataPoint(i).getNumericalValues());
+        }
+
+        @Override
+        public double dist(int a, int b)
+        {
+            double d = centroids[a].pNormDist(2, centroids[b]);
+            return 2.0 * size[a] * size[b] / (size[a] + size[b]) * d * d;
+        }
+
+        @Override
+        public void merge(int keep, int absorb, int[] active, int activeCount, ExecutorService threadpool)
+        {
+            Vec c = centroids[keep];
+            c.mutableMultiply(size[keep]);
+            c.mutableAdd(size[absorb], centroids[absorb]);
+            c.mutableMultiply(1.0 / (size[keep] + size[absorb]));
+            centroids[absorb] = null;
+        }
+    }
+}
@@ -5,7 +5,10 @@ import java.util.concurrent.ExecutorService;
 import jsat.DataSet;
 import jsat.classifiers.DataPoint;
 import jsat.clustering.KClusterer;
+import jsat.clustering.ClusterFailureException;
 import jsat.clustering.KClustererBase;
+import jsat.clustering.dissimilarity.ClusterDissimilarity;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.clustering.dissimilarity.UpdatableClusterDissimilarity;
 import jsat.math.OnLineStatistics;
 
@@ -29,6 +32,7 @@ public class PriorityHAC extends KClustererBase
      */
     private int[] merges;
     private DataSet curDataSet;
+    private CondensedDistanceMatrix distanceMatrix;
 
     public PriorityHAC(UpdatableClusterDissimilarity dissMeasure)
     {
@@ -45,6 +49,33 @@ public class PriorityHAC extends KClustererBase
         if(toCopy.merges != null)
             this.merges = Arrays.copyOf(toCopy.merges, toCopy.merges.length);
         this.curDataSet = toCopy.curDataSet.shallowClone();
+        this.distanceMatrix = toCopy.distanceMatrix;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be clustered, which is used in place of
+     * computing the distance table with the dissimilarity measure. The
+     * matrix must have been created with the same dissimilarity measure, and
+     * a {@link ClusterFailureException} is thrown if it does not have one
+     * point for every point in the data set clustered.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * clustered, or {@code null} to compute the distances
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed when clustering
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
     }
     
     
@@ -154,7 +185,7 @@ public class PriorityHAC extends KClustererBase
          */
         OnLineStatistics distChange = new OnLineStatistics();
         
-        final double[][] distanceMatrix = createDistanceMatrix(dataSet, distMeasure);
+        final double[][] distanceMatrix = getDistanceTable(dataSet, distMeasure);
         
         //Create priority ques for each data point
         List<IntPriorityQueue> P = setUpProrityQueue(I, distanceMatrix);
@@ -223,6 +254,15 @@ public class PriorityHAC extends KClustererBase
      * This is done so that creating new clusters is accessed in order which is cache friendly. <br>
      * This method must be called once before using {@link #assignClusterDesignations(int[], int) }
      */
+    private double[][] getDistanceTable(DataSet dataSet, ClusterDissimilarity cd)
+    {
+        if(distanceMatrix == null)
+            return createDistanceMatrix(dataSet, cd);
+        if(distanceMatrix.size() != dataSet.getSampleSize())
+            throw new ClusterFailureException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + dataSet.getSampleSize());
+        return distanceMatrix.toStaggeredArray();
+    }
+
     private void reverseMergeArray()
     {
         for(int i = 0; i < merges.length/2; i++)
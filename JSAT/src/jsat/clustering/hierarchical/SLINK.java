@@ -0,0 +1,276 @@
+package jsat.clustering.hierarchical;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.classifiers.DataPoint;
+import jsat.clustering.KClustererBase;
+import jsat.clustering.dissimilarity.SingleLinkDissimilarity;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.FakeExecutor;
+import jsat.utils.IndexTable;
+import jsat.utils.SystemInfo;
+
+/**
+ * Implements the SLINK algorithm for single linkage hierarchical agglomerative
+ * clustering. This produces the same dendrogram as {@link PriorityHAC} or
+ * {@link NNChainHAC} with a {@link SingleLinkDissimilarity}, but takes
+ * O(n<sup>2</sup>) time and only O(n) memory, since the distances between
+ * points are computed as they are needed rather than stored in a matrix. This
+ * allows single linkage clustering of data sets with hundreds of thousands of
+ * points. <br>
+ * <br>
+ * When a thread pool is given, the distances from each new point to the points
+ * before it are computed in parallel. <br>
+ * See: Sibson, R. (1973). <i>SLINK: An optimally efficient algorithm for the
+ * single-link cluster method</i>. The Computer Journal, 16(1), 30–34.
+ *
+ * @author Edward Raff
+ */
+public class SLINK extends KClustererBase
+{
+    /**
+     * The number of distances to compute below which they are computed in
+     * the calling thread
+     */
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private DistanceMetric dm;
+    private MergeHistory merges;
+    private DataSet curDataSet;
+
+    /**
+     * Creates a new SLINK clusterer using the Euclidean distance
+     */
+    public SLINK()
+    {
+        this(new EuclideanDistance());
+    }
+
+    /**
+     * Creates a new SLINK clusterer
+     * @param dm the distance metric between points
+     */
+    public SLINK(DistanceMetric dm)
+    {
+        this.dm = dm;
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public SLINK(SLINK toCopy)
+    {
+        this.dm = toCopy.dm.clone();
+        if(toCopy.merges != null)
+            this.merges = new MergeHistory(toCopy.merges);
+        if(toCopy.curDataSet != null)
+            this.curDataSet = toCopy.curDataSet.shallowClone();
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int[] designations)
+    {
+        return cluster(dataSet, 2, (int)Math.sqrt(dataSet.getSampleSize()), designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, ExecutorService threadpool, int[] designations)
+    {
+        return cluster(dataSet, 2, (int)Math.sqrt(dataSet.getSampleSize()), threadpool, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int clusters, ExecutorService threadpool, int[] designations)
+    {
+        return cluster(dataSet, clusters, clusters, threadpool, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int clusters, int[] designations)
+    {
+        return cluster(dataSet, clusters, clusters, designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int lowK, int highK, int[] designations)
+    {
+        return cluster(dataSet, lowK, highK, new FakeExecutor(), designations);
+    }
+
+    @Override
+    public int[] cluster(DataSet dataSet, int lowK, int highK, ExecutorService threadpool, int[] designations)
+    {
+        if(threadpool == null)
+            threadpool = new FakeExecutor();
+        this.curDataSet = dataSet;
+        final int N = dataSet.getSampleSize();
+        final List<Vec> X = dataSet.getDataVectors();
+        final List<Double> accelCache = threadpool instanceof FakeExecutor ? dm.getAccelerationCache(X) : dm.getAccelerationCache(X, threadpool);
+
+        /*
+         * The pointer representation of the dendrogram: pi[i] is the last
+         * point that i is merged with, and lambda[i] the dissimilarity of that
+         * merge. The last point merged is the only one with a lambda of
+         * infinity.
+         */
+        int[] pi = new int[N];
+        double[] lambda = new double[N];
+        final double[] M = new double[N];
+
+        for(int i = 0; i < N; i++)
+        {
+            pi[i] = i;
+            lambda[i] = Double.POSITIVE_INFINITY;
+            distances(i, X, accelCache, M, threadpool);
+
+            for(int j = 0; j < i; j++)
+            {
+                if(lambda[j] >= M[j])
+                {
+                    M[pi[j]] = Math.min(M[pi[j]], lambda[j]);
+                    lambda[j] = M[j];
+                    pi[j] = i;
+                }
+                else
+                    M[pi[j]] = Math.min(M[pi[j]], M[j]);
+            }
+
+            for(int j = 0; j < i; j++)
+                if(lambda[j] >= lambda[pi[j]])
+                    pi[j] = i;
+        }
+
+        //convert the pointer representation into the sequence of merges
+        merges = new MergeHistory(N);
+        int[] parent = new int[N];
+        for(int i = 0; i < N; i++)
+            parent[i] = i;
+        IndexTable it = new IndexTable(lambda);
+        for(int k = 0; k < N-1; k++)
+        {
+            int i = it.index(k);
+            int absorb = find(parent, i);
+            int keep = find(parent, pi[i]);
+            parent[absorb] = keep;
+            merges.add(absorb, keep, lambda[i]);
+        }
+
+        int clusterSize = merges.chooseClusterCount(lowK, highK);
+        return merges.assignClusterDesignations(designations, clusterSize);
+    }
+
+    /**
+     * Computes the distance from point {@code i} to all the points before it
+     * @param i the point to get the distances from
+     * @param X the vectors of the data set
+     * @param accelCache the acceleration cache of the distance metric
+     * @param M the array to store the distances in
+     * @param threadpool the source of threads
+     */
+    private void distances(final int i, final List<Vec> X, final List<Double> accelCache, final double[] M, ExecutorService threadpool)
+    {
+        if(i < PARALLEL_THRESHOLD || threadpool instanceof FakeExecutor)
+        {
+            for(int j = 0; j < i; j++)
+                M[j] = dm.dist(i, j, X, accelCache);
+            return;
+        }
+
+        final int blocks = SystemInfo.LogicalCores;
+        final CountDownLatch latch = new CountDownLatch(blocks);
+        for(int b = 0; b < blocks; b++)
+        {
+            final int start = b*i/blocks;
+            final int end = (b+1)*i/blocks;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for(int j = start; j < end; j++)
+                        M[j] = dm.dist(i, j, X, accelCache);
+                    latch.countDown();
+                }
+            });
+        }
+
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(SLINK.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private static int find(int[] parent, int i)
+    {
+        while(parent[i] != i)
+        {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Returns {@code true} if there is currently a data set and its merge
+     * order stored, so that clusterings of other sizes can be obtained with
+     * {@link #getClusterDesignations(int[], int) } without clustering the data
+     * set again.
+     *
+     * @return <tt>true</tt> if you can call for more clusterings,
+     * <tt>false</tt> if no data set has been clustered.
+     */
+    public boolean hasStoredClustering()
+    {
+        return curDataSet != null;
+    }
+
+    /**
+     * Returns the assignment array for that would have been computed for the
+     * previous data set with the desired number of clusters.
+     *
+     * @param designations the array to store the assignments in
+     * @param clusters the number of clusters desired
+     * @return the original array passed in, or <tt>null</tt> if no data set has been clustered.
+     * @see #hasStoredClustering()
+     */
+    public int[] getClusterDesignations(int[] designations, int clusters)
+    {
+        if(!hasStoredClustering())
+            return null;
+        return merges.assignClusterDesignations(designations, clusters);
+    }
+
+    /**
+     * Returns the clustering that would have been computed for the previous
+     * data set with the desired number of clusters.
+     *
+     * @param clusters the number of clusters desired
+     * @return the list of data points in each cluster, or <tt>null</tt> if no
+     * data set has been clustered.
+     * @see #hasStoredClustering()
+     */
+    public List<List<DataPoint>> getClusterDesignations(int clusters)
+    {
+        if(!hasStoredClustering())
+            return null;
+        int[] assignments = merges.assignClusterDesignations(null, clusters);
+        return createClusterListFromAssignmentArray(assignments, curDataSet);
+    }
+
+    @Override
+    public SLINK clone()
+    {
+        return new SLINK(this);
+    }
+}
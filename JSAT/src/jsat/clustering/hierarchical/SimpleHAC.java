@@ -6,9 +6,11 @@ import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import jsat.DataSet;
 import jsat.clustering.KClusterer;
+import jsat.clustering.ClusterFailureException;
 import jsat.clustering.KClustererBase;
 import static jsat.clustering.dissimilarity.AbstractClusterDissimilarity.createDistanceMatrix;
 import jsat.clustering.dissimilarity.ClusterDissimilarity;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.math.OnLineStatistics;
 import jsat.utils.IntSet;
 
@@ -32,6 +34,7 @@ public class SimpleHAC extends KClustererBase
      */
     private double stndDevs = 3.5;
     private ClusterDissimilarity dissMeasure;
+    private CondensedDistanceMatrix distanceMatrix;
 
     public SimpleHAC(ClusterDissimilarity disMeasure)
     {
@@ -46,6 +49,33 @@ public class SimpleHAC extends KClustererBase
     {
         this(toCopy.dissMeasure.clone());
         this.stndDevs = toCopy.stndDevs;
+        this.distanceMatrix = toCopy.distanceMatrix;
+    }
+
+    /**
+     * Sets a precomputed matrix of the distances between all the points of
+     * the data sets that will be clustered, which is used in place of
+     * computing the distance table with the dissimilarity measure. The
+     * matrix must have been created with the same dissimilarity measure, and
+     * a {@link ClusterFailureException} is thrown if it does not have one
+     * point for every point in the data set clustered.
+     *
+     * @param distanceMatrix the distance matrix of the data set to be
+     * clustered, or {@code null} to compute the distances
+     */
+    public void setDistanceMatrix(CondensedDistanceMatrix distanceMatrix)
+    {
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * Returns the precomputed distance matrix used, or {@code null} if the
+     * distances are computed when clustering
+     * @return the precomputed distance matrix used
+     */
+    public CondensedDistanceMatrix getDistanceMatrix()
+    {
+        return distanceMatrix;
     }
     
     @Override
@@ -96,7 +126,7 @@ public class SimpleHAC extends KClustererBase
             clusters.add(set);
         }
         
-        double[][] distanceMatrix = createDistanceMatrix(dataSet, dissMeasure);
+        double[][] distanceMatrix = getDistanceTable(dataSet, dissMeasure);
         
         while( clusters.size() > lowK)
         {
@@ -138,6 +168,15 @@ public class SimpleHAC extends KClustererBase
         return designations;
     }
 
+    private double[][] getDistanceTable(DataSet dataSet, ClusterDissimilarity cd)
+    {
+        if(distanceMatrix == null)
+            return createDistanceMatrix(dataSet, cd);
+        if(distanceMatrix.size() != dataSet.getSampleSize())
+            throw new ClusterFailureException("Distance matrix has " + distanceMatrix.size() + " points, but the data set has " + dataSet.getSampleSize());
+        return distanceMatrix.toStaggeredArray();
+    }
+
     @Override
     public SimpleHAC clone()
     {
@@ -0,0 +1,583 @@
+package jsat.clustering.kmeans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.clustering.SeedSelectionMethods;
+import static jsat.clustering.SeedSelectionMethods.selectIntialPoints;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.TrainableDistanceMetric;
+import jsat.utils.DoubleList;
+import jsat.utils.FakeExecutor;
+import jsat.utils.SystemInfo;
+import jsat.utils.random.XORWOW;
+
+/**
+ * An efficient implementation of the K-Means algorithm using the Exponion
+ * bounds. Like {@link HamerlyKMeans}, every point keeps only an upper bound on
+ * the distance to its center and a lower bound on the distance to the second
+ * closest center, using O(n) extra memory. When the bounds fail, rather than
+ * computing the distance to every center, only the centers within a ball
+ * around the point's current center can be the closest or second closest.
+ * The other centers around each center are partially sorted into annuli of
+ * exponentially growing size, so the centers in the ball are found without a
+ * full sort. This takes O(k<sup>2</sup>) memory for the annuli, which does not
+ * grow with the number of points. The exact same solution as the naive
+ * algorithm is obtained. This requires that the {@link DistanceMetric} used
+ * support {@link DistanceMetric#isSubadditive() }.
+ * <br>
+ * <br>
+ * See: Newling, J., &amp; Fleuret, F. (2016). <i>Fast k-means with accurate
+ * bounds</i>. Proceedings of the 33rd International Conference on Machine
+ * Learning (pp. 936–944).
+ *
+ * @author Edward Raff
+ */
+public class ExponionKMeans extends KMeans
+{
+    /**
+     * Creates a new k-Means object
+     * @param dm the distance metric to use for clustering
+     * @param seedSelection the method of initial seed selection
+     * @param rand the source of randomnes to use
+     */
+    public ExponionKMeans(DistanceMetric dm, SeedSelectionMethods.SeedSelection seedSelection, Random rand)
+    {
+        super(dm, seedSelection, rand);
+    }
+
+    /**
+     * Creates a new k-Means object
+     * @param dm the distance metric to use for clustering
+     * @param seedSelection the method of initial seed selection
+     */
+    public ExponionKMeans(DistanceMetric dm, SeedSelectionMethods.SeedSelection seedSelection)
+    {
+        this(dm, seedSelection, new XORWOW());
+    }
+
+    /**
+     * Creates a new k-Means object
+     */
+    public ExponionKMeans()
+    {
+        this(new EuclideanDistance(), SeedSelectionMethods.SeedSelection.KPP);
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public ExponionKMeans(ExponionKMeans toCopy)
+    {
+        super(toCopy);
+    }
+
+    @Override
+    protected double cluster(final DataSet dataSet, List<Double> accelCache, final int k, final List<Vec> means, final int[] assignment, final boolean exactTotal, ExecutorService threadpool, boolean returnError)
+    {
+        final int N = dataSet.getSampleSize();
+        final int D = dataSet.getNumNumericalVars();
+
+        TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
+
+        final List<Vec> X = dataSet.getDataVectors();
+        final List<Double> distAccel;
+        if(accelCache == null)
+        {
+            if(threadpool == null || threadpool instanceof FakeExecutor)
+                distAccel = dm.getAccelerationCache(X);
+            else
+                distAccel = dm.getAccelerationCache(X, threadpool);
+        }
+        else
+            distAccel = accelCache;
+
+        if (means.size() != k)
+        {
+            means.clear();
+            if (threadpool == null || threadpool instanceof FakeExecutor)
+                means.addAll(selectIntialPoints(dataSet, k, dm, distAccel, rand, seedSelection));
+            else
+                means.addAll(selectIntialPoints(dataSet, k, dm, distAccel, rand, seedSelection, threadpool));
+        }
+
+        //Make our means dense
+        for (int i = 0; i < means.size(); i++)
+            if (means.get(i).isSparse())
+                means.set(i, new DenseVector(means.get(i)));
+
+        final List<List<Double>> meanQI = new ArrayList<List<Double>>(k);
+        for (int j = 0; j < k; j++)
+            if (dm.supportsAcceleration())
+                meanQI.add(dm.getQueryInfo(means.get(j)));
+            else
+                meanQI.add(Collections.<Double>emptyList());
+
+        /**
+         * vector sum of all points in each cluster
+         */
+        final Vec[] cP = new Vec[k];
+        final Vec[] tmpVecs = new Vec[k];
+        /**
+         * number of points assigned to each cluster
+         */
+        final AtomicLongArray q = new AtomicLongArray(k);
+        /**
+         * distance each center last moved
+         */
+        final double[] p = new double[k];
+        /**
+         * distance from each center to its closest other center
+         */
+        final double[] s = new double[k];
+        /**
+         * upper bound on the distance between each point and its center
+         */
+        final double[] u = new double[N];
+        /**
+         * lower bound on the distance between each point and its second
+         * closest center
+         */
+        final double[] l = new double[N];
+        /**
+         * the other centers around each center, partially sorted by distance
+         * into annuli
+         */
+        final int[][] annuli = new int[k][k - 1];
+        /**
+         * the end (exclusive) of each annulus in the rows of {@code annuli}.
+         * The annuli double in size
+         */
+        final int[] annulusEnd = annulusEnds(k);
+        /**
+         * the largest distance to a center in each annulus of each center
+         */
+        final double[][] annulusRadius = new double[k][annulusEnd.length];
+
+        for (int j = 0; j < k; j++)
+        {
+            cP[j] = new DenseVector(D);
+            tmpVecs[j] = new DenseVector(D);
+        }
+
+        final ThreadLocal<Vec[]> localDeltas = new ThreadLocal<Vec[]>()
+        {
+            @Override
+            protected Vec[] initialValue()
+            {
+                Vec[] toRet = new Vec[k];
+                for (int i = 0; i < k; i++)
+                    toRet[i] = new DenseVector(D);
+                return toRet;
+            }
+        };
+
+        //Start of algo, assign every point with all the distances
+        runPoints(N, cP, localDeltas, threadpool, new PointWork()
+        {
+            @Override
+            public int work(int i, Vec[] deltas)
+            {
+                double lowest = Double.POSITIVE_INFINITY, secondLowest = Double.POSITIVE_INFINITY;
+                int best = -1;
+                for (int j = 0; j < k; j++)
+                {
+                    double dist = dm.dist(i, means.get(j), meanQI.get(j), X, distAccel);
+                    if (dist < lowest)
+                    {
+                        secondLowest = lowest;
+                        lowest = dist;
+                        best = j;
+                    }
+                    else if (dist < secondLowest)
+                        secondLowest = dist;
+                }
+                assignment[i] = best;
+                u[i] = lowest;
+                l[i] = secondLowest;
+                q.incrementAndGet(best);
+                deltas[best].mutableAdd(X.get(i));
+                return 1;
+            }
+        });
+
+        final AtomicInteger updates = new AtomicInteger(N);
+        int iter = 0;
+        while (updates.get() > 0 && iter++ < MaxIterLimit)
+        {
+            moveCenters(means, tmpVecs, cP, q, p, meanQI);
+            updateBounds(p, assignment, u, l);
+            buildAnnuli(means, meanQI, annuli, annulusEnd, annulusRadius, s, threadpool);
+
+            int changes = runPoints(N, cP, localDeltas, threadpool, new PointWork()
+            {
+                @Override
+                public int work(int i, Vec[] deltas)
+                {
+                    return mainLoopWork(i, deltas, assignment, u, l, s, annuli, annulusEnd, annulusRadius, q, X, distAccel, means, meanQI);
+                }
+            });
+            updates.set(changes);
+        }
+
+        if (returnError)
+        {
+            double totalDistance = 0;
+
+            if (saveCentroidDistance)
+                nearestCentroidDist = new double[N];
+            else
+                nearestCentroidDist = null;
+
+            for (int i = 0; i < N; i++)
+            {
+                double dist = exactTotal ? dm.dist(i, means.get(assignment[i]), meanQI.get(assignment[i]), X, distAccel) : u[i];
+                totalDistance += Math.pow(dist, 2);
+                if (saveCentroidDistance)
+                    nearestCentroidDist[i] = dist;
+            }
+
+            return totalDistance;
+        }
+        else
+            return 0;//who cares
+    }
+
+    /**
+     * The work done for one data point
+     */
+    private interface PointWork
+    {
+        /**
+         * @param i the index of the point
+         * @param deltas the location to store the change in cluster sums
+         * @return 1 if the point changed clusters, 0 otherwise
+         */
+        public int work(int i, Vec[] deltas);
+    }
+
+    /**
+     * Does the work for every data point, and adds the changes in cluster
+     * sums to {@code cP}
+     * @return the number of points that changed clusters
+     */
+    private int runPoints(final int N, final Vec[] cP, final ThreadLocal<Vec[]> localDeltas, ExecutorService threadpool, final PointWork work)
+    {
+        if (threadpool == null)
+        {
+            int localUpdates = 0;
+            for (int i = 0; i < N; i++)
+                localUpdates += work.work(i, cP);
+            return localUpdates;
+        }
+
+        final AtomicInteger updates = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        for (int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int ID = id;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Vec[] deltas = localDeltas.get();
+                    int localUpdates = 0;
+                    for (int i = ID; i < N; i += SystemInfo.LogicalCores)
+                        localUpdates += work.work(i, deltas);
+                    //collect deltas
+                    if (localUpdates > 0)
+                    {
+                        updates.getAndAdd(localUpdates);
+                        for (int i = 0; i < cP.length; i++)
+                        {
+                            synchronized (cP[i])
+                            {
+                                cP[i].mutableAdd(deltas[i]);
+                            }
+                            deltas[i].zeroOut();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(ExponionKMeans.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return updates.get();
+    }
+
+    /**
+     * Updates the bounds of a data point, and reassigns it if needed
+     * @return 0 if no changes in assignment were made, 1 if a change in assignment was made
+     */
+    private int mainLoopWork(int i, Vec[] deltas, int[] assignment, double[] u, double[] l, double[] s, int[][] annuli, int[] annulusEnd, double[][] annulusRadius, AtomicLongArray q, List<Vec> X, List<Double> distAccel, List<Vec> means, List<List<Double>> meanQI)
+    {
+        final int a = assignment[i];
+        double m = Math.max(s[a] / 2, l[i]);
+        if (u[i] <= m)//first bound test
+            return 0;
+        u[i] = dm.dist(i, means.get(a), meanQI.get(a), X, distAccel);//tighten upper bound
+        if (u[i] <= m)//second bound test
+            return 0;
+
+        /*
+         * The second closest center is no farther than the center closest to
+         * c(a), so the closest two centers are both within 2 u + s(a) of c(a)
+         */
+        final double R = 2 * u[i] + s[a];
+        int t = 0;
+        while (t < annulusEnd.length - 1 && annulusRadius[a][t] < R)
+            t++;
+
+        double lowest = u[i], secondLowest = Double.POSITIVE_INFINITY;
+        int best = a;
+        final int[] around = annuli[a];
+        for (int pos = 0; pos < annulusEnd[t]; pos++)
+        {
+            int j = around[pos];
+            double dist = dm.dist(i, means.get(j), meanQI.get(j), X, distAccel);
+            if (dist < lowest)
+            {
+                secondLowest = lowest;
+                lowest = dist;
+                best = j;
+            }
+            else if (dist < secondLowest)
+                secondLowest = dist;
+        }
+        u[i] = lowest;
+        l[i] = secondLowest;
+
+        if (best == a)
+            return 0;
+        assignment[i] = best;
+        q.decrementAndGet(a);
+        q.incrementAndGet(best);
+        Vec x = X.get(i);
+        deltas[a].mutableSubtract(x);
+        deltas[best].mutableAdd(x);
+        return 1;
+    }
+
+    /**
+     * Returns the end (exclusive) of each annulus in a row of the other
+     * {@code k-1} centers, where the annuli are of size 1, 2, 4, ...
+     */
+    private static int[] annulusEnds(int k)
+    {
+        List<Integer> ends = new ArrayList<Integer>();
+        int end = 0;
+        int size = 1;
+        while (end < k - 1)
+        {
+            end = (int) Math.min((long) end + size, k - 1);
+            ends.add(end);
+            size *= 2;
+        }
+        int[] toRet = new int[ends.size()];
+        for (int t = 0; t < toRet.length; t++)
+            toRet[t] = ends.get(t);
+        return toRet;
+    }
+
+    /**
+     * Partially sorts the other centers around each center into annuli, and
+     * finds the distance from each center to its closest other center
+     */
+    private void buildAnnuli(final List<Vec> means, final List<List<Double>> meanQIs, final int[][] annuli, final int[] annulusEnd, final double[][] annulusRadius, final double[] s, ExecutorService threadpool)
+    {
+        final int k = means.size();
+        final DoubleList meanCache = meanQIs.get(0).isEmpty() ? null : new DoubleList(k);
+        if (meanCache != null)
+            for (List<Double> qi : meanQIs)
+                meanCache.addAll(qi);
+
+        if (threadpool == null)
+        {
+            double[] rowDist = new double[k - 1];
+            for (int a = 0; a < k; a++)
+                buildAnnuli(a, means, meanCache, annuli[a], rowDist, annulusEnd, annulusRadius[a], s);
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        for (int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int ID = id;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    double[] rowDist = new double[k - 1];
+                    for (int a = ID; a < k; a += SystemInfo.LogicalCores)
+                        buildAnnuli(a, means, meanCache, annuli[a], rowDist, annulusEnd, annulusRadius[a], s);
+                    latch.countDown();
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(ExponionKMeans.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private void buildAnnuli(int a, List<Vec> means, List<Double> meanCache, int[] order, double[] rowDist, int[] annulusEnd, double[] radius, double[] s)
+    {
+        final int k = means.size();
+        if (k == 1)
+        {
+            s[a] = Double.POSITIVE_INFINITY;
+            return;
+        }
+        int pos = 0;
+        for (int j = 0; j < k; j++)
+            if (j != a)
+            {
+                order[pos] = j;
+                rowDist[pos++] = dm.dist(a, j, means, meanCache);
+            }
+
+        //select from the outside in, each only needs to look at the part before the last
+        for (int t = annulusEnd.length - 2; t >= 0; t--)
+            select(rowDist, order, 0, annulusEnd[t + 1], annulusEnd[t]);
+
+        int start = 0;
+        for (int t = 0; t < annulusEnd.length; t++)
+        {
+            double max = 0;
+            for (int z = start; z < annulusEnd[t]; z++)
+                max = Math.max(max, rowDist[z]);
+            radius[t] = max;
+            start = annulusEnd[t];
+        }
+        s[a] = rowDist[0];
+    }
+
+    /**
+     * Rearranges the range [from, to) so that every value before {@code nth}
+     * is no larger than every value from {@code nth} on, moving the indices
+     * along with the values
+     */
+    private static void select(double[] vals, int[] indx, int from, int to, int nth)
+    {
+        int lo = from, hi = to - 1;
+        while (lo < hi)
+        {
+            //median of three pivot
+            int mid = (lo + hi) >>> 1;
+            if (vals[mid] < vals[lo])
+                swap(vals, indx, mid, lo);
+            if (vals[hi] < vals[lo])
+                swap(vals, indx, hi, lo);
+            if (vals[hi] < vals[mid])
+                swap(vals, indx, hi, mid);
+            double pivot = vals[mid];
+
+            int i = lo, j = hi;
+            while (i <= j)
+            {
+                while (vals[i] < pivot)
+                    i++;
+                while (vals[j] > pivot)
+                    j--;
+                if (i <= j)
+                    swap(vals, indx, i++, j--);
+            }
+            //everything in [lo, j] <= pivot <= everything in [i, hi]
+            if (nth <= j)
+                hi = j;
+            else if (nth >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    private static void swap(double[] vals, int[] indx, int i, int j)
+    {
+        double tmp = vals[i];
+        vals[i] = vals[j];
+        vals[j] = tmp;
+        int tmpI = indx[i];
+        indx[i] = indx[j];
+        indx[j] = tmpI;
+    }
+
+    private void moveCenters(List<Vec> means, Vec[] tmpSpace, Vec[] cP, AtomicLongArray q, double[] p, final List<List<Double>> meanQI)
+    {
+        for (int j = 0; j < means.size(); j++)
+        {
+            long count = q.get(j);
+            if (count == 0)//an empty cluster keeps its old center
+            {
+                p[j] = 0;
+                continue;
+            }
+            //compute new mean
+            cP[j].copyTo(tmpSpace[j]);
+            tmpSpace[j].mutableDivide(count);
+            //compute distance betwean new and old
+            p[j] = dm.dist(means.get(j), tmpSpace[j]);
+            //move it to its positaiotn as new mean
+            tmpSpace[j].copyTo(means.get(j));
+
+            //update QI
+            if (dm.supportsAcceleration())
+                meanQI.set(j, dm.getQueryInfo(means.get(j)));
+        }
+    }
+
+    private void updateBounds(double[] p, int[] a, double[] u, double[] l)
+    {
+        //the two centers that moved the most
+        int r = -1, rP = -1;
+        for (int j = 0; j < p.length; j++)
+            if (r == -1 || p[j] > p[r])
+            {
+                rP = r;
+                r = j;
+            }
+            else if (rP == -1 || p[j] > p[rP])
+                rP = j;
+
+        for (int i = 0; i < u.length; i++)
+        {
+            final int j = a[i];
+            u[i] += p[j];
+            if (r == j)
+                l[i] -= rP == -1 ? 0 : p[rP];
+            else
+                l[i] -= p[r];
+        }
+    }
+
+    @Override
+    public ExponionKMeans clone()
+    {
+        return new ExponionKMeans(this);
+    }
+}
@@ -0,0 +1,562 @@
+package jsat.clustering.kmeans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.DataSet;
+import jsat.clustering.SeedSelectionMethods;
+import static jsat.clustering.SeedSelectionMethods.selectIntialPoints;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.TrainableDistanceMetric;
+import jsat.utils.FakeExecutor;
+import jsat.utils.IntList;
+import jsat.utils.SystemInfo;
+import jsat.utils.random.XORWOW;
+
+/**
+ * An efficient implementation of the K-Means algorithm using the Yinyang
+ * bounds. The centers are split into groups, and every point keeps an upper
+ * bound on the distance to its center and one lower bound per group, rather
+ * than one per center as in {@link ElkanKMeans}. A group whose lower bound is
+ * larger than the upper bound is skipped entirely, and within a group the
+ * distance each center moved is used to skip more of them. With the default
+ * of <i>k</i>/10 groups this uses a tenth of the memory of Elkan's algorithm,
+ * while pruning far better than the single lower bound of
+ * {@link HamerlyKMeans} when <i>k</i> is large. The exact same solution as
+ * the naive algorithm is obtained. This requires that the
+ * {@link DistanceMetric} used support {@link DistanceMetric#isSubadditive() }.
+ * <br>
+ * <br>
+ * See: Ding, Y., Zhao, Y., Shen, X., Musuvathi, M., &amp; Mytkowicz, T.
+ * (2015). <i>Yinyang K-Means: A Drop-In Replacement of the Classic K-Means
+ * with Consistent Speedup</i>. Proceedings of the 32nd International
+ * Conference on Machine Learning (pp. 579–587).
+ *
+ * @author Edward Raff
+ */
+public class YinyangKMeans extends KMeans
+{
+    /**
+     * The number of iterations of k-means done on the centers to group them
+     */
+    private static final int GROUPING_ITERATIONS = 5;
+
+    private int groupCount = -1;
+
+    /**
+     * Creates a new k-Means object
+     * @param dm the distance metric to use for clustering
+     * @param seedSelection the method of initial seed selection
+     * @param rand the source of randomnes to use
+     */
+    public YinyangKMeans(DistanceMetric dm, SeedSelectionMethods.SeedSelection seedSelection, Random rand)
+    {
+        super(dm, seedSelection, rand);
+    }
+
+    /**
+     * Creates a new k-Means object
+     * @param dm the distance metric to use for clustering
+     * @param seedSelection the method of initial seed selection
+     */
+    public YinyangKMeans(DistanceMetric dm, SeedSelectionMethods.SeedSelection seedSelection)
+    {
+        this(dm, seedSelection, new XORWOW());
+    }
+
+    /**
+     * Creates a new k-Means object
+     */
+    public YinyangKMeans()
+    {
+        this(new EuclideanDistance(), SeedSelectionMethods.SeedSelection.KPP);
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public YinyangKMeans(YinyangKMeans toCopy)
+    {
+        super(toCopy);
+        this.groupCount = toCopy.groupCount;
+    }
+
+    /**
+     * Sets the number of groups the centers are split into. Each data point
+     * stores one lower bound per group, so more groups use more memory but
+     * prune more distance computations. A value less than one uses
+     * <i>k</i>/10 groups, which is the default.
+     *
+     * @param groupCount the number of groups, or a value less than one to use
+     * <i>k</i>/10
+     */
+    public void setGroupCount(int groupCount)
+    {
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * Returns the number of groups the centers are split into, or a value
+     * less than one if <i>k</i>/10 groups are used
+     * @return the number of groups the centers are split into
+     */
+    public int getGroupCount()
+    {
+        return groupCount;
+    }
+
+    @Override
+    protected double cluster(final DataSet dataSet, List<Double> accelCache, final int k, final List<Vec> means, final int[] assignment, final boolean exactTotal, ExecutorService threadpool, boolean returnError)
+    {
+        final int N = dataSet.getSampleSize();
+        final int D = dataSet.getNumNumericalVars();
+
+        TrainableDistanceMetric.trainIfNeeded(dm, dataSet, threadpool);
+
+        final List<Vec> X = dataSet.getDataVectors();
+        final List<Double> distAccel;
+        if(accelCache == null)
+        {
+            if(threadpool == null || threadpool instanceof FakeExecutor)
+                distAccel = dm.getAccelerationCache(X);
+            else
+                distAccel = dm.getAccelerationCache(X, threadpool);
+        }
+        else
+            distAccel = accelCache;
+
+        if (means.size() != k)
+        {
+            means.clear();
+            if (threadpool == null || threadpool instanceof FakeExecutor)
+                means.addAll(selectIntialPoints(dataSet, k, dm, distAccel, rand, seedSelection));
+            else
+                means.addAll(selectIntialPoints(dataSet, k, dm, distAccel, rand, seedSelection, threadpool));
+        }
+
+        //Make our means dense
+        for (int i = 0; i < means.size(); i++)
+            if (means.get(i).isSparse())
+                means.set(i, new DenseVector(means.get(i)));
+
+        final List<List<Double>> meanQI = new ArrayList<List<Double>>(k);
+        for (int j = 0; j < k; j++)
+            if (dm.supportsAcceleration())
+                meanQI.add(dm.getQueryInfo(means.get(j)));
+            else
+                meanQI.add(Collections.<Double>emptyList());
+
+        //split the centers into groups
+        final int[] group = groupCenters(means, groupCount > 0 ? Math.min(groupCount, k) : Math.max(k / 10, 1));
+        int T = 0;
+        for (int g : group)
+            T = Math.max(T, g + 1);
+        final int[][] groupMembers = new int[T][];
+        {
+            int[] sizes = new int[T];
+            for (int g : group)
+                sizes[g]++;
+            for (int g = 0; g < T; g++)
+                groupMembers[g] = new int[sizes[g]];
+            Arrays.fill(sizes, 0);
+            for (int j = 0; j < k; j++)
+                groupMembers[group[j]][sizes[group[j]]++] = j;
+        }
+
+        /**
+         * vector sum of all points in each cluster
+         */
+        final Vec[] cP = new Vec[k];
+        final Vec[] tmpVecs = new Vec[k];
+        /**
+         * number of points assigned to each cluster
+         */
+        final AtomicLongArray q = new AtomicLongArray(k);
+        /**
+         * distance each center last moved
+         */
+        final double[] p = new double[k];
+        /**
+         * the largest distance a center in each group last moved
+         */
+        final double[] groupP = new double[T];
+        /**
+         * upper bound on the distance between each point and its center
+         */
+        final double[] u = new double[N];
+        /**
+         * lower bound on the distance between each point and the centers of
+         * each group, other than the one it is assigned to
+         */
+        final double[][] lb = new double[N][T];
+
+        for (int j = 0; j < k; j++)
+        {
+            cP[j] = new DenseVector(D);
+            tmpVecs[j] = new DenseVector(D);
+        }
+
+        final ThreadLocal<Vec[]> localDeltas = new ThreadLocal<Vec[]>()
+        {
+            @Override
+            protected Vec[] initialValue()
+            {
+                Vec[] toRet = new Vec[k];
+                for (int i = 0; i < k; i++)
+                    toRet[i] = new DenseVector(D);
+                return toRet;
+            }
+        };
+
+        //Start of algo, assign every point with all the distances
+        runPoints(N, T, cP, localDeltas, threadpool, new PointWork()
+        {
+            @Override
+            public int work(int i, Vec[] deltas, double[] gMin1, double[] gMin2, int[] gMinIdx)
+            {
+                Arrays.fill(gMin1, Double.POSITIVE_INFINITY);
+                Arrays.fill(gMin2, Double.POSITIVE_INFINITY);
+                int best = -1;
+                double bestDist = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < k; j++)
+                {
+                    double dist = dm.dist(i, means.get(j), meanQI.get(j), X, distAccel);
+                    int g = group[j];
+                    if (dist < gMin1[g])
+                    {
+                        gMin2[g] = gMin1[g];
+                        gMin1[g] = dist;
+                    }
+                    else if (dist < gMin2[g])
+                        gMin2[g] = dist;
+                    if (dist < bestDist)
+                    {
+                        bestDist = dist;
+                        best = j;
+                    }
+                }
+                for (int g = 0; g < gMin1.length; g++)
+                    lb[i][g] = g == group[best] ? gMin2[g] : gMin1[g];
+                u[i] = bestDist;
+                assignment[i] = best;
+                q.incrementAndGet(best);
+                deltas[best].mutableAdd(X.get(i));
+                return 1;
+            }
+        });
+
+        final AtomicInteger updates = new AtomicInteger(N);
+        int iter = 0;
+        while (updates.get() > 0 && iter++ < MaxIterLimit)
+        {
+            moveCenters(means, tmpVecs, cP, q, p, meanQI);
+            Arrays.fill(groupP, 0);
+            for (int j = 0; j < k; j++)
+                groupP[group[j]] = Math.max(groupP[group[j]], p[j]);
+
+            int changes = runPoints(N, T, cP, localDeltas, threadpool, new PointWork()
+            {
+                @Override
+                public int work(int i, Vec[] deltas, double[] gMin1, double[] gMin2, int[] gMinIdx)
+                {
+                    return mainLoopWork(i, deltas, gMin1, gMin2, gMinIdx, assignment, u, lb[i], p, groupP, group, groupMembers, q, X, distAccel, means, meanQI);
+                }
+            });
+            updates.set(changes);
+        }
+
+        if (returnError)
+        {
+            double totalDistance = 0;
+
+            if (saveCentroidDistance)
+                nearestCentroidDist = new double[N];
+            else
+                nearestCentroidDist = null;
+
+            for (int i = 0; i < N; i++)
+            {
+                double dist = exactTotal ? dm.dist(i, means.get(assignment[i]), meanQI.get(assignment[i]), X, distAccel) : u[i];
+                totalDistance += Math.pow(dist, 2);
+                if (saveCentroidDistance)
+                    nearestCentroidDist[i] = dist;
+            }
+
+            return totalDistance;
+        }
+        else
+            return 0;//who cares
+    }
+
+    /**
+     * The work done for one data point
+     */
+    private interface PointWork
+    {
+        /**
+         * @param i the index of the point
+         * @param deltas the location to store the change in cluster sums
+         * @param gMin1 temp space of one value per group
+         * @param gMin2 temp space of one value per group
+         * @param gMinIdx temp space of one value per group
+         * @return 1 if the point changed clusters, 0 otherwise
+         */
+        public int work(int i, Vec[] deltas, double[] gMin1, double[] gMin2, int[] gMinIdx);
+    }
+
+    /**
+     * Does the work for every data point, and adds the changes in cluster
+     * sums to {@code cP}
+     * @param N the number of data points
+     * @param T the number of groups
+     * @return the number of points that changed clusters
+     */
+    private int runPoints(final int N, final int T, final Vec[] cP, final ThreadLocal<Vec[]> localDeltas, ExecutorService threadpool, final PointWork work)
+    {
+        if (threadpool == null)
+        {
+            double[] gMin1 = new double[T];
+            double[] gMin2 = new double[T];
+            int[] gMinIdx = new int[T];
+            int localUpdates = 0;
+            for (int i = 0; i < N; i++)
+                localUpdates += work.work(i, cP, gMin1, gMin2, gMinIdx);
+            return localUpdates;
+        }
+
+        final AtomicInteger updates = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        for (int id = 0; id < SystemInfo.LogicalCores; id++)
+        {
+            final int ID = id;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Vec[] deltas = localDeltas.get();
+                    double[] gMin1 = new double[T];
+                    double[] gMin2 = new double[T];
+                    int[] gMinIdx = new int[T];
+                    int localUpdates = 0;
+                    for (int i = ID; i < N; i += SystemInfo.LogicalCores)
+                        localUpdates += work.work(i, deltas, gMin1, gMin2, gMinIdx);
+                    //collect deltas
+                    if (localUpdates > 0)
+                    {
+                        updates.getAndAdd(localUpdates);
+                        for (int i = 0; i < cP.length; i++)
+                        {
+                            synchronized (cP[i])
+                            {
+                                cP[i].mutableAdd(deltas[i]);
+                            }
+                            deltas[i].zeroOut();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(YinyangKMeans.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return updates.get();
+    }
+
+    /**
+     * Updates the bounds of a data point, and reassigns it if needed
+     * @param lbi the group lower bounds of the point
+     * @return 0 if no changes in assignment were made, 1 if a change in assignment was made
+     */
+    private int mainLoopWork(int i, Vec[] deltas, double[] gMin1, double[] gMin2, int[] gMinIdx, int[] assignment, double[] u, double[] lbi, double[] p, double[] groupP, int[] group, int[][] groupMembers, AtomicLongArray q, List<Vec> X, List<Double> distAccel, List<Vec> means, List<List<Double>> meanQI)
+    {
+        final int a = assignment[i];
+        final int T = groupMembers.length;
+        u[i] += p[a];
+        double globalLb = Double.POSITIVE_INFINITY;
+        for (int g = 0; g < T; g++)
+            globalLb = Math.min(globalLb, lbi[g] -= groupP[g]);
+
+        if (u[i] <= globalLb)//global filter
+            return 0;
+        u[i] = dm.dist(i, means.get(a), meanQI.get(a), X, distAccel);//tighten upper bound
+        if (u[i] <= globalLb)
+            return 0;
+
+        final double uOld = u[i];
+        int best = a;
+        double bestDist = uOld;
+        for (int g = 0; g < T; g++)
+        {
+            gMinIdx[g] = -1;
+            if (lbi[g] >= bestDist)//group filter
+                continue;
+            //the bound before this iteration's update, for the old center positions
+            final double oldLb = lbi[g] + groupP[g];
+            double min1 = Double.POSITIVE_INFINITY, min2 = Double.POSITIVE_INFINITY;
+            int min1Idx = -2;
+            for (int j : groupMembers[g])
+            {
+                double dist;
+                if (j == a)
+                    dist = uOld;
+                else if (oldLb - p[j] >= bestDist)//local filter, keep the bound
+                    dist = oldLb - p[j];
+                else
+                    dist = dm.dist(i, means.get(j), meanQI.get(j), X, distAccel);
+
+                if (dist < min1)
+                {
+                    min2 = min1;
+                    min1 = dist;
+                    min1Idx = j;
+                }
+                else if (dist < min2)
+                    min2 = dist;
+
+                if (dist < bestDist)
+                {
+                    bestDist = dist;
+                    best = j;
+                }
+            }
+            gMin1[g] = min1;
+            gMin2[g] = min2;
+            gMinIdx[g] = min1Idx;
+        }
+
+        //update the bounds of the groups visited relative to the new center
+        final int bestGroup = group[best];
+        for (int g = 0; g < T; g++)
+            if (gMinIdx[g] != -1)
+                lbi[g] = gMinIdx[g] == best ? gMin2[g] : gMin1[g];
+        //the old center is now just another center in its group
+        if (best != a && gMinIdx[group[a]] == -1)
+            lbi[group[a]] = Math.min(lbi[group[a]], uOld);
+        u[i] = bestDist;
+
+        if (best == a)
+            return 0;
+        assignment[i] = best;
+        q.decrementAndGet(a);
+        q.incrementAndGet(best);
+        Vec x = X.get(i);
+        deltas[a].mutableSubtract(x);
+        deltas[best].mutableAdd(x);
+        return 1;
+    }
+
+    /**
+     * Groups the centers with a few iterations of k-means on the centers
+     * themselves
+     * @param means the centers
+     * @param T the desired number of groups
+     * @return the group of each center, numbered from zero with no empty
+     * groups
+     */
+    private int[] groupCenters(List<Vec> means, int T)
+    {
+        final int k = means.size();
+        int[] group = new int[k];
+        if (T <= 1)
+            return group;
+
+        IntList order = new IntList(k);
+        for (int j = 0; j < k; j++)
+            order.add(j);
+        Collections.shuffle(order, rand);
+        List<Vec> groupMeans = new ArrayList<Vec>(T);
+        for (int g = 0; g < T; g++)
+            groupMeans.add(new DenseVector(means.get(order.getI(g))));
+
+        Vec[] sums = new Vec[T];
+        for (int g = 0; g < T; g++)
+            sums[g] = new DenseVector(means.get(0).length());
+        int[] counts = new int[T];
+        for (int iter = 0; iter < GROUPING_ITERATIONS; iter++)
+        {
+            Arrays.fill(counts, 0);
+            for (int j = 0; j < k; j++)
+            {
+                double minDist = Double.POSITIVE_INFINITY;
+                for (int g = 0; g < T; g++)
+                {
+                    double dist = dm.dist(means.get(j), groupMeans.get(g));
+                    if (dist < minDist)
+                    {
+                        minDist = dist;
+                        group[j] = g;
+                    }
+                }
+                counts[group[j]]++;
+                sums[group[j]].mutableAdd(means.get(j));
+            }
+            for (int g = 0; g < T; g++)
+            {
+                if (counts[g] > 0)//empty groups stay where they are
+                {
+                    sums[g].copyTo(groupMeans.get(g));
+                    groupMeans.get(g).mutableDivide(counts[g]);
+                }
+                sums[g].zeroOut();
+            }
+        }
+
+        //renumber to remove empty groups
+        int[] newID = new int[T];
+        int used = 0;
+        for (int g = 0; g < T; g++)
+            newID[g] = counts[g] > 0 ? used++ : -1;
+        for (int j = 0; j < k; j++)
+            group[j] = newID[group[j]];
+        return group;
+    }
+
+    private void moveCenters(List<Vec> means, Vec[] tmpSpace, Vec[] cP, AtomicLongArray q, double[] p, final List<List<Double>> meanQI)
+    {
+        for (int j = 0; j < means.size(); j++)
+        {
+            long count = q.get(j);
+            if (count == 0)//an empty cluster keeps its old center
+            {
+                p[j] = 0;
+                continue;
+            }
+            //compute new mean
+            cP[j].copyTo(tmpSpace[j]);
+            tmpSpace[j].mutableDivide(count);
+            //compute distance betwean new and old
+            p[j] = dm.dist(means.get(j), tmpSpace[j]);
+            //move it to its positaiotn as new mean
+            tmpSpace[j].copyTo(means.get(j));
+
+            //update QI
+            if (dm.supportsAcceleration())
+                meanQI.set(j, dm.getQueryInfo(means.get(j)));
+        }
+    }
+
+    @Override
+    public YinyangKMeans clone()
+    {
+        return new YinyangKMeans(this);
+    }
+}
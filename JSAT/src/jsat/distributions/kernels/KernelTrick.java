@@ -58,7 +58,10 @@ public interface KernelTrick extends Parameterized, Cloneable, Serializable
     /**
      * Creates a new list cache values from a given list of training set 
      * vectors. If this kernel does not support acceleration, {@code null} will 
-     * be returned.
+     * be returned. Implementations should return a 
+     * {@link jsat.utils.DoubleList DoubleList} so that the values can be read 
+     * with {@link jsat.utils.DoubleList#getD(java.util.List, int) } without 
+     * boxing.
      *
      * @param trainingSet the list of training set vectors
      * @return a list of cache values that may be used by this kernel
@@ -0,0 +1,649 @@
+package jsat.io;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+
+/**
+ * Reads an ARFF file one data point at a time, so that files much larger than
+ * memory can be processed. The header is read when the reader is created,
+ * after which the data points can be obtained one at a time or in batches of
+ * a bounded size. Both dense rows and sparse rows of the form
+ * <code>{index value, ...}</code> are supported, as are instance weights given
+ * as a trailing <code>{weight}</code>. Files compressed with gzip are detected
+ * and decompressed automatically.
+ * <br><br>
+ * As with {@link jsat.ARFFLoader}, only numeric and nominal attributes are
+ * supported, and rows with missing values are skipped. The numeric values of
+ * dense rows are returned as {@link DenseVector DenseVectors}, and sparse rows
+ * as {@link SparseVector SparseVectors}.
+ * <br><br>
+ * One nominal attribute may be selected as a class label with
+ * {@link #setClassTarget(int) }, or one numeric attribute as a regression
+ * target with {@link #setRegressionTarget(int) }. The target is then removed
+ * from the data points and returned separately, which allows an
+ * {@link jsat.classifiers.UpdateableClassifier} or
+ * {@link jsat.regression.UpdateableRegressor} to be trained directly from the
+ * file:
+ * <pre>
+ * ARFFReader reader = new ARFFReader(file);
+ * reader.setClassTarget(0);
+ * classifier.setUp(reader.getCategories(), reader.getNumNumericalVars(), reader.getPredicting());
+ * List&lt;DataPointPair&lt;Integer&gt;&gt; batch;
+ * while(!(batch = reader.nextClassificationBatch(1000)).isEmpty())
+ *     for(DataPointPair&lt;Integer&gt; dpp : batch)
+ *         classifier.update(dpp.getDataPoint(), dpp.getPair());
+ * reader.close();
+ * </pre>
+ *
+ * @author Edward Raff
+ */
+public class ARFFReader implements Closeable
+{
+    private final BufferedReader reader;
+    private String relation;
+    /**
+     * For each attribute in the file, its index among the numeric or nominal
+     * attributes
+     */
+    private int[] attributeIndex;
+    /**
+     * For each attribute in the file, {@code true} if it is numeric
+     */
+    private boolean[] isNumeric;
+    private List<String> numericNames = new ArrayList<String>();
+    private List<CategoricalData> nominals = new ArrayList<CategoricalData>();
+    private List<Map<String, Integer>> nominalValues = new ArrayList<Map<String, Integer>>();
+
+    private int classTarget = -1;
+    private int regressionTarget = -1;
+    private boolean started = false;
+    private long lineNumber = 0;
+    private long skipped = 0;
+    private CategoricalData[] cachedCategories;
+
+    private Vec lastVec;
+    private int[] lastCats;
+    private double lastWeight;
+    private double lastTarget;
+
+    /**
+     * Opens the given ARFF file for reading. The file may be compressed with
+     * gzip.
+     * @param file the ARFF file to read
+     * @throws IOException if the file could not be opened or its header could
+     * not be read
+     */
+    public ARFFReader(File file) throws IOException
+    {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * Creates a new reader for the given stream, which may be compressed with
+     * gzip. The stream is read as UTF-8.
+     * @param in the stream to read from
+     * @throws IOException if the header could not be read
+     */
+    public ARFFReader(InputStream in) throws IOException
+    {
+        this(new InputStreamReader(decompress(in), "UTF-8"));
+    }
+
+    /**
+     * Creates a new reader for the given character stream
+     * @param in the reader to read from
+     * @throws IOException if the header could not be read
+     */
+    public ARFFReader(Reader in) throws IOException
+    {
+        this.reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        try
+        {
+            readHeader();
+        }
+        catch(IOException ex)
+        {
+            reader.close();
+            throw ex;
+        }
+        catch(RuntimeException ex)
+        {
+            reader.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Wraps the stream with a gzip decoder if it begins with the gzip magic
+     * number
+     */
+    private static InputStream decompress(InputStream in) throws IOException
+    {
+        BufferedInputStream bin = new BufferedInputStream(in, 1 << 16);
+        bin.mark(2);
+        int b1 = bin.read();
+        int b2 = bin.read();
+        bin.reset();
+        if(b1 == 0x1f && b2 == 0x8b)
+            return new GZIPInputStream(bin, 1 << 16);
+        return bin;
+    }
+
+    private void readHeader() throws IOException
+    {
+        List<Boolean> numeric = new ArrayList<Boolean>();
+        List<Integer> index = new ArrayList<Integer>();
+        String line;
+        while((line = reader.readLine()) != null)
+        {
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("%"))
+                continue;
+            if(!line.startsWith("@"))
+                throw new IOException("Line " + lineNumber + ": expected a header declaration, found '" + line + "'");
+            String lower = line.toLowerCase();
+            if(lower.startsWith("@relation"))
+                relation = unquote(line.substring("@relation".length()).trim());
+            else if(lower.startsWith("@attribute"))
+            {
+                String rest = line.substring("@attribute".length()).trim();
+                int nameEnd = tokenEnd(rest, 0);
+                String name = unquote(rest.substring(0, nameEnd));
+                String type = rest.substring(nameEnd).trim();
+                String lowerType = type.toLowerCase();
+                if(lowerType.equals("numeric") || lowerType.equals("real") || lowerType.startsWith("integer"))
+                {
+                    numeric.add(Boolean.TRUE);
+                    index.add(numericNames.size());
+                    numericNames.add(name);
+                }
+                else if(type.startsWith("{") && type.endsWith("}"))
+                {
+                    List<String> values = splitRespectingQuotes(type.substring(1, type.length()-1), ',');
+                    if(!values.isEmpty() && values.get(values.size()-1).isEmpty())
+                        values.remove(values.size()-1);//trailing comma
+                    CategoricalData cd = new CategoricalData(values.size());
+                    cd.setCategoryName(name);
+                    Map<String, Integer> valueMap = new HashMap<String, Integer>();
+                    for(int i = 0; i < values.size(); i++)
+                    {
+                        String value = unquote(values.get(i));
+                        cd.setOptionName(value, i);
+                        valueMap.put(value, i);
+                        if(!valueMap.containsKey(value.toLowerCase()))
+                            valueMap.put(value.toLowerCase(), i);
+                    }
+                    numeric.add(Boolean.FALSE);
+                    index.add(nominals.size());
+                    nominals.add(cd);
+                    nominalValues.add(valueMap);
+                }
+                else
+                    throw new IOException("Line " + lineNumber + ": attribute " + name + " has unsupported type " + type);
+            }
+            else if(lower.startsWith("@data"))
+            {
+                isNumeric = new boolean[numeric.size()];
+                attributeIndex = new int[numeric.size()];
+                for(int i = 0; i < isNumeric.length; i++)
+                {
+                    isNumeric[i] = numeric.get(i);
+                    attributeIndex[i] = index.get(i);
+                }
+                return;
+            }
+        }
+        throw new IOException("File ended before the @data section was found");
+    }
+
+    /**
+     * Selects one of the nominal attributes to be used as the class label.
+     * This must be called before any data points are read.
+     * @param nominalIndex the index of the attribute among the nominal
+     * attributes
+     */
+    public void setClassTarget(int nominalIndex)
+    {
+        if(started)
+            throw new IllegalStateException("Target can not be changed after data points have been read");
+        if(nominalIndex < 0 || nominalIndex >= nominals.size())
+            throw new IndexOutOfBoundsException("There are only " + nominals.size() + " nominal attributes, can not use " + nominalIndex);
+        classTarget = nominalIndex;
+        regressionTarget = -1;
+    }
+
+    /**
+     * Selects one of the numeric attributes to be used as the regression
+     * target. This must be called before any data points are read.
+     * @param numericIndex the index of the attribute among the numeric
+     * attributes
+     */
+    public void setRegressionTarget(int numericIndex)
+    {
+        if(started)
+            throw new IllegalStateException("Target can not be changed after data points have been read");
+        if(numericIndex < 0 || numericIndex >= numericNames.size())
+            throw new IndexOutOfBoundsException("There are only " + numericNames.size() + " numeric attributes, can not use " + numericIndex);
+        regressionTarget = numericIndex;
+        classTarget = -1;
+    }
+
+    /**
+     * Returns the name of the relation, or {@code null} if none was given
+     * @return the name of the relation
+     */
+    public String getRelation()
+    {
+        return relation;
+    }
+
+    /**
+     * Returns the number of numeric features in the data points returned,
+     * which excludes the regression target if one was set
+     * @return the number of numeric features
+     */
+    public int getNumNumericalVars()
+    {
+        return numericNames.size() - (regressionTarget >= 0 ? 1 : 0);
+    }
+
+    /**
+     * Returns the names of the numeric features in the data points returned,
+     * which excludes the regression target if one was set
+     * @return the names of the numeric features
+     */
+    public List<String> getNumericNames()
+    {
+        List<String> names = new ArrayList<String>(numericNames);
+        if(regressionTarget >= 0)
+            names.remove(regressionTarget);
+        return names;
+    }
+
+    /**
+     * Returns the information about the categorical features in the data
+     * points returned, which excludes the class target if one was set
+     * @return the information about the categorical features
+     */
+    public CategoricalData[] getCategories()
+    {
+        List<CategoricalData> cats = new ArrayList<CategoricalData>(nominals);
+        if(classTarget >= 0)
+            cats.remove(classTarget);
+        return cats.toArray(new CategoricalData[cats.size()]);
+    }
+
+    /**
+     * Returns the information about the class target, or {@code null} if no
+     * class target was set
+     * @return the information about the class target
+     */
+    public CategoricalData getPredicting()
+    {
+        return classTarget >= 0 ? nominals.get(classTarget) : null;
+    }
+
+    /**
+     * Returns the number of rows that have been skipped so far because they
+     * contained missing values
+     * @return the number of rows skipped
+     */
+    public long getSkippedCount()
+    {
+        return skipped;
+    }
+
+    /**
+     * Reads the next data point from the file. If a class or regression
+     * target was set, it is not included in the data point.
+     * @return the next data point, or {@code null} if the end of the file has
+     * been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public DataPoint next() throws IOException
+    {
+        if(!readRow())
+            return null;
+        return new DataPoint(lastVec, lastCats, getCategoriesCached(), lastWeight);
+    }
+
+    /**
+     * Reads the next data point and its class label from the file.
+     * {@link #setClassTarget(int) } must have been called first.
+     * @return the next data point and its class, or {@code null} if the end
+     * of the file has been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public DataPointPair<Integer> nextClassification() throws IOException
+    {
+        if(classTarget < 0)
+            throw new IllegalStateException("No class target has been set");
+        DataPoint dp = next();
+        if(dp == null)
+            return null;
+        return new DataPointPair<Integer>(dp, (int) lastTarget);
+    }
+
+    /**
+     * Reads the next data point and its regression target from the file.
+     * {@link #setRegressionTarget(int) } must have been called first.
+     * @return the next data point and its target value, or {@code null} if
+     * the end of the file has been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public DataPointPair<Double> nextRegression() throws IOException
+    {
+        if(regressionTarget < 0)
+            throw new IllegalStateException("No regression target has been set");
+        DataPoint dp = next();
+        if(dp == null)
+            return null;
+        return new DataPointPair<Double>(dp, lastTarget);
+    }
+
+    /**
+     * Reads up to {@code maxSize} data points from the file
+     * @param maxSize the maximum number of data points to read
+     * @return the data points read, which will be empty once the end of the
+     * file has been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public List<DataPoint> nextBatch(int maxSize) throws IOException
+    {
+        List<DataPoint> batch = new ArrayList<DataPoint>(Math.min(maxSize, 4096));
+        DataPoint dp;
+        while(batch.size() < maxSize && (dp = next()) != null)
+            batch.add(dp);
+        return batch;
+    }
+
+    /**
+     * Reads up to {@code maxSize} data points and their class labels from the
+     * file. {@link #setClassTarget(int) } must have been called first.
+     * @param maxSize the maximum number of data points to read
+     * @return the data points read, which will be empty once the end of the
+     * file has been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public List<DataPointPair<Integer>> nextClassificationBatch(int maxSize) throws IOException
+    {
+        List<DataPointPair<Integer>> batch = new ArrayList<DataPointPair<Integer>>(Math.min(maxSize, 4096));
+        DataPointPair<Integer> dpp;
+        while(batch.size() < maxSize && (dpp = nextClassification()) != null)
+            batch.add(dpp);
+        return batch;
+    }
+
+    /**
+     * Reads up to {@code maxSize} data points and their regression targets
+     * from the file. {@link #setRegressionTarget(int) } must have been called
+     * first.
+     * @param maxSize the maximum number of data points to read
+     * @return the data points read, which will be empty once the end of the
+     * file has been reached
+     * @throws IOException if an error occurred reading the file
+     */
+    public List<DataPointPair<Double>> nextRegressionBatch(int maxSize) throws IOException
+    {
+        List<DataPointPair<Double>> batch = new ArrayList<DataPointPair<Double>>(Math.min(maxSize, 4096));
+        DataPointPair<Double> dpp;
+        while(batch.size() < maxSize && (dpp = nextRegression()) != null)
+            batch.add(dpp);
+        return batch;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+    private CategoricalData[] getCategoriesCached()
+    {
+        if(cachedCategories == null)
+            cachedCategories = getCategories();
+        return cachedCategories;
+    }
+
+    /**
+     * Reads the next complete row into the {@code last} fields
+     * @return {@code false} if the end of the file was reached
+     */
+    private boolean readRow() throws IOException
+    {
+        started = true;
+        String line;
+        while((line = reader.readLine()) != null)
+        {
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("%"))
+                continue;
+            try
+            {
+                boolean complete;
+                if(line.startsWith("{"))
+                    complete = parseSparse(line);
+                else
+                    complete = parseDense(line);
+                if(complete)
+                    return true;
+                skipped++;
+            }
+            catch(NumberFormatException ex)
+            {
+                throw new IOException("Line " + lineNumber + ": could not parse numeric value, " + ex.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private boolean parseDense(String line) throws IOException
+    {
+        List<String> tokens = splitRespectingQuotes(line, ',');
+        lastWeight = 1.0;
+        if(tokens.size() == isNumeric.length+1)
+            lastWeight = parseWeight(tokens.remove(tokens.size()-1));
+        else if(tokens.size() != isNumeric.length)
+            throw new IOException("Line " + lineNumber + ": row had " + tokens.size() + " values instead of " + isNumeric.length);
+
+        double[] vals = new double[getNumNumericalVars()];
+        lastCats = new int[getCategoriesCached().length];
+        for(int i = 0; i < isNumeric.length; i++)
+        {
+            String token = tokens.get(i);
+            if(token.equals("?"))
+                return false;
+            if(!setValue(i, token, vals, null))
+                return false;
+        }
+        lastVec = new DenseVector(vals);
+        return true;
+    }
+
+    private boolean parseSparse(String line) throws IOException
+    {
+        int close = findClosingBrace(line);
+        lastWeight = 1.0;
+        String rest = line.substring(close+1).trim();
+        if(rest.startsWith(","))
+            rest = rest.substring(1).trim();
+        if(!rest.isEmpty())
+            lastWeight = parseWeight(rest);
+
+        SparseVector vec = new SparseVector(Math.max(getNumNumericalVars(), 1));
+        lastCats = new int[getCategoriesCached().length];
+        lastTarget = 0;
+        for(String pair : splitRespectingQuotes(line.substring(1, close), ','))
+        {
+            if(pair.isEmpty())
+                continue;
+            int split = tokenEnd(pair, 0);
+            int attribute;
+            try
+            {
+                attribute = Integer.parseInt(pair.substring(0, split));
+            }
+            catch(NumberFormatException ex)
+            {
+                throw new IOException("Line " + lineNumber + ": bad sparse attribute index in '" + pair + "'");
+            }
+            if(attribute < 0 || attribute >= isNumeric.length)
+                throw new IOException("Line " + lineNumber + ": attribute index " + attribute + " is out of range");
+            String token = pair.substring(split).trim();
+            if(token.equals("?"))
+                return false;
+            if(!setValue(attribute, token, null, vec))
+                return false;
+        }
+        lastVec = vec;
+        return true;
+    }
+
+    /**
+     * Stores the value of the given attribute in either the dense array or
+     * the sparse vector, and in the categorical values or target as needed
+     * @return {@code false} if the value was not valid
+     */
+    private boolean setValue(int attribute, String token, double[] dense, Vec sparse) throws IOException
+    {
+        int idx = attributeIndex[attribute];
+        if(isNumeric[attribute])
+        {
+            double val = Double.parseDouble(token);
+            if(idx == regressionTarget)
+            {
+                lastTarget = val;
+                return true;
+            }
+            if(regressionTarget >= 0 && idx > regressionTarget)
+                idx--;
+            if(dense != null)
+                dense[idx] = val;
+            else
+                sparse.set(idx, val);
+        }
+        else
+        {
+            String value = unquote(token);
+            Integer cat = nominalValues.get(idx).get(value);
+            if(cat == null)
+                cat = nominalValues.get(idx).get(value.toLowerCase());
+            if(cat == null)
+                throw new IOException("Line " + lineNumber + ": '" + value + "' is not a value of attribute " + nominals.get(idx).getCategoryName());
+            if(idx == classTarget)
+            {
+                lastTarget = cat;
+                return true;
+            }
+            if(classTarget >= 0 && idx > classTarget)
+                idx--;
+            lastCats[idx] = cat;
+        }
+        return true;
+    }
+
+    private double parseWeight(String token) throws IOException
+    {
+        token = token.trim();
+        if(!token.startsWith("{") || !token.endsWith("}"))
+            throw new IOException("Line " + lineNumber + ": extra column must be a weight of the form {#}, found " + token);
+        return Double.parseDouble(token.substring(1, token.length()-1).trim());
+    }
+
+    private int findClosingBrace(String line) throws IOException
+    {
+        char quote = 0;
+        for(int i = 1; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if(quote != 0)
+            {
+                if(c == '\\')
+                    i++;
+                else if(c == quote)
+                    quote = 0;
+            }
+            else if(c == '\'' || c == '"')
+                quote = c;
+            else if(c == '}')
+                return i;
+        }
+        throw new IOException("Line " + lineNumber + ": sparse row is missing a closing brace");
+    }
+
+    /**
+     * Returns the position just after the first token in the string, which
+     * may be quoted
+     */
+    private static int tokenEnd(String s, int start)
+    {
+        if(start < s.length() && (s.charAt(start) == '\'' || s.charAt(start) == '"'))
+        {
+            char quote = s.charAt(start);
+            for(int i = start+1; i < s.length(); i++)
+                if(s.charAt(i) == '\\')
+                    i++;
+                else if(s.charAt(i) == quote)
+                    return i+1;
+            return s.length();
+        }
+        int i = start;
+        while(i < s.length() && !Character.isWhitespace(s.charAt(i)))
+            i++;
+        return i;
+    }
+
+    /**
+     * Splits the string on the separator, ignoring separators inside quotes.
+     * Each token is trimmed of white space.
+     */
+    static List<String> splitRespectingQuotes(String s, char sep)
+    {
+        List<String> tokens = new ArrayList<String>();
+        int start = 0;
+        char quote = 0;
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(quote != 0)
+            {
+                if(c == '\\')
+                    i++;
+                else if(c == quote)
+                    quote = 0;
+            }
+            else if(c == '\'' || c == '"')
+                quote = c;
+            else if(c == sep)
+            {
+                tokens.add(s.substring(start, i).trim());
+                start = i+1;
+            }
+        }
+        tokens.add(s.substring(start).trim());
+        return tokens;
+    }
+
+    /**
+     * Removes surrounding quotes and white space from the string
+     */
+    static String unquote(String s)
+    {
+        s = s.trim();
+        if(s.length() < 2)
+            return s;
+        char quote = s.charAt(0);
+        if((quote == '\'' || quote == '"') && s.charAt(s.length()-1) == quote)
+            return s.substring(1, s.length()-1).replace("\\" + quote, String.valueOf(quote));
+        return s;
+    }
+}
@@ -0,0 +1,302 @@
+package jsat.io;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.linear.IndexValue;
+import jsat.linear.Vec;
+
+/**
+ * Writes data points to an ARFF file as they are produced, without needing
+ * the whole data set in memory. The header is written before the first row.
+ * Rows can be written in the dense format, or in the sparse format
+ * <code>{index value, ...}</code> where only non zero values are written.
+ * Data points with a weight other than 1 have the weight appended as
+ * <code>{weight}</code>. The files produced can be read by {@link ARFFReader}.
+ * <br><br>
+ * As with {@link jsat.ARFFLoader#writeArffFile(jsat.DataSet, java.io.OutputStream) },
+ * the categorical features are written first, followed by the numeric
+ * features, followed by the target variable if one was set.
+ *
+ * @author Edward Raff
+ */
+public class ARFFWriter implements Closeable, Flushable
+{
+    private final Writer writer;
+    private final CategoricalData[] categories;
+    private final int numNumeric;
+    private final boolean sparse;
+    private String relation = "jsat";
+    private List<String> numericNames;
+    private CategoricalData predicting;
+    private String regressionTarget;
+    private boolean headerWritten = false;
+
+    /**
+     * Creates a new writer to the given file. If the file name ends with
+     * ".gz", the output will be compressed with gzip.
+     *
+     * @param file the file to write to
+     * @param categories the information about each categorical feature
+     * @param numNumeric the number of numeric features
+     * @param sparse {@code true} to write rows in the sparse format
+     * @throws IOException if the file could not be opened
+     */
+    public ARFFWriter(File file, CategoricalData[] categories, int numNumeric, boolean sparse) throws IOException
+    {
+        this(file.getName().endsWith(".gz") ? new GZIPOutputStream(new FileOutputStream(file), 1 << 16) : new FileOutputStream(file), categories, numNumeric, sparse);
+    }
+
+    /**
+     * Creates a new writer to the given stream. The stream will be closed
+     * when this writer is closed.
+     *
+     * @param os the stream to write to
+     * @param categories the information about each categorical feature
+     * @param numNumeric the number of numeric features
+     * @param sparse {@code true} to write rows in the sparse format
+     * @throws IOException if the stream could not be opened
+     */
+    public ARFFWriter(OutputStream os, CategoricalData[] categories, int numNumeric, boolean sparse) throws IOException
+    {
+        this.writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"), 1 << 16);
+        this.categories = categories;
+        this.numNumeric = numNumeric;
+        this.sparse = sparse;
+    }
+
+    private void checkHeaderNotWritten()
+    {
+        if(headerWritten)
+            throw new IllegalStateException("The header has already been written");
+    }
+
+    /**
+     * Sets the name of the relation written in the header
+     * @param relation the name of the relation
+     */
+    public void setRelation(String relation)
+    {
+        checkHeaderNotWritten();
+        this.relation = relation;
+    }
+
+    /**
+     * Sets the names of the numeric features. If not set, the names
+     * "num0", "num1", ... are used.
+     * @param numericNames the names of the numeric features
+     */
+    public void setNumericNames(List<String> numericNames)
+    {
+        checkHeaderNotWritten();
+        if(numericNames.size() != numNumeric)
+            throw new IllegalArgumentException("Expected " + numNumeric + " names, not " + numericNames.size());
+        this.numericNames = new ArrayList<String>(numericNames);
+    }
+
+    /**
+     * Adds a nominal class attribute as the last attribute. Rows must then be
+     * written with {@link #write(jsat.classifiers.DataPoint, int) }.
+     * @param predicting the information about the target class
+     */
+    public void setClassTarget(CategoricalData predicting)
+    {
+        checkHeaderNotWritten();
+        this.predicting = predicting;
+        this.regressionTarget = null;
+    }
+
+    /**
+     * Adds a numeric target attribute as the last attribute. Rows must then
+     * be written with {@link #write(jsat.classifiers.DataPoint, double) }.
+     * @param name the name of the target attribute
+     */
+    public void setRegressionTarget(String name)
+    {
+        checkHeaderNotWritten();
+        this.regressionTarget = name;
+        this.predicting = null;
+    }
+
+    /**
+     * Writes a data point without a target value
+     * @param dp the data point to write
+     * @throws IOException if an error occurred writing
+     */
+    public void write(DataPoint dp) throws IOException
+    {
+        if(predicting != null || regressionTarget != null)
+            throw new IllegalStateException("A target value must be given for each data point");
+        writeRow(dp, null);
+    }
+
+    /**
+     * Writes a data point and its class label
+     * @param dp the data point to write
+     * @param label the class label of the data point
+     * @throws IOException if an error occurred writing
+     */
+    public void write(DataPoint dp, int label) throws IOException
+    {
+        if(predicting == null)
+            throw new IllegalStateException("No class target has been set");
+        if(!predicting.isValidCategory(label))
+            throw new IllegalArgumentException("Invalid class label " + label);
+        writeRow(dp, quote(predicting.getOptionName(label)));
+    }
+
+    /**
+     * Writes a data point and its regression target
+     * @param dp the data point to write
+     * @param target the target value of the data point
+     * @throws IOException if an error occurred writing
+     */
+    public void write(DataPoint dp, double target) throws IOException
+    {
+        if(regressionTarget == null)
+            throw new IllegalStateException("No regression target has been set");
+        writeRow(dp, Double.toString(target));
+    }
+
+    private void writeHeader() throws IOException
+    {
+        headerWritten = true;
+        writer.write("@relation " + quote(relation) + "\n\n");
+        for(CategoricalData cd : categories)
+            writeNominal(cd);
+        for(int i = 0; i < numNumeric; i++)
+        {
+            String name = numericNames == null ? null : numericNames.get(i);
+            writer.write("@attribute " + quote(name == null ? "num" + i : name) + " NUMERIC\n");
+        }
+        if(predicting != null)
+            writeNominal(predicting);
+        else if(regressionTarget != null)
+            writer.write("@attribute " + quote(regressionTarget) + " NUMERIC\n");
+        writer.write("\n@data\n");
+    }
+
+    private void writeNominal(CategoricalData cd) throws IOException
+    {
+        writer.write("@attribute " + quote(cd.getCategoryName()) + " {");
+        for(int i = 0; i < cd.getNumOfCategories(); i++)
+        {
+            if(i != 0)
+                writer.write(",");
+            writer.write(quote(cd.getOptionName(i)));
+        }
+        writer.write("}\n");
+    }
+
+    private void writeRow(DataPoint dp, String target) throws IOException
+    {
+        if(dp.numCategoricalValues() != categories.length || dp.numNumericalValues() != numNumeric)
+            throw new IllegalArgumentException("Data point does not match the number of categorical and numeric features of the writer");
+        if(!headerWritten)
+            writeHeader();
+        int[] cats = dp.getCategoricalValues();
+        Vec vec = dp.getNumericalValues();
+        if(sparse)
+        {
+            writer.write('{');
+            boolean first = true;
+            for(int i = 0; i < cats.length; i++)
+                if(cats[i] != 0)//the first option is the implicit value
+                {
+                    if(!first)
+                        writer.write(',');
+                    first = false;
+                    writer.write(i + " " + quote(categories[i].getOptionName(cats[i])));
+                }
+            Iterator<IndexValue> iter = vec.getNonZeroIterator();
+            while(iter.hasNext())
+            {
+                IndexValue iv = iter.next();
+                if(!first)
+                    writer.write(',');
+                first = false;
+                writer.write((cats.length + iv.getIndex()) + " " + Double.toString(iv.getValue()));
+            }
+            if(target != null)
+            {
+                if(!first)
+                    writer.write(',');
+                writer.write((cats.length + numNumeric) + " " + target);
+            }
+            writer.write('}');
+        }
+        else
+        {
+            boolean first = true;
+            for(int i = 0; i < cats.length; i++)
+            {
+                if(!first)
+                    writer.write(',');
+                first = false;
+                writer.write(quote(categories[i].getOptionName(cats[i])));
+            }
+            for(int i = 0; i < numNumeric; i++)
+            {
+                if(!first)
+                    writer.write(',');
+                first = false;
+                writer.write(Double.toString(vec.get(i)));
+            }
+            if(target != null)
+            {
+                if(!first)
+                    writer.write(',');
+                writer.write(target);
+            }
+        }
+        if(dp.getWeight() != 1.0)
+            writer.write(",{" + dp.getWeight() + "}");
+        writer.write('\n');
+    }
+
+    /**
+     * Quotes the string if it contains characters that would otherwise be
+     * misread
+     */
+    private static String quote(String s)
+    {
+        if(s.isEmpty())
+            return "''";
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(Character.isWhitespace(c) || c == ',' || c == '\'' || c == '"' || c == '{' || c == '}' || c == '%')
+                return "'" + s.replace("'", "\\'") + "'";
+        }
+        return s;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        writer.flush();
+    }
+
+    /**
+     * Closes the writer. If no rows were written, the header is written
+     * first.
+     * @throws IOException if an error occurred writing
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if(!headerWritten)
+                writeHeader();
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
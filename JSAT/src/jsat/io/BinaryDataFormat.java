@@ -0,0 +1,385 @@
+package jsat.io;
+
+import java.io.*;
+import java.util.*;
+import jsat.DataSet;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.linear.SparseVector;
+import jsat.regression.RegressionDataSet;
+import jsat.utils.DoubleList;
+import jsat.utils.StringUtils;
+
+/**
+ * This class defines a compact binary format for storing data sets on disk,
+ * and provides methods to write data sets in the format and to convert LIBSVM
+ * and ARFF files into it. Files in this format can be opened with
+ * {@link MappedDataSet}, {@link MappedClassificationDataSet}, or
+ * {@link MappedRegressionDataSet}, which read the data through memory mapping
+ * so that data sets larger than the heap can be used. <br>
+ * <br>
+ * All values are stored in big-endian order. The file begins with a fixed
+ * size header of {@value #HEADER_SIZE} bytes:
+ * <table>
+ * <tr><th>offset</th><th>type</th><th>value</th></tr>
+ * <tr><td>0</td><td>long</td><td>{@link #MAGIC}</td></tr>
+ * <tr><td>8</td><td>int</td><td>{@link #VERSION}</td></tr>
+ * <tr><td>12</td><td>int</td><td>the {@link Task} ordinal</td></tr>
+ * <tr><td>16</td><td>int</td><td>flags, bit 0 set when the numeric features are sparse</td></tr>
+ * <tr><td>20</td><td>int</td><td>the number of numeric features</td></tr>
+ * <tr><td>24</td><td>int</td><td>the number of categorical features</td></tr>
+ * <tr><td>32</td><td>long</td><td>the number of rows <i>n</i></td></tr>
+ * <tr><td>40</td><td>long</td><td>the number of stored numeric values <i>nnz</i></td></tr>
+ * <tr><td>48</td><td>long</td><td>offset of the CSR row pointers, {@code long[n+1]} (sparse only)</td></tr>
+ * <tr><td>56</td><td>long</td><td>offset of the CSR column indices, {@code int[nnz]} (sparse only)</td></tr>
+ * <tr><td>64</td><td>long</td><td>offset of the numeric values, {@code double[nnz]}. Dense values are stored row-major</td></tr>
+ * <tr><td>72</td><td>long</td><td>offset of the categorical values, {@code int[n*numCategorical]} stored row-major</td></tr>
+ * <tr><td>80</td><td>long</td><td>offset of the labels, {@code int[n]} for classification or {@code double[n]} for regression</td></tr>
+ * <tr><td>88</td><td>long</td><td>offset of the weights, {@code double[n]}</td></tr>
+ * <tr><td>96</td><td>long</td><td>offset of the meta data</td></tr>
+ * </table>
+ * Every section starts on an 8 byte boundary. The meta data section contains
+ * the names of the categorical features and their options, the target
+ * variable information for classification problems, and the names of the
+ * numeric features.
+ *
+ * @author Edward Raff
+ */
+public class BinaryDataFormat
+{
+    /**
+     * The magic number that starts every file, the ASCII string "JSATBIN1"
+     */
+    public static final long MAGIC = 0x4A53415442494E31L;
+    /**
+     * The version of the format written by this code
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the header in bytes
+     */
+    public static final int HEADER_SIZE = 128;
+
+    static final int FLAG_SPARSE = 1;
+
+    /**
+     * The type of target variable stored in a file
+     */
+    public static enum Task
+    {
+        /**
+         * There is no target variable
+         */
+        UNLABELED,
+        /**
+         * The target variable is a class label
+         */
+        CLASSIFICATION,
+        /**
+         * The target variable is a real value
+         */
+        REGRESSION
+    }
+
+    private BinaryDataFormat()
+    {
+    }
+
+    /**
+     * Writes the given data set to a file in the binary format.
+     * {@link ClassificationDataSet} and {@link RegressionDataSet} will have
+     * their target values written as well.
+     *
+     * @param data the data set to write
+     * @param file the file to write to
+     * @param sparse {@code true} to store the numeric values in a sparse
+     * format, {@code false} to store them densely
+     * @throws IOException if an error occurred writing the file
+     */
+    public static void write(DataSet data, File file, boolean sparse) throws IOException
+    {
+        Task task;
+        if(data instanceof ClassificationDataSet)
+            task = Task.CLASSIFICATION;
+        else if(data instanceof RegressionDataSet)
+            task = Task.REGRESSION;
+        else
+            task = Task.UNLABELED;
+
+        BinaryDataWriter writer = new BinaryDataWriter(file, task, sparse, data.getNumNumericalVars(), data.getCategories());
+        try
+        {
+            if(task == Task.CLASSIFICATION)
+                writer.setPredicting(((ClassificationDataSet)data).getPredicting());
+            List<String> names = new ArrayList<String>(data.getNumNumericalVars());
+            for(int i = 0; i < data.getNumNumericalVars(); i++)
+                names.add(data.getNumericName(i));
+            writer.setNumericNames(names);
+
+            for(int i = 0; i < data.getSampleSize(); i++)
+            {
+                DataPoint dp = data.getDataPoint(i);
+                if(task == Task.CLASSIFICATION)
+                    writer.addClassificationPoint(dp.getNumericalValues(), dp.getCategoricalValues(), ((ClassificationDataSet)data).getDataPointCategory(i), dp.getWeight());
+                else if(task == Task.REGRESSION)
+                    writer.addRegressionPoint(dp.getNumericalValues(), dp.getCategoricalValues(), ((RegressionDataSet)data).getTargetValue(i), dp.getWeight());
+                else
+                    writer.addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getWeight());
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Converts a LIBSVM file into the binary format, treating the labels as
+     * class labels. The LIBSVM file is read one line at a time, so the whole
+     * file never needs to fit in memory. The class labels will be assigned in
+     * the same order as {@link LIBSVMLoader#loadC(java.io.File) }.
+     *
+     * @param libsvm the LIBSVM file to read
+     * @param out the file to write
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @throws IOException if an error occurred reading or writing
+     */
+    public static void convertLIBSVMC(File libsvm, File out, int vectorLength) throws IOException
+    {
+        convertLIBSVM(libsvm, out, vectorLength, Task.CLASSIFICATION);
+    }
+
+    /**
+     * Converts a LIBSVM file into the binary format, treating the labels as
+     * regression targets. The LIBSVM file is read one line at a time, so the
+     * whole file never needs to fit in memory.
+     *
+     * @param libsvm the LIBSVM file to read
+     * @param out the file to write
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @throws IOException if an error occurred reading or writing
+     */
+    public static void convertLIBSVMR(File libsvm, File out, int vectorLength) throws IOException
+    {
+        convertLIBSVM(libsvm, out, vectorLength, Task.REGRESSION);
+    }
+
+    private static void convertLIBSVM(File libsvm, File out, int vectorLength, Task task) throws IOException
+    {
+        BufferedReader br = new BufferedReader(new FileReader(libsvm), 1 << 16);
+        BinaryDataWriter writer = new BinaryDataWriter(out, task, true, Math.max(vectorLength, 1), new CategoricalData[0]);
+        try
+        {
+            //labels in order of first apperance
+            Map<Double, Integer> labelIndex = new HashMap<Double, Integer>();
+            SparseVector sv = new SparseVector(1);
+            final int[] noCats = new int[0];
+            String line;
+            while((line = br.readLine()) != null)
+            {
+                int end = line.length();
+                int pos = 0;
+                while(pos < end && Character.isWhitespace(line.charAt(pos)))
+                    pos++;
+                if(pos == end)
+                    continue;
+                int labelEnd = pos;
+                while(labelEnd < end && !Character.isWhitespace(line.charAt(labelEnd)))
+                    labelEnd++;
+                double label = Double.parseDouble(line.substring(pos, labelEnd));
+                pos = labelEnd;
+
+                sv.zeroOut();
+                while(true)
+                {
+                    while(pos < end && Character.isWhitespace(line.charAt(pos)))
+                        pos++;
+                    if(pos >= end)
+                        break;
+                    int colon = line.indexOf(':', pos);
+                    if(colon < 0)
+                        throw new IOException("Invalid LIBSVM line, missing ':' in: " + line);
+                    int index = StringUtils.parseInt(line, pos, colon)-1;
+                    int valEnd = colon+1;
+                    while(valEnd < end && !Character.isWhitespace(line.charAt(valEnd)))
+                        valEnd++;
+                    double value = StringUtils.parseDouble(line, colon+1, valEnd);
+                    if(index >= sv.length())
+                        sv.setLength(index+1);
+                    sv.set(index, value);
+                    pos = valEnd;
+                }
+
+                if(task == Task.CLASSIFICATION)
+                {
+                    Integer c = labelIndex.get(label);
+                    if(c == null)
+                        labelIndex.put(label, c = labelIndex.size());
+                    writer.addClassificationPoint(sv, noCats, c, 1.0);
+                }
+                else
+                    writer.addRegressionPoint(sv, noCats, label, 1.0);
+            }
+
+            if(task == Task.CLASSIFICATION)
+            {
+                //same ordering as LIBSVMLoader, sorted by label value
+                List<Double> allCatKeys = new DoubleList(labelIndex.keySet());
+                Collections.sort(allCatKeys);
+                int[] mapping = new int[allCatKeys.size()];
+                for(int i = 0; i < allCatKeys.size(); i++)
+                    mapping[labelIndex.get(allCatKeys.get(i))] = i;
+                writer.setLabelMapping(mapping);
+                writer.setPredicting(new CategoricalData(Math.max(mapping.length, 1)));
+            }
+        }
+        finally
+        {
+            br.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * Converts an ARFF file into the binary format without any target
+     * variable. The ARFF file is read one row at a time, so the whole file
+     * never needs to fit in memory.
+     *
+     * @param arff the ARFF file to read, which may be compressed with gzip
+     * @param out the file to write
+     * @param sparse {@code true} to store the numeric values in a sparse
+     * format, {@code false} to store them densely
+     * @throws IOException if an error occurred reading or writing
+     */
+    public static void convertARFF(File arff, File out, boolean sparse) throws IOException
+    {
+        convertARFF(new ARFFReader(arff), out, sparse, Task.UNLABELED);
+    }
+
+    /**
+     * Converts an ARFF file into the binary format, using one of the
+     * categorical attributes as the class label. The ARFF file is read one
+     * row at a time, so the whole file never needs to fit in memory.
+     *
+     * @param arff the ARFF file to read, which may be compressed with gzip
+     * @param out the file to write
+     * @param predicting the index of the categorical attribute to use as the
+     * target class
+     * @param sparse {@code true} to store the numeric values in a sparse
+     * format, {@code false} to store them densely
+     * @throws IOException if an error occurred reading or writing
+     */
+    public static void convertARFFC(File arff, File out, int predicting, boolean sparse) throws IOException
+    {
+        ARFFReader reader = new ARFFReader(arff);
+        reader.setClassTarget(predicting);
+        convertARFF(reader, out, sparse, Task.CLASSIFICATION);
+    }
+
+    /**
+     * Converts an ARFF file into the binary format, using one of the numeric
+     * attributes as the regression target. The ARFF file is read one row at a
+     * time, so the whole file never needs to fit in memory.
+     *
+     * @param arff the ARFF file to read, which may be compressed with gzip
+     * @param out the file to write
+     * @param predicting the index of the numeric attribute to use as the
+     * regression target
+     * @param sparse {@code true} to store the numeric values in a sparse
+     * format, {@code false} to store them densely
+     * @throws IOException if an error occurred reading or writing
+     */
+    public static void convertARFFR(File arff, File out, int predicting, boolean sparse) throws IOException
+    {
+        ARFFReader reader = new ARFFReader(arff);
+        reader.setRegressionTarget(predicting);
+        convertARFF(reader, out, sparse, Task.REGRESSION);
+    }
+
+    private static void convertARFF(ARFFReader reader, File out, boolean sparse, Task task) throws IOException
+    {
+        try
+        {
+            BinaryDataWriter writer = new BinaryDataWriter(out, task, sparse, reader.getNumNumericalVars(), reader.getCategories());
+            try
+            {
+                if(task == Task.CLASSIFICATION)
+                    writer.setPredicting(reader.getPredicting());
+                writer.setNumericNames(reader.getNumericNames());
+                if(task == Task.CLASSIFICATION)
+                {
+                    DataPointPair<Integer> dpp;
+                    while((dpp = reader.nextClassification()) != null)
+                    {
+                        DataPoint dp = dpp.getDataPoint();
+                        writer.addClassificationPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dpp.getPair(), dp.getWeight());
+                    }
+                }
+                else if(task == Task.REGRESSION)
+                {
+                    DataPointPair<Double> dpp;
+                    while((dpp = reader.nextRegression()) != null)
+                    {
+                        DataPoint dp = dpp.getDataPoint();
+                        writer.addRegressionPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dpp.getPair(), dp.getWeight());
+                    }
+                }
+                else
+                {
+                    DataPoint dp;
+                    while((dp = reader.next()) != null)
+                        writer.addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getWeight());
+                }
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Writes the information of a categorical variable to the meta data
+     * @param out the stream to write to
+     * @param cd the categorical variable
+     * @throws IOException
+     */
+    static void writeCategoricalData(DataOutputStream out, CategoricalData cd) throws IOException
+    {
+        out.writeUTF(cd.getCategoryName() == null ? "" : cd.getCategoryName());
+        out.writeInt(cd.getNumOfCategories());
+        for(int i = 0; i < cd.getNumOfCategories(); i++)
+            out.writeUTF(cd.getOptionName(i));
+    }
+
+    /**
+     * Reads the information of a categorical variable from the meta data
+     * @param in the stream to read from
+     * @return the categorical variable
+     * @throws IOException
+     */
+    static CategoricalData readCategoricalData(DataInputStream in) throws IOException
+    {
+        String name = in.readUTF();
+        int n = in.readInt();
+        CategoricalData cd = new CategoricalData(n);
+        cd.setCategoryName(name);
+        for(int i = 0; i < n; i++)
+        {
+            String option = in.readUTF();
+            if(!option.equals(cd.getOptionName(i)))
+                cd.setOptionName(option, i);
+        }
+        return cd;
+    }
+}
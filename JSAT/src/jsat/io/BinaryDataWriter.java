@@ -0,0 +1,417 @@
+package jsat.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import jsat.classifiers.CategoricalData;
+import jsat.io.BinaryDataFormat.Task;
+import jsat.linear.IndexValue;
+import jsat.linear.Vec;
+
+/**
+ * Writes data points to a file in the {@link BinaryDataFormat} one at a time.
+ * Only a constant amount of memory is used regardless of the number of data
+ * points written, so this can be used to convert data sets that are larger
+ * than the available memory. Each section of the format is first streamed to
+ * its own temporary file in the same directory as the output, and the
+ * sections are combined into the final file when {@link #close() } is called.
+ * <br><br>
+ * When writing sparse data, the number of numeric features will grow to
+ * include the largest non-zero index that has been written.
+ *
+ * @author Edward Raff
+ */
+public class BinaryDataWriter implements Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File file;
+    private final Task task;
+    private final boolean sparse;
+    private int numNumeric;
+    private final CategoricalData[] categories;
+    private CategoricalData predicting;
+    private List<String> numericNames;
+    private int[] labelMapping;
+    private long rows = 0;
+    private long nnz = 0;
+    private int maxLabel = -1;
+    private boolean closed = false;
+
+    private final File[] tmpFiles;
+    private final DataOutputStream rowPtrOut;
+    private final DataOutputStream indexOut;
+    private final DataOutputStream valueOut;
+    private final DataOutputStream catOut;
+    private final DataOutputStream labelOut;
+    private final DataOutputStream weightOut;
+
+    /**
+     * Creates a new writer
+     * @param file the file to write to
+     * @param task the type of target variable that will be written
+     * @param sparse {@code true} to store the numeric values in a sparse
+     * format, {@code false} to store them densely
+     * @param numNumeric the number of numeric features. If {@code sparse} is
+     * {@code true}, this is the minimum number of numeric features.
+     * @param categories the information about each categorical feature
+     * @throws IOException if the temporary files could not be created
+     */
+    public BinaryDataWriter(File file, Task task, boolean sparse, int numNumeric, CategoricalData[] categories) throws IOException
+    {
+        this.file = file;
+        this.task = task;
+        this.sparse = sparse;
+        this.numNumeric = numNumeric;
+        this.categories = categories;
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        tmpFiles = new File[6];
+        for(int i = 0; i < tmpFiles.length; i++)
+        {
+            tmpFiles[i] = File.createTempFile("jsatbin", ".tmp", dir);
+            tmpFiles[i].deleteOnExit();
+        }
+        rowPtrOut = open(tmpFiles[0]);
+        indexOut = open(tmpFiles[1]);
+        valueOut = open(tmpFiles[2]);
+        catOut = open(tmpFiles[3]);
+        labelOut = open(tmpFiles[4]);
+        weightOut = open(tmpFiles[5]);
+        rowPtrOut.writeLong(0);
+    }
+
+    private static DataOutputStream open(File f) throws FileNotFoundException
+    {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), BUFFER_SIZE));
+    }
+
+    /**
+     * Sets the information about the target class for classification
+     * problems. If not set, a new {@link CategoricalData} will be created with
+     * enough options for the largest label written.
+     *
+     * @param predicting the information about the target class
+     */
+    public void setPredicting(CategoricalData predicting)
+    {
+        this.predicting = predicting;
+    }
+
+    /**
+     * Sets the names of the numeric features to store in the file
+     * @param numericNames the names of the numeric features
+     */
+    public void setNumericNames(List<String> numericNames)
+    {
+        this.numericNames = new ArrayList<String>(numericNames);
+    }
+
+    /**
+     * Sets a mapping that will be applied to every class label when the file
+     * is finalized, so label {@code c} will be stored as
+     * {@code mapping[c]}.
+     *
+     * @param mapping the label mapping
+     */
+    void setLabelMapping(int[] mapping)
+    {
+        this.labelMapping = mapping;
+    }
+
+    /**
+     * Returns the number of data points written so far
+     * @return the number of data points written so far
+     */
+    public long getRowsWritten()
+    {
+        return rows;
+    }
+
+    /**
+     * Writes a new data point for an {@link Task#UNLABELED} file.
+     *
+     * @param numeric the numeric values
+     * @param cats the categorical values
+     * @param weight the weight of the data point
+     * @throws IOException if an error occurred writing the data
+     */
+    public void addDataPoint(Vec numeric, int[] cats, double weight) throws IOException
+    {
+        checkTask(Task.UNLABELED);
+        writeRow(numeric, cats, weight);
+    }
+
+    /**
+     * Writes a new data point for a {@link Task#CLASSIFICATION} file.
+     *
+     * @param numeric the numeric values
+     * @param cats the categorical values
+     * @param label the class label of the data point
+     * @param weight the weight of the data point
+     * @throws IOException if an error occurred writing the data
+     */
+    public void addClassificationPoint(Vec numeric, int[] cats, int label, double weight) throws IOException
+    {
+        checkTask(Task.CLASSIFICATION);
+        if(label < 0)
+            throw new IllegalArgumentException("Class labels must be non-negative, not " + label);
+        writeRow(numeric, cats, weight);
+        labelOut.writeInt(label);
+        maxLabel = Math.max(maxLabel, label);
+    }
+
+    /**
+     * Writes a new data point for a {@link Task#REGRESSION} file.
+     *
+     * @param numeric the numeric values
+     * @param cats the categorical values
+     * @param target the regression target of the data point
+     * @param weight the weight of the data point
+     * @throws IOException if an error occurred writing the data
+     */
+    public void addRegressionPoint(Vec numeric, int[] cats, double target, double weight) throws IOException
+    {
+        checkTask(Task.REGRESSION);
+        writeRow(numeric, cats, weight);
+        labelOut.writeDouble(target);
+    }
+
+    private void checkTask(Task expected)
+    {
+        if(closed)
+            throw new IllegalStateException("Writer has already been closed");
+        if(task != expected)
+            throw new IllegalArgumentException("Can not add a " + expected + " data point to a " + task + " file");
+    }
+
+    private void writeRow(Vec numeric, int[] cats, double weight) throws IOException
+    {
+        if(cats.length != categories.length)
+            throw new IllegalArgumentException("Data point has " + cats.length + " categorical values, expected " + categories.length);
+        if(sparse)
+        {
+            numNumeric = Math.max(numNumeric, numeric.length());
+            for(IndexValue iv : numeric)
+            {
+                if(iv.getValue() == 0)
+                    continue;
+                indexOut.writeInt(iv.getIndex());
+                valueOut.writeDouble(iv.getValue());
+                nnz++;
+            }
+            rowPtrOut.writeLong(nnz);
+        }
+        else
+        {
+            if(numeric.length() != numNumeric)
+                throw new IllegalArgumentException("Data point has " + numeric.length() + " numeric values, expected " + numNumeric);
+            if(numeric.isSparse())
+            {
+                int j = 0;
+                for(IndexValue iv : numeric)
+                {
+                    for(; j < iv.getIndex(); j++)
+                        valueOut.writeDouble(0.0);
+                    valueOut.writeDouble(iv.getValue());
+                    j++;
+                }
+                for(; j < numNumeric; j++)
+                    valueOut.writeDouble(0.0);
+            }
+            else
+                for(int j = 0; j < numNumeric; j++)
+                    valueOut.writeDouble(numeric.get(j));
+            nnz += numNumeric;
+        }
+        for(int c : cats)
+            catOut.writeInt(c);
+        weightOut.writeDouble(weight);
+        rows++;
+    }
+
+    /**
+     * Finalizes the file, combining all the data written into the binary
+     * format and removing the temporary files.
+     *
+     * @throws IOException if an error occurred writing the file
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if(closed)
+            return;
+        closed = true;
+        DataOutputStream[] streams = new DataOutputStream[]{rowPtrOut, indexOut, valueOut, catOut, labelOut, weightOut};
+        for(DataOutputStream dos : streams)
+            dos.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            raf.setLength(0);
+            FileChannel out = raf.getChannel();
+            long pos = BinaryDataFormat.HEADER_SIZE;
+            out.position(pos);
+
+            long rowPtrOffset = 0, indexOffset = 0;
+            if(sparse)
+            {
+                rowPtrOffset = pos;
+                pos = append(out, tmpFiles[0], pos);
+                indexOffset = pos;
+                pos = append(out, tmpFiles[1], pos);
+            }
+            long valueOffset = pos;
+            pos = append(out, tmpFiles[2], pos);
+            long catOffset = pos;
+            pos = append(out, tmpFiles[3], pos);
+            long labelOffset = pos;
+            if(task == Task.CLASSIFICATION && labelMapping != null)
+                pos = appendMappedLabels(out, tmpFiles[4], pos);
+            else
+                pos = append(out, tmpFiles[4], pos);
+            long weightOffset = pos;
+            pos = append(out, tmpFiles[5], pos);
+            long metaOffset = pos;
+            writeMetaData(out);
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryDataFormat.HEADER_SIZE);
+            header.putLong(BinaryDataFormat.MAGIC);
+            header.putInt(BinaryDataFormat.VERSION);
+            header.putInt(task.ordinal());
+            header.putInt(sparse ? BinaryDataFormat.FLAG_SPARSE : 0);
+            header.putInt(numNumeric);
+            header.putInt(categories.length);
+            header.putInt(0);
+            header.putLong(rows);
+            header.putLong(nnz);
+            header.putLong(rowPtrOffset);
+            header.putLong(indexOffset);
+            header.putLong(valueOffset);
+            header.putLong(catOffset);
+            header.putLong(labelOffset);
+            header.putLong(weightOffset);
+            header.putLong(metaOffset);
+            header.position(0);
+            out.position(0);
+            while(header.hasRemaining())
+                out.write(header);
+        }
+        finally
+        {
+            raf.close();
+            for(File f : tmpFiles)
+                f.delete();
+        }
+    }
+
+    /**
+     * Appends the contents of the given file, followed by padding to the next
+     * 8 byte boundary
+     * @param out the channel to write to, positioned at {@code pos}
+     * @param src the file to append
+     * @param pos the current position in the output
+     * @return the new position in the output
+     * @throws IOException
+     */
+    private static long append(FileChannel out, File src, long pos) throws IOException
+    {
+        FileInputStream fis = new FileInputStream(src);
+        try
+        {
+            FileChannel in = fis.getChannel();
+            long size = in.size();
+            long copied = 0;
+            while(copied < size)
+                copied += in.transferTo(copied, size-copied, out);
+            pos += size;
+        }
+        finally
+        {
+            fis.close();
+        }
+        return pad(out, pos);
+    }
+
+    private long appendMappedLabels(FileChannel out, File src, long pos) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(src), BUFFER_SIZE));
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        maxLabel = -1;
+        try
+        {
+            for(long i = 0; i < rows; i++)
+            {
+                int label = labelMapping[in.readInt()];
+                maxLabel = Math.max(maxLabel, label);
+                buffer.putInt(label);
+                if(!buffer.hasRemaining())
+                    pos += flush(out, buffer);
+            }
+            pos += flush(out, buffer);
+        }
+        finally
+        {
+            in.close();
+        }
+        return pad(out, pos);
+    }
+
+    private static int flush(FileChannel out, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        int written = buffer.remaining();
+        while(buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+        return written;
+    }
+
+    private static long pad(FileChannel out, long pos) throws IOException
+    {
+        int padding = (int) ((8 - (pos % 8)) % 8);
+        if(padding > 0)
+        {
+            ByteBuffer zeros = ByteBuffer.allocate(padding);
+            while(zeros.hasRemaining())
+                out.write(zeros);
+        }
+        return pos + padding;
+    }
+
+    private void writeMetaData(FileChannel out) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream meta = new DataOutputStream(baos);
+        meta.writeInt(categories.length);
+        for(CategoricalData cd : categories)
+            BinaryDataFormat.writeCategoricalData(meta, cd);
+        if(task == Task.CLASSIFICATION)
+        {
+            CategoricalData pred = predicting;
+            if(pred == null)
+                pred = new CategoricalData(Math.max(maxLabel+1, 1));
+            else if(pred.getNumOfCategories() <= maxLabel)
+                throw new IllegalStateException("Target variable has " + pred.getNumOfCategories() + " classes, but label " + maxLabel + " was written");
+            meta.writeBoolean(true);
+            BinaryDataFormat.writeCategoricalData(meta, pred);
+        }
+        else
+            meta.writeBoolean(false);
+        if(numericNames != null && numericNames.size() == numNumeric)
+        {
+            meta.writeBoolean(true);
+            for(String name : numericNames)
+                meta.writeUTF(name == null ? "" : name);
+        }
+        else
+            meta.writeBoolean(false);
+        meta.close();
+        ByteBuffer buf = ByteBuffer.wrap(baos.toByteArray());
+        while(buf.hasRemaining())
+            out.write(buf);
+    }
+}
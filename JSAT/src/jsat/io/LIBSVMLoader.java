@@ -2,6 +2,7 @@ package jsat.io;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import jsat.DataSet;
 import jsat.classifiers.CategoricalData;
 import jsat.classifiers.ClassificationDataSet;
@@ -9,6 +10,7 @@ import jsat.datatransform.DenseSparceTransform;
 import jsat.linear.*;
 import jsat.regression.RegressionDataSet;
 import jsat.utils.DoubleList;
+import jsat.utils.FakeExecutor;
 import jsat.utils.StringUtils;
 
 /**
@@ -30,6 +32,11 @@ import jsat.utils.StringUtils;
  * have incompatible vector lengths. To resolve this issue, use the loading 
  * methods that include the optional {@code vectorLength} parameter to specify 
  * the length before hand. 
+ * <br><br>
+ * Large files can be loaded faster with the methods that take an 
+ * {@link ExecutorService}, which memory map the file and parse it in parallel.
+ * The {@code loadCompact} methods additionally store all rows in a single 
+ * {@link CSRBlock} to reduce memory use. 
  * 
  * @author Edward Raff
  */
@@ -95,6 +102,61 @@ public class LIBSVMLoader
     {
         return loadR(new FileReader(file), sparseRatio, vectorLength);
     }
+
+    /**
+     * Loads a new regression data set from a LIBSVM file, assuming the label is
+     * a numeric target value to predict. The file is memory mapped and parsed
+     * in parallel, which is considerably faster for large files than
+     * {@link #loadR(java.io.File, double, int) }, and produces the same data
+     * set.
+     *
+     * @param file the file to load
+     * @param sparseRatio the fraction of non zero values to qualify a data
+     * point as sparse
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @param threadPool the source of threads to parse the file with
+     * @return a regression data set
+     * @throws IOException if an error occurred reading the file
+     */
+    public static RegressionDataSet loadR(File file, double sparseRatio, int vectorLength, ExecutorService threadPool) throws IOException
+    {
+        RegressionDataSet rds = buildR(ParallelLIBSVMParser.parse(file, false, threadPool), vectorLength);
+        rds.applyTransform(new DenseSparceTransform(sparseRatio), threadPool == null ? new FakeExecutor() : threadPool);
+        return rds;
+    }
+
+    /**
+     * Loads a new regression data set from a LIBSVM file in parallel, storing
+     * all of the rows in a single {@link CSRBlock} rather than one
+     * {@link SparseVector} per row. This uses considerably less memory for
+     * large files. The numeric values of each data point are views into the
+     * shared block, and are always sparse.
+     *
+     * @param file the file to load
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @param threadPool the source of threads to parse the file with
+     * @return a regression data set
+     * @throws IOException if an error occurred reading the file
+     */
+    public static RegressionDataSet loadCompactR(File file, int vectorLength, ExecutorService threadPool) throws IOException
+    {
+        return buildR(ParallelLIBSVMParser.parse(file, true, threadPool), vectorLength);
+    }
+
+    private static RegressionDataSet buildR(ParallelLIBSVMParser parsed, int vectorLength)
+    {
+        int maxLen = vectorLength > 0 ? vectorLength : parsed.maxLen;
+        parsed.setLength(maxLen);
+        RegressionDataSet rds = new RegressionDataSet(maxLen, new CategoricalData[0]);
+        int[] emptyInt = new int[0];
+        for(int i = 0; i < parsed.rows; i++)
+            rds.addDataPoint(parsed.getVec(i), emptyInt, parsed.labels[i]);
+        return rds;
+    }
     
     /**
      * Loads a new regression data set from a LIBSVM file, assuming the label is
@@ -282,6 +344,71 @@ public class LIBSVMLoader
     {
         return loadC(new FileReader(file), sparseRatio, vectorLength);
     }
+
+    /**
+     * Loads a new classification data set from a LIBSVM file, assuming the
+     * label is a nominal target value. The file is memory mapped and parsed in
+     * parallel, which is considerably faster for large files than
+     * {@link #loadC(java.io.File, double, int) }, and produces the same data
+     * set.
+     *
+     * @param file the file to load
+     * @param sparseRatio the fraction of non zero values to qualify a data
+     * point as sparse
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @param threadPool the source of threads to parse the file with
+     * @return a classification data set
+     * @throws IOException if an error occurred reading the file
+     */
+    public static ClassificationDataSet loadC(File file, double sparseRatio, int vectorLength, ExecutorService threadPool) throws IOException
+    {
+        ClassificationDataSet cds = buildC(ParallelLIBSVMParser.parse(file, false, threadPool), vectorLength);
+        cds.applyTransform(new DenseSparceTransform(sparseRatio), threadPool == null ? new FakeExecutor() : threadPool);
+        return cds;
+    }
+
+    /**
+     * Loads a new classification data set from a LIBSVM file in parallel,
+     * storing all of the rows in a single {@link CSRBlock} rather than one
+     * {@link SparseVector} per row. This uses considerably less memory for
+     * large files. The numeric values of each data point are views into the
+     * shared block, and are always sparse.
+     *
+     * @param file the file to load
+     * @param vectorLength the pre-determined length of each vector. If given a
+     * negative value, the largest non-zero index observed in the data will be
+     * used as the length.
+     * @param threadPool the source of threads to parse the file with
+     * @return a classification data set
+     * @throws IOException if an error occurred reading the file
+     */
+    public static ClassificationDataSet loadCompactC(File file, int vectorLength, ExecutorService threadPool) throws IOException
+    {
+        return buildC(ParallelLIBSVMParser.parse(file, true, threadPool), vectorLength);
+    }
+
+    private static ClassificationDataSet buildC(ParallelLIBSVMParser parsed, int vectorLength)
+    {
+        int maxLen = vectorLength > 0 ? vectorLength : parsed.maxLen;
+        parsed.setLength(maxLen);
+
+        //Give categories a unique ordering, the same as the serial loader
+        double[] allCatKeys = Arrays.copyOf(parsed.labels, parsed.rows);
+        Arrays.sort(allCatKeys);
+        int numCats = 0;
+        for(int i = 0; i < allCatKeys.length; i++)
+            if(i == 0 || Double.compare(allCatKeys[i-1], allCatKeys[i]) != 0)
+                allCatKeys[numCats++] = allCatKeys[i];
+
+        CategoricalData predicting = new CategoricalData(Math.max(numCats, 1));
+        ClassificationDataSet cds = new ClassificationDataSet(maxLen, new CategoricalData[0], predicting);
+        int[] emptyInt = new int[0];
+        for(int i = 0; i < parsed.rows; i++)
+            cds.addDataPoint(parsed.getVec(i), emptyInt, Arrays.binarySearch(allCatKeys, 0, numCats, parsed.labels[i]));
+        return cds;
+    }
     
     /**
      * Loads a new classification data set from a LIBSVM file, assuming the 
@@ -0,0 +1,133 @@
+package jsat.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.io.BinaryDataFormat.Task;
+import jsat.linear.Vec;
+
+/**
+ * A read only {@link ClassificationDataSet} backed by a memory mapped file in
+ * the {@link BinaryDataFormat}. Data points are read from the file when they
+ * are requested, so the data set can be much larger than the available heap.
+ * This is best used with algorithms that make passes over the data, such as
+ * the {@link jsat.classifiers.UpdateableClassifier UpdateableClassifiers}.
+ * <br><br>
+ * Data points can not be added or replaced, so transforms can not be applied
+ * to this data set. Data points returned are new objects, and altering their
+ * values will not change the file. Altering the weights of data points is only
+ * supported for data sets returned by {@link #getTwiceShallowClone() }, which
+ * keep the weights in memory. {@link #cvSet(int, java.util.Random) } returns
+ * folds that are views of the same file.
+ *
+ * @author Edward Raff
+ */
+public class MappedClassificationDataSet extends ClassificationDataSet
+{
+    private final MappedRows rows;
+
+    /**
+     * Opens a new data set from the given file
+     * @param file the binary file to read
+     * @throws IOException if the file could not be opened
+     */
+    public MappedClassificationDataSet(File file) throws IOException
+    {
+        this(new MappedDataStore(file));
+    }
+
+    /**
+     * Creates a new data set backed by the given store
+     * @param store the store to read from
+     */
+    public MappedClassificationDataSet(MappedDataStore store)
+    {
+        this(new MappedRows(store));
+        if(store.getTask() != Task.CLASSIFICATION)
+            throw new IllegalArgumentException("File does not contain a classification problem, it is " + store.getTask());
+    }
+
+    private MappedClassificationDataSet(MappedRows rows)
+    {
+        super(rows.store.getNumNumericalVars(), rows.store.getCategories(), rows.store.getPredicting());
+        this.rows = rows;
+        this.datapoints = null;
+        this.category = null;
+        List<String> names = rows.store.getNumericNames();
+        if(names != null)
+            this.numericalVariableNames = new ArrayList<String>(names);
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        return rows.getDataPoint(i);
+    }
+
+    @Override
+    public int getDataPointCategory(int i)
+    {
+        return rows.store.getLabel(rows.row(i));
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public List<Vec> getDataVectors()
+    {
+        return rows.getVectors();
+    }
+
+    @Override
+    public List<DataPoint> getDataPoints()
+    {
+        return rows.getPoints();
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        throw new UnsupportedOperationException("MappedClassificationDataSet is read only");
+    }
+
+    @Override
+    public void addDataPoint(Vec v, int[] classes, int classification, double weight)
+    {
+        throw new UnsupportedOperationException("MappedClassificationDataSet is read only");
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, int classification)
+    {
+        throw new UnsupportedOperationException("MappedClassificationDataSet is read only");
+    }
+
+    @Override
+    public List<ClassificationDataSet> cvSet(int folds, Random rnd)
+    {
+        List<ClassificationDataSet> cvList = new ArrayList<ClassificationDataSet>(folds);
+        for(MappedRows fold : rows.split(folds, rnd))
+            cvList.add(new MappedClassificationDataSet(fold));
+        return cvList;
+    }
+
+    @Override
+    public MappedClassificationDataSet shallowClone()
+    {
+        return new MappedClassificationDataSet(rows.copy());
+    }
+
+    @Override
+    public MappedClassificationDataSet getTwiceShallowClone()
+    {
+        return new MappedClassificationDataSet(rows.copyWithOwnWeights());
+    }
+}
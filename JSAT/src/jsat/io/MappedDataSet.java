@@ -0,0 +1,110 @@
+package jsat.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.DataSet;
+import jsat.classifiers.DataPoint;
+import jsat.linear.Vec;
+
+/**
+ * A read only {@link DataSet} backed by a memory mapped file in the
+ * {@link BinaryDataFormat}. Any file may be opened as a MappedDataSet, in
+ * which case the class labels or regression targets are ignored. This is
+ * useful for clustering and other unsupervised algorithms on data sets that
+ * do not fit in memory.
+ *
+ * @author Edward Raff
+ */
+public class MappedDataSet extends DataSet
+{
+    private final MappedRows rows;
+
+    /**
+     * Opens a new data set from the given file
+     * @param file the binary file to read
+     * @throws IOException if the file could not be opened
+     */
+    public MappedDataSet(File file) throws IOException
+    {
+        this(new MappedDataStore(file));
+    }
+
+    /**
+     * Creates a new data set backed by the given store
+     * @param store the store to read from
+     */
+    public MappedDataSet(MappedDataStore store)
+    {
+        this(new MappedRows(store));
+    }
+
+    private MappedDataSet(MappedRows rows)
+    {
+        this.rows = rows;
+        this.categories = rows.store.getCategories();
+        this.numNumerVals = rows.store.getNumNumericalVars();
+        List<String> names = rows.store.getNumericNames();
+        if(names != null)
+            this.numericalVariableNames = new ArrayList<String>(names);
+        else
+        {
+            this.numericalVariableNames = new ArrayList<String>(numNumerVals);
+            for(int i = 0; i < getNumNumericalVars(); i++)
+                this.numericalVariableNames.add("Numeric Input " + (i+1));
+        }
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        return rows.getDataPoint(i);
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        throw new UnsupportedOperationException("MappedDataSet is read only");
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public List<Vec> getDataVectors()
+    {
+        return rows.getVectors();
+    }
+
+    @Override
+    public List<DataPoint> getDataPoints()
+    {
+        return rows.getPoints();
+    }
+
+    @Override
+    public List<MappedDataSet> cvSet(int folds, Random rand)
+    {
+        List<MappedDataSet> cvList = new ArrayList<MappedDataSet>(folds);
+        for(MappedRows fold : rows.split(folds, rand))
+            cvList.add(new MappedDataSet(fold));
+        return cvList;
+    }
+
+    @Override
+    public MappedDataSet shallowClone()
+    {
+        return new MappedDataSet(rows.copy());
+    }
+
+    @Override
+    public MappedDataSet getTwiceShallowClone()
+    {
+        return new MappedDataSet(rows.copyWithOwnWeights());
+    }
+}
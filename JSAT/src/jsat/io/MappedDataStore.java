@@ -0,0 +1,349 @@
+package jsat.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.io.BinaryDataFormat.Task;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+
+/**
+ * Provides read only access to a file in the {@link BinaryDataFormat} through
+ * memory mapping. The file is mapped in chunks of up to 1 GB, and the
+ * operating system will only page in the parts of the file that are actually
+ * accessed. This allows files much larger than the heap to be used, with only
+ * the vectors for the data points currently in use being held in memory. <br>
+ * <br>
+ * All methods are safe to call from multiple threads.
+ *
+ * @author Edward Raff
+ */
+public class MappedDataStore
+{
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    private static final int[] emptyInt = new int[0];
+
+    private final File file;
+    private final MappedByteBuffer[] chunks;
+    private final Task task;
+    private final boolean sparse;
+    private final int numNumeric;
+    private final int numCategorical;
+    private final int numRows;
+    private final long nnz;
+    private final long rowPtrOffset;
+    private final long indexOffset;
+    private final long valueOffset;
+    private final long catOffset;
+    private final long labelOffset;
+    private final long weightOffset;
+    private final CategoricalData[] categories;
+    private final CategoricalData predicting;
+    private final List<String> numericNames;
+
+    /**
+     * Opens the given file for reading
+     * @param file the file in the {@link BinaryDataFormat} to open
+     * @throws IOException if the file could not be read or is not in the
+     * binary format
+     */
+    public MappedDataStore(File file) throws IOException
+    {
+        this.file = file;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if(size < BinaryDataFormat.HEADER_SIZE)
+                throw new IOException(file + " is not a binary data file");
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryDataFormat.HEADER_SIZE);
+            while(header.hasRemaining())
+                if(channel.read(header, header.position()) < 0)
+                    throw new EOFException();
+            header.flip();
+            if(header.getLong() != BinaryDataFormat.MAGIC)
+                throw new IOException(file + " is not a binary data file");
+            int version = header.getInt();
+            if(version != BinaryDataFormat.VERSION)
+                throw new IOException("Unsupported binary data file version " + version);
+            task = Task.values()[header.getInt()];
+            sparse = (header.getInt() & BinaryDataFormat.FLAG_SPARSE) != 0;
+            numNumeric = header.getInt();
+            numCategorical = header.getInt();
+            header.getInt();
+            long rows = header.getLong();
+            if(rows > Integer.MAX_VALUE)
+                throw new IOException("File contains " + rows + " rows, more than can be indexed by a DataSet");
+            numRows = (int) rows;
+            nnz = header.getLong();
+            rowPtrOffset = header.getLong();
+            indexOffset = header.getLong();
+            valueOffset = header.getLong();
+            catOffset = header.getLong();
+            labelOffset = header.getLong();
+            weightOffset = header.getLong();
+            long metaOffset = header.getLong();
+
+            int numChunks = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[numChunks];
+            for(int i = 0; i < numChunks; i++)
+            {
+                long start = ((long) i) << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_MASK+1, size-start));
+            }
+
+            //read the meta data
+            byte[] metaBytes = new byte[(int) (size-metaOffset)];
+            ByteBuffer metaBuf = ByteBuffer.wrap(metaBytes);
+            while(metaBuf.hasRemaining())
+                if(channel.read(metaBuf, metaOffset+metaBuf.position()) < 0)
+                    throw new EOFException();
+            DataInputStream meta = new DataInputStream(new ByteArrayInputStream(metaBytes));
+            categories = new CategoricalData[meta.readInt()];
+            for(int i = 0; i < categories.length; i++)
+                categories[i] = BinaryDataFormat.readCategoricalData(meta);
+            if(meta.readBoolean())
+                predicting = BinaryDataFormat.readCategoricalData(meta);
+            else
+                predicting = null;
+            if(meta.readBoolean())
+            {
+                List<String> names = new ArrayList<String>(numNumeric);
+                for(int i = 0; i < numNumeric; i++)
+                    names.add(meta.readUTF());
+                numericNames = Collections.unmodifiableList(names);
+            }
+            else
+                numericNames = null;
+        }
+        finally
+        {
+            //mappings remain valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    private int getInt(long pos)
+    {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getInt((int) (pos & CHUNK_MASK));
+    }
+
+    private long getLong(long pos)
+    {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    private double getDouble(long pos)
+    {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getDouble((int) (pos & CHUNK_MASK));
+    }
+
+    private void rangeCheck(int row)
+    {
+        if(row < 0 || row >= numRows)
+            throw new IndexOutOfBoundsException("Row " + row + " is not in the range [0, " + numRows + ")");
+    }
+
+    /**
+     * Returns the file this store reads from
+     * @return the file this store reads from
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the number of rows stored in the file
+     * @return the number of rows stored in the file
+     */
+    public int size()
+    {
+        return numRows;
+    }
+
+    /**
+     * Returns the type of target variable stored in the file
+     * @return the type of target variable stored in the file
+     */
+    public Task getTask()
+    {
+        return task;
+    }
+
+    /**
+     * Returns {@code true} if the numeric values are stored sparsely
+     * @return {@code true} if the numeric values are stored sparsely
+     */
+    public boolean isSparse()
+    {
+        return sparse;
+    }
+
+    /**
+     * Returns the total number of numeric values stored in the file
+     * @return the total number of numeric values stored in the file
+     */
+    public long getStoredValueCount()
+    {
+        return nnz;
+    }
+
+    /**
+     * Returns the number of numeric features
+     * @return the number of numeric features
+     */
+    public int getNumNumericalVars()
+    {
+        return numNumeric;
+    }
+
+    /**
+     * Returns the number of categorical features
+     * @return the number of categorical features
+     */
+    public int getNumCategoricalVars()
+    {
+        return numCategorical;
+    }
+
+    /**
+     * Returns the information about each categorical feature
+     * @return the information about each categorical feature
+     */
+    public CategoricalData[] getCategories()
+    {
+        return categories;
+    }
+
+    /**
+     * Returns the information about the target class, or {@code null} if the
+     * file is not for a classification problem
+     * @return the information about the target class
+     */
+    public CategoricalData getPredicting()
+    {
+        return predicting;
+    }
+
+    /**
+     * Returns the names of the numeric features, or {@code null} if no names
+     * were stored
+     * @return the names of the numeric features
+     */
+    public List<String> getNumericNames()
+    {
+        return numericNames;
+    }
+
+    /**
+     * Reads the numeric values of the given row into a new vector. A
+     * {@link SparseVector} is returned for sparse files and a
+     * {@link DenseVector} otherwise.
+     *
+     * @param row the row index
+     * @return a new vector containing the numeric values of the row
+     */
+    public Vec getNumericalValues(int row)
+    {
+        rangeCheck(row);
+        if(sparse)
+        {
+            long start = getLong(rowPtrOffset + row*8L);
+            long end = getLong(rowPtrOffset + (row+1)*8L);
+            int used = (int) (end-start);
+            int[] indexes = new int[used];
+            double[] values = new double[used];
+            long indexPos = indexOffset + start*4;
+            long valuePos = valueOffset + start*8;
+            for(int k = 0; k < used; k++)
+            {
+                indexes[k] = getInt(indexPos + k*4L);
+                values[k] = getDouble(valuePos + k*8L);
+            }
+            return new SparseVector(indexes, values, Math.max(numNumeric, 1), used);
+        }
+        else
+        {
+            double[] values = new double[numNumeric];
+            long valuePos = valueOffset + row*(long)numNumeric*8;
+            for(int j = 0; j < values.length; j++)
+                values[j] = getDouble(valuePos + j*8L);
+            return new DenseVector(values);
+        }
+    }
+
+    /**
+     * Reads the categorical values of the given row into a new array
+     * @param row the row index
+     * @return a new array containing the categorical values of the row
+     */
+    public int[] getCategoricalValues(int row)
+    {
+        rangeCheck(row);
+        if(numCategorical == 0)
+            return emptyInt;
+        int[] cats = new int[numCategorical];
+        long pos = catOffset + row*(long)numCategorical*4;
+        for(int j = 0; j < cats.length; j++)
+            cats[j] = getInt(pos + j*4L);
+        return cats;
+    }
+
+    /**
+     * Returns the weight of the given row
+     * @param row the row index
+     * @return the weight of the given row
+     */
+    public double getWeight(int row)
+    {
+        rangeCheck(row);
+        return getDouble(weightOffset + row*8L);
+    }
+
+    /**
+     * Returns the class label of the given row
+     * @param row the row index
+     * @return the class label of the given row
+     */
+    public int getLabel(int row)
+    {
+        if(task != Task.CLASSIFICATION)
+            throw new UnsupportedOperationException("File does not contain class labels");
+        rangeCheck(row);
+        return getInt(labelOffset + row*4L);
+    }
+
+    /**
+     * Returns the regression target of the given row
+     * @param row the row index
+     * @return the regression target of the given row
+     */
+    public double getTarget(int row)
+    {
+        if(task != Task.REGRESSION)
+            throw new UnsupportedOperationException("File does not contain regression targets");
+        rangeCheck(row);
+        return getDouble(labelOffset + row*8L);
+    }
+
+    /**
+     * Reads the given row into a new data point
+     * @param row the row index
+     * @return a new data point containing the values of the row
+     */
+    public DataPoint getDataPoint(int row)
+    {
+        return new DataPoint(getNumericalValues(row), getCategoricalValues(row), categories, getWeight(row));
+    }
+}
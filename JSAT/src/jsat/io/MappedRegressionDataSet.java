@@ -0,0 +1,144 @@
+package jsat.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.io.BinaryDataFormat.Task;
+import jsat.linear.Vec;
+import jsat.regression.RegressionDataSet;
+
+/**
+ * A read only {@link RegressionDataSet} backed by a memory mapped file in the
+ * {@link BinaryDataFormat}. Data points are read from the file when they are
+ * requested, so the data set can be much larger than the available heap. This
+ * is best used with algorithms that make passes over the data, such as the
+ * {@link jsat.regression.UpdateableRegressor UpdateableRegressors}.
+ * <br><br>
+ * Data points and target values can not be added or replaced, so transforms
+ * can not be applied to this data set. Data points and pairs returned are new
+ * objects, and altering them will not change the file. Altering the weights of
+ * data points is only supported for data sets returned by
+ * {@link #getTwiceShallowClone() }, which keep the weights in memory.
+ *
+ * @author Edward Raff
+ */
+public class MappedRegressionDataSet extends RegressionDataSet
+{
+    private final MappedRows rows;
+
+    /**
+     * Opens a new data set from the given file
+     * @param file the binary file to read
+     * @throws IOException if the file could not be opened
+     */
+    public MappedRegressionDataSet(File file) throws IOException
+    {
+        this(new MappedDataStore(file));
+    }
+
+    /**
+     * Creates a new data set backed by the given store
+     * @param store the store to read from
+     */
+    public MappedRegressionDataSet(MappedDataStore store)
+    {
+        this(new MappedRows(store));
+        if(store.getTask() != Task.REGRESSION)
+            throw new IllegalArgumentException("File does not contain a regression problem, it is " + store.getTask());
+    }
+
+    private MappedRegressionDataSet(MappedRows rows)
+    {
+        super(rows.store.getNumNumericalVars(), rows.store.getCategories());
+        this.rows = rows;
+        this.dataPoints = null;
+        List<String> names = rows.store.getNumericNames();
+        if(names != null)
+            this.numericalVariableNames = new ArrayList<String>(names);
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        return rows.getDataPoint(i);
+    }
+
+    @Override
+    public DataPointPair<Double> getDataPointPair(int i)
+    {
+        return new DataPointPair<Double>(getDataPoint(i), getTargetValue(i));
+    }
+
+    @Override
+    public double getTargetValue(int i)
+    {
+        return rows.store.getTarget(rows.row(i));
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public List<Vec> getDataVectors()
+    {
+        return rows.getVectors();
+    }
+
+    @Override
+    public List<DataPoint> getDataPoints()
+    {
+        return rows.getPoints();
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        throw new UnsupportedOperationException("MappedRegressionDataSet is read only");
+    }
+
+    @Override
+    public void setTargetValue(int i, double val)
+    {
+        throw new UnsupportedOperationException("MappedRegressionDataSet is read only");
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, double val)
+    {
+        throw new UnsupportedOperationException("MappedRegressionDataSet is read only");
+    }
+
+    @Override
+    public void addDataPointPair(DataPointPair<Double> pair)
+    {
+        throw new UnsupportedOperationException("MappedRegressionDataSet is read only");
+    }
+
+    @Override
+    public List<RegressionDataSet> cvSet(int folds, Random rand)
+    {
+        List<RegressionDataSet> cvList = new ArrayList<RegressionDataSet>(folds);
+        for(MappedRows fold : rows.split(folds, rand))
+            cvList.add(new MappedRegressionDataSet(fold));
+        return cvList;
+    }
+
+    @Override
+    public MappedRegressionDataSet shallowClone()
+    {
+        return new MappedRegressionDataSet(rows.copy());
+    }
+
+    @Override
+    public MappedRegressionDataSet getTwiceShallowClone()
+    {
+        return new MappedRegressionDataSet(rows.copyWithOwnWeights());
+    }
+}
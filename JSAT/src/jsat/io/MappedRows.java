@@ -0,0 +1,190 @@
+package jsat.io;
+
+import java.util.*;
+import jsat.classifiers.DataPoint;
+import jsat.linear.Vec;
+
+/**
+ * Selects the rows of a {@link MappedDataStore} used by a mapped data set,
+ * and optionally holds in-memory weights that override the weights stored in
+ * the file. This is shared by the mapped data set implementations.
+ *
+ * @author Edward Raff
+ */
+class MappedRows
+{
+    final MappedDataStore store;
+    /**
+     * The rows of the store in use, or {@code null} to use all of them
+     */
+    private final int[] rows;
+    /**
+     * The weights for each row, or {@code null} to use the weights in the file
+     */
+    private double[] weights;
+
+    public MappedRows(MappedDataStore store)
+    {
+        this(store, null, null);
+    }
+
+    private MappedRows(MappedDataStore store, int[] rows, double[] weights)
+    {
+        this.store = store;
+        this.rows = rows;
+        this.weights = weights;
+    }
+
+    public int size()
+    {
+        return rows == null ? store.size() : rows.length;
+    }
+
+    /**
+     * Returns the row in the store for the given data set index
+     * @param i the data set index
+     * @return the row in the store
+     */
+    public int row(int i)
+    {
+        if(i < 0 || i >= size())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set: " + i);
+        return rows == null ? i : rows[i];
+    }
+
+    public DataPoint getDataPoint(final int i)
+    {
+        int r = row(i);
+        if(weights == null)
+            return store.getDataPoint(r);
+        return new DataPoint(store.getNumericalValues(r), store.getCategoricalValues(r), store.getCategories(), weights[i])
+        {
+            @Override
+            public double getWeight()
+            {
+                return weights[i];
+            }
+
+            @Override
+            public void setWeight(double weight)
+            {
+                super.setWeight(weight);
+                weights[i] = weight;
+            }
+
+            @Override
+            public DataPoint clone()
+            {
+                return new DataPoint(getNumericalValues().clone(), Arrays.copyOf(getCategoricalValues(), numCategoricalValues()), getCategoricalData(), getWeight());
+            }
+        };
+    }
+
+    /**
+     * Returns a read only list that reads each vector from the store when it
+     * is requested.
+     * @return a lazy list of the numeric vectors
+     */
+    public List<Vec> getVectors()
+    {
+        return new LazyList<Vec>()
+        {
+            @Override
+            public Vec get(int index)
+            {
+                return store.getNumericalValues(row(index));
+            }
+        };
+    }
+
+    /**
+     * Returns a read only list that reads each data point from the store when
+     * it is requested.
+     * @return a lazy list of the data points
+     */
+    public List<DataPoint> getPoints()
+    {
+        return new LazyList<DataPoint>()
+        {
+            @Override
+            public DataPoint get(int index)
+            {
+                return getDataPoint(index);
+            }
+        };
+    }
+
+    /**
+     * Randomly splits the rows into disjoint folds
+     * @param folds the number of folds
+     * @param rand the source of randomness
+     * @return the list of folds
+     */
+    public List<MappedRows> split(int folds, Random rand)
+    {
+        int n = size();
+        int[] order = new int[n];
+        for(int i = 0; i < n; i++)
+            order[i] = i;
+        for(int i = n-1; i > 0; i--)
+        {
+            int j = rand.nextInt(i+1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        List<MappedRows> cvList = new ArrayList<MappedRows>(folds);
+        for(int f = 0; f < folds; f++)
+        {
+            int foldSize = n/folds + (f < n%folds ? 1 : 0);
+            int[] foldRows = new int[foldSize];
+            double[] foldWeights = weights == null ? null : new double[foldSize];
+            for(int k = 0, i = f; i < n; i += folds, k++)
+            {
+                foldRows[k] = row(order[i]);
+                if(foldWeights != null)
+                    foldWeights[k] = weights[order[i]];
+            }
+            cvList.add(new MappedRows(store, foldRows, foldWeights));
+        }
+        return cvList;
+    }
+
+    /**
+     * Creates a copy that uses the same rows, but has its own weights
+     * @return a copy that has its own weights
+     */
+    public MappedRows copyWithOwnWeights()
+    {
+        double[] newWeights;
+        if(weights != null)
+            newWeights = Arrays.copyOf(weights, weights.length);
+        else
+        {
+            newWeights = new double[size()];
+            for(int i = 0; i < newWeights.length; i++)
+                newWeights[i] = store.getWeight(row(i));
+        }
+        return new MappedRows(store, rows, newWeights);
+    }
+
+    /**
+     * Creates a copy that uses the same rows and the same weights source as
+     * this object
+     * @return a copy of this object
+     */
+    public MappedRows copy()
+    {
+        return new MappedRows(store, rows, weights == null ? null : Arrays.copyOf(weights, weights.length));
+    }
+
+    private abstract class LazyList<T> extends AbstractList<T> implements RandomAccess
+    {
+        @Override
+        public int size()
+        {
+            return MappedRows.this.size();
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package jsat.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import jsat.linear.CSRBlock;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import jsat.utils.FakeExecutor;
+import jsat.utils.StringUtils;
+import jsat.utils.SystemInfo;
+
+/**
+ * Parses a LIBSVM file in parallel. The file is memory mapped and split into
+ * chunks that start and end on line boundaries, and each chunk is parsed by a
+ * separate task. Labels, indices and values are parsed directly from the
+ * mapped bytes using the same routines as {@link LIBSVMLoader}, without
+ * creating intermediate {@link String} or {@link Double} objects.
+ *
+ * @author Edward Raff
+ */
+class ParallelLIBSVMParser
+{
+    /**
+     * The largest number of bytes that will be given to a single chunk
+     */
+    private static final long MAX_CHUNK_SIZE = 64*1024*1024;
+
+    /**
+     * The number of rows in the file
+     */
+    int rows;
+    /**
+     * The label of each row, as a raw double
+     */
+    double[] labels;
+    /**
+     * The length of the longest row, which is the largest index seen plus one
+     */
+    int maxLen = 1;
+    /**
+     * The vector for each row, if the rows were parsed into separate vectors
+     */
+    Vec[] vecs;
+    /**
+     * The single block holding all of the rows, if a CSR block was requested
+     */
+    CSRBlock block;
+
+    private ParallelLIBSVMParser()
+    {
+    }
+
+    /**
+     * Parses the given file
+     * @param file the file to parse
+     * @param csr {@code true} to place all rows in a single {@link CSRBlock},
+     * {@code false} to create a {@link SparseVector} for each row
+     * @param threadPool the source of threads to use
+     * @return the parsed contents of the file
+     * @throws IOException if an error occurred reading the file
+     */
+    public static ParallelLIBSVMParser parse(File file, boolean csr, ExecutorService threadPool) throws IOException
+    {
+        if(threadPool == null)
+            threadPool = new FakeExecutor();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            final FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            long[] bounds = findChunkBounds(channel, size);
+            final int chunks = bounds.length-1;
+
+            final Chunk[] results = new Chunk[chunks];
+            final Throwable[] errors = new Throwable[chunks];
+            final CountDownLatch latch = new CountDownLatch(chunks);
+            for(int c = 0; c < chunks; c++)
+            {
+                final int id = c;
+                final long start = bounds[c];
+                final long length = bounds[c+1]-bounds[c];
+                final boolean makeVecs = !csr;
+                threadPool.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            Chunk chunk = new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+                            chunk.parse();
+                            if(makeVecs)
+                                chunk.makeVecs();
+                            results[id] = chunk;
+                        }
+                        catch (Throwable ex)
+                        {
+                            errors[id] = ex;
+                        }
+                        finally
+                        {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+
+            try
+            {
+                latch.await();
+            }
+            catch (InterruptedException ex)
+            {
+                throw new InterruptedIOException("Interrupted while parsing " + file);
+            }
+
+            for(Throwable error : errors)
+                if(error instanceof IOException)
+                    throw (IOException) error;
+                else if(error instanceof RuntimeException)
+                    throw (RuntimeException) error;
+                else if(error instanceof Error)
+                    throw (Error) error;
+                else if(error != null)
+                    throw new RuntimeException(error);
+
+            return merge(results, csr);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    /**
+     * Splits the file into chunks that start at the beginning of a line
+     * @return an array of length <i>chunks</i>+1 with the boundaries of each
+     * chunk
+     */
+    private static long[] findChunkBounds(FileChannel channel, long size) throws IOException
+    {
+        int chunks = (int) Math.max(SystemInfo.LogicalCores*4, size/MAX_CHUNK_SIZE+1);
+        chunks = (int) Math.max(1, Math.min(chunks, size));
+        long[] bounds = new long[chunks+1];
+        int used = 1;
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        for(int c = 1; c < chunks; c++)
+        {
+            long pos = Math.max(size*c/chunks, bounds[used-1]);
+            long lineStart = findLineStart(channel, pos, size, buf);
+            if(lineStart > bounds[used-1] && lineStart < size)
+                bounds[used++] = lineStart;
+        }
+        bounds[used++] = size;
+        return Arrays.copyOf(bounds, used);
+    }
+
+    /**
+     * Finds the first position at or after {@code pos} that is the start of a
+     * line
+     */
+    private static long findLineStart(FileChannel channel, long pos, long size, ByteBuffer buf) throws IOException
+    {
+        if(pos <= 0)
+            return 0;
+        long readPos = pos-1;//if the prior byte was the new line, pos is the start
+        while(readPos < size)
+        {
+            buf.clear();
+            int read = channel.read(buf, readPos);
+            if(read <= 0)
+                break;
+            for(int i = 0; i < read; i++)
+                if(buf.get(i) == '\n')
+                    return readPos+i+1;
+            readPos += read;
+        }
+        return size;
+    }
+
+    private static ParallelLIBSVMParser merge(Chunk[] results, boolean csr)
+    {
+        ParallelLIBSVMParser parsed = new ParallelLIBSVMParser();
+        long totalNNZ = 0;
+        for(Chunk chunk : results)
+        {
+            parsed.rows += chunk.rows;
+            parsed.maxLen = Math.max(parsed.maxLen, chunk.maxLen);
+            totalNNZ += chunk.nnz;
+        }
+
+        parsed.labels = new double[parsed.rows];
+        int rowOffset = 0;
+        for(Chunk chunk : results)
+        {
+            System.arraycopy(chunk.labels, 0, parsed.labels, rowOffset, chunk.rows);
+            rowOffset += chunk.rows;
+        }
+
+        if(!csr)
+        {
+            parsed.vecs = new Vec[parsed.rows];
+            rowOffset = 0;
+            for(Chunk chunk : results)
+            {
+                System.arraycopy(chunk.vecs, 0, parsed.vecs, rowOffset, chunk.rows);
+                rowOffset += chunk.rows;
+            }
+            return parsed;
+        }
+
+        if(totalNNZ > Integer.MAX_VALUE-8)
+            throw new IllegalArgumentException("File contains " + totalNNZ + " non zero values, more than can be stored in a single CSR block");
+        int[] rowPtr = new int[parsed.rows+1];
+        int[] indexes = new int[(int) totalNNZ];
+        double[] values = new double[(int) totalNNZ];
+        rowOffset = 0;
+        int nnzOffset = 0;
+        for(Chunk chunk : results)
+        {
+            for(int i = 0; i < chunk.rows; i++)
+                rowPtr[rowOffset+i] = nnzOffset + chunk.rowPtr[i];
+            System.arraycopy(chunk.indexes, 0, indexes, nnzOffset, chunk.nnz);
+            System.arraycopy(chunk.values, 0, values, nnzOffset, chunk.nnz);
+            rowOffset += chunk.rows;
+            nnzOffset += chunk.nnz;
+            //let the chunk's buffers be collected
+            chunk.indexes = null;
+            chunk.values = null;
+        }
+        rowPtr[parsed.rows] = nnzOffset;
+        parsed.block = new CSRBlock(rowPtr, indexes, values, parsed.maxLen);
+        return parsed;
+    }
+
+    /**
+     * Sets the length of every vector to the given value
+     * @param length the length for every vector
+     */
+    void setLength(int length)
+    {
+        if(block != null)
+        {
+            int[] indexes = block.getIndexes();
+            for(int i = 0; i < block.nnz(); i++)
+                if(indexes[i] >= length)
+                    throw new IllegalArgumentException("Vector length " + length + " is smaller than index " + indexes[i] + " in the file");
+            block = new CSRBlock(block.getRowPointers(), indexes, block.getValues(), length);
+        }
+        else
+            for(Vec vec : vecs)
+                ((SparseVector) vec).setLength(length);
+    }
+
+    /**
+     * Returns the vector for the given row
+     * @param i the row
+     * @return the vector for the row
+     */
+    Vec getVec(int i)
+    {
+        if(block != null)
+            return block.getRowView(i);
+        return vecs[i];
+    }
+
+    /**
+     * Presents a region of a byte buffer as a sequence of characters, so that
+     * the parsing methods of {@link StringUtils} can be used directly on the
+     * bytes of the file.
+     */
+    private static class ByteSequence implements CharSequence
+    {
+        private final ByteBuffer buf;
+
+        public ByteSequence(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        @Override
+        public int length()
+        {
+            return buf.limit();
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return (char) (buf.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            StringBuilder sb = new StringBuilder(end-start);
+            for(int i = start; i < end; i++)
+                sb.append(charAt(i));
+            return sb;
+        }
+
+        @Override
+        public String toString()
+        {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    /**
+     * The parsed contents of one chunk of the file, kept in CSR form
+     */
+    private static class Chunk
+    {
+        final ByteBuffer buf;
+        int rows = 0;
+        int nnz = 0;
+        int maxLen = 1;
+        double[] labels = new double[1024];
+        int[] rowPtr = new int[1025];
+        int[] indexes = new int[8192];
+        double[] values = new double[8192];
+        Vec[] vecs;
+
+        public Chunk(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        private static boolean isSpace(byte b)
+        {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+
+        public void parse()
+        {
+            final ByteSequence seq = new ByteSequence(buf);
+            final int n = buf.limit();
+            int pos = 0;
+            while(pos < n)
+            {
+                byte b = buf.get(pos);
+                if(isSpace(b))
+                {
+                    pos++;
+                    continue;
+                }
+                //start of a line, which begins with the label
+                int end = pos;
+                while(end < n && !isSpace(buf.get(end)))
+                    end++;
+                //parsed the same way as LIBSVMLoader, so both accept the same labels
+                startRow(Double.parseDouble(seq.subSequence(pos, end).toString()));
+                pos = end;
+
+                while(pos < n && (b = buf.get(pos)) != '\n')
+                {
+                    if(isSpace(b))
+                    {
+                        pos++;
+                        continue;
+                    }
+                    int colon = pos;
+                    while(colon < n && buf.get(colon) != ':')
+                    {
+                        if(isSpace(buf.get(colon)))
+                            throw new NumberFormatException("Expected index:value pair but found '" + seq.subSequence(pos, colon) + "'");
+                        colon++;
+                    }
+                    int index = StringUtils.parseInt(seq, pos, colon)-1;
+                    if(index < 0)
+                        throw new IndexOutOfBoundsException("LIBSVM indices must be positive, not " + (index+1));
+                    int valEnd = colon+1;
+                    while(valEnd < n && !isSpace(buf.get(valEnd)))
+                        valEnd++;
+                    addValue(index, StringUtils.parseDouble(seq, colon+1, valEnd));
+                    pos = valEnd;
+                }
+                endRow();
+            }
+        }
+
+        private void startRow(double label)
+        {
+            if(rows == labels.length)
+            {
+                labels = Arrays.copyOf(labels, labels.length*2);
+                rowPtr = Arrays.copyOf(rowPtr, labels.length+1);
+            }
+            labels[rows] = label;
+            rowPtr[rows] = nnz;
+        }
+
+        private void addValue(int index, double value)
+        {
+            if(nnz == indexes.length)
+            {
+                indexes = Arrays.copyOf(indexes, indexes.length*2);
+                values = Arrays.copyOf(values, values.length*2);
+            }
+            indexes[nnz] = index;
+            values[nnz++] = value;
+            maxLen = Math.max(maxLen, index+1);
+        }
+
+        private void endRow()
+        {
+            int start = rowPtr[rows];
+            boolean clean = true;
+            for(int i = start; i < nnz && clean; i++)
+                if(values[i] == 0 || (i > start && indexes[i-1] >= indexes[i]))
+                    clean = false;
+            if(!clean)
+                nnz = start + normalize(start, nnz);
+            rows++;
+            rowPtr[rows] = nnz;
+        }
+
+        /**
+         * Sorts the row stored in [start, end) by index. If an index occurs
+         * more than once the last value is kept, and zero values are removed,
+         * matching the result of calling {@link SparseVector#set(int, double)}
+         * for each pair.
+         * @return the number of values left in the row
+         */
+        private int normalize(int start, int end)
+        {
+            long[] order = new long[end-start];
+            for(int i = start; i < end; i++)
+                order[i-start] = (((long) indexes[i]) << 32) | (i-start);
+            Arrays.sort(order);
+            int[] newIndexes = new int[order.length];
+            double[] newValues = new double[order.length];
+            int used = 0;
+            for(int k = 0; k < order.length; k++)
+            {
+                int index = (int) (order[k] >>> 32);
+                if(k+1 < order.length && (int) (order[k+1] >>> 32) == index)
+                    continue;//a later value for this index exists
+                double value = values[start + (int) (order[k] & 0xFFFFFFFFL)];
+                if(value == 0)
+                    continue;
+                newIndexes[used] = index;
+                newValues[used++] = value;
+            }
+            System.arraycopy(newIndexes, 0, indexes, start, used);
+            System.arraycopy(newValues, 0, values, start, used);
+            return used;
+        }
+
+        /**
+         * Creates a separate sparse vector for every row, and releases the
+         * buffers of this chunk
+         */
+        public void makeVecs()
+        {
+            vecs = new Vec[rows];
+            for(int i = 0; i < rows; i++)
+            {
+                int used = rowPtr[i+1]-rowPtr[i];
+                int[] rowIndexes = new int[Math.max(used, 1)];
+                double[] rowValues = new double[rowIndexes.length];
+                System.arraycopy(indexes, rowPtr[i], rowIndexes, 0, used);
+                System.arraycopy(values, rowPtr[i], rowValues, 0, used);
+                vecs[i] = new SparseVector(rowIndexes, rowValues, maxLen, used);
+            }
+            indexes = null;
+            values = null;
+        }
+    }
+}
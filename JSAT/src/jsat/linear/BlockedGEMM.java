@@ -0,0 +1,293 @@
+package jsat.linear;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static jsat.utils.SystemInfo.*;
+
+/**
+ * Cache blocked general matrix multiplication for the row arrays of a
+ * {@link DenseMatrix}. This follows the usual layout of high performance GEMM
+ * implementations: <i>C</i> is divided into tiles, and for each tile the
+ * needed blocks of <i>A</i> and <i>B</i> are copied into contiguous packed
+ * panels. A small register blocked kernel then computes a
+ * {@link #MR}x{@link #NR} piece of <i>C</i> at a time from the packed
+ * panels, keeping the panel of <i>B</i> in L1 and the block of <i>A</i> in
+ * L2. Packing also absorbs the transpose of <i>A</i>, so <i>A<sup>T</sup>B</i>
+ * runs through the same kernel. <br>
+ * <br>
+ * When run in parallel, workers take whole tiles of <i>C</i> from a shared
+ * counter until none remain, so the load stays balanced regardless of the
+ * shape of the result. Each tile of <i>C</i> is only written by one worker.
+ *
+ * @author Edward Raff
+ */
+final class BlockedGEMM
+{
+    /**
+     * Number of rows of <i>C</i> computed by the kernel
+     */
+    static final int MR = 4;
+    /**
+     * Number of columns of <i>C</i> computed by the kernel
+     */
+    static final int NR = 4;
+    /**
+     * The inner dimension of the packed panels
+     */
+    static final int KC = 256;
+    /**
+     * Number of rows in a tile of <i>C</i>. The packed block of <i>A</i> is
+     * {@code MC*KC} doubles, which is sized to use half of the L2 cache.
+     */
+    static final int MC;
+    /**
+     * Number of columns in a tile of <i>C</i>
+     */
+    static final int NC = 256;
+
+    static
+    {
+        int mc = L2CacheSize/(2*KC*8);
+        MC = Math.max(MR, mc - mc % MR);
+    }
+
+    private BlockedGEMM()
+    {
+    }
+
+    /**
+     * Computes <i>C = C + op(A) B</i>, where <i>op(A)</i> is either <i>A</i>
+     * or <i>A<sup>T</sup></i>.
+     *
+     * @param A the rows of <i>A</i>, which is <i>M</i> x <i>K</i> if
+     * {@code transA} is {@code false}, and <i>K</i> x <i>M</i> otherwise
+     * @param transA whether or not to use the transpose of <i>A</i>
+     * @param B the rows of <i>B</i>, which is <i>K</i> x <i>N</i>
+     * @param C the rows of <i>C</i>, which is <i>M</i> x <i>N</i>
+     * @param M the number of rows in <i>C</i>
+     * @param N the number of columns in <i>C</i>
+     * @param K the inner dimension of the product
+     * @param threadPool the source of threads, or {@code null} to do all the
+     * work in the calling thread
+     */
+    static void multiply(final double[][] A, final boolean transA, final double[][] B, final double[][] C, final int M, final int N, final int K, ExecutorService threadPool)
+    {
+        if(M == 0 || N == 0 || K == 0)
+            return;
+        final int tilesJ = (N + NC - 1)/NC;
+        final int tiles = ((M + MC - 1)/MC)*tilesJ;
+        final AtomicInteger nextTile = new AtomicInteger();
+        final int workers = threadPool == null ? 1 : Math.min(LogicalCores, tiles);
+        if(workers == 1)
+        {
+            new Worker(A, transA, B, C, M, N, K, tilesJ, tiles, nextTile).run();
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(workers);
+        for(int id = 0; id < workers; id++)
+        {
+            final Worker worker = new Worker(A, transA, B, C, M, N, K, tilesJ, tiles, nextTile);
+            threadPool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        worker.run();
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(BlockedGEMM.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    private static class Worker implements Runnable
+    {
+        final double[][] A, B, C;
+        final boolean transA;
+        final int M, N, K, tilesJ, tiles;
+        final AtomicInteger nextTile;
+        final double[] Ap;
+        final double[] Bp;
+
+        public Worker(double[][] A, boolean transA, double[][] B, double[][] C, int M, int N, int K, int tilesJ, int tiles, AtomicInteger nextTile)
+        {
+            this.A = A;
+            this.transA = transA;
+            this.B = B;
+            this.C = C;
+            this.M = M;
+            this.N = N;
+            this.K = K;
+            this.tilesJ = tilesJ;
+            this.tiles = tiles;
+            this.nextTile = nextTile;
+            //no need for full size buffers when the matrices are small
+            int kc = Math.min(KC, K);
+            this.Ap = new double[Math.min(MC, roundUp(M, MR))*kc];
+            this.Bp = new double[Math.min(NC, roundUp(N, NR))*kc];
+        }
+
+        @Override
+        public void run()
+        {
+            int t;
+            while((t = nextTile.getAndIncrement()) < tiles)
+            {
+                int i0 = (t / tilesJ)*MC;
+                int j0 = (t % tilesJ)*NC;
+                computeTile(i0, Math.min(MC, M-i0), j0, Math.min(NC, N-j0));
+            }
+        }
+
+        private void computeTile(int i0, int mc, int j0, int nc)
+        {
+            for(int p0 = 0; p0 < K; p0 += KC)
+            {
+                int kc = Math.min(KC, K-p0);
+                packB(p0, kc, j0, nc);
+                if(transA)
+                    packAT(i0, mc, p0, kc);
+                else
+                    packA(i0, mc, p0, kc);
+
+                for(int jr = 0; jr < nc; jr += NR)
+                {
+                    int nr = Math.min(NR, nc-jr);
+                    for(int ir = 0; ir < mc; ir += MR)
+                        kernel(kc, ir*kc, jr*kc, i0+ir, Math.min(MR, mc-ir), j0+jr, nr);
+                }
+            }
+        }
+
+        /**
+         * Packs rows [i0, i0+mc) and columns [p0, p0+kc) of <i>A</i> into
+         * panels of {@link #MR} rows, stored one column of the panel at a time
+         */
+        private void packA(int i0, int mc, int p0, int kc)
+        {
+            for(int ir = 0; ir < mc; ir += MR)
+            {
+                int panel = ir*kc;
+                for(int r = 0; r < MR; r++)
+                {
+                    int pos = panel + r;
+                    if(ir + r < mc)
+                    {
+                        double[] A_i = A[i0+ir+r];
+                        for(int k = 0; k < kc; k++, pos += MR)
+                            Ap[pos] = A_i[p0+k];
+                    }
+                    else
+                        for(int k = 0; k < kc; k++, pos += MR)
+                            Ap[pos] = 0.0;
+                }
+            }
+        }
+
+        /**
+         * Same as {@link #packA(int, int, int, int) }, but for <i>A<sup>T</sup></i>,
+         * where the rows of the stored matrix are the columns of the panels
+         */
+        private void packAT(int i0, int mc, int p0, int kc)
+        {
+            for(int k = 0; k < kc; k++)
+            {
+                double[] A_k = A[p0+k];
+                for(int ir = 0; ir < mc; ir += MR)
+                {
+                    int pos = ir*kc + k*MR;
+                    int rows = Math.min(MR, mc-ir);
+                    for(int r = 0; r < rows; r++)
+                        Ap[pos+r] = A_k[i0+ir+r];
+                    for(int r = rows; r < MR; r++)
+                        Ap[pos+r] = 0.0;
+                }
+            }
+        }
+
+        /**
+         * Packs rows [p0, p0+kc) and columns [j0, j0+nc) of <i>B</i> into
+         * panels of {@link #NR} columns, stored one row of the panel at a time
+         */
+        private void packB(int p0, int kc, int j0, int nc)
+        {
+            for(int k = 0; k < kc; k++)
+            {
+                double[] B_k = B[p0+k];
+                for(int jr = 0; jr < nc; jr += NR)
+                {
+                    int pos = jr*kc + k*NR;
+                    int cols = Math.min(NR, nc-jr);
+                    for(int c = 0; c < cols; c++)
+                        Bp[pos+c] = B_k[j0+jr+c];
+                    for(int c = cols; c < NR; c++)
+                        Bp[pos+c] = 0.0;
+                }
+            }
+        }
+
+        /**
+         * Computes a {@link #MR}x{@link #NR} block of <i>C</i> from one panel
+         * of each packed buffer. The accumulators are locals so that they can
+         * be kept in registers for the whole inner loop.
+         */
+        private void kernel(int kc, int a, int b, int i, int mr, int j, int nr)
+        {
+            final double[] Ap = this.Ap;
+            final double[] Bp = this.Bp;
+            double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+            double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+            double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+            double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+            for(int k = 0; k < kc; k++, a += MR, b += NR)
+            {
+                double a0 = Ap[a], a1 = Ap[a+1], a2 = Ap[a+2], a3 = Ap[a+3];
+                double b0 = Bp[b], b1 = Bp[b+1], b2 = Bp[b+2], b3 = Bp[b+3];
+                c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+                c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+                c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+                c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+            }
+            addRow(C[i], j, nr, c00, c01, c02, c03);
+            if(mr > 1)
+                addRow(C[i+1], j, nr, c10, c11, c12, c13);
+            if(mr > 2)
+                addRow(C[i+2], j, nr, c20, c21, c22, c23);
+            if(mr > 3)
+                addRow(C[i+3], j, nr, c30, c31, c32, c33);
+        }
+    }
+
+    private static void addRow(double[] C_i, int j, int nr, double v0, double v1, double v2, double v3)
+    {
+        C_i[j] += v0;
+        if(nr > 1)
+            C_i[j+1] += v1;
+        if(nr > 2)
+            C_i[j+2] += v2;
+        if(nr > 3)
+            C_i[j+3] += v3;
+    }
+
+    private static int roundUp(int x, int multiple)
+    {
+        return ((x + multiple - 1)/multiple)*multiple;
+    }
+}
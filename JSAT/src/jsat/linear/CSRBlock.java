@@ -0,0 +1,324 @@
+package jsat.linear;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact block of sparse rows stored in the Compressed Sparse Row (CSR)
+ * format. The non zero values of all rows are kept in a single pair of index
+ * and value arrays, with a third array marking where each row begins. This
+ * avoids the per row object and array overhead of one {@link SparseVector}
+ * per row, which is significant for large data sets with few non zero values
+ * per row. <br>
+ * <br>
+ * Rows are accessed through light weight views returned by
+ * {@link #getRowView(int) }. The views can have their existing non zero values
+ * altered, but can not store a non zero value in a new index. Operations that
+ * need to do so should be done on a {@link Vec#clone() clone}, which returns a
+ * normal {@link SparseVector}.
+ *
+ * @author Edward Raff
+ */
+public class CSRBlock implements Serializable
+{
+    private static final long serialVersionUID = -2387457932476417013L;
+    private final int[] rowPtr;
+    private final int[] indexes;
+    private final double[] values;
+    private final int cols;
+
+    /**
+     * Creates a new CSR block backed by the given arrays. No copies are made
+     * and the arrays are not validated. The indices of each row must be in
+     * increasing order.
+     *
+     * @param rowPtr an array of length <i>rows</i>+1, where the non zero values
+     * of row <i>i</i> are stored in positions [rowPtr[i], rowPtr[i+1]) of the
+     * other two arrays
+     * @param indexes the column index of each non zero value
+     * @param values the non zero values
+     * @param cols the number of columns, which is the length of each row
+     */
+    public CSRBlock(int[] rowPtr, int[] indexes, double[] values, int cols)
+    {
+        if(rowPtr.length < 1)
+            throw new IllegalArgumentException("rowPtr must contain at least one value");
+        if(indexes.length < rowPtr[rowPtr.length-1] || values.length < rowPtr[rowPtr.length-1])
+            throw new IllegalArgumentException("index and value arrays are smaller than the number of non zero values");
+        if(cols <= 0)
+            throw new IllegalArgumentException("Number of columns must be positive, not " + cols);
+        this.rowPtr = rowPtr;
+        this.indexes = indexes;
+        this.values = values;
+        this.cols = cols;
+    }
+
+    /**
+     * Returns the number of rows in this block
+     * @return the number of rows in this block
+     */
+    public int rows()
+    {
+        return rowPtr.length-1;
+    }
+
+    /**
+     * Returns the number of columns in this block
+     * @return the number of columns in this block
+     */
+    public int cols()
+    {
+        return cols;
+    }
+
+    /**
+     * Returns the total number of non zero values stored in this block
+     * @return the number of non zero values stored
+     */
+    public int nnz()
+    {
+        return rowPtr[rowPtr.length-1];
+    }
+
+    /**
+     * Returns the array marking the start of each row. Altering the array will
+     * alter this block.
+     * @return the row pointer array
+     */
+    public int[] getRowPointers()
+    {
+        return rowPtr;
+    }
+
+    /**
+     * Returns the array of column indices. Altering the array will alter this
+     * block.
+     * @return the column index array
+     */
+    public int[] getIndexes()
+    {
+        return indexes;
+    }
+
+    /**
+     * Returns the array of non zero values. Altering the array will alter this
+     * block.
+     * @return the value array
+     */
+    public double[] getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Returns a vector view of the given row. The view shares the storage of
+     * this block.
+     * @param r the row to obtain a view of
+     * @return a vector view of the row
+     */
+    public Vec getRowView(int r)
+    {
+        if(r < 0 || r >= rows())
+            throw new IndexOutOfBoundsException("Row " + r + " is not in the range [0, " + rows() + ")");
+        return new RowView(rowPtr[r], rowPtr[r+1]);
+    }
+
+    private class RowView extends Vec
+    {
+        private static final long serialVersionUID = 3126436937409446519L;
+        private final int start;
+        private final int end;
+
+        public RowView(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the position of the index in the backing arrays, or a
+         * negative value if it is not stored
+         */
+        private int find(int index)
+        {
+            if(index < 0 || index >= cols)
+                throw new IndexOutOfBoundsException("Can not access an index larger then the vector or a negative index");
+            return Arrays.binarySearch(indexes, start, end, index);
+        }
+
+        @Override
+        public int length()
+        {
+            return cols;
+        }
+
+        @Override
+        public int nnz()
+        {
+            return end-start;
+        }
+
+        @Override
+        public boolean canBeMutated()
+        {
+            return false;
+        }
+
+        @Override
+        public double get(int index)
+        {
+            int pos = find(index);
+            return pos < 0 ? 0.0 : values[pos];
+        }
+
+        @Override
+        public void set(int index, double val)
+        {
+            int pos = find(index);
+            if(pos >= 0)
+                values[pos] = val;
+            else if(val != 0)
+                throw new UnsupportedOperationException("Can not add a new non zero value to a CSR row");
+        }
+
+        @Override
+        public void increment(int index, double val)
+        {
+            set(index, get(index)+val);
+        }
+
+        @Override
+        public void mutableMultiply(double c)
+        {
+            for(int i = start; i < end; i++)
+                values[i] *= c;
+        }
+
+        @Override
+        public void mutableDivide(double c)
+        {
+            for(int i = start; i < end; i++)
+                values[i] /= c;
+        }
+
+        @Override
+        public void zeroOut()
+        {
+            for(int i = start; i < end; i++)
+                values[i] = 0;
+        }
+
+        @Override
+        public double sum()
+        {
+            double sum = 0;
+            for(int i = start; i < end; i++)
+                sum += values[i];
+            return sum;
+        }
+
+        @Override
+        public double pNorm(double p)
+        {
+            if(p <= 0)
+                throw new IllegalArgumentException("norm must be a positive value, not " + p);
+            double result = 0;
+            if(p == 1)
+                for(int i = start; i < end; i++)
+                    result += Math.abs(values[i]);
+            else if(p == 2)
+            {
+                for(int i = start; i < end; i++)
+                    result += values[i]*values[i];
+                return Math.sqrt(result);
+            }
+            else
+                for(int i = start; i < end; i++)
+                    result += Math.pow(Math.abs(values[i]), p);
+            return Math.pow(result, 1/p);
+        }
+
+        @Override
+        public double dot(Vec v)
+        {
+            if(v.isSparse())
+                return super.dot(v);
+            double dot = 0;
+            for(int i = start; i < end; i++)
+                dot += values[i]*v.get(indexes[i]);
+            return dot;
+        }
+
+        @Override
+        public void multiply(double c, Matrix A, Vec b)
+        {
+            if(this.length() != A.rows())
+                throw new ArithmeticException("Vector x Matrix dimensions do not agree");
+            else if(b.length() != A.cols())
+                throw new ArithmeticException("Destination vector is not the right size");
+            for(int i = start; i < end; i++)
+            {
+                double val = c*values[i];
+                int index = indexes[i];
+                for(int j = 0; j < A.cols(); j++)
+                    b.increment(j, val*A.get(index, j));
+            }
+        }
+
+        @Override
+        public boolean isSparse()
+        {
+            return true;
+        }
+
+        @Override
+        public SparseVector clone()
+        {
+            int used = end-start;
+            int[] newIndexes = new int[Math.max(used, 1)];
+            double[] newValues = new double[newIndexes.length];
+            System.arraycopy(indexes, start, newIndexes, 0, used);
+            System.arraycopy(values, start, newValues, 0, used);
+            return new SparseVector(newIndexes, newValues, cols, used);
+        }
+
+        @Override
+        public Iterator<IndexValue> getNonZeroIterator(int startIndex)
+        {
+            int pos = startIndex <= 0 ? start : Arrays.binarySearch(indexes, start, end, startIndex);
+            if(pos < 0)
+                pos = -(pos+1);
+            final int first = pos;
+            return new Iterator<IndexValue>()
+            {
+                int cur = first;
+                final IndexValue indexValue = new IndexValue(-1, Double.NaN);
+
+                @Override
+                public boolean hasNext()
+                {
+                    return cur < end;
+                }
+
+                @Override
+                public IndexValue next()
+                {
+                    if(cur >= end)
+                        throw new NoSuchElementException();
+                    indexValue.setIndex(indexes[cur]);
+                    indexValue.setValue(values[cur]);
+                    cur++;
+                    return indexValue;
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException("Not supported yet.");
+                }
+            };
+        }
+    }
+}
@@ -131,38 +131,6 @@ public class DenseMatrix extends GenericMatrix
         }
     }
     
-    private Matrix blockMultiply(Matrix b)
-    {
-        if(!canMultiply(this, b))
-            throw new ArithmeticException("Matrix dimensions do not agree");
-        DenseMatrix result = new DenseMatrix(this.rows(), b.cols());
-        ///Should choose step size such that 2*NB2^2 * dataTypeSize <= CacheSize
-        
-        int iLimit = result.rows();
-        int jLimit = result.cols();
-        int kLimit = this.cols();
-        
-        for(int i0 = 0; i0 < iLimit; i0+=NB2)
-            for(int k0 = 0; k0 < kLimit; k0+=NB2)
-                for(int j0 = 0; j0 < jLimit; j0+=NB2)
-                {
-                    for(int i = i0; i < min(i0+NB2, iLimit); i++)
-                    {
-                        double[] c_row_i = result.matrix[i];
-                        
-                        for(int k = k0; k < min(k0+NB2, kLimit); k++)
-                        {
-                            double a = this.matrix[i][k];
-                            
-                            for(int j = j0; j < min(j0+NB2, jLimit); j++)
-                                c_row_i[j] += a * b.get(k, j);
-                            }
-                        }
-                    }
-        
-        return result;
-    }
-
     /**
      * Copies the values from A_k to vk
      * @param k the k+1 index copying will start at
@@ -259,73 +227,10 @@ public class DenseMatrix extends GenericMatrix
             matrix[i] = new double[cols()];
     }
     
-    private class BlockMultRun implements Runnable
-    {
-        final CountDownLatch latch;
-        final DenseMatrix result;
-        final DenseMatrix b;
-        final int kLimit, jLimit, iLimit, threadID;
-        
-        public BlockMultRun(CountDownLatch latch, DenseMatrix result, DenseMatrix b, int threadID)
-        {
-            this.latch = latch;
-            this.result = result;
-            this.b = b;
-            this.kLimit = cols();
-            this.jLimit = result.cols();
-            this.iLimit = result.cols();
-            this.threadID = threadID;
-        }
-        
-        public void run()
-        {
-            for (int i0 = NB2 * threadID; i0 < iLimit; i0 += NB2 * LogicalCores)
-                for (int k0 = 0; k0 < kLimit; k0 += NB2)
-                    for (int j0 = 0; j0 < jLimit; j0 += NB2)
-                        for (int i = i0; i < min(i0 + NB2, iLimit); i++)
-                        {
-                            double[] Ci = result.matrix[i];
-
-                            for (int k = k0; k < min(k0 + NB2, kLimit); k++)
-                            {
-                                double a = matrix[i][k];
-                                double[] Bk = b.matrix[k];
-
-                                for (int j = j0; j < min(j0 + NB2, jLimit); j++)
-                                    Ci[j] += a * Bk[j];
-                            }
-                        }
-
-            latch.countDown();
-        }
-        
-    }
-    
-    private void blockMultiply(DenseMatrix b, ExecutorService threadPool, DenseMatrix C)
-    {
-        if(!canMultiply(this, b))
-            throw new ArithmeticException("Matrix dimensions do not agree");
-        else if(this.rows() != C.rows() || b.cols() != C.cols())
-            throw new ArithmeticException("Destination matrix does not match the multiplication dimensions");
-        
-        CountDownLatch latch = new CountDownLatch(LogicalCores);
-        
-        for(int threadID = 0; threadID < LogicalCores; threadID++)
-            threadPool.submit(new BlockMultRun(latch, C, b, threadID));
-        try
-        {
-            latch.await();
-        }
-        catch (InterruptedException ex)
-        {
-            Logger.getLogger(DenseMatrix.class.getName()).log(Level.SEVERE, null, ex);
-        }
-    }
-    
     @Override
     public void transposeMultiply(final Matrix b, Matrix C)
     {
-        transposeMultiply(b, C, new FakeExecutor());
+        transposeMultiply(b, C, null);
     }
             
     
@@ -336,66 +241,15 @@ public class DenseMatrix extends GenericMatrix
             throw new ArithmeticException("Matrix dimensions do not agree [" + this.cols() + ", " + this.rows()+ "] * [" + b.rows() + ", " + b.cols() + "]");
         else if(this.cols() != C.rows() || b.cols() != C.cols())
             throw new ArithmeticException("Destination matrix does not have matching dimensions");
-        final DenseMatrix A = this;
         
         //We only want to take care of the case where everything is of this class. Else let the generic version handle quirks
          if( !(b instanceof DenseMatrix && C instanceof  DenseMatrix) )
          {
-             super.transposeMultiply(b, C, threadPool);
+             super.transposeMultiply(b, C, threadPool == null ? new FakeExecutor() : threadPool);
              return;
          }
         
-        final int iLimit = C.rows();
-        final int jLimit = C.cols();
-        final int kLimit = this.rows();
-        final int blockStep = Math.min(NB2, Math.max(iLimit/LogicalCores, 1));//reduce block size so we can use all cores if needed.
-        
-        final CountDownLatch cdl = new CountDownLatch(LogicalCores);
-        
-        for(int threadNum = 0; threadNum < LogicalCores; threadNum++)
-        {
-            final int threadID = threadNum;
-            threadPool.submit(new Runnable() {
-
-                public void run()
-                {
-                    DenseMatrix BB = (DenseMatrix) b;
-                    DenseMatrix CC = (DenseMatrix) C;
-                    for (int i0 = blockStep * threadID; i0 < iLimit; i0 += blockStep * LogicalCores)
-                        for (int k0 = 0; k0 < kLimit; k0 += blockStep)
-                            for (int j0 = 0; j0 < jLimit; j0 += blockStep)
-                            {
-                                for (int k = k0; k < min(k0 + blockStep, kLimit); k++)
-                                {
-                                    double[] A_row_k = A.matrix[k];
-                                    double[] B_row_k = BB.matrix[k];
-
-                                    for (int i = i0; i < min(i0 + blockStep, iLimit); i++)
-                                    {
-                                        final double a = A_row_k[i];
-                                        final double[] c_row_i = CC.matrix[i];
-
-                                        for (int j = j0; j < min(j0 + blockStep, jLimit); j++)
-                                            c_row_i[j] += a * B_row_k[j];
-                                    }
-                                }
-                            }
-                    
-                    cdl.countDown();
-                }
-            });
-        }
-        
-        
-        try
-        {
-            cdl.await();
-        }
-        catch (InterruptedException ex)
-        {
-            Logger.getLogger(DenseMatrix.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        
+        BlockedGEMM.multiply(matrix, true, ((DenseMatrix) b).matrix, ((DenseMatrix) C).matrix, C.rows(), C.cols(), rows(), threadPool);
     }
     
     @Override
@@ -448,51 +302,6 @@ public class DenseMatrix extends GenericMatrix
 
     }
     
-    /**
-     * this is a direct conversion of the outer most loop of {@link #multiply(jsat.linear.Matrix) } 
-     */
-    private class MultRun implements Runnable
-    {
-        
-        final CountDownLatch latch;
-        final DenseMatrix A;
-        final DenseMatrix B, result;
-        final int threadID;
-
-        public MultRun(CountDownLatch latch, DenseMatrix A, DenseMatrix result, DenseMatrix B, int threadID)
-        {
-            this.latch = latch;
-            this.A = A;
-            this.result = result;
-            this.B = B;
-            this.threadID = threadID;
-        }
-        
-        public void run()
-        {
-
-            //Pull out the index operations to hand optimize for speed. 
-            double[] Ai;
-            double[] Bi;
-            double[] Ci;
-            for (int i = 0 + threadID; i < result.rows(); i += LogicalCores)
-            {
-                Ai = A.matrix[i];
-                Ci = result.matrix[i];
-
-                for (int k = 0; k < A.cols(); k++)
-                {
-                    double a = Ai[k];
-                    Bi = B.matrix[k];
-                    for (int j = 0; j < Ci.length; j++)
-                        Ci[j] += a * Bi[j];
-                }
-            }
-
-            latch.countDown();
-        }
-    }
-
     @Override
     public void multiply(Matrix b, Matrix C, ExecutorService threadPool)
     {
@@ -502,30 +311,12 @@ public class DenseMatrix extends GenericMatrix
             super.multiply(b, C, threadPool);
             return;
         }
-        
-        if(this.rows()/NB2 >= LogicalCores)//Perform block execution only when we have a large enough matrix to keep ever core busy!
-        {
-            blockMultiply((DenseMatrix)b, threadPool, (DenseMatrix)C);
-            return;
-        }
         if(!canMultiply(this, b))
             throw new ArithmeticException("Matrix dimensions do not agree");
         else if(this.rows() != C.rows() || b.cols() != C.cols())
             throw new ArithmeticException("Destination matrix does not match the multiplication dimensions");
-        CountDownLatch cdl = new CountDownLatch(LogicalCores);
         
-        for (int threadID = 0; threadID < LogicalCores; threadID++)
-            threadPool.submit(new MultRun(cdl, this, (DenseMatrix)C, (DenseMatrix)b, threadID));
-            
-        try
-        {
-            cdl.await();
-        }
-        catch (InterruptedException ex)
-        {
-            //faulre? Gah - try seriel
-            this.multiply(b, C);
-        }
+        BlockedGEMM.multiply(matrix, false, ((DenseMatrix) b).matrix, ((DenseMatrix) C).matrix, rows(), b.cols(), cols(), threadPool);
     }
     
     @Override
@@ -33,6 +33,11 @@ import jsat.linear.Vec;
  * {@link #getQueryInfo(jsat.linear.Vec) }<br>
  * Using this set up, no branching or special case code is necessary to 
  * automatically use the acceleration capabilities of supported distance metrics. 
+ <br><br>
+ * Implementations should return a {@link jsat.utils.DoubleList DoubleList} 
+ * for the cache and query information, and read them with 
+ * {@link jsat.utils.DoubleList#getD(java.util.List, int) } so that no 
+ * {@link Double} objects are created in the distance computation. 
  * 
  * @author Edward Raff
  */
@@ -3,6 +3,8 @@ package jsat.linear.distancemetrics;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jsat.DataSet;
 import jsat.classifiers.ClassificationDataSet;
 import jsat.datatransform.UnitVarianceTransform;
@@ -187,7 +189,7 @@ public class NormalizedEuclideanDistance extends TrainableDistanceMetric
             return getAccelerationCache(vecs);
         final double[] cache = new double[vecs.size()];
    
-        final CountDownLatch latch = new CountDownLatch(SystemInfo.LogicalCores);
+        final CountDownLatch latch = new CountDownLatch(Math.min(SystemInfo.LogicalCores, cache.length));
         final int blockSize = cache.length / SystemInfo.LogicalCores;
         int extra = cache.length % SystemInfo.LogicalCores;
         int start = 0;
@@ -213,6 +215,15 @@ public class NormalizedEuclideanDistance extends TrainableDistanceMetric
             start = end;
         }
 
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(NormalizedEuclideanDistance.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
         return DoubleList.unmodifiableView(cache, cache.length);
     }
 
@@ -222,7 +233,7 @@ public class NormalizedEuclideanDistance extends TrainableDistanceMetric
         if(cache == null)
             return dist(vecs.get(a), vecs.get(b));
         
-        return Math.sqrt(cache.get(a)+cache.get(b)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), vecs.get(b)));
+        return Math.sqrt(DoubleList.getD(cache, a)+DoubleList.getD(cache, b)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), vecs.get(b)));
     }
 
     @Override
@@ -231,7 +242,7 @@ public class NormalizedEuclideanDistance extends TrainableDistanceMetric
         if(cache == null)
             return dist(vecs.get(a), b);
         
-        return Math.sqrt(cache.get(a)+VecOps.weightedDot(invStndDevs, b, b)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), b));
+        return Math.sqrt(DoubleList.getD(cache, a)+VecOps.weightedDot(invStndDevs, b, b)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), b));
     }
 
     @Override
@@ -248,6 +259,6 @@ public class NormalizedEuclideanDistance extends TrainableDistanceMetric
         if(cache == null)
             return dist(vecs.get(a), b);
         
-        return Math.sqrt(cache.get(a)+qi.get(0)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), b));
+        return Math.sqrt(DoubleList.getD(cache, a)+DoubleList.getD(qi, 0)-2*VecOps.weightedDot(invStndDevs, vecs.get(a), b));
     }
 }
@@ -0,0 +1,774 @@
+package jsat.linear.vectorcollection;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jsat.linear.Vec;
+import jsat.linear.VecPaired;
+import jsat.linear.VecPairedComparable;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.utils.FakeExecutor;
+import static jsat.utils.SystemInfo.LogicalCores;
+
+/**
+ * An approximate nearest neighbor collection using a Hierarchical Navigable
+ * Small World (HNSW) graph. Every vector is a node in a proximity graph, and
+ * each node is also placed in a random number of sparser graphs layered above
+ * it. A search greedily walks down the layers from a single entry point,
+ * and then does a best first search of the bottom layer keeping the
+ * <i>ef</i> closest nodes found. Larger values of <i>ef</i> trade speed for
+ * better recall. Queries usually take time logarithmic in the size of the
+ * collection, and any {@link DistanceMetric} may be used, though the
+ * results are best for true metrics.
+ * <br><br>
+ * Vectors can be {@link #add(jsat.linear.Vec) added} at any time, including
+ * from many threads at once while other threads search the collection. The
+ * graph built depends on the order of insertion, so the results of parallel
+ * construction are not deterministic. Range queries are answered by
+ * repeated nearest neighbor searches, and so are also approximate.
+ * <br><br>
+ * See: Malkov, Y. A., &amp; Yashunin, D. A. (2018). <i>Efficient and robust
+ * approximate nearest neighbor search using Hierarchical Navigable Small
+ * World graphs</i>. IEEE Transactions on Pattern Analysis and Machine
+ * Intelligence. doi:10.1109/TPAMI.2018.2889473
+ *
+ * @author Edward Raff
+ */
+public class HNSW<V extends Vec> implements VectorCollection<V>
+{
+
+    private static final long serialVersionUID = -1658563227466574528L;
+
+    private DistanceMetric dm;
+    /**
+     * The maximum number of links a node has in the layers above the bottom
+     * one. The bottom layer allows twice as many.
+     */
+    private int M;
+    /**
+     * The number of candidates kept when searching for the neighbors of a new
+     * node
+     */
+    private int efConstruction;
+    /**
+     * The number of candidates kept when searching for the neighbors of a
+     * query
+     */
+    private volatile int ef;
+    /**
+     * The normalization of the random level of new nodes, 1/ln(M)
+     */
+    private double levelMult;
+    private Random rand;
+
+    /**
+     * All the nodes, in the order they were added. Only the first
+     * {@link #size} are valid. Guarded by {@code this} for writes
+     */
+    private volatile Node<V>[] nodes;
+    private volatile int size;
+    /**
+     * The node all searches start from, or -1 if the collection is empty.
+     * Guarded by {@code this}
+     */
+    private int entryPoint = -1;
+    /**
+     * The top layer of the graph. Guarded by {@code this}
+     */
+    private int maxLevel = -1;
+
+    private transient volatile ThreadLocal<VisitedMarks> visitedMarks;
+
+    /**
+     * Creates a new empty HNSW collection using the default parameters of
+     * <i>M</i> = 16, <i>efConstruction</i> = 200 and <i>ef</i> = 50.
+     * @param dm the distance metric to use
+     */
+    public HNSW(DistanceMetric dm)
+    {
+        this(dm, 16, 200);
+    }
+
+    /**
+     * Creates a new empty HNSW collection
+     * @param dm the distance metric to use
+     * @param M the maximum number of links per node in the upper layers. The
+     * bottom layer allows 2 M. Values from 5 to 48 are reasonable, where
+     * larger values work better for high dimensional data and high recall.
+     * @param efConstruction the number of candidates kept when searching for
+     * the links of a new node. Larger values build a better graph more slowly.
+     */
+    public HNSW(DistanceMetric dm, int M, int efConstruction)
+    {
+        this(dm, M, efConstruction, new Random());
+    }
+
+    /**
+     * Creates a new empty HNSW collection
+     * @param dm the distance metric to use
+     * @param M the maximum number of links per node in the upper layers. The
+     * bottom layer allows 2 M. Values from 5 to 48 are reasonable, where
+     * larger values work better for high dimensional data and high recall.
+     * @param efConstruction the number of candidates kept when searching for
+     * the links of a new node. Larger values build a better graph more slowly.
+     * @param rand the source of randomness for the levels of new nodes
+     */
+    public HNSW(DistanceMetric dm, int M, int efConstruction, Random rand)
+    {
+        if(M < 2)
+            throw new IllegalArgumentException("M must be at least 2, not " + M);
+        if(efConstruction < 1)
+            throw new IllegalArgumentException("efConstruction must be positive, not " + efConstruction);
+        this.dm = dm;
+        this.M = M;
+        this.efConstruction = efConstruction;
+        this.ef = 50;
+        this.levelMult = 1/Math.log(M);
+        this.rand = rand;
+        this.nodes = newNodeArray(16);
+    }
+
+    /**
+     * Creates a new HNSW collection using the default parameters, and adds
+     * all the given vectors
+     * @param source the vectors to place into the collection
+     * @param dm the distance metric to use
+     */
+    public HNSW(List<V> source, DistanceMetric dm)
+    {
+        this(source, dm, 16, 200, null);
+    }
+
+    /**
+     * Creates a new HNSW collection, and adds all the given vectors
+     * @param source the vectors to place into the collection
+     * @param dm the distance metric to use
+     * @param M the maximum number of links per node in the upper layers
+     * @param efConstruction the number of candidates kept when searching for
+     * the links of a new node
+     * @param threadpool the source of threads to add the vectors in parallel,
+     * or {@code null} to add them in order in the calling thread
+     */
+    public HNSW(List<V> source, DistanceMetric dm, int M, int efConstruction, ExecutorService threadpool)
+    {
+        this(dm, M, efConstruction);
+        addAll(source, threadpool);
+    }
+
+    /**
+     * Copy constructor
+     * @param toCopy the object to copy
+     */
+    public HNSW(HNSW<V> toCopy)
+    {
+        this.dm = toCopy.dm.clone();
+        this.M = toCopy.M;
+        this.efConstruction = toCopy.efConstruction;
+        this.ef = toCopy.ef;
+        this.levelMult = toCopy.levelMult;
+        this.rand = new Random(toCopy.rand.nextLong());
+        synchronized(toCopy)
+        {
+            this.size = toCopy.size;
+            this.nodes = newNodeArray(Math.max(16, size));
+            for(int i = 0; i < size; i++)
+                this.nodes[i] = new Node<V>(toCopy.nodes[i]);
+            this.entryPoint = toCopy.entryPoint;
+            this.maxLevel = toCopy.maxLevel;
+        }
+    }
+
+    /**
+     * Sets the number of candidates kept when searching for the neighbors of
+     * a query. Larger values give better recall with slower queries. The
+     * value used is never less than the number of neighbors requested.
+     * @param ef the number of candidates to keep, at least 1
+     */
+    public void setEf(int ef)
+    {
+        if(ef < 1)
+            throw new IllegalArgumentException("ef must be positive, not " + ef);
+        this.ef = ef;
+    }
+
+    /**
+     * Returns the number of candidates kept when searching for the neighbors
+     * of a query
+     * @return the number of candidates kept when searching
+     */
+    public int getEf()
+    {
+        return ef;
+    }
+
+    /**
+     * Returns the maximum number of links per node in the upper layers
+     * @return the maximum number of links per node in the upper layers
+     */
+    public int getM()
+    {
+        return M;
+    }
+
+    /**
+     * Returns the number of candidates kept when adding new nodes
+     * @return the number of candidates kept when adding new nodes
+     */
+    public int getEfConstruction()
+    {
+        return efConstruction;
+    }
+
+    /**
+     * Adds all the given vectors to the collection
+     * @param source the vectors to add
+     * @param threadpool the source of threads to add the vectors in parallel,
+     * or {@code null} to add them in order in the calling thread
+     */
+    public void addAll(final List<V> source, ExecutorService threadpool)
+    {
+        if(threadpool == null || threadpool instanceof FakeExecutor || source.size() < LogicalCores*2)
+        {
+            for(V v : source)
+                add(v);
+            return;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(LogicalCores);
+        for(int id = 0; id < LogicalCores; id++)
+        {
+            final int ID = id;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for(int i = ID; i < source.size(); i += LogicalCores)
+                            add(source.get(i));
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(HNSW.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Adds a new vector to the collection. This may be called by many threads
+     * at once, and while other threads are searching.
+     * @param x the vector to add
+     */
+    public void add(V x)
+    {
+        final int level;
+        synchronized(rand)
+        {
+            level = (int) Math.floor(-Math.log(1-rand.nextDouble())*levelMult);
+        }
+        final Node<V> node = new Node<V>(x, dm.supportsAcceleration() ? dm.getQueryInfo(x) : null, level);
+
+        final int id;
+        int curEntry;
+        int topLevel;
+        synchronized(this)
+        {
+            if(size == nodes.length)
+                nodes = Arrays.copyOf(nodes, size*2);
+            nodes[size] = node;
+            id = size++;
+            if(entryPoint == -1)
+            {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+            curEntry = entryPoint;
+            topLevel = maxLevel;
+        }
+
+        VisitedMarks marks = getVisitedMarks();
+
+        //greedy walk down to the layers the new node is in
+        double curDist = dist(x, node.qi, curEntry);
+        for(int lc = topLevel; lc > level; lc--)
+        {
+            Candidate closest = greedyClosest(x, node.qi, curEntry, curDist, lc);
+            curEntry = closest.id;
+            curDist = closest.dist;
+        }
+
+        List<Candidate> entries = new ArrayList<Candidate>();
+        entries.add(new Candidate(curEntry, curDist));
+        for(int lc = Math.min(topLevel, level); lc >= 0; lc--)
+        {
+            List<Candidate> found = sortedList(searchLayer(x, node.qi, entries, efConstruction, lc, marks));
+            int[] links = selectNeighbors(found, M);
+            //other threads may have already linked to this node, so merge
+            linkTo(node, links, lc);
+            for(int neighbor : links)
+                addLink(neighbor, id, lc);
+            entries = found;
+        }
+
+        if(level > topLevel)
+            synchronized(this)
+            {
+                if(level > maxLevel)
+                {
+                    maxLevel = level;
+                    entryPoint = id;
+                }
+            }
+    }
+
+    /**
+     * Adds a link from one node to another, pruning the links of the node if
+     * it has too many
+     * @param from the node to add the link to
+     * @param to the node to link to
+     * @param level the layer of the link
+     */
+    private void addLink(int from, int to, int level)
+    {
+        linkTo(nodes[from], new int[]{to}, level);
+    }
+
+    /**
+     * Adds links from a node to other nodes it does not already link to,
+     * pruning the links of the node if it has too many
+     * @param node the node to add the links to
+     * @param toAdd the nodes to link to
+     * @param level the layer of the links
+     */
+    private void linkTo(Node<V> node, int[] toAdd, int level)
+    {
+        final int maxLinks = level == 0 ? 2*M : M;
+        synchronized(node)
+        {
+            int[] links = node.links[level];
+            int[] newLinks = Arrays.copyOf(links, links.length+toAdd.length);
+            int used = links.length;
+            for(int to : toAdd)
+            {
+                boolean present = false;
+                for(int j = 0; j < used && !present; j++)
+                    present = newLinks[j] == to;
+                if(!present)
+                    newLinks[used++] = to;
+            }
+            if(used < newLinks.length)
+                newLinks = Arrays.copyOf(newLinks, used);
+            if(newLinks.length > maxLinks)
+            {
+                List<Candidate> candidates = new ArrayList<Candidate>(newLinks.length);
+                for(int j : newLinks)
+                    candidates.add(new Candidate(j, dist(node.vec, node.qi, j)));
+                Collections.sort(candidates);
+                newLinks = selectNeighbors(candidates, maxLinks);
+            }
+            node.links[level] = newLinks;
+        }
+    }
+
+    /**
+     * Selects the neighbors to link to, keeping a candidate only if it is
+     * closer to the new node than to any already selected. This keeps links
+     * going in many directions rather than only to the closest cluster.
+     * @param candidates the candidates, sorted from closest to farthest
+     * @param maxLinks the maximum number of links to select
+     * @return the selected links
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int maxLinks)
+    {
+        if(candidates.size() <= maxLinks)
+        {
+            int[] links = new int[candidates.size()];
+            for(int i = 0; i < links.length; i++)
+                links[i] = candidates.get(i).id;
+            return links;
+        }
+
+        List<Candidate> selected = new ArrayList<Candidate>(maxLinks);
+        for(Candidate c : candidates)
+        {
+            if(selected.size() >= maxLinks)
+                break;
+            final Node<V> cNode = nodes[c.id];
+            boolean keep = true;
+            for(Candidate s : selected)
+                if(dist(cNode.vec, cNode.qi, s.id) < c.dist)
+                {
+                    keep = false;
+                    break;
+                }
+            if(keep)
+                selected.add(c);
+        }
+
+        int[] links = new int[selected.size()];
+        for(int i = 0; i < links.length; i++)
+            links[i] = selected.get(i).id;
+        return links;
+    }
+
+    /**
+     * Walks the graph in one layer, always moving to the neighbor closest to
+     * the query until no neighbor is closer
+     */
+    private Candidate greedyClosest(Vec query, List<Double> qi, int cur, double curDist, int level)
+    {
+        boolean changed = true;
+        while(changed)
+        {
+            changed = false;
+            for(int j : nodes[cur].getLinks(level))
+            {
+                double d = dist(query, qi, j);
+                if(d < curDist)
+                {
+                    curDist = d;
+                    cur = j;
+                    changed = true;
+                }
+            }
+        }
+        return new Candidate(cur, curDist);
+    }
+
+    /**
+     * Does a best first search of one layer
+     * @param query the query
+     * @param qi the query information for the query
+     * @param entries the nodes to start from, which must be in this layer
+     * @param ef the number of closest nodes to keep
+     * @param level the layer to search
+     * @param marks the marks to use to track visited nodes
+     * @return a max heap of the closest nodes found
+     */
+    private PriorityQueue<Candidate> searchLayer(Vec query, List<Double> qi, List<Candidate> entries, int ef, int level, VisitedMarks marks)
+    {
+        marks.reset();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+        PriorityQueue<Candidate> results = new PriorityQueue<Candidate>(ef+1, Collections.reverseOrder());
+        for(Candidate c : entries)
+        {
+            marks.visit(c.id);
+            candidates.add(c);
+            results.add(c);
+            if(results.size() > ef)
+                results.poll();
+        }
+
+        while(!candidates.isEmpty())
+        {
+            Candidate c = candidates.poll();
+            if(c.dist > results.peek().dist)
+                break;//everything left is farther than what we have
+            for(int j : nodes[c.id].getLinks(level))
+            {
+                if(!marks.visit(j))
+                    continue;
+                double d = dist(query, qi, j);
+                if(results.size() < ef || d < results.peek().dist)
+                {
+                    Candidate newC = new Candidate(j, d);
+                    candidates.add(newC);
+                    results.add(newC);
+                    if(results.size() > ef)
+                        results.poll();
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<Candidate> sortedList(PriorityQueue<Candidate> heap)
+    {
+        List<Candidate> list = new ArrayList<Candidate>(heap);
+        Collections.sort(list);
+        return list;
+    }
+
+    private double dist(Vec query, List<Double> qi, int j)
+    {
+        Node<V> node = nodes[j];
+        if(qi == null)
+            return dm.dist(query, node.vec);
+        return dm.dist(0, query, qi, node.self, node.qi);
+    }
+
+    private VisitedMarks getVisitedMarks()
+    {
+        if(visitedMarks == null)
+            synchronized(this)
+            {
+                if(visitedMarks == null)
+                    visitedMarks = new ThreadLocal<VisitedMarks>()
+                    {
+                        @Override
+                        protected VisitedMarks initialValue()
+                        {
+                            return new VisitedMarks();
+                        }
+                    };
+            }
+        return visitedMarks.get();
+    }
+
+    /**
+     * Finds the closest nodes to the query
+     * @param query the query
+     * @param k the number of neighbors to find
+     * @return the closest nodes found, from closest to farthest
+     */
+    private List<Candidate> searchNodes(Vec query, int k)
+    {
+        int curEntry, topLevel;
+        synchronized(this)
+        {
+            curEntry = entryPoint;
+            topLevel = maxLevel;
+        }
+        if(curEntry == -1)
+            return Collections.emptyList();
+
+        List<Double> qi = dm.supportsAcceleration() ? dm.getQueryInfo(query) : null;
+        double curDist = dist(query, qi, curEntry);
+        for(int lc = topLevel; lc > 0; lc--)
+        {
+            Candidate closest = greedyClosest(query, qi, curEntry, curDist, lc);
+            curEntry = closest.id;
+            curDist = closest.dist;
+        }
+
+        List<Candidate> entries = new ArrayList<Candidate>(1);
+        entries.add(new Candidate(curEntry, curDist));
+        List<Candidate> found = sortedList(searchLayer(query, qi, entries, Math.max(ef, k), 0, getVisitedMarks()));
+        return found.size() > k ? found.subList(0, k) : found;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br><br>
+     * This is done with nearest neighbor searches for more and more
+     * neighbors until one is out of range, so it is approximate and slow for
+     * large ranges.
+     */
+    @Override
+    public List<? extends VecPaired<V, Double>> search(Vec query, double range)
+    {
+        int k = Math.min(16, size);
+        List<Candidate> found = searchNodes(query, k);
+        while(found.size() == k && k < size && found.get(k-1).dist <= range)
+        {
+            k = (int) Math.min(size, 2L*k);
+            found = searchNodes(query, k);
+        }
+
+        List<VecPairedComparable<V, Double>> list = new ArrayList<VecPairedComparable<V, Double>>();
+        for(Candidate c : found)
+            if(c.dist <= range)
+                list.add(new VecPairedComparable<V, Double>(nodes[c.id].vec, c.dist));
+        return list;
+    }
+
+    @Override
+    public List<? extends VecPaired<V, Double>> search(Vec query, int neighbors)
+    {
+        List<Candidate> found = searchNodes(query, neighbors);
+        List<VecPaired<V, Double>> knnsList = new ArrayList<VecPaired<V, Double>>(found.size());
+        for(Candidate c : found)
+            knnsList.add(new VecPaired<V, Double>(nodes[c.id].vec, c.dist));
+        return knnsList;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public HNSW<V> clone()
+    {
+        return new HNSW<V>(this);
+    }
+
+    /**
+     * A node and its distance to the query
+     */
+    private static class Candidate implements Comparable<Candidate>
+    {
+        final int id;
+        final double dist;
+
+        public Candidate(int id, double dist)
+        {
+            this.id = id;
+            this.dist = dist;
+        }
+
+        @Override
+        public int compareTo(Candidate o)
+        {
+            return Double.compare(this.dist, o.dist);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V extends Vec> Node<V>[] newNodeArray(int length)
+    {
+        return (Node<V>[]) new Node[length];
+    }
+
+    /**
+     * A vector and its links in every layer it is in. The link arrays are
+     * never modified once set, only replaced while holding the node's lock.
+     */
+    private static class Node<V extends Vec> implements Serializable
+    {
+        private static final long serialVersionUID = 2389071512466251736L;
+        final V vec;
+        final List<V> self;
+        final List<Double> qi;
+        final int[][] links;
+
+        public Node(V vec, List<Double> qi, int level)
+        {
+            this.vec = vec;
+            this.self = Collections.singletonList(vec);
+            this.qi = qi;
+            this.links = new int[level+1][];
+            for(int i = 0; i < links.length; i++)
+                links[i] = new int[0];
+        }
+
+        public Node(Node<V> toCopy)
+        {
+            this.vec = toCopy.vec;
+            this.self = toCopy.self;
+            this.qi = toCopy.qi;
+            synchronized(toCopy)
+            {
+                this.links = new int[toCopy.links.length][];
+                for(int i = 0; i < links.length; i++)
+                    this.links[i] = toCopy.links[i];
+            }
+        }
+
+        synchronized public int[] getLinks(int level)
+        {
+            return links[level];
+        }
+    }
+
+    /**
+     * Tracks the nodes visited by a search without clearing an array each
+     * time, by marking visited nodes with the id of the current search
+     */
+    private static class VisitedMarks
+    {
+        int[] marks = new int[16];
+        int tag = 0;
+
+        public void reset()
+        {
+            tag++;
+            if(tag == Integer.MAX_VALUE)
+            {
+                Arrays.fill(marks, 0);
+                tag = 1;
+            }
+        }
+
+        /**
+         * Marks a node as visited
+         * @param id the node
+         * @return {@code true} if the node had not been visited before
+         */
+        public boolean visit(int id)
+        {
+            if(id >= marks.length)
+                marks = Arrays.copyOf(marks, Math.max(id+1, marks.length*2));
+            if(marks[id] == tag)
+                return false;
+            marks[id] = tag;
+            return true;
+        }
+    }
+
+    /**
+     * A factory for {@link HNSW} collections
+     */
+    public static class HNSWFactory<V extends Vec> implements VectorCollectionFactory<V>
+    {
+
+        private static final long serialVersionUID = 2954325519617372150L;
+        private int M;
+        private int efConstruction;
+        private int ef;
+
+        /**
+         * Creates a new factory using <i>M</i> = 16, <i>efConstruction</i> =
+         * 200 and <i>ef</i> = 50
+         */
+        public HNSWFactory()
+        {
+            this(16, 200, 50);
+        }
+
+        /**
+         * Creates a new factory
+         * @param M the maximum number of links per node in the upper layers
+         * @param efConstruction the number of candidates kept when adding
+         * new nodes
+         * @param ef the number of candidates kept when searching
+         */
+        public HNSWFactory(int M, int efConstruction, int ef)
+        {
+            this.M = M;
+            this.efConstruction = efConstruction;
+            this.ef = ef;
+        }
+
+        @Override
+        public VectorCollection<V> getVectorCollection(List<V> source, DistanceMetric distanceMetric)
+        {
+            return getVectorCollection(source, distanceMetric, null);
+        }
+
+        @Override
+        public VectorCollection<V> getVectorCollection(List<V> source, DistanceMetric distanceMetric, ExecutorService threadpool)
+        {
+            HNSW<V> hnsw = new HNSW<V>(source, distanceMetric, M, efConstruction, threadpool);
+            hnsw.setEf(ef);
+            return hnsw;
+        }
+
+        @Override
+        public HNSWFactory<V> clone()
+        {
+            return new HNSWFactory<V>(M, efConstruction, ef);
+        }
+    }
+}
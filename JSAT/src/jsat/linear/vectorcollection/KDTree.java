@@ -375,7 +375,7 @@ public class KDTree<V extends Vec> implements VectorCollection<V>
         }
         
         distanceSearch(query, qi, close, knns, range);
-        if(diff*diff <= range)
+        if(Math.abs(diff) <= range)
             distanceSearch(query, qi, far, knns, range);
     }
     
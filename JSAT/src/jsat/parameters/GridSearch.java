@@ -2,11 +2,14 @@ package jsat.parameters;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jsat.DataSet;
 import jsat.classifiers.*;
 import jsat.classifiers.evaluation.Accuracy;
 import jsat.classifiers.evaluation.ClassificationScore;
+import jsat.distributions.Distribution;
 import jsat.exceptions.FailedToFitException;
 import jsat.exceptions.UntrainedModelException;
 import jsat.regression.*;
@@ -76,6 +79,69 @@ public class GridSearch implements Classifier, Regressor
      * If true, create the CV splits once and re-use them for all parameters
      */
     private boolean reuseSameCVFolds = true;
+    
+    /**
+     * The distributions to sample each parameter from for random search,
+     * matching {@link #searchParams}. A {@code null} entry means the parameter
+     * is sampled from its values in {@link #searchValues}
+     */
+    private List<Distribution> searchDistributions;
+    
+    /**
+     * The number of random parameter combinations to try, or 0 to use the grid
+     */
+    private int randomTrials = 0;
+    
+    private SearchMode searchMode = SearchMode.GRID;
+    
+    /**
+     * The factor by which the number of models is reduced, and the resource 
+     * increased, at each step of successive halving
+     */
+    private double halvingRate = 3;
+    
+    /**
+     * The smallest fraction of the training data to use when the resource is 
+     * the amount of data
+     */
+    private double minDataFraction = 0.1;
+    
+    /**
+     * The parameter that controls the resource used by the model, or 
+     * {@code null} if the resource is the amount of training data
+     */
+    private IntParameter resourceParam;
+    private int minResource;
+    private int maxResource;
+    
+    /**
+     * The ways parameter combinations can be searched
+     */
+    public enum SearchMode
+    {
+        /**
+         * Every combination is evaluated with cross validation on all of the 
+         * data. If random search trials are set, only that many randomly 
+         * sampled combinations are evaluated. 
+         */
+        GRID,
+        /**
+         * All combinations, or the random search trials, are first evaluated 
+         * with a small resource. The best 1/&eta; of them are kept and 
+         * evaluated with &eta; times the resource, until the remaining 
+         * combinations are evaluated with the full resource. 
+         */
+        SUCCESSIVE_HALVING,
+        /**
+         * Runs several rounds of successive halving, from many combinations 
+         * starting with a small resource down to a few combinations with the 
+         * full resource. This hedges against the small resource being too 
+         * small to tell the combinations apart. Combinations are sampled 
+         * randomly for every round, and the number of combinations is decided 
+         * by the halving rate and the range of the resource. 
+         */
+        HYPERBAND
+    }
 
     /**
      * Creates a new GridSearch to tune the specified parameters of a regression
@@ -97,6 +163,7 @@ public class GridSearch implements Classifier, Regressor
             this.baseClassifier = (Classifier) baseRegressor;
         searchParams = new ArrayList<Parameter>();
         searchValues = new ArrayList<List<Double>>();
+        searchDistributions = new ArrayList<Distribution>();
         this.folds = folds;
     }
     
@@ -121,6 +188,7 @@ public class GridSearch implements Classifier, Regressor
             this.baseRegressor = (Regressor) baseClassifier;
         searchParams = new ArrayList<Parameter>();
         searchValues = new ArrayList<List<Double>>();
+        searchDistributions = new ArrayList<Distribution>();
         this.folds = folds;
     }
 
@@ -234,6 +302,157 @@ public class GridSearch implements Classifier, Regressor
     {
         return reuseSameCVFolds;
     }
+
+    /**
+     * Sets how the parameter combinations are searched. The default is
+     * {@link SearchMode#GRID}. The other modes evaluate most combinations with
+     * a fraction of the resource, and only evaluate the best ones fully. The
+     * resource is the fraction of the training data used, unless a
+     * {@link #setResourceParameter(jsat.parameters.IntParameter, int, int) resource parameter}
+     * is set. The same CV folds are always re-used by these modes, and models 
+     * will be warm started from the previous step when 
+     * {@link #setUseWarmStarts(boolean) warm starts} are possible. 
+     *
+     * @param searchMode the way to search the parameter combinations
+     */
+    public void setSearchMode(SearchMode searchMode)
+    {
+        if(searchMode == null)
+            throw new NullPointerException("searchMode can not be null");
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * 
+     * @return the way parameter combinations are searched
+     */
+    public SearchMode getSearchMode()
+    {
+        return searchMode;
+    }
+
+    /**
+     * Sets the number of randomly sampled parameter combinations to evaluate
+     * instead of the full grid. Parameters added with a list of values are 
+     * sampled uniformly from those values, and parameters added with a 
+     * {@link Distribution} are sampled from it. A value of 0 (the default) 
+     * evaluates the full grid. This is ignored by 
+     * {@link SearchMode#HYPERBAND}, which always samples combinations. 
+     *
+     * @param randomTrials the number of random combinations to try, or 0 to 
+     * use the grid
+     */
+    public void setRandomTrials(int randomTrials)
+    {
+        if(randomTrials < 0)
+            throw new IllegalArgumentException("randomTrials must be non negative, not " + randomTrials);
+        this.randomTrials = randomTrials;
+    }
+
+    /**
+     * 
+     * @return the number of random combinations to try, or 0 if the grid is 
+     * used
+     */
+    public int getRandomTrials()
+    {
+        return randomTrials;
+    }
+
+    /**
+     * Sets the rate &eta; of successive halving. At each step only the best 
+     * 1/&eta; of the models are kept, and given &eta; times more resource. The
+     * default is 3.
+     *
+     * @param halvingRate the halving rate, must be greater than 1
+     */
+    public void setHalvingRate(double halvingRate)
+    {
+        if(!(halvingRate > 1) || Double.isInfinite(halvingRate))
+            throw new IllegalArgumentException("halvingRate must be greater than 1, not " + halvingRate);
+        this.halvingRate = halvingRate;
+    }
+
+    /**
+     * 
+     * @return the rate of successive halving
+     */
+    public double getHalvingRate()
+    {
+        return halvingRate;
+    }
+
+    /**
+     * Sets the smallest fraction of each training fold that models will be
+     * trained on, when the resource is the amount of data. The default is 0.1.
+     *
+     * @param minDataFraction the smallest fraction of the training data, in 
+     * (0, 1]
+     */
+    public void setMinDataFraction(double minDataFraction)
+    {
+        if(!(minDataFraction > 0 && minDataFraction <= 1))
+            throw new IllegalArgumentException("minDataFraction must be in (0, 1], not " + minDataFraction);
+        this.minDataFraction = minDataFraction;
+    }
+
+    /**
+     * 
+     * @return the smallest fraction of the training data models are trained on
+     */
+    public double getMinDataFraction()
+    {
+        return minDataFraction;
+    }
+
+    /**
+     * Sets the parameter of the model that controls how much resource it 
+     * uses, such as the number of epochs, iterations, or the size of an 
+     * ensemble. Successive halving and Hyperband will then train on all of the
+     * data, and increase this parameter instead. The parameter should not also 
+     * be one of the parameters searched. 
+     *
+     * @param param the model parameter, or {@code null} to use the fraction
+     * of the training data as the resource
+     * @param minResource the smallest value of the parameter to use
+     * @param maxResource the largest value of the parameter to use, which is 
+     * also used by the final model
+     */
+    public void setResourceParameter(IntParameter param, int minResource, int maxResource)
+    {
+        if(param != null && (minResource < 1 || maxResource < minResource))
+            throw new IllegalArgumentException("Resource range must be positive and non empty, not [" + minResource + ", " + maxResource + "]");
+        this.resourceParam = param;
+        this.minResource = minResource;
+        this.maxResource = maxResource;
+    }
+
+    /**
+     * Sets the parameter of the model that controls how much resource it 
+     * uses.
+     *
+     * @param name the name of the parameter
+     * @param minResource the smallest value of the parameter to use
+     * @param maxResource the largest value of the parameter to use
+     * @see #setResourceParameter(jsat.parameters.IntParameter, int, int) 
+     */
+    public void setResourceParameter(String name, int minResource, int maxResource)
+    {
+        Parameter param = getParameterByName(name);
+        if (!(param instanceof IntParameter))
+            throw new IllegalArgumentException("Parameter " + name + " is not for int values");
+        setResourceParameter((IntParameter) param, minResource, maxResource);
+    }
+
+    /**
+     * 
+     * @return the parameter that controls the resource used by the model, or 
+     * {@code null} if the resource is the fraction of the training data
+     */
+    public IntParameter getResourceParameter()
+    {
+        return resourceParam;
+    }
     
     /**
      * Finds the parameter object with the given name, or throws an exception if
@@ -264,17 +483,24 @@ public class GridSearch implements Classifier, Regressor
     {
         if(param == null)
             throw new IllegalArgumentException("null not allowed for parameter");
-        searchParams.add(param);
         DoubleList dl = new DoubleList(initialSearchValues.length);
         for(double d : initialSearchValues)
             dl.add(d);
-        Arrays.sort(dl.getBackingArray());//convience, only really needed if param is warm
-        if (param.isWarmParameter() && !param.preferredLowToHigh())
-            Collections.reverse(dl);//put it in the prefered order
-        if (param.isWarmParameter())//put it at the front!
-            searchValues.add(0, dl);
-        else
-            searchValues.add(dl);
+        addSearchValues(param, dl);
+    }
+    
+    /**
+     * Adds a new double parameter to be altered for the model being tuned,
+     * with values sampled from the given distribution when performing 
+     * {@link #setRandomTrials(int) random search}. The parameter can not be 
+     * used in a full grid search. 
+     * 
+     * @param param the model parameter
+     * @param dist the distribution to sample values of the parameter from
+     */
+    public void addParameter(DoubleParameter param, Distribution dist)
+    {
+        addSearchDistribution(param, dist);
     }
 
     /**
@@ -301,17 +527,54 @@ public class GridSearch implements Classifier, Regressor
      */
     public void addParameter(IntParameter param, int... initialSearchValues)
     {
-        searchParams.add(param);
+        if(param == null)
+            throw new IllegalArgumentException("null not allowed for parameter");
         DoubleList dl = new DoubleList(initialSearchValues.length);
         for(double d : initialSearchValues)
             dl.add(d);
-        Arrays.sort(dl.getBackingArray());//convience, only really needed if param is warm
+        addSearchValues(param, dl);
+    }
+    
+    /**
+     * Adds a new int parameter to be altered for the model being tuned, with 
+     * values sampled from the given distribution and rounded when performing 
+     * {@link #setRandomTrials(int) random search}. The parameter can not be 
+     * used in a full grid search. 
+     * 
+     * @param param the model parameter
+     * @param dist the distribution to sample values of the parameter from
+     */
+    public void addParameter(IntParameter param, Distribution dist)
+    {
+        addSearchDistribution(param, dist);
+    }
+    
+    private void addSearchValues(Parameter param, DoubleList dl)
+    {
+        Arrays.sort(dl.getBackingArray(), 0, dl.size());//convience, only really needed if param is warm
         if (param.isWarmParameter() && !param.preferredLowToHigh())
             Collections.reverse(dl);//put it in the prefered order
         if (param.isWarmParameter())//put it at the front!
+        {
+            searchParams.add(0, param);
             searchValues.add(0, dl);
+            searchDistributions.add(0, null);
+        }
         else
+        {
+            searchParams.add(param);
             searchValues.add(dl);
+            searchDistributions.add(null);
+        }
+    }
+    
+    private void addSearchDistribution(Parameter param, Distribution dist)
+    {
+        if(param == null || dist == null)
+            throw new IllegalArgumentException("null not allowed for parameter or distribution");
+        searchParams.add(param);
+        searchValues.add(new DoubleList());
+        searchDistributions.add(dist);
     }
     
     /**
@@ -330,6 +593,22 @@ public class GridSearch implements Classifier, Regressor
         addParameter((IntParameter) param, initialSearchValues);
     }
 
+    /**
+     * Adds a new double or int parameter to be altered for the model being 
+     * tuned, with values sampled from the given distribution when performing
+     * {@link #setRandomTrials(int) random search}.
+     *
+     * @param name the name of the parameter
+     * @param dist the distribution to sample values of the parameter from
+     */
+    public void addParameter(String name, Distribution dist)
+    {
+        Parameter param = getParameterByName(name);
+        if (!(param instanceof DoubleParameter) && !(param instanceof IntParameter))
+            throw new IllegalArgumentException("Parameter " + name + " is not for double or int values");
+        addSearchDistribution(param, dist);
+    }
+
     /**
      * Returns the base classifier that was originally passed in when 
      * constructing this GridSearch. If this was not constructed with a 
@@ -436,6 +715,13 @@ public class GridSearch implements Classifier, Regressor
     @Override
     public void train(final RegressionDataSet dataSet, final ExecutorService threadPool)
     {
+        if(searchMode != SearchMode.GRID || randomTrials > 0)
+        {
+            trainByHalving(dataSet, threadPool);
+            return;
+        }
+        checkGridValues();
+        
         final PriorityQueue<RegressionModelEvaluation> bestModels =
                 new PriorityQueue<RegressionModelEvaluation>(folds,
                                                                  new Comparator<RegressionModelEvaluation>()
@@ -608,28 +894,7 @@ public class GridSearch implements Classifier, Regressor
             latch.await();
             //Now we know the best classifier, we need to train one on the whole data set. 
             Regressor bestRegressor = bestModels.peek().getRegressor();//Just re-train it on the whole set
-            if(trainFinalModel)
-            {
-                //try and warm start the final model if we can
-                if(useWarmStarts && bestRegressor instanceof WarmRegressor && 
-                        !((WarmRegressor)bestRegressor).warmFromSameDataOnly())//last line here needed to make sure we can do this warm train
-                {
-                    WarmRegressor wr = (WarmRegressor) bestRegressor;
-                    if(threadPool instanceof FakeExecutor)
-                        wr.train(dataSet, wr.clone());
-                    else
-                        wr.train(dataSet, wr.clone(), threadPool);
-                }
-                else
-                {
-                    if (threadPool instanceof FakeExecutor)
-                        bestRegressor.train(dataSet);
-                    else
-                        bestRegressor.train(dataSet, threadPool);
-                }
-            }
-            trainedRegressor = bestRegressor;
-            
+            trainFinalRegressor(bestRegressor, bestRegressor.clone(), dataSet, threadPool);
         }
         catch (InterruptedException ex)
         {
@@ -646,6 +911,13 @@ public class GridSearch implements Classifier, Regressor
     @Override
     public void trainC(final ClassificationDataSet dataSet, final ExecutorService threadPool)
     {
+        if(searchMode != SearchMode.GRID || randomTrials > 0)
+        {
+            trainCByHalving(dataSet, threadPool);
+            return;
+        }
+        checkGridValues();
+        
         final PriorityQueue<ClassificationModelEvaluation> bestModels =
                 new PriorityQueue<ClassificationModelEvaluation>(folds,
                                                                  new Comparator<ClassificationModelEvaluation>()
@@ -821,28 +1093,7 @@ public class GridSearch implements Classifier, Regressor
             latch.await();
             //Now we know the best classifier, we need to train one on the whole data set. 
             Classifier bestClassifier = bestModels.peek().getClassifier();//Just re-train it on the whole set
-            if(trainFinalModel)
-            {
-                //try and warm start the final model if we can
-                if(useWarmStarts && bestClassifier instanceof WarmClassifier && 
-                        !((WarmClassifier)bestClassifier).warmFromSameDataOnly())//last line here needed to make sure we can do this warm train
-                {
-                    WarmClassifier wc = (WarmClassifier) bestClassifier;
-                    if(threadPool instanceof FakeExecutor)
-                        wc.trainC(dataSet, wc.clone());
-                    else
-                        wc.trainC(dataSet, wc.clone(), threadPool);
-                }
-                else
-                {
-                    if(threadPool instanceof FakeExecutor)
-                        bestClassifier.trainC(dataSet);
-                    else
-                        bestClassifier.trainC(dataSet, threadPool);
-                }
-            }
-            trainedClassifier = bestClassifier;
-            
+            trainFinalClassifier(bestClassifier, bestClassifier.clone(), dataSet, threadPool);
         }
         catch (InterruptedException ex)
         {
@@ -875,18 +1126,25 @@ public class GridSearch implements Classifier, Regressor
         clone.useWarmStarts = this.useWarmStarts;
         clone.trainModelsInParallel = this.trainModelsInParallel;
         clone.trainFinalModel = this.trainFinalModel;
+        clone.reuseSameCVFolds = this.reuseSameCVFolds;
+        clone.searchMode = this.searchMode;
+        clone.randomTrials = this.randomTrials;
+        clone.halvingRate = this.halvingRate;
+        clone.minDataFraction = this.minDataFraction;
         if(searchParams != null)
             for(Parameter dp : searchParams)
-            {
-                Parameter p = ((Parameterized)clone.getBaseClassifier()).getParameter(dp.getName());
-                clone.searchParams.add((DoubleParameter)p);
-            }
+                clone.searchParams.add(clone.getParameterByName(dp.getName()));
         if(searchValues != null)
             for(List<Double> ld : searchValues)
             {
                 List<Double> newVals = new DoubleList(ld);
                 clone.searchValues.add(newVals);
             }
+        if(searchDistributions != null)
+            for(Distribution dist : searchDistributions)
+                clone.searchDistributions.add(dist == null ? null : dist.clone());
+        if(resourceParam != null)
+            clone.setResourceParameter(resourceParam.getName(), minResource, maxResource);
         
         return clone;
     }
@@ -897,6 +1155,460 @@ public class GridSearch implements Classifier, Regressor
         return trainedRegressor.regress(data);
     }
 
+    /**
+     * Trains the final model on the whole data set, if requested, and stores 
+     * it as the trained classifier
+     * @param warmSolution the model to warm start from, or {@code null} to 
+     * train from scratch
+     */
+    private void trainFinalClassifier(Classifier bestClassifier, Classifier warmSolution, ClassificationDataSet dataSet, ExecutorService threadPool)
+    {
+        if(trainFinalModel)
+        {
+            //try and warm start the final model if we can
+            if(useWarmStarts && warmSolution != null && bestClassifier instanceof WarmClassifier && 
+                    !((WarmClassifier)bestClassifier).warmFromSameDataOnly())//last line here needed to make sure we can do this warm train
+            {
+                WarmClassifier wc = (WarmClassifier) bestClassifier;
+                if(threadPool instanceof FakeExecutor)
+                    wc.trainC(dataSet, warmSolution);
+                else
+                    wc.trainC(dataSet, warmSolution, threadPool);
+            }
+            else
+            {
+                if(threadPool instanceof FakeExecutor)
+                    bestClassifier.trainC(dataSet);
+                else
+                    bestClassifier.trainC(dataSet, threadPool);
+            }
+        }
+        trainedClassifier = bestClassifier;
+    }
+    
+    /**
+     * Trains the final model on the whole data set, if requested, and stores 
+     * it as the trained regressor
+     * @param warmSolution the model to warm start from, or {@code null} to 
+     * train from scratch
+     */
+    private void trainFinalRegressor(Regressor bestRegressor, Regressor warmSolution, RegressionDataSet dataSet, ExecutorService threadPool)
+    {
+        if(trainFinalModel)
+        {
+            //try and warm start the final model if we can
+            if(useWarmStarts && warmSolution != null && bestRegressor instanceof WarmRegressor && 
+                    !((WarmRegressor)bestRegressor).warmFromSameDataOnly())//last line here needed to make sure we can do this warm train
+            {
+                WarmRegressor wr = (WarmRegressor) bestRegressor;
+                if(threadPool instanceof FakeExecutor)
+                    wr.train(dataSet, warmSolution);
+                else
+                    wr.train(dataSet, warmSolution, threadPool);
+            }
+            else
+            {
+                if (threadPool instanceof FakeExecutor)
+                    bestRegressor.train(dataSet);
+                else
+                    bestRegressor.train(dataSet, threadPool);
+            }
+        }
+        trainedRegressor = bestRegressor;
+    }
+    
+    /**
+     * Makes sure every parameter has values to search over in a grid
+     * @throws FailedToFitException if a parameter only has a distribution
+     */
+    private void checkGridValues()
+    {
+        for(int i = 0; i < searchParams.size(); i++)
+            if(searchDistributions.get(i) != null)
+                throw new FailedToFitException("Parameter " + searchParams.get(i).getName() + " only has a distribution, random trials must be used");
+    }
+    
+    /**
+     * A combination of parameter values being evaluated by successive halving
+     * @param <M> the type of model being evaluated
+     */
+    private static class Trial<M>
+    {
+        /**
+         * The value of each parameter, matching {@link #searchParams}
+         */
+        final double[] values;
+        /**
+         * The model to evaluate, with the parameters set
+         */
+        M model;
+        /**
+         * The models trained on each fold in the last evaluation, or 
+         * {@code null} if they were not kept
+         */
+        M[] keptModels;
+        /**
+         * The score of the last evaluation, where lower is better
+         */
+        double score = Double.POSITIVE_INFINITY;
+
+        public Trial(double[] values)
+        {
+            this.values = values;
+        }
+    }
+    
+    /**
+     * Evaluates the models of trials with cross validation for successive 
+     * halving
+     * @param <M> the type of model being evaluated
+     */
+    private abstract class TrialEvaluator<M>
+    {
+        /**
+         * Returns a copy of the base model, which has had its parameters set
+         * @return a copy of the base model
+         */
+        abstract public M cloneBase();
+        
+        /**
+         * Evaluates the model of the trial, and updates its score and kept
+         * models
+         * @param trial the trial to evaluate
+         * @param dataFraction the fraction of each training fold to use
+         * @param threadPool the source of threads for training the model, or
+         * {@code null} to train in the calling thread
+         */
+        abstract public void evaluate(Trial<M> trial, double dataFraction, ExecutorService threadPool);
+    }
+    
+    private void trainCByHalving(final ClassificationDataSet dataSet, ExecutorService threadPool)
+    {
+        final List<ClassificationDataSet> preFolded = dataSet.cvSet(folds);
+        final List<ClassificationDataSet> trainCombinations = new ArrayList<ClassificationDataSet>(preFolded.size());
+        for (int i = 0; i < preFolded.size(); i++)
+            trainCombinations.add(ClassificationDataSet.comineAllBut(preFolded, i));
+        final int[][] subsampleOrders = subsampleOrders(trainCombinations);
+        final boolean considerWarm = useWarmStarts && baseClassifier instanceof WarmClassifier
+                && (resourceParam != null || !((WarmClassifier) baseClassifier).warmFromSameDataOnly());
+        
+        Trial<Classifier> best = searchByHalving(new TrialEvaluator<Classifier>()
+        {
+            @Override
+            public Classifier cloneBase()
+            {
+                return baseClassifier.clone();
+            }
+
+            @Override
+            public void evaluate(Trial<Classifier> trial, double dataFraction, ExecutorService threadPool)
+            {
+                List<ClassificationDataSet> trainSets = trainCombinations;
+                if(dataFraction < 1)
+                {
+                    trainSets = new ArrayList<ClassificationDataSet>(trainCombinations.size());
+                    for(int i = 0; i < trainCombinations.size(); i++)
+                        trainSets.add(new ClassificationDataSetView(trainCombinations.get(i), subsample(subsampleOrders[i], dataFraction)));
+                }
+                
+                ClassificationModelEvaluation cme = threadPool == null ?
+                        new ClassificationModelEvaluation(trial.model, dataSet) 
+                        : new ClassificationModelEvaluation(trial.model, dataSet, threadPool);
+                cme.addScorer(classificationTargetScore.clone());
+                if(considerWarm)
+                {
+                    cme.setKeepModels(true);
+                    cme.setWarmModels(trial.keptModels);
+                }
+                cme.evaluateCrossValidation(preFolded, trainSets);
+                trial.keptModels = considerWarm ? cme.getKeptModels() : null;
+                double score = cme.getScoreStats(classificationTargetScore).getMean();
+                trial.score = classificationTargetScore.lowerIsBetter() ? score : -score;
+            }
+        }, threadPool);
+        
+        setParameters(best.values);
+        setResource(maxResource);
+        trainFinalClassifier(baseClassifier.clone(), best.keptModels == null ? null : best.keptModels[0], dataSet, threadPool);
+    }
+    
+    private void trainByHalving(final RegressionDataSet dataSet, ExecutorService threadPool)
+    {
+        final List<RegressionDataSet> preFolded = dataSet.cvSet(folds);
+        final List<RegressionDataSet> trainCombinations = new ArrayList<RegressionDataSet>(preFolded.size());
+        for (int i = 0; i < preFolded.size(); i++)
+            trainCombinations.add(RegressionDataSet.comineAllBut(preFolded, i));
+        final int[][] subsampleOrders = subsampleOrders(trainCombinations);
+        final boolean considerWarm = useWarmStarts && baseRegressor instanceof WarmRegressor
+                && (resourceParam != null || !((WarmRegressor) baseRegressor).warmFromSameDataOnly());
+        
+        Trial<Regressor> best = searchByHalving(new TrialEvaluator<Regressor>()
+        {
+            @Override
+            public Regressor cloneBase()
+            {
+                return baseRegressor.clone();
+            }
+
+            @Override
+            public void evaluate(Trial<Regressor> trial, double dataFraction, ExecutorService threadPool)
+            {
+                List<RegressionDataSet> trainSets = trainCombinations;
+                if(dataFraction < 1)
+                {
+                    trainSets = new ArrayList<RegressionDataSet>(trainCombinations.size());
+                    for(int i = 0; i < trainCombinations.size(); i++)
+                        trainSets.add(new RegressionDataSetView(trainCombinations.get(i), subsample(subsampleOrders[i], dataFraction)));
+                }
+                
+                RegressionModelEvaluation rme = threadPool == null ?
+                        new RegressionModelEvaluation(trial.model, dataSet) 
+                        : new RegressionModelEvaluation(trial.model, dataSet, threadPool);
+                rme.addScorer(regressionTargetScore.clone());
+                if(considerWarm)
+                {
+                    rme.setKeepModels(true);
+                    rme.setWarmModels(trial.keptModels);
+                }
+                rme.evaluateCrossValidation(preFolded, trainSets);
+                trial.keptModels = considerWarm ? rme.getKeptModels() : null;
+                double score = rme.getScoreStats(regressionTargetScore).getMean();
+                trial.score = regressionTargetScore.lowerIsBetter() ? score : -score;
+            }
+        }, threadPool);
+        
+        setParameters(best.values);
+        setResource(maxResource);
+        trainFinalRegressor(baseRegressor.clone(), best.keptModels == null ? null : best.keptModels[0], dataSet, threadPool);
+    }
+    
+    /**
+     * Performs successive halving or Hyperband, depending on the search mode.
+     * A grid search with random trials is done as one step of successive 
+     * halving using the full resource. 
+     * @param <M> the type of model being evaluated
+     * @param evaluator the object to evaluate models with
+     * @param threadPool the source of threads
+     * @return the best trial evaluated with the full resource
+     */
+    private <M> Trial<M> searchByHalving(TrialEvaluator<M> evaluator, ExecutorService threadPool)
+    {
+        Random rand = new Random();
+        double maxR = resourceParam == null ? 1.0 : maxResource;
+        double minR = resourceParam == null ? minDataFraction : minResource;
+        //how many times the resource can be increased by the halving rate
+        int sMax = (int) Math.floor(Math.log(maxR/minR)/Math.log(halvingRate) + 1e-9);
+        if(searchMode == SearchMode.GRID)
+            sMax = 0;
+        
+        List<double[]> grid = null;
+        if(randomTrials == 0 && searchMode != SearchMode.HYPERBAND)
+        {
+            checkGridValues();
+            grid = gridCombinations();
+        }
+        
+        Trial<M> best = null;
+        int lastBracket = searchMode == SearchMode.HYPERBAND ? 0 : sMax;
+        for(int s = sMax; s >= lastBracket; s--)
+        {
+            List<Trial<M>> trials = new ArrayList<Trial<M>>();
+            if(grid != null)
+                for(double[] values : grid)
+                    trials.add(new Trial<M>(values));
+            else
+            {
+                int n = randomTrials;
+                if(searchMode == SearchMode.HYPERBAND)
+                    n = (int) Math.ceil((sMax+1)/(s+1.0)*Math.pow(halvingRate, s));
+                for(int i = 0; i < n; i++)
+                    trials.add(new Trial<M>(sampleCombination(rand)));
+            }
+            
+            for(int i = 0; i <= s; i++)
+            {
+                double resource = maxR*Math.pow(halvingRate, i-s);
+                evaluateTrials(trials, resource, evaluator, threadPool);
+                Collections.sort(trials, new Comparator<Trial<M>>()
+                {
+                    @Override
+                    public int compare(Trial<M> o1, Trial<M> o2)
+                    {
+                        return Double.compare(o1.score, o2.score);
+                    }
+                });
+                if(i < s)//only the best move on to the next step
+                    trials = new ArrayList<Trial<M>>(trials.subList(0, Math.max(1, (int) (trials.size()/halvingRate))));
+            }
+            
+            if(best == null || trials.get(0).score < best.score)
+                best = trials.get(0);
+        }
+        return best;
+    }
+    
+    /**
+     * Trains and evaluates the models of the given trials with the given
+     * resource. Models are trained in parallel if 
+     * {@link #isTrainModelsInParallel() } is {@code true}.
+     */
+    private <M> void evaluateTrials(List<Trial<M>> trials, final double resource, final TrialEvaluator<M> evaluator, final ExecutorService threadPool)
+    {
+        //parameters are set on the base model, so must be done one at a time
+        for(Trial<M> trial : trials)
+        {
+            setParameters(trial.values);
+            setResource(resource);
+            trial.model = evaluator.cloneBase();
+        }
+        
+        final double dataFraction = resourceParam == null ? resource : 1.0;
+        final ExecutorService modelService = trainModelsInParallel ? threadPool : new FakeExecutor();
+        final CountDownLatch latch = new CountDownLatch(trials.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for(final Trial<M> trial : trials)
+        {
+            modelService.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        evaluator.evaluate(trial, dataFraction, trainModelsInParallel ? null : threadPool);
+                    }
+                    catch(Throwable t)
+                    {
+                        failure.compareAndSet(null, t);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(GridSearch.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        Throwable ex = failure.get();
+        if(ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        else if(ex instanceof Error)
+            throw (Error) ex;
+    }
+    
+    /**
+     * Sets the resource parameter to the given amount, if there is one
+     */
+    private void setResource(double resource)
+    {
+        if(resourceParam != null)
+            resourceParam.setValue((int) Math.max(minResource, Math.min(maxResource, Math.round(resource))));
+    }
+    
+    /**
+     * Returns every combination of the parameter values in the grid
+     */
+    private List<double[]> gridCombinations()
+    {
+        List<double[]> combinations = new ArrayList<double[]>();
+        int[] setTo = new int[searchParams.size()];
+        while(true)
+        {
+            double[] values = new double[setTo.length];
+            for(int i = 0; i < setTo.length; i++)
+                values[i] = searchValues.get(i).get(setTo[i]);
+            combinations.add(values);
+            
+            if(incrementCombination(setTo))
+                break;
+        }
+        return combinations;
+    }
+    
+    /**
+     * Samples a random combination of parameter values
+     */
+    private double[] sampleCombination(Random rand)
+    {
+        double[] values = new double[searchParams.size()];
+        for(int i = 0; i < values.length; i++)
+        {
+            Distribution dist = searchDistributions.get(i);
+            if(dist != null)
+            {
+                values[i] = dist.invCdf(rand.nextDouble());
+                if(searchParams.get(i) instanceof IntParameter)
+                    values[i] = Math.round(values[i]);
+            }
+            else
+            {
+                List<Double> options = searchValues.get(i);
+                values[i] = options.get(rand.nextInt(options.size()));
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Creates a random order of the rows of each training set, so that smaller
+     * fractions of the data are subsets of the larger ones
+     */
+    private static int[][] subsampleOrders(List<? extends DataSet> trainSets)
+    {
+        Random rand = new Random();
+        int[][] orders = new int[trainSets.size()][];
+        for(int i = 0; i < orders.length; i++)
+        {
+            int n = trainSets.get(i).getSampleSize();
+            orders[i] = new int[n];
+            for(int j = 0; j < n; j++)
+                orders[i][j] = j;
+            for(int j = n-1; j > 0; j--)
+            {
+                int k = rand.nextInt(j+1);
+                int tmp = orders[i][j];
+                orders[i][j] = orders[i][k];
+                orders[i][k] = tmp;
+            }
+        }
+        return orders;
+    }
+    
+    /**
+     * Returns the rows to use for the given fraction of a training set, in 
+     * increasing order
+     */
+    private static int[] subsample(int[] order, double fraction)
+    {
+        int[] rows = Arrays.copyOf(order, Math.max(1, (int) Math.round(order.length*fraction)));
+        Arrays.sort(rows);
+        return rows;
+    }
+    
+    /**
+     * Sets the parameters to the given values
+     * @param values the value of each parameter
+     */
+    private void setParameters(double[] values)
+    {
+        for(int i = 0; i < values.length; i++)
+        {
+            Parameter param = searchParams.get(i);
+            if(param instanceof DoubleParameter)
+                ((DoubleParameter)param).setValue(values[i]);
+            else if(param instanceof IntParameter)
+                ((IntParameter)param).setValue((int) values[i]);
+        }
+    }
+
     /**
      * This increments the array used to keep track of which combinations of 
      * parameter values have been used. 
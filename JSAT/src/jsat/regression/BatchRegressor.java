@@ -0,0 +1,35 @@
+package jsat.regression;
+
+import java.util.List;
+import jsat.classifiers.BatchPrediction;
+import jsat.classifiers.DataPoint;
+
+/**
+ * BatchRegressor is a {@link Regressor} that can regress a whole list of data 
+ * points in one call, rather than one data point at a time. This allows a 
+ * model to compute the results of many points at once, such as with a matrix 
+ * product, and avoids the overhead of one call per data point. 
+ * {@link BatchPrediction} will use this method when available. 
+ * <br>
+ * The results must be the same as calling 
+ * {@link #regress(jsat.classifiers.DataPoint) } on each data point, up to 
+ * numerical round off. Like the single point method, this method may be 
+ * called by several threads at once on different lists. 
+ * 
+ * @author Edward Raff
+ */
+public interface BatchRegressor extends Regressor
+{
+    /**
+     * Performs regression on all of the given data points. The model should 
+     * not keep a reference to the list or array after this method returns. 
+     * 
+     * @param dataPoints the data points to regress
+     * @param out the array to store the result of each data point in, in the 
+     * same order as the data points
+     */
+    public void regress(List<DataPoint> dataPoints, double[] out);
+    
+    @Override
+    public BatchRegressor clone();
+}
@@ -0,0 +1,34 @@
+package jsat.regression;
+
+import java.util.List;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.MiniBatchPipeline;
+
+/**
+ * BatchUpdateableRegressor is an {@link UpdateableRegressor} that can learn 
+ * from a whole mini-batch of data points in one call, rather than one data 
+ * point at a time. This allows a learner to compute a single update from all 
+ * of the points in the batch, and avoids the overhead of one call per data 
+ * point. The {@link MiniBatchPipeline} will use this method when available. 
+ * <br>
+ * The same set up rules as {@link UpdateableRegressor} apply before the 
+ * batch method may be called. 
+ * 
+ * @author Edward Raff
+ */
+public interface BatchUpdateableRegressor extends UpdateableRegressor
+{
+    /**
+     * Updates the regressor by giving it a mini-batch of new data points to 
+     * learn from. The regressor should not keep a reference to the list or 
+     * array after this method returns. 
+     * 
+     * @param dataPoints the data points to learn
+     * @param targetValues the target value of each data point, in the same 
+     * order as the data points
+     */
+    public void update(List<DataPoint> dataPoints, double[] targetValues);
+    
+    @Override
+    public BatchUpdateableRegressor clone();
+}
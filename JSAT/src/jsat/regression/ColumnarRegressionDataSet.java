@@ -0,0 +1,276 @@
+package jsat.regression;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import jsat.ColumnarStore;
+import jsat.ColumnarStore.Layout;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.datatransform.DataTransform;
+import jsat.datatransform.InPlaceTransform;
+import jsat.linear.DenseVector;
+import jsat.linear.Matrix;
+import jsat.linear.Vec;
+import jsat.math.OnLineStatistics;
+import jsat.utils.DoubleList;
+
+/**
+ * A {@link RegressionDataSet} that keeps its data in a {@link ColumnarStore}
+ * rather than one {@link DataPointPair} object per row. The target values are
+ * kept in a primitive array. This uses considerably less memory for large data
+ * sets, while still being usable by any algorithm that accepts a
+ * RegressionDataSet. <br>
+ * <br>
+ * Data points returned by {@link #getDataPoint(int) } are light weight views
+ * into the store. The pairs returned by {@link #getDataPointPair(int) } are
+ * created on demand, so altering the pair itself will not alter the data set.
+ * Algorithms that work on columns can obtain the primitive arrays directly
+ * through {@link #getStore() } and {@link #getRawTargets() }. Cross validation
+ * folds are {@link RegressionDataSetView views} of this data set, so they do
+ * not copy the store.
+ *
+ * @author Edward Raff
+ */
+public class ColumnarRegressionDataSet extends RegressionDataSet
+{
+    /**
+     * The storage for the features and weights of every row
+     */
+    protected ColumnarStore store;
+    /**
+     * The target values for every row
+     */
+    protected DoubleList targets;
+
+    /**
+     * Creates a new empty data set for regression using the
+     * {@link Layout#COLUMN_MAJOR} layout.
+     *
+     * @param numerical the number of numerical attributes that will be used, excluding the regression value
+     * @param categories an array of length equal to the number of categorical attributes, each object describing the attribute in question
+     */
+    public ColumnarRegressionDataSet(int numerical, CategoricalData[] categories)
+    {
+        this(numerical, categories, Layout.COLUMN_MAJOR);
+    }
+
+    /**
+     * Creates a new empty data set for regression
+     *
+     * @param numerical the number of numerical attributes that will be used, excluding the regression value
+     * @param categories an array of length equal to the number of categorical attributes, each object describing the attribute in question
+     * @param layout the memory layout to use for the numeric features
+     */
+    public ColumnarRegressionDataSet(int numerical, CategoricalData[] categories, Layout layout)
+    {
+        this(new ColumnarStore(numerical, categories, layout), new DoubleList());
+    }
+
+    /**
+     * Creates a new data set that contains a copy of all the data in the given
+     * regression data set.
+     *
+     * @param source the data set to copy
+     * @param layout the memory layout to use for the numeric features
+     */
+    public ColumnarRegressionDataSet(RegressionDataSet source, Layout layout)
+    {
+        this(new ColumnarStore(source.getNumNumericalVars(), source.getCategories(), layout, source.getSampleSize()), new DoubleList(source.getSampleSize()));
+        for(int i = 0; i < source.getSampleSize(); i++)
+        {
+            store.add(source.getDataPoint(i));
+            targets.add(source.getTargetValue(i));
+        }
+        if(numericalVariableNames != null && !numericalVariableNames.isEmpty())
+            for(int i = 0; i < getNumNumericalVars(); i++)
+                numericalVariableNames.set(i, source.getNumericName(i));
+    }
+
+    /**
+     * Creates a new data set backed by the given store and targets
+     * @param store the store to use
+     * @param targets the target values for each row of the store
+     */
+    protected ColumnarRegressionDataSet(ColumnarStore store, DoubleList targets)
+    {
+        super(store.getNumNumericalVars(), store.getCategories());
+        this.dataPoints = null;
+        this.store = store;
+        this.targets = targets;
+    }
+
+    /**
+     * Returns the storage engine used by this data set. Alterations to the
+     * store will be reflected in this data set.
+     *
+     * @return the storage engine used by this data set
+     */
+    public ColumnarStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the array backing the target values of this data set. The array
+     * may be longer than {@link #getSampleSize() }, and should be discarded if
+     * data points are added to this data set.
+     *
+     * @return the array backing the target values
+     */
+    public double[] getRawTargets()
+    {
+        return targets.getBackingArray();
+    }
+
+    /**
+     * Reduces the memory used by the backing arrays to the minimum needed to
+     * hold the current data points.
+     */
+    public void trimToSize()
+    {
+        store.trimToSize();
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, double val)
+    {
+        if(dp.numNumericalValues() != getNumNumericalVars() || dp.numCategoricalValues() != getNumCategoricalVars())
+            throw new RuntimeException("The added data point does not match the number of values and categories for the data set");
+        else if(Double.isInfinite(val) || Double.isNaN(val))
+            throw new ArithmeticException("Unregressiable value " + val + " given for regression");
+
+        store.add(dp);
+        targets.add(val);
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void addDataPointPair(DataPointPair<Double> pair)
+    {
+        store.add(pair.getDataPoint());
+        targets.add(pair.getPair().doubleValue());
+        columnVecCache.clear();
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        if(i >= getSampleSize())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
+        return store.getDataPoint(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The pair is created on demand, so modifying the pair will not effect
+     * the data set. Modifying the data point of the pair will.
+     */
+    @Override
+    public DataPointPair<Double> getDataPointPair(int i)
+    {
+        return new DataPointPair<Double>(getDataPoint(i), targets.getD(i));
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        if(i >= getSampleSize())
+            throw new IndexOutOfBoundsException("There are not that many samples in the data set");
+        store.set(i, dp.getNumericalValues(), dp.getCategoricalValues(), dp.getWeight());
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void setTargetValue(int i, double val)
+    {
+        if(Double.isInfinite(val) || Double.isNaN(val))
+            throw new ArithmeticException("Can not predict a " + val + " value");
+        targets.set(i, val);
+    }
+
+    @Override
+    public double getTargetValue(int i)
+    {
+        return targets.getD(i);
+    }
+
+    @Override
+    public Vec getTargetValues()
+    {
+        return new DenseVector(Arrays.copyOf(targets.getBackingArray(), getSampleSize()));
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return store.size();
+    }
+
+    @Override
+    public ColumnarRegressionDataSet shallowClone()
+    {
+        double[] targetCopy = Arrays.copyOf(targets.getBackingArray(), getSampleSize());
+        return new ColumnarRegressionDataSet(store.shallowCopy(), DoubleList.view(targetCopy, targetCopy.length));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The weights of a shallow clone are never shared with the original, so
+     * this is equivalent to {@link #shallowClone() }.
+     */
+    @Override
+    public ColumnarRegressionDataSet getTwiceShallowClone()
+    {
+        return shallowClone();
+    }
+
+    @Override
+    public Vec getNumericColumn(int i)
+    {
+        return store.getColumnCopy(i);
+    }
+
+    @Override
+    public Vec[] getNumericColumns(Set<Integer> skipColumns)
+    {
+        return store.getColumnViews(skipColumns);
+    }
+
+    @Override
+    public Matrix getDataMatrixView()
+    {
+        return store.getMatrixView();
+    }
+
+    @Override
+    public OnLineStatistics getSparsityStats()
+    {
+        OnLineStatistics stats = new OnLineStatistics();
+        if(getSampleSize() > 0)
+            stats.add(1.0, getSampleSize());
+        return stats;
+    }
+
+    @Override
+    public void applyTransform(DataTransform dt, boolean mutate, ExecutorService ex)
+    {
+        if(mutate && dt instanceof InPlaceTransform)
+        {
+            super.applyTransform(dt, mutate, ex);
+            return;
+        }
+        store = store.transform(dt, ex);
+        columnVecCache.clear();
+        numNumerVals = store.getNumNumericalVars();
+        categories = store.getCategories();
+        if (this.numericalVariableNames != null)
+        {
+            this.numericalVariableNames.clear();
+            for (int i = 0; i < getNumNumericalVars(); i++)
+                numericalVariableNames.add("TN" + (i + 1));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package jsat.regression;
 
 import java.util.*;
 import jsat.DataSet;
+import jsat.RowSelection;
 import jsat.classifiers.*;
 import jsat.linear.DenseVector;
 import jsat.linear.Vec;
@@ -117,6 +118,10 @@ public class RegressionDataSet extends DataSet
     
     public static RegressionDataSet comineAllBut(List<RegressionDataSet> list, int exception)
     {
+        RegressionDataSetView view = RegressionDataSetView.combine(list, exception);
+        if(view != null)//folds from cvSet, so no need to copy
+            return view;
+        
         int numer = list.get(exception).getNumNumericalVars();
         CategoricalData[] categories = list.get(exception).getCategories();
         
@@ -127,7 +132,11 @@ public class RegressionDataSet extends DataSet
             if (i == exception)
                 continue;
             else
-                rds.dataPoints.addAll(list.get(i).dataPoints);
+            {
+                RegressionDataSet fold = list.get(i);
+                for(int j = 0; j < fold.getSampleSize(); j++)
+                    rds.dataPoints.add(fold.getDataPointPair(j));
+            }
         
         return rds;
     }
@@ -215,9 +224,9 @@ public class RegressionDataSet extends DataSet
      */
     public List<DataPointPair<Double>> getAsDPPList()
     {
-        ArrayList<DataPointPair<Double>> list = new ArrayList<DataPointPair<Double>>(dataPoints.size());
-        for(DataPointPair<Double> dpp : dataPoints)
-            list.add(new DataPointPair<Double>(dpp.getDataPoint().clone(), dpp.getPair()));
+        ArrayList<DataPointPair<Double>> list = new ArrayList<DataPointPair<Double>>(getSampleSize());
+        for(int i = 0; i < getSampleSize(); i++)
+            list.add(new DataPointPair<Double>(getDataPoint(i).clone(), getTargetValue(i)));
         return list;
     }
     
@@ -231,8 +240,9 @@ public class RegressionDataSet extends DataSet
      */
     public List<DataPointPair<Double>> getDPPList()
     {
-        ArrayList<DataPointPair<Double>> list = new ArrayList<DataPointPair<Double>>(dataPoints);
-        
+        ArrayList<DataPointPair<Double>> list = new ArrayList<DataPointPair<Double>>(getSampleSize());
+        for(int i = 0; i < getSampleSize(); i++)
+            list.add(getDataPointPair(i));
         return list;
     }
     
@@ -256,21 +266,18 @@ public class RegressionDataSet extends DataSet
         dataPoints.get(i).setPair(val);
     }
 
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The folds returned are {@link RegressionDataSetView views} of this data 
+     * set, and do not copy the data points.
+     */
     @Override
     public List<RegressionDataSet> cvSet(int folds, Random rand)
     {
-        
-        List<DataPointPair<Double>> shuffleSet = new ArrayList<DataPointPair<Double>>(this.dataPoints);
-        
-        Collections.shuffle(shuffleSet, rand);
-        
         List<RegressionDataSet> cvSet = new ArrayList<RegressionDataSet>(folds);
-        for(int i = 0; i < folds; i++)
-            cvSet.add(new RegressionDataSet(this.numNumerVals, CategoricalData.copyOf(this.categories)));
-        
-        for(int i = 0; i < dataPoints.size(); i++)
-            cvSet.get(i%folds).dataPoints.add(shuffleSet.get(i));
-        
+        for(int[] fold : RowSelection.foldIndices(getSampleSize(), folds, rand))
+            cvSet.add(new RegressionDataSetView(this, fold));
         return cvSet;
     }
 
@@ -298,7 +305,7 @@ public class RegressionDataSet extends DataSet
         DenseVector vals = new DenseVector(getSampleSize());
         
         for(int i = 0; i < getSampleSize(); i++)
-            vals.set(i, dataPoints.get(i).getPair());
+            vals.set(i, getTargetValue(i));
         
         return vals;
     }
@@ -344,9 +351,19 @@ public class RegressionDataSet extends DataSet
         return clone;
     }
 
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The clone returned is a {@link RegressionDataSetView view} of this data 
+     * set that keeps its own copy of the weights, so only the weights are 
+     * copied. 
+     */
     @Override
     public RegressionDataSet getTwiceShallowClone()
     {
-        return (RegressionDataSet) super.getTwiceShallowClone(); //To change body of generated methods, choose Tools | Templates.
+        double[] weights = new double[getSampleSize()];
+        for(int i = 0; i < weights.length; i++)
+            weights[i] = getDataPoint(i).getWeight();
+        return new RegressionDataSetView(this, null, weights);
     }
 }
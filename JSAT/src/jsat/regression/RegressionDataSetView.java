@@ -0,0 +1,263 @@
+package jsat.regression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import jsat.RowSelection;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.linear.Vec;
+
+/**
+ * A {@link RegressionDataSet} that is a view of the rows of another
+ * regression data set, given by an array of row indices and optionally new
+ * weights for each row. No data points are copied to create the view, so
+ * cross validation folds and bootstrap samples can be created cheaply. <br>
+ * <br>
+ * Data points can not be added to a view. Data points and target values can
+ * be replaced, which only changes the view. The pairs returned by
+ * {@link #getDataPointPair(int) } are new objects, and altering them does not
+ * change the view. When the view has its own weights, the data points
+ * returned share the values of the base data set, but altering their weight
+ * only changes the weight in the view. The same object is returned for a row
+ * each time it is asked for. Otherwise the data points of the base data set
+ * are returned directly.
+ *
+ * @author Edward Raff
+ */
+public class RegressionDataSetView extends RegressionDataSet
+{
+    private final RowSelection rows;
+    private final RegressionDataSet base;
+    /**
+     * The target values set in this view, or {@code null} to use the targets
+     * of the base data set
+     */
+    private double[] targets;
+
+    /**
+     * Creates a new view of the given rows of a data set
+     * @param base the data set to view
+     * @param rows the rows of the base data set to include, may contain
+     * duplicates. {@code null} may be given to use all the rows.
+     */
+    public RegressionDataSetView(RegressionDataSet base, int[] rows)
+    {
+        this(base, rows, null);
+    }
+
+    /**
+     * Creates a new view of the given rows of a data set
+     * @param base the data set to view
+     * @param rows the rows of the base data set to include, may contain
+     * duplicates. {@code null} may be given to use all the rows.
+     * @param weights the weight to use for each row of the view, or
+     * {@code null} to use the weights of the base data set
+     */
+    public RegressionDataSetView(RegressionDataSet base, int[] rows, double[] weights)
+    {
+        this(base, select(base, rows, weights), selectTargets(base, rows));
+    }
+
+    private RegressionDataSetView(RegressionDataSet base, RowSelection rows, double[] targets)
+    {
+        super(base.getNumNumericalVars(), base.getCategories());
+        if(base instanceof RegressionDataSetView)
+            base = ((RegressionDataSetView) base).base;
+        this.base = base;
+        this.rows = rows;
+        this.targets = targets;
+        this.dataPoints = null;
+    }
+
+    private static RowSelection select(RegressionDataSet base, int[] rows, double[] weights)
+    {
+        if(base instanceof RegressionDataSetView)//view of the original rows, rather than a chain of views
+        {
+            RowSelection baseRows = ((RegressionDataSetView) base).rows;
+            if(rows == null)
+                return weights == null ? baseRows.copy() : baseRows.select(allIndices(baseRows.size()), weights);
+            return baseRows.select(rows, weights);
+        }
+        return new RowSelection(base, rows, weights);
+    }
+
+    private static double[] selectTargets(RegressionDataSet base, int[] rows)
+    {
+        if(!(base instanceof RegressionDataSetView))
+            return null;
+        return ((RegressionDataSetView) base).selectTargets(rows == null ? allIndices(base.getSampleSize()) : rows);
+    }
+
+    private double[] selectTargets(int[] indices)
+    {
+        if(targets == null)
+            return null;
+        double[] newTargets = new double[indices.length];
+        for(int k = 0; k < indices.length; k++)
+            newTargets[k] = targets[indices[k]];
+        return newTargets;
+    }
+
+    private static int[] allIndices(int n)
+    {
+        int[] indices = new int[n];
+        for(int i = 0; i < n; i++)
+            indices[i] = i;
+        return indices;
+    }
+
+    /**
+     * Returns the data set this is a view of
+     * @return the data set this is a view of
+     */
+    public RegressionDataSet getBase()
+    {
+        return base;
+    }
+
+    /**
+     * Returns the row of the base data set for the given data point
+     * @param i the index of the data point in this view
+     * @return the row of the base data set
+     */
+    public int getBaseRow(int i)
+    {
+        return rows.row(i);
+    }
+
+    @Override
+    public DataPoint getDataPoint(int i)
+    {
+        return rows.getDataPoint(i);
+    }
+
+    @Override
+    public DataPointPair<Double> getDataPointPair(int i)
+    {
+        return new DataPointPair<Double>(getDataPoint(i), getTargetValue(i));
+    }
+
+    @Override
+    public double getTargetValue(int i)
+    {
+        int r = rows.row(i);
+        if(targets != null)
+            return targets[i];
+        return base.getTargetValue(r);
+    }
+
+    @Override
+    public void setTargetValue(int i, double val)
+    {
+        if(Double.isInfinite(val) || Double.isNaN(val))
+            throw new ArithmeticException("Can not predict a " + val + " value");
+        rows.row(i);//bounds check
+        if(targets == null)
+        {
+            targets = new double[getSampleSize()];
+            for(int j = 0; j < targets.length; j++)
+                targets[j] = base.getTargetValue(rows.row(j));
+        }
+        targets[i] = val;
+    }
+
+    @Override
+    public int getSampleSize()
+    {
+        return rows.size();
+    }
+
+    @Override
+    public void setDataPoint(int i, DataPoint dp)
+    {
+        rows.setDataPoint(i, dp);
+        columnVecCache.clear();
+    }
+
+    @Override
+    public void addDataPoint(DataPoint dp, double val)
+    {
+        throw new UnsupportedOperationException("Data points can not be added to a view");
+    }
+
+    @Override
+    public void addDataPointPair(DataPointPair<Double> pair)
+    {
+        throw new UnsupportedOperationException("Data points can not be added to a view");
+    }
+
+    @Override
+    public void addDataPoint(Vec numerical, int[] categories, double val)
+    {
+        throw new UnsupportedOperationException("Data points can not be added to a view");
+    }
+
+    @Override
+    public List<RegressionDataSet> cvSet(int folds, Random rand)
+    {
+        List<RegressionDataSet> cvList = new ArrayList<RegressionDataSet>(folds);
+        for(int[] fold : RowSelection.foldIndices(getSampleSize(), folds, rand))
+            cvList.add(new RegressionDataSetView(base, rows.select(fold, null), selectTargets(fold)));
+        return cvList;
+    }
+
+    @Override
+    public RegressionDataSetView shallowClone()
+    {
+        return new RegressionDataSetView(base, rows.copy(), targets == null ? null : Arrays.copyOf(targets, targets.length));
+    }
+
+    @Override
+    public RegressionDataSetView getTwiceShallowClone()
+    {
+        return new RegressionDataSetView(base, rows.copyWithOwnWeights(), targets == null ? null : Arrays.copyOf(targets, targets.length));
+    }
+
+    /**
+     * Combines views of the same data set into one view
+     * @param views the views to combine
+     * @param exception the index of the view to leave out, or -1 to use all
+     * @return the combined view, or {@code null} if the data sets given are
+     * not all views of the same data set
+     */
+    static RegressionDataSetView combine(List<RegressionDataSet> views, int exception)
+    {
+        List<RowSelection> selections = new ArrayList<RowSelection>(views.size());
+        RegressionDataSet base = null;
+        boolean anyTargets = false;
+        for(int i = 0; i < views.size(); i++)
+        {
+            if(i == exception)
+                continue;
+            if(!(views.get(i) instanceof RegressionDataSetView))
+                return null;
+            RegressionDataSetView view = (RegressionDataSetView) views.get(i);
+            if(base == null)
+                base = view.base;
+            else if(base != view.base)
+                return null;
+            selections.add(view.rows);
+            anyTargets |= view.targets != null;
+        }
+        if(base == null)
+            return null;
+
+        RowSelection combined = RowSelection.concat(selections);
+        double[] newTargets = null;
+        if(anyTargets)
+        {
+            newTargets = new double[combined.size()];
+            int pos = 0;
+            for(int i = 0; i < views.size(); i++)
+                if(i != exception)
+                {
+                    RegressionDataSet view = views.get(i);
+                    for(int j = 0; j < view.getSampleSize(); j++)
+                        newTargets[pos++] = view.getTargetValue(j);
+                }
+        }
+        return new RegressionDataSetView(base, combined, newTargets);
+    }
+}
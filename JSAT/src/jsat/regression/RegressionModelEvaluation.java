@@ -12,7 +12,9 @@ import jsat.datatransform.DataTransformProcess;
 import jsat.exceptions.UntrainedModelException;
 import jsat.math.OnLineStatistics;
 import jsat.regression.evaluation.RegressionScore;
+import jsat.utils.FakeExecutor;
 import jsat.utils.SystemInfo;
+import jsat.utils.concurrent.TrackingExecutor;
 
 /**
  * Provides a mechanism to quickly evaluate a regression model on a data set. 
@@ -49,6 +51,15 @@ public class RegressionModelEvaluation
      * If using a test set, only index 0 is used.
      */
     private Regressor[] warmModels;
+    /**
+     * Whether or not all cross validation folds should be run at once
+     */
+    private boolean parallelFolds = false;
+    /**
+     * The number of test points each thread transforms and predicts at once
+     * with {@link BatchPrediction}
+     */
+    private static final int BATCH_SIZE = 1024;
 
     /**
      * Creates a new RegressionModelEvaluation that will perform parallel training. 
@@ -125,6 +136,41 @@ public class RegressionModelEvaluation
         this.warmModels = warmModels;
     }
     
+    /**
+     * Sets whether or not all folds of cross validation should always be 
+     * trained and tested at the same time, with one thread for each fold. 
+     * This has no effect when no thread pool was given.<br>
+     * <br>
+     * When {@code false}, which is the default, the first fold is trained with
+     * the thread pool. If the regressor did not use the thread pool, the 
+     * remaining folds are trained at the same time with one thread each. 
+     * Otherwise, they are trained one after the other with the thread pool. 
+     * Setting this to {@code true} skips the check, and is useful when the 
+     * number of folds is not much smaller than the number of cores. <br>
+     * <br>
+     * When folds are trained at the same time, every fold other than the last
+     * trains its own {@link Regressor#clone() clone} of the regressor. In 
+     * every case the regressor given is left trained without the last fold 
+     * of the list, the same as when no thread pool is given. 
+     * 
+     * @param parallelFolds {@code true} to always evaluate all folds at the 
+     * same time
+     */
+    public void setParallelFolds(boolean parallelFolds)
+    {
+        this.parallelFolds = parallelFolds;
+    }
+
+    /**
+     * Returns whether or not all folds of cross validation are always 
+     * evaluated at the same time
+     * @return {@code true} if all folds are always evaluated at the same time
+     */
+    public boolean isParallelFolds()
+    {
+        return parallelFolds;
+    }
+
     /**
      * Sets the data transform process to use when performing cross validation. 
      * By default, no transforms are applied
@@ -179,10 +225,7 @@ public class RegressionModelEvaluation
      */
     public void evaluateCrossValidation(List<RegressionDataSet> lcds)
     {
-        List<RegressionDataSet> trainCombinations = new ArrayList<RegressionDataSet>(lcds.size());
-        for (int i = 0; i < lcds.size(); i++)
-            trainCombinations.add(RegressionDataSet.comineAllBut(lcds, i));
-        evaluateCrossValidation(lcds, trainCombinations);
+        evaluateCrossValidation(lcds, null);
     }
     
     /**
@@ -208,19 +251,100 @@ public class RegressionModelEvaluation
      *
      * @param lcds training data set already split into folds
      * @param trainCombinations each index contains the training data sans the
-     * data stored in the fold associated with that index
+     * data stored in the fold associated with that index, or {@code null} to 
+     * create each training set only when its fold is evaluated
      */
     public void evaluateCrossValidation(List<RegressionDataSet> lcds, List<RegressionDataSet> trainCombinations)
     {
         
         sqrdErrorStats = new OnLineStatistics();
         totalTrainingTime = totalClassificationTime = 0;
+        if(keepModels)
+            keptModels = new Regressor[lcds.size()];
         
-        for(int i = 0; i < lcds.size(); i++)
+        if(threadpool == null || threadpool instanceof FakeExecutor || lcds.size() == 1)
+        {
+            for(int i = 0; i < lcds.size(); i++)
+                evaluationWork(getTrainSet(lcds, trainCombinations, i), lcds.get(i), i, regressor, threadpool);
+        }
+        else if(parallelFolds)
+            evaluateFoldsInParallel(lcds, trainCombinations, 0);
+        else
+        {
+            //find out if the regressor can make use of the threads on its own
+            boolean usedPool = evaluationWork(getTrainSet(lcds, trainCombinations, 0), lcds.get(0), 0, regressor, new TrackingExecutor(threadpool));
+            if(usedPool)
+                for(int i = 1; i < lcds.size(); i++)
+                    evaluationWork(getTrainSet(lcds, trainCombinations, i), lcds.get(i), i, regressor, threadpool);
+            else//the original ends on the last fold, as in the serial case
+                evaluateFoldsInParallel(lcds, trainCombinations, 1);
+        }
+    }
+    
+    private static RegressionDataSet getTrainSet(List<RegressionDataSet> lcds, List<RegressionDataSet> trainCombinations, int i)
+    {
+        if(trainCombinations == null)
+            return RegressionDataSet.comineAllBut(lcds, i);
+        return trainCombinations.get(i);
+    }
+    
+    /**
+     * Evaluates the last folds at the same time, each one trained and tested
+     * by a single thread. 
+     * 
+     * @param lcds the folds
+     * @param trainCombinations the training set for each fold, or {@code null}
+     * @param from the index of the first fold to evaluate. The last fold 
+     * trains the original regressor, and the others train copies of it. 
+     */
+    private void evaluateFoldsInParallel(final List<RegressionDataSet> lcds, final List<RegressionDataSet> trainCombinations, int from)
+    {
+        final int folds = lcds.size()-from;
+        final Regressor[] models = new Regressor[folds];
+        for(int i = 0; i < folds; i++)
+            models[i] = i == folds-1 ? regressor : regressor.clone();
+        final CountDownLatch latch = new CountDownLatch(folds);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        for(int i = 0; i < folds; i++)
+        {
+            final int fold = from+i;
+            final Regressor model = models[i];
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        evaluationWork(getTrainSet(lcds, trainCombinations, fold), lcds.get(fold), fold, model, null);
+                    }
+                    catch(Throwable ex)
+                    {
+                        failures.add(ex);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Logger.getLogger(RegressionModelEvaluation.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if(!failures.isEmpty())
         {
-            RegressionDataSet trainSet = trainCombinations.get(i);
-            RegressionDataSet testSet = lcds.get(i);
-            evaluationWork(trainSet, testSet, i);
+            Throwable ex = failures.get(0);
+            if(ex instanceof RuntimeException)
+                throw (RuntimeException) ex;
+            else if(ex instanceof Error)
+                throw (Error) ex;
+            throw new RuntimeException(ex);
         }
     }
     
@@ -231,21 +355,35 @@ public class RegressionModelEvaluation
      */
     public void evaluateTestSet(RegressionDataSet testSet)
     {
+        if(keepModels)
+            keptModels = new Regressor[1];
         sqrdErrorStats = new OnLineStatistics();
         totalTrainingTime = totalClassificationTime = 0;
-        evaluationWork(dataSet, testSet, 0);
+        evaluationWork(dataSet, testSet, 0, regressor, threadpool);
     }
     
-    private void evaluationWork(RegressionDataSet trainSet, RegressionDataSet testSet, int index)
+    /**
+     * Trains a model and evaluates it on the test set
+     * 
+     * @param trainSet the data to train on
+     * @param testSet the data to test on
+     * @param index the index of the fold
+     * @param model the model to train and test
+     * @param threadpool the source of threads for training and testing, or
+     * {@code null} to do all work in the calling thread
+     * @return {@code true} if the thread pool given is a 
+     * {@link TrackingExecutor} that was used to train the model
+     */
+    private boolean evaluationWork(RegressionDataSet trainSet, RegressionDataSet testSet, int index, Regressor model, ExecutorService threadpool)
     {
         trainSet = trainSet.shallowClone();
         DataTransformProcess curProccess = dtp.clone();
         curProccess.learnApplyTransforms(trainSet);
         
         long startTrain = System.currentTimeMillis();
-        if(warmModels != null && regressor instanceof WarmRegressor)//train from the warm model
+        if(warmModels != null && model instanceof WarmRegressor)//train from the warm model
         {
-            WarmRegressor wr = (WarmRegressor) regressor;
+            WarmRegressor wr = (WarmRegressor) model;
             if(threadpool != null)
                 wr.train(trainSet, warmModels[index], threadpool);
             else
@@ -254,13 +392,14 @@ public class RegressionModelEvaluation
         else//do the normal thing
         {
             if(threadpool != null)
-                regressor.train(trainSet, threadpool);
+                model.train(trainSet, threadpool);
             else
-                regressor.train(trainSet);
+                model.train(trainSet);
         }
-        totalTrainingTime += (System.currentTimeMillis() - startTrain);
+        long trainingTime = System.currentTimeMillis() - startTrain;
+        boolean usedPool = threadpool instanceof TrackingExecutor && ((TrackingExecutor) threadpool).wasUsed();
         if(keptModels != null)
-            keptModels[index] = regressor.clone();
+            keptModels[index] = model.clone();
         
         //place to store the scores that may get updated by several threads
         final Map<RegressionScore, RegressionScore> scoresToUpdate = new HashMap<RegressionScore, RegressionScore>();
@@ -275,7 +414,7 @@ public class RegressionModelEvaluation
         if(testSet.getSampleSize() < SystemInfo.LogicalCores || threadpool == null)
         {
             latch = new CountDownLatch(1);
-            new Evaluator(testSet, curProccess, 0, testSet.getSampleSize(), scoresToUpdate, latch).run();
+            new Evaluator(model, testSet, curProccess, 0, testSet.getSampleSize(), scoresToUpdate, latch).run();
         }
         else//go parallel!
         {
@@ -289,18 +428,30 @@ public class RegressionModelEvaluation
                 int end = start+blockSize;
                 if(extra-- > 0)
                     end++;
-                threadpool.submit(new Evaluator(testSet, curProccess, start, end, scoresToUpdate, latch));
+                threadpool.submit(new Evaluator(model, testSet, curProccess, start, end, scoresToUpdate, latch));
                 start = end;
             }
         }
         try
         {
             latch.await();
+            synchronized (sqrdErrorStats)//folds may finish at the same time
+            {
+                totalTrainingTime += trainingTime;
+                for(Entry<RegressionScore, OnLineStatistics> entry : scoreMap.entrySet())
+                {
+                    RegressionScore score = entry.getKey().clone();
+                    score.prepare();
+                    score.addResults(scoresToUpdate.get(score));
+                    entry.getValue().add(score.getScore());
+                }
+            }
         }
         catch (InterruptedException ex)
         {
             Logger.getLogger(ClassificationModelEvaluation.class.getName()).log(Level.SEVERE, null, ex);
         }
+        return usedPool;
     }
     
     /**
@@ -339,6 +490,7 @@ public class RegressionModelEvaluation
     
     private class Evaluator implements Runnable
     {
+        Regressor model;
         RegressionDataSet testSet;
         DataTransformProcess curProccess;
         int start, end;
@@ -346,8 +498,9 @@ public class RegressionModelEvaluation
         long localPredictionTime;
         final Map<RegressionScore, RegressionScore> scoresToUpdate;
 
-        public Evaluator(RegressionDataSet testSet, DataTransformProcess curProccess, int start, int end, Map<RegressionScore, RegressionScore> scoresToUpdate, CountDownLatch latch)
+        public Evaluator(Regressor model, RegressionDataSet testSet, DataTransformProcess curProccess, int start, int end, Map<RegressionScore, RegressionScore> scoresToUpdate, CountDownLatch latch)
         {
+            this.model = model;
             this.testSet = testSet;
             this.curProccess = curProccess;
             this.start = start;
@@ -366,23 +519,33 @@ public class RegressionModelEvaluation
                 Set<RegressionScore> localScores = new HashSet<RegressionScore>();
                 for (Entry<RegressionScore, RegressionScore> entry : scoresToUpdate.entrySet())
                     localScores.add(entry.getKey().clone());
-                for (int i = start; i < end; i++)
+                List<DataPoint> block = new ArrayList<DataPoint>(Math.min(BATCH_SIZE, end-start));
+                for (int blockStart = start; blockStart < end; blockStart += BATCH_SIZE)
                 {
-                    DataPoint di = testSet.getDataPoint(i);
-                    double trueVal = testSet.getTargetValue(i);
-                    DataPoint tranDP = curProccess.transform(di);
+                    final int blockEnd = Math.min(blockStart+BATCH_SIZE, end);
+                    block.clear();
+                    for (int i = blockStart; i < blockEnd; i++)
+                        block.add(curProccess.transform(testSet.getDataPoint(i)));
+                    double[] predVals = new double[block.size()];
                     long startTime = System.currentTimeMillis();
-                    double predVal = regressor.regress(tranDP);
+                    BatchPrediction.regress(model, block, predVals);
                     localPredictionTime += (System.currentTimeMillis() - startTime);
 
-                    double sqrdError = pow(trueVal - predVal, 2);
-                    
-                    for (RegressionScore score : localScores)
-                        score.addResult(predVal, trueVal, di.getWeight());
-
-                    synchronized (sqrdErrorStats)
+                    for (int i = blockStart; i < blockEnd; i++)
                     {
-                        sqrdErrorStats.add(sqrdError, di.getWeight());
+                        DataPoint di = testSet.getDataPoint(i);
+                        double trueVal = testSet.getTargetValue(i);
+                        double predVal = predVals[i-blockStart];
+
+                        double sqrdError = pow(trueVal - predVal, 2);
+
+                        for (RegressionScore score : localScores)
+                            score.addResult(predVal, trueVal, di.getWeight());
+
+                        synchronized (sqrdErrorStats)
+                        {
+                            sqrdErrorStats.add(sqrdError, di.getWeight());
+                        }
                     }
                 }
                 
@@ -392,12 +555,15 @@ public class RegressionModelEvaluation
                     for (RegressionScore score : localScores)
                         scoresToUpdate.get(score).addResults(score);
                 }
-                latch.countDown();
             }
             catch (Exception ex)
             {
                 ex.printStackTrace();
             }
+            finally
+            {
+                latch.countDown();
+            }
         }
         
     }
@@ -39,6 +39,7 @@ public class MeanSquaredError implements RegressionScore
      */
     public MeanSquaredError(MeanSquaredError toCopy)
     {
+        this.rmse = toCopy.rmse;
         if(toCopy.meanError != null)
             this.meanError = toCopy.meanError.clone();
     }
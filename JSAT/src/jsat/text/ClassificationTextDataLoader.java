@@ -1,6 +1,7 @@
 package jsat.text;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import jsat.classifiers.CategoricalData;
 import jsat.classifiers.ClassificationDataSet;
 import jsat.linear.distancemetrics.DistanceMetric;
@@ -90,12 +91,17 @@ public abstract class ClassificationTextDataLoader extends TextDataLoader
     
     @Override
     public ClassificationDataSet getDataSet()
+    {
+        return getDataSet(null);
+    }
+    
+    @Override
+    public ClassificationDataSet getDataSet(ExecutorService threadpool)
     {
         if(!noMoreAdding)
         {
             setLabelInfo();
-            initialLoad();
-            finishAdding();
+            loadOriginalDocuments(threadpool);
         }
         
         ClassificationDataSet cds = 
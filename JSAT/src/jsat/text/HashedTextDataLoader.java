@@ -1,20 +1,27 @@
 package jsat.text;
 
 import java.util.*;
-import java.util.Map.Entry;
 import jsat.DataSet;
 import jsat.SimpleDataSet;
 import jsat.classifiers.CategoricalData;
 import jsat.classifiers.DataPoint;
+import jsat.linear.IndexValue;
 import jsat.linear.SparseVector;
 import jsat.linear.Vec;
+import jsat.text.tokenizer.HashingTokenizer;
+import jsat.text.tokenizer.TokenHash;
 import jsat.text.tokenizer.Tokenizer;
 import jsat.text.wordweighting.WordWeighting;
+import jsat.utils.IntDoubleMap;
 import jsat.utils.IntList;
 
 /**
  * This class provides a framework for loading datasets made of Text documents 
- * as hashed feature vectors. 
+ * as hashed feature vectors. Each token is hashed with {@link TokenHash}, and 
+ * if the tokenizer is a {@link HashingTokenizer} the tokens are hashed without 
+ * creating a String for each one. The features of each document are counted 
+ * in a reused primitive map, and the number of documents each feature occurs 
+ * in is kept in an {@code int[]}. 
  * 
  * @author Edward Raff
  */
@@ -38,9 +45,13 @@ abstract public class HashedTextDataLoader implements TextVectorCreator
      */
     protected List<String> storageSpace;
     /**
-     * Temporary space to use when creating vectors
+     * Temporary space for the hash of each token
      */
-    protected Map<String, Integer> wordCounts;
+    private IntList hashes;
+    /**
+     * Temporary space to count each feature when creating vectors
+     */
+    private IntDoubleMap featureCounts;
     
     private TextVectorCreator tvc;
     
@@ -90,41 +101,25 @@ abstract public class HashedTextDataLoader implements TextVectorCreator
         {
             workSpace = new StringBuilder();
             storageSpace = new ArrayList<String>();
+            hashes = new IntList();
         }
         
         workSpace.setLength(0);
         storageSpace.clear();
+        hashes.clear();
         
-        
-        tokenizer.tokenize(text, workSpace, storageSpace);
+        HashedTextVectorCreator.hashTokens(tokenizer, text, workSpace, storageSpace, hashes);
         /**
-         * Create a new one every 50 so that we dont waist iteration time 
-         * on many null elements when we occasionally load in an abnormally
+         * Create a new one every 50 so that we dont waist clearing time 
+         * on many empty elements when we occasionally load in an abnormally
          * large document 
          */
         if(documents % 50 == 0)
-            wordCounts = new HashMap<String, Integer>(storageSpace.size());
-        
-        for(String word : storageSpace)
-        {
-            Integer count = wordCounts.get(word);
-            if(count == null)
-                wordCounts.put(word, 1);
-            else
-                wordCounts.put(word, count+1);
-        }
+            featureCounts = new IntDoubleMap(Math.max(hashes.size(), 1));
         
-        SparseVector vec = new SparseVector(dimensionSize, wordCounts.size());
-        for(Iterator<Entry<String, Integer>> iter = wordCounts.entrySet().iterator(); iter.hasNext();)
-        {
-            Entry<String, Integer> entry = iter.next();
-            String word = entry.getKey();
-            
-            int index = Math.abs(word.hashCode()) % dimensionSize;
-            vec.set(index, entry.getValue());
-            termDocumentFrequencys[index] += entry.getValue();
-            iter.remove();
-        }
+        SparseVector vec = HashedTextVectorCreator.countFeatures(hashes, featureCounts, dimensionSize);
+        for(IndexValue iv : vec)
+            termDocumentFrequencys[iv.getIndex()]++;
         
         vectors.add(vec);
         documents++;
@@ -140,7 +135,8 @@ abstract public class HashedTextDataLoader implements TextVectorCreator
         
         workSpace = null;
         storageSpace = null;
-        wordCounts = null;
+        hashes = null;
+        featureCounts = null;
         
         weighting.setWeight(vectors, IntList.unmodifiableView(termDocumentFrequencys, dimensionSize));
         for(SparseVector vec : vectors)
@@ -1,14 +1,22 @@
 package jsat.text;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import jsat.linear.SparseVector;
 import jsat.linear.Vec;
+import jsat.text.tokenizer.HashingTokenizer;
+import jsat.text.tokenizer.TokenHash;
 import jsat.text.tokenizer.Tokenizer;
 import jsat.text.wordweighting.WordWeighting;
+import jsat.utils.ClosedHashingUtil;
+import jsat.utils.IntDoubleMap;
+import jsat.utils.IntList;
 
 /**
- * Text Vector creator to that uses hashed features. 
+ * Text Vector creator to that uses hashed features. Each token is hashed with
+ * {@link TokenHash}. If the tokenizer is a {@link HashingTokenizer}, the tokens
+ * are hashed without creating a String for each one. 
  * 
  * @author Edward Raff
  */
@@ -42,11 +50,69 @@ public class HashedTextVectorCreator implements TextVectorCreator
     @Override
     public Vec newText(String input, StringBuilder workSpace, List<String> storageSpace)
     {
-        tokenizer.tokenize(input, workSpace, storageSpace);
-        SparseVector vec = new SparseVector(dimensionSize);
-        for(String word : storageSpace)
-            vec.increment(Math.abs(word.hashCode())%dimensionSize, 1.0);
+        IntList hashes = new IntList();
+        hashTokens(tokenizer, input, workSpace, storageSpace, hashes);
+        SparseVector vec = countFeatures(hashes, new IntDoubleMap(Math.max(hashes.size(), 1)), dimensionSize);
         weighting.applyTo(vec);
         return vec;
     }
+    
+    /**
+     * Adds the hash of each token in the input to the list of hashes. 
+     * 
+     * @param tokenizer the tokenizer to use
+     * @param input the text to tokenize
+     * @param workSpace the work space to use if the tokenizer can not hash 
+     * tokens itself
+     * @param storageSpace the storage space to use if the tokenizer can not 
+     * hash tokens itself
+     * @param hashes the list to add the hashes to
+     */
+    static void hashTokens(Tokenizer tokenizer, String input, StringBuilder workSpace, List<String> storageSpace, IntList hashes)
+    {
+        if(tokenizer instanceof HashingTokenizer)
+        {
+            ((HashingTokenizer) tokenizer).hashTokens(input, hashes);
+            return;
+        }
+        tokenizer.tokenize(input, workSpace, storageSpace);
+        for(String word : storageSpace)
+            hashes.add(TokenHash.hash(word));
+    }
+    
+    /**
+     * Creates the vector of how many times each feature occurred from the 
+     * token hashes
+     * 
+     * @param hashes the hash of each token
+     * @param counts the empty map to count each feature in, left empty
+     * @param dimensionSize the number of features
+     * @return the vector of feature counts
+     */
+    static SparseVector countFeatures(IntList hashes, IntDoubleMap counts, int dimensionSize)
+    {
+        for(int i = 0; i < hashes.size(); i++)
+            counts.increment((hashes.getI(i) & Integer.MAX_VALUE) % dimensionSize, 1.0);
+        
+        //feature in the upper half, count in the lower, so sorting orders by feature
+        long[] pairs = new long[counts.size()];
+        byte[] status = counts.getRawStatusTable();
+        int[] keys = counts.getRawKeyTable();
+        double[] values = counts.getRawValueTable();
+        int pos = 0;
+        for(int i = 0; i < status.length; i++)
+            if(status[i] == ClosedHashingUtil.OCCUPIED)
+                pairs[pos++] = ((long) keys[i] << 32) | (int) values[i];
+        counts.clear();
+        Arrays.sort(pairs);
+        
+        int[] indexes = new int[pairs.length];
+        double[] vals = new double[pairs.length];
+        for(int i = 0; i < pairs.length; i++)
+        {
+            indexes[i] = (int) (pairs[i] >>> 32);
+            vals[i] = (int) pairs[i];
+        }
+        return new SparseVector(indexes, vals, dimensionSize, pairs.length);
+    }
 }
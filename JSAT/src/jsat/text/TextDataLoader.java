@@ -2,6 +2,10 @@
 package jsat.text;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import jsat.DataSet;
 import jsat.SimpleDataSet;
 import jsat.classifiers.CategoricalData;
@@ -13,10 +17,18 @@ import jsat.linear.Vec;
 import jsat.text.tokenizer.Tokenizer;
 import jsat.text.wordweighting.WordWeighting;
 import jsat.utils.IntList;
+import jsat.utils.SystemInfo;
 
 /**
  * This class provides a framework for loading datasets made of Text documents 
- * as vectors. 
+ * as vectors. The index of each word is the order in which it was first 
+ * observed, going through the documents in the order they were added and the 
+ * tokens of each document in order. <br>
+ * The documents can be loaded in parallel by calling 
+ * {@link #getDataSet(java.util.concurrent.ExecutorService) }. The documents 
+ * are still added by {@link #initialLoad() } from the calling thread, but are 
+ * tokenized and counted by the thread pool. The data set returned is the same 
+ * as when the documents are loaded in the calling thread. 
  * 
  * @author Edward Raff 
  */
@@ -67,6 +79,49 @@ public abstract class TextDataLoader implements TextVectorCreator
     protected boolean noMoreAdding;
     private int currentLength = 0;
     private int documents;
+    
+    /**
+     * The maximum number of documents per thread that may be waiting to be 
+     * processed during a parallel load. This bounds how many document texts 
+     * are kept in memory. 
+     */
+    private static final int PENDING_PER_THREAD = 64;
+    /**
+     * Log2 of the number of document frequencies stored in each block of the 
+     * parallel document frequency counts
+     */
+    private static final int DF_BLOCK_SHIFT = 14;
+    private static final int DF_BLOCK_MASK = (1 << DF_BLOCK_SHIFT) - 1;
+    
+    /**
+     * The thread pool documents are added with, or {@code null} when they are
+     * being added in the calling thread
+     */
+    private ExecutorService threadpool;
+    /**
+     * The documents of a parallel load, in the order they were added
+     */
+    private List<Future<DocumentCounts>> pendingDocuments;
+    /**
+     * Limits the number of documents waiting in the thread pool
+     */
+    private Semaphore pendingLimit;
+    /**
+     * Maps words to a temporary index during a parallel load. Temporary 
+     * indices are given in whatever order the threads first see the words, 
+     * and are renumbered in {@link #finishAdding() }.
+     */
+    private ConcurrentHashMap<String, Integer> tempWordIndex;
+    private AtomicInteger tempWordCount;
+    /**
+     * The document frequency of each temporary index during a parallel load, 
+     * stored in blocks that are allocated as the vocabulary grows
+     */
+    private AtomicReferenceArray<AtomicIntegerArray> tempDocFrequencies;
+    /**
+     * Per thread work spaces for tokenizing during a parallel load
+     */
+    private ThreadLocal<TokenizeSpace> tokenizeSpace;
 
     public TextDataLoader(Tokenizer tokenizer, WordWeighting weighting)
     {
@@ -105,6 +160,11 @@ public abstract class TextDataLoader implements TextVectorCreator
     {
         if(noMoreAdding)
             throw new RuntimeException("Initial data set has been finalized");
+        if(threadpool != null)
+        {
+            addOriginalDocumentParallel(text);
+            return;
+        }
         if(workSpace == null)
         {
             workSpace = new StringBuilder();
@@ -134,10 +194,16 @@ public abstract class TextDataLoader implements TextVectorCreator
         }
         
         SparseVector vec = new SparseVector(currentLength+1, wordCounts.size());//+1 to avoid issues when its length is zero, will be corrected in finalization step anyway
-        for(Iterator<Map.Entry<String, Integer>> iter = wordCounts.entrySet().iterator(); iter.hasNext();)
+        /*
+         * Go through the words in the order of the tokens, rather than the 
+         * order of the hash map, so that new words are indexed in the order 
+         * they first occur. Removing the count marks the word as done
+         */
+        for(String word : storageSpace)
         {
-            Map.Entry<String, Integer> entry = iter.next();
-            String word = entry.getKey();
+            Integer count = wordCounts.remove(word);
+            if(count == null)//already counted this word
+                continue;
             
             Integer indx = wordIndex.get(word);
             if(indx == null)//this word has never been seen before!
@@ -146,20 +212,225 @@ public abstract class TextDataLoader implements TextVectorCreator
                 wordIndex.put(word, currentLength++);
                 termDocumentFrequencys.add(1);
                 vec.setLength(currentLength);
-                vec.set(currentLength-1, entry.getValue());
+                vec.set(currentLength-1, count);
             }
             else//this word has been seen before
             {
                 termDocumentFrequencys.set(indx, termDocumentFrequencys.get(indx)+1);
-                vec.set(indx, entry.getValue());
+                vec.set(indx, count);
             }
-            iter.remove();
         }
         
         vectors.add(vec);
         documents++;
     }
     
+    /**
+     * Submits the document to the thread pool to be tokenized and counted. 
+     * The place of the document in the data set is fixed here, in the calling 
+     * thread. 
+     * 
+     * @param text the text of the document to add
+     */
+    private void addOriginalDocumentParallel(final String text)
+    {
+        if(pendingDocuments == null)
+        {
+            pendingDocuments = new ArrayList<Future<DocumentCounts>>();
+            pendingLimit = new Semaphore(SystemInfo.LogicalCores*PENDING_PER_THREAD);
+            tempWordIndex = new ConcurrentHashMap<String, Integer>(1024, 0.75f, SystemInfo.LogicalCores*4);
+            tempWordCount = new AtomicInteger();
+            tempDocFrequencies = new AtomicReferenceArray<AtomicIntegerArray>((Integer.MAX_VALUE >> DF_BLOCK_SHIFT) + 1);
+            tokenizeSpace = new ThreadLocal<TokenizeSpace>()
+            {
+                @Override
+                protected TokenizeSpace initialValue()
+                {
+                    return new TokenizeSpace();
+                }
+            };
+        }
+        
+        pendingLimit.acquireUninterruptibly();
+        try
+        {
+            pendingDocuments.add(threadpool.submit(new Callable<DocumentCounts>()
+            {
+                @Override
+                public DocumentCounts call() throws Exception
+                {
+                    try
+                    {
+                        return countDocument(text);
+                    }
+                    finally
+                    {
+                        pendingLimit.release();
+                    }
+                }
+            }));
+        }
+        catch(RejectedExecutionException ex)
+        {
+            pendingLimit.release();
+            throw ex;
+        }
+        documents++;
+    }
+    
+    /**
+     * Tokenizes and counts the words of one document using temporary indices.
+     * Safe to call from multiple threads at once. 
+     * 
+     * @param text the text of the document
+     * @return the temporary index and count of each word in the document, in 
+     * the order the words first occur
+     */
+    private DocumentCounts countDocument(String text)
+    {
+        TokenizeSpace space = tokenizeSpace.get();
+        space.workSpace.setLength(0);
+        space.storageSpace.clear();
+        tokenizer.tokenize(text, space.workSpace, space.storageSpace);
+        
+        Map<String, Integer> counts = space.wordCounts;
+        for (String word : space.storageSpace)
+        {
+            Integer count = counts.get(word);
+            if (count == null)
+                counts.put(word, 1);
+            else
+                counts.put(word, count + 1);
+        }
+        
+        DocumentCounts doc = new DocumentCounts(counts.size());
+        for (String word : space.storageSpace)
+        {
+            Integer count = counts.remove(word);
+            if (count == null)//already counted this word
+                continue;
+            
+            Integer indx = tempWordIndex.get(word);
+            if (indx == null)
+            {
+                Integer newIndx = tempWordCount.getAndIncrement();
+                indx = tempWordIndex.putIfAbsent(word, newIndx);
+                if (indx == null)//we won, otherwise another thread added it first
+                    indx = newIndx;
+            }
+            
+            int block = indx >>> DF_BLOCK_SHIFT;
+            AtomicIntegerArray dfBlock = tempDocFrequencies.get(block);
+            if (dfBlock == null)
+            {
+                tempDocFrequencies.compareAndSet(block, null, new AtomicIntegerArray(DF_BLOCK_MASK + 1));
+                dfBlock = tempDocFrequencies.get(block);
+            }
+            dfBlock.incrementAndGet(indx & DF_BLOCK_MASK);
+            
+            doc.indices[doc.used] = indx;
+            doc.counts[doc.used++] = count;
+        }
+        
+        return doc;
+    }
+    
+    /**
+     * Waits for the documents of a parallel load and renumbers the temporary 
+     * word indices by the order the words first occur, the same order the 
+     * words are indexed in when the documents are added in the calling thread.
+     * The document vectors and frequencies are then filled in.
+     */
+    private void finishParallelAdding()
+    {
+        final List<DocumentCounts> docs = new ArrayList<DocumentCounts>(pendingDocuments.size());
+        try
+        {
+            for (Future<DocumentCounts> future : pendingDocuments)
+                docs.add(future.get());
+        }
+        catch (InterruptedException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new RuntimeException(ex.getCause());
+        }
+        pendingDocuments = null;
+        pendingLimit = null;
+        tokenizeSpace = null;
+        
+        String[] tempWords = new String[tempWordCount.get()];
+        for (Map.Entry<String, Integer> entry : tempWordIndex.entrySet())
+            tempWords[entry.getValue()] = entry.getKey();
+        tempWordIndex = null;
+        
+        final int[] newIndex = new int[tempWords.length];
+        Arrays.fill(newIndex, -1);
+        for (DocumentCounts doc : docs)
+            for (int i = 0; i < doc.used; i++)
+            {
+                int tmp = doc.indices[i];
+                if (newIndex[tmp] >= 0)
+                    continue;
+                newIndex[tmp] = currentLength++;
+                allWords.add(tempWords[tmp]);
+                wordIndex.put(tempWords[tmp], newIndex[tmp]);
+                termDocumentFrequencys.add(tempDocFrequencies.get(tmp >>> DF_BLOCK_SHIFT).get(tmp & DF_BLOCK_MASK));
+            }
+        tempDocFrequencies = null;
+        
+        final SparseVector[] docVecs = new SparseVector[docs.size()];
+        final int blocks = Math.min(SystemInfo.LogicalCores, Math.max(docs.size(), 1));
+        final CountDownLatch latch = new CountDownLatch(blocks);
+        for (int id = 0; id < blocks; id++)
+        {
+            final int ID = id;
+            threadpool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int d = ID; d < docVecs.length; d += blocks)
+                        {
+                            DocumentCounts doc = docs.get(d);
+                            //new index in the upper half, count in the lower, so sorting orders by index
+                            long[] pairs = new long[doc.used];
+                            for (int i = 0; i < doc.used; i++)
+                                pairs[i] = ((long) newIndex[doc.indices[i]] << 32) | doc.counts[i];
+                            Arrays.sort(pairs);
+                            int[] indexes = new int[doc.used];
+                            double[] values = new double[doc.used];
+                            for (int i = 0; i < doc.used; i++)
+                            {
+                                indexes[i] = (int) (pairs[i] >>> 32);
+                                values[i] = (int) pairs[i];
+                            }
+                            docVecs[d] = new SparseVector(indexes, values, Math.max(currentLength, 1), doc.used);//max to avoid issues when its length is zero, corrected in finishAdding
+                        }
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+        
+        vectors.addAll(Arrays.asList(docVecs));
+    }
+    
     /**
      * Once all original documents have been added, this method is called so 
      * that post processing steps can be applied. 
@@ -168,6 +439,9 @@ public abstract class TextDataLoader implements TextVectorCreator
     {
         noMoreAdding = true;
         
+        if(pendingDocuments != null)
+            finishParallelAdding();
+        
         workSpace = null;
         storageSpace = null;
         wordCounts = null;
@@ -189,12 +463,23 @@ public abstract class TextDataLoader implements TextVectorCreator
      * @return an appropriate data set for this loader
      */
     public DataSet getDataSet()
+    {
+        return getDataSet(null);
+    }
+    
+    /**
+     * Returns a new data set containing the original data points that were 
+     * loaded with this loader. If the documents have not been loaded yet, they
+     * will be tokenized and counted using the given thread pool. 
+     * 
+     * @param threadpool the source of threads to load the documents with, or 
+     * {@code null} to load them in the calling thread
+     * @return an appropriate data set for this loader
+     */
+    public DataSet getDataSet(ExecutorService threadpool)
     {
         if(!noMoreAdding)
-        {
-            initialLoad();
-            finishAdding();
-        }
+            loadOriginalDocuments(threadpool);
         
         List<DataPoint> dataPoints= new ArrayList<DataPoint>(vectors.size());
         
@@ -204,6 +489,28 @@ public abstract class TextDataLoader implements TextVectorCreator
         return new SimpleDataSet(dataPoints);
     }
     
+    /**
+     * Calls {@link #initialLoad() } and then {@link #finishAdding() }. When a 
+     * thread pool is given, the documents added by <tt>initialLoad</tt> are 
+     * tokenized and counted in parallel. 
+     * 
+     * @param threadpool the source of threads to load the documents with, or 
+     * {@code null} to load them in the calling thread
+     */
+    protected void loadOriginalDocuments(ExecutorService threadpool)
+    {
+        this.threadpool = threadpool;
+        try
+        {
+            initialLoad();
+            finishAdding();
+        }
+        finally
+        {
+            this.threadpool = null;
+        }
+    }
+    
     /**
      * To be called after all original texts have been loaded. 
      * 
@@ -282,4 +589,30 @@ public abstract class TextDataLoader implements TextVectorCreator
         
         return new RemoveAttributeTransformFactory(Collections.EMPTY_SET, numericToRemove);
     }
+    
+    /**
+     * The per thread work space used to tokenize documents in parallel
+     */
+    private static class TokenizeSpace
+    {
+        final StringBuilder workSpace = new StringBuilder();
+        final List<String> storageSpace = new ArrayList<String>();
+        final Map<String, Integer> wordCounts = new HashMap<String, Integer>();
+    }
+    
+    /**
+     * The word counts of one document, using temporary word indices
+     */
+    private static class DocumentCounts
+    {
+        final int[] indices;
+        final int[] counts;
+        int used = 0;
+
+        public DocumentCounts(int words)
+        {
+            indices = new int[words];
+            counts = new int[words];
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package jsat.text.tokenizer;
+
+import jsat.utils.IntList;
+
+/**
+ * A Tokenizer that can also hash its tokens as it finds them, without creating
+ * a {@link String} for each token. This is used to create hashed features
+ * quickly.
+ *
+ * @author Edward Raff
+ */
+public interface HashingTokenizer extends Tokenizer
+{
+    /**
+     * Breaks the input into tokens and adds the hash of each token, in order,
+     * to the given list. The hash of each token must be the same as
+     * {@link TokenHash#hash(java.lang.CharSequence) } of the token that
+     * {@link #tokenize(java.lang.String) } would have returned.
+     *
+     * @param input the characters to tokenize
+     * @param hashes an already allocated list to place the token hashes into
+     */
+    public void hashTokens(CharSequence input, IntList hashes);
+}
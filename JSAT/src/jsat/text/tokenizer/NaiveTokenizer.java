@@ -3,6 +3,7 @@ package jsat.text.tokenizer;
 
 import java.util.ArrayList;
 import java.util.List;
+import jsat.utils.IntList;
 
 /**
  *
@@ -11,10 +12,13 @@ import java.util.List;
  * space. This behavior can be altered slightly, and allows for setting a 
  * minimum and maximum allowed length for tokens. This can be useful when 
  * dealing with noisy documents, and removing small words. <br>
+ * Tokens can also be hashed as they are found with 
+ * {@link #hashTokens(java.lang.CharSequence, jsat.utils.IntList) }, which 
+ * does not create any objects. <br>
  * 
  * @author Edward Raff
  */
-public class NaiveTokenizer implements Tokenizer
+public class NaiveTokenizer implements HashingTokenizer
 {   
     private boolean useLowerCase;
     private boolean otherToWhiteSpace = true;
@@ -125,6 +129,41 @@ public class NaiveTokenizer implements Tokenizer
             storageSpace.add(workSpace.toString());
     }
 
+    @Override
+    public void hashTokens(CharSequence input, IntList hashes)
+    {
+        //same logic as tokenize, but hashing each char instead of appending it
+        int h1 = 0;
+        char pending = 0;
+        int length = 0;
+        for(int i = 0; i < input.length(); i++)
+        {
+            char c = input.charAt(i);
+            if(Character.isLetter(c) || (!noDigits && Character.isDigit(c)))
+            {
+                if(useLowerCase && Character.isLetter(c))
+                    c = Character.toLowerCase(c);
+                if((length & 1) == 0)
+                    pending = c;
+                else
+                    h1 = TokenHash.mix(h1, pending, c);
+                length++;
+            }
+            else if(!otherToWhiteSpace && !Character.isWhitespace(c))
+                continue;
+            else //end of token
+            {
+                if(length >= minTokenLength && length <= maxTokenLength)
+                    hashes.add(TokenHash.finish(h1, pending, length));
+                h1 = 0;
+                length = 0;
+            }
+        }
+        
+        if(length >= minTokenLength && length <= maxTokenLength)
+            hashes.add(TokenHash.finish(h1, pending, length));
+    }
+
     /**
      * Sets the maximum allowed length for any token. Any token discovered 
      * exceeding the length will not be accepted and skipped over. The default 
@@ -0,0 +1,96 @@
+package jsat.text.tokenizer;
+
+/**
+ * Computes the 32 bit MurmurHash3 of tokens, treating each pair of characters
+ * as a 32 bit block. The hash can be computed over a range of any
+ * {@link CharSequence}, or one character at a time as a token is scanned, so
+ * that tokens can be hashed without creating {@link String} objects. All
+ * methods give the same hash for the same sequence of characters.
+ * <br><br>
+ * To hash a token one character at a time, start with a state of {@code 0},
+ * call {@link #mix(int, char, char) } for each pair of characters, and then
+ * {@link #finish(int, char, int) } with the last character (if the length is
+ * odd) and the length of the token.
+ *
+ * @author Edward Raff
+ */
+public final class TokenHash
+{
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private TokenHash()
+    {
+    }
+
+    /**
+     * Returns the hash of the given token
+     * @param token the token to hash
+     * @return the hash of the token
+     */
+    public static int hash(CharSequence token)
+    {
+        return hash(token, 0, token.length());
+    }
+
+    /**
+     * Returns the hash of the token in the given range of characters
+     * @param seq the sequence containing the token
+     * @param start the index of the first character of the token, inclusive
+     * @param end the index after the last character of the token
+     * @return the hash of the token {@code seq.subSequence(start, end)}
+     */
+    public static int hash(CharSequence seq, int start, int end)
+    {
+        int h1 = 0;
+        int i = start + 1;
+        for (; i < end; i += 2)
+            h1 = mix(h1, seq.charAt(i - 1), seq.charAt(i));
+        char last = i == end ? seq.charAt(end - 1) : 0;
+        return finish(h1, last, end - start);
+    }
+
+    /**
+     * Mixes the next two characters of a token into the hash state
+     * @param h1 the current hash state
+     * @param c0 the first of the two characters
+     * @param c1 the second of the two characters
+     * @return the new hash state
+     */
+    public static int mix(int h1, char c0, char c1)
+    {
+        int k1 = mixK1(c0 | (c1 << 16));
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    /**
+     * Returns the final hash of a token
+     * @param h1 the hash state after all pairs of characters have been mixed
+     * @param last the last character of the token if the length is odd,
+     * ignored otherwise
+     * @param length the number of characters in the token
+     * @return the hash of the token
+     */
+    public static int finish(int h1, char last, int length)
+    {
+        if ((length & 1) == 1)
+            h1 ^= mixK1(last);
+
+        h1 ^= length * 2;//length in bytes
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+
+    private static int mixK1(int k1)
+    {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * C2;
+    }
+}
@@ -12,7 +12,6 @@ import jsat.exceptions.FailedToFitException;
 import jsat.linear.DenseVector;
 import jsat.linear.IndexValue;
 import jsat.linear.ScaledVector;
-import jsat.linear.SparseVector;
 import jsat.linear.Vec;
 import jsat.math.FastMath;
 import jsat.parameters.Parameter;
@@ -20,7 +19,6 @@ import jsat.parameters.Parameterized;
 import jsat.utils.DoubleList;
 import jsat.utils.FakeExecutor;
 import jsat.utils.IntList;
-import jsat.utils.ListUtils;
 import jsat.utils.SystemInfo;
 import jsat.utils.concurrent.ParallelUtils;
 import jsat.utils.random.XOR96;
@@ -129,33 +127,46 @@ public class OnlineLDAsvi implements Parameterized
      * reinitialized. 
      */
     private List<Vec> lambda;
-    private List<Lock> lambdaLocks;
     /**
      * Used to store the sum of each vector in {@link #lambda}. Updated live to avoid uncessary changes
      */
     private DoubleList lambdaSums;
-    private int[] lastUsed;
-    private List<Vec> ELogBeta;//See equation 6 in 2010 paper
-    private List<Vec> ExpELogBeta;//See line 7 update in 2013 paper / equation (5) in 2010 paper
+    /**
+     * Maps each word in the current mini-batch to its column in the mini-batch
+     * caches, and is {@code -1} for all other words. 
+     * <br><br>
+     * Only the columns of &lambda; for words in the mini-batch are used or 
+     * changed by an update, so exp(E[log &beta;]) (See line 7 update in 2013 
+     * paper / equation (5) in 2010 paper) and the sufficient statistics are 
+     * only kept for those words. Each is stored word major, so that the K 
+     * values for a word are contiguous. 
+     */
+    private int[] batchColumn;
+    /**
+     * The sufficient statistics are accumulated by many threads, with the 
+     * column for a word guarded by the lock {@code column % statsLocks.length}
+     */
+    private Lock[] statsLocks;
+    private static final int STATS_STRIPES = 256;
 
     /**
-     * Holds the temp vector used to store gamma 
+     * Holds the temp array used to store gamma 
      * 
      * Gamma contains the per document update counterpart to {@link #lambda}. 
      * 
      * We need one gamma for each document, and each will have a value for all K
      * topics. 
      */
-    private ThreadLocal<Vec> gammaLocal;
+    private ThreadLocal<double[]> gammaLocal;
     /**
-     * Holds the temp vector used to store the expectation of {@link #gammaLocal}
+     * Holds the temp array used to store the expectation of {@link #gammaLocal}
      */
-    private ThreadLocal<Vec> logThetaLocal;
+    private ThreadLocal<double[]> logThetaLocal;
     /**
-     * Holds the temp vector used to store the exponentiated expectation of 
+     * Holds the temp array used to store the exponentiated expectation of 
      * {@link #logThetaLocal} 
      */
-    private ThreadLocal<Vec> expLogThetaLocal;
+    private ThreadLocal<double[]> expLogThetaLocal;
 
     /**
      * Sets the number of topics that LDA will try to learn
@@ -166,28 +177,28 @@ public class OnlineLDAsvi implements Parameterized
         if(K < 2)
             throw new IllegalArgumentException("At least 2 topics must be learned");
         this.K = K;
-        gammaLocal = new ThreadLocal<Vec>()
+        gammaLocal = new ThreadLocal<double[]>()
         {
             @Override
-            protected Vec initialValue()
+            protected double[] initialValue()
             {
-                return new DenseVector(K);
+                return new double[K];
             }
         };
-        logThetaLocal  = new ThreadLocal<Vec>()
+        logThetaLocal  = new ThreadLocal<double[]>()
         {
             @Override
-            protected Vec initialValue()
+            protected double[] initialValue()
             {
-                return new DenseVector(K);
+                return new double[K];
             }
         };
-        expLogThetaLocal = new ThreadLocal<Vec>()
+        expLogThetaLocal = new ThreadLocal<double[]>()
         {
             @Override
-            protected Vec initialValue()
+            protected double[] initialValue()
             {
-                return new DenseVector(K);
+                return new double[K];
             }
         };
         
@@ -375,11 +386,11 @@ public class OnlineLDAsvi implements Parameterized
      * @param sum the sum of the {@code input} vector
      * @param output the vector to store the transformed inputs in
      */
-    private void expandPsiMinusPsiSum(Vec input, double sum, Vec output)
+    private void expandPsiMinusPsiSum(double[] input, double sum, double[] output)
     {
         double psiSum = FastMath.digamma(sum);
-        for(int i = 0; i < input.length(); i++)
-            output.set(i, FastMath.digamma(input.get(i))-psiSum);
+        for(int i = 0; i < input.length; i++)
+            output[i] = FastMath.digamma(input[i])-psiSum;
     }
     
     /**
@@ -416,10 +427,29 @@ public class OnlineLDAsvi implements Parameterized
         //need to init structure?
         if(lambda == null)
             initialize();
+        
+        /*
+         * Only the words that occur in this batch are used, so find them and 
+         * give each one a column in the batch caches
+         */
+        IntList wordList = new IntList();
+        for(Vec doc : docs)
+            for(IndexValue iv : doc)
+            {
+                int indx = iv.getIndex();
+                if(batchColumn[indx] < 0)
+                {
+                    batchColumn[indx] = wordList.size();
+                    wordList.add(indx);
+                }
+            }
+        final int[] words = Arrays.copyOf(wordList.getBackingArray(), wordList.size());
+        
         /*
          * Make sure the beta values we will need are up to date
          */
-        updateBetas(docs, ex);
+        final double[] expELogBeta = new double[words.length*K];
+        updateBetas(words, expELogBeta, ex);
         
         /*
          * Note, on each update we dont modify or access lambda untill the very,
@@ -433,14 +463,6 @@ public class OnlineLDAsvi implements Parameterized
         //2: Set the step-size schedule ρt appropriately.
         final double rho_t = Math.pow(tau0+(t++), -kappa);
         
-        
-        //pre-shrink the lambda values so we can add out updates later
-        for(int k = 0; k < K; k++)
-        {
-            lambda.get(k).mutableMultiply(1-rho_t);
-            lambdaSums.set(k, lambdaSums.getD(k)*(1-rho_t));
-        }
-        
         /*
          * As described in the 2010 paper, this part is the "E" step if we view
          * it as an EM algorithm
@@ -453,6 +475,7 @@ public class OnlineLDAsvi implements Parameterized
          * converges to a better solution if we reinitialize γ and φ before
          * each E step"
          */
+        final double[] sstats = new double[words.length*K];
         final int P = SystemInfo.LogicalCores;
         final CountDownLatch latch = new CountDownLatch(P);
         //main iner loop, outer is per document and inner most is per topic convergence
@@ -470,57 +493,44 @@ public class OnlineLDAsvi implements Parameterized
                         final Vec doc = docs.get(d);
                         if(doc.nnz() == 0)
                             continue;
-                        final Vec ELogTheta_d = logThetaLocal.get();
-                        final Vec ExpELogTheta_d = expLogThetaLocal.get();
-                        final Vec gamma_d = gammaLocal.get();
+                        final double[] ELogTheta_d = logThetaLocal.get();
+                        final double[] ExpELogTheta_d = expLogThetaLocal.get();
+                        final double[] gamma_d = gammaLocal.get();
 
                         /*
                          * Make sure gamma and theta are set up and ready to start iterating 
                          */
                         prepareGammaTheta(gamma_d, ELogTheta_d, ExpELogTheta_d, rand);
 
-                        int[] indexMap = new int[doc.nnz()];
+                        int[] columns = new int[doc.nnz()];
                         double[] phiCols = new double[doc.nnz()];
+                        int pos = 0;
+                        for(IndexValue iv : doc)
+                            columns[pos++] = batchColumn[iv.getIndex()];
 
                         //φ^k_dn ∝ exp{E[logθdk]+E[logβk,wdn ]}, k ∈ {1, . . . ,K}
-                        computePhi(doc, indexMap, phiCols, K, gamma_d, ELogTheta_d, ExpELogTheta_d);
-
-                        //accumulate updates, the "M" step
-                        IntList toUpdate = new IntList(K);
-                        ListUtils.addRange(toUpdate, 0, K, 1);
-                        Collections.shuffle(toUpdate, rand);//helps reduce contention caused by shared iteration order
-                        int updatePos = 0;
-                        while(!toUpdate.isEmpty())
+                        computePhi(doc, columns, phiCols, expELogBeta, gamma_d, ELogTheta_d, ExpELogTheta_d);
+
+                        /*
+                         * accumulate the sufficient statistics, the "M" step. 
+                         * The exp(E[log β]) factor is the same for every 
+                         * document, so it is applied once when merging
+                         */
+                        for(int i = 0; i < pos; i++)
                         {
-                            int k = toUpdate.getI(updatePos);
-                            
-                            if(lambdaLocks.get(k).tryLock())
+                            final int offset = columns[i]*K;
+                            final double phi_i = phiCols[i];
+                            Lock lock = statsLocks[columns[i] % STATS_STRIPES];
+                            lock.lock();
+                            try
                             {
-                                final double coeff = ExpELogTheta_d.get(k)*rho_t*D/docs.size();
-                                final Vec lambda_k = lambda.get(k);
-                                final Vec ExpELogBeta_k = ExpELogBeta.get(k);
-                                double lambdaSum_k = lambdaSums.getD(k);
-                                
-                                /*
-                                 * iterate and incremebt ourselves so that we can also compute 
-                                 * the new sums in 1 pass
-                                 */
-                                for(int i = 0; i < doc.nnz(); i++)
-                                {
-                                    int indx = indexMap[i];
-                                    double toAdd = coeff*phiCols[i]*ExpELogBeta_k.get(indx);
-                                    lambda_k.increment(indx, toAdd);
-                                    lambdaSum_k += toAdd;
-                                }
-
-                                lambdaSums.set(k, lambdaSum_k);
-                                lambdaLocks.get(k).unlock();
-                                
-                                toUpdate.remove(updatePos);
+                                for(int k = 0; k < K; k++)
+                                    sstats[offset+k] += ExpELogTheta_d[k]*phi_i;
+                            }
+                            finally
+                            {
+                                lock.unlock();
                             }
-                            
-                            if(!toUpdate.isEmpty())
-                                updatePos = (updatePos+1) % toUpdate.size();
                         }
                     }
                     
@@ -538,6 +548,50 @@ public class OnlineLDAsvi implements Parameterized
         {
             Logger.getLogger(OnlineLDAsvi.class.getName()).log(Level.SEVERE, null, ex1);
         }
+        
+        /*
+         * Shrink lambda and add the update for the words in this batch. Each 
+         * thread owns a block of topics, so no locking is needed
+         */
+        final double coeff = rho_t*D/docs.size();
+        final CountDownLatch mergeLatch = new CountDownLatch(P);
+        for(int id = 0; id < P; id++)
+        {
+            final int ID = id;
+            ex.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for(int k = ParallelUtils.getStartBlock(K, ID, P); k < ParallelUtils.getEndBlock(K, ID, P); k++)
+                    {
+                        final Vec lambda_k = lambda.get(k);
+                        lambda_k.mutableMultiply(1-rho_t);
+                        double lambdaSum_k = lambdaSums.getD(k)*(1-rho_t);
+                        for(int j = 0; j < words.length; j++)
+                        {
+                            double toAdd = coeff*sstats[j*K+k]*expELogBeta[j*K+k];
+                            lambda_k.increment(words[j], toAdd);
+                            lambdaSum_k += toAdd;
+                        }
+                        lambdaSums.set(k, lambdaSum_k);
+                    }
+                    mergeLatch.countDown();
+                }
+            });
+        }
+        
+        try
+        {
+            mergeLatch.await();
+        }
+        catch (InterruptedException ex1)
+        {
+            Logger.getLogger(OnlineLDAsvi.class.getName()).log(Level.SEVERE, null, ex1);
+        }
+        
+        for(int indx : words)
+            batchColumn[indx] = -1;
     }
     
     /**
@@ -589,67 +643,103 @@ public class OnlineLDAsvi implements Parameterized
      */
     public Vec getTopics(Vec doc)
     {
-        Vec gamma = new DenseVector(K);
+        double[] gamma = new double[K];
 
         Random rand = new XOR96();
         double lambdaInv = (W * K) / (D * 100.0);
 
-        for (int j = 0; j < gamma.length(); j++)
-            gamma.set(j, sampleExpoDist(lambdaInv, rand.nextDouble()) + eta);
-
-        Vec eLogTheta_i = new DenseVector(K);
-        Vec expLogTheta_i = new DenseVector(K);
-        expandPsiMinusPsiSum(gamma, gamma.sum(), eLogTheta_i);
-        for (int j = 0; j < eLogTheta_i.length(); j++)
-            expLogTheta_i.set(j, FastMath.exp(eLogTheta_i.get(j)));
+        for (int j = 0; j < gamma.length; j++)
+            gamma[j] = sampleExpoDist(lambdaInv, rand.nextDouble()) + eta;
+
+        double[] eLogTheta_i = new double[K];
+        double[] expLogTheta_i = new double[K];
+        double gammaSum = 0;
+        for (double g : gamma)
+            gammaSum += g;
+        expandPsiMinusPsiSum(gamma, gammaSum, eLogTheta_i);
+        for (int j = 0; j < eLogTheta_i.length; j++)
+            expLogTheta_i[j] = FastMath.exp(eLogTheta_i[j]);
+        
+        //the columns of exp(E[log β]) for just the words in this document
+        int[] words = new int[doc.nnz()];
+        int[] columns = new int[doc.nnz()];
+        int pos = 0;
+        for(IndexValue iv : doc)
+        {
+            words[pos] = iv.getIndex();
+            columns[pos] = pos;
+            pos++;
+        }
+        double[] expELogBeta = new double[pos*K];
+        computeExpELogBeta(words, 0, pos, digammaLambdaSums(), expELogBeta);
         
-        computePhi(doc, new int[doc.nnz()], new double[doc.nnz()], K, gamma, eLogTheta_i, expLogTheta_i);
-        gamma.mutableDivide(gamma.sum());
-        return gamma;
+        computePhi(doc, columns, new double[pos], expELogBeta, gamma, eLogTheta_i, expLogTheta_i);
+        DenseVector topics = new DenseVector(gamma);
+        topics.mutableDivide(topics.sum());
+        return topics;
     }
     
     /**
-     * Updates the Beta vectors associated with the {@link #gammaLocal gamma} 
-     * topic distributions so that they can be used to update against the given 
-     * batch of documents. Once updated, the Betas are the only items needed to 
-     * perform updates from the given batch, and the gamma values can be updated
-     * as the updates are computed. 
-     * 
-     * @param docs the mini batch of documents to update from
+     * Returns the digamma of the sum of each topic's &lambda; row, including 
+     * the &eta; prior 
+     * @return the digamma of the sum for each topic
      */
-    private void updateBetas(final List<Vec> docs, ExecutorService ex)
+    private double[] digammaLambdaSums()
     {
-        final double[] digammaLambdaSum = new double[K];//TODO may want to move this out & reuse
+        final double[] digammaLambdaSum = new double[K];
         for(int k = 0; k < K; k++)
             digammaLambdaSum[k] = FastMath.digamma(W*eta+lambdaSums.getD(k));
-        List<List<Vec>> docSplits = ListUtils.splitList(docs, SystemInfo.LogicalCores);
-        final CountDownLatch latch = new CountDownLatch(docSplits.size());
-        for(final List<Vec> docsSub :  docSplits)
+        return digammaLambdaSum;
+    }
+    
+    /**
+     * Computes the exp(E[log β]) values of the given words for every topic
+     * 
+     * @param words the words to compute the values of
+     * @param from the first word to compute, inclusive
+     * @param to the last word to compute, exclusive
+     * @param digammaLambdaSum the result of {@link #digammaLambdaSums() }
+     * @param expELogBeta the word major array to store the K values of each 
+     * word in
+     */
+    private void computeExpELogBeta(int[] words, int from, int to, double[] digammaLambdaSum, double[] expELogBeta)
+    {
+        for(int j = from; j < to; j++)
+        {
+            final int indx = words[j];
+            for(int k = 0; k < K; k++)
+            {
+                double lambda_kj = lambda.get(k).get(indx);
+                //See equation 6 in 2010 paper
+                double logBeta_kj = FastMath.digamma(eta+lambda_kj)-digammaLambdaSum[k];
+                expELogBeta[j*K+k] = FastMath.exp(logBeta_kj);
+            }
+        }
+    }
+    
+    /**
+     * Computes the exp(E[log β]) values needed to update from a mini-batch. 
+     * The words are split between the threads, so each is only computed once. 
+     * 
+     * @param words the words in the mini batch of documents to update from
+     * @param expELogBeta the word major array to store the K values of each 
+     * word in
+     */
+    private void updateBetas(final int[] words, final double[] expELogBeta, ExecutorService ex)
+    {
+        final double[] digammaLambdaSum = digammaLambdaSums();
+        final int P = SystemInfo.LogicalCores;
+        final CountDownLatch latch = new CountDownLatch(P);
+        for(int id = 0; id < P; id++)
         {
+            final int ID = id;
             ex.submit(new Runnable()
             {
 
                 @Override
                 public void run()
                 {
-                    for(Vec doc : docsSub)//make sure out ELogBeta is up to date
-                        for(IndexValue iv : doc)
-                        {
-                            int indx = iv.getIndex();
-                            if(lastUsed[indx] != t)
-                            {
-                                for(int k = 0; k < K; k++)
-                                {
-                                    double lambda_kj = lambda.get(k).get(indx);
-
-                                    double logBeta_kj = FastMath.digamma(eta+lambda_kj)-digammaLambdaSum[k];
-                                    ELogBeta.get(k).set(indx, logBeta_kj);
-                                    ExpELogBeta.get(k).set(indx, FastMath.exp(logBeta_kj));
-                                }
-                                lastUsed[indx] = t;
-                            }
-                        }
-                    
+                    computeExpELogBeta(words, ParallelUtils.getStartBlock(words.length, ID, P), ParallelUtils.getEndBlock(words.length, ID, P), digammaLambdaSum, expELogBeta);
                     latch.countDown();
                 }
             });
@@ -674,34 +764,36 @@ public class OnlineLDAsvi implements Parameterized
      * @param expLogTheta_i will be completely overwritten 
      * @param rand the source of randomness
      */
-    private void prepareGammaTheta(Vec gamma_i, Vec eLogTheta_i, Vec expLogTheta_i, Random rand)
+    private void prepareGammaTheta(double[] gamma_i, double[] eLogTheta_i, double[] expLogTheta_i, Random rand)
     {
         final double lambdaInv = (W * K) / (D * 100.0);
-        for (int j = 0; j < gamma_i.length(); j++)
-            gamma_i.set(j, sampleExpoDist(lambdaInv, rand.nextDouble()) + eta);
+        double gammaSum = 0;
+        for (int j = 0; j < gamma_i.length; j++)
+            gammaSum += gamma_i[j] = sampleExpoDist(lambdaInv, rand.nextDouble()) + eta;
 
-        expandPsiMinusPsiSum(gamma_i, gamma_i.sum(), eLogTheta_i);
-        for (int j = 0; j < eLogTheta_i.length(); j++)
-            expLogTheta_i.set(j, FastMath.exp(eLogTheta_i.get(j)));
+        expandPsiMinusPsiSum(gamma_i, gammaSum, eLogTheta_i);
+        for (int j = 0; j < eLogTheta_i.length; j++)
+            expLogTheta_i[j] = FastMath.exp(eLogTheta_i[j]);
     }
 
     /**
      * Performs the main iteration to determine the topic distribution of the 
      * given document against the current model parameters. The non zero values 
-     * of phi will be stored in {@code indexMap} and {@code phiCols}
+     * of phi will be stored in {@code phiCols}
      * 
      * @param doc the document to get the topic assignments for
-     * @param indexMap the array of integers to store the non zero document 
-     * indices in
+     * @param columns the column in {@code expELogBeta} of each non zero word 
+     * in the document
      * @param phiCols the array to store the normalized non zero values of phi 
-     * in, where each value corresponds to the associated index in 
-     * {@code indexMap}
-     * @param K the number of topics 
+     * in, where each value corresponds to the associated non zero of the 
+     * document
+     * @param expELogBeta the word major exp(E[log β]) values for the words of 
+     * the document
      * @param gamma_d the initial value of γ that will be altered to the topic assignments, but not normalized
      * @param ELogTheta_d the expectation from γ per topic
      * @param ExpELogTheta_d the exponentiated vector for {@code ELogTheta_d}
      */
-    private void computePhi(final Vec doc, int[] indexMap, double[] phiCols, int K, final Vec gamma_d, final Vec ELogTheta_d, final Vec ExpELogTheta_d)
+    private void computePhi(final Vec doc, int[] columns, double[] phiCols, final double[] expELogBeta, final double[] gamma_d, final double[] ELogTheta_d, final double[] ExpELogTheta_d)
     {
         //φ^k_dn ∝ exp{E[logθdk]+E[logβk,wdn ]}, k ∈ {1, . . . ,K}
         /*
@@ -718,57 +810,46 @@ public class OnlineLDAsvi implements Parameterized
          * normalized for each topic column (len K) of the words in this doc.
          * We only need to concern oursleves with the non zeros
          * 
-         * Beacse we need to update several iterations, we will work with 
-         * the inernal stricture dirrectly instead of using expensitve 
-         * get/set on a Sparse Vector
+         * The K values of exp(E[log β]) for each word are contiguous, so each
+         * pass over the document reads memory in order
          */
-        
+        final int nnz = doc.nnz();
+        final double[] counts = new double[nnz];
+        final double[] betaDotPhi = new double[K];
         int pos = 0;
-        final SparseVector updateVec = new SparseVector(indexMap, phiCols, W, doc.nnz());
         for(IndexValue iv : doc)
-        {
-            int wordIndex = iv.getIndex();
-            double sum = 0;
-            for(int i = 0; i < ExpELogTheta_d.length(); i++)
-                sum += ExpELogTheta_d.get(i)*ExpELogBeta.get(i).get(wordIndex);
-
-            indexMap[pos] = wordIndex;
-            phiCols[pos] = iv.getValue()/(sum+1e-15);
-            pos++;
-        }
+            counts[pos++] = iv.getValue();
+        updatePhi(nnz, columns, counts, phiCols, expELogBeta, ExpELogTheta_d);
         //iterate till convergence or we hit arbitrary 100 limit (dont usually see more than 70)
         for(int iter = 0; iter < 100; iter++)
         {
             double meanAbsChange = 0;
             double gamma_d_sum = 0;
             //γtk = α+ w φ_twk n_tw
+            Arrays.fill(betaDotPhi, 0.0);
+            for(int i = 0; i < nnz; i++)
+            {
+                final int offset = columns[i]*K;
+                final double phi_i = phiCols[i];
+                for(int k = 0; k < K; k++)
+                    betaDotPhi[k] += phi_i*expELogBeta[offset+k];
+            }
             for(int k = 0; k < K; k++)
             {
-                final double origGamma_dk = gamma_d.get(k);
-                double gamma_dtk = alpha;
-
-                gamma_dtk += ExpELogTheta_d.get(k) * updateVec.dot(ExpELogBeta.get(k));
-                gamma_d.set(k, gamma_dtk);
+                final double origGamma_dk = gamma_d[k];
+                double gamma_dtk = alpha + ExpELogTheta_d[k] * betaDotPhi[k];
+                gamma_d[k] = gamma_dtk;
                 meanAbsChange += Math.abs(gamma_dtk-origGamma_dk);
                 gamma_d_sum += gamma_dtk;
             }
             
             //update Eq[log θtk] and our exponentated copy of it
             expandPsiMinusPsiSum(gamma_d, gamma_d_sum, ELogTheta_d);
-            for(int i = 0; i < ELogTheta_d.length(); i++)
-                ExpELogTheta_d.set(i, FastMath.exp(ELogTheta_d.get(i)));
+            for(int i = 0; i < ELogTheta_d.length; i++)
+                ExpELogTheta_d[i] = FastMath.exp(ELogTheta_d[i]);
             
             //update our column norm norms 
-            int indx = 0;
-            for(IndexValue iv : doc)
-            {
-                int wordIndex = iv.getIndex();
-                double sum = 0;
-                for(int i = 0; i < ExpELogTheta_d.length(); i++)
-                    sum += ExpELogTheta_d.get(i)*ExpELogBeta.get(i).get(wordIndex);
-                phiCols[indx] = iv.getValue() / (sum + 1e-15);
-                indx++;
-            }
+            updatePhi(nnz, columns, counts, phiCols, expELogBeta, ExpELogTheta_d);
             
             /*
              * //original papser uses a tighter bound, but our approximation
@@ -780,6 +861,22 @@ public class OnlineLDAsvi implements Parameterized
                 break;
         }
     }
+    
+    /**
+     * Sets each value of φ to the word count divided by the normalizing 
+     * constant of its column
+     */
+    private void updatePhi(int nnz, int[] columns, double[] counts, double[] phiCols, double[] expELogBeta, double[] ExpELogTheta_d)
+    {
+        for(int i = 0; i < nnz; i++)
+        {
+            final int offset = columns[i]*K;
+            double sum = 0;
+            for(int k = 0; k < K; k++)
+                sum += ExpELogTheta_d[k]*expELogBeta[offset+k];
+            phiCols[i] = counts[i]/(sum+1e-15);
+        }
+    }
 
     private void initialize()
     {
@@ -793,12 +890,12 @@ public class OnlineLDAsvi implements Parameterized
         t = 0;
         //1: Initialize λ(0) randomly
         lambda = new ArrayList<Vec>(K);
-        lambdaLocks = new ArrayList<Lock>(K);
         lambdaSums = new DoubleList(K);
-        ELogBeta = new ArrayList<Vec>(K);
-        ExpELogBeta = new ArrayList<Vec>(K);
-        lastUsed = new int[W];
-        Arrays.fill(lastUsed, -1);
+        batchColumn = new int[W];
+        Arrays.fill(batchColumn, -1);
+        statsLocks = new Lock[STATS_STRIPES];
+        for(int i = 0; i < statsLocks.length; i++)
+            statsLocks[i] = new ReentrantLock();
         
         final double lambdaInv = (K*W)/(D*100.0);
         Random rand = new XORWOW();
@@ -806,9 +903,6 @@ public class OnlineLDAsvi implements Parameterized
         {
             Vec lambda_i = new DenseVector(W);
             lambda.add(new ScaledVector(lambda_i));
-            lambdaLocks.add(new ReentrantLock());
-            ELogBeta.add(new DenseVector(W));
-            ExpELogBeta.add(new DenseVector(W));
             double rowSum = 0;
             for(int j = 0; j < W; j++)
             {
@@ -818,7 +912,7 @@ public class OnlineLDAsvi implements Parameterized
             }
             lambdaSums.add(rowSum);
         }
-        //lambda has now been intialized, ELogBeta and ExpELogBeta will be intialized / updated lazily
+        //lambda has now been intialized, exp(E[log β]) is computed for the words of each mini batch
     }
 
     @Override
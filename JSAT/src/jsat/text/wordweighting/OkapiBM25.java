@@ -63,6 +63,24 @@ public class OkapiBM25 extends WordWeighting
         docAvg /= N;
         
     }
+    
+    /**
+     * Prepares the weighting from the statistics of the document collection, 
+     * so that the documents do not need to be kept in memory. 
+     * 
+     * @param totalDocuments the number of documents in the collection
+     * @param averageLength the average number of tokens in a document
+     * @param df a list mapping each integer index of a word to how many 
+     * documents that word occurred in
+     */
+    public void setWeight(int totalDocuments, double averageLength, List<Integer> df)
+    {
+        this.df = new int[df.size()];
+        for(int i = 0; i < this.df.length; i++)
+            this.df[i] = df.get(i);
+        N = totalDocuments;
+        docAvg = averageLength;
+    }
 
     @Override
     public void applyTo(Vec vec)
@@ -64,7 +64,20 @@ public class TfIdf extends WordWeighting
     @Override
     public void setWeight(List<? extends Vec> allDocuments, List<Integer> df)
     {
-        this.totalDocuments = allDocuments.size();
+        setWeight(allDocuments.size(), df);
+    }
+    
+    /**
+     * Prepares the weighting from the statistics of the document collection, 
+     * so that the documents do not need to be kept in memory. 
+     * 
+     * @param totalDocuments the number of documents in the collection
+     * @param df a list mapping each integer index of a word to how many 
+     * documents that word occurred in
+     */
+    public void setWeight(int totalDocuments, List<Integer> df)
+    {
+        this.totalDocuments = totalDocuments;
         this.df = df;
     }
 
@@ -26,8 +26,8 @@ public abstract class WordWeighting extends IndexFunction
      * @param allDocuments the list of all vectors that make up the set of 
      * documents. The word vectors should be unmodified, containing the value of
      * how many times a word appeared in the document for each index. 
-     * @param df a list mapping each integer index of a word to how many times 
-     * that word occurred in total
+     * @param df a list mapping each integer index of a word to how many 
+     * documents that word occurred in
      */
     abstract public void setWeight(List<? extends Vec> allDocuments, List<Integer> df);
 
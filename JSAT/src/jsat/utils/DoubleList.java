@@ -124,6 +124,19 @@ public class DoubleList extends AbstractList<Double> implements Serializable
         return add(e.doubleValue());
     }
 
+    @Override
+    public boolean addAll(Collection<? extends Double> c)
+    {
+        if(!(c instanceof DoubleList))
+            return super.addAll(c);
+        DoubleList other = (DoubleList) c;
+        int n = other.size();
+        enlageIfNeeded(n);
+        System.arraycopy(other.array, 0, array, end, n);
+        increasedSize(n);
+        return n > 0;
+    }
+
     /**
      * Operates exactly as {@link #get(int) }
      * @param index the index of the value to get
@@ -150,7 +163,7 @@ public class DoubleList extends AbstractList<Double> implements Serializable
     public double set(int index, double element)
     {
         boundsCheck(index);
-        double ret = get(index);
+        double ret = array[index];
         array[index] = element;
         return ret;
     }
@@ -241,7 +254,27 @@ public class DoubleList extends AbstractList<Double> implements Serializable
      */
     public static List<Double> unmodifiableView(double[] array, int length)
     {
-        return Collections.unmodifiableList(view(array, length));
+        if(length > array.length || length < 0)
+            throw new IllegalArgumentException("length must be non-negative and no more than the size of the array("+array.length+"), not " + length);
+        return new UnmodifiableDoubleList(array, length);
+    }
+    
+    /**
+     * Returns the value at the given index of a list as a primitive. If the 
+     * list is a DoubleList, the value is read directly from the backing array
+     * without creating a {@link Double} object. This is intended for the 
+     * acceleration caches of distance metrics and kernels, which are read in 
+     * the inner most loops of many algorithms. 
+     * 
+     * @param list the list to get the value from
+     * @param index the index of the value to get
+     * @return the value at the given index
+     */
+    public static double getD(List<Double> list, int index)
+    {
+        if(list instanceof DoubleList)
+            return ((DoubleList) list).getD(index);
+        return list.get(index);
     }
     
     /**
@@ -262,4 +295,89 @@ public class DoubleList extends AbstractList<Double> implements Serializable
             throw new IllegalArgumentException("length must be non-negative and no more than the size of the array("+array.length+"), not " + length);
         return new DoubleList(array, length);
     }
-}
\ No newline at end of file
+    
+    /**
+     * A DoubleList that throws {@link UnsupportedOperationException} on any 
+     * modification. Unlike {@link Collections#unmodifiableList(java.util.List) },
+     * this keeps the primitive access of {@link #getD(java.util.List, int) }.
+     */
+    private static class UnmodifiableDoubleList extends DoubleList
+    {
+        public UnmodifiableDoubleList(double[] array, int end)
+        {
+            super(array, end);
+        }
+
+        @Override
+        public void clear()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean add(double e)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean add(Double e)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double set(int index, double element)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Double set(int index, Double element)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(int index, double element)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(int index, Double element)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double removeD(int index)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Double remove(int index)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Double> c)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double[] getBackingArray()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Vec getVecView()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
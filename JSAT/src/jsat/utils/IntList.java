@@ -153,6 +153,18 @@ public class IntList extends AbstractList<Integer> implements Serializable
         return removed;
     }
 
+    /**
+     * Returns the reference to the array that backs this list.
+     * Alterations to the array will be visible to the IntList
+     * and vise versa. The array returned may not the the same
+     * size as the value returned by {@link #size() }
+     * @return the underlying array used by this IntList
+     */
+    public int[] getBackingArray()
+    {
+        return array;
+    }
+
     private void enlargeIfNeeded(int i)
     {
         while(end+i > array.length)
@@ -0,0 +1,88 @@
+package jsat.utils.concurrent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link ExecutorService} that passes all work to another executor, while
+ * counting the number of tasks it was given. This can be used to find out if
+ * an algorithm made use of the thread pool it was given. Shutting down the
+ * tracking executor does not shut down the executor it wraps.
+ *
+ * @author Edward Raff
+ */
+public class TrackingExecutor extends AbstractExecutorService
+{
+    private final ExecutorService executor;
+    private final AtomicLong tasks = new AtomicLong();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Creates a new tracking executor
+     * @param executor the executor to run all tasks with
+     */
+    public TrackingExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the number of tasks that have been given to this executor
+     * @return the number of tasks that have been given to this executor
+     */
+    public long getTaskCount()
+    {
+        return tasks.get();
+    }
+
+    /**
+     * Returns whether or not any task has been given to this executor
+     * @return {@code true} if at least one task was given to this executor
+     */
+    public boolean wasUsed()
+    {
+        return getTaskCount() > 0;
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        tasks.incrementAndGet();
+        executor.execute(command);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return true;
+    }
+}
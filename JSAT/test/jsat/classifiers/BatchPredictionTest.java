@@ -0,0 +1,248 @@
+package jsat.classifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.bayesian.NaiveBayes;
+import jsat.classifiers.linear.LinearBatch;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.classifiers.neuralnetwork.DReDNetSimple;
+import jsat.classifiers.trees.DecisionStump;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import jsat.lossfunctions.LogisticLoss;
+import jsat.lossfunctions.SoftmaxLoss;
+import jsat.lossfunctions.SquaredLoss;
+import jsat.regression.MultipleLinearRegression;
+import jsat.regression.RegressionDataSet;
+import jsat.regression.Regressor;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class BatchPredictionTest
+{
+    static private ExecutorService threadPool;
+
+    public BatchPredictionTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        threadPool.shutdown();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Returns the data points of the data set, with every other one made sparse
+     */
+    private static List<DataPoint> mixSparse(List<DataPoint> dataPoints)
+    {
+        List<DataPoint> mixed = new ArrayList<DataPoint>(dataPoints.size());
+        for(int i = 0; i < dataPoints.size(); i++)
+        {
+            DataPoint dp = dataPoints.get(i);
+            if(i % 2 == 0)
+                mixed.add(dp);
+            else
+                mixed.add(new DataPoint(new SparseVector(dp.getNumericalValues()), dp.getCategoricalValues(), dp.getCategoricalData()));
+        }
+        return mixed;
+    }
+
+    private static void checkClassify(Classifier model, List<DataPoint> dataPoints, int classes, double tol)
+    {
+        double[][] serial = new double[dataPoints.size()][classes];
+        double[][] parallel = new double[dataPoints.size()][classes];
+        BatchPrediction.classify(model, dataPoints, serial);
+        BatchPrediction.classify(model, dataPoints, parallel, threadPool);
+        for(int i = 0; i < dataPoints.size(); i++)
+        {
+            CategoricalResults expected = model.classify(dataPoints.get(i));
+            for(int c = 0; c < classes; c++)
+            {
+                assertEquals(expected.getProb(c), serial[i][c], tol);
+                assertEquals(expected.getProb(c), parallel[i][c], tol);
+            }
+        }
+    }
+
+    private static void checkRegress(Regressor model, List<DataPoint> dataPoints, double tol)
+    {
+        double[] serial = new double[dataPoints.size()];
+        double[] parallel = new double[dataPoints.size()];
+        BatchPrediction.regress(model, dataPoints, serial);
+        BatchPrediction.regress(model, dataPoints, parallel, threadPool);
+        for(int i = 0; i < dataPoints.size(); i++)
+        {
+            double expected = model.regress(dataPoints.get(i));
+            assertEquals(expected, serial[i], tol);
+            assertEquals(expected, parallel[i], tol);
+        }
+    }
+
+    @Test
+    public void testLinearScores()
+    {
+        System.out.println("linearScores");
+        Random rand = new Random(1);
+        int d = 20;
+        List<DataPoint> dataPoints = new ArrayList<DataPoint>();
+        for(int i = 0; i < 1000; i++)
+        {
+            DenseVector x = new DenseVector(d);
+            for(int j = 0; j < d; j++)
+                x.set(j, rand.nextGaussian());
+            dataPoints.add(new DataPoint(x));
+        }
+        dataPoints = mixSparse(dataPoints);
+        for(int K : new int[]{1, 5, 40})
+        {
+            Vec[] ws = new Vec[K];
+            double[] bias = new double[K];
+            for(int k = 0; k < K; k++)
+            {
+                ws[k] = new DenseVector(d);
+                for(int j = 0; j < d; j++)
+                    ws[k].set(j, rand.nextGaussian());
+                bias[k] = rand.nextGaussian();
+            }
+            double[][] scores = new double[dataPoints.size()][K];
+            double[][] scoresNoBias = new double[dataPoints.size()][K];
+            BatchPrediction.linearScores(dataPoints, ws, bias, scores);
+            BatchPrediction.linearScores(dataPoints, ws, null, scoresNoBias);
+            for(int i = 0; i < dataPoints.size(); i++)
+                for(int k = 0; k < K; k++)
+                {
+                    double expected = ws[k].dot(dataPoints.get(i).getNumericalValues());
+                    assertEquals(expected+bias[k], scores[i][k], 1e-10);
+                    assertEquals(expected, scoresNoBias[i][k], 1e-10);
+                }
+        }
+    }
+
+    @Test
+    public void testNonBatchModels()
+    {
+        System.out.println("nonBatchModels");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(500, 3, new Random(1));
+        DecisionStump stump = new DecisionStump();
+        stump.trainC(train);
+        checkClassify(stump, FixedProblems.getSimpleKClassLinear(1000, 3, new Random(2)).getDataPoints(), 3, 0.0);
+
+        RegressionDataSet trainR = FixedProblems.getLinearRegression(500, new Random(1));
+        MultipleLinearRegression mlr = new MultipleLinearRegression();
+        mlr.train(trainR);
+        checkRegress(mlr, FixedProblems.getLinearRegression(1000, new Random(2)).getDataPoints(), 0.0);
+
+        double[][] all = BatchPrediction.classify(stump, train, threadPool);
+        assertEquals(train.getSampleSize(), all.length);
+        for(int i = 0; i < train.getSampleSize(); i++)
+            assertEquals(stump.classify(train.getDataPoint(i)).getProb(0), all[i][0], 0.0);
+    }
+
+    @Test
+    public void testLinearSGD()
+    {
+        System.out.println("LinearSGD");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(500, new Random(1));
+        List<DataPoint> test = mixSparse(FixedProblems.get2ClassLinear(1000, new Random(2)).getDataPoints());
+        LinearSGD sgd = new LinearSGD(new LogisticLoss(), 1e-4, 0.0);
+        sgd.trainC(train);
+        checkClassify(sgd, test, 2, 1e-10);
+
+        train = FixedProblems.getSimpleKClassLinear(500, 6, new Random(1));
+        test = mixSparse(FixedProblems.getSimpleKClassLinear(1000, 6, new Random(2)).getDataPoints());
+        sgd = new LinearSGD(new SoftmaxLoss(), 1e-4, 0.0);
+        sgd.trainC(train);
+        checkClassify(sgd, test, 6, 1e-10);
+
+        RegressionDataSet trainR = FixedProblems.getLinearRegression(500, new Random(1));
+        sgd = new LinearSGD(new SquaredLoss(), 1e-4, 0.0);
+        sgd.train(trainR);
+        checkRegress(sgd, mixSparse(FixedProblems.getLinearRegression(1000, new Random(2)).getDataPoints()), 1e-10);
+    }
+
+    @Test
+    public void testLinearBatch()
+    {
+        System.out.println("LinearBatch");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(500, 6, new Random(1));
+        List<DataPoint> test = mixSparse(FixedProblems.getSimpleKClassLinear(1000, 6, new Random(2)).getDataPoints());
+        LinearBatch lb = new LinearBatch(new SoftmaxLoss(), 1e-4);
+        lb.trainC(train);
+        checkClassify(lb, test, 6, 1e-10);
+
+        RegressionDataSet trainR = FixedProblems.getLinearRegression(500, new Random(1));
+        lb = new LinearBatch(new SquaredLoss(), 1e-4);
+        lb.train(trainR);
+        checkRegress(lb, FixedProblems.getLinearRegression(1000, new Random(2)).getDataPoints(), 1e-10);
+    }
+
+    @Test
+    public void testMultinomialLogisticRegression()
+    {
+        System.out.println("MultinomialLogisticRegression");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(500, 6, new Random(1));
+        List<DataPoint> test = mixSparse(FixedProblems.getSimpleKClassLinear(1000, 6, new Random(2)).getDataPoints());
+        MultinomialLogisticRegression mlr = new MultinomialLogisticRegression();
+        mlr.trainC(train);
+        checkClassify(mlr, test, 6, 1e-10);
+    }
+
+    @Test
+    public void testNaiveBayes()
+    {
+        System.out.println("NaiveBayes");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(500, 4, new Random(1));
+        List<DataPoint> test = FixedProblems.getSimpleKClassLinear(1000, 4, new Random(2)).getDataPoints();
+        for(boolean sparse : new boolean[]{true, false})
+        {
+            NaiveBayes nb = new NaiveBayes();
+            nb.setSparceInput(sparse);
+            nb.trainC(train);
+            checkClassify(nb, test, 4, 0.0);
+        }
+    }
+
+    @Test
+    public void testDReDNetSimple()
+    {
+        System.out.println("DReDNetSimple");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(500, 4, new Random(1));
+        List<DataPoint> test = FixedProblems.getSimpleKClassLinear(1000, 4, new Random(2)).getDataPoints();
+        DReDNetSimple net = new DReDNetSimple(16);
+        net.setEpochs(5);
+        net.trainC(train);
+        checkClassify(net, test, 4, 1e-10);
+    }
+}
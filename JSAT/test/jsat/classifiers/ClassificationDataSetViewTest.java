@@ -0,0 +1,272 @@
+package jsat.classifiers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.FixedProblems;
+import jsat.classifiers.boosting.Bagging;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.linear.DenseVector;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ClassificationDataSetViewTest
+{
+
+    public ClassificationDataSetViewTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testGetDataPoint()
+    {
+        System.out.println("getDataPoint");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        int[] rows = new int[]{5, 0, 5, 17, 199};
+        ClassificationDataSetView view = new ClassificationDataSetView(orig, rows);
+        assertEquals(rows.length, view.getSampleSize());
+        for(int i = 0; i < rows.length; i++)
+        {
+            assertSame(orig.getDataPoint(rows[i]), view.getDataPoint(i));
+            assertEquals(orig.getDataPointCategory(rows[i]), view.getDataPointCategory(i));
+            assertEquals(rows[i], view.getBaseRow(i));
+        }
+
+        //views of views should refer to the original rows
+        ClassificationDataSetView subView = new ClassificationDataSetView(view, new int[]{3, 1});
+        assertSame(orig, subView.getBase());
+        assertEquals(17, subView.getBaseRow(0));
+        assertEquals(0, subView.getBaseRow(1));
+
+        try
+        {
+            view.getDataPoint(rows.length);
+            fail("Index should have been out of bounds");
+        }
+        catch(IndexOutOfBoundsException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testWeights()
+    {
+        System.out.println("weights");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        orig.getDataPoint(2).setWeight(3.0);
+        ClassificationDataSetView view = new ClassificationDataSetView(orig, new int[]{1, 2}, new double[]{4.0, 5.0});
+        assertEquals(4.0, view.getDataPoint(0).getWeight(), 0.0);
+        assertEquals(5.0, view.getDataPoint(1).getWeight(), 0.0);
+        assertSame(orig.getDataPoint(2).getNumericalValues(), view.getDataPoint(1).getNumericalValues());
+
+        //altering the weight changes the view, but not the original
+        view.getDataPoint(1).setWeight(7.0);
+        assertEquals(7.0, view.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(3.0, orig.getDataPoint(2).getWeight(), 0.0);
+
+        //the clone keeps the current weights, but can change them independently
+        ClassificationDataSet clone = view.getTwiceShallowClone();
+        assertEquals(7.0, clone.getDataPoint(1).getWeight(), 0.0);
+        clone.getDataPoint(1).setWeight(1.0);
+        assertEquals(7.0, view.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(1.0, clone.getDataPoint(1).getWeight(), 0.0);
+    }
+
+    @Test
+    public void testWeightsReplaced()
+    {
+        System.out.println("weightsReplaced");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        ClassificationDataSetView view = new ClassificationDataSetView(orig, new int[]{1, 2}, new double[]{4.0, 5.0});
+        //the same object is given each time, until the row is replaced
+        assertSame(view.getDataPoint(0), view.getDataPoint(0));
+
+        DataPoint replacement = new DataPoint(new DenseVector(orig.getNumNumericalVars()), new int[0], new CategoricalData[0], 2.0);
+        view.setDataPoint(1, replacement);
+        assertSame(replacement.getNumericalValues(), view.getDataPoint(1).getNumericalValues());
+        assertEquals(2.0, view.getDataPoint(1).getWeight(), 0.0);
+        view.getDataPoint(1).setWeight(6.0);
+        assertEquals(6.0, view.getDataPoint(1).getWeight(), 0.0);
+
+        //copies keep the weight of the replaced row, but do not share it
+        ClassificationDataSet clone = view.getTwiceShallowClone();
+        ClassificationDataSet shallow = view.shallowClone();
+        assertEquals(6.0, clone.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(6.0, shallow.getDataPoint(1).getWeight(), 0.0);
+        clone.getDataPoint(1).setWeight(1.0);
+        shallow.getDataPoint(1).setWeight(3.0);
+        assertEquals(6.0, view.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(1.0, clone.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(3.0, shallow.getDataPoint(1).getWeight(), 0.0);
+        assertEquals(2.0, replacement.getWeight(), 0.0);
+
+        //a view without its own weights uses the weight of the replacement
+        ClassificationDataSetView unweighted = new ClassificationDataSetView(orig, new int[]{1, 2});
+        unweighted.setDataPoint(0, replacement);
+        clone = unweighted.getTwiceShallowClone();
+        assertEquals(2.0, clone.getDataPoint(0).getWeight(), 0.0);
+        clone.getDataPoint(0).setWeight(8.0);
+        assertEquals(2.0, unweighted.getDataPoint(0).getWeight(), 0.0);
+    }
+
+    @Test
+    public void testGetTwiceShallowClone()
+    {
+        System.out.println("getTwiceShallowClone");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        orig.getDataPoint(4).setWeight(2.0);
+        ClassificationDataSet clone = orig.getTwiceShallowClone();
+        assertEquals(orig.getSampleSize(), clone.getSampleSize());
+        assertEquals(2.0, clone.getDataPoint(4).getWeight(), 0.0);
+        for(int i = 0; i < orig.getSampleSize(); i++)
+        {
+            assertSame(orig.getDataPoint(i).getNumericalValues(), clone.getDataPoint(i).getNumericalValues());
+            clone.getDataPoint(i).setWeight(0.5);
+        }
+        assertEquals(2.0, orig.getDataPoint(4).getWeight(), 0.0);
+        assertEquals(1.0, orig.getDataPoint(5).getWeight(), 0.0);
+        assertEquals(0.5, clone.getDataPoint(5).getWeight(), 0.0);
+    }
+
+    @Test
+    public void testSetDataPoint()
+    {
+        System.out.println("setDataPoint");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        DataPoint origPoint = orig.getDataPoint(3);
+        ClassificationDataSetView view = new ClassificationDataSetView(orig, new int[]{3, 4});
+        DataPoint replacement = new DataPoint(new DenseVector(orig.getNumNumericalVars()), new int[0], new CategoricalData[0]);
+        view.setDataPoint(0, replacement);
+        assertSame(replacement, view.getDataPoint(0));
+        assertSame(origPoint, orig.getDataPoint(3));
+
+        //replacements are kept by folds and clones
+        assertSame(replacement, view.shallowClone().getDataPoint(0));
+        assertSame(replacement, new ClassificationDataSetView(view, new int[]{1, 0}).getDataPoint(1));
+
+        try
+        {
+            view.addDataPoint(replacement, 0);
+            fail("Views should not allow adding points");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+        }
+    }
+
+    @Test
+    public void testCvSet()
+    {
+        System.out.println("cvSet");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(51, 4, new Random(1));
+        for(ClassificationDataSet source : new ClassificationDataSet[]{orig, new ClassificationDataSetView(orig, null)})
+        {
+            List<ClassificationDataSet> folds = source.cvSet(5, new Random(2));
+            assertEquals(5, folds.size());
+            int[] seen = new int[orig.getSampleSize()];
+            for(ClassificationDataSet fold : folds)
+            {
+                assertTrue(fold instanceof ClassificationDataSetView);
+                assertTrue(Math.abs(fold.getSampleSize()-orig.getSampleSize()/5) <= 1);
+                ClassificationDataSetView view = (ClassificationDataSetView) fold;
+                for(int i = 0; i < view.getSampleSize(); i++)
+                {
+                    seen[view.getBaseRow(i)]++;
+                    assertSame(orig.getDataPoint(view.getBaseRow(i)), view.getDataPoint(i));
+                    assertEquals(orig.getDataPointCategory(view.getBaseRow(i)), view.getDataPointCategory(i));
+                }
+            }
+            for(int count : seen)
+                assertEquals(1, count);
+
+            //combining the other folds is also a view
+            for(int k = 0; k < folds.size(); k++)
+            {
+                ClassificationDataSet train = ClassificationDataSet.comineAllBut(folds, k);
+                assertTrue(train instanceof ClassificationDataSetView);
+                assertEquals(orig.getSampleSize()-folds.get(k).getSampleSize(), train.getSampleSize());
+            }
+        }
+    }
+
+    @Test
+    public void testCombineCopies()
+    {
+        System.out.println("comineAllBut");
+        ClassificationDataSet a = FixedProblems.getSimpleKClassLinear(10, 2, new Random(1));
+        ClassificationDataSet b = FixedProblems.getSimpleKClassLinear(10, 2, new Random(2));
+        List<ClassificationDataSet> list = new ArrayList<ClassificationDataSet>();
+        list.add(new ClassificationDataSetView(a, new int[]{0, 1}));
+        list.add(new ClassificationDataSetView(b, new int[]{2}));
+        list.add(a);
+        //different bases, so the points must be copied
+        ClassificationDataSet combined = ClassificationDataSet.comineAllBut(list, 2);
+        assertFalse(combined instanceof ClassificationDataSetView);
+        assertEquals(3, combined.getSampleSize());
+        assertSame(b.getDataPoint(2), combined.getDataPoint(2));
+    }
+
+    @Test
+    public void testBagging()
+    {
+        System.out.println("bagging");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        orig.getDataPoint(0).setWeight(2.0);
+        int[] counts = new int[orig.getSampleSize()];
+        Bagging.sampleWithReplacement(counts, counts.length, new Random(3));
+        counts[0] = 3;
+        counts[1] = 0;
+
+        ClassificationDataSet weighted = Bagging.getWeightSampledDataSet(orig, counts);
+        ClassificationDataSet sampled = Bagging.getSampledDataSet(orig, counts);
+        int distinct = 0, total = 0;
+        for(int count : counts)
+        {
+            distinct += count > 0 ? 1 : 0;
+            total += count;
+        }
+        assertEquals(distinct, weighted.getSampleSize());
+        assertEquals(total, sampled.getSampleSize());
+        assertEquals(6.0, weighted.getDataPoint(0).getWeight(), 0.0);
+        assertEquals(2.0, orig.getDataPoint(0).getWeight(), 0.0);
+        for(int i = 0; i < 3; i++)
+            assertSame(orig.getDataPoint(0), sampled.getDataPoint(i));
+
+        //learners should train from views just as from a copy
+        DecisionTree tree = new DecisionTree();
+        tree.trainC(weighted);
+        int errors = 0;
+        for(int i = 0; i < orig.getSampleSize(); i++)
+            if(tree.classify(orig.getDataPoint(i)).mostLikely() != orig.getDataPointCategory(i))
+                errors++;
+        assertTrue(errors < orig.getSampleSize()/4);
+    }
+}
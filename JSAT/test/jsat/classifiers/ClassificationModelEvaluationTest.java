@@ -0,0 +1,137 @@
+package jsat.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.evaluation.Accuracy;
+import jsat.classifiers.linear.LogisticRegressionDCD;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ClassificationModelEvaluationTest
+{
+    static ExecutorService ex;
+
+    public ClassificationModelEvaluationTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdownNow();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testEvaluateCrossValidation_ExecutorService()
+    {
+        System.out.println("evaluateCrossValidation ExecutorService");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(1000, 3, new Random(1));
+        List<ClassificationDataSet> folds = train.cvSet(5, new Random(2));
+
+        ClassificationModelEvaluation expected = new ClassificationModelEvaluation(new DecisionTree(), train);
+        expected.keepPredictions(true);
+        expected.addScorer(new Accuracy());
+        expected.evaluateCrossValidation(folds);
+
+        for(boolean parallelFolds : new boolean[]{false, true})
+        {
+            ClassificationModelEvaluation cme = new ClassificationModelEvaluation(new DecisionTree(), train, ex);
+            cme.setParallelFolds(parallelFolds);
+            cme.setKeepModels(true);
+            cme.keepPredictions(true);
+            cme.addScorer(new Accuracy());
+            cme.evaluateCrossValidation(folds);
+
+            assertEquals(expected.getErrorRate(), cme.getErrorRate(), 0.0);
+            assertEquals(expected.getSumOfWeights(), cme.getSumOfWeights(), 0.0);
+            assertEquals(expected.getScoreStats(new Accuracy()).getMean(), cme.getScoreStats(new Accuracy()).getMean(), 1e-12);
+            assertEquals(5, cme.getErrorRateStats().getSumOfWeights(), 0.0);
+            for(int i = 0; i < train.getSampleSize(); i++)
+            {
+                assertEquals(expected.getTruths()[i], cme.getTruths()[i]);
+                assertEquals(expected.getPredictions()[i].mostLikely(), cme.getPredictions()[i].mostLikely());
+            }
+            assertEquals(5, cme.getKeptModels().length);
+            for(Classifier model : cme.getKeptModels())
+                assertNotNull(model);
+        }
+    }
+
+    @Test
+    public void testEvaluateCrossValidation_SerialModel()
+    {
+        System.out.println("evaluateCrossValidation serial model");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(1000, new Random(1));
+
+        //does not use the thread pool, so the folds are run at the same time
+        for(boolean parallelFolds : new boolean[]{false, true})
+        {
+            LogisticRegressionDCD lr = new LogisticRegressionDCD();
+            ClassificationModelEvaluation cme = new ClassificationModelEvaluation(lr, train, ex);
+            cme.setParallelFolds(parallelFolds);
+            cme.keepPredictions(true);
+            cme.evaluateCrossValidation(10, new Random(2));
+
+            assertTrue(cme.getErrorRate() < 0.05);
+            assertEquals(train.getSampleSize(), cme.getSumOfWeights(), 0.0);
+            assertEquals(10, cme.getErrorRateStats().getSumOfWeights(), 0.0);
+            for(int i = 0; i < train.getSampleSize(); i++)
+                assertNotNull(cme.getPredictions()[i]);
+            //the original model is trained on one of the folds
+            assertEquals(train.getDataPointCategory(0), lr.classify(train.getDataPoint(0)).mostLikely());
+        }
+    }
+
+    @Test
+    public void testEvaluateCrossValidation_OriginalModel()
+    {
+        System.out.println("evaluateCrossValidation original model");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(1000, new Random(1));
+        List<ClassificationDataSet> folds = train.cvSet(5, new Random(2));
+
+        //the original is left without the first fold, as when run serially
+        for(Classifier base : new Classifier[]{new DecisionTree(), new LogisticRegressionDCD()})
+            for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+                for(boolean parallelFolds : new boolean[]{false, true})
+                {
+                    ClassificationModelEvaluation cme = new ClassificationModelEvaluation(base.clone(), train, threadPool);
+                    cme.setParallelFolds(parallelFolds);
+                    cme.setKeepModels(true);
+                    cme.evaluateCrossValidation(folds);
+
+                    Classifier expected = cme.getKeptModels()[0];
+                    Classifier original = cme.getClassifier();
+                    for(int i = 0; i < train.getSampleSize(); i++)
+                        assertEquals(expected.classify(train.getDataPoint(i)).getProb(0), original.classify(train.getDataPoint(i)).getProb(0), 0.0);
+                }
+    }
+}
@@ -0,0 +1,207 @@
+package jsat.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import jsat.ColumnarStore.Layout;
+import jsat.FixedProblems;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.linear.Matrix;
+import jsat.linear.Vec;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ColumnarClassificationDataSetTest
+{
+
+    public ColumnarClassificationDataSetTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testGetDataPoint()
+    {
+        System.out.println("getDataPoint");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarClassificationDataSet cds = new ColumnarClassificationDataSet(orig, layout);
+            assertEquals(orig.getSampleSize(), cds.getSampleSize());
+            assertEquals(orig.getNumNumericalVars(), cds.getNumNumericalVars());
+            for(int i = 0; i < orig.getSampleSize(); i++)
+            {
+                assertTrue(orig.getDataPoint(i).getNumericalValues().equals(cds.getDataPoint(i).getNumericalValues()));
+                assertEquals(orig.getDataPointCategory(i), cds.getDataPointCategory(i));
+                assertEquals(orig.getDataPointCategory(i), cds.getRawLabels()[i]);
+            }
+
+            //changes should be reflected in the store
+            DataPoint dp = cds.getDataPoint(3);
+            dp.getNumericalValues().set(1, -42.0);
+            dp.setWeight(5.0);
+            assertEquals(-42.0, cds.getDataPoint(3).getNumericalValues().get(1), 0.0);
+            assertEquals(-42.0, cds.getStore().getNumeric(3, 1), 0.0);
+            assertEquals(5.0, cds.getDataPoint(3).getWeight(), 0.0);
+            assertEquals(5.0, cds.getStore().getRawWeights()[3], 0.0);
+        }
+    }
+
+    @Test
+    public void testGetNumericColumn()
+    {
+        System.out.println("getNumericColumn");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarClassificationDataSet cds = new ColumnarClassificationDataSet(orig, layout);
+            Vec[] cols = cds.getNumericColumns();
+            for(int j = 0; j < orig.getNumNumericalVars(); j++)
+            {
+                Vec col = cds.getNumericColumn(j);
+                assertTrue(orig.getNumericColumn(j).equals(col));
+                assertTrue(orig.getNumericColumn(j).equals(cols[j]));
+                //column is a copy
+                col.set(0, 1000);
+                assertFalse(1000 == cds.getDataPoint(0).getNumericalValues().get(j));
+            }
+
+            if(layout == Layout.COLUMN_MAJOR)
+                for(int j = 0; j < orig.getNumNumericalVars(); j++)
+                    for(int i = 0; i < orig.getSampleSize(); i++)
+                        assertEquals(orig.getDataPoint(i).getNumericalValues().get(j), cds.getStore().getRawColumn(j)[i], 0.0);
+            else
+            {
+                double[] block = cds.getStore().getRawRowBlock();
+                int d = orig.getNumNumericalVars();
+                for(int i = 0; i < orig.getSampleSize(); i++)
+                    for(int j = 0; j < d; j++)
+                        assertEquals(orig.getDataPoint(i).getNumericalValues().get(j), block[i*d+j], 0.0);
+            }
+
+            Matrix m = cds.getDataMatrixView();
+            assertTrue(orig.getDataMatrix().equals(m));
+            m.set(2, 1, -7.0);
+            assertEquals(-7.0, cds.getDataPoint(2).getNumericalValues().get(1), 0.0);
+        }
+    }
+
+    @Test
+    public void testCvSet()
+    {
+        System.out.println("cvSet");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarClassificationDataSet cds = new ColumnarClassificationDataSet(orig, layout);
+            List<ClassificationDataSet> folds = cds.cvSet(5, new Random(2));
+            assertEquals(5, folds.size());
+            int total = 0;
+            for(ClassificationDataSet fold : folds)
+            {
+                //folds are views of the data set, not copies of the store
+                assertTrue(fold instanceof ClassificationDataSetView);
+                assertSame(cds, ((ClassificationDataSetView) fold).getBase());
+                total += fold.getSampleSize();
+                for(int i = 0; i < fold.getSampleSize(); i++)
+                {
+                    //every point is seperated by class, so dim k is the largest
+                    Vec v = fold.getDataPoint(i).getNumericalValues();
+                    assertEquals(v.get(fold.getDataPointCategory(i)), v.max(), 0.0);
+                }
+            }
+            assertEquals(cds.getSampleSize(), total);
+
+            ClassificationDataSet combined = ClassificationDataSet.comineAllBut(folds, 0);
+            assertEquals(cds.getSampleSize()-folds.get(0).getSampleSize(), combined.getSampleSize());
+        }
+    }
+
+    @Test
+    public void testShallowClone()
+    {
+        System.out.println("shallowClone");
+        ClassificationDataSet orig = FixedProblems.getSimpleKClassLinear(50, 4, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarClassificationDataSet cds = new ColumnarClassificationDataSet(orig, layout);
+            ColumnarClassificationDataSet clone = cds.getTwiceShallowClone();
+            clone.getDataPoint(0).setWeight(3.0);
+            assertEquals(1.0, cds.getDataPoint(0).getWeight(), 0.0);
+            assertEquals(3.0, clone.getDataPoint(0).getWeight(), 0.0);
+
+            clone.getDataPoint(0).getNumericalValues().set(0, 99.0);
+            assertEquals(99.0, cds.getDataPoint(0).getNumericalValues().get(0), 0.0);
+
+            //adding to either should not effect the other
+            clone.addDataPoint(orig.getDataPoint(1), 1);
+            cds.addDataPoint(orig.getDataPoint(2), 2);
+            assertEquals(orig.getSampleSize()+1, clone.getSampleSize());
+            assertEquals(orig.getSampleSize()+1, cds.getSampleSize());
+            assertEquals(1, clone.getDataPointCategory(orig.getSampleSize()));
+            assertEquals(2, cds.getDataPointCategory(orig.getSampleSize()));
+            assertTrue(orig.getDataPoint(1).getNumericalValues().equals(clone.getDataPoint(orig.getSampleSize()).getNumericalValues()));
+            assertTrue(orig.getDataPoint(2).getNumericalValues().equals(cds.getDataPoint(orig.getSampleSize()).getNumericalValues()));
+
+            //cloning must not alter the arrays of the original
+            ColumnarClassificationDataSet grown = new ColumnarClassificationDataSet(orig.getNumNumericalVars(), orig.getCategories(), orig.getPredicting(), layout);
+            for(int i = 0; i < orig.getSampleSize(); i++)
+                grown.addDataPoint(orig.getDataPoint(i), orig.getDataPointCategory(i));
+            double[] rawWeights = grown.getStore().getRawWeights();
+            assertTrue(rawWeights.length > grown.getSampleSize());
+            ColumnarClassificationDataSet grownClone = grown.shallowClone();
+            assertSame(rawWeights, grown.getStore().getRawWeights());
+            grown.addDataPoint(orig.getDataPoint(3), 3);
+            grownClone.addDataPoint(orig.getDataPoint(1), 1);
+            assertTrue(orig.getDataPoint(3).getNumericalValues().equals(grown.getDataPoint(orig.getSampleSize()).getNumericalValues()));
+            assertTrue(orig.getDataPoint(1).getNumericalValues().equals(grownClone.getDataPoint(orig.getSampleSize()).getNumericalValues()));
+            assertEquals(3, grown.getDataPointCategory(orig.getSampleSize()));
+            assertEquals(1, grownClone.getDataPointCategory(orig.getSampleSize()));
+        }
+    }
+
+    @Test
+    public void testTrainC()
+    {
+        System.out.println("trainC");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(200, 4, new Random(1));
+        ClassificationDataSet test = FixedProblems.getSimpleKClassLinear(100, 4, new Random(2));
+
+        DecisionTree expected = new DecisionTree();
+        expected.trainC(train);
+
+        for(Layout layout : Layout.values())
+        {
+            DecisionTree tree = new DecisionTree();
+            tree.trainC(new ColumnarClassificationDataSet(train, layout));
+            for(int i = 0; i < test.getSampleSize(); i++)
+                assertEquals(expected.classify(test.getDataPoint(i)).mostLikely(), tree.classify(test.getDataPoint(i)).mostLikely());
+        }
+    }
+}
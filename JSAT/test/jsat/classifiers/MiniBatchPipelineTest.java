@@ -0,0 +1,289 @@
+package jsat.classifiers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.classifiers.linear.PassiveAggressive;
+import jsat.io.ARFFReader;
+import jsat.io.ARFFWriter;
+import jsat.lossfunctions.LogisticLoss;
+import jsat.lossfunctions.SquaredLoss;
+import jsat.math.decayrates.NoDecay;
+import jsat.math.optimization.stochastic.AdaGrad;
+import jsat.regression.RegressionDataSet;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class MiniBatchPipelineTest
+{
+    static ExecutorService ex;
+
+    public MiniBatchPipelineTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdownNow();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static void checkClassifier(Classifier classifier)
+    {
+        ClassificationDataSet test = FixedProblems.get2ClassLinear(200, new Random(2));
+        for(int i = 0; i < test.getSampleSize(); i++)
+            assertEquals(test.getDataPointCategory(i), classifier.classify(test.getDataPoint(i)).mostLikely());
+    }
+
+    @Test
+    public void testTrainC()
+    {
+        System.out.println("trainC");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(2000, new Random(1));
+
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            for(int blockSize : new int[]{1, 100})
+            {
+                MiniBatchPipeline pipeline = new MiniBatchPipeline(16);
+                pipeline.setShuffleBlockSize(blockSize);
+
+                LinearSGD sgd = new LinearSGD(new LogisticLoss(), 1e-6, 0.0);
+                sgd.setGradientUpdater(new AdaGrad());
+                sgd.setEta(0.5);
+                pipeline.trainC(train, sgd, 5, threadPool);
+                checkClassifier(sgd);
+
+                //not a batch learner, so is updated one point at a time
+                PassiveAggressive pa = new PassiveAggressive();
+                pipeline.trainC(train, pa, 1, threadPool);
+                checkClassifier(pa);
+            }
+    }
+
+    @Test
+    public void testTrainC_VisitsAll()
+    {
+        System.out.println("trainC visits all");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(1003, new Random(1));
+
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            for(int blockSize : new int[]{1, 7, 5000})
+            {
+                MiniBatchPipeline pipeline = new MiniBatchPipeline(10);
+                pipeline.setShuffleBlockSize(blockSize);
+                pipeline.setPrefetch(2);
+                CountingLearner counter = new CountingLearner(train);
+                pipeline.trainC(train, counter, 3, threadPool);
+
+                for(int i = 0; i < train.getSampleSize(); i++)
+                    assertEquals(3, counter.counts[i]);
+                //every batch is full except the last of each epoch
+                assertEquals(3*((train.getSampleSize()+9)/10), counter.batches);
+            }
+    }
+
+    @Test
+    public void testTrain()
+    {
+        System.out.println("train");
+        RegressionDataSet train = FixedProblems.getLinearRegression(10000, new Random(1));
+        RegressionDataSet test = FixedProblems.getLinearRegression(200, new Random(2));
+
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+        {
+            LinearSGD sgd = new LinearSGD(new SquaredLoss(), 0.0, 0.0);
+            sgd.setGradientUpdater(new AdaGrad());
+            sgd.setEta(0.5);
+            sgd.setEtaDecay(new NoDecay());
+            new MiniBatchPipeline(8).train(train, sgd, 100, threadPool);
+
+            for(int i = 0; i < test.getSampleSize(); i++)
+            {
+                double truth = test.getTargetValue(i);
+                double relErr = (truth-sgd.regress(test.getDataPoint(i)))/truth;
+                assertEquals(0, relErr, 0.1);
+            }
+        }
+    }
+
+    @Test
+    public void testTrainC_ARFFReader() throws IOException
+    {
+        System.out.println("trainC ARFFReader");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(2000, new Random(1));
+        File tmp = File.createTempFile("jsat", ".arff");
+        try
+        {
+            ARFFWriter writer = new ARFFWriter(tmp, train.getCategories(), train.getNumNumericalVars(), false);
+            writer.setClassTarget(train.getPredicting());
+            for(int i = 0; i < train.getSampleSize(); i++)
+                writer.write(train.getDataPoint(i), train.getDataPointCategory(i));
+            writer.close();
+
+            for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            {
+                ARFFReader reader = new ARFFReader(tmp);
+                reader.setClassTarget(0);
+                CountingLearner counter = new CountingLearner(train);
+                new MiniBatchPipeline(64).trainC(reader, counter, threadPool);
+                reader.close();
+                for(int i = 0; i < train.getSampleSize(); i++)
+                    assertEquals(1, counter.counts[i]);
+
+                reader = new ARFFReader(tmp);
+                reader.setClassTarget(0);
+                PassiveAggressive pa = new PassiveAggressive();
+                new MiniBatchPipeline(64).trainC(reader, pa, threadPool);
+                reader.close();
+                checkClassifier(pa);
+            }
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    @Test
+    public void testTrain_ARFFReader() throws IOException
+    {
+        System.out.println("train ARFFReader");
+        RegressionDataSet train = FixedProblems.getLinearRegression(2000, new Random(1));
+        RegressionDataSet test = FixedProblems.getLinearRegression(200, new Random(2));
+        File tmp = File.createTempFile("jsat", ".arff");
+        try
+        {
+            ARFFWriter writer = new ARFFWriter(tmp, train.getCategories(), train.getNumNumericalVars(), false);
+            writer.setRegressionTarget("target");
+            for(int i = 0; i < train.getSampleSize(); i++)
+                writer.write(train.getDataPoint(i), train.getTargetValue(i));
+            writer.close();
+
+            //batches of one are the same as updating in the order of the file
+            LinearSGD expected = new LinearSGD(new SquaredLoss(), 1e-4, 0.0);
+            expected.setUp(train.getCategories(), train.getNumNumericalVars());
+            for(int i = 0; i < train.getSampleSize(); i++)
+                expected.update(train.getDataPoint(i), train.getTargetValue(i));
+
+            for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            {
+                ARFFReader reader = new ARFFReader(tmp);
+                reader.setRegressionTarget(train.getNumNumericalVars());
+                LinearSGD sgd = new LinearSGD(new SquaredLoss(), 1e-4, 0.0);
+                new MiniBatchPipeline(1).train(reader, sgd, threadPool);
+                reader.close();
+
+                for(int i = 0; i < test.getSampleSize(); i++)
+                    assertEquals(expected.regress(test.getDataPoint(i)), sgd.regress(test.getDataPoint(i)), 1e-8);
+            }
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Counts how many times each data point of a data set was given to it,
+     * identifying each point by its first feature value
+     */
+    static class CountingLearner implements BatchUpdateableClassifier
+    {
+        final ClassificationDataSet dataSet;
+        final int[] counts;
+        int batches = 0;
+
+        public CountingLearner(ClassificationDataSet dataSet)
+        {
+            this.dataSet = dataSet;
+            this.counts = new int[dataSet.getSampleSize()];
+        }
+
+        @Override
+        public void update(List<DataPoint> dataPoints, int[] targetClasses)
+        {
+            batches++;
+            for(int j = 0; j < dataPoints.size(); j++)
+                update(dataPoints.get(j), targetClasses[j]);
+        }
+
+        @Override
+        public void update(DataPoint dataPoint, int targetClass)
+        {
+            double x0 = dataPoint.getNumericalValues().get(0);
+            for(int i = 0; i < dataSet.getSampleSize(); i++)
+                if(dataSet.getDataPoint(i).getNumericalValues().get(0) == x0)
+                {
+                    assertEquals(dataSet.getDataPointCategory(i), targetClass);
+                    counts[i]++;
+                    return;
+                }
+            fail("Unknown data point");
+        }
+
+        @Override
+        public void setUp(CategoricalData[] categoricalAttributes, int numericAttributes, CategoricalData predicting)
+        {
+        }
+
+        @Override
+        public CategoricalResults classify(DataPoint data)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void trainC(ClassificationDataSet dataSet, ExecutorService threadPool)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void trainC(ClassificationDataSet dataSet)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean supportsWeightedData()
+        {
+            return false;
+        }
+
+        @Override
+        public CountingLearner clone()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -2,6 +2,8 @@
 package jsat.classifiers.linear;
 
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import jsat.FixedProblems;
 import jsat.classifiers.CategoricalData;
 import jsat.classifiers.CategoricalResults;
@@ -9,6 +11,7 @@ import jsat.classifiers.ClassificationDataSet;
 import jsat.classifiers.Classifier;
 import jsat.classifiers.DataPoint;
 import jsat.classifiers.DataPointPair;
+import jsat.utils.SystemInfo;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -71,4 +74,26 @@ public class AROWTest
             assertEquals(dpp.getPair().longValue(), arow1.classify(dpp.getDataPoint()).mostLikely());
     }
 
+    @Test
+    public void testTrain_C_ExecutorService()
+    {
+        System.out.println("train_C ExecutorService");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(200, new Random());
+        
+        AROW arow0 = new AROW(1, true);
+        AROW arow1 = new AROW(1, false);
+        
+        arow0.trainC(train, ex);
+        arow1.trainC(train, ex);
+        ex.shutdownNow();
+        
+        ClassificationDataSet test = FixedProblems.get2ClassLinear(200, new Random());
+        
+        for(DataPointPair<Integer> dpp : test.getAsDPPList())
+            assertEquals(dpp.getPair().longValue(), arow0.classify(dpp.getDataPoint()).mostLikely());
+        for(DataPointPair<Integer> dpp : test.getAsDPPList())
+            assertEquals(dpp.getPair().longValue(), arow1.classify(dpp.getDataPoint()).mostLikely());
+    }
+
 }
\ No newline at end of file
@@ -5,16 +5,21 @@
 package jsat.classifiers.linear;
 
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import jsat.FixedProblems;
 import jsat.classifiers.ClassificationDataSet;
 import jsat.classifiers.DataPointPair;
+import jsat.linear.Vec;
 import jsat.lossfunctions.HingeLoss;
 import jsat.lossfunctions.SquaredLoss;
+import jsat.math.decayrates.InverseDecay;
 import jsat.math.optimization.stochastic.AdaGrad;
 import jsat.math.optimization.stochastic.GradientUpdater;
 import jsat.math.optimization.stochastic.RMSProp;
 import jsat.math.optimization.stochastic.SimpleSGD;
 import jsat.regression.RegressionDataSet;
+import jsat.utils.SystemInfo;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -141,4 +146,77 @@ public class LinearSGDTest
             }
         }
     }
+    
+    @Test
+    public void testClassifyMulti_ExecutorService()
+    {
+        System.out.println("multi class classification ExecutorService");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        for(GradientUpdater gu : updaters)
+        {
+            LinearSGD linearsgd = new LinearSGD(new HingeLoss(), 1e-4, 1e-5);
+            linearsgd.setGradientUpdater(gu);
+
+            ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(2000, 6, new Random());
+
+            linearsgd.trainC(train, ex);
+
+            ClassificationDataSet test = FixedProblems.getSimpleKClassLinear(200, 6, new Random());
+
+            for(DataPointPair<Integer> dpp : test.getAsDPPList())
+                assertEquals(dpp.getPair().longValue(), linearsgd.classify(dpp.getDataPoint()).mostLikely());
+        }
+        ex.shutdownNow();
+    }
+    
+    @Test
+    public void testRegression_ExecutorService()
+    {
+        System.out.println("regression ExecutorService");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        LinearSGD linearsgd = new LinearSGD(new SquaredLoss(), 0.0, 0.0);
+        linearsgd.setEpochs(50);
+        //each copy sees 1/P of every epoch, so the average needs a larger step
+        linearsgd.setEta(0.05);
+
+        RegressionDataSet train = FixedProblems.getLinearRegression(10000, new Random());
+        linearsgd.train(train, ex);
+        ex.shutdownNow();
+
+        RegressionDataSet test = FixedProblems.getLinearRegression(200, new Random());
+
+        for(DataPointPair<Double> dpp : test.getAsDPPList())
+        {
+            double truth = dpp.getPair();
+            double pred = linearsgd.regress(dpp.getDataPoint());
+            double relErr = (truth-pred)/truth;
+            assertEquals(0, relErr, 0.1);
+        }
+    }
+
+    /**
+     * Training with a thread pool should decay the learning rate and apply
+     * the L1 penalty as serial training does, so the results should be close
+     */
+    @Test
+    public void testTrain_ExecutorServiceMatchesSerial()
+    {
+        System.out.println("train ExecutorService matches serial");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        RegressionDataSet train = FixedProblems.getLinearRegression(5000, new Random(1));
+        for(double lambda1 : new double[]{0.0, 1e-4})
+        {
+            LinearSGD serial = new LinearSGD(new SquaredLoss(), 0.5, new InverseDecay(1000, 0.001), 0.0, lambda1);
+            serial.setEpochs(40);
+            LinearSGD parallel = serial.clone();
+            serial.train(train);
+            parallel.train(train, ex);
+
+            Vec w = serial.getRawWeight(0);
+            Vec diff = w.subtract(parallel.getRawWeight(0));
+            assertEquals(0.0, diff.pNorm(2)/w.pNorm(2), 0.02);
+            assertEquals(serial.getBias(0), parallel.getBias(0), 0.02*w.pNorm(2));
+        }
+        ex.shutdownNow();
+    }
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package jsat.classifiers.linear;
 
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import jsat.FixedProblems;
 import jsat.classifiers.*;
 import jsat.linear.*;
+import jsat.utils.SystemInfo;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -66,6 +68,30 @@ public class PassiveAggressiveTest
         }
     }
 
+    /**
+     * Test of trainC method, of class PassiveAggressive.
+     */
+    @Test
+    public void testTrainC_ClassificationDataSet_ExecutorService()
+    {
+        System.out.println("trainC");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(400, new Random());
+        
+        for(PassiveAggressive.Mode mode : PassiveAggressive.Mode.values())
+        {
+            PassiveAggressive pa = new PassiveAggressive();
+            pa.setMode(mode);
+            pa.trainC(train, ex);
+
+            ClassificationDataSet test = FixedProblems.get2ClassLinear(400, new Random());
+
+            for(DataPointPair<Integer> dpp : test.getAsDPPList())
+                assertEquals(dpp.getPair().longValue(), pa.classify(dpp.getDataPoint()).mostLikely());
+        }
+        ex.shutdownNow();
+    }
+
     /**
      * Test of train method, of class PassiveAggressive.
      */
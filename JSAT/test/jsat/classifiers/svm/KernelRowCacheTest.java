@@ -0,0 +1,159 @@
+package jsat.classifiers.svm;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class KernelRowCacheTest
+{
+
+    public KernelRowCacheTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * A symmetric "kernel" whose values are easy to check, that counts how
+     * many times it was evaluated
+     */
+    private static class TestCache extends KernelRowCache
+    {
+        final AtomicLong evals = new AtomicLong();
+
+        public TestCache(int N, long bytes, boolean floatStorage)
+        {
+            super(N, bytes, floatStorage);
+        }
+
+        @Override
+        protected double eval(int a, int b)
+        {
+            evals.incrementAndGet();
+            return Math.min(a, b)*1000+Math.max(a, b);
+        }
+    }
+
+    @Test
+    public void testGet()
+    {
+        System.out.println("get");
+        int N = 50;
+        for(boolean floatStorage : new boolean[]{true, false})
+        {
+            TestCache cache = new TestCache(N, Long.MAX_VALUE, floatStorage);
+            assertEquals(N, cache.getMaxRows());
+            Random rand = new Random(1);
+            for(int iter = 0; iter < 5000; iter++)
+            {
+                int a = rand.nextInt(N);
+                int b = rand.nextInt(N);
+                assertEquals(Math.min(a, b)*1000+Math.max(a, b), cache.get(a, b), 0.0);
+            }
+
+            //every value computed at most once, and nothing evicted
+            assertTrue(cache.evals.get() <= N*N);
+            assertEquals(cache.evals.get(), cache.getMisses());
+            assertEquals(5000, cache.getHits()+cache.getMisses());
+            assertEquals(0, cache.getEvictions());
+        }
+    }
+
+    @Test
+    public void testEviction()
+    {
+        System.out.println("eviction");
+        int N = 100;
+        //room for only 4 rows of doubles
+        TestCache cache = new TestCache(N, 4*(N*8+64), false);
+        assertEquals(4, cache.getMaxRows());
+
+        for(int a = 0; a < N; a++)
+            for(int b = 0; b < N; b++)
+                assertEquals(Math.min(a, b)*1000+Math.max(a, b), cache.get(a, b), 0.0);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(cache.evals.get(), cache.getMisses());
+        assertEquals(N*N, cache.getHits()+cache.getMisses());
+
+        //float storage fits more rows in the same budget
+        assertTrue(new TestCache(N, 4*(N*8+64), true).getMaxRows() > 4);
+        //always at least one row
+        assertEquals(1, new TestCache(N, 1, false).getMaxRows());
+    }
+
+    @Test
+    public void testConcurrentGet() throws InterruptedException
+    {
+        System.out.println("concurrentGet");
+        final int N = 200;
+        final TestCache cache = new TestCache(N, 20*(N*8+64), false);
+        final int threads = Math.max(4, SystemInfo.LogicalCores);
+        ExecutorService ex = Executors.newFixedThreadPool(threads);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final AtomicLong wrong = new AtomicLong();
+
+        for(int t = 0; t < threads; t++)
+        {
+            final int seed = t;
+            ex.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Random rand = new Random(seed);
+                    for(int iter = 0; iter < 20000; iter++)
+                    {
+                        //skew toward a small working set, like an SVM solver
+                        int a = rand.nextDouble() < 0.8 ? rand.nextInt(10) : rand.nextInt(N);
+                        int b = rand.nextInt(N);
+                        if(cache.get(a, b) != Math.min(a, b)*1000+Math.max(a, b))
+                            wrong.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        ex.shutdownNow();
+
+        assertEquals(0, wrong.get());
+        assertEquals(threads*20000L, cache.getHits()+cache.getMisses());
+        assertTrue(cache.getHits() > 0);
+
+        cache.clear();
+        long misses = cache.getMisses();
+        cache.get(0, 1);
+        assertEquals(misses+1, cache.getMisses());
+    }
+}
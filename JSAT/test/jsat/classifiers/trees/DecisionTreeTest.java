@@ -0,0 +1,144 @@
+package jsat.classifiers.trees;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.regression.RegressionDataSet;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class DecisionTreeTest
+{
+
+    public DecisionTreeTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static double errorRate(DecisionTree tree, ClassificationDataSet test)
+    {
+        double errors = 0;
+        for(int i = 0; i < test.getSampleSize(); i++)
+            if(tree.classify(test.getDataPoint(i)).mostLikely() != test.getDataPointCategory(i))
+                errors++;
+        return errors/test.getSampleSize();
+    }
+
+    @Test
+    public void testTrainC_Histogram()
+    {
+        System.out.println("trainC histogram");
+        ClassificationDataSet train = FixedProblems.getInnerOuterCircle(2000, new Random(1));
+        ClassificationDataSet test = FixedProblems.getInnerOuterCircle(500, new Random(2));
+
+        DecisionTree exact = new DecisionTree();
+        exact.trainC(train);
+        double exactError = errorRate(exact, test);
+
+        for(int bins : new int[]{16, 256})
+        {
+            DecisionTree tree = new DecisionTree();
+            tree.setHistogramBins(bins);
+            tree.trainC(train);
+            double error = errorRate(tree, test);
+            assertTrue(error < 0.1);
+            assertTrue(error <= exactError+0.05);
+
+            DecisionTree clone = tree.clone();
+            assertEquals(bins, clone.getHistogramBins());
+            assertEquals(error, errorRate(clone, test), 0.0);
+        }
+    }
+
+    @Test
+    public void testTrainC_Histogram_ExecutorService()
+    {
+        System.out.println("trainC histogram ExecutorService");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(20000, 4, new Random(1));
+        ClassificationDataSet test = FixedProblems.getSimpleKClassLinear(500, 4, new Random(2));
+
+        DecisionTree serial = new DecisionTree();
+        serial.setHistogramBins(64);
+        serial.trainC(train);
+
+        DecisionTree tree = new DecisionTree();
+        tree.setHistogramBins(64);
+        tree.trainC(train, ex);
+        ex.shutdownNow();
+
+        //the same tree is built regardless of threading
+        for(int i = 0; i < test.getSampleSize(); i++)
+            assertEquals(serial.classify(test.getDataPoint(i)).mostLikely(), tree.classify(test.getDataPoint(i)).mostLikely());
+        assertTrue(errorRate(tree, test) < 0.1);
+    }
+
+    @Test
+    public void testTrain_Histogram()
+    {
+        System.out.println("train histogram");
+        RegressionDataSet train = FixedProblems.getLinearRegression(2000, new Random(1));
+        RegressionDataSet test = FixedProblems.getLinearRegression(500, new Random(2));
+
+        DecisionTree exact = new DecisionTree();
+        exact.train(train);
+        DecisionTree tree = new DecisionTree();
+        tree.setHistogramBins(256);
+        tree.train(train);
+
+        double exactErr = 0, histErr = 0;
+        for(int i = 0; i < test.getSampleSize(); i++)
+        {
+            exactErr += Math.pow(exact.regress(test.getDataPoint(i))-test.getTargetValue(i), 2);
+            histErr += Math.pow(tree.regress(test.getDataPoint(i))-test.getTargetValue(i), 2);
+        }
+        assertTrue(histErr <= exactErr*1.25);
+    }
+
+    @Test
+    public void testSetHistogramBins()
+    {
+        System.out.println("setHistogramBins");
+        DecisionTree tree = new DecisionTree();
+        assertEquals(0, tree.getHistogramBins());
+        for(int bad : new int[]{-1, 1, 257})
+            try
+            {
+                tree.setHistogramBins(bad);
+                fail("Invalid number of bins accepted");
+            }
+            catch(IllegalArgumentException ex)
+            {
+            }
+    }
+}
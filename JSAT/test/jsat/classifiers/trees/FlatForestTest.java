@@ -0,0 +1,239 @@
+package jsat.classifiers.trees;
+
+import java.util.Random;
+import jsat.FixedProblems;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.CategoricalResults;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.Classifier;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.regression.RegressionDataSet;
+import jsat.regression.Regressor;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class FlatForestTest
+{
+
+    public FlatForestTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static CategoricalData[] getCategories()
+    {
+        return new CategoricalData[]{new CategoricalData(4), new CategoricalData(3)};
+    }
+
+    /**
+     * Creates a 3 class problem with 3 numeric and 2 categorical features
+     */
+    private static ClassificationDataSet getClassification(int size, Random rand)
+    {
+        ClassificationDataSet data = new ClassificationDataSet(3, getCategories(), new CategoricalData(3));
+        for(int i = 0; i < size; i++)
+        {
+            Vec x = new DenseVector(3);
+            for(int j = 0; j < 3; j++)
+                x.set(j, Math.round(rand.nextGaussian()*20)/10.0);
+            int[] cats = new int[]{rand.nextInt(4), rand.nextInt(3)};
+            double score = x.get(0) + (cats[0] == 2 ? 1.5 : 0) - x.get(1)*cats[1] + rand.nextGaussian()*0.5;
+            data.addDataPoint(x, cats, score < -0.5 ? 0 : (score < 1 ? 1 : 2));
+        }
+        return data;
+    }
+
+    private static RegressionDataSet getRegression(int size, Random rand)
+    {
+        RegressionDataSet data = new RegressionDataSet(3, getCategories());
+        for(int i = 0; i < size; i++)
+        {
+            Vec x = new DenseVector(3);
+            for(int j = 0; j < 3; j++)
+                x.set(j, Math.round(rand.nextGaussian()*20)/10.0);
+            int[] cats = new int[]{rand.nextInt(4), rand.nextInt(3)};
+            data.addDataPoint(x, cats, 2*x.get(0) + cats[0] - x.get(1)*cats[1] + rand.nextGaussian()*0.5);
+        }
+        return data;
+    }
+
+    private static void checkClassify(Classifier model, FlatForest flat, ClassificationDataSet data)
+    {
+        double[][] batch = new double[data.getSampleSize()][data.getClassSize()];
+        flat.classify(data.getDataPoints(), batch);
+        for(int i = 0; i < data.getSampleSize(); i++)
+        {
+            CategoricalResults expected = model.classify(data.getDataPoint(i));
+            CategoricalResults result = flat.classify(data.getDataPoint(i));
+            assertEquals(expected.size(), result.size());
+            for(int c = 0; c < expected.size(); c++)
+            {
+                assertEquals(expected.getProb(c), result.getProb(c), 0.0);
+                assertEquals(expected.getProb(c), batch[i][c], 0.0);
+            }
+        }
+    }
+
+    private static void checkRegress(Regressor model, FlatForest flat, RegressionDataSet data)
+    {
+        double[] batch = new double[data.getSampleSize()];
+        flat.regress(data.getDataPoints(), batch);
+        for(int i = 0; i < data.getSampleSize(); i++)
+        {
+            double expected = model.regress(data.getDataPoint(i));
+            assertEquals(expected, flat.regress(data.getDataPoint(i)), 0.0);
+            assertEquals(expected, batch[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testDecisionTree()
+    {
+        System.out.println("DecisionTree");
+        ClassificationDataSet train = getClassification(1000, new Random(1));
+        ClassificationDataSet test = getClassification(1000, new Random(2));
+        for(int bins : new int[]{0, 32})
+        {
+            DecisionTree tree = new DecisionTree();
+            tree.setHistogramBins(bins);
+            tree.trainC(train);
+            FlatForest flat = tree.flatten();
+            assertEquals(1, flat.getNumberOfTrees());
+            assertTrue(flat.getNumberOfNodes() > 1);
+            checkClassify(tree, flat, train);
+            checkClassify(tree, flat, test);
+            checkClassify(tree, flat.clone(), test);
+        }
+
+        RegressionDataSet trainR = getRegression(1000, new Random(1));
+        RegressionDataSet testR = getRegression(1000, new Random(2));
+        for(int bins : new int[]{0, 32})
+        {
+            DecisionTree tree = new DecisionTree();
+            tree.setHistogramBins(bins);
+            tree.train(trainR);
+            FlatForest flat = tree.flatten();
+            checkRegress(tree, flat, trainR);
+            checkRegress(tree, flat, testR);
+        }
+    }
+
+    @Test
+    public void testRandomForest()
+    {
+        System.out.println("RandomForest");
+        ClassificationDataSet train = FixedProblems.getSimpleKClassLinear(1000, 3, new Random(1));
+        ClassificationDataSet test = FixedProblems.getSimpleKClassLinear(1000, 3, new Random(2));
+        RandomForest forest = new RandomForest(20);
+        forest.trainC(train);
+        FlatForest flat = forest.flatten();
+        assertEquals(20, flat.getNumberOfTrees());
+        checkClassify(forest, flat, train);
+        checkClassify(forest, flat, test);
+
+        RegressionDataSet trainR = FixedProblems.getLinearRegression(1000, new Random(1));
+        RegressionDataSet testR = FixedProblems.getLinearRegression(1000, new Random(2));
+        forest = new RandomForest(20);
+        forest.train(trainR);
+        flat = forest.flatten();
+        checkRegress(forest, flat, trainR);
+        checkRegress(forest, flat, testR);
+    }
+
+    @Test
+    public void testExtraTree()
+    {
+        System.out.println("ExtraTree");
+        ClassificationDataSet train = getClassification(1000, new Random(1));
+        ClassificationDataSet test = getClassification(1000, new Random(2));
+        RegressionDataSet trainR = FixedProblems.getLinearRegression(1000, new Random(1));
+        RegressionDataSet testR = FixedProblems.getLinearRegression(1000, new Random(2));
+        for(boolean binary : new boolean[]{false, true})
+        {
+            ExtraTree tree = new ExtraTree();
+            tree.setBinaryCategoricalSplitting(binary);
+            tree.trainC(train);
+            FlatForest flat = tree.flatten();
+            checkClassify(tree, flat, train);
+            checkClassify(tree, flat, test);
+
+            tree = new ExtraTree();
+            tree.setBinaryCategoricalSplitting(binary);
+            tree.setStopSize(5);
+            tree.train(trainR);
+            flat = tree.flatten();
+            checkRegress(tree, flat, trainR);
+            checkRegress(tree, flat, testR);
+        }
+    }
+
+    @Test
+    public void testERTrees()
+    {
+        System.out.println("ERTrees");
+        ClassificationDataSet train = getClassification(1000, new Random(1));
+        ClassificationDataSet test = getClassification(1000, new Random(2));
+        ERTrees forest = new ERTrees();
+        forest.setForrestSize(30);
+        forest.trainC(train);
+        FlatForest flat = forest.flatten();
+        assertEquals(30, flat.getNumberOfTrees());
+        checkClassify(forest, flat, train);
+        checkClassify(forest, flat, test);
+
+        RegressionDataSet trainR = getRegression(1000, new Random(1));
+        RegressionDataSet testR = getRegression(1000, new Random(2));
+        forest = new ERTrees();
+        forest.setForrestSize(30);
+        forest.train(trainR);
+        flat = forest.flatten();
+        checkRegress(forest, flat, trainR);
+        checkRegress(forest, flat, testR);
+    }
+
+    @Test
+    public void testWrongTask()
+    {
+        System.out.println("wrongTask");
+        RegressionDataSet trainR = getRegression(200, new Random(1));
+        DecisionTree tree = new DecisionTree();
+        tree.train(trainR);
+        FlatForest flat = tree.flatten();
+        try
+        {
+            flat.classify(trainR.getDataPoint(0));
+            fail("Regression model used for classification");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+        }
+    }
+}
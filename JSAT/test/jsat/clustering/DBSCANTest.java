@@ -15,9 +15,18 @@ import jsat.SimpleDataSet;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import jsat.DataSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Queue;
+import jsat.classifiers.CategoricalData;
+import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import jsat.linear.VecPaired;
+import jsat.linear.distancemetrics.ChebyshevDistance;
+import jsat.linear.distancemetrics.DistanceMetric;
 import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.ManhattanDistance;
 import jsat.linear.vectorcollection.KDTree.KDTreeFactory;
 import jsat.linear.vectorcollection.VPTree.VPTreeFactory;
 import jsat.linear.vectorcollection.VectorArray.VectorArrayFactory;
@@ -177,4 +186,93 @@ public class DBSCANTest
                 assertEquals(thisClass, dp.getCategoricalValue(0));
         }
     }
+    
+    /**
+     * Test that the bulk search gives the same result as expanding one
+     * cluster at a time, with both the grid and the vector collections.
+     */
+    @Test
+    public void testCluster_SameAsExpansion()
+    {
+        System.out.println("cluster same as expansion");
+        for(int D : new int[]{2, 3, 7})
+        {
+            Random rand = new Random(D);
+            List<DataPoint> points = new ArrayList<DataPoint>();
+            for(int i = 0; i < 600; i++)
+            {
+                Vec v = new DenseVector(D);
+                int c = rand.nextInt(4);
+                for(int j = 0; j < D; j++)
+                    if(i % 7 == 0)//noise
+                        v.set(j, rand.nextDouble()*10);
+                    else
+                        v.set(j, c*2.5 + rand.nextGaussian()*0.4);
+                points.add(new DataPoint(v, new int[0], new CategoricalData[0]));
+            }
+            SimpleDataSet data = new SimpleDataSet(points);
+            
+            for(DistanceMetric dm : new DistanceMetric[]{new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance()})
+                for(double eps : new double[]{0.3, 0.8, 1.5})
+                    for(int minPts : new int[]{3, 8})
+                    {
+                        int[] expected = expandClusters(data, dm, eps, minPts);
+                        
+                        DBSCAN kdDBSCAN = new DBSCAN(dm, new KDTreeFactory<VecPaired<Vec, Integer>>());
+                        assertArrayEquals(expected, kdDBSCAN.cluster(data, eps, minPts, (int[]) null));
+                        assertArrayEquals(expected, kdDBSCAN.cluster(data, eps, minPts, ex, null));
+                        
+                        DBSCAN vpDBSCAN = new DBSCAN(dm, new VPTreeFactory<VecPaired<Vec, Integer>>());
+                        assertArrayEquals(expected, vpDBSCAN.cluster(data, eps, minPts, ex, null));
+                    }
+        }
+    }
+    
+    /**
+     * The original DBSCAN, expanding one cluster at a time by brute force
+     */
+    private static int[] expandClusters(DataSet data, DistanceMetric dm, double eps, int minPts)
+    {
+        final int N = data.getSampleSize();
+        List<Vec> X = data.getDataVectors();
+        int[] cats = new int[N];
+        Arrays.fill(cats, -1);
+        int clId = 0;
+        for(int i = 0; i < N; i++)
+        {
+            if(cats[i] != -1)
+                continue;
+            List<Integer> seeds = rangeSearch(X, dm, i, eps);
+            if(seeds.size() < minPts)
+            {
+                cats[i] = -2;
+                continue;
+            }
+            cats[i] = clId;
+            Queue<Integer> work = new ArrayDeque<Integer>(seeds);
+            while(!work.isEmpty())
+            {
+                List<Integer> results = rangeSearch(X, dm, work.poll(), eps);
+                if(results.size() >= minPts)
+                    for(int j : results)
+                        if(cats[j] < 0)
+                        {
+                            if(cats[j] == -1)
+                                work.add(j);
+                            cats[j] = clId;
+                        }
+            }
+            clId++;
+        }
+        return cats;
+    }
+    
+    private static List<Integer> rangeSearch(List<Vec> X, DistanceMetric dm, int i, double eps)
+    {
+        List<Integer> neighbors = new ArrayList<Integer>();
+        for(int j = 0; j < X.size(); j++)
+            if(dm.dist(X.get(i), X.get(j)) <= eps)
+                neighbors.add(j);
+        return neighbors;
+    }
 }
@@ -17,6 +17,7 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import jsat.DataSet;
 import jsat.clustering.SeedSelectionMethods.SeedSelection;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
 import jsat.distributions.Normal;
 import jsat.linear.distancemetrics.EuclideanDistance;
 import org.junit.AfterClass;
@@ -98,5 +99,29 @@ public class PAMTest
         }
     }
 
-    
+    @Test
+    public void testCluster_DistanceMatrix()
+    {
+        System.out.println("cluster with distance matrix");
+        PAM matrixPAM = new PAM(new EuclideanDistance(), new Random(7), SeedSelection.KPP);
+        matrixPAM.setDistanceMatrix(CondensedDistanceMatrix.create(easyData10, new EuclideanDistance(), false, CondensedDistanceMatrix.Storage.OFF_HEAP, ex));
+        //the same matrix is used for every k
+        assertEquals(easyData10.getSampleSize(), matrixPAM.cluster(easyData10, 8, 12, ex, null).length);
+        
+        //using the matrix should not change the result
+        PAM plainPAM = new PAM(new EuclideanDistance(), new Random(7), SeedSelection.KPP);
+        matrixPAM = new PAM(new EuclideanDistance(), new Random(7), SeedSelection.KPP);
+        matrixPAM.setDistanceMatrix(CondensedDistanceMatrix.create(easyData10, new EuclideanDistance(), false, CondensedDistanceMatrix.Storage.OFF_HEAP, ex));
+        assertArrayEquals(plainPAM.cluster(easyData10, 10, (int[]) null), matrixPAM.cluster(easyData10, 10, (int[]) null));
+        assertArrayEquals(plainPAM.getMedoids(), matrixPAM.getMedoids());
+
+        try
+        {
+            matrixPAM.cluster(new SimpleDataSet(easyData10.getDataPoints().subList(0, 20)), 2);
+            fail("Distance matrix of the wrong size should have been rejected");
+        }
+        catch(ClusterFailureException exception)
+        {
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package jsat.clustering.dissimilarity;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.SimpleDataSet;
+import jsat.distributions.Uniform;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.GridDataGenerator;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class CondensedDistanceMatrixTest
+{
+    static private ExecutorService ex;
+
+    public CondensedDistanceMatrixTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testCreate()
+    {
+        System.out.println("create");
+        SimpleDataSet data = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(1), 2, 3).generateData(17);
+        SingleLinkDissimilarity diss = new SingleLinkDissimilarity(new EuclideanDistance());
+        double[][] expected = AbstractClusterDissimilarity.createDistanceMatrix(data, diss);
+
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            for(boolean singlePrecision : new boolean[]{false, true})
+            {
+                CondensedDistanceMatrix matrix = CondensedDistanceMatrix.create(data, diss, singlePrecision, threadPool);
+                assertEquals(data.getSampleSize(), matrix.size());
+                assertEquals(data.getSampleSize()*(data.getSampleSize()-1)/2, matrix.length());
+                assertEquals(singlePrecision, matrix.isSinglePrecision());
+                for(int i = 0; i < data.getSampleSize(); i++)
+                    for(int j = 0; j < data.getSampleSize(); j++)
+                    {
+                        double dist = i == j ? 0 : AbstractClusterDissimilarity.getDistance(expected, i, j);
+                        assertEquals(dist, matrix.get(i, j), singlePrecision ? 1e-6 : 0.0);
+                    }
+            }
+    }
+
+    @Test
+    public void testCreate_DistanceMetric()
+    {
+        System.out.println("create(DistanceMetric)");
+        SimpleDataSet data = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(1), 2, 3).generateData(17);
+        DistanceMetric dm = new EuclideanDistance();
+
+        for(CondensedDistanceMatrix.Storage storage : CondensedDistanceMatrix.Storage.values())
+            for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+                for(boolean singlePrecision : new boolean[]{false, true})
+                {
+                    CondensedDistanceMatrix matrix = CondensedDistanceMatrix.create(data, dm, singlePrecision, storage, threadPool);
+                    assertEquals(data.getSampleSize(), matrix.size());
+                    assertEquals(storage, matrix.getStorage());
+                    assertEquals(singlePrecision, matrix.isSinglePrecision());
+                    for(int i = 0; i < data.getSampleSize(); i++)
+                        for(int j = 0; j < data.getSampleSize(); j++)
+                        {
+                            double dist = dm.dist(data.getDataPoint(i).getNumericalValues(), data.getDataPoint(j).getNumericalValues());
+                            assertEquals(dist, matrix.get(i, j), singlePrecision ? 1e-6 : 1e-10);
+                        }
+
+                    CondensedDistanceMatrix copy = matrix.copy();
+                    assertEquals(storage, copy.getStorage());
+                    copy.set(0, 1, -1);
+                    assertEquals(-1, copy.get(1, 0), 0.0);
+                    assertEquals(matrix.get(0, 2), copy.get(2, 0), 0.0);
+                    assertTrue(matrix.get(0, 1) >= 0);
+                }
+    }
+
+    @Test
+    public void testSubset()
+    {
+        System.out.println("subset");
+        CondensedDistanceMatrix matrix = new CondensedDistanceMatrix(6, false, CondensedDistanceMatrix.Storage.OFF_HEAP);
+        for(int i = 0; i < 6; i++)
+            for(int j = i + 1; j < 6; j++)
+                matrix.set(i, j, i * 10 + j);
+
+        int[] rows = new int[]{4, 1, 5};
+        CondensedDistanceMatrix sub = matrix.subset(rows);
+        assertEquals(3, sub.size());
+        for(int i = 0; i < rows.length; i++)
+            for(int j = 0; j < rows.length; j++)
+                assertEquals(matrix.get(rows[i], rows[j]), sub.get(i, j), 0.0);
+
+        double[][] staggered = matrix.toStaggeredArray();
+        for(int i = 0; i < 6; i++)
+            for(int j = 0; j < 6; j++)
+            {
+                double dist = i == j ? 0 : AbstractClusterDissimilarity.getDistance(staggered, i, j);
+                assertEquals(matrix.get(i, j), dist, 0.0);
+            }
+    }
+
+    @Test
+    public void testSet()
+    {
+        System.out.println("set");
+        CondensedDistanceMatrix matrix = new CondensedDistanceMatrix(5, false);
+        matrix.set(3, 1, 2.5);
+        assertEquals(2.5, matrix.get(1, 3), 0.0);
+        assertEquals(2.5, matrix.get(3, 1), 0.0);
+        assertEquals(0.0, matrix.get(1, 4), 0.0);
+        assertEquals(0.0, matrix.get(2, 2), 0.0);
+
+        try
+        {
+            matrix.get(0, 5);
+            fail("Index should have been out of bounds");
+        }
+        catch(IndexOutOfBoundsException exception)
+        {
+        }
+    }
+}
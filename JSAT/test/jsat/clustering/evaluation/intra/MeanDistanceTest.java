@@ -0,0 +1,86 @@
+package jsat.clustering.evaluation.intra;
+
+import java.util.List;
+import jsat.SimpleDataSet;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.linear.DenseVector;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class MeanDistanceTest
+{
+
+    public MeanDistanceTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of evaluate method, of class MeanDistance.
+     */
+    @Test
+    public void testEvaluate_3args()
+    {
+        System.out.println("evaluate");
+        int[] designations = new int[10];
+        SimpleDataSet dataSet = new SimpleDataSet(new CategoricalData[0], 1);
+        int clusterID = 2;
+        for(int i = 0; i < 10; i++)
+            dataSet.add(new DataPoint(new DenseVector(new double[]{i})));
+        designations[1] = designations[3] = designations[5] = designations[9] = clusterID;
+
+        MeanDistance instance = new MeanDistance();
+        double expResult = 26.0/(4*3);
+        double result = instance.evaluate(designations, dataSet, clusterID);
+        assertEquals(expResult, result, 1e-14);
+    }
+
+    /**
+     * A cluster with only one point has no distances, and should not give NaN
+     */
+    @Test
+    public void testEvaluate_Singleton()
+    {
+        System.out.println("evaluate singleton");
+        int[] designations = new int[10];
+        SimpleDataSet dataSet = new SimpleDataSet(new CategoricalData[0], 1);
+        for(int i = 0; i < 10; i++)
+            dataSet.add(new DataPoint(new DenseVector(new double[]{i})));
+        designations[4] = 7;
+
+        MeanDistance instance = new MeanDistance();
+        assertEquals(0.0, instance.evaluate(designations, dataSet, 7), 0.0);
+
+        List<DataPoint> single = dataSet.getBackingList().subList(4, 5);
+        assertEquals(0.0, instance.evaluate(single), 0.0);
+    }
+
+}
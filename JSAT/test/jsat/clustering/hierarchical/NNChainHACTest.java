@@ -0,0 +1,193 @@
+package jsat.clustering.hierarchical;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.SimpleDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.AverageLinkDissimilarity;
+import jsat.clustering.dissimilarity.CompleteLinkDissimilarity;
+import jsat.clustering.dissimilarity.SingleLinkDissimilarity;
+import jsat.clustering.dissimilarity.UpdatableClusterDissimilarity;
+import jsat.clustering.dissimilarity.WardsDissimilarity;
+import jsat.distributions.Uniform;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.GridDataGenerator;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class NNChainHACTest
+{
+    static private SimpleDataSet easyData10;
+    static private ExecutorService ex;
+
+    public NNChainHACTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(12), 2, 5);
+        easyData10 = gdg.generateData(50);
+        ex = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static UpdatableClusterDissimilarity[] getDissimilarities()
+    {
+        return new UpdatableClusterDissimilarity[]
+        {
+            new SingleLinkDissimilarity(new EuclideanDistance()),
+            new CompleteLinkDissimilarity(new EuclideanDistance()),
+            new AverageLinkDissimilarity(new EuclideanDistance()),
+            new WardsDissimilarity(),
+        };
+    }
+
+    private static void checkClusters(List<List<DataPoint>> clusters)
+    {
+        assertEquals(10, clusters.size());
+        Set<Integer> seenBefore = new HashSet<Integer>();
+        for (List<DataPoint> cluster : clusters)
+        {
+            int thisClass = cluster.get(0).getCategoricalValue(0);
+            assertFalse(seenBefore.contains(thisClass));
+            seenBefore.add(thisClass);
+            for (DataPoint dp : cluster)
+                assertEquals(thisClass, dp.getCategoricalValue(0));
+        }
+    }
+
+    /**
+     * Checks that two assignments put the same points together, regardless of
+     * the cluster numbers used
+     */
+    static void assertSamePartition(int[] expected, int[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> reverse = new HashMap<Integer, Integer>();
+        for(int i = 0; i < expected.length; i++)
+        {
+            if(!map.containsKey(expected[i]))
+                map.put(expected[i], actual[i]);
+            if(!reverse.containsKey(actual[i]))
+                reverse.put(actual[i], expected[i]);
+            assertEquals(map.get(expected[i]).intValue(), actual[i]);
+            assertEquals(reverse.get(actual[i]).intValue(), expected[i]);
+        }
+    }
+
+    @Test
+    public void testCluster_DataSet_int()
+    {
+        System.out.println("cluster(dataset, int)");
+        for(UpdatableClusterDissimilarity diss : getDissimilarities())
+            checkClusters(new NNChainHAC(diss).cluster(easyData10, 10));
+    }
+
+    @Test
+    public void testCluster_DataSet_int_ExecutorService()
+    {
+        System.out.println("cluster(dataset, int, ExecutorService)");
+        for(UpdatableClusterDissimilarity diss : getDissimilarities())
+            checkClusters(new NNChainHAC(diss).cluster(easyData10, 10, ex));
+    }
+
+    @Test
+    public void testCluster_DataSet()
+    {
+        System.out.println("cluster(dataset)");
+        //the number of clusters chosen should match PriorityHAC, which does not pick 10 for complete linkage
+        for(UpdatableClusterDissimilarity diss : getDissimilarities())
+            assertSamePartition(new PriorityHAC(diss.clone()).cluster(easyData10, (int[]) null), new NNChainHAC(diss).cluster(easyData10, (int[]) null));
+        checkClusters(new NNChainHAC(new WardsDissimilarity()).cluster(easyData10));
+    }
+
+    @Test
+    public void testCluster_DataSet_int_int_ExecutorService()
+    {
+        System.out.println("cluster(dataset, int, int, ExecutorService)");
+        for(UpdatableClusterDissimilarity diss : getDissimilarities())
+            assertSamePartition(new PriorityHAC(diss.clone()).cluster(easyData10, 2, 20, (int[]) null), new NNChainHAC(diss).cluster(easyData10, 2, 20, ex, null));
+        checkClusters(new NNChainHAC(new AverageLinkDissimilarity(new EuclideanDistance())).cluster(easyData10, 2, 20, ex));
+    }
+
+    @Test
+    public void testSameAsPriorityHAC()
+    {
+        System.out.println("same as PriorityHAC");
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.4, 0.4), new Random(3), 2, 3);
+        SimpleDataSet data = gdg.generateData(40);
+        for(UpdatableClusterDissimilarity diss : getDissimilarities())
+        {
+            PriorityHAC priorityHAC = new PriorityHAC(diss.clone());
+            priorityHAC.cluster(data, 2);
+            for(boolean singlePrecision : new boolean[]{false, true})
+            {
+                NNChainHAC nnChain = new NNChainHAC(diss.clone());
+                nnChain.setSinglePrecision(singlePrecision);
+                nnChain.cluster(data, 2, ex);
+                for(int k = 1; k <= 20; k++)
+                {
+                    int[] expected = priorityHAC.getClusterDesignations(new int[data.getSampleSize()], k);
+                    int[] actual = nnChain.getClusterDesignations(new int[data.getSampleSize()], k);
+                    assertSamePartition(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCluster_Large()
+    {
+        System.out.println("cluster large");
+        //large enough to search and update in parallel
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(5), 2, 5);
+        SimpleDataSet data = gdg.generateData(300);
+
+        SLINK slink = new SLINK();
+        int[] expected = slink.cluster(data, 10, (int[]) null);
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+        {
+            NNChainHAC nnChain = new NNChainHAC(new SingleLinkDissimilarity(new EuclideanDistance()));
+            assertSamePartition(expected, nnChain.cluster(data, 10, threadPool, null));
+            for(int k = 2; k < 30; k++)
+                assertSamePartition(slink.getClusterDesignations(null, k), nnChain.getClusterDesignations(null, k));
+        }
+
+        NNChainHAC ward = new NNChainHAC(new WardsDissimilarity());
+        checkClusters(ward.cluster(data, 10, ex));
+        assertTrue(ward.hasStoredClustering());
+        assertEquals(10, ward.clone().getClusterDesignations(10).size());
+    }
+}
@@ -0,0 +1,138 @@
+package jsat.clustering.hierarchical;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.SimpleDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.clustering.dissimilarity.SingleLinkDissimilarity;
+import jsat.distributions.Uniform;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.ManhattanDistance;
+import jsat.utils.GridDataGenerator;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class SLINKTest
+{
+    static private SLINK slink;
+    static private SimpleDataSet easyData10;
+    static private ExecutorService ex;
+
+    public SLINKTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        slink = new SLINK();
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(12), 2, 5);
+        easyData10 = gdg.generateData(50);
+        ex = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static void checkClusters(List<List<DataPoint>> clusters)
+    {
+        assertEquals(10, clusters.size());
+        Set<Integer> seenBefore = new HashSet<Integer>();
+        for (List<DataPoint> cluster : clusters)
+        {
+            int thisClass = cluster.get(0).getCategoricalValue(0);
+            assertFalse(seenBefore.contains(thisClass));
+            seenBefore.add(thisClass);
+            for (DataPoint dp : cluster)
+                assertEquals(thisClass, dp.getCategoricalValue(0));
+        }
+    }
+
+    @Test
+    public void testCluster_DataSet_int()
+    {
+        System.out.println("cluster(dataset, int)");
+        checkClusters(slink.clone().cluster(easyData10, 10));
+    }
+
+    @Test
+    public void testCluster_DataSet_int_ExecutorService()
+    {
+        System.out.println("cluster(dataset, int, ExecutorService)");
+        checkClusters(slink.clone().cluster(easyData10, 10, ex));
+    }
+
+    @Test
+    public void testCluster_DataSet()
+    {
+        System.out.println("cluster(dataset)");
+        checkClusters(slink.clone().cluster(easyData10));
+    }
+
+    @Test
+    public void testCluster_DataSet_int_int_ExecutorService()
+    {
+        System.out.println("cluster(dataset, int, int, ExecutorService)");
+        checkClusters(slink.clone().cluster(easyData10, 2, 20, ex));
+    }
+
+    @Test
+    public void testSameAsPriorityHAC()
+    {
+        System.out.println("same as PriorityHAC");
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.4, 0.4), new Random(3), 2, 3);
+        SimpleDataSet data = gdg.generateData(40);
+
+        PriorityHAC priorityHAC = new PriorityHAC(new SingleLinkDissimilarity(new ManhattanDistance()));
+        priorityHAC.cluster(data, 2);
+        SLINK manhattan = new SLINK(new ManhattanDistance());
+        manhattan.cluster(data, 2);
+        for(int k = 1; k <= 20; k++)
+        {
+            int[] expected = priorityHAC.getClusterDesignations(new int[data.getSampleSize()], k);
+            int[] actual = manhattan.getClusterDesignations(new int[data.getSampleSize()], k);
+            NNChainHACTest.assertSamePartition(expected, actual);
+        }
+    }
+
+    @Test
+    public void testCluster_Large()
+    {
+        System.out.println("cluster large");
+        //large enough to compute the distances in parallel
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(5), 2, 5);
+        SimpleDataSet data = gdg.generateData(300);
+
+        SLINK serial = new SLINK(new EuclideanDistance());
+        checkClusters(serial.cluster(data, 10));
+        SLINK parallel = new SLINK(new EuclideanDistance());
+        parallel.cluster(data, 10, ex);
+        for(int k = 2; k < 30; k++)
+            NNChainHACTest.assertSamePartition(serial.getClusterDesignations(null, k), parallel.getClusterDesignations(null, k));
+    }
+}
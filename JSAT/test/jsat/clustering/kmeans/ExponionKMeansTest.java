@@ -0,0 +1,133 @@
+
+package jsat.clustering.kmeans;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.DataSet;
+import jsat.SimpleDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.clustering.SeedSelectionMethods;
+import jsat.distributions.Uniform;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.GridDataGenerator;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ExponionKMeansTest
+{
+    //NOTE: FARTHER FIST seed + 2 x 2 grid of 4 classes results in a deterministic result given a high density
+    
+    static private SimpleDataSet easyData10;
+    static private ExecutorService ex;
+    public ExponionKMeansTest()
+    {
+    }
+    
+    @BeforeClass
+    public static void setUpClass()
+    {
+        GridDataGenerator gdg = new GridDataGenerator(new Uniform(-0.15, 0.15), new Random(12), 2, 2);
+        easyData10 = gdg.generateData(110);
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+    
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+    
+    @Before
+    public void setUp()
+    {
+    }
+    
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of cluster method, of class ExponionKMeans.
+     */
+    @Test
+    public void testCluster_3args_1()
+    {
+        System.out.println("cluster");
+        ExponionKMeans kMeans = new ExponionKMeans(new EuclideanDistance(), SeedSelectionMethods.SeedSelection.FARTHEST_FIRST);
+        List<List<DataPoint>> clusters = kMeans.cluster(easyData10, 10, ex);
+        assertEquals(10, clusters.size());
+        Set<Integer> seenBefore = new HashSet<Integer>();
+        for(List<DataPoint> cluster :  clusters)
+        {
+            int thisClass = cluster.get(0).getCategoricalValue(0);
+            assertFalse(seenBefore.contains(thisClass));
+            for(DataPoint dp : cluster)
+                assertEquals(thisClass, dp.getCategoricalValue(0));
+        }
+    }
+
+    /**
+     * Test of cluster method, of class ExponionKMeans.
+     */
+    @Test
+    public void testCluster_DataSet_intArr()
+    {
+        System.out.println("cluster");
+        ExponionKMeans kMeans = new ExponionKMeans(new EuclideanDistance(), SeedSelectionMethods.SeedSelection.FARTHEST_FIRST);
+        List<List<DataPoint>> clusters = kMeans.cluster(easyData10, 10);
+        assertEquals(10, clusters.size());
+        Set<Integer> seenBefore = new HashSet<Integer>();
+        for(List<DataPoint> cluster :  clusters)
+        {
+            int thisClass = cluster.get(0).getCategoricalValue(0);
+            assertFalse(seenBefore.contains(thisClass));
+            for(DataPoint dp : cluster)
+                assertEquals(thisClass, dp.getCategoricalValue(0));
+        }
+    }
+
+    /**
+     * Test that ExponionKMeans finds the exact same solution as {@link NaiveKMeans}
+     * from the same initial means.
+     */
+    @Test
+    public void testCluster_SameAsNaive()
+    {
+        System.out.println("cluster same as naive");
+        for(int k : new int[]{1, 3, 12, 40})
+        {
+            List<Vec> init = SeedSelectionMethods.selectIntialPoints(easyData10, k, new EuclideanDistance(), new Random(k), SeedSelectionMethods.SeedSelection.KPP);
+            
+            List<Vec> naiveMeans = new ArrayList<Vec>();
+            for(Vec v : init)
+                naiveMeans.add(v.clone());
+            int[] expected = new int[easyData10.getSampleSize()];
+            new NaiveKMeans().cluster(easyData10, null, k, naiveMeans, expected, true, null, true);
+            
+            for(ExecutorService threadpool : new ExecutorService[]{null, ex})
+            {
+                List<Vec> means = new ArrayList<Vec>();
+                for(Vec v : init)
+                    means.add(v.clone());
+                int[] assignment = new int[easyData10.getSampleSize()];
+                new ExponionKMeans().cluster(easyData10, null, k, means, assignment, true, threadpool, true);
+                assertArrayEquals(expected, assignment);
+                for(int j = 0; j < k; j++)
+                    assertEquals(0, naiveMeans.get(j).subtract(means.get(j)).pNorm(2), 1e-10);
+            }
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,206 @@
+package jsat.io;
+
+import java.io.*;
+import java.util.List;
+import java.util.Random;
+import jsat.ARFFLoader;
+import jsat.SimpleDataSet;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ARFFReaderTest
+{
+    private File tmp;
+
+    public ARFFReaderTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tmp = File.createTempFile("jsat", ".arff");
+    }
+
+    @After
+    public void tearDown()
+    {
+        tmp.delete();
+    }
+
+    private static CategoricalData[] getCategories()
+    {
+        CategoricalData[] cats = new CategoricalData[]{new CategoricalData(3), new CategoricalData(2)};
+        cats[0].setCategoryName("color");
+        cats[0].setOptionName("red", 0);
+        cats[0].setOptionName("dark blue", 1);
+        cats[0].setOptionName("green", 2);
+        cats[1].setCategoryName("size");
+        return cats;
+    }
+
+    private static DataPoint randomPoint(CategoricalData[] cats, Random rand, boolean sparse)
+    {
+        Vec v = sparse ? new SparseVector(6) : new DenseVector(6);
+        for(int j = 0; j < 6; j++)
+            if(!sparse || rand.nextInt(3) == 0)
+                v.set(j, rand.nextGaussian());
+        int[] catVals = new int[cats.length];
+        for(int j = 0; j < cats.length; j++)
+            catVals[j] = rand.nextInt(cats[j].getNumOfCategories());
+        return new DataPoint(v, catVals, cats, rand.nextBoolean() ? 1.0 : 0.5+rand.nextInt(4));
+    }
+
+    private static void assertSamePoint(DataPoint expected, DataPoint actual)
+    {
+        assertTrue(expected.getNumericalValues().equals(actual.getNumericalValues(), 0.0));
+        assertArrayEquals(expected.getCategoricalValues(), actual.getCategoricalValues());
+        assertEquals(expected.getWeight(), actual.getWeight(), 0.0);
+    }
+
+    @Test
+    public void testDenseRoundTrip() throws IOException
+    {
+        System.out.println("denseRoundTrip");
+        Random rand = new Random(1);
+        CategoricalData[] cats = getCategories();
+        DataPoint[] points = new DataPoint[100];
+
+        ARFFWriter writer = new ARFFWriter(tmp, cats, 6, false);
+        for(int i = 0; i < points.length; i++)
+            writer.write(points[i] = randomPoint(cats, rand, false));
+        writer.close();
+
+        ARFFReader reader = new ARFFReader(tmp);
+        assertEquals(6, reader.getNumNumericalVars());
+        assertEquals(2, reader.getCategories().length);
+        assertEquals("dark blue", reader.getCategories()[0].getOptionName(1));
+        for(DataPoint expected : points)
+        {
+            DataPoint dp = reader.next();
+            assertFalse(dp.getNumericalValues().isSparse());
+            assertSamePoint(expected, dp);
+        }
+        assertNull(reader.next());
+        reader.close();
+
+        //the existing loader should read the same file
+        SimpleDataSet loaded = ARFFLoader.loadArffFile(tmp);
+        assertEquals(points.length, loaded.getSampleSize());
+        for(int i = 0; i < points.length; i++)
+            assertTrue(points[i].getNumericalValues().equals(loaded.getDataPoint(i).getNumericalValues(), 0.0));
+    }
+
+    @Test
+    public void testSparseGzipClassification() throws IOException
+    {
+        System.out.println("sparseGzipClassification");
+        File gz = File.createTempFile("jsat", ".arff.gz");
+        try
+        {
+            Random rand = new Random(2);
+            CategoricalData[] cats = getCategories();
+            CategoricalData predicting = new CategoricalData(4);
+            predicting.setCategoryName("class");
+            DataPoint[] points = new DataPoint[250];
+            int[] labels = new int[points.length];
+
+            ARFFWriter writer = new ARFFWriter(gz, cats, 6, true);
+            writer.setClassTarget(predicting);
+            for(int i = 0; i < points.length; i++)
+                writer.write(points[i] = randomPoint(cats, rand, true), labels[i] = rand.nextInt(4));
+            writer.close();
+
+            ARFFReader reader = new ARFFReader(gz);
+            reader.setClassTarget(2);
+            assertEquals(2, reader.getCategories().length);
+            assertEquals(4, reader.getPredicting().getNumOfCategories());
+            int seen = 0;
+            List<DataPointPair<Integer>> batch;
+            while(!(batch = reader.nextClassificationBatch(64)).isEmpty())
+            {
+                assertTrue(batch.size() <= 64);
+                for(DataPointPair<Integer> dpp : batch)
+                {
+                    assertTrue(dpp.getDataPoint().getNumericalValues().isSparse());
+                    assertSamePoint(points[seen], dpp.getDataPoint());
+                    assertEquals(labels[seen], dpp.getPair().intValue());
+                    seen++;
+                }
+            }
+            assertEquals(points.length, seen);
+            reader.close();
+        }
+        finally
+        {
+            gz.delete();
+        }
+    }
+
+    @Test
+    public void testRegressionTarget() throws IOException
+    {
+        System.out.println("regressionTarget");
+        String arff = "% comment\n"
+                + "@RELATION test\n"
+                + "@ATTRIBUTE 'first value' NUMERIC\n"
+                + "@ATTRIBUTE kind {a, 'b, c'}\n"
+                + "@ATTRIBUTE target REAL\n"
+                + "@ATTRIBUTE last integer\n"
+                + "@DATA\n"
+                + "1.5, a, 10, 3\n"
+                + "2.5, ?, 11, 4\n"
+                + "{1 'b, c', 2 12}, {3}\n"
+                + "-1, 'b, c', 13, 5, {2}\n";
+        ARFFReader reader = new ARFFReader(new StringReader(arff));
+        reader.setRegressionTarget(1);
+        assertEquals("test", reader.getRelation());
+        assertEquals(2, reader.getNumNumericalVars());
+        assertEquals("first value", reader.getNumericNames().get(0));
+        assertEquals("last", reader.getNumericNames().get(1));
+
+        DataPointPair<Double> dpp = reader.nextRegression();
+        assertEquals(10.0, dpp.getPair(), 0.0);
+        assertEquals(1.5, dpp.getDataPoint().getNumericalValues().get(0), 0.0);
+        assertEquals(3.0, dpp.getDataPoint().getNumericalValues().get(1), 0.0);
+        assertEquals(0, dpp.getDataPoint().getCategoricalValue(0));
+
+        dpp = reader.nextRegression();//missing value row is skipped
+        assertEquals(12.0, dpp.getPair(), 0.0);
+        assertEquals(0.0, dpp.getDataPoint().getNumericalValues().get(0), 0.0);
+        assertEquals(1, dpp.getDataPoint().getCategoricalValue(0));
+        assertEquals(3.0, dpp.getDataPoint().getWeight(), 0.0);
+
+        dpp = reader.nextRegression();
+        assertEquals(13.0, dpp.getPair(), 0.0);
+        assertEquals(2.0, dpp.getDataPoint().getWeight(), 0.0);
+
+        assertNull(reader.nextRegression());
+        assertEquals(1, reader.getSkippedCount());
+        reader.close();
+    }
+}
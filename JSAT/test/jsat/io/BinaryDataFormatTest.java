@@ -0,0 +1,246 @@
+package jsat.io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+import jsat.DataSet;
+import jsat.FixedProblems;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.DataPointPair;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import jsat.regression.RegressionDataSet;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class BinaryDataFormatTest
+{
+    private File tmp;
+
+    public BinaryDataFormatTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tmp = File.createTempFile("jsat", ".bin");
+    }
+
+    @After
+    public void tearDown()
+    {
+        tmp.delete();
+    }
+
+    private static ClassificationDataSet getMixedClassification(Random rand)
+    {
+        CategoricalData[] cats = new CategoricalData[]{new CategoricalData(3), new CategoricalData(2)};
+        cats[0].setCategoryName("color");
+        cats[0].setOptionName("red", 0);
+        ClassificationDataSet cds = new ClassificationDataSet(5, cats, new CategoricalData(3));
+        for(int i = 0; i < 100; i++)
+        {
+            Vec v = new SparseVector(5);
+            for(int j = 0; j < 5; j++)
+                if(rand.nextBoolean())
+                    v.set(j, rand.nextGaussian());
+            cds.addDataPoint(v, new int[]{rand.nextInt(3), rand.nextInt(2)}, rand.nextInt(3), rand.nextDouble()+0.5);
+        }
+        return cds;
+    }
+
+    private static void assertSameData(DataSet expected, DataSet actual)
+    {
+        assertEquals(expected.getSampleSize(), actual.getSampleSize());
+        assertEquals(expected.getNumNumericalVars(), actual.getNumNumericalVars());
+        assertEquals(expected.getNumCategoricalVars(), actual.getNumCategoricalVars());
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            DataPoint e = expected.getDataPoint(i);
+            DataPoint a = actual.getDataPoint(i);
+            assertTrue(e.getNumericalValues().equals(a.getNumericalValues(), 0.0));
+            assertArrayEquals(e.getCategoricalValues(), a.getCategoricalValues());
+            assertEquals(e.getWeight(), a.getWeight(), 0.0);
+        }
+    }
+
+    @Test
+    public void testWriteClassification() throws IOException
+    {
+        System.out.println("writeClassification");
+        ClassificationDataSet orig = getMixedClassification(new Random(1));
+        for(boolean sparse : new boolean[]{true, false})
+        {
+            BinaryDataFormat.write(orig, tmp, sparse);
+            MappedClassificationDataSet mapped = new MappedClassificationDataSet(tmp);
+            assertSameData(orig, mapped);
+            assertEquals(sparse, mapped.getDataPoint(0).getNumericalValues().isSparse());
+            for(int i = 0; i < orig.getSampleSize(); i++)
+                assertEquals(orig.getDataPointCategory(i), mapped.getDataPointCategory(i));
+            assertEquals(3, mapped.getClassSize());
+            assertEquals("color", mapped.getCategories()[0].getCategoryName());
+            assertEquals("red", mapped.getCategories()[0].getOptionName(0));
+            assertEquals(orig.getNumericName(2), mapped.getNumericName(2));
+        }
+    }
+
+    @Test
+    public void testWriteRegression() throws IOException
+    {
+        System.out.println("writeRegression");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(2));
+        for(boolean sparse : new boolean[]{true, false})
+        {
+            BinaryDataFormat.write(orig, tmp, sparse);
+            MappedRegressionDataSet mapped = new MappedRegressionDataSet(tmp);
+            assertSameData(orig, mapped);
+            assertTrue(orig.getTargetValues().equals(mapped.getTargetValues()));
+
+            MappedDataSet unlabeled = new MappedDataSet(tmp);
+            assertSameData(orig, unlabeled);
+        }
+    }
+
+    @Test
+    public void testCvSet() throws IOException
+    {
+        System.out.println("cvSet");
+        ClassificationDataSet orig = getMixedClassification(new Random(3));
+        BinaryDataFormat.write(orig, tmp, true);
+        MappedClassificationDataSet mapped = new MappedClassificationDataSet(tmp);
+
+        List<ClassificationDataSet> folds = mapped.cvSet(7, new Random(4));
+        assertEquals(7, folds.size());
+        int total = 0;
+        for(ClassificationDataSet fold : folds)
+            total += fold.getSampleSize();
+        assertEquals(orig.getSampleSize(), total);
+        ClassificationDataSet combined = ClassificationDataSet.comineAllBut(folds, 2);
+        assertEquals(orig.getSampleSize()-folds.get(2).getSampleSize(), combined.getSampleSize());
+
+        //weights of a twice shallow clone are independent of the file
+        MappedClassificationDataSet clone = mapped.getTwiceShallowClone();
+        clone.getDataPoint(5).setWeight(42.0);
+        assertEquals(42.0, clone.getDataPoint(5).getWeight(), 0.0);
+        assertEquals(orig.getDataPoint(5).getWeight(), mapped.getDataPoint(5).getWeight(), 0.0);
+    }
+
+    private static void writeLIBSVM(File file, Random rand, String[] labels) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        for(int i = 0; i < 200; i++)
+        {
+            writer.print(labels[rand.nextInt(labels.length)] + " ");
+            for(int j = 1; j <= 20; j++)
+                if(j == 1 || rand.nextInt(4) == 0)
+                    writer.print(j + ":" + rand.nextGaussian() + " ");
+            writer.print("\n");
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testConvertLIBSVM() throws IOException
+    {
+        System.out.println("convertLIBSVM");
+        File libsvm = File.createTempFile("jsat", ".libsvm");
+        try
+        {
+            Random rand = new Random(5);
+            writeLIBSVM(libsvm, rand, new String[]{"3", "-1", "7"});
+
+            ClassificationDataSet expected = LIBSVMLoader.loadC(libsvm);
+            BinaryDataFormat.convertLIBSVMC(libsvm, tmp, -1);
+            MappedClassificationDataSet mapped = new MappedClassificationDataSet(tmp);
+            assertEquals(expected.getClassSize(), mapped.getClassSize());
+            for(int i = 0; i < expected.getSampleSize(); i++)
+            {
+                assertEquals(expected.getDataPointCategory(i), mapped.getDataPointCategory(i));
+                assertTrue(expected.getDataPoint(i).getNumericalValues().equals(mapped.getDataPoint(i).getNumericalValues(), 1e-12));
+            }
+
+            writeLIBSVM(libsvm, rand, new String[]{"0.5", "-2.25", "1e3"});
+
+            RegressionDataSet expectedR = LIBSVMLoader.loadR(libsvm);
+            BinaryDataFormat.convertLIBSVMR(libsvm, tmp, -1);
+            MappedRegressionDataSet mappedR = new MappedRegressionDataSet(tmp);
+            assertEquals(expectedR.getSampleSize(), mappedR.getSampleSize());
+            for(int i = 0; i < expectedR.getSampleSize(); i++)
+            {
+                assertEquals(expectedR.getTargetValue(i), mappedR.getTargetValue(i), 1e-12);
+                assertTrue(expectedR.getDataPoint(i).getNumericalValues().equals(mappedR.getDataPoint(i).getNumericalValues(), 1e-12));
+            }
+        }
+        finally
+        {
+            libsvm.delete();
+        }
+    }
+
+    @Test
+    public void testConvertARFF() throws IOException
+    {
+        System.out.println("convertARFF");
+        ClassificationDataSet orig = getMixedClassification(new Random(9));
+        File arff = File.createTempFile("jsat", ".arff.gz");
+        try
+        {
+            ARFFWriter writer = new ARFFWriter(arff, orig.getCategories(), orig.getNumNumericalVars(), true);
+            writer.setClassTarget(orig.getPredicting());
+            for(int i = 0; i < orig.getSampleSize(); i++)
+                writer.write(orig.getDataPoint(i), orig.getDataPointCategory(i));
+            writer.close();
+
+            //the class is the last nominal attribute
+            BinaryDataFormat.convertARFFC(arff, tmp, orig.getNumCategoricalVars(), true);
+            MappedClassificationDataSet mapped = new MappedClassificationDataSet(tmp);
+            assertSameData(orig, mapped);
+            for(int i = 0; i < orig.getSampleSize(); i++)
+                assertEquals(orig.getDataPointCategory(i), mapped.getDataPointCategory(i));
+        }
+        finally
+        {
+            arff.delete();
+        }
+    }
+
+    @Test
+    public void testTrainOnMapped() throws IOException
+    {
+        System.out.println("trainOnMapped");
+        BinaryDataFormat.write(FixedProblems.get2ClassLinear(200, new Random(7)), tmp, false);
+        MappedClassificationDataSet train = new MappedClassificationDataSet(tmp);
+
+        LinearSGD sgd = new LinearSGD();
+        sgd.trainC(train);
+
+        ClassificationDataSet test = FixedProblems.get2ClassLinear(200, new Random(8));
+        for(DataPointPair<Integer> dpp : test.getAsDPPList())
+            assertEquals(dpp.getPair().longValue(), sgd.classify(dpp.getDataPoint()).mostLikely());
+    }
+}
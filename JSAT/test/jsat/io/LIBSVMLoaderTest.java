@@ -0,0 +1,207 @@
+package jsat.io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.DataSet;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.regression.RegressionDataSet;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class LIBSVMLoaderTest
+{
+    private static ExecutorService ex;
+    private File tmp;
+
+    public LIBSVMLoaderTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tmp = File.createTempFile("jsat", ".libsvm");
+    }
+
+    @After
+    public void tearDown()
+    {
+        tmp.delete();
+    }
+
+    /**
+     * Writes a file with enough rows to be split into several chunks, some
+     * of which are unsorted or contain explicit zeros
+     */
+    private static void writeFile(File file, Random rand, String[] labels) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        for(int i = 0; i < 3000; i++)
+        {
+            writer.print(labels[rand.nextInt(labels.length)] + " ");
+            if(i % 97 == 0)//out of order with an explicit zero
+                writer.print("7:1.5 3:0 2:-0.25 ");
+            for(int j = 10; j <= 60; j++)
+                if(j == 10 || rand.nextInt(6) == 0)
+                    writer.print(j + ":" + rand.nextGaussian() + " ");
+            writer.print("\n");
+        }
+        writer.close();
+    }
+
+    private static void assertSameData(DataSet expected, DataSet actual)
+    {
+        assertEquals(expected.getSampleSize(), actual.getSampleSize());
+        assertEquals(expected.getNumNumericalVars(), actual.getNumNumericalVars());
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            Vec e = expected.getDataPoint(i).getNumericalValues();
+            Vec a = actual.getDataPoint(i).getNumericalValues();
+            assertTrue(e.equals(a, 0.0));
+            assertEquals(e.nnz(), a.nnz());
+        }
+    }
+
+    @Test
+    public void testLoadC_Parallel() throws IOException
+    {
+        System.out.println("loadC parallel");
+        writeFile(tmp, new Random(1), new String[]{"3", "-1", "7", "0.5"});
+
+        ClassificationDataSet expected = LIBSVMLoader.loadC(tmp);
+        ClassificationDataSet parallel = LIBSVMLoader.loadC(tmp, 0.5, -1, ex);
+        ClassificationDataSet compact = LIBSVMLoader.loadCompactC(tmp, -1, ex);
+
+        assertSameData(expected, parallel);
+        assertSameData(expected, compact);
+        assertEquals(expected.getClassSize(), parallel.getClassSize());
+        assertEquals(expected.getClassSize(), compact.getClassSize());
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            assertEquals(expected.getDataPointCategory(i), parallel.getDataPointCategory(i));
+            assertEquals(expected.getDataPointCategory(i), compact.getDataPointCategory(i));
+        }
+
+        //should also work with no thread pool
+        assertSameData(expected, LIBSVMLoader.loadC(tmp, 0.5, -1, null));
+        assertEquals(100, LIBSVMLoader.loadCompactC(tmp, 100, ex).getNumNumericalVars());
+    }
+
+    @Test
+    public void testLoadR_Parallel() throws IOException
+    {
+        System.out.println("loadR parallel");
+        writeFile(tmp, new Random(2), new String[]{"0.5", "-2.25", "1e3", "17"});
+
+        RegressionDataSet expected = LIBSVMLoader.loadR(tmp);
+        RegressionDataSet parallel = LIBSVMLoader.loadR(tmp, 0.5, -1, ex);
+        RegressionDataSet compact = LIBSVMLoader.loadCompactR(tmp, -1, ex);
+
+        assertSameData(expected, parallel);
+        assertSameData(expected, compact);
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            assertEquals(expected.getTargetValue(i), parallel.getTargetValue(i), 1e-12);
+            assertEquals(expected.getTargetValue(i), compact.getTargetValue(i), 1e-12);
+        }
+    }
+
+    /**
+     * The parallel loaders must read labels exactly as the serial loader
+     * does, including forms the fast number parser does not accept
+     */
+    @Test
+    public void testLoadR_ParallelLabels() throws IOException
+    {
+        System.out.println("loadR parallel labels");
+        writeFile(tmp, new Random(3), new String[]{".5", "5.", "2.5E-3", "1e+2", "+4", "-0.125e1", "0x1p3"});
+
+        RegressionDataSet expected = LIBSVMLoader.loadR(tmp);
+        RegressionDataSet parallel = LIBSVMLoader.loadR(tmp, 0.5, -1, ex);
+        RegressionDataSet compact = LIBSVMLoader.loadCompactR(tmp, -1, ex);
+
+        assertSameData(expected, parallel);
+        assertSameData(expected, compact);
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            assertEquals(expected.getTargetValue(i), parallel.getTargetValue(i), 0.0);
+            assertEquals(expected.getTargetValue(i), compact.getTargetValue(i), 0.0);
+        }
+    }
+
+    /**
+     * Labels that can not be used for regression must still be read the same
+     * as {@link Double#parseDouble(java.lang.String) }, which the serial
+     * loader uses
+     */
+    @Test
+    public void testParseLabels() throws IOException
+    {
+        System.out.println("parse labels");
+        String[] labels = new String[]{"NaN", "-Infinity", "Infinity", ".5", "1E-2"};
+        PrintWriter writer = new PrintWriter(new FileWriter(tmp));
+        for(String label : labels)
+            writer.print(label + " 1:1.0\n");
+        writer.close();
+
+        for(boolean csr : new boolean[]{false, true})
+        {
+            ParallelLIBSVMParser parsed = ParallelLIBSVMParser.parse(tmp, csr, ex);
+            assertEquals(labels.length, parsed.rows);
+            for(int i = 0; i < labels.length; i++)
+                assertEquals(Double.parseDouble(labels[i]), parsed.labels[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testCompactRows() throws IOException
+    {
+        System.out.println("compact rows");
+        writeFile(tmp, new Random(3), new String[]{"1", "2"});
+        ClassificationDataSet expected = LIBSVMLoader.loadC(tmp);
+        ClassificationDataSet compact = LIBSVMLoader.loadCompactC(tmp, -1, ex);
+
+        Vec w = DenseVector.random(expected.getNumNumericalVars(), new Random(4));
+        for(int i = 0; i < expected.getSampleSize(); i++)
+        {
+            Vec e = expected.getDataPoint(i).getNumericalValues();
+            Vec a = compact.getDataPoint(i).getNumericalValues();
+            assertEquals(e.dot(w), a.dot(w), 1e-10);
+            assertEquals(e.pNorm(2), a.pNorm(2), 1e-10);
+            assertTrue(e.equals(a.clone(), 0.0));
+        }
+
+        //existing values can be altered in place
+        Vec row = compact.getDataPoint(0).getNumericalValues();
+        row.mutableMultiply(2.0);
+        assertEquals(2*expected.getDataPoint(0).getNumericalValues().get(6), compact.getDataPoint(0).getNumericalValues().get(6), 0.0);
+    }
+}
@@ -1,6 +1,7 @@
 package jsat.linear;
 
 import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -1183,4 +1184,35 @@ public class DenseMatrixTest
                 else
                     assertEquals(0.0, Acpy.get(i, j), 0.0);
     }
+
+    @Test
+    public void testMultiply_Large()
+    {
+        System.out.println("multiply_Large");
+        //Large enough to span several packed tiles, and not a multiple of any block size
+        Random rand = new Random(13);
+        int M = 301, K = 517, N = 263;
+        DenseMatrix X = Matrix.random(M, K, rand);
+        DenseMatrix Y = Matrix.random(K, N, rand);
+        DenseMatrix expected = new DenseMatrix(M, N);
+        for(int i = 0; i < M; i++)
+            for(int j = 0; j < N; j++)
+            {
+                double sum = 0;
+                for(int k = 0; k < K; k++)
+                    sum += X.get(i, k)*Y.get(k, j);
+                expected.set(i, j, sum);
+            }
+        
+        assertTrue(expected.equals(X.multiply(Y), 1e-10));
+        assertTrue(expected.equals(X.multiply(Y, threadpool), 1e-10));
+        assertTrue(expected.equals(X.transpose().transposeMultiply(Y), 1e-10));
+        assertTrue(expected.equals(X.transpose().transposeMultiply(Y, threadpool), 1e-10));
+        
+        //result should be added to what is already in C
+        DenseMatrix R = new DenseMatrix(M, N);
+        X.multiply(Y, R, threadpool);
+        X.transpose().transposeMultiply(Y, R, threadpool);
+        assertTrue(expected.multiply(2).equals(R, 1e-10));
+    }
 }
@@ -0,0 +1,210 @@
+package jsat.linear.vectorcollection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+import jsat.linear.VecPaired;
+import jsat.linear.distancemetrics.DistanceMetric;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.distancemetrics.ManhattanDistance;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class HNSWTest
+{
+    static private List<Vec> vecs;
+    static private List<Vec> queries;
+    static private ExecutorService ex;
+    
+    public HNSWTest()
+    {
+    }
+    
+    @BeforeClass
+    public static void setUpClass()
+    {
+        Random rand = new Random(42);
+        vecs = randomVecs(3000, 16, rand);
+        queries = randomVecs(100, 16, rand);
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+    
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdown();
+    }
+    
+    @Before
+    public void setUp()
+    {
+    }
+    
+    @After
+    public void tearDown()
+    {
+    }
+    
+    /**
+     * Vectors in 10 well separated clusters
+     */
+    private static List<Vec> randomVecs(int n, int d, Random rand)
+    {
+        List<Vec> toRet = new ArrayList<Vec>(n);
+        for(int i = 0; i < n; i++)
+        {
+            Vec v = new DenseVector(d);
+            v.set(i % d, 10*(i % 10));
+            for(int j = 0; j < d; j++)
+                v.increment(j, rand.nextGaussian());
+            toRet.add(v);
+        }
+        return toRet;
+    }
+    
+    /**
+     * Returns the fraction of the true k nearest neighbors found
+     */
+    private static double recall(VectorCollection<Vec> vc, DistanceMetric dm, int k)
+    {
+        VectorArray<Vec> truth = new VectorArray<Vec>(dm, vecs);
+        int found = 0;
+        for(Vec q : queries)
+        {
+            Set<Vec> trueNNs = new HashSet<Vec>();
+            for(VecPaired<Vec, Double> v : truth.search(q, k))
+                trueNNs.add(v.getVector());
+            List<? extends VecPaired<Vec, Double>> result = vc.search(q, k);
+            assertEquals(k, result.size());
+            for(int i = 0; i < result.size(); i++)
+            {
+                if(trueNNs.contains(result.get(i).getVector()))
+                    found++;
+                if(i > 0)
+                    assertTrue(result.get(i-1).getPair() <= result.get(i).getPair());
+                assertEquals(dm.dist(q, result.get(i).getVector()), result.get(i).getPair(), 1e-10);
+            }
+        }
+        return found / (double) (k*queries.size());
+    }
+
+    /**
+     * Test of search method, of class HNSW.
+     */
+    @Test
+    public void testSearch_Vec_int()
+    {
+        System.out.println("search_k");
+        for(DistanceMetric dm : new DistanceMetric[]{new EuclideanDistance(), new ManhattanDistance()})
+            for(ExecutorService threadpool : new ExecutorService[]{null, ex})
+            {
+                HNSW<Vec> hnsw = new HNSW<Vec>(vecs, dm, 12, 100, threadpool);
+                assertEquals(vecs.size(), hnsw.size());
+                hnsw.setEf(100);
+                assertTrue(recall(hnsw, dm, 10) > 0.95);
+            }
+    }
+
+    /**
+     * Test of search method, of class HNSW.
+     */
+    @Test
+    public void testSearch_Vec_double()
+    {
+        System.out.println("search_range");
+        EuclideanDistance dm = new EuclideanDistance();
+        HNSW<Vec> hnsw = new HNSW<Vec>(vecs, dm);
+        hnsw.setEf(100);
+        VectorArray<Vec> truth = new VectorArray<Vec>(dm, vecs);
+        int expected = 0, found = 0;
+        for(Vec q : queries)
+        {
+            List<? extends VecPaired<Vec, Double>> result = hnsw.search(q, 5.0);
+            for(VecPaired<Vec, Double> v : result)
+                assertTrue(v.getPair() <= 5.0);
+            expected += truth.search(q, 5.0).size();
+            found += result.size();
+        }
+        assertTrue(expected > 0);
+        assertTrue(found > 0.95*expected);
+    }
+    
+    /**
+     * Test of add method, of class HNSW, with many threads adding and 
+     * searching at once
+     */
+    @Test
+    public void testAdd_Concurrent() throws InterruptedException
+    {
+        System.out.println("add");
+        final EuclideanDistance dm = new EuclideanDistance();
+        final HNSW<Vec> hnsw = new HNSW<Vec>(dm, 12, 100);
+        hnsw.setEf(100);
+        final int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for(int t = 0; t < threads; t++)
+        {
+            final int ID = t;
+            pool.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for(int i = ID; i < vecs.size(); i += threads)
+                    {
+                        hnsw.add(vecs.get(i));
+                        hnsw.search(vecs.get(i), 3);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+        
+        assertEquals(vecs.size(), hnsw.size());
+        assertTrue(recall(hnsw, dm, 10) > 0.95);
+        //every vector should find itself
+        int self = 0;
+        for(Vec v : vecs)
+            if(hnsw.search(v, 1).get(0).getVector() == v)
+                self++;
+        assertTrue(self > 0.99*vecs.size());
+    }
+    
+    /**
+     * Test of clone method, of class HNSW.
+     */
+    @Test
+    public void testClone()
+    {
+        System.out.println("clone");
+        EuclideanDistance dm = new EuclideanDistance();
+        HNSW<Vec> hnsw = new HNSW<Vec>(vecs.subList(0, 1000), dm);
+        HNSW<Vec> clone = hnsw.clone();
+        for(Vec q : queries)
+            assertEquals(hnsw.search(q, 5).size(), clone.search(q, 5).size());
+        
+        for(Vec v : vecs.subList(1000, 1500))
+            clone.add(v);
+        assertEquals(1000, hnsw.size());
+        assertEquals(1500, clone.size());
+        for(Vec q : queries)
+            assertEquals(5, clone.search(q, 5).size());
+    }
+}
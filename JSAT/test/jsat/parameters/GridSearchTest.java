@@ -0,0 +1,166 @@
+package jsat.parameters;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.Classifier;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.classifiers.linear.NewGLMNET;
+import jsat.distributions.Uniform;
+import jsat.exceptions.FailedToFitException;
+import jsat.lossfunctions.LogisticLoss;
+import jsat.math.optimization.stochastic.AdaGrad;
+import jsat.regression.RegressionDataSet;
+import jsat.regression.RidgeRegression;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class GridSearchTest
+{
+    static ExecutorService ex;
+
+    public GridSearchTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdownNow();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static void checkClassifier(Classifier classifier)
+    {
+        ClassificationDataSet test = FixedProblems.get2ClassLinear(200, new Random(2));
+        int errors = 0;
+        for(int i = 0; i < test.getSampleSize(); i++)
+            if(test.getDataPointCategory(i) != classifier.classify(test.getDataPoint(i)).mostLikely())
+                errors++;
+        assertTrue(errors < test.getSampleSize()/20);
+    }
+
+    private static LinearSGD getSGD()
+    {
+        LinearSGD sgd = new LinearSGD(new LogisticLoss(), 1e-6, 0.0);
+        sgd.setGradientUpdater(new AdaGrad());
+        sgd.setEta(0.5);
+        return sgd;
+    }
+
+    @Test
+    public void testTrainC_SuccessiveHalving()
+    {
+        System.out.println("trainC successive halving");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(500, new Random(1));
+
+        for(boolean parallel : new boolean[]{true, false})
+        {
+            GridSearch gs = new GridSearch((Classifier) getSGD(), 5);
+            gs.setTrainModelsInParallel(parallel);
+            gs.setSearchMode(GridSearch.SearchMode.SUCCESSIVE_HALVING);
+            //a regularization of 2 zeros out the weights at every step
+            gs.addParameter("Lambda0", 1e-6, 1e-4, 2, 2, 2);
+            gs.setResourceParameter("Epochs", 1, 9);
+            gs.trainC(train, ex);
+
+            LinearSGD best = (LinearSGD) gs.getTrainedClassifier();
+            assertTrue(best.getLambda0() <= 1e-4);
+            assertEquals(9, best.getEpochs());
+            checkClassifier(best);
+        }
+    }
+
+    @Test
+    public void testTrainC_Hyperband()
+    {
+        System.out.println("trainC hyperband");
+        ClassificationDataSet train = FixedProblems.get2ClassLinear(500, new Random(1));
+
+        GridSearch gs = new GridSearch(new NewGLMNET(), 5);
+        gs.setSearchMode(GridSearch.SearchMode.HYPERBAND);
+        gs.addParameter("C", new Uniform(0.01, 100));
+        gs.setMinDataFraction(0.2);
+        gs.trainC(train, ex);
+
+        NewGLMNET best = (NewGLMNET) gs.getTrainedClassifier();
+        assertTrue(best.getC() >= 0.01 && best.getC() <= 100);
+        checkClassifier(best);
+    }
+
+    @Test
+    public void testTrain_RandomTrials()
+    {
+        System.out.println("train random trials");
+        RegressionDataSet train = FixedProblems.getLinearRegression(400, new Random(1));
+        RegressionDataSet test = FixedProblems.getLinearRegression(100, new Random(2));
+
+        GridSearch gs = new GridSearch(new RidgeRegression(), 5);
+        gs.addParameter("Lambda", new Uniform(1e-9, 1e-3));
+        gs.setRandomTrials(4);
+        gs.train(train, ex);
+
+        RidgeRegression best = (RidgeRegression) gs.getTrainedRegressor();
+        assertTrue(best.getLambda() >= 1e-9 && best.getLambda() <= 1e-3);
+        for(int i = 0; i < test.getSampleSize(); i++)
+        {
+            double truth = test.getTargetValue(i);
+            assertEquals(0, (truth-best.regress(test.getDataPoint(i)))/truth, 0.05);
+        }
+    }
+
+    @Test(expected = FailedToFitException.class)
+    public void testTrainC_DistributionNeedsTrials()
+    {
+        System.out.println("trainC distribution without trials");
+        GridSearch gs = new GridSearch((Classifier) getSGD(), 5);
+        gs.addParameter("Lambda0", new Uniform(0, 1));
+        gs.trainC(FixedProblems.get2ClassLinear(100, new Random(1)));
+    }
+
+    @Test
+    public void testClone()
+    {
+        System.out.println("clone");
+        GridSearch gs = new GridSearch((Classifier) getSGD(), 5);
+        gs.setSearchMode(GridSearch.SearchMode.SUCCESSIVE_HALVING);
+        gs.setHalvingRate(2);
+        gs.addParameter("Lambda0", 1e-6, 1e-4, 2);
+        gs.setResourceParameter("Epochs", 1, 4);
+
+        GridSearch clone = gs.clone();
+        assertEquals(GridSearch.SearchMode.SUCCESSIVE_HALVING, clone.getSearchMode());
+        assertEquals(2, clone.getHalvingRate(), 0.0);
+        assertEquals("Epochs", clone.getResourceParameter().getName());
+        clone.trainC(FixedProblems.get2ClassLinear(500, new Random(1)));
+        assertEquals(4, ((LinearSGD) clone.getTrainedClassifier()).getEpochs());
+        checkClassifier(clone.getTrainedClassifier());
+        assertNull(gs.getTrainedClassifier());
+    }
+}
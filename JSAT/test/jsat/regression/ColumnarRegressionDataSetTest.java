@@ -0,0 +1,136 @@
+package jsat.regression;
+
+import java.util.List;
+import java.util.Random;
+import jsat.ColumnarStore.Layout;
+import jsat.FixedProblems;
+import jsat.datatransform.PolynomialTransform;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class ColumnarRegressionDataSetTest
+{
+
+    public ColumnarRegressionDataSetTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testGetDataPointPair()
+    {
+        System.out.println("getDataPointPair");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarRegressionDataSet rds = new ColumnarRegressionDataSet(orig, layout);
+            assertEquals(orig.getSampleSize(), rds.getSampleSize());
+            assertTrue(orig.getTargetValues().equals(rds.getTargetValues()));
+            for(int i = 0; i < orig.getSampleSize(); i++)
+            {
+                assertTrue(orig.getDataPoint(i).getNumericalValues().equals(rds.getDataPointPair(i).getVector()));
+                assertEquals(orig.getTargetValue(i), rds.getDataPointPair(i).getPair(), 0.0);
+                assertEquals(orig.getTargetValue(i), rds.getRawTargets()[i], 0.0);
+            }
+
+            rds.setTargetValue(4, 12.5);
+            assertEquals(12.5, rds.getTargetValue(4), 0.0);
+            assertEquals(12.5, rds.getDPPList().get(4).getPair(), 0.0);
+        }
+    }
+
+    @Test
+    public void testCvSet()
+    {
+        System.out.println("cvSet");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarRegressionDataSet rds = new ColumnarRegressionDataSet(orig, layout);
+            List<RegressionDataSet> folds = rds.cvSet(10, new Random(2));
+            double origSum = orig.getTargetValues().sum();
+            double foldSum = 0;
+            int total = 0;
+            for(RegressionDataSet fold : folds)
+            {
+                //folds are views of the data set, not copies of the store
+                assertTrue(fold instanceof RegressionDataSetView);
+                assertSame(rds, ((RegressionDataSetView) fold).getBase());
+                total += fold.getSampleSize();
+                foldSum += fold.getTargetValues().sum();
+            }
+            assertEquals(orig.getSampleSize(), total);
+            assertEquals(origSum, foldSum, 1e-8);
+
+            RegressionDataSet combined = RegressionDataSet.comineAllBut(folds, 3);
+            assertEquals(orig.getSampleSize()-folds.get(3).getSampleSize(), combined.getSampleSize());
+        }
+    }
+
+    @Test
+    public void testApplyTransform()
+    {
+        System.out.println("applyTransform");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        for(Layout layout : Layout.values())
+        {
+            ColumnarRegressionDataSet rds = new ColumnarRegressionDataSet(orig, layout);
+            RegressionDataSet expected = orig.shallowClone();
+            expected.applyTransform(new PolynomialTransform(2));
+            rds.applyTransform(new PolynomialTransform(2));
+
+            assertEquals(expected.getNumNumericalVars(), rds.getNumNumericalVars());
+            for(int i = 0; i < orig.getSampleSize(); i++)
+            {
+                assertTrue(expected.getDataPoint(i).getNumericalValues().equals(rds.getDataPoint(i).getNumericalValues(), 1e-10));
+                assertEquals(orig.getTargetValue(i), rds.getTargetValue(i), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testTrain()
+    {
+        System.out.println("train");
+        RegressionDataSet train = FixedProblems.getLinearRegression(200, new Random(1));
+        RegressionDataSet test = FixedProblems.getLinearRegression(50, new Random(2));
+
+        MultipleLinearRegression expected = new MultipleLinearRegression();
+        expected.train(train);
+
+        for(Layout layout : Layout.values())
+        {
+            MultipleLinearRegression mlr = new MultipleLinearRegression();
+            mlr.train(new ColumnarRegressionDataSet(train, layout));
+            for(int i = 0; i < test.getSampleSize(); i++)
+                assertEquals(expected.regress(test.getDataPoint(i)), mlr.regress(test.getDataPoint(i)), 1e-8);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package jsat.regression;
+
+import java.util.List;
+import java.util.Random;
+import jsat.FixedProblems;
+import jsat.classifiers.boosting.Bagging;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class RegressionDataSetViewTest
+{
+
+    public RegressionDataSetViewTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testGetDataPoint()
+    {
+        System.out.println("getDataPoint");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        int[] rows = new int[]{7, 0, 7, 99};
+        RegressionDataSetView view = new RegressionDataSetView(orig, rows);
+        assertEquals(rows.length, view.getSampleSize());
+        for(int i = 0; i < rows.length; i++)
+        {
+            assertSame(orig.getDataPoint(rows[i]), view.getDataPoint(i));
+            assertEquals(orig.getTargetValue(rows[i]), view.getTargetValue(i), 0.0);
+            assertEquals(orig.getTargetValue(rows[i]), view.getDataPointPair(i).getPair(), 0.0);
+        }
+        assertEquals(orig.getTargetValue(99), view.getTargetValues().get(3), 0.0);
+    }
+
+    @Test
+    public void testSetTargetValue()
+    {
+        System.out.println("setTargetValue");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        double origTarget = orig.getTargetValue(7);
+        RegressionDataSetView view = new RegressionDataSetView(orig, new int[]{7, 8});
+        view.setTargetValue(0, 42.0);
+        assertEquals(42.0, view.getTargetValue(0), 0.0);
+        assertEquals(orig.getTargetValue(8), view.getTargetValue(1), 0.0);
+        assertEquals(origTarget, orig.getTargetValue(7), 0.0);
+
+        //new targets are kept by clones and views of the view
+        assertEquals(42.0, view.shallowClone().getTargetValue(0), 0.0);
+        assertEquals(42.0, new RegressionDataSetView(view, new int[]{1, 0}).getTargetValue(1), 0.0);
+        for(RegressionDataSet fold : view.cvSet(2, new Random(1)))
+        {
+            RegressionDataSetView foldView = (RegressionDataSetView) fold;
+            double expected = foldView.getBaseRow(0) == 7 ? 42.0 : orig.getTargetValue(8);
+            assertEquals(expected, fold.getTargetValue(0), 0.0);
+        }
+    }
+
+    @Test
+    public void testCvSet()
+    {
+        System.out.println("cvSet");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(103, new Random(1));
+        List<RegressionDataSet> folds = orig.cvSet(4, new Random(2));
+        int[] seen = new int[orig.getSampleSize()];
+        for(RegressionDataSet fold : folds)
+        {
+            assertTrue(fold instanceof RegressionDataSetView);
+            RegressionDataSetView view = (RegressionDataSetView) fold;
+            for(int i = 0; i < view.getSampleSize(); i++)
+            {
+                seen[view.getBaseRow(i)]++;
+                assertEquals(orig.getTargetValue(view.getBaseRow(i)), view.getTargetValue(i), 0.0);
+            }
+        }
+        for(int count : seen)
+            assertEquals(1, count);
+
+        for(int k = 0; k < folds.size(); k++)
+        {
+            RegressionDataSet train = RegressionDataSet.comineAllBut(folds, k);
+            assertTrue(train instanceof RegressionDataSetView);
+            assertEquals(orig.getSampleSize()-folds.get(k).getSampleSize(), train.getSampleSize());
+        }
+    }
+
+    @Test
+    public void testBagging()
+    {
+        System.out.println("bagging");
+        RegressionDataSet orig = FixedProblems.getLinearRegression(100, new Random(1));
+        int[] counts = new int[orig.getSampleSize()];
+        Bagging.sampleWithReplacement(counts, counts.length, new Random(3));
+        counts[0] = 2;
+
+        RegressionDataSet weighted = Bagging.getWeightSampledDataSet(orig, counts);
+        assertEquals(2.0, weighted.getDataPoint(0).getWeight(), 0.0);
+        assertEquals(1.0, orig.getDataPoint(0).getWeight(), 0.0);
+        assertEquals(orig.getTargetValue(0), weighted.getTargetValue(0), 0.0);
+
+        //the twice shallow clone keeps the weights of the view
+        RegressionDataSet clone = weighted.getTwiceShallowClone();
+        clone.getDataPoint(0).setWeight(5.0);
+        assertEquals(2.0, weighted.getDataPoint(0).getWeight(), 0.0);
+        assertEquals(5.0, clone.getDataPoint(0).getWeight(), 0.0);
+
+        MultipleLinearRegression mlr = new MultipleLinearRegression();
+        mlr.train(weighted);
+        for(int i = 0; i < orig.getSampleSize(); i++)
+            assertEquals(orig.getTargetValue(i), mlr.regress(orig.getDataPoint(i)), 1e-6);
+    }
+}
@@ -0,0 +1,103 @@
+package jsat.regression;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.FixedProblems;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.regression.evaluation.MeanSquaredError;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class RegressionModelEvaluationTest
+{
+    static ExecutorService ex;
+
+    public RegressionModelEvaluationTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        ex.shutdownNow();
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    @Test
+    public void testEvaluateCrossValidation_ExecutorService()
+    {
+        System.out.println("evaluateCrossValidation ExecutorService");
+        RegressionDataSet train = FixedProblems.getLinearRegression(1000, new Random(1));
+        List<RegressionDataSet> folds = train.cvSet(5, new Random(2));
+
+        RegressionModelEvaluation expected = new RegressionModelEvaluation(new MultipleLinearRegression(), train);
+        expected.addScorer(new MeanSquaredError());
+        expected.evaluateCrossValidation(folds);
+        assertEquals(expected.getMeanError(), expected.getScoreStats(new MeanSquaredError()).getMean(), 1e-6);
+
+        for(boolean parallelFolds : new boolean[]{false, true})
+        {
+            RegressionModelEvaluation rme = new RegressionModelEvaluation(new MultipleLinearRegression(), train, ex);
+            rme.setParallelFolds(parallelFolds);
+            rme.setKeepModels(true);
+            rme.addScorer(new MeanSquaredError());
+            rme.evaluateCrossValidation(folds);
+
+            assertEquals(expected.getMeanError(), rme.getMeanError(), 1e-6);
+            assertEquals(expected.getScoreStats(new MeanSquaredError()).getMean(), rme.getScoreStats(new MeanSquaredError()).getMean(), 1e-6);
+            assertEquals(5, rme.getScoreStats(new MeanSquaredError()).getSumOfWeights(), 0.0);
+            assertEquals(5, rme.getKeptModels().length);
+            for(Regressor model : rme.getKeptModels())
+                assertNotNull(model);
+        }
+    }
+
+    @Test
+    public void testEvaluateCrossValidation_OriginalModel()
+    {
+        System.out.println("evaluateCrossValidation original model");
+        RegressionDataSet train = FixedProblems.getLinearRegression(1000, new Random(1));
+        List<RegressionDataSet> folds = train.cvSet(5, new Random(2));
+
+        //the original is left without the last fold, as when run serially
+        for(ExecutorService threadPool : new ExecutorService[]{null, ex})
+            for(boolean parallelFolds : new boolean[]{false, true})
+            {
+                RegressionModelEvaluation rme = new RegressionModelEvaluation(new DecisionTree(), train, threadPool);
+                rme.setParallelFolds(parallelFolds);
+                rme.setKeepModels(true);
+                rme.evaluateCrossValidation(folds);
+
+                Regressor expected = rme.getKeptModels()[folds.size()-1];
+                Regressor original = rme.getRegressor();
+                for(int i = 0; i < train.getSampleSize(); i++)
+                    assertEquals(expected.regress(train.getDataPoint(i)), original.regress(train.getDataPoint(i)), 1e-10);
+            }
+    }
+}
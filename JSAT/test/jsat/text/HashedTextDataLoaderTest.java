@@ -0,0 +1,101 @@
+package jsat.text;
+
+import java.util.Arrays;
+import java.util.List;
+import jsat.DataSet;
+import jsat.linear.Vec;
+import jsat.text.tokenizer.NaiveTokenizer;
+import jsat.text.tokenizer.StemmingTokenizer;
+import jsat.text.tokenizer.Tokenizer;
+import jsat.text.stemming.VoidStemmer;
+import jsat.text.wordweighting.WordCount;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class HashedTextDataLoaderTest
+{
+    private static final List<String> documents = Arrays.asList(
+            "the dog barked at the other dog", 
+            "a cat sat", 
+            "", 
+            "The Dog and the CAT");
+    
+    public HashedTextDataLoaderTest()
+    {
+    }
+    
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+    
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+    
+    @Before
+    public void setUp()
+    {
+    }
+    
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of getDataSet method, of class HashedTextDataLoader.
+     */
+    @Test
+    public void testGetDataSet()
+    {
+        System.out.println("getDataSet");
+        //the stemming tokenizer can not hash in place, so the String tokens are hashed
+        Tokenizer[] tokenizers = new Tokenizer[]
+        {
+            new NaiveTokenizer(), new StemmingTokenizer(new VoidStemmer(), new NaiveTokenizer())
+        };
+        DataSet[] results = new DataSet[tokenizers.length];
+        for(int t = 0; t < tokenizers.length; t++)
+        {
+            ListLoader loader = new ListLoader(tokenizers[t]);
+            DataSet data = results[t] = loader.getDataSet();
+            assertEquals(documents.size(), data.getSampleSize());
+            
+            Vec first = data.getDataPoint(0).getNumericalValues();
+            assertEquals(7.0, first.sum(), 0.0);
+            assertEquals(2.0, first.max(), 0.0);//"the" and "dog", unless there is a collision
+            assertEquals(0, data.getDataPoint(2).getNumericalValues().nnz());
+            
+            for(int i = 0; i < documents.size(); i++)
+                assertEquals(loader.newText(documents.get(i)), data.getDataPoint(i).getNumericalValues());
+        }
+        
+        for(int i = 0; i < documents.size(); i++)
+            assertEquals(results[0].getDataPoint(i).getNumericalValues(), results[1].getDataPoint(i).getNumericalValues());
+    }
+    
+    private static class ListLoader extends HashedTextDataLoader
+    {
+        public ListLoader(Tokenizer tokenizer)
+        {
+            super(1 << 10, tokenizer, new WordCount());
+        }
+
+        @Override
+        protected void initialLoad()
+        {
+            for(String doc : documents)
+                addOriginalDocument(doc);
+        }
+    }
+}
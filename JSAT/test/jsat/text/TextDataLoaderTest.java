@@ -0,0 +1,188 @@
+package jsat.text;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.DataSet;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.text.tokenizer.NaiveTokenizer;
+import jsat.text.wordweighting.TfIdf;
+import jsat.utils.SystemInfo;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class TextDataLoaderTest
+{
+    private static List<String> documents;
+    private static int[] labels;
+
+    public TextDataLoaderTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        Random rand = new Random(13);
+        documents = new ArrayList<String>();
+        labels = new int[2000];
+        for(int i = 0; i < labels.length; i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int words = rand.nextInt(60);
+            for(int j = 0; j < words; j++)
+            {
+                //skewed so that some words are common and most are rare
+                int word = (int) Math.pow(rand.nextDouble(), 3)*5000;
+                sb.append("w").append(word).append(' ');
+            }
+            documents.add(sb.toString());
+            labels[i] = rand.nextInt(3);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of addOriginalDocument method, of class TextDataLoader.
+     */
+    @Test
+    public void testAddOriginalDocument_FirstOccurrence()
+    {
+        System.out.println("addOriginalDocument");
+        for(ExecutorService threadpool : new ExecutorService[]{null, Executors.newFixedThreadPool(SystemInfo.LogicalCores)})
+        {
+            TextDataLoader loader = new ListLoader(Arrays.asList("b a b", "", "c a d"));
+            DataSet data = loader.getDataSet(threadpool);
+
+            assertEquals(3, data.getSampleSize());
+            assertEquals("b", loader.getWordForIndex(0));
+            assertEquals("a", loader.getWordForIndex(1));
+            assertEquals("c", loader.getWordForIndex(2));
+            assertEquals("d", loader.getWordForIndex(3));
+            assertNull(loader.getWordForIndex(4));
+            assertEquals(2, loader.getTermFrequency(1));
+            assertEquals(0, data.getDataPoint(1).getNumericalValues().nnz());
+
+            if(threadpool != null)
+                threadpool.shutdownNow();
+        }
+    }
+
+    /**
+     * Test of getDataSet method, of class TextDataLoader.
+     */
+    @Test
+    public void testGetDataSet_ExecutorService()
+    {
+        System.out.println("getDataSet");
+        ExecutorService threadpool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+
+        TextDataLoader serialLoader = new ListLoader(documents);
+        TextDataLoader parallelLoader = new ListLoader(documents);
+        DataSet serial = serialLoader.getDataSet();
+        DataSet parallel = parallelLoader.getDataSet(threadpool);
+
+        assertEquals(serial.getSampleSize(), parallel.getSampleSize());
+        assertEquals(serial.getNumNumericalVars(), parallel.getNumNumericalVars());
+        for(int i = 0; i < serial.getSampleSize(); i++)
+            assertEquals(serial.getDataPoint(i).getNumericalValues(), parallel.getDataPoint(i).getNumericalValues());
+        for(int i = 0; i < serial.getNumNumericalVars(); i++)
+        {
+            assertEquals(serialLoader.getWordForIndex(i), parallelLoader.getWordForIndex(i));
+            assertEquals(serialLoader.getTermFrequency(i), parallelLoader.getTermFrequency(i));
+        }
+        assertEquals(serialLoader.newText(documents.get(7)), parallelLoader.newText(documents.get(7)));
+
+        threadpool.shutdownNow();
+    }
+
+    /**
+     * Test of getDataSet method, of class ClassificationTextDataLoader.
+     */
+    @Test
+    public void testGetDataSet_Classification_ExecutorService()
+    {
+        System.out.println("getDataSet");
+        ExecutorService threadpool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+
+        ClassificationDataSet serial = new LabeledListLoader(documents, labels).getDataSet();
+        ClassificationDataSet parallel = new LabeledListLoader(documents, labels).getDataSet(threadpool);
+
+        assertEquals(serial.getSampleSize(), parallel.getSampleSize());
+        for(int i = 0; i < serial.getSampleSize(); i++)
+        {
+            assertEquals(labels[i], parallel.getDataPointCategory(i));
+            assertEquals(serial.getDataPointCategory(i), parallel.getDataPointCategory(i));
+            assertEquals(serial.getDataPoint(i).getNumericalValues(), parallel.getDataPoint(i).getNumericalValues());
+        }
+
+        threadpool.shutdownNow();
+    }
+
+    private static class ListLoader extends TextDataLoader
+    {
+        private List<String> texts;
+
+        public ListLoader(List<String> texts)
+        {
+            super(new NaiveTokenizer(), new TfIdf());
+            this.texts = texts;
+        }
+
+        @Override
+        public void initialLoad()
+        {
+            for(String text : texts)
+                addOriginalDocument(text);
+        }
+    }
+
+    private static class LabeledListLoader extends ClassificationTextDataLoader
+    {
+        private List<String> texts;
+        private int[] labels;
+
+        public LabeledListLoader(List<String> texts, int[] labels)
+        {
+            super(new NaiveTokenizer(), new TfIdf());
+            this.texts = texts;
+            this.labels = labels;
+        }
+
+        @Override
+        protected void setLabelInfo()
+        {
+            labelInfo = new CategoricalData(3);
+        }
+
+        @Override
+        public void initialLoad()
+        {
+            for(int i = 0; i < texts.size(); i++)
+                addOriginalDocument(texts.get(i), labels[i]);
+        }
+    }
+}
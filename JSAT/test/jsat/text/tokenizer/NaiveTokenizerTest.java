@@ -0,0 +1,95 @@
+package jsat.text.tokenizer;
+
+import java.util.List;
+import jsat.utils.IntList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class NaiveTokenizerTest
+{
+    private static final String input = "The QUICK brown-fox, jumped over 2 lazy dogs!\n\tÀgain  a1b2 x";
+    
+    public NaiveTokenizerTest()
+    {
+    }
+    
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+    
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+    
+    @Before
+    public void setUp()
+    {
+    }
+    
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of hashTokens method, of class NaiveTokenizer.
+     */
+    @Test
+    public void testHashTokens()
+    {
+        System.out.println("hashTokens");
+        for(boolean lowerCase : new boolean[]{true, false})
+            for(boolean otherToWhiteSpace : new boolean[]{true, false})
+                for(boolean noDigits : new boolean[]{true, false})
+                    for(int minLength = 0; minLength < 3; minLength++)
+                    {
+                        NaiveTokenizer instance = new NaiveTokenizer(lowerCase);
+                        instance.setOtherToWhiteSpace(otherToWhiteSpace);
+                        instance.setNoDigits(noDigits);
+                        instance.setMinTokenLength(minLength);
+                        instance.setMaxTokenLength(5);
+                        
+                        List<String> tokens = instance.tokenize(input);
+                        IntList hashes = new IntList();
+                        instance.hashTokens(input, hashes);
+                        
+                        assertEquals(tokens.size(), hashes.size());
+                        for(int i = 0; i < tokens.size(); i++)
+                            assertEquals(TokenHash.hash(tokens.get(i)), hashes.getI(i));
+                    }
+    }
+    
+    /**
+     * Test of hash method, of class TokenHash.
+     */
+    @Test
+    public void testTokenHash()
+    {
+        System.out.println("hash");
+        String text = "xxabcdefgxx";
+        for(int end = 2; end <= 9; end++)
+        {
+            String token = text.substring(2, end);
+            int h1 = 0;
+            for(int i = 1; i < token.length(); i += 2)
+                h1 = TokenHash.mix(h1, token.charAt(i-1), token.charAt(i));
+            char last = token.length() % 2 == 1 ? token.charAt(token.length()-1) : 0;
+            
+            assertEquals(TokenHash.hash(token), TokenHash.hash(text, 2, end));
+            assertEquals(TokenHash.hash(token), TokenHash.finish(h1, last, token.length()));
+            assertEquals(TokenHash.hash(token), TokenHash.hash(new StringBuilder(token)));
+        }
+        assertTrue(TokenHash.hash("ab") != TokenHash.hash("ba"));
+        assertTrue(TokenHash.hash("a") != TokenHash.hash("a\u0000"));
+    }
+}
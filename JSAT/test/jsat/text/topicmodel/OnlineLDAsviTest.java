@@ -9,6 +9,7 @@ import jsat.classifiers.CategoricalData;
 import jsat.classifiers.DataPoint;
 import jsat.distributions.multivariate.Dirichlet;
 import jsat.linear.*;
+import jsat.math.FastMath;
 import jsat.utils.SystemInfo;
 import jsat.utils.random.XORWOW;
 import org.junit.After;
@@ -203,4 +204,174 @@ public class OnlineLDAsviTest
         ex.shutdown();
     }
 
+    /**
+     * Checks each update against a direct computation of the 2010 paper's
+     * update over the full vocabulary, on a corpus small enough to do so.
+     * Words that are not in a mini-batch must only be shrunk, and
+     * {@link OnlineLDAsvi#getTopics(jsat.linear.Vec) } must use the updated
+     * topics.
+     */
+    @Test
+    public void testUpdate()
+    {
+        System.out.println("update");
+        ExecutorService ex = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        final int K = 3, W = 30, D = 60;
+        final double alpha = 2, eta = 0.1, tau0 = 4, kappa = 0.7;
+        Random rand = new Random(13);
+        //the last 10 words are never used, so every batch leaves them out
+        List<Vec> docs = new ArrayList<Vec>();
+        for(int d = 0; d < D; d++)
+        {
+            Vec doc = new SparseVector(W);
+            int topic = d % K;
+            for(int i = 0; i < 40; i++)
+                doc.increment(rand.nextDouble() < 0.2 ? rand.nextInt(20) : topic*7+rand.nextInt(6), 1.0);
+            docs.add(doc);
+        }
+
+        OnlineLDAsvi lda = new OnlineLDAsvi(K, D, W);
+        lda.setAlpha(alpha);
+        lda.setEta(eta);
+        lda.setTau0(tau0);
+        lda.setKappa(kappa);
+        //the first update creates lambda, so it can't be checked
+        lda.update(docs.subList(0, 20));
+
+        for(int t = 1; t < 3; t++)
+        {
+            List<Vec> batch = docs.subList(t*20, t*20+20);
+            double[][] lambda = getLambda(lda, K, W);
+            double[][] expected = referenceUpdate(lambda, batch, alpha, eta, Math.pow(tau0+t, -kappa), D);
+            if(t == 1)
+                lda.update(batch);
+            else
+                lda.update(batch, ex);
+            double[][] lambdaNew = getLambda(lda, K, W);
+            for(int k = 0; k < K; k++)
+                for(int w = 0; w < W; w++)
+                    if(w < 20)
+                        assertEquals(expected[k][w], lambdaNew[k][w], 5e-3*expected[k][w]);
+                    else//unused words are only shrunk
+                        assertEquals(expected[k][w], lambdaNew[k][w], 1e-12*expected[k][w]);
+        }
+
+        double[][] lambda = getLambda(lda, K, W);
+        double[][] expELogBeta = expELogBeta(lambda, eta);
+        for(Vec doc : docs.subList(0, 6))
+        {
+            double[] gamma = referenceGamma(doc, expELogBeta, alpha, null);
+            double gammaSum = 0;
+            for(double g : gamma)
+                gammaSum += g;
+            Vec topics = lda.getTopics(doc);
+            assertEquals(K, topics.length());
+            assertEquals(1.0, topics.sum(), 1e-10);
+            for(int k = 0; k < K; k++)
+                assertEquals(gamma[k]/gammaSum, topics.get(k), 5e-3);
+        }
+
+        ex.shutdown();
+    }
+
+    private static double[][] getLambda(OnlineLDAsvi lda, int K, int W)
+    {
+        double[][] lambda = new double[K][W];
+        for(int k = 0; k < K; k++)
+        {
+            Vec lambda_k = ((ScaledVector) lda.getTopicVec(k)).getBase();
+            for(int w = 0; w < W; w++)
+                lambda[k][w] = lambda_k.get(w);
+        }
+        return lambda;
+    }
+
+    private static double[][] expELogBeta(double[][] lambda, double eta)
+    {
+        int K = lambda.length, W = lambda[0].length;
+        double[][] expELogBeta = new double[K][W];
+        for(int k = 0; k < K; k++)
+        {
+            double sum = 0;
+            for(int w = 0; w < W; w++)
+                sum += lambda[k][w];
+            double psiSum = FastMath.digamma(W*eta+sum);
+            for(int w = 0; w < W; w++)
+                expELogBeta[k][w] = FastMath.exp(FastMath.digamma(eta+lambda[k][w])-psiSum);
+        }
+        return expELogBeta;
+    }
+
+    /**
+     * Runs the E step for one document to convergence, starting from
+     * &gamma; = 1, and adds its sufficient statistics to {@code sstats} if it
+     * is not {@code null}
+     */
+    private static double[] referenceGamma(Vec doc, double[][] expELogBeta, double alpha, double[][] sstats)
+    {
+        int K = expELogBeta.length;
+        double[] gamma = new double[K];
+        double[] expELogTheta = new double[K];
+        Arrays.fill(gamma, 1.0);
+        for(int iter = 0; iter < 10000; iter++)
+        {
+            double gammaSum = 0;
+            for(double g : gamma)
+                gammaSum += g;
+            for(int k = 0; k < K; k++)
+                expELogTheta[k] = FastMath.exp(FastMath.digamma(gamma[k])-FastMath.digamma(gammaSum));
+            double[] newGamma = new double[K];
+            Arrays.fill(newGamma, alpha);
+            for(IndexValue iv : doc)
+            {
+                double norm = 0;
+                for(int k = 0; k < K; k++)
+                    norm += expELogTheta[k]*expELogBeta[k][iv.getIndex()];
+                for(int k = 0; k < K; k++)
+                    newGamma[k] += iv.getValue()*expELogTheta[k]*expELogBeta[k][iv.getIndex()]/norm;
+            }
+            double change = 0;
+            for(int k = 0; k < K; k++)
+                change = Math.max(change, Math.abs(newGamma[k]-gamma[k]));
+            gamma = newGamma;
+            if(change < 1e-12)
+                break;
+        }
+
+        if(sstats != null)
+        {
+            double gammaSum = 0;
+            for(double g : gamma)
+                gammaSum += g;
+            for(int k = 0; k < K; k++)
+                expELogTheta[k] = FastMath.exp(FastMath.digamma(gamma[k])-FastMath.digamma(gammaSum));
+            for(IndexValue iv : doc)
+            {
+                double norm = 0;
+                for(int k = 0; k < K; k++)
+                    norm += expELogTheta[k]*expELogBeta[k][iv.getIndex()];
+                for(int k = 0; k < K; k++)
+                    sstats[k][iv.getIndex()] += iv.getValue()*expELogTheta[k]*expELogBeta[k][iv.getIndex()]/norm;
+            }
+        }
+        return gamma;
+    }
+
+    /**
+     * The update of the 2010 paper, done over every word of the vocabulary
+     */
+    private static double[][] referenceUpdate(double[][] lambda, List<Vec> batch, double alpha, double eta, double rho, int D)
+    {
+        int K = lambda.length, W = lambda[0].length;
+        double[][] expELogBeta = expELogBeta(lambda, eta);
+        double[][] sstats = new double[K][W];
+        for(Vec doc : batch)
+            referenceGamma(doc, expELogBeta, alpha, sstats);
+        double[][] lambdaNew = new double[K][W];
+        for(int k = 0; k < K; k++)
+            for(int w = 0; w < W; w++)
+                lambdaNew[k][w] = (1-rho)*lambda[k][w] + rho*D/batch.size()*sstats[k][w];
+        return lambdaNew;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package jsat.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Edward Raff
+ */
+public class DoubleListTest
+{
+
+    public DoubleListTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+    }
+
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of addAll method, of class DoubleList.
+     */
+    @Test
+    public void testAddAll()
+    {
+        System.out.println("addAll");
+        DoubleList instance = new DoubleList(2);
+        instance.add(1.0);
+
+        DoubleList other = new DoubleList();
+        for(int i = 0; i < 20; i++)
+            other.add(i*2.0);
+
+        assertTrue(instance.addAll(other));
+        assertTrue(instance.addAll(Arrays.asList(-1.0, -2.0)));
+        assertFalse(instance.addAll(new DoubleList()));
+
+        assertEquals(23, instance.size());
+        assertEquals(1.0, instance.getD(0), 0.0);
+        for(int i = 0; i < 20; i++)
+            assertEquals(i*2.0, instance.getD(i+1), 0.0);
+        assertEquals(-1.0, instance.getD(21), 0.0);
+        assertEquals(-2.0, instance.getD(22), 0.0);
+    }
+
+    /**
+     * Test of the static getD method, of class DoubleList.
+     */
+    @Test
+    public void testGetD_List()
+    {
+        System.out.println("getD");
+        double[] array = new double[]{1.0, 2.0, 3.0};
+
+        List<Double> list = new ArrayList<Double>(Arrays.asList(1.0, 2.0, 3.0));
+        List<Double> view = DoubleList.view(array, 3);
+        List<Double> unmodifiable = DoubleList.unmodifiableView(array, 3);
+        for(int i = 0; i < 3; i++)
+        {
+            assertEquals(array[i], DoubleList.getD(list, i), 0.0);
+            assertEquals(array[i], DoubleList.getD(view, i), 0.0);
+            assertEquals(array[i], DoubleList.getD(unmodifiable, i), 0.0);
+        }
+    }
+
+    /**
+     * Test that the bulk and backing array methods of the unmodifiable view
+     * can not be used to alter it.
+     */
+    @Test
+    public void testUnmodifiableViewBulk()
+    {
+        System.out.println("unmodifiableView bulk");
+        double[] array = new double[]{1.0, 2.0, 3.0, 0.0, 0.0};
+        DoubleList instance = (DoubleList) DoubleList.unmodifiableView(array, 3);
+        DoubleList other = new DoubleList();
+        other.add(7.0);
+        other.add(8.0);
+
+        try
+        {
+            instance.addAll(other);
+            fail("Should not be able to add to the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+        assertEquals(3, instance.size());
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0, 0.0, 0.0}, array, 0.0);
+
+        try
+        {
+            instance.getBackingArray();
+            fail("Should not be able to get the backing array of the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+
+        try
+        {
+            instance.getVecView();
+            fail("Should not be able to get a mutable vector of the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+    }
+
+    /**
+     * Test of unmodifiableView method, of class DoubleList.
+     */
+    @Test
+    public void testUnmodifiableView()
+    {
+        System.out.println("unmodifiableView");
+        double[] array = new double[]{1.0, 2.0, 3.0, 4.0};
+        List<Double> instance = DoubleList.unmodifiableView(array, 3);
+
+        assertEquals(3, instance.size());
+        assertEquals(3.0, instance.get(2), 0.0);
+
+        //changes to the array show through
+        array[1] = 5.0;
+        assertEquals(5.0, instance.get(1), 0.0);
+
+        try
+        {
+            instance.add(1.0);
+            fail("Should not be able to add to the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+
+        try
+        {
+            instance.set(0, 1.0);
+            fail("Should not be able to set values in the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+
+        try
+        {
+            instance.remove(0);
+            fail("Should not be able to remove from the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+
+        try
+        {
+            instance.clear();
+            fail("Should not be able to clear the view");
+        }
+        catch(UnsupportedOperationException ex)
+        {
+
+        }
+
+        assertEquals(3, instance.size());
+    }
+}
@@ -0,0 +1,122 @@
+package jsat.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jsat.classifiers.CategoricalData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import jsat.regression.RegressionDataSet;
+
+/**
+ * Generates the synthetic data used by the benchmarks. All methods take the
+ * source of randomness as an argument, so that benchmarks can use a fixed
+ * seed and every run sees the same data.
+ *
+ * @author Edward Raff
+ */
+public class BenchmarkData
+{
+    private BenchmarkData()
+    {
+    }
+
+    /**
+     * Creates a dense vector with values drawn from the standard normal
+     * distribution
+     * @param d the length of the vector
+     * @param rand the source of randomness
+     * @return a random dense vector
+     */
+    public static DenseVector denseVector(int d, Random rand)
+    {
+        DenseVector v = new DenseVector(d);
+        for(int i = 0; i < d; i++)
+            v.set(i, rand.nextGaussian());
+        return v;
+    }
+
+    /**
+     * Creates a sparse vector with the given number of non zero values at
+     * random indices, with values drawn from the standard normal distribution
+     * @param d the length of the vector
+     * @param nnz the number of non zero values
+     * @param rand the source of randomness
+     * @return a random sparse vector
+     */
+    public static SparseVector sparseVector(int d, int nnz, Random rand)
+    {
+        nnz = Math.min(nnz, d);
+        SparseVector v = new SparseVector(d, nnz);
+        while(v.nnz() < nnz)
+            v.set(rand.nextInt(d), rand.nextGaussian());
+        return v;
+    }
+
+    /**
+     * Creates a list of random dense vectors
+     * @param n the number of vectors
+     * @param d the length of each vector
+     * @param rand the source of randomness
+     * @return a list of random dense vectors
+     */
+    public static List<Vec> denseVectors(int n, int d, Random rand)
+    {
+        List<Vec> vecs = new ArrayList<Vec>(n);
+        for(int i = 0; i < n; i++)
+            vecs.add(denseVector(d, rand));
+        return vecs;
+    }
+
+    /**
+     * Creates a classification problem with <tt>k</tt> classes, where the
+     * points of each class are drawn from a unit normal centered at a random
+     * mean. The classes overlap, so the problem is not trivially separable.
+     *
+     * @param n the number of data points
+     * @param d the number of numeric features
+     * @param k the number of classes
+     * @param rand the source of randomness
+     * @return a synthetic classification data set
+     */
+    public static ClassificationDataSet classification(int n, int d, int k, Random rand)
+    {
+        Vec[] means = new Vec[k];
+        for(int c = 0; c < k; c++)
+        {
+            means[c] = denseVector(d, rand);
+            means[c].mutableMultiply(1.5);
+        }
+        ClassificationDataSet cds = new ClassificationDataSet(d, new CategoricalData[0], new CategoricalData(k));
+        for(int i = 0; i < n; i++)
+        {
+            int c = i % k;
+            Vec x = denseVector(d, rand);
+            x.mutableAdd(means[c]);
+            cds.addDataPoint(x, new int[0], c);
+        }
+        return cds;
+    }
+
+    /**
+     * Creates a linear regression problem with Gaussian noise
+     * @param n the number of data points
+     * @param d the number of numeric features
+     * @param rand the source of randomness
+     * @return a synthetic regression data set
+     */
+    public static RegressionDataSet regression(int n, int d, Random rand)
+    {
+        Vec w = denseVector(d, rand);
+        RegressionDataSet rds = new RegressionDataSet(d, new CategoricalData[0]);
+        for(int i = 0; i < n; i++)
+        {
+            Vec x = denseVector(d, rand);
+            rds.addDataPoint(new DataPoint(x, new int[0], new CategoricalData[0]), x.dot(w) + rand.nextGaussian()*0.1);
+        }
+        return rds;
+    }
+}
@@ -0,0 +1,100 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.BatchPrediction;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.Classifier;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.MultinomialLogisticRegression;
+import jsat.classifiers.bayesian.NaiveBayes;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.lossfunctions.SoftmaxLoss;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares classifying a test set one data point at a time against
+ * {@link BatchPrediction}, both in the calling thread and with a thread pool.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BatchPredictionBenchmark
+{
+    /**
+     * The model to train and classify with
+     */
+    @Param({"LinearSGD", "MultinomialLogisticRegression", "NaiveBayes"})
+    public String model;
+    /**
+     * The number of numeric features
+     */
+    @Param({"100"})
+    public int d;
+    /**
+     * The number of classes. The linear models only use a matrix product for
+     * many classes.
+     */
+    @Param({"10", "100"})
+    public int classes;
+
+    private Classifier classifier;
+    private List<DataPoint> test;
+    private double[][] out;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        ClassificationDataSet train = BenchmarkData.classification(5000, d, classes, new Random(42));
+        if(model.equals("LinearSGD"))
+            classifier = new LinearSGD(new SoftmaxLoss(), 1e-4, 0.0);
+        else if(model.equals("MultinomialLogisticRegression"))
+            classifier = new MultinomialLogisticRegression();
+        else
+            classifier = new NaiveBayes();
+        classifier.trainC(train);
+        test = BenchmarkData.classification(10000, d, classes, new Random(7)).getDataPoints();
+        out = new double[test.size()][classes];
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public double classifyEach()
+    {
+        double sum = 0;
+        for(DataPoint dp : test)
+            sum += classifier.classify(dp).getProb(0);
+        return sum;
+    }
+
+    @Benchmark
+    public double[][] classifyBatch()
+    {
+        BatchPrediction.classify(classifier, test, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[][] classifyBatchParallel()
+    {
+        BatchPrediction.classify(classifier, test, out, threadPool);
+        return out;
+    }
+}
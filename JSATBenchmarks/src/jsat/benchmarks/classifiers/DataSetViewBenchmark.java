@@ -0,0 +1,125 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.boosting.Bagging;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks creating cross validation folds, bootstrap samples and twice
+ * shallow clones, which return index views of the data set. Each operation is
+ * paired with a version that copies the data points the way these methods did
+ * before views were added. Run with {@code -prof gc} to compare the bytes
+ * allocated per operation, which is the main cost of the copies.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSetViewBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"100000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+    /**
+     * The number of cross validation folds
+     */
+    @Param({"10"})
+    public int folds;
+
+    private ClassificationDataSet data;
+    private int[] sampleCounts;
+    private Random rand;
+
+    @Setup
+    public void setup()
+    {
+        data = BenchmarkData.classification(n, d, 2, new Random(42));
+        rand = new Random(7);
+        sampleCounts = new int[n];
+        Bagging.sampleWithReplacement(sampleCounts, n, rand);
+    }
+
+    @Benchmark
+    public int cvFoldsView()
+    {
+        List<ClassificationDataSet> cv = data.cvSet(folds, rand);
+        int total = 0;
+        for(int k = 0; k < folds; k++)
+            total += ClassificationDataSet.comineAllBut(cv, k).getSampleSize();
+        return total;
+    }
+
+    @Benchmark
+    public int cvFoldsCopy()
+    {
+        ClassificationDataSet[] cv = new ClassificationDataSet[folds];
+        for(int k = 0; k < folds; k++)
+            cv[k] = new ClassificationDataSet(d, data.getCategories(), data.getPredicting());
+        for(int i = 0; i < n; i++)
+            cv[rand.nextInt(folds)].addDataPoint(data.getDataPoint(i), data.getDataPointCategory(i));
+        int total = 0;
+        for(int k = 0; k < folds; k++)
+        {
+            ClassificationDataSet train = new ClassificationDataSet(d, data.getCategories(), data.getPredicting());
+            for(int j = 0; j < folds; j++)
+                if(j != k)
+                    for(int i = 0; i < cv[j].getSampleSize(); i++)
+                        train.addDataPoint(cv[j].getDataPoint(i), cv[j].getDataPointCategory(i));
+            total += train.getSampleSize();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public ClassificationDataSet bootstrapView()
+    {
+        return Bagging.getWeightSampledDataSet(data, sampleCounts);
+    }
+
+    @Benchmark
+    public ClassificationDataSet bootstrapCopy()
+    {
+        ClassificationDataSet sample = new ClassificationDataSet(d, data.getCategories(), data.getPredicting());
+        for(int i = 0; i < n; i++)
+            if(sampleCounts[i] > 0)
+            {
+                DataPoint dp = data.getDataPoint(i);
+                sample.addDataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), data.getDataPointCategory(i), dp.getWeight()*sampleCounts[i]);
+            }
+        return sample;
+    }
+
+    @Benchmark
+    public ClassificationDataSet twiceShallowCloneView()
+    {
+        return data.getTwiceShallowClone();
+    }
+
+    @Benchmark
+    public ClassificationDataSet twiceShallowCloneCopy()
+    {
+        ClassificationDataSet clone = data.shallowClone();
+        for(int i = 0; i < n; i++)
+        {
+            DataPoint dp = data.getDataPoint(i);
+            clone.setDataPoint(i, new DataPoint(dp.getNumericalValues(), dp.getCategoricalValues(), dp.getCategoricalData(), dp.getWeight()));
+        }
+        return clone;
+    }
+}
@@ -0,0 +1,82 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks training a {@link DecisionTree} on a synthetic multi-class
+ * problem. Each invocation trains a new tree from scratch, either searching
+ * the exact values for splits or using histogram bins.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DecisionTreeBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"10000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+    /**
+     * The number of classes
+     */
+    @Param({"4"})
+    public int classes;
+    /**
+     * The number of histogram bins for numeric features, 0 for exact splits
+     */
+    @Param({"0", "256"})
+    public int bins;
+
+    private ClassificationDataSet data;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        data = BenchmarkData.classification(n, d, classes, new Random(42));
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public DecisionTree trainC()
+    {
+        DecisionTree tree = new DecisionTree();
+        tree.setHistogramBins(bins);
+        tree.trainC(data);
+        return tree;
+    }
+
+    @Benchmark
+    public DecisionTree trainCThreaded()
+    {
+        DecisionTree tree = new DecisionTree();
+        tree.setHistogramBins(bins);
+        tree.trainC(data, threadPool);
+        return tree;
+    }
+}
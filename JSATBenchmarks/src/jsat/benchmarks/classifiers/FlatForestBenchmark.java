@@ -0,0 +1,129 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.CategoricalResults;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.Classifier;
+import jsat.classifiers.DataPoint;
+import jsat.classifiers.trees.DecisionTree;
+import jsat.classifiers.trees.ERTrees;
+import jsat.classifiers.trees.FlatForest;
+import jsat.classifiers.trees.RandomForest;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the latency of classifying one data point with a trained tree
+ * model against its {@link FlatForest}. The single row benchmarks are run in
+ * sample time mode, so that JMH reports the p99 latency along with the mean.
+ * The batch benchmarks classify every data point in the test set at once.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FlatForestBenchmark
+{
+    /**
+     * The model to train and flatten
+     */
+    @Param({"DecisionTree", "RandomForest", "ERTrees"})
+    public String model;
+    /**
+     * The number of trees in the ensembles
+     */
+    @Param({"100"})
+    public int trees;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+    /**
+     * The number of classes
+     */
+    @Param({"4"})
+    public int classes;
+
+    private Classifier original;
+    private FlatForest flat;
+    private List<DataPoint> test;
+    private double[][] out;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        ClassificationDataSet train = BenchmarkData.classification(10000, d, classes, new Random(42));
+        if(model.equals("DecisionTree"))
+        {
+            DecisionTree tree = new DecisionTree();
+            tree.trainC(train);
+            flat = tree.flatten();
+            original = tree;
+        }
+        else if(model.equals("RandomForest"))
+        {
+            RandomForest forest = new RandomForest(trees);
+            forest.trainC(train);
+            flat = forest.flatten();
+            original = forest;
+        }
+        else
+        {
+            ERTrees forest = new ERTrees();
+            forest.setForrestSize(trees);
+            forest.trainC(train);
+            flat = forest.flatten();
+            original = forest;
+        }
+        test = BenchmarkData.classification(4096, d, classes, new Random(7)).getDataPoints();
+        out = new double[test.size()][classes];
+        next = 0;
+    }
+
+    private DataPoint nextRow()
+    {
+        DataPoint dp = test.get(next);
+        next = (next+1) % test.size();
+        return dp;
+    }
+
+    @Benchmark
+    public CategoricalResults classifyOriginal()
+    {
+        return original.classify(nextRow());
+    }
+
+    @Benchmark
+    public CategoricalResults classifyFlat()
+    {
+        return flat.classify(nextRow());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public double classifyBatchOriginal()
+    {
+        double sum = 0;
+        for(DataPoint dp : test)
+            sum += original.classify(dp).getProb(0);
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public double[][] classifyBatchFlat()
+    {
+        flat.classify(test, out);
+        return out;
+    }
+}
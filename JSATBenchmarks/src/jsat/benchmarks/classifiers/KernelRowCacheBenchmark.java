@@ -0,0 +1,109 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.svm.KernelRowCache;
+import jsat.distributions.kernels.RBFKernel;
+import jsat.linear.Vec;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the {@link KernelRowCache} on a 100k sample RBF problem, with
+ * several threads sharing one cache. Each invocation picks a row the way a
+ * decomposition solver picks its working set, mostly from a small set of
+ * active points, and evaluates a block of that row. The hit rate of the cache
+ * is printed at the end of each iteration, so it can be compared across
+ * budgets and precisions next to the throughput.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class KernelRowCacheBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"100000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+    /**
+     * The cache budget in megabytes
+     */
+    @Param({"64", "512"})
+    public int cacheMB;
+    /**
+     * Whether the cache stores floats instead of doubles
+     */
+    @Param({"false", "true"})
+    public boolean floatStorage;
+    /**
+     * The number of values read from a row per invocation
+     */
+    private static final int BLOCK = 1024;
+
+    private List<Vec> vecs;
+    private KernelRowCache cache;
+
+    @Setup(Level.Trial)
+    public void setupData()
+    {
+        vecs = BenchmarkData.denseVectors(n, d, new Random(42));
+    }
+
+    @Setup(Level.Iteration)
+    public void setupCache()
+    {
+        final RBFKernel kernel = new RBFKernel(Math.sqrt(d));
+        final List<Double> accel = kernel.getAccelerationCache(vecs);
+        cache = new KernelRowCache(n, cacheMB*1024L*1024L, floatStorage)
+        {
+            @Override
+            protected double eval(int a, int b)
+            {
+                return kernel.eval(a, b, vecs, accel);
+            }
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportHitRate()
+    {
+        long hits = cache.getHits();
+        long total = hits+cache.getMisses();
+        System.out.printf("hit rate %.4f (%d of %d), %d evictions, %d rows%n", hits/(double)total, hits, total, cache.getEvictions(), cache.getMaxRows());
+    }
+
+    /**
+     * The per thread source of row and column choices
+     */
+    @State(Scope.Thread)
+    public static class Choices
+    {
+        Random rand = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public double rowBlock(Choices choices)
+    {
+        Random rand = choices.rand;
+        //90% of rows come from an active set of 1% of the data
+        int row = rand.nextDouble() < 0.9 ? rand.nextInt(n/100) : rand.nextInt(n);
+        int start = rand.nextInt(n-BLOCK);
+        double sum = 0;
+        for(int j = start; j < start+BLOCK; j++)
+            sum += cache.get(row, j);
+        return sum;
+    }
+}
@@ -0,0 +1,76 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.linear.LinearSGD;
+import jsat.lossfunctions.SquaredLoss;
+import jsat.regression.RegressionDataSet;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks a single epoch of {@link LinearSGD} updates over a synthetic
+ * classification or regression problem. The model is set up once per
+ * iteration and keeps learning across the invocations of that iteration, so
+ * each invocation measures one pass over the data.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinearSGDBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"10000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"100"})
+    public int d;
+
+    private ClassificationDataSet cData;
+    private RegressionDataSet rData;
+    private LinearSGD classifier;
+    private LinearSGD regressor;
+
+    @Setup(Level.Trial)
+    public void setupData()
+    {
+        Random rand = new Random(42);
+        cData = BenchmarkData.classification(n, d, 2, rand);
+        rData = BenchmarkData.regression(n, d, rand);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupModels()
+    {
+        classifier = new LinearSGD();
+        classifier.setUp(cData.getCategories(), d, cData.getPredicting());
+        regressor = new LinearSGD(new SquaredLoss(), 1e-4, 0.0);
+        regressor.setUp(rData.getCategories(), d);
+    }
+
+    @Benchmark
+    public LinearSGD epochClassification()
+    {
+        for(int i = 0; i < cData.getSampleSize(); i++)
+            classifier.update(cData.getDataPoint(i), cData.getDataPointCategory(i));
+        return classifier;
+    }
+
+    @Benchmark
+    public LinearSGD epochRegression()
+    {
+        for(int i = 0; i < rData.getSampleSize(); i++)
+            regressor.update(rData.getDataPoint(i), rData.getTargetValue(i));
+        return regressor;
+    }
+}
@@ -0,0 +1,53 @@
+package jsat.benchmarks.classifiers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.classifiers.ClassificationDataSet;
+import jsat.classifiers.svm.PlatSMO;
+import jsat.distributions.kernels.RBFKernel;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks training a {@link PlatSMO} with an {@link RBFKernel} on a
+ * synthetic binary problem. No kernel cache is used, so almost all of the
+ * time is spent in kernel evaluations that read the kernel's acceleration
+ * cache.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PlatSMOBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"2000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+
+    private ClassificationDataSet data;
+
+    @Setup
+    public void setup()
+    {
+        data = BenchmarkData.classification(n, d, 2, new Random(42));
+    }
+
+    @Benchmark
+    public PlatSMO trainC()
+    {
+        PlatSMO smo = new PlatSMO(new RBFKernel(Math.sqrt(d)));
+        smo.trainC(data);
+        return smo;
+    }
+}
@@ -0,0 +1,71 @@
+package jsat.benchmarks.clustering;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.SimpleDataSet;
+import jsat.benchmarks.BenchmarkData;
+import jsat.clustering.DBSCAN;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link DBSCAN} with a fixed radius on low dimensional data, where
+ * the neighbors are found with the uniform grid, both in the calling thread
+ * and with a thread pool.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class DBSCANBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"1000000", "5000000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"2", "3"})
+    public int d;
+    /**
+     * The search radius
+     */
+    @Param({"0.02"})
+    public double eps;
+
+    private SimpleDataSet data;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        data = new SimpleDataSet(BenchmarkData.classification(n, d, 20, new Random(42)).getDataPoints());
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public int[] cluster()
+    {
+        return new DBSCAN().cluster(data, eps, 10, new int[n]);
+    }
+
+    @Benchmark
+    public int[] clusterParallel()
+    {
+        return new DBSCAN().cluster(data, eps, 10, threadPool, new int[n]);
+    }
+}
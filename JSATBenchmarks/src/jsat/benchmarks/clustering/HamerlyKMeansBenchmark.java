@@ -0,0 +1,59 @@
+package jsat.benchmarks.clustering;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.SimpleDataSet;
+import jsat.benchmarks.BenchmarkData;
+import jsat.clustering.SeedSelectionMethods;
+import jsat.clustering.kmeans.HamerlyKMeans;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link HamerlyKMeans#cluster(jsat.DataSet, int, int[]) } on data
+ * drawn from a mixture of Gaussians. The seeds are selected with a fixed
+ * random source so that every invocation does the same amount of work.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HamerlyKMeansBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"20000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"10"})
+    public int d;
+    /**
+     * The number of clusters to find
+     */
+    @Param({"10", "50"})
+    public int k;
+
+    private SimpleDataSet data;
+    private int[] designations;
+
+    @Setup
+    public void setup()
+    {
+        data = new SimpleDataSet(BenchmarkData.classification(n, d, k, new Random(42)).getDataPoints());
+        designations = new int[n];
+    }
+
+    @Benchmark
+    public int[] cluster()
+    {
+        HamerlyKMeans kmeans = new HamerlyKMeans(new EuclideanDistance(), SeedSelectionMethods.SeedSelection.KPP, new Random(7));
+        return kmeans.cluster(data, k, designations);
+    }
+}
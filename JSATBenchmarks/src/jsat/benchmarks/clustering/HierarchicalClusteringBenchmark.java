@@ -0,0 +1,100 @@
+package jsat.benchmarks.clustering;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.SimpleDataSet;
+import jsat.benchmarks.BenchmarkData;
+import jsat.clustering.KClusterer;
+import jsat.clustering.dissimilarity.SingleLinkDissimilarity;
+import jsat.clustering.dissimilarity.WardsDissimilarity;
+import jsat.clustering.hierarchical.NNChainHAC;
+import jsat.clustering.hierarchical.PriorityHAC;
+import jsat.clustering.hierarchical.SLINK;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks hierarchical agglomerative clustering with {@link PriorityHAC},
+ * which keeps a priority queue per point, against the nearest neighbor chain
+ * in {@link NNChainHAC} and single linkage with {@link SLINK}. PriorityHAC
+ * needs O(n<sup>2</sup>) objects, so it is only run at the smaller size.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class HierarchicalClusteringBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"2000", "20000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"10"})
+    public int d;
+
+    private SimpleDataSet data;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        data = new SimpleDataSet(BenchmarkData.classification(n, d, 10, new Random(42)).getDataPoints());
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    private int[] cluster(KClusterer clusterer)
+    {
+        return clusterer.cluster(data, 10, threadPool, new int[n]);
+    }
+
+    @Benchmark
+    public int[] priorityHACSingleLink()
+    {
+        if(n > 5000)
+            return null;
+        return cluster(new PriorityHAC(new SingleLinkDissimilarity(new EuclideanDistance())));
+    }
+
+    @Benchmark
+    public int[] nnChainSingleLink()
+    {
+        return cluster(new NNChainHAC(new SingleLinkDissimilarity(new EuclideanDistance())));
+    }
+
+    @Benchmark
+    public int[] slink()
+    {
+        return cluster(new SLINK(new EuclideanDistance()));
+    }
+
+    @Benchmark
+    public int[] priorityHACWard()
+    {
+        if(n > 5000)
+            return null;
+        return cluster(new PriorityHAC(new WardsDissimilarity()));
+    }
+
+    @Benchmark
+    public int[] nnChainWard()
+    {
+        return cluster(new NNChainHAC(new WardsDissimilarity()));
+    }
+}
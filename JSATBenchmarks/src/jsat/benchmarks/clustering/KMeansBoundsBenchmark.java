@@ -0,0 +1,94 @@
+package jsat.benchmarks.clustering;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.SimpleDataSet;
+import jsat.benchmarks.BenchmarkData;
+import jsat.clustering.SeedSelectionMethods;
+import jsat.clustering.kmeans.ElkanKMeans;
+import jsat.clustering.kmeans.ExponionKMeans;
+import jsat.clustering.kmeans.HamerlyKMeans;
+import jsat.clustering.kmeans.KMeans;
+import jsat.clustering.kmeans.YinyangKMeans;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the bound based k-means algorithms {@link HamerlyKMeans},
+ * {@link ElkanKMeans}, {@link YinyangKMeans} and {@link ExponionKMeans} as the
+ * number of clusters grows, with both the serial k-means++ seeding and the
+ * parallel k-means|| seeding. All algorithms find the same solution from the
+ * same seeds.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class KMeansBoundsBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"50000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"20"})
+    public int d;
+    /**
+     * The number of clusters to find
+     */
+    @Param({"100", "1000", "5000"})
+    public int k;
+    /**
+     * The k-means algorithm to run
+     */
+    @Param({"HAMERLY", "ELKAN", "YINYANG", "EXPONION"})
+    public String algorithm;
+    /**
+     * How the initial means are selected
+     */
+    @Param({"KPP", "KPP_PARALLEL"})
+    public SeedSelectionMethods.SeedSelection seedSelection;
+
+    private SimpleDataSet data;
+    private int[] designations;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        data = new SimpleDataSet(BenchmarkData.classification(n, d, 100, new Random(42)).getDataPoints());
+        designations = new int[n];
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public int[] cluster()
+    {
+        KMeans kmeans;
+        if (algorithm.equals("HAMERLY"))
+            kmeans = new HamerlyKMeans(new EuclideanDistance(), seedSelection, new Random(7));
+        else if (algorithm.equals("ELKAN"))
+            kmeans = new ElkanKMeans(new EuclideanDistance(), new Random(7), seedSelection);
+        else if (algorithm.equals("YINYANG"))
+            kmeans = new YinyangKMeans(new EuclideanDistance(), seedSelection, new Random(7));
+        else
+            kmeans = new ExponionKMeans(new EuclideanDistance(), seedSelection, new Random(7));
+        return kmeans.cluster(data, k, threadPool, designations);
+    }
+}
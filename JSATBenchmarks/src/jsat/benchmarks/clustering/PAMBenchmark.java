@@ -0,0 +1,76 @@
+package jsat.benchmarks.clustering;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.SimpleDataSet;
+import jsat.benchmarks.BenchmarkData;
+import jsat.clustering.PAM;
+import jsat.clustering.dissimilarity.CondensedDistanceMatrix;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks a {@link PAM} sweep over the number of clusters, computing the
+ * distances as they are needed against reusing one precomputed
+ * {@link CondensedDistanceMatrix}. The time to create the matrix is included.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PAMBenchmark
+{
+    /**
+     * The number of data points
+     */
+    @Param({"2000"})
+    public int n;
+    /**
+     * The number of numeric features
+     */
+    @Param({"10", "100"})
+    public int d;
+    /**
+     * Where the matrix is stored
+     */
+    @Param({"HEAP", "OFF_HEAP"})
+    public CondensedDistanceMatrix.Storage storage;
+
+    private SimpleDataSet data;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        data = new SimpleDataSet(BenchmarkData.classification(n, d, 10, new Random(42)).getDataPoints());
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public int[] sweep()
+    {
+        PAM pam = new PAM(new EuclideanDistance(), new Random(42));
+        return pam.cluster(data, 2, 12, threadPool, new int[n]);
+    }
+
+    @Benchmark
+    public int[] sweepWithMatrix()
+    {
+        PAM pam = new PAM(new EuclideanDistance(), new Random(42));
+        pam.setDistanceMatrix(CondensedDistanceMatrix.create(data, new EuclideanDistance(), false, storage, threadPool));
+        return pam.cluster(data, 2, 12, threadPool, new int[n]);
+    }
+}
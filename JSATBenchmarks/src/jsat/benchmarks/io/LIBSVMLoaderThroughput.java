@@ -0,0 +1,111 @@
+package jsat.benchmarks.io;
+
+import java.io.*;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jsat.DataSet;
+import jsat.io.LIBSVMLoader;
+import jsat.utils.SystemInfo;
+
+/**
+ * Measures the throughput of the LIBSVM loaders in MB/s and rows/s. A
+ * synthetic LIBSVM classification file of the requested size is generated if
+ * it does not already exist, and then loaded with the serial loader, the
+ * parallel loader, and the parallel loader that produces a single CSR block.
+ * <br><br>
+ * Usage: {@code LIBSVMLoaderThroughput [file] [sizeMB] [features] [nnzPerRow] [threads] [skipSerial]}
+ * <br>
+ * The defaults are a 1024 MB file in the temporary directory, 100,000
+ * features, 40 non zero values per row, one thread per logical core, and
+ * running the serial loader. The heap must be large enough to hold the loaded
+ * data set, roughly 2 to 3 times the size of the file.
+ *
+ * @author Edward Raff
+ */
+public class LIBSVMLoaderThroughput
+{
+    public static void main(String[] args) throws Exception
+    {
+        File file = args.length > 0 ? new File(args[0]) : new File(System.getProperty("java.io.tmpdir"), "jsat-libsvm-bench.txt");
+        long sizeMB = args.length > 1 ? Long.parseLong(args[1]) : 1024;
+        int features = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        int nnzPerRow = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : SystemInfo.LogicalCores;
+        boolean skipSerial = args.length > 5 && Boolean.parseBoolean(args[5]);
+
+        if(!file.exists() || file.length() < sizeMB*1024*1024)
+        {
+            System.out.println("Generating " + sizeMB + " MB file " + file);
+            generate(file, sizeMB*1024*1024, features, nnzPerRow, new Random(42));
+        }
+        double mb = file.length()/(1024.0*1024.0);
+        System.out.printf("File size: %.1f MB, threads: %d\n", mb, threads);
+
+        ExecutorService ex = Executors.newFixedThreadPool(threads);
+        try
+        {
+            if(!skipSerial)
+            {
+                long start = System.nanoTime();
+                DataSet data = LIBSVMLoader.loadC(file, 0.5);
+                report("serial loadC", mb, data.getSampleSize(), System.nanoTime()-start);
+                data = null;
+            }
+            for(int trial = 0; trial < 2; trial++)
+            {
+                System.gc();
+                long start = System.nanoTime();
+                DataSet data = LIBSVMLoader.loadC(file, 0.5, -1, ex);
+                report("parallel loadC", mb, data.getSampleSize(), System.nanoTime()-start);
+                data = null;
+
+                System.gc();
+                start = System.nanoTime();
+                data = LIBSVMLoader.loadCompactC(file, -1, ex);
+                report("parallel loadCompactC", mb, data.getSampleSize(), System.nanoTime()-start);
+                data = null;
+            }
+        }
+        finally
+        {
+            ex.shutdownNow();
+        }
+    }
+
+    private static void report(String name, double mb, int rows, long nanos)
+    {
+        double secs = nanos/1e9;
+        System.out.printf("%-24s %8.2f s %10.1f MB/s %12.0f rows/s\n", name, secs, mb/secs, rows/secs);
+    }
+
+    private static void generate(File file, long bytes, int features, int nnzPerRow, Random rand) throws IOException
+    {
+        Writer writer = new BufferedWriter(new FileWriter(file), 1 << 20);
+        try
+        {
+            long written = 0;
+            StringBuilder line = new StringBuilder();
+            while(written < bytes)
+            {
+                line.setLength(0);
+                line.append(rand.nextInt(2) == 0 ? "-1 " : "1 ");
+                int index = 0;
+                for(int j = 0; j < nnzPerRow && index < features; j++)
+                {
+                    index += 1 + rand.nextInt(Math.max(1, 2*features/nnzPerRow));
+                    if(index > features)
+                        break;
+                    line.append(index).append(':').append((float) rand.nextGaussian()).append(' ');
+                }
+                line.append('\n');
+                writer.append(line);
+                written += line.length();
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package jsat.benchmarks.linear;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.linear.DenseMatrix;
+import jsat.linear.Matrix;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link DenseMatrix#multiply(jsat.linear.Matrix, jsat.linear.Matrix) }
+ * and {@link DenseMatrix#transposeMultiply(jsat.linear.Matrix, jsat.linear.Matrix) }
+ * for square matrices, both serial and with a thread pool. The result matrix
+ * is reused so that the allocation rate reflects only the work done inside
+ * the multiplication. Use {@code -p size=4096} for the large products.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DenseMatrixBenchmark
+{
+    /**
+     * The number of rows and columns of the matrices
+     */
+    @Param({"64", "256", "512"})
+    public int size;
+
+    private DenseMatrix A;
+    private DenseMatrix B;
+    private DenseMatrix C;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        A = Matrix.random(size, size, rand);
+        B = Matrix.random(size, size, rand);
+        C = new DenseMatrix(size, size);
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public Matrix multiply()
+    {
+        C.zeroOut();
+        A.multiply(B, C);
+        return C;
+    }
+
+    @Benchmark
+    public Matrix multiplyThreaded()
+    {
+        C.zeroOut();
+        A.multiply(B, C, threadPool);
+        return C;
+    }
+
+    @Benchmark
+    public Matrix transposeMultiply()
+    {
+        C.zeroOut();
+        A.transposeMultiply(B, C);
+        return C;
+    }
+
+    @Benchmark
+    public Matrix transposeMultiplyThreaded()
+    {
+        C.zeroOut();
+        A.transposeMultiply(B, C, threadPool);
+        return C;
+    }
+
+    @Benchmark
+    public Matrix multiplyAllocating()
+    {
+        return A.multiply(B);
+    }
+}
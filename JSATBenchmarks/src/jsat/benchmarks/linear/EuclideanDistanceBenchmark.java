@@ -0,0 +1,70 @@
+package jsat.benchmarks.linear;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks computing the {@link EuclideanDistance} from a query to every
+ * vector in a collection, both directly and with the acceleration cache and
+ * query information that the vector collections use.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EuclideanDistanceBenchmark
+{
+    /**
+     * The number of vectors in the collection
+     */
+    @Param({"10000"})
+    public int n;
+    /**
+     * The length of each vector
+     */
+    @Param({"16", "256"})
+    public int d;
+
+    private EuclideanDistance dm;
+    private List<Vec> vecs;
+    private List<Double> cache;
+    private Vec query;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        dm = new EuclideanDistance();
+        vecs = BenchmarkData.denseVectors(n, d, rand);
+        cache = dm.getAccelerationCache(vecs);
+        query = BenchmarkData.denseVector(d, rand);
+    }
+
+    @Benchmark
+    public double distNoCache()
+    {
+        double sum = 0;
+        for(int i = 0; i < vecs.size(); i++)
+            sum += dm.dist(vecs.get(i), query);
+        return sum;
+    }
+
+    @Benchmark
+    public double distWithCache()
+    {
+        List<Double> qi = dm.getQueryInfo(query);
+        double sum = 0;
+        for(int i = 0; i < vecs.size(); i++)
+            sum += dm.dist(i, query, qi, vecs, cache);
+        return sum;
+    }
+}
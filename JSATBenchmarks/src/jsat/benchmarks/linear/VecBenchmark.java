@@ -0,0 +1,104 @@
+package jsat.benchmarks.linear;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.linear.DenseVector;
+import jsat.linear.SparseVector;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the basic vector operations {@link jsat.linear.Vec#dot(jsat.linear.Vec) }
+ * and {@link jsat.linear.Vec#mutableAdd(double, jsat.linear.Vec) } for dense
+ * and sparse vectors, including the mixed sparse-dense cases.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VecBenchmark
+{
+    /**
+     * The length of the vectors
+     */
+    @Param({"100", "10000"})
+    public int d;
+    /**
+     * The fraction of values in the sparse vectors that are non zero
+     */
+    @Param({"0.01"})
+    public double density;
+
+    private DenseVector denseA;
+    private DenseVector denseB;
+    private SparseVector sparseA;
+    private SparseVector sparseB;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        int nnz = Math.max(1, (int) (d*density));
+        denseA = BenchmarkData.denseVector(d, rand);
+        denseB = BenchmarkData.denseVector(d, rand);
+        sparseA = BenchmarkData.sparseVector(d, nnz, rand);
+        sparseB = BenchmarkData.sparseVector(d, nnz, rand);
+    }
+
+    @Benchmark
+    public double dotDenseDense()
+    {
+        return denseA.dot(denseB);
+    }
+
+    @Benchmark
+    public double dotSparseDense()
+    {
+        return sparseA.dot(denseB);
+    }
+
+    @Benchmark
+    public double dotDenseSparse()
+    {
+        return denseA.dot(sparseB);
+    }
+
+    @Benchmark
+    public double dotSparseSparse()
+    {
+        return sparseA.dot(sparseB);
+    }
+
+    /*
+     * The mutableAdd benchmarks alternate the sign of the added vector so that
+     * the values do not grow without bound over the run
+     */
+
+    @Benchmark
+    public DenseVector mutableAddDenseDense()
+    {
+        denseA.mutableAdd(1e-3, denseB);
+        denseA.mutableAdd(-1e-3, denseB);
+        return denseA;
+    }
+
+    @Benchmark
+    public DenseVector mutableAddDenseSparse()
+    {
+        denseA.mutableAdd(1e-3, sparseB);
+        denseA.mutableAdd(-1e-3, sparseB);
+        return denseA;
+    }
+
+    @Benchmark
+    public SparseVector mutableAddSparseSparse()
+    {
+        sparseA.mutableAdd(1e-3, sparseB);
+        sparseA.mutableAdd(-1e-3, sparseB);
+        return sparseA;
+    }
+}
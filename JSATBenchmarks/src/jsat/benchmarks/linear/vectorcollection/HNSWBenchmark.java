@@ -0,0 +1,112 @@
+package jsat.benchmarks.linear.vectorcollection;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.linear.Vec;
+import jsat.linear.VecPaired;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.vectorcollection.HNSW;
+import jsat.linear.vectorcollection.VectorArray;
+import jsat.linear.vectorcollection.VectorCollection;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the queries per second of {@link HNSW} as <i>ef</i> changes,
+ * against the exact search of {@link VectorArray}. The recall@<i>k</i> of the
+ * HNSW results, using the VectorArray as the ground truth, is printed when
+ * each trial is set up, so each throughput can be matched with its recall.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HNSWBenchmark
+{
+    /**
+     * The vector collection to benchmark
+     */
+    @Param({"HNSW", "VectorArray"})
+    public String collection;
+    /**
+     * The number of vectors in the collection
+     */
+    @Param({"100000"})
+    public int n;
+    /**
+     * The length of each vector
+     */
+    @Param({"64", "256"})
+    public int d;
+    /**
+     * The number of candidates HNSW keeps when searching
+     */
+    @Param({"10", "50", "100", "200", "400"})
+    public int ef;
+    /**
+     * The number of neighbors to search for
+     */
+    @Param({"10"})
+    public int k;
+    /**
+     * The number of queries done per invocation
+     */
+    @Param({"100"})
+    public int queries;
+
+    private VectorCollection<Vec> vc;
+    private List<Vec> queryVecs;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        List<Vec> vecs = BenchmarkData.denseVectors(n, d, rand);
+        queryVecs = BenchmarkData.denseVectors(queries, d, rand);
+        EuclideanDistance dm = new EuclideanDistance();
+        VectorArray<Vec> truth = new VectorArray<Vec>(dm, vecs);
+        if(collection.equals("VectorArray"))
+        {
+            vc = truth;
+            return;
+        }
+        else if(!collection.equals("HNSW"))
+            throw new IllegalArgumentException("Unknown collection " + collection);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+        HNSW<Vec> hnsw = new HNSW<Vec>(vecs, dm, 16, 200, threadPool);
+        threadPool.shutdownNow();
+        hnsw.setEf(ef);
+        vc = hnsw;
+
+        int found = 0;
+        for(Vec q : queryVecs)
+        {
+            Set<Vec> trueNNs = new HashSet<Vec>();
+            for(VecPaired<Vec, Double> v : truth.search(q, k))
+                trueNNs.add(v.getVector());
+            for(VecPaired<Vec, Double> v : hnsw.search(q, k))
+                if(trueNNs.contains(v.getVector()))
+                    found++;
+        }
+        System.out.println("HNSW n=" + n + " d=" + d + " ef=" + ef + " recall@" + k + " = " + found/(double)(k*queries));
+    }
+
+    @Benchmark
+    public void search(Blackhole bh)
+    {
+        for(Vec q : queryVecs)
+            bh.consume(vc.search(q, k));
+    }
+}
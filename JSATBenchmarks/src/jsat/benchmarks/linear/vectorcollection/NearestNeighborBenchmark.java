@@ -0,0 +1,85 @@
+package jsat.benchmarks.linear.vectorcollection;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.benchmarks.BenchmarkData;
+import jsat.linear.Vec;
+import jsat.linear.distancemetrics.EuclideanDistance;
+import jsat.linear.vectorcollection.*;
+import jsat.linear.vectorcollection.lsh.RandomProjectionLSH;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the <i>k</i>-NN search of the {@link VectorCollection}
+ * implementations. The collection is built once per trial, and each
+ * invocation searches for the neighbors of a batch of query points. The
+ * {@link RandomProjectionLSH} approximates the cosine distance rather than
+ * the Euclidean distance used by the other collections.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearestNeighborBenchmark
+{
+    /**
+     * The vector collection to benchmark
+     */
+    @Param({"KDTree", "VPTree", "RandomBallCover", "RandomProjectionLSH"})
+    public String collection;
+    /**
+     * The number of vectors in the collection
+     */
+    @Param({"20000"})
+    public int n;
+    /**
+     * The length of each vector
+     */
+    @Param({"8", "64"})
+    public int d;
+    /**
+     * The number of neighbors to search for
+     */
+    @Param({"10"})
+    public int k;
+    /**
+     * The number of queries done per invocation
+     */
+    @Param({"100"})
+    public int queries;
+
+    private VectorCollection<Vec> vc;
+    private List<Vec> queryVecs;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        List<Vec> vecs = BenchmarkData.denseVectors(n, d, rand);
+        queryVecs = BenchmarkData.denseVectors(queries, d, rand);
+        EuclideanDistance dm = new EuclideanDistance();
+        if(collection.equals("KDTree"))
+            vc = new KDTree<Vec>(vecs, dm);
+        else if(collection.equals("VPTree"))
+            vc = new VPTree<Vec>(vecs, dm);
+        else if(collection.equals("RandomBallCover"))
+            vc = new RandomBallCover<Vec>(vecs, dm);
+        else if(collection.equals("RandomProjectionLSH"))
+            vc = new RandomProjectionLSH<Vec>(vecs, 16, true);
+        else
+            throw new IllegalArgumentException("Unknown collection " + collection);
+    }
+
+    @Benchmark
+    public void search(Blackhole bh)
+    {
+        for(Vec q : queryVecs)
+            bh.consume(vc.search(q, k));
+    }
+}
@@ -0,0 +1,78 @@
+package jsat.benchmarks.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jsat.text.tokenizer.NaiveTokenizer;
+import jsat.text.tokenizer.TokenHash;
+import jsat.utils.IntList;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares hashing the tokens of {@link NaiveTokenizer} in place against
+ * creating a String for each token and hashing it. The score is the number of
+ * documents processed per second; each document is {@link #length} characters
+ * long.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashingTokenizerBenchmark
+{
+    /**
+     * The number of characters in the document
+     */
+    @Param({"1000000"})
+    public int length;
+
+    private String text;
+    private NaiveTokenizer tokenizer;
+    private IntList hashes;
+    private StringBuilder workSpace;
+    private List<String> storageSpace;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length)
+        {
+            int wordLength = 1 + rand.nextInt(9);
+            for (int i = 0; i < wordLength; i++)
+                sb.append((char) ('a' + rand.nextInt(26)));
+            sb.append(rand.nextInt(10) == 0 ? ", " : " ");
+        }
+        text = sb.toString();
+        tokenizer = new NaiveTokenizer();
+        hashes = new IntList();
+        workSpace = new StringBuilder();
+        storageSpace = new ArrayList<String>();
+    }
+
+    @Benchmark
+    public int hashTokens()
+    {
+        hashes.clear();
+        tokenizer.hashTokens(text, hashes);
+        return hashes.size();
+    }
+
+    @Benchmark
+    public int tokenizeThenHash()
+    {
+        hashes.clear();
+        workSpace.setLength(0);
+        storageSpace.clear();
+        tokenizer.tokenize(text, workSpace, storageSpace);
+        for (String token : storageSpace)
+            hashes.add(TokenHash.hash(token));
+        return hashes.size();
+    }
+}
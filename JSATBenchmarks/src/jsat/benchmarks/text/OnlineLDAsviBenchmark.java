@@ -0,0 +1,90 @@
+package jsat.benchmarks.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.linear.SparseVector;
+import jsat.linear.Vec;
+import jsat.text.topicmodel.OnlineLDAsvi;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the mini-batch updates of {@link OnlineLDAsvi} with a thread
+ * pool, on random sparse documents drawn from a large vocabulary with a skewed
+ * word frequency.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OnlineLDAsviBenchmark
+{
+    /**
+     * The number of topics
+     */
+    @Param({"100", "500"})
+    public int K;
+    /**
+     * The vocabulary size
+     */
+    @Param({"1000000"})
+    public int W;
+    /**
+     * The number of documents in each mini-batch
+     */
+    @Param({"1024"})
+    public int batchSize;
+    /**
+     * The number of mini-batches to update from
+     */
+    @Param({"20"})
+    public int batches;
+    /**
+     * The number of tokens in each document
+     */
+    @Param({"200"})
+    public int tokens;
+
+    private List<Vec> docs;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        docs = new ArrayList<Vec>(batchSize * batches);
+        for (int d = 0; d < batchSize * batches; d++)
+        {
+            SparseVector doc = new SparseVector(W);
+            for (int i = 0; i < tokens; i++)
+                doc.increment((int) (Math.pow(rand.nextDouble(), 3) * W), 1.0);
+            docs.add(doc);
+        }
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public OnlineLDAsvi update()
+    {
+        OnlineLDAsvi lda = new OnlineLDAsvi(K, 10000000, W);
+        lda.setAlpha(1.0 / K);
+        lda.setEta(1.0 / K);
+        for (int i = 0; i < docs.size(); i += batchSize)
+            lda.update(docs.subList(i, i + batchSize), threadPool);
+        return lda;
+    }
+}
@@ -0,0 +1,103 @@
+package jsat.benchmarks.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import jsat.DataSet;
+import jsat.text.TextDataLoader;
+import jsat.text.tokenizer.NaiveTokenizer;
+import jsat.text.wordweighting.TfIdf;
+import jsat.utils.SystemInfo;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks building the vocabulary and document vectors of a
+ * {@link TextDataLoader} in the calling thread and with a thread pool. The
+ * documents are random words with a skewed frequency, so that a few words are
+ * common and most are rare.
+ *
+ * @author Edward Raff
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TextDataLoaderBenchmark
+{
+    /**
+     * The number of documents to load
+     */
+    @Param({"200000"})
+    public int documents;
+    /**
+     * The average number of tokens in a document
+     */
+    @Param({"200"})
+    public int tokens;
+    /**
+     * The number of distinct words to draw tokens from
+     */
+    @Param({"100000"})
+    public int vocabulary;
+
+    private List<String> texts;
+    private ExecutorService threadPool;
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(42);
+        texts = new ArrayList<String>(documents);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < documents; i++)
+        {
+            sb.setLength(0);
+            int words = rand.nextInt(tokens * 2);
+            for (int j = 0; j < words; j++)
+                sb.append("w").append((int) (Math.pow(rand.nextDouble(), 3) * vocabulary)).append(' ');
+            texts.add(sb.toString());
+        }
+        threadPool = Executors.newFixedThreadPool(SystemInfo.LogicalCores);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        threadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public DataSet load()
+    {
+        return new ListLoader(texts).getDataSet();
+    }
+
+    @Benchmark
+    public DataSet loadParallel()
+    {
+        return new ListLoader(texts).getDataSet(threadPool);
+    }
+
+    private static class ListLoader extends TextDataLoader
+    {
+        private final List<String> texts;
+
+        public ListLoader(List<String> texts)
+        {
+            super(new NaiveTokenizer(), new TfIdf());
+            this.texts = texts;
+        }
+
+        @Override
+        public void initialLoad()
+        {
+            for (String text : texts)
+                addOriginalDocument(text);
+        }
+    }
+}